@@ -71,6 +71,30 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_munmap0
     return munmap((void *) address, (size_t) len);
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // advice values are defined by io.questdb.std.Files
+    int adv;
+    switch (advice) {
+        case 1:
+            adv = MADV_RANDOM;
+            break;
+        case 2:
+            adv = MADV_SEQUENTIAL;
+            break;
+        case 3:
+            adv = MADV_WILLNEED;
+            break;
+        case 4:
+            adv = MADV_DONTNEED;
+            break;
+        default:
+            adv = MADV_NORMAL;
+            break;
+    }
+    return madvise((void *) address, (size_t) len, adv);
+}
+
 JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_append
         (JNIEnv *e, jclass cl,
          jlong fd,
@@ -49,6 +49,13 @@
 
 #define HAS_NULL F_AVX512(hasNull)
 
+#define FILTER_INT_BETWEEN F_AVX512(filterIntBetween)
+#define FILTER_INT_NOT_BETWEEN F_AVX512(filterIntNotBetween)
+#define FILTER_LONG_BETWEEN F_AVX512(filterLongBetween)
+#define FILTER_LONG_NOT_BETWEEN F_AVX512(filterLongNotBetween)
+#define FILTER_DOUBLE_BETWEEN F_AVX512(filterDoubleBetween)
+#define FILTER_INT_IN F_AVX512(filterIntIn)
+
 #elif INSTRSET >= 8
 
 #define SUM_DOUBLE F_AVX2(sumDouble)
@@ -70,6 +77,13 @@
 
 #define HAS_NULL F_AVX2(hasNull)
 
+#define FILTER_INT_BETWEEN F_AVX2(filterIntBetween)
+#define FILTER_INT_NOT_BETWEEN F_AVX2(filterIntNotBetween)
+#define FILTER_LONG_BETWEEN F_AVX2(filterLongBetween)
+#define FILTER_LONG_NOT_BETWEEN F_AVX2(filterLongNotBetween)
+#define FILTER_DOUBLE_BETWEEN F_AVX2(filterDoubleBetween)
+#define FILTER_INT_IN F_AVX2(filterIntIn)
+
 #elif INSTRSET >= 5
 
 #define SUM_DOUBLE F_SSE41(sumDouble)
@@ -91,6 +105,13 @@
 
 #define HAS_NULL F_SSE41(hasNull)
 
+#define FILTER_INT_BETWEEN F_SSE41(filterIntBetween)
+#define FILTER_INT_NOT_BETWEEN F_SSE41(filterIntNotBetween)
+#define FILTER_LONG_BETWEEN F_SSE41(filterLongBetween)
+#define FILTER_LONG_NOT_BETWEEN F_SSE41(filterLongNotBetween)
+#define FILTER_DOUBLE_BETWEEN F_SSE41(filterDoubleBetween)
+#define FILTER_INT_IN F_SSE41(filterIntIn)
+
 #elif INSTRSET >= 2
 
 #define SUM_DOUBLE F_SSE2(sumDouble)
@@ -112,6 +133,13 @@
 
 #define HAS_NULL F_SSE2(hasNull)
 
+#define FILTER_INT_BETWEEN F_SSE2(filterIntBetween)
+#define FILTER_INT_NOT_BETWEEN F_SSE2(filterIntNotBetween)
+#define FILTER_LONG_BETWEEN F_SSE2(filterLongBetween)
+#define FILTER_LONG_NOT_BETWEEN F_SSE2(filterLongNotBetween)
+#define FILTER_DOUBLE_BETWEEN F_SSE2(filterDoubleBetween)
+#define FILTER_INT_IN F_SSE2(filterIntIn)
+
 #else
 
 #endif
@@ -600,6 +628,154 @@ double MAX_DOUBLE(double *d, int64_t count) {
 
 #endif
 
+#ifdef FILTER_INT_BETWEEN
+
+// writes rows of set bits of the mask, the first bit stands for row "row"
+static inline int64_t *put_rows(uint32_t bits, int64_t row, int64_t *rows) {
+    while (bits != 0) {
+        *rows++ = row + bit_scan_forward(bits);
+        bits &= bits - 1;
+    }
+    return rows;
+}
+
+int64_t FILTER_INT_BETWEEN(int32_t *pi, int64_t count, int32_t lo, int32_t hi, int64_t rowLo, int64_t *rows) {
+    const int32_t step = 16;
+    const int64_t lim_vec = count - count % step;
+    int64_t *out = rows;
+    Vec16i vec;
+    int64_t i = 0;
+    for (; i < lim_vec; i += step) {
+        _mm_prefetch(pi + i + 63 * step, _MM_HINT_T1);
+        vec.load(pi + i);
+        out = put_rows(to_bits(vec >= lo && vec <= hi), rowLo + i, out);
+    }
+
+    for (; i < count; i++) {
+        const int32_t v = pi[i];
+        if (v >= lo && v <= hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t FILTER_INT_NOT_BETWEEN(int32_t *pi, int64_t count, int32_t lo, int32_t hi, int64_t rowLo, int64_t *rows) {
+    const int32_t step = 16;
+    const int64_t lim_vec = count - count % step;
+    int64_t *out = rows;
+    Vec16i vec;
+    int64_t i = 0;
+    for (; i < lim_vec; i += step) {
+        _mm_prefetch(pi + i + 63 * step, _MM_HINT_T1);
+        vec.load(pi + i);
+        out = put_rows(to_bits(vec < lo || vec > hi), rowLo + i, out);
+    }
+
+    for (; i < count; i++) {
+        const int32_t v = pi[i];
+        if (v < lo || v > hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t FILTER_LONG_BETWEEN(int64_t *pl, int64_t count, int64_t lo, int64_t hi, int64_t rowLo, int64_t *rows) {
+    const int32_t step = 8;
+    const int64_t lim_vec = count - count % step;
+    int64_t *out = rows;
+    Vec8q vec;
+    int64_t i = 0;
+    for (; i < lim_vec; i += step) {
+        _mm_prefetch(pl + i + 63 * step, _MM_HINT_T1);
+        vec.load(pl + i);
+        out = put_rows(to_bits(vec >= lo && vec <= hi), rowLo + i, out);
+    }
+
+    for (; i < count; i++) {
+        const int64_t v = pl[i];
+        if (v >= lo && v <= hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t FILTER_LONG_NOT_BETWEEN(int64_t *pl, int64_t count, int64_t lo, int64_t hi, int64_t rowLo, int64_t *rows) {
+    const int32_t step = 8;
+    const int64_t lim_vec = count - count % step;
+    int64_t *out = rows;
+    Vec8q vec;
+    int64_t i = 0;
+    for (; i < lim_vec; i += step) {
+        _mm_prefetch(pl + i + 63 * step, _MM_HINT_T1);
+        vec.load(pl + i);
+        out = put_rows(to_bits(vec < lo || vec > hi), rowLo + i, out);
+    }
+
+    for (; i < count; i++) {
+        const int64_t v = pl[i];
+        if (v < lo || v > hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t FILTER_DOUBLE_BETWEEN(double *d, int64_t count, double lo, double hi, int64_t rowLo, int64_t *rows) {
+    const int32_t step = 8;
+    const int64_t lim_vec = count - count % step;
+    int64_t *out = rows;
+    Vec8d vec;
+    int64_t i = 0;
+    for (; i < lim_vec; i += step) {
+        _mm_prefetch(d + i + 63 * step, _MM_HINT_T1);
+        vec.load(d + i);
+        // NaN fails both comparisons
+        out = put_rows(to_bits(vec >= lo && vec <= hi), rowLo + i, out);
+    }
+
+    for (; i < count; i++) {
+        const double v = d[i];
+        if (v >= lo && v <= hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t FILTER_INT_IN(int32_t *pi, int64_t count, int32_t *keys, int64_t keyCount, int64_t rowLo, int64_t *rows) {
+    const int32_t step = 16;
+    const int64_t lim_vec = count - count % step;
+    int64_t *out = rows;
+    Vec16i vec;
+    int64_t i = 0;
+    for (; i < lim_vec; i += step) {
+        _mm_prefetch(pi + i + 63 * step, _MM_HINT_T1);
+        vec.load(pi + i);
+        // key list is short, every key is compared with the whole vector
+        Vec16ib match = vec == keys[0];
+        for (int64_t k = 1; k < keyCount; k++) {
+            match |= vec == keys[k];
+        }
+        out = put_rows(to_bits(match), rowLo + i, out);
+    }
+
+    for (; i < count; i++) {
+        const int32_t v = pi[i];
+        for (int64_t k = 0; k < keyCount; k++) {
+            if (v == keys[k]) {
+                *out++ = rowLo + i;
+                break;
+            }
+        }
+    }
+    return out - rows;
+}
+
+#endif
+
 #if INSTRSET < 5
 
 // Dispatchers
@@ -621,6 +797,13 @@ LONG_DOUBLE_DISPATCHER(avgLong)
 LONG_LONG_DISPATCHER(minLong)
 LONG_LONG_DISPATCHER(maxLong)
 
+FILTER_DISPATCHER(filterIntBetween, int32_t, jint)
+FILTER_DISPATCHER(filterIntNotBetween, int32_t, jint)
+FILTER_DISPATCHER(filterLongBetween, int64_t, jlong)
+FILTER_DISPATCHER(filterLongNotBetween, int64_t, jlong)
+FILTER_DISPATCHER(filterDoubleBetween, double, jdouble)
+FILTER_IN_DISPATCHER(filterIntIn, int32_t)
+
 extern "C" {
 JNIEXPORT jdouble JNICALL Java_io_questdb_std_Vect_getSupportedInstructionSet(JNIEnv *env, jclass cl) {
     return instrset_detect();
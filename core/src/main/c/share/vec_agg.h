@@ -278,4 +278,76 @@ JNIEXPORT jboolean JNICALL Java_io_questdb_std_Vect_ ## func(JNIEnv *env, jclass
 \
 }
 
+// filter writes rows of values that pass it to "rows" and returns their count
+#define FILTER_DISPATCHER(func, T, JT) \
+\
+typedef int64_t func ## _type(T *, int64_t, T, T, int64_t, int64_t *); \
+\
+func ## _type F_SSE2(func), F_SSE41(func), F_AVX2(func), F_AVX512(func), F_DISPATCH(func); \
+\
+func ## _type *POINTER_NAME(func) = &func ## _dispatch; \
+\
+int64_t F_DISPATCH(func) (T *p, int64_t count, T lo, T hi, int64_t rowLo, int64_t *rows) { \
+    const int iset = instrset_detect();  \
+    if (iset >= 10) { \
+        POINTER_NAME(func) = &F_AVX512(func); \
+    } else if (iset >= 8) { \
+        POINTER_NAME(func) = &F_AVX2(func); \
+    } else if (iset >= 5) { \
+        POINTER_NAME(func) = &F_SSE41(func); \
+    } else if (iset >= 2) { \
+        POINTER_NAME(func) = &F_SSE2(func); \
+    } else { \
+        POINTER_NAME(func) = &F_VANILLA(func); \
+    }\
+    return (*POINTER_NAME(func))(p, count, lo, hi, rowLo, rows); \
+} \
+\
+inline int64_t func(T *p, int64_t count, T lo, T hi, int64_t rowLo, int64_t *rows) { \
+return (*POINTER_NAME(func))(p, count, lo, hi, rowLo, rows); \
+}\
+\
+extern "C" { \
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Vect_ ## func(JNIEnv *env, jclass cl, jlong pValues, jlong count, JT lo, JT hi, jlong rowLo, jlong pRows) { \
+    return func((T *) pValues, count, lo, hi, rowLo, (int64_t *) pRows); \
+}\
+\
+}
+
+// filter writes rows of values that equal one of "keyCount" keys to "rows" and returns their count
+#define FILTER_IN_DISPATCHER(func, T) \
+\
+typedef int64_t func ## _type(T *, int64_t, T *, int64_t, int64_t, int64_t *); \
+\
+func ## _type F_SSE2(func), F_SSE41(func), F_AVX2(func), F_AVX512(func), F_DISPATCH(func); \
+\
+func ## _type *POINTER_NAME(func) = &func ## _dispatch; \
+\
+int64_t F_DISPATCH(func) (T *p, int64_t count, T *keys, int64_t keyCount, int64_t rowLo, int64_t *rows) { \
+    const int iset = instrset_detect();  \
+    if (iset >= 10) { \
+        POINTER_NAME(func) = &F_AVX512(func); \
+    } else if (iset >= 8) { \
+        POINTER_NAME(func) = &F_AVX2(func); \
+    } else if (iset >= 5) { \
+        POINTER_NAME(func) = &F_SSE41(func); \
+    } else if (iset >= 2) { \
+        POINTER_NAME(func) = &F_SSE2(func); \
+    } else { \
+        POINTER_NAME(func) = &F_VANILLA(func); \
+    }\
+    return (*POINTER_NAME(func))(p, count, keys, keyCount, rowLo, rows); \
+} \
+\
+inline int64_t func(T *p, int64_t count, T *keys, int64_t keyCount, int64_t rowLo, int64_t *rows) { \
+return (*POINTER_NAME(func))(p, count, keys, keyCount, rowLo, rows); \
+}\
+\
+extern "C" { \
+JNIEXPORT jlong JNICALL Java_io_questdb_std_Vect_ ## func(JNIEnv *env, jclass cl, jlong pValues, jlong count, jlong pKeys, jlong keyCount, jlong rowLo, jlong pRows) { \
+    return func((T *) pValues, count, (T *) pKeys, keyCount, rowLo, (int64_t *) pRows); \
+}\
+\
+}
+
 #endif //VECT_H
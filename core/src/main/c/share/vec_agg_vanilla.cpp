@@ -246,3 +246,72 @@ double avgLong_Vanilla(int64_t *pl, int64_t count) {
     }
     return (double) sum / sumCount;
 }
+
+int64_t filterIntBetween_Vanilla(int32_t *pi, int64_t count, int32_t lo, int32_t hi, int64_t rowLo, int64_t *rows) {
+    int64_t *out = rows;
+    for (int64_t i = 0; i < count; i++) {
+        const int32_t v = pi[i];
+        if (v >= lo && v <= hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t filterIntNotBetween_Vanilla(int32_t *pi, int64_t count, int32_t lo, int32_t hi, int64_t rowLo, int64_t *rows) {
+    int64_t *out = rows;
+    for (int64_t i = 0; i < count; i++) {
+        const int32_t v = pi[i];
+        if (v < lo || v > hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t filterLongBetween_Vanilla(int64_t *pl, int64_t count, int64_t lo, int64_t hi, int64_t rowLo, int64_t *rows) {
+    int64_t *out = rows;
+    for (int64_t i = 0; i < count; i++) {
+        const int64_t v = pl[i];
+        if (v >= lo && v <= hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t filterLongNotBetween_Vanilla(int64_t *pl, int64_t count, int64_t lo, int64_t hi, int64_t rowLo, int64_t *rows) {
+    int64_t *out = rows;
+    for (int64_t i = 0; i < count; i++) {
+        const int64_t v = pl[i];
+        if (v < lo || v > hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t filterDoubleBetween_Vanilla(double *d, int64_t count, double lo, double hi, int64_t rowLo, int64_t *rows) {
+    int64_t *out = rows;
+    for (int64_t i = 0; i < count; i++) {
+        const double v = d[i];
+        if (v >= lo && v <= hi) {
+            *out++ = rowLo + i;
+        }
+    }
+    return out - rows;
+}
+
+int64_t filterIntIn_Vanilla(int32_t *pi, int64_t count, int32_t *keys, int64_t keyCount, int64_t rowLo, int64_t *rows) {
+    int64_t *out = rows;
+    for (int64_t i = 0; i < count; i++) {
+        const int32_t v = pi[i];
+        for (int64_t k = 0; k < keyCount; k++) {
+            if (v == keys[k]) {
+                *out++ = rowLo + i;
+                break;
+            }
+        }
+    }
+    return out - rows;
+}
@@ -57,4 +57,16 @@ double avgLong_Vanilla(int64_t *pl, int64_t count);
 
 bool hasNull_Vanilla(int32_t *pi, int64_t count);
 
+int64_t filterIntBetween_Vanilla(int32_t *pi, int64_t count, int32_t lo, int32_t hi, int64_t rowLo, int64_t *rows);
+
+int64_t filterIntNotBetween_Vanilla(int32_t *pi, int64_t count, int32_t lo, int32_t hi, int64_t rowLo, int64_t *rows);
+
+int64_t filterLongBetween_Vanilla(int64_t *pl, int64_t count, int64_t lo, int64_t hi, int64_t rowLo, int64_t *rows);
+
+int64_t filterLongNotBetween_Vanilla(int64_t *pl, int64_t count, int64_t lo, int64_t hi, int64_t rowLo, int64_t *rows);
+
+int64_t filterDoubleBetween_Vanilla(double *d, int64_t count, double lo, double hi, int64_t rowLo, int64_t *rows);
+
+int64_t filterIntIn_Vanilla(int32_t *pi, int64_t count, int32_t *keys, int64_t keyCount, int64_t rowLo, int64_t *rows);
+
 #endif //VECT_VANILLA_H
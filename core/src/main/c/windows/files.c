@@ -315,6 +315,12 @@ JNIEXPORT jint JNICALL Java_io_questdb_std_Files_munmap0
     }
 }
 
+JNIEXPORT jint JNICALL Java_io_questdb_std_Files_madvise0
+        (JNIEnv *e, jclass cl, jlong address, jlong len, jint advice) {
+    // there is no equivalent of madvise() for file views, advice is ignored
+    return 0;
+}
+
 JNIEXPORT jlong JNICALL Java_io_questdb_std_Files_mmap0
         (JNIEnv *e, jclass cl, jlong fd, jlong len, jlong offset, jint flags) {
     jlong maxsize = offset + len;
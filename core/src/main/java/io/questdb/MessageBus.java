@@ -24,10 +24,15 @@
 
 package io.questdb;
 
+import io.questdb.cairo.TableCommitNotifier;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.SCSequence;
 import io.questdb.mp.Sequence;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.HashJoinBuildTask;
+import io.questdb.tasks.LatestByAllSymbolTask;
+import io.questdb.tasks.PageFrameFilterTask;
+import io.questdb.tasks.SampleByTask;
 import io.questdb.tasks.TelemetryTask;
 import io.questdb.tasks.VectorAggregateTask;
 
@@ -44,11 +49,37 @@ public interface MessageBus {
 
     Sequence getVectorAggregateSubSequence();
 
+    RingQueue<PageFrameFilterTask> getPageFrameFilterQueue();
+
+    Sequence getPageFrameFilterPubSequence();
+
+    Sequence getPageFrameFilterSubSequence();
+
+    RingQueue<HashJoinBuildTask> getHashJoinBuildQueue();
+
+    Sequence getHashJoinBuildPubSequence();
+
+    Sequence getHashJoinBuildSubSequence();
+
+    RingQueue<SampleByTask> getSampleByQueue();
+
+    Sequence getSampleByPubSequence();
+
+    Sequence getSampleBySubSequence();
+
+    RingQueue<LatestByAllSymbolTask> getLatestByAllSymbolQueue();
+
+    Sequence getLatestByAllSymbolPubSequence();
+
+    Sequence getLatestByAllSymbolSubSequence();
+
     RingQueue<TelemetryTask> getTelemetryQueue();
 
     Sequence getTelemetryPubSequence();
 
     SCSequence getTelemetrySubSequence();
 
+    TableCommitNotifier getTableCommitNotifier();
+
     ServerConfiguration getConfiguration();
 }
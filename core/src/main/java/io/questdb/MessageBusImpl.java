@@ -24,8 +24,13 @@
 
 package io.questdb;
 
+import io.questdb.cairo.TableCommitNotifier;
 import io.questdb.mp.*;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.HashJoinBuildTask;
+import io.questdb.tasks.LatestByAllSymbolTask;
+import io.questdb.tasks.PageFrameFilterTask;
+import io.questdb.tasks.SampleByTask;
 import io.questdb.tasks.TelemetryTask;
 import io.questdb.tasks.VectorAggregateTask;
 import org.jetbrains.annotations.NotNull;
@@ -39,10 +44,28 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence vectorAggregatePubSeq;
     private final MCSequence vectorAggregateSubSeq;
 
+    private final RingQueue<PageFrameFilterTask> pageFrameFilterQueue;
+    private final MPSequence pageFrameFilterPubSeq;
+    private final MCSequence pageFrameFilterSubSeq;
+
+    private final RingQueue<HashJoinBuildTask> hashJoinBuildQueue;
+    private final MPSequence hashJoinBuildPubSeq;
+    private final MCSequence hashJoinBuildSubSeq;
+
+    private final RingQueue<SampleByTask> sampleByQueue;
+    private final MPSequence sampleByPubSeq;
+    private final MCSequence sampleBySubSeq;
+
+    private final RingQueue<LatestByAllSymbolTask> latestByAllSymbolQueue;
+    private final MPSequence latestByAllSymbolPubSeq;
+    private final MCSequence latestByAllSymbolSubSeq;
+
     private final RingQueue<TelemetryTask> telemetryQueue;
     private final MPSequence telemetryPubSeq;
     private final SCSequence telemetrySubSeq;
 
+    private final TableCommitNotifier tableCommitNotifier = new TableCommitNotifier();
+
     private final ServerConfiguration configuration;
 
     public MessageBusImpl(@NotNull ServerConfiguration configuration) {
@@ -56,12 +79,32 @@ public class MessageBusImpl implements MessageBus {
         this.vectorAggregatePubSeq = new MPSequence(vectorAggregateQueue.getCapacity());
         this.vectorAggregateSubSeq = new MCSequence(vectorAggregateQueue.getCapacity());
 
+        this.pageFrameFilterQueue = new RingQueue<>(PageFrameFilterTask::new, 1024);
+        this.pageFrameFilterPubSeq = new MPSequence(pageFrameFilterQueue.getCapacity());
+        this.pageFrameFilterSubSeq = new MCSequence(pageFrameFilterQueue.getCapacity());
+
+        this.hashJoinBuildQueue = new RingQueue<>(HashJoinBuildTask::new, 1024);
+        this.hashJoinBuildPubSeq = new MPSequence(hashJoinBuildQueue.getCapacity());
+        this.hashJoinBuildSubSeq = new MCSequence(hashJoinBuildQueue.getCapacity());
+
+        this.sampleByQueue = new RingQueue<>(SampleByTask::new, 1024);
+        this.sampleByPubSeq = new MPSequence(sampleByQueue.getCapacity());
+        this.sampleBySubSeq = new MCSequence(sampleByQueue.getCapacity());
+
+        this.latestByAllSymbolQueue = new RingQueue<>(LatestByAllSymbolTask::new, 1024);
+        this.latestByAllSymbolPubSeq = new MPSequence(latestByAllSymbolQueue.getCapacity());
+        this.latestByAllSymbolSubSeq = new MCSequence(latestByAllSymbolQueue.getCapacity());
+
         this.telemetryQueue = new RingQueue<>(TelemetryTask::new, configuration.getTelemetryConfiguration().getQueueCapacity());
         this.telemetryPubSeq = new MPSequence(telemetryQueue.getCapacity());
         this.telemetrySubSeq = new SCSequence();
 
         indexerPubSeq.then(indexerSubSeq).then(indexerPubSeq);
         vectorAggregatePubSeq.then(vectorAggregateSubSeq).then(vectorAggregatePubSeq);
+        pageFrameFilterPubSeq.then(pageFrameFilterSubSeq).then(pageFrameFilterPubSeq);
+        hashJoinBuildPubSeq.then(hashJoinBuildSubSeq).then(hashJoinBuildPubSeq);
+        sampleByPubSeq.then(sampleBySubSeq).then(sampleByPubSeq);
+        latestByAllSymbolPubSeq.then(latestByAllSymbolSubSeq).then(latestByAllSymbolPubSeq);
         telemetryPubSeq.then(telemetrySubSeq).then(telemetryPubSeq);
     }
 
@@ -100,6 +143,66 @@ public class MessageBusImpl implements MessageBus {
         return vectorAggregateSubSeq;
     }
 
+    @Override
+    public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+        return pageFrameFilterQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameFilterPubSequence() {
+        return pageFrameFilterPubSeq;
+    }
+
+    @Override
+    public Sequence getPageFrameFilterSubSequence() {
+        return pageFrameFilterSubSeq;
+    }
+
+    @Override
+    public RingQueue<HashJoinBuildTask> getHashJoinBuildQueue() {
+        return hashJoinBuildQueue;
+    }
+
+    @Override
+    public Sequence getHashJoinBuildPubSequence() {
+        return hashJoinBuildPubSeq;
+    }
+
+    @Override
+    public Sequence getHashJoinBuildSubSequence() {
+        return hashJoinBuildSubSeq;
+    }
+
+    @Override
+    public RingQueue<SampleByTask> getSampleByQueue() {
+        return sampleByQueue;
+    }
+
+    @Override
+    public Sequence getSampleByPubSequence() {
+        return sampleByPubSeq;
+    }
+
+    @Override
+    public Sequence getSampleBySubSequence() {
+        return sampleBySubSeq;
+    }
+
+    @Override
+    public RingQueue<LatestByAllSymbolTask> getLatestByAllSymbolQueue() {
+        return latestByAllSymbolQueue;
+    }
+
+    @Override
+    public Sequence getLatestByAllSymbolPubSequence() {
+        return latestByAllSymbolPubSeq;
+    }
+
+    @Override
+    public Sequence getLatestByAllSymbolSubSequence() {
+        return latestByAllSymbolSubSeq;
+    }
+
     @Override
     public RingQueue<TelemetryTask> getTelemetryQueue() {
         return telemetryQueue;
@@ -114,4 +217,9 @@ public class MessageBusImpl implements MessageBus {
     public SCSequence getTelemetrySubSequence() {
         return telemetrySubSeq;
     }
+
+    @Override
+    public TableCommitNotifier getTableCommitNotifier() {
+        return tableCommitNotifier;
+    }
 }
@@ -77,6 +77,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int mkdirMode;
     private final int parallelIndexThreshold;
     private final int readerPoolMaxSegments;
+    private final long readerPoolAcquireTimeout;
     private final long spinLockTimeoutUs;
     private final int sqlCacheRows;
     private final int sqlCacheBlocks;
@@ -101,12 +102,28 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlHashJoinValuePageSize;
     private final int sqlHashJoinValueMaxPages;
     private final long sqlLatestByRowCount;
+    private final long sqlLargeScanRowCount;
     private final int sqlHashJoinLightValuePageSize;
     private final int sqlHashJoinLightValueMaxPages;
     private final int sqlSortValuePageSize;
     private final int sqlSortValueMaxPages;
+    private final long sqlSortMemoryBudget;
+    private final long sqlGroupByMemoryBudget;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean outOfOrderEnabled;
+    private final long outOfOrderPageSize;
+    private final long partitionTtlCheckInterval;
+    private final boolean walEnabled;
+    private final long walApplyInterval;
+    private final long walSegmentMaxAge;
+    private final long walSegmentMaxRows;
+    private final boolean sqlParallelFilterEnabled;
+    private final boolean sqlParallelSampleByEnabled;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final boolean sqlParallelLatestByEnabled;
+    private final boolean sqlFilterKernelEnabled;
+    private final boolean sqlGroupByEncodedKeysEnabled;
     private final int sqlJoinMetadataPageSize;
     private final int sqlJoinMetadataMaxResizes;
     private final int lineUdpCommitRate;
@@ -201,6 +218,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private boolean httpFrozenClock;
     private boolean readOnlySecurityContext;
     private long maxHttpQueryResponseRowLimit;
+    private long jsonQueryTailIdleTimeout;
     private boolean interruptOnClosedConnection;
     private int interruptorNIterationsPerCheck;
     private int interruptorBufferSize;
@@ -331,6 +349,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.jsonQueryConnectionCheckFrequency = getInt(properties, "http.json.query.connection.check.frequency", 1_000_000);
             this.jsonQueryFloatScale = getInt(properties, "http.json.query.float.scale", 4);
             this.jsonQueryDoubleScale = getInt(properties, "http.json.query.double.scale", 12);
+            this.jsonQueryTailIdleTimeout = getLong(properties, "http.json.query.tail.idle.timeout", 5 * 60 * 1000L);
             this.readOnlySecurityContext = getBoolean(properties, "http.security.readonly", false);
             this.maxHttpQueryResponseRowLimit = getLong(properties, "http.security.max.response.rows", Long.MAX_VALUE);
             this.interruptOnClosedConnection = getBoolean(properties, "http.security.interrupt.on.closed.connection", true);
@@ -404,6 +423,7 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.mkdirMode = getInt(properties, "cairo.mkdir.mode", 509);
         this.parallelIndexThreshold = getInt(properties, "cairo.parallel.index.threshold", 100000);
         this.readerPoolMaxSegments = getInt(properties, "cairo.reader.pool.max.segments", 5);
+        this.readerPoolAcquireTimeout = getLong(properties, "cairo.reader.pool.acquire.timeout", 1000);
         this.spinLockTimeoutUs = getLong(properties, "cairo.spin.lock.timeout", 1_000_000);
         this.sqlCacheRows = getInt(properties, "cairo.cache.rows", 16);
         this.sqlCacheBlocks = getIntSize(properties, "cairo.cache.blocks", 4);
@@ -427,12 +447,32 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlHashJoinValuePageSize = getIntSize(properties, "cairo.sql.hash.join.value.page.size", 16777216);
         this.sqlHashJoinValueMaxPages = getIntSize(properties, "cairo.sql.hash.join.value.max.pages", Integer.MAX_VALUE);
         this.sqlLatestByRowCount = getInt(properties, "cairo.sql.latest.by.row.count", 1000);
+        this.sqlLargeScanRowCount = getLong(properties, "cairo.sql.large.scan.row.count", 1_000_000);
         this.sqlHashJoinLightValuePageSize = getIntSize(properties, "cairo.sql.hash.join.light.value.page.size", 1048576);
         this.sqlHashJoinLightValueMaxPages = getIntSize(properties, "cairo.sql.hash.join.light.value.max.pages", Integer.MAX_VALUE);
         this.sqlSortValuePageSize = getIntSize(properties, "cairo.sql.sort.value.page.size", 16777216);
         this.sqlSortValueMaxPages = getIntSize(properties, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
+        this.sqlSortMemoryBudget = getLongSize(properties, "cairo.sql.sort.memory.budget", 1024L * 1024 * 1024);
+        this.sqlGroupByMemoryBudget = getLongSize(properties, "cairo.sql.groupby.memory.budget", 1024L * 1024 * 1024);
         this.workStealTimeoutNanos = getLong(properties, "cairo.work.steal.timeout.nanos", 10_000);
         this.parallelIndexingEnabled = getBoolean(properties, "cairo.parallel.indexing.enabled", true);
+        this.outOfOrderEnabled = getBoolean(properties, "cairo.out.of.order.enabled", false);
+        this.outOfOrderPageSize = getLongSize(properties, "cairo.out.of.order.page.size", 1024 * 1024);
+        this.partitionTtlCheckInterval = getLong(properties, "cairo.partition.ttl.check.interval", 60_000);
+        this.walEnabled = getBoolean(properties, "cairo.wal.enabled", false);
+        this.walApplyInterval = getLong(properties, "cairo.wal.apply.interval", 100);
+        this.walSegmentMaxAge = getLong(properties, "cairo.wal.segment.max.age", 1000);
+        this.walSegmentMaxRows = getLong(properties, "cairo.wal.segment.max.rows", 100_000);
+        if (walEnabled && !outOfOrderEnabled) {
+            // rows of write-ahead log can be older than rows committed to the table meanwhile
+            throw new ServerConfigurationException("cairo.wal.enabled", "true, requires cairo.out.of.order.enabled=true");
+        }
+        this.sqlParallelFilterEnabled = getBoolean(properties, "cairo.sql.parallel.filter.enabled", true);
+        this.sqlParallelSampleByEnabled = getBoolean(properties, "cairo.sql.parallel.sample.by.enabled", true);
+        this.sqlParallelHashJoinEnabled = getBoolean(properties, "cairo.sql.parallel.hash.join.enabled", true);
+        this.sqlParallelLatestByEnabled = getBoolean(properties, "cairo.sql.parallel.latest.by.enabled", true);
+        this.sqlFilterKernelEnabled = getBoolean(properties, "cairo.sql.filter.kernel.enabled", true);
+        this.sqlGroupByEncodedKeysEnabled = getBoolean(properties, "cairo.sql.group.by.encoded.keys.enabled", true);
         this.sqlJoinMetadataPageSize = getIntSize(properties, "cairo.sql.join.metadata.page.size", 16384);
         this.sqlJoinMetadataMaxResizes = getIntSize(properties, "cairo.sql.join.metadata.max.resizes", Integer.MAX_VALUE);
         this.sqlAnalyticColumnPoolCapacity = getInt(properties, "cairo.sql.analytic.column.pool.capacity", 64);
@@ -1174,11 +1214,41 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexThreshold;
         }
 
+        @Override
+        public long getOutOfOrderPageSize() {
+            return outOfOrderPageSize;
+        }
+
+        @Override
+        public long getPartitionTtlCheckInterval() {
+            return partitionTtlCheckInterval;
+        }
+
+        @Override
+        public long getWalApplyInterval() {
+            return walApplyInterval;
+        }
+
+        @Override
+        public long getWalSegmentMaxAge() {
+            return walSegmentMaxAge;
+        }
+
+        @Override
+        public long getWalSegmentMaxRows() {
+            return walSegmentMaxRows;
+        }
+
         @Override
         public int getReaderPoolMaxSegments() {
             return readerPoolMaxSegments;
         }
 
+        @Override
+        public long getReaderPoolAcquireTimeout() {
+            return readerPoolAcquireTimeout;
+        }
+
         @Override
         public CharSequence getRoot() {
             return databaseRoot;
@@ -1314,6 +1384,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlLatestByRowCount;
         }
 
+        @Override
+        public long getSqlLargeScanRowCount() {
+            return sqlLargeScanRowCount;
+        }
+
         @Override
         public int getSqlHashJoinLightValuePageSize() {
             return sqlHashJoinLightValuePageSize;
@@ -1334,6 +1409,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlSortValueMaxPages;
         }
 
+        @Override
+        public long getSqlSortMemoryBudget() {
+            return sqlSortMemoryBudget;
+        }
+
+        @Override
+        public long getSqlGroupByMemoryBudget() {
+            return sqlGroupByMemoryBudget;
+        }
+
         @Override
         public TextConfiguration getTextConfiguration() {
             return textConfiguration;
@@ -1349,6 +1434,46 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isOutOfOrderEnabled() {
+            return outOfOrderEnabled;
+        }
+
+        @Override
+        public boolean isWalEnabled() {
+            return walEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelFilterEnabled() {
+            return sqlParallelFilterEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelSampleByEnabled() {
+            return sqlParallelSampleByEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelLatestByEnabled() {
+            return sqlParallelLatestByEnabled;
+        }
+
+        @Override
+        public boolean isSqlFilterKernelEnabled() {
+            return sqlFilterKernelEnabled;
+        }
+
+        @Override
+        public boolean isSqlGroupByEncodedKeysEnabled() {
+            return sqlGroupByEncodedKeysEnabled;
+        }
+
         @Override
         public int getSqlJoinMetadataPageSize() {
             return sqlJoinMetadataPageSize;
@@ -1715,6 +1840,11 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getMaxQueryResponseRowLimit() {
             return maxHttpQueryResponseRowLimit;
         }
+
+        @Override
+        public long getTailIdleTimeout() {
+            return jsonQueryTailIdleTimeout;
+        }
     }
 
     private class PropWorkerPoolConfiguration implements WorkerPoolConfiguration {
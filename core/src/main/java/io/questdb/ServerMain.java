@@ -61,6 +61,7 @@ import io.questdb.mp.WorkerPool;
 import io.questdb.network.NetworkError;
 import io.questdb.std.CharSequenceObjHashMap;
 import io.questdb.std.Chars;
+import io.questdb.std.Files;
 import io.questdb.std.Misc;
 import io.questdb.std.Os;
 import io.questdb.std.Vect;
@@ -154,6 +155,13 @@ public class ServerMain {
                 log.error().$("Unsupported OS ").$(Vect.getSupportedInstructionSetName()).$();
                 break;
         }
+        if (configuration.getCairoConfiguration().isSqlFilterKernelEnabled() && !Vect.isFilterSupported()) {
+            // filter kernels still work, they run Java loops instead of vector instructions
+            log.info().$("native filter kernels are off, native library predates them and has to be rebuilt").$();
+        }
+        if (!Files.isMadviseSupported()) {
+            log.info().$("scan advice is off, native library predates madvise() and has to be rebuilt").$();
+        }
 
         final WorkerPool workerPool = new WorkerPool(configuration.getWorkerPoolConfiguration());
         final MessageBus messageBus = new MessageBusImpl(configuration);
@@ -162,6 +170,10 @@ public class ServerMain {
         LogFactory.configureFromSystemProperties(workerPool);
         final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration(), messageBus);
         workerPool.assign(cairoEngine.getWriterMaintenanceJob());
+        workerPool.assign(cairoEngine.getPartitionTtlJob());
+        workerPool.assign(cairoEngine.getWalApplyJob());
+        workerPool.assign(cairoEngine.getReaderRefreshJob());
+        workerPool.assign(cairoEngine.getPartitionCompressionJob());
         // The TelemetryJob is always needed (even when telemetry is off) because it is responsible for
         // updating the telemetry_config table.
         final TelemetryJob telemetryJob = new TelemetryJob(configuration, cairoEngine, messageBus, functionFactoryCache);
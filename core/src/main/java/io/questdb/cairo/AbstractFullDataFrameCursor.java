@@ -27,6 +27,7 @@ package io.questdb.cairo;
 import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.std.Rows;
 
 public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
     protected final FullTableDataFrame frame = new FullTableDataFrame();
@@ -97,6 +98,11 @@ public abstract class AbstractFullDataFrameCursor implements DataFrameCursor {
             return rowLo;
         }
 
+        @Override
+        public long getFirstRowId() {
+            return Rows.toRowID(partitionIndex, rowLo);
+        }
+
         @Override
         public long getPageAddress(int columnIndex) {
             return reader.getPageAddressAt(partitionIndex, rowLo, columnIndex);
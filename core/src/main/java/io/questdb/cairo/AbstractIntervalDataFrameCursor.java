@@ -28,6 +28,7 @@ import io.questdb.cairo.sql.DataFrame;
 import io.questdb.cairo.sql.DataFrameCursor;
 import io.questdb.cairo.sql.StaticSymbolTable;
 import io.questdb.std.LongList;
+import io.questdb.std.Rows;
 import io.questdb.std.Transient;
 
 public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor {
@@ -204,6 +205,11 @@ public abstract class AbstractIntervalDataFrameCursor implements DataFrameCursor
             return rowLo;
         }
 
+        @Override
+        public long getFirstRowId() {
+            return Rows.toRowID(partitionIndex, rowLo);
+        }
+
         @Override
         public long getPageAddress(int columnIndex) {
             return reader.getPageAddressAt(partitionIndex, rowLo, columnIndex);
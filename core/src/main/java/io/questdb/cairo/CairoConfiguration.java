@@ -75,8 +75,22 @@ public interface CairoConfiguration {
 
     int getParallelIndexThreshold();
 
+    long getOutOfOrderPageSize();
+
+    long getPartitionTtlCheckInterval();
+
+    long getWalApplyInterval();
+
+    // how long write-ahead log segment is reused by producers before it is sealed, in milliseconds
+    long getWalSegmentMaxAge();
+
+    long getWalSegmentMaxRows();
+
     int getReaderPoolMaxSegments();
 
+    // how long thread waits for busy reader to be returned to pool, in milliseconds
+    long getReaderPoolAcquireTimeout();
+
     CharSequence getRoot();
 
     // null input root disables "copy" sql
@@ -133,6 +147,9 @@ public interface CairoConfiguration {
 
     long getSqlLatestByRowCount();
 
+    // frames of at least this many rows are not read ahead in full and are evicted from memory once scanned
+    long getSqlLargeScanRowCount();
+
     int getSqlHashJoinLightValuePageSize();
 
     int getSqlHashJoinLightValueMaxPages();
@@ -141,12 +158,32 @@ public interface CairoConfiguration {
 
     int getSqlSortValueMaxPages();
 
+    long getSqlSortMemoryBudget();
+
+    long getSqlGroupByMemoryBudget();
+
     TextConfiguration getTextConfiguration();
 
     long getWorkStealTimeoutNanos();
 
     boolean isParallelIndexingEnabled();
 
+    boolean isOutOfOrderEnabled();
+
+    boolean isWalEnabled();
+
+    boolean isSqlParallelFilterEnabled();
+
+    boolean isSqlParallelSampleByEnabled();
+
+    boolean isSqlParallelHashJoinEnabled();
+
+    boolean isSqlParallelLatestByEnabled();
+
+    boolean isSqlFilterKernelEnabled();
+
+    boolean isSqlGroupByEncodedKeysEnabled();
+
     /**
      * This holds table metadata, which is usually quite small. 16K page should be adequate.
      *
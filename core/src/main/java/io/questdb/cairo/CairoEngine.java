@@ -28,20 +28,23 @@ import io.questdb.MessageBus;
 import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
 import io.questdb.cairo.pool.WriterPool;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.WriterOutOfDateException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.Job;
 import io.questdb.mp.SynchronizedJob;
-import io.questdb.std.Files;
-import io.questdb.std.FilesFacade;
-import io.questdb.std.Misc;
-import io.questdb.std.Transient;
+import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.questdb.cairo.ColumnType.SYMBOL;
 
@@ -52,6 +55,16 @@ public class CairoEngine implements Closeable {
     private final ReaderPool readerPool;
     private final CairoConfiguration configuration;
     private final WriterMaintenanceJob writerMaintenanceJob;
+    private final PartitionTtlJob partitionTtlJob;
+    private final WalApplyJob walApplyJob;
+    private final ReaderRefreshJob readerRefreshJob;
+    private final PartitionCompressionJob partitionCompressionJob;
+    // tables that may have sealed write-ahead log segments
+    private final ConcurrentHashMap.KeySetView<Boolean> walPendingTables = ConcurrentHashMap.newKeySet();
+    private final AtomicLong walSegmentSequence;
+    // open write-ahead log segments that no producer uses at the moment
+    private final ObjList<WalSegmentLifecycleManager> walIdleSegments = new ObjList<>();
+    private boolean closing = false;
     private final MessageBus messageBus;
 
     public CairoEngine(CairoConfiguration configuration) {
@@ -61,8 +74,14 @@ public class CairoEngine implements Closeable {
     public CairoEngine(CairoConfiguration configuration, @Nullable MessageBus messageBus) {
         this.configuration = configuration;
         this.writerPool = new WriterPool(configuration, messageBus);
-        this.readerPool = new ReaderPool(configuration);
+        this.readerPool = new ReaderPool(configuration, messageBus);
         this.writerMaintenanceJob = new WriterMaintenanceJob(configuration);
+        this.partitionTtlJob = new PartitionTtlJob(configuration);
+        this.walApplyJob = new WalApplyJob(configuration);
+        this.readerRefreshJob = new ReaderRefreshJob();
+        this.partitionCompressionJob = new PartitionCompressionJob();
+        // segment ids grow across restarts as long as clock does
+        this.walSegmentSequence = new AtomicLong(configuration.getMicrosecondClock().getTicks());
         this.messageBus = messageBus;
     }
 
@@ -70,10 +89,58 @@ public class CairoEngine implements Closeable {
         return writerMaintenanceJob;
     }
 
+    /**
+     * Job that removes expired partitions of tables that have time to live set. Job uses idle
+     * writers from the pool, writers that are busy are expected to remove expired partitions
+     * by their owners, see {@link TableWriter#removeExpiredPartitions()}.
+     *
+     * @return partition retention job
+     */
+    public Job getPartitionTtlJob() {
+        return partitionTtlJob;
+    }
+
+    /**
+     * Job that applies sealed write-ahead log segments to their tables, see {@link #getWalWriter(CairoSecurityContext, CharSequence)}.
+     * Writers that are busy are expected to apply segments by their owners, see {@link WalApplier}.
+     *
+     * @return write-ahead log apply job
+     */
+    public Job getWalApplyJob() {
+        return walApplyJob;
+    }
+
+    /**
+     * Job that reloads idle pooled readers after their tables are committed to, so that queries
+     * do not pay for the reload when they get reader. Job has nothing to do when engine is created
+     * without message bus.
+     *
+     * @return reader refresh job
+     */
+    public Job getReaderRefreshJob() {
+        return readerRefreshJob;
+    }
+
+    /**
+     * Job that compresses partitions which writers have left behind, so that commit does not
+     * wait for compression. Job uses idle writers from the pool, see {@link TableWriter#compressPartitions()}.
+     *
+     * @return partition compression job
+     */
+    public Job getPartitionCompressionJob() {
+        return partitionCompressionJob;
+    }
+
     @Override
     public void close() {
+        synchronized (walIdleSegments) {
+            closing = true;
+        }
+        sealIdleWalSegments(null, Long.MAX_VALUE);
         Misc.free(writerPool);
         Misc.free(readerPool);
+        Misc.free(partitionTtlJob);
+        Misc.free(walApplyJob);
     }
 
     public void creatTable(
@@ -105,6 +172,11 @@ public class CairoEngine implements Closeable {
         return configuration;
     }
 
+    @Nullable
+    public MessageBus getMessageBus() {
+        return messageBus;
+    }
+
     public PoolListener getPoolListener() {
         return this.writerPool.getPoolListener();
     }
@@ -170,11 +242,137 @@ public class CairoEngine implements Closeable {
         return new TableWriter(configuration, tableName, messageBus, true, DefaultLifecycleManager.INSTANCE, backupDirName);
     }
 
+    /**
+     * Same as {@link #getWalWriter(CairoSecurityContext, CharSequence, long, Object)} for current structure
+     * of the table. Segment is sealed when its writer is closed.
+     *
+     * @param securityContext security context
+     * @param tableName       name of existing table
+     * @return writer of new segment, not pooled
+     */
+    public TableWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        return getWalWriter(securityContext, tableName, -1, null);
+    }
+
+    /**
+     * Opens writer of write-ahead log segment of the table. Unlike table writers there can be any number
+     * of segment writers for the same table. Segment has structure of the table at the time it is created,
+     * its rows become visible to table readers after segment is sealed and applied to the table.
+     * Uncommitted rows of segment writer are discarded on close.
+     * <p>
+     * Closed segment writer is kept open for the next call of the same producer, until segment has
+     * {@link CairoConfiguration#getWalSegmentMaxRows()} rows or is older than
+     * {@link CairoConfiguration#getWalSegmentMaxAge()}. Segment is then sealed, idle segments are sealed
+     * by the apply job when they get too old. Segments are not shared between producers, rows of each
+     * segment must be in timestamp order of its producer. Rows older than the table are applied as
+     * out-of-order rows, segment that cannot be applied is kept and apply fails, see {@link WalApplier}.
+     *
+     * @param securityContext  security context
+     * @param tableName        name of existing table
+     * @param structureVersion structure version producer expects, -1 for any
+     * @param producer         connection or other producer segment is kept for, null to seal segment on close
+     * @return writer of segment, not pooled
+     * @throws WriterOutOfDateException when table structure version is not the expected one
+     */
+    public TableWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName,
+            long structureVersion,
+            @Nullable Object producer
+    ) {
+        securityContext.checkWritePermission();
+        if (structureVersion > -1 && producer != null) {
+            final TableWriter writer = takeIdleWalSegment(tableName, structureVersion, producer);
+            if (writer != null) {
+                return writer;
+            }
+        }
+
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (
+                TableReader reader = readerPool.get(tableName);
+                Path path = new Path()
+        ) {
+            final long version = reader.getVersion();
+            if (structureVersion > -1 && version != structureVersion) {
+                throw WriterOutOfDateException.INSTANCE;
+            }
+            if (structureVersion == -1 && producer != null) {
+                final TableWriter writer = takeIdleWalSegment(tableName, version, producer);
+                if (writer != null) {
+                    return writer;
+                }
+            }
+
+            path.of(configuration.getRoot()).concat(tableName).concat(TableUtils.WAL_DIR_NAME);
+            final int walLen = path.length();
+            if (ff.mkdirs(path.put(Files.SEPARATOR).$(), configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create [dir=").put(path).put(']');
+            }
+            final String walRoot = path.trimTo(walLen).toString();
+
+            long segmentId;
+            do {
+                segmentId = walSegmentSequence.incrementAndGet();
+            } while (ff.exists(path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).$()));
+
+            // segment is not sealed while this lock is held, it is released when segment writer is closed
+            final long fd = TableUtils.lock(ff, path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).put(WalApplier.OPEN_LOCK_SUFFIX).$());
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not lock [path=").put(path).put(']');
+            }
+
+            final String segmentName = Long.toString(segmentId);
+            try {
+                TableUtils.createTable(
+                        ff,
+                        new AppendMemory(),
+                        path,
+                        walRoot,
+                        new WalSegmentStructure(reader, segmentName),
+                        configuration.getMkDirMode()
+                );
+                final WalSegmentLifecycleManager segment = new WalSegmentLifecycleManager(Chars.toString(tableName), fd, version, producer);
+                segment.writer = new TableWriter(
+                        configuration,
+                        segmentName,
+                        null,
+                        true,
+                        segment,
+                        walRoot
+                );
+                return segment.writer;
+            } catch (CairoException e) {
+                // remove segment before it is unlocked, applier cannot read incomplete segment
+                path.of(walRoot).concat(segmentName).put(Files.SEPARATOR).$();
+                if (ff.exists(path) && !ff.rmdir(path)) {
+                    LOG.error().$("could not remove [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+                }
+                ff.close(fd);
+                ff.remove(path.of(walRoot).concat(segmentName).put(WalApplier.OPEN_LOCK_SUFFIX).$());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @param tableName name of table
+     * @return true when table may have write-ahead log segments to apply
+     */
+    public boolean isWalPending(CharSequence tableName) {
+        return walPendingTables.contains(tableName);
+    }
+
     public boolean lock(
             CairoSecurityContext securityContext,
             CharSequence tableName
     ) {
         securityContext.checkWritePermission();
+        // segments of locked table would be sealed after table is gone or renamed
+        sealIdleWalSegments(tableName, Long.MAX_VALUE);
         if (writerPool.lock(tableName)) {
             boolean locked = readerPool.lock(tableName);
             if (locked) {
@@ -202,8 +400,9 @@ public class CairoEngine implements Closeable {
                 TableWriter writer = getWriter(cairoSecurityContext, tableName);
                 TableReader reader = getReader(cairoSecurityContext, tableName)
         ) {
-            TableReaderMetadata readerMetadata = (TableReaderMetadata) reader.getMetadata();
-            if (readerMetadata.getVersion() < 416) {
+            TableReaderMetadata readerMetadata = reader.getMetadata();
+            // null flag is set for rows that omit symbol value from version 417
+            if (readerMetadata.getVersion() < 417) {
                 LOG.info().$("migrating null flag for symbols [table=").utf8(tableName).$(']').$();
                 for (int i = 0, count = reader.getColumnCount(); i < count; i++) {
                     if (readerMetadata.getColumnType(i) == SYMBOL) {
@@ -224,12 +423,17 @@ public class CairoEngine implements Closeable {
     }
 
     public boolean releaseAllWriters() {
-        return writerPool.releaseAll();
+        boolean useful = sealIdleWalSegments(null, Long.MAX_VALUE);
+        return writerPool.releaseAll() || useful;
     }
 
     public boolean releaseInactive() {
         boolean useful = writerPool.releaseInactive();
         useful |= readerPool.releaseInactive();
+        if (messageBus != null) {
+            // parked tail connections get to check their peer
+            useful |= messageBus.getTableCommitNotifier().releaseIdle();
+        }
         return useful;
     }
 
@@ -247,6 +451,7 @@ public class CairoEngine implements Closeable {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(error).$(']').$();
                     throw CairoException.instance(error).put("Table remove failed");
                 }
+                forgetCommits(tableName);
                 return;
             } finally {
                 unlock(securityContext, tableName, null);
@@ -272,6 +477,7 @@ public class CairoEngine implements Closeable {
         if (lock(securityContext, tableName)) {
             try {
                 rename0(path, tableName, otherPath, newName);
+                forgetCommits(tableName);
             } finally {
                 unlock(securityContext, tableName, null);
             }
@@ -294,6 +500,12 @@ public class CairoEngine implements Closeable {
         readerPool.unlock(tableName);
     }
 
+    private void forgetCommits(CharSequence tableName) {
+        if (messageBus != null) {
+            messageBus.getTableCommitNotifier().remove(tableName);
+        }
+    }
+
     private void rename0(Path path, CharSequence tableName, Path otherPath, CharSequence to) {
         final FilesFacade ff = configuration.getFilesFacade();
         final CharSequence root = configuration.getRoot();
@@ -318,6 +530,347 @@ public class CairoEngine implements Closeable {
         }
     }
 
+    /**
+     * Seals idle write-ahead log segments, they are applied to tables by the apply job.
+     *
+     * @param tableName     table to seal segments of, null for all tables
+     * @param createdBefore seal segments created before this time, in microseconds
+     * @return true when any segment was sealed
+     */
+    private boolean sealIdleWalSegments(@Nullable CharSequence tableName, long createdBefore) {
+        boolean useful = false;
+        while (true) {
+            WalSegmentLifecycleManager segment = null;
+            synchronized (walIdleSegments) {
+                for (int i = 0, n = walIdleSegments.size(); i < n; i++) {
+                    final WalSegmentLifecycleManager s = walIdleSegments.getQuick(i);
+                    if (s.createdTicks < createdBefore && (tableName == null || Chars.equals(s.tableName, tableName))) {
+                        walIdleSegments.remove(i);
+                        segment = s;
+                        break;
+                    }
+                }
+            }
+            if (segment == null) {
+                return useful;
+            }
+            // segment is removed from idle list, no producer can take it
+            segment.sealing = true;
+            segment.writer.close();
+            useful = true;
+        }
+    }
+
+    private TableWriter takeIdleWalSegment(CharSequence tableName, long structureVersion, Object producer) {
+        synchronized (walIdleSegments) {
+            for (int i = walIdleSegments.size() - 1; i > -1; i--) {
+                final WalSegmentLifecycleManager segment = walIdleSegments.getQuick(i);
+                if (segment.producer == producer
+                        && segment.structureVersion == structureVersion
+                        && Chars.equals(segment.tableName, tableName)) {
+                    walIdleSegments.remove(i);
+                    return segment.writer;
+                }
+            }
+        }
+        return null;
+    }
+
+    private class PartitionTtlJob extends SynchronizedJob implements Closeable {
+
+        private final MicrosecondClock clock;
+        private final long checkInterval;
+        private final FilesFacade ff;
+        private final Path path = new Path();
+        private final StringSink tableName = new StringSink();
+        private final FindVisitor onFind = this::onFind;
+        private long tempMem8b = Unsafe.malloc(Long.BYTES);
+        private long last = 0;
+        private boolean useful;
+
+        public PartitionTtlJob(CairoConfiguration configuration) {
+            this.clock = configuration.getMicrosecondClock();
+            this.checkInterval = configuration.getPartitionTtlCheckInterval() * 1000;
+            this.ff = configuration.getFilesFacade();
+        }
+
+        @Override
+        public void close() {
+            path.close();
+            if (tempMem8b != 0) {
+                Unsafe.free(tempMem8b, Long.BYTES);
+                tempMem8b = 0;
+            }
+        }
+
+        @Override
+        protected boolean runSerially() {
+            long t = clock.getTicks();
+            if (last + checkInterval < t) {
+                last = t;
+                useful = false;
+                ff.iterateDir(path.of(configuration.getRoot()).$(), onFind);
+                return useful;
+            }
+            return false;
+        }
+
+        private void onFind(long name, int type) {
+            if (type != Files.DT_DIR) {
+                return;
+            }
+
+            tableName.clear();
+            if (!Chars.utf8DecodeZ(name, tableName) || tableName.length() == 0 || tableName.charAt(0) == '.') {
+                return;
+            }
+
+            if (TableUtils.readTtl(ff, path.of(configuration.getRoot()).concat(tableName), tempMem8b) == 0) {
+                return;
+            }
+
+            try (TableWriter writer = writerPool.get(tableName)) {
+                useful |= writer.removeExpiredPartitions() > 0;
+            } catch (EntryUnavailableException e) {
+                // writer is busy, its owner is expected to remove expired partitions
+                LOG.info().$("writer is busy, skipping partition retention [table=").utf8(tableName).$(']').$();
+            } catch (CairoException e) {
+                LOG.error().$("could not remove expired partitions [table=").utf8(tableName).$(", e=").$((Sinkable) e).$(']').$();
+            }
+        }
+    }
+
+    private static class WalSegmentStructure implements TableStructure {
+        private final TableReader reader;
+        private final RecordMetadata metadata;
+        private final CharSequence segmentName;
+
+        private WalSegmentStructure(TableReader reader, CharSequence segmentName) {
+            this.reader = reader;
+            this.metadata = reader.getMetadata();
+            this.segmentName = segmentName;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return metadata.getColumnCount();
+        }
+
+        @Override
+        public CharSequence getColumnName(int columnIndex) {
+            return metadata.getColumnName(columnIndex);
+        }
+
+        @Override
+        public int getColumnType(int columnIndex) {
+            return metadata.getColumnType(columnIndex);
+        }
+
+        @Override
+        public int getIndexBlockCapacity(int columnIndex) {
+            return metadata.getIndexValueBlockCapacity(columnIndex);
+        }
+
+        @Override
+        public boolean isIndexed(int columnIndex) {
+            // segments are read sequentially, indexes would only slow producers down
+            return false;
+        }
+
+        @Override
+        public boolean isSequential(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public boolean isCompressed(int columnIndex) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionBy() {
+            return reader.getPartitionedBy();
+        }
+
+        @Override
+        public boolean getSymbolCacheFlag(int columnIndex) {
+            return reader.getSymbolMapReader(columnIndex).isCached();
+        }
+
+        @Override
+        public int getSymbolCapacity(int columnIndex) {
+            return reader.getSymbolMapReader(columnIndex).getSymbolCapacity();
+        }
+
+        @Override
+        public CharSequence getTableName() {
+            return segmentName;
+        }
+
+        @Override
+        public int getTimestampIndex() {
+            return metadata.getTimestampIndex();
+        }
+    }
+
+    private class WalSegmentLifecycleManager implements LifecycleManager {
+        private final String tableName;
+        private final long structureVersion;
+        private final long createdTicks;
+        private final Object producer;
+        private TableWriter writer;
+        private long fd;
+        private boolean sealing = false;
+
+        private WalSegmentLifecycleManager(String tableName, long fd, long structureVersion, Object producer) {
+            this.tableName = tableName;
+            this.fd = fd;
+            this.structureVersion = structureVersion;
+            this.producer = producer;
+            this.createdTicks = configuration.getMicrosecondClock().getTicks();
+        }
+
+        @Override
+        public boolean close() {
+            if (producer != null && !sealing && canReuse()) {
+                synchronized (walIdleSegments) {
+                    // engine seals idle segments once when it closes, segments closed after that are sealed here
+                    if (!closing) {
+                        walIdleSegments.add(this);
+                        return false;
+                    }
+                }
+            }
+
+            if (fd != -1) {
+                // segment is sealed once writer releases its own lock too, apply job retries until then
+                configuration.getFilesFacade().close(fd);
+                fd = -1;
+                walPendingTables.add(tableName);
+            }
+            return true;
+        }
+
+        private boolean canReuse() {
+            if (writer.size() >= configuration.getWalSegmentMaxRows()
+                    || configuration.getMicrosecondClock().getTicks() - createdTicks >= configuration.getWalSegmentMaxAge() * 1000) {
+                return false;
+            }
+            try {
+                // next insert must not pick up rows that this one did not commit
+                writer.rollback();
+                return true;
+            } catch (CairoException | CairoError e) {
+                LOG.error().$("could not reuse wal segment [table=").$(tableName).$(", segment=").$(writer.getName()).$(']').$();
+                return false;
+            }
+        }
+    }
+
+    private class WalApplyJob extends SynchronizedJob implements Closeable {
+
+        private final MicrosecondClock clock;
+        private final long applyInterval;
+        private final long maxSegmentAge;
+        private final FilesFacade ff;
+        private final WalApplier applier;
+        private final Path path = new Path();
+        private final StringSink tableName = new StringSink();
+        private final FindVisitor onFind = this::onFind;
+        private boolean scanned = false;
+        private long last = 0;
+
+        public WalApplyJob(CairoConfiguration configuration) {
+            this.clock = configuration.getMicrosecondClock();
+            this.applyInterval = configuration.getWalApplyInterval() * 1000;
+            this.maxSegmentAge = configuration.getWalSegmentMaxAge() * 1000;
+            this.ff = configuration.getFilesFacade();
+            this.applier = new WalApplier(configuration);
+        }
+
+        @Override
+        public void close() {
+            path.close();
+            applier.close();
+        }
+
+        @Override
+        protected boolean runSerially() {
+            sealIdleWalSegments(null, clock.getTicks() - maxSegmentAge);
+            if (!scanned) {
+                // segments left by previous run of the server
+                scanned = true;
+                ff.iterateDir(path.of(configuration.getRoot()).$(), onFind);
+            }
+
+            long t = clock.getTicks();
+            if (walPendingTables.isEmpty() || last + applyInterval >= t) {
+                return false;
+            }
+            last = t;
+
+            boolean useful = false;
+            for (Iterator<CharSequence> iterator = walPendingTables.iterator(); iterator.hasNext(); ) {
+                final CharSequence name = iterator.next();
+                iterator.remove();
+                if (!applier.hasSealedSegments(name)) {
+                    continue;
+                }
+
+                final TableWriter writer;
+                try {
+                    writer = writerPool.get(name);
+                } catch (CairoException e) {
+                    // writer is busy, its owner can apply segments, otherwise we retry
+                    walPendingTables.add(name);
+                    continue;
+                }
+
+                try {
+                    useful |= applier.apply(writer) > 0;
+                    if (applier.hasSealedSegments(name)) {
+                        // segments still being closed or more segments than single apply takes
+                        walPendingTables.add(name);
+                    }
+                } catch (CairoException ignore) {
+                    // logged by applier, segments are applied again when table gets new segment
+                } finally {
+                    writer.close();
+                }
+            }
+            return useful;
+        }
+
+        private void onFind(long name, int type) {
+            if (type != Files.DT_DIR) {
+                return;
+            }
+
+            tableName.clear();
+            if (!Chars.utf8DecodeZ(name, tableName) || tableName.length() == 0 || tableName.charAt(0) == '.') {
+                return;
+            }
+
+            if (applier.hasSealedSegments(tableName)) {
+                walPendingTables.add(Chars.toString(tableName));
+            }
+        }
+    }
+
+    private class ReaderRefreshJob extends SynchronizedJob {
+        @Override
+        protected boolean runSerially() {
+            return readerPool.refreshIdleReaders();
+        }
+    }
+
+    private class PartitionCompressionJob extends SynchronizedJob {
+        @Override
+        protected boolean runSerially() {
+            return writerPool.compressIdleWriters();
+        }
+    }
+
     private class WriterMaintenanceJob extends SynchronizedJob {
 
         private final MicrosecondClock clock;
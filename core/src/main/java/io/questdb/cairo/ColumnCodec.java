@@ -0,0 +1,465 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Encodes fixed-width column files of partitions that are no longer written to. Values are split into
+ * blocks of {@link #BLOCK_ROW_COUNT} rows and each block is encoded independently, so that readers
+ * can decode column page by page. Encoding depends on column type:
+ * <ul>
+ * <li>TIMESTAMP - delta-of-delta with variable length buckets</li>
+ * <li>DOUBLE - XOR of consecutive values with leading and trailing zero elimination (Gorilla)</li>
+ * <li>SYMBOL - keys bit-packed relative to block minimum</li>
+ * </ul>
+ * Compressed file layout is header, encoded blocks and trailing list of block offsets:
+ * <pre>
+ * long rowCount, int columnType, int blockCount, block[blockCount], long offset[blockCount + 1]
+ * </pre>
+ * Last offset is that of the block offset list itself.
+ */
+public class ColumnCodec implements Closeable {
+    public static final int BLOCK_ROW_COUNT_BITS = 16;
+    public static final int BLOCK_ROW_COUNT = 1 << BLOCK_ROW_COUNT_BITS;
+    static final long HEADER_OFFSET_ROW_COUNT = 0;
+    static final long HEADER_OFFSET_COLUMN_TYPE = 8;
+    static final long HEADER_OFFSET_BLOCK_COUNT = 12;
+    static final long HEADER_SIZE = 16;
+    private static final Log LOG = LogFactory.getLog(ColumnCodec.class);
+    private final LongList blockOffsets = new LongList();
+    private long scratch = 0;
+    private long scratchSize = 0;
+    // bit stream state, values are written and read least significant bit first
+    private long bitAddress;
+    private long bitBuffer;
+    private int bitCount;
+
+    public static long getMaxEncodedSize(long rowCount) {
+        // worst case is DOUBLE, which takes 77 bits per value
+        return rowCount * 10 + 32;
+    }
+
+    public static boolean isSupported(int columnType) {
+        switch (columnType) {
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DOUBLE:
+            case ColumnType.SYMBOL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads first value of compressed column without decoding it. First value of
+     * block is always stored as is.
+     *
+     * @param ff        files facade
+     * @param path      path to compressed file
+     * @param tempMem8b 8 byte buffer
+     * @return first value of column
+     */
+    static long readFirstLong(FilesFacade ff, Path path, long tempMem8b) {
+        return TableUtils.readLongAtOffset(ff, path, tempMem8b, HEADER_SIZE);
+    }
+
+    @Override
+    public void close() {
+        if (scratch != 0) {
+            Unsafe.free(scratch, scratchSize);
+            scratch = 0;
+            scratchSize = 0;
+        }
+    }
+
+    /**
+     * Writes compressed copy of column file. Source file is left intact.
+     *
+     * @param ff       files facade
+     * @param src      path to column file
+     * @param rowCount number of values in column file
+     * @param type     column type
+     * @param dst      memory compressed file is appended to, caller owns it
+     */
+    public void compress(FilesFacade ff, LPSZ src, long rowCount, int type, AppendMemory dst) {
+        assert isSupported(type);
+        final int shift = ColumnType.pow2SizeOf(type);
+        final long size = rowCount << shift;
+        final long fd = ff.openRO(src);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open [file=").put(src).put(']');
+        }
+
+        try {
+            if (ff.length(fd) < size) {
+                throw CairoException.instance(0).put("column file is too short [file=").put(src).put(", expected=").put(size).put(']');
+            }
+
+            final long address = ff.mmap(fd, size, 0, Files.MAP_RO);
+            if (address == -1) {
+                throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(src).put(']');
+            }
+
+            try {
+                final long blockCount = (rowCount + BLOCK_ROW_COUNT - 1) >>> BLOCK_ROW_COUNT_BITS;
+                final long buf = getScratch(getMaxEncodedSize(BLOCK_ROW_COUNT));
+                dst.putLong(rowCount);
+                dst.putInt(type);
+                dst.putInt((int) blockCount);
+
+                blockOffsets.clear();
+                for (long lo = 0; lo < rowCount; lo += BLOCK_ROW_COUNT) {
+                    blockOffsets.add(dst.getAppendOffset());
+                    final long len = encode(type, address + (lo << shift), Math.min(BLOCK_ROW_COUNT, rowCount - lo), buf);
+                    dst.putBlockOfBytes(buf, len);
+                }
+                blockOffsets.add(dst.getAppendOffset());
+
+                for (int i = 0, n = blockOffsets.size(); i < n; i++) {
+                    dst.putLong(blockOffsets.getQuick(i));
+                }
+                LOG.info().$("compressed [file=").$(src).$(", size=").$(size).$(", compressedSize=").$(dst.getAppendOffset()).$(']').$();
+            } finally {
+                ff.munmap(address, size);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    public void decode(int type, long src, long count, long dst) {
+        beginRead(src);
+        switch (type) {
+            case ColumnType.TIMESTAMP:
+                decodeDeltaOfDelta(count, dst);
+                break;
+            case ColumnType.DOUBLE:
+                decodeXor(count, dst);
+                break;
+            case ColumnType.SYMBOL:
+                decodeBitPacked(count, dst);
+                break;
+            default:
+                throw CairoException.instance(0).put("unsupported column type [type=").put(ColumnType.nameOf(type)).put(']');
+        }
+    }
+
+    /**
+     * Writes uncompressed copy of compressed column file. Source file is left intact.
+     *
+     * @param ff  files facade
+     * @param src path to compressed file
+     * @param dst memory column file is appended to, caller owns it
+     */
+    public void decompress(FilesFacade ff, LPSZ src, AppendMemory dst) {
+        final long fd = ff.openRO(src);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open [file=").put(src).put(']');
+        }
+
+        try {
+            final long size = ff.length(fd);
+            if (size < HEADER_SIZE) {
+                throw CairoException.instance(0).put("compressed file is too short [file=").put(src).put(']');
+            }
+
+            final long address = ff.mmap(fd, size, 0, Files.MAP_RO);
+            if (address == -1) {
+                throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(src).put(']');
+            }
+
+            try {
+                final long rowCount = Unsafe.getUnsafe().getLong(address + HEADER_OFFSET_ROW_COUNT);
+                final int type = Unsafe.getUnsafe().getInt(address + HEADER_OFFSET_COLUMN_TYPE);
+                final int blockCount = Unsafe.getUnsafe().getInt(address + HEADER_OFFSET_BLOCK_COUNT);
+                final int shift = ColumnType.pow2SizeOf(type);
+                final long pOffsets = address + size - (blockCount + 1L) * Long.BYTES;
+                final long buf = getScratch((long) BLOCK_ROW_COUNT << shift);
+
+                for (int i = 0; i < blockCount; i++) {
+                    final long count = Math.min(BLOCK_ROW_COUNT, rowCount - ((long) i << BLOCK_ROW_COUNT_BITS));
+                    decode(type, address + Unsafe.getUnsafe().getLong(pOffsets + (long) i * Long.BYTES), count, buf);
+                    dst.putBlockOfBytes(buf, count << shift);
+                }
+            } finally {
+                ff.munmap(address, size);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    /**
+     * Encodes block of values.
+     *
+     * @param type  column type
+     * @param src   address of values
+     * @param count number of values
+     * @param dst   address of output buffer, it must have at least {@link #getMaxEncodedSize(long)} bytes
+     * @return number of bytes written to output buffer
+     */
+    public long encode(int type, long src, long count, long dst) {
+        beginWrite(dst);
+        switch (type) {
+            case ColumnType.TIMESTAMP:
+                encodeDeltaOfDelta(src, count);
+                break;
+            case ColumnType.DOUBLE:
+                encodeXor(src, count);
+                break;
+            case ColumnType.SYMBOL:
+                encodeBitPacked(src, count);
+                break;
+            default:
+                throw CairoException.instance(0).put("unsupported column type [type=").put(ColumnType.nameOf(type)).put(']');
+        }
+        return endWrite() - dst;
+    }
+
+    private static long mask(int bits) {
+        return bits == 64 ? -1L : (1L << bits) - 1;
+    }
+
+    private void beginRead(long address) {
+        bitAddress = address;
+        bitBuffer = 0;
+        bitCount = 0;
+    }
+
+    private void beginWrite(long address) {
+        bitAddress = address;
+        bitBuffer = 0;
+        bitCount = 0;
+    }
+
+    private void decodeBitPacked(long count, long dst) {
+        final int min = (int) getBits(32);
+        final int width = (int) getBits(6);
+        for (long i = 0; i < count; i++) {
+            Unsafe.getUnsafe().putInt(dst + i * Integer.BYTES, (int) (min + getBits(width)));
+        }
+    }
+
+    private void decodeDeltaOfDelta(long count, long dst) {
+        long value = getBits(64);
+        Unsafe.getUnsafe().putLong(dst, value);
+        long delta = 0;
+        for (long i = 1; i < count; i++) {
+            final long zz;
+            if (getBits(1) == 0) {
+                zz = 0;
+            } else if (getBits(1) == 0) {
+                zz = getBits(7);
+            } else if (getBits(1) == 0) {
+                zz = getBits(9);
+            } else if (getBits(1) == 0) {
+                zz = getBits(12);
+            } else if (getBits(1) == 0) {
+                zz = getBits(32);
+            } else {
+                zz = getBits(64);
+            }
+            delta += (zz >>> 1) ^ -(zz & 1);
+            value += delta;
+            Unsafe.getUnsafe().putLong(dst + i * Long.BYTES, value);
+        }
+    }
+
+    private void decodeXor(long count, long dst) {
+        long bits = getBits(64);
+        Unsafe.getUnsafe().putLong(dst, bits);
+        int leading = 0;
+        int trailing = 0;
+        for (long i = 1; i < count; i++) {
+            if (getBits(1) != 0) {
+                if (getBits(1) != 0) {
+                    leading = (int) getBits(5);
+                    trailing = 64 - leading - (int) getBits(6) - 1;
+                }
+                bits ^= getBits(64 - leading - trailing) << trailing;
+            }
+            Unsafe.getUnsafe().putLong(dst + i * Double.BYTES, bits);
+        }
+    }
+
+    private void encodeBitPacked(long src, long count) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (long i = 0; i < count; i++) {
+            final int key = Unsafe.getUnsafe().getInt(src + i * Integer.BYTES);
+            if (key < min) {
+                min = key;
+            }
+            if (key > max) {
+                max = key;
+            }
+        }
+        final int width = 64 - Long.numberOfLeadingZeros((long) max - min);
+        putBits(min, 32);
+        putBits(width, 6);
+        for (long i = 0; i < count; i++) {
+            putBits((long) Unsafe.getUnsafe().getInt(src + i * Integer.BYTES) - min, width);
+        }
+    }
+
+    private void encodeDeltaOfDelta(long src, long count) {
+        long prev = Unsafe.getUnsafe().getLong(src);
+        putBits(prev, 64);
+        long prevDelta = 0;
+        for (long i = 1; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(src + i * Long.BYTES);
+            final long delta = value - prev;
+            final long dod = delta - prevDelta;
+            // zig-zag keeps small negative values small
+            final long zz = (dod << 1) ^ (dod >> 63);
+            if (zz == 0) {
+                putBits(0, 1);
+            } else if (zz >>> 7 == 0) {
+                putBits(0b01, 2);
+                putBits(zz, 7);
+            } else if (zz >>> 9 == 0) {
+                putBits(0b011, 3);
+                putBits(zz, 9);
+            } else if (zz >>> 12 == 0) {
+                putBits(0b0111, 4);
+                putBits(zz, 12);
+            } else if (zz >>> 32 == 0) {
+                putBits(0b01111, 5);
+                putBits(zz, 32);
+            } else {
+                putBits(0b11111, 5);
+                putBits(zz, 64);
+            }
+            prev = value;
+            prevDelta = delta;
+        }
+    }
+
+    private void encodeXor(long src, long count) {
+        long prev = Unsafe.getUnsafe().getLong(src);
+        putBits(prev, 64);
+        // window of meaningful bits is re-used while XOR fits into it
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (long i = 1; i < count; i++) {
+            final long bits = Unsafe.getUnsafe().getLong(src + i * Double.BYTES);
+            final long xor = bits ^ prev;
+            if (xor == 0) {
+                putBits(0, 1);
+            } else {
+                // leading zero count has to fit 5 bits
+                final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                final int trailing = Long.numberOfTrailingZeros(xor);
+                if (prevLeading != -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                    putBits(0b01, 2);
+                    putBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+                } else {
+                    final int meaningful = 64 - leading - trailing;
+                    putBits(0b11, 2);
+                    putBits(leading, 5);
+                    putBits(meaningful - 1, 6);
+                    putBits(xor >>> trailing, meaningful);
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+            prev = bits;
+        }
+    }
+
+    private long endWrite() {
+        if (bitCount > 0) {
+            Unsafe.getUnsafe().putLong(bitAddress, bitBuffer);
+            bitAddress += Long.BYTES;
+        }
+        return bitAddress;
+    }
+
+    private long getBits(int bits) {
+        if (bits == 0) {
+            return 0;
+        }
+
+        if (bitCount == 0) {
+            bitBuffer = Unsafe.getUnsafe().getLong(bitAddress);
+            bitAddress += Long.BYTES;
+            bitCount = 64;
+        }
+
+        if (bits <= bitCount) {
+            final long value = bitBuffer & mask(bits);
+            bitBuffer = bits == 64 ? 0 : bitBuffer >>> bits;
+            bitCount -= bits;
+            return value;
+        }
+
+        // value spans two words
+        final long lo = bitBuffer;
+        final int loBits = bitCount;
+        final int hiBits = bits - loBits;
+        bitBuffer = Unsafe.getUnsafe().getLong(bitAddress);
+        bitAddress += Long.BYTES;
+        final long hi = bitBuffer & mask(hiBits);
+        bitBuffer >>>= hiBits;
+        bitCount = 64 - hiBits;
+        return lo | (hi << loBits);
+    }
+
+    private long getScratch(long size) {
+        if (size > scratchSize) {
+            close();
+            scratch = Unsafe.malloc(size);
+            scratchSize = size;
+        }
+        return scratch;
+    }
+
+    private void putBits(long value, int bits) {
+        if (bits == 0) {
+            return;
+        }
+
+        value &= mask(bits);
+        bitBuffer |= value << bitCount;
+        final int free = 64 - bitCount;
+        if (bits < free) {
+            bitCount += bits;
+            return;
+        }
+
+        // buffer is full, carry over bits that did not fit
+        Unsafe.getUnsafe().putLong(bitAddress, bitBuffer);
+        bitAddress += Long.BYTES;
+        bitCount = bits - free;
+        bitBuffer = free == 64 ? 0 : value >>> free;
+    }
+}
@@ -31,7 +31,7 @@ import io.questdb.std.LowerCaseAsciiCharSequenceIntHashMap;
 
 public final class ColumnType {
     // column type version as written to the metadata file
-    public static final int VERSION = 416;
+    public static final int VERSION = 417;
 
     public static final int BOOLEAN = 0;
     public static final int BYTE = 1;
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only view of column file written by {@link ColumnCodec}. Compressed file is mapped
+ * as is and blocks are decoded on first access into off-heap buffer, which is retained when
+ * column is re-opened for another file. Each block is exposed as separate page.
+ */
+public class CompressedColumn implements ReadOnlyColumn {
+    private static final Log LOG = LogFactory.getLog(CompressedColumn.class);
+    private final ColumnCodec codec = new ColumnCodec();
+    private final IntList decodedBlocks = new IntList();
+    private FilesFacade ff;
+    private long fd = -1;
+    private long page = 0;
+    private long size = 0;
+    private long rowCount;
+    private int type;
+    private int shift;
+    private int blockCount;
+    private long offsetsAddress;
+    private long buffer = 0;
+    private long bufferSize = 0;
+
+    public CompressedColumn(FilesFacade ff, LPSZ name, long size) {
+        of(ff, name, 0, size);
+    }
+
+    public long addressOf(long offset) {
+        assert offset < rowCount << shift : "offset=" + offset + ", rowCount=" + rowCount + ", fd=" + fd;
+        return getPageAddress((int) (offset >>> shift >>> ColumnCodec.BLOCK_ROW_COUNT_BITS)) + (offset & ((ColumnCodec.BLOCK_ROW_COUNT << shift) - 1));
+    }
+
+    @Override
+    public void close() {
+        closeFile();
+        if (buffer != 0) {
+            Unsafe.free(buffer, bufferSize);
+            buffer = 0;
+            bufferSize = 0;
+        }
+        codec.close();
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize, long size) {
+        closeFile();
+        this.ff = ff;
+        fd = ff.openRO(name);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open file: ").put(name);
+        }
+
+        if (size < ColumnCodec.HEADER_SIZE) {
+            closeFile();
+            throw CairoException.instance(0).put("Compressed file is too short: ").put(name);
+        }
+
+        this.size = size;
+        this.page = ff.mmap(fd, size, 0, Files.MAP_RO);
+        if (page == -1) {
+            page = 0;
+            closeFile();
+            throw CairoException.instance(ff.errno()).put("Cannot mmap file: ").put(name);
+        }
+        this.rowCount = Unsafe.getUnsafe().getLong(page + ColumnCodec.HEADER_OFFSET_ROW_COUNT);
+        this.type = Unsafe.getUnsafe().getInt(page + ColumnCodec.HEADER_OFFSET_COLUMN_TYPE);
+        this.shift = ColumnType.pow2SizeOf(type);
+        this.blockCount = Unsafe.getUnsafe().getInt(page + ColumnCodec.HEADER_OFFSET_BLOCK_COUNT);
+        this.offsetsAddress = page + size - (blockCount + 1L) * Long.BYTES;
+        this.decodedBlocks.setAll(blockCount, 0);
+        LOG.info().$("open ").$(name).$(" [fd=").$(fd).$(", size=").$(size).$(", rowCount=").$(rowCount).$(']').$();
+    }
+
+    @Override
+    public BinarySequence getBin(long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getBinLen(long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean getBool(long offset) {
+        return getByte(offset) == 1;
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return Unsafe.getUnsafe().getByte(addressOf(offset));
+    }
+
+    @Override
+    public double getDouble(long offset) {
+        return Unsafe.getUnsafe().getDouble(addressOf(offset));
+    }
+
+    @Override
+    public long getFd() {
+        return fd;
+    }
+
+    @Override
+    public float getFloat(long offset) {
+        return Unsafe.getUnsafe().getFloat(addressOf(offset));
+    }
+
+    @Override
+    public int getInt(long offset) {
+        return Unsafe.getUnsafe().getInt(addressOf(offset));
+    }
+
+    @Override
+    public long getLong(long offset) {
+        return Unsafe.getUnsafe().getLong(addressOf(offset));
+    }
+
+    @Override
+    public short getShort(long offset) {
+        return Unsafe.getUnsafe().getShort(addressOf(offset));
+    }
+
+    @Override
+    public CharSequence getStr(long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CharSequence getStr2(long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Long256 getLong256A(long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void getLong256(long offset, CharSink sink) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Long256 getLong256B(long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public char getChar(long offset) {
+        return Unsafe.getUnsafe().getChar(addressOf(offset));
+    }
+
+    @Override
+    public int getStrLen(long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void grow(long size) {
+        // compressed files are immutable
+    }
+
+    @Override
+    public boolean isDeleted() {
+        return !ff.exists(fd);
+    }
+
+    @Override
+    public int getPageCount() {
+        return blockCount;
+    }
+
+    @Override
+    public long getPageSize(int pageIndex) {
+        return Math.min(ColumnCodec.BLOCK_ROW_COUNT, rowCount - ((long) pageIndex << ColumnCodec.BLOCK_ROW_COUNT_BITS)) << shift;
+    }
+
+    @Override
+    public long getPageAddress(int pageIndex) {
+        final long address = getBuffer() + ((long) pageIndex << ColumnCodec.BLOCK_ROW_COUNT_BITS << shift);
+        if (decodedBlocks.getQuick(pageIndex) == 0) {
+            final long blockOffset = Unsafe.getUnsafe().getLong(offsetsAddress + (long) pageIndex * Long.BYTES);
+            codec.decode(type, page + blockOffset, getPageSize(pageIndex) >>> shift, address);
+            decodedBlocks.setQuick(pageIndex, 1);
+        }
+        return address;
+    }
+
+    @Override
+    public void advise(long offset, long len, int advice) {
+        // column is read from decoded buffer, which does not map to file offsets
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void closeFile() {
+        if (page != 0) {
+            ff.munmap(page, size);
+            page = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            LOG.info().$("closed [fd=").$(fd).$(']').$();
+            fd = -1;
+            size = 0;
+        }
+    }
+
+    private long getBuffer() {
+        // buffer is allocated on first access and re-used by subsequent files
+        final long required = rowCount << shift;
+        if (required > bufferSize) {
+            if (buffer != 0) {
+                Unsafe.free(buffer, bufferSize);
+            }
+            buffer = Unsafe.malloc(required);
+            bufferSize = required;
+        }
+        return buffer;
+    }
+}
@@ -137,11 +137,42 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 100000;
     }
 
+    @Override
+    public long getOutOfOrderPageSize() {
+        return 1024 * 1024;
+    }
+
+    @Override
+    public long getPartitionTtlCheckInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getWalApplyInterval() {
+        return 100;
+    }
+
+    @Override
+    public long getWalSegmentMaxAge() {
+        // segment is sealed by the producer that closes it
+        return 0;
+    }
+
+    @Override
+    public long getWalSegmentMaxRows() {
+        return 100_000;
+    }
+
     @Override
     public int getReaderPoolMaxSegments() {
         return 5;
     }
 
+    @Override
+    public long getReaderPoolAcquireTimeout() {
+        return 1000;
+    }
+
     @Override
     public CharSequence getRoot() {
         return root;
@@ -279,6 +310,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1000;
     }
 
+    @Override
+    public long getSqlLargeScanRowCount() {
+        return 1_000_000;
+    }
+
     @Override
     public int getSqlHashJoinLightValuePageSize() {
         return Numbers.SIZE_1MB;
@@ -299,6 +335,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1024;
     }
 
+    @Override
+    public long getSqlSortMemoryBudget() {
+        return 1024L * Numbers.SIZE_1MB;
+    }
+
+    @Override
+    public long getSqlGroupByMemoryBudget() {
+        return 1024L * Numbers.SIZE_1MB;
+    }
+
     @Override
     public TextConfiguration getTextConfiguration() {
         return textConfiguration;
@@ -314,6 +360,46 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isOutOfOrderEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isWalEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelFilterEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelSampleByEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelLatestByEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlFilterKernelEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isSqlGroupByEncodedKeysEnabled() {
+        return true;
+    }
+
     @Override
     public int getSqlJoinMetadataPageSize() {
         return 16 * 1024;
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+/**
+ * Latest row of every key of one symbol column of the table. Table writer keeps rows in "_lr" file
+ * of table directory and updates them after each commit, readers look rows up by key instead of
+ * searching index or column. Keys are offset by one to make room for null.
+ * <p>
+ * File starts with header of sequence, base transaction, transaction, key count and sequence check.
+ * Cache describes table as of every transaction between base transaction and transaction, both inclusive.
+ * Base transaction moves when rows are rewritten or removed, e.g. by out-of-order merge, truncate or
+ * partition removal. Header is followed by entry per key: transaction that committed the row, timestamp of
+ * partition and row within partition. Entry with zero transaction means that key has no rows.
+ * Reader can use entry when its own transaction is within cache range and entry was committed no
+ * later than reader's transaction.
+ * <p>
+ * Writer increments sequence before it changes the file and copies sequence to sequence check when it is
+ * done. Reader that sees the same sequence before and after reading header and entry has consistent view.
+ */
+class LatestRowCache implements Closeable {
+    static final long OFFSET_SEQUENCE = 0;
+    static final long OFFSET_BASE_TXN = 8;
+    static final long OFFSET_TXN = 16;
+    static final long OFFSET_KEY_COUNT = 24;
+    static final long OFFSET_SEQUENCE_CHECK = 32;
+    static final long ENTRY_OFFSET_TXN = 0;
+    static final long ENTRY_OFFSET_PARTITION_TIMESTAMP = 8;
+    static final long ENTRY_OFFSET_ROW = 16;
+    static final long ENTRY_SIZE = 3 * Long.BYTES;
+    private static final long HEADER_SIZE = 64;
+    private final ReadWriteMemory mem = new ReadWriteMemory();
+    // partition timestamp and row of keys the next commit updates, row is -1 when key is not pending
+    private final LongList pendingRows = new LongList();
+    private final IntList pendingIndexes = new IntList();
+
+    static long getEntryOffset(int index) {
+        return HEADER_SIZE + index * ENTRY_SIZE;
+    }
+
+    static int getIndex(int symbolKey) {
+        return symbolKey == SymbolTable.VALUE_IS_NULL ? 0 : symbolKey + 1;
+    }
+
+    @Override
+    public void close() {
+        mem.close();
+        clearPending();
+    }
+
+    /**
+     * Sets latest row of key, which becomes visible to readers on the next commit.
+     *
+     * @param index              key offset by one
+     * @param partitionTimestamp timestamp of partition the row belongs to
+     * @param row                row within partition
+     */
+    void add(int index, long partitionTimestamp, long row) {
+        if (!isPending(index)) {
+            pendingIndexes.add(index);
+        }
+        pendingRows.setQuick(2 * index, partitionTimestamp);
+        pendingRows.setQuick(2 * index + 1, row);
+    }
+
+    /**
+     * Same as {@link #add(int, long, long)}, except that row of key that is pending already is kept.
+     *
+     * @return true when key was not pending
+     */
+    boolean addIfAbsent(int index, long partitionTimestamp, long row) {
+        if (isPending(index)) {
+            return false;
+        }
+        add(index, partitionTimestamp, row);
+        return true;
+    }
+
+    void clearPending() {
+        for (int i = 0, n = pendingIndexes.size(); i < n; i++) {
+            pendingRows.setQuick(2 * pendingIndexes.getQuick(i) + 1, -1);
+        }
+        pendingIndexes.clear();
+    }
+
+    /**
+     * Updates entries of pending keys and makes cache describe given transaction.
+     *
+     * @param txn transaction that committed pending rows
+     */
+    void commit(long txn) {
+        update(txn, false);
+    }
+
+    boolean hasPending() {
+        return pendingIndexes.size() > 0;
+    }
+
+    boolean isCommitted(long txn) {
+        return mem.getLong(OFFSET_SEQUENCE) == mem.getLong(OFFSET_SEQUENCE_CHECK) && mem.getLong(OFFSET_TXN) == txn;
+    }
+
+    boolean isOpen() {
+        return mem.isOpen();
+    }
+
+    boolean isPending(int index) {
+        final int size = pendingRows.size();
+        if (2 * index + 1 >= size) {
+            pendingRows.seed(size, Math.max(2 * index + 2, 2 * size) - size, -1);
+            return false;
+        }
+        return pendingRows.getQuick(2 * index + 1) != -1;
+    }
+
+    void of(FilesFacade ff, LPSZ name) {
+        mem.of(ff, name, ff.getPageSize());
+        if (mem.getAppendOffset() < HEADER_SIZE) {
+            // new file does not describe any transaction
+            mem.putLong(OFFSET_SEQUENCE, 0);
+            mem.putLong(OFFSET_BASE_TXN, -1);
+            mem.putLong(OFFSET_TXN, -1);
+            mem.putLong(OFFSET_KEY_COUNT, 0);
+            mem.putLong(OFFSET_SEQUENCE_CHECK, 0);
+            mem.jumpTo(HEADER_SIZE);
+        }
+    }
+
+    /**
+     * Replaces all entries with pending ones. Readers of transactions before the given one cannot use cache
+     * afterwards.
+     *
+     * @param txn transaction that pending rows describe
+     */
+    void rebuild(long txn) {
+        update(txn, true);
+    }
+
+    void sync(boolean async) {
+        mem.sync(async);
+    }
+
+    private void update(long txn, boolean rebuild) {
+        final long sequence = mem.getLong(OFFSET_SEQUENCE) + 1;
+        mem.putLong(OFFSET_SEQUENCE, sequence);
+        Unsafe.getUnsafe().storeFence();
+
+        final long prevKeyCount = mem.getLong(OFFSET_KEY_COUNT);
+        long keyCount = prevKeyCount;
+        for (int i = 0, n = pendingIndexes.size(); i < n; i++) {
+            keyCount = Math.max(keyCount, pendingIndexes.getQuick(i) + 1);
+        }
+
+        // entries past key count can be left over from update that did not finish
+        for (long i = rebuild ? 0 : prevKeyCount; i < keyCount; i++) {
+            mem.putLong(getEntryOffset((int) i) + ENTRY_OFFSET_TXN, 0);
+        }
+
+        if (rebuild) {
+            mem.putLong(OFFSET_BASE_TXN, txn);
+        }
+
+        for (int i = 0, n = pendingIndexes.size(); i < n; i++) {
+            final int index = pendingIndexes.getQuick(i);
+            final long offset = getEntryOffset(index);
+            // new entries are written before key count lets readers see them
+            mem.putLong(offset + ENTRY_OFFSET_TXN, txn);
+            mem.putLong(offset + ENTRY_OFFSET_PARTITION_TIMESTAMP, pendingRows.getQuick(2 * index));
+            mem.putLong(offset + ENTRY_OFFSET_ROW, pendingRows.getQuick(2 * index + 1));
+        }
+        mem.putLong(OFFSET_KEY_COUNT, keyCount);
+        mem.putLong(OFFSET_TXN, txn);
+        // file is truncated to append offset when it is closed
+        mem.jumpTo(getEntryOffset((int) keyCount));
+
+        Unsafe.getUnsafe().storeFence();
+        mem.putLong(OFFSET_SEQUENCE_CHECK, sequence);
+        clearPending();
+    }
+}
@@ -147,4 +147,8 @@ public class NullColumn implements ReadOnlyColumn {
     public long getPageAddress(int pageIndex) {
         return 0;
     }
+
+    @Override
+    public void advise(long offset, long len, int advice) {
+    }
 }
@@ -190,6 +190,13 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
         return absolutePointer;
     }
 
+    @Override
+    public void advise(long offset, long len, int advice) {
+        if (page != -1 && offset < size) {
+            ff.madvise(absolutePointer + offset, Math.min(len, size - offset), advice);
+        }
+    }
+
     public void getLong256(long offset, Long256Sink sink) {
         sink.setLong0(Unsafe.getUnsafe().getLong(addressOf(offset)));
         sink.setLong1(Unsafe.getUnsafe().getLong(addressOf(offset + Long.BYTES)));
@@ -82,4 +82,12 @@ public interface ReadOnlyColumn extends Closeable {
     long getPageSize(int pageIndex);
 
     long getPageAddress(int pageIndex);
+
+    /**
+     * Advises OS how bytes of column between offset and offset + len are going to be read.
+     * Range is trimmed to the size of column.
+     *
+     * @param advice one of Files.MADV_* constants
+     */
+    void advise(long offset, long len, int advice);
 }
@@ -39,6 +39,12 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
     private int lastPageIndex;
     private long pageSize;
     private long userSize = 0;
+    // advice of pages that are not mapped yet, it is applied when page is mapped
+    private int stickyAdvice = Files.MADV_NORMAL;
+    private long stickyAdviceLo;
+    private long stickyAdviceHi;
+    private long willNeedLo;
+    private long willNeedHi;
 
     public ReadOnlyMemory(FilesFacade ff, LPSZ name, long pageSize, long size) {
         of(ff, name, pageSize, size);
@@ -57,6 +63,7 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
             this.size = 0;
             this.userSize = 0;
         }
+        clearStickyAdvice();
     }
 
     @Override
@@ -68,6 +75,39 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
         return mapPage(page);
     }
 
+    @Override
+    public void advise(long offset, long len, int advice) {
+        final long hi = Math.min(len, userSize - offset) + offset;
+        if (offset >= hi) {
+            return;
+        }
+
+        switch (advice) {
+            case Files.MADV_RANDOM:
+            case Files.MADV_SEQUENTIAL:
+                stickyAdvice = advice;
+                stickyAdviceLo = offset;
+                stickyAdviceHi = hi;
+                break;
+            case Files.MADV_WILLNEED:
+                willNeedLo = offset;
+                willNeedHi = hi;
+                break;
+            default:
+                // reader is done with the range, pages mapped from now on are read the default way
+                clearStickyAdvice();
+                break;
+        }
+
+        // advice is not a reason to map pages, pages that are not mapped yet get it in mapPage()
+        for (int page = pageIndex(offset), last = pageIndex(hi - 1); page <= last; page++) {
+            final long address = super.getPageAddress(page);
+            if (address != 0) {
+                advisePage(page, address, offset, hi, advice);
+            }
+        }
+    }
+
     @Override
     public long getPageSize(int page) {
         // in some cases VirtualMemory.getPageSize() is called
@@ -143,6 +183,31 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
         return size;
     }
 
+    private void advisePage(int page, long address, long offset, long hi, int advice) {
+        final long pageLo = pageOffset(page);
+        final long pageHi = pageLo + getPageSize(page);
+        if (offset < pageHi && hi > pageLo) {
+            final long lo = Math.max(offset, pageLo);
+            ff.madvise(address + lo - pageLo, Math.min(hi, pageHi) - lo, advice);
+        }
+    }
+
+    private long applyStickyAdvice(int page, long address) {
+        if (stickyAdvice != Files.MADV_NORMAL) {
+            advisePage(page, address, stickyAdviceLo, stickyAdviceHi, stickyAdvice);
+        }
+        if (willNeedLo < willNeedHi) {
+            advisePage(page, address, willNeedLo, willNeedHi, Files.MADV_WILLNEED);
+        }
+        return address;
+    }
+
+    private void clearStickyAdvice() {
+        stickyAdvice = Files.MADV_NORMAL;
+        stickyAdviceLo = stickyAdviceHi = 0;
+        willNeedLo = willNeedHi = 0;
+    }
+
     private long computePageSize(long memorySize) {
         if (memorySize < pageSize) {
             return Math.max(ff.getPageSize(), (memorySize / ff.getPageSize()) * ff.getPageSize());
@@ -189,7 +254,7 @@ public class ReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
             }
 
             address = ff.mmap(fd, sz, offset, Files.MAP_RO);
-            return address == -1L ? recoverPageMapOrFail(page, offset, sz) : cachePageAddress(page, address);
+            return applyStickyAdvice(page, address == -1L ? recoverPageMapOrFail(page, offset, sz) : cachePageAddress(page, address));
         }
         throw CairoException.instance(ff.errno()).put("Trying to map read-only page outside of file boundary. fd=").put(fd).put(", offset=").put(offset).put(", size=").put(this.size).put(", page=").put(sz);
     }
@@ -49,7 +49,20 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     private RecordCursor symbolTableResolver;
 
     public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, long pageSize, int maxPages) {
-        this.mem = new VirtualMemory(pageSize, maxPages);
+        this(columnTypes, recordSink, new VirtualMemory(pageSize, maxPages));
+    }
+
+    /**
+     * Creates chain over memory supplied by the caller, such as file backed memory. Chain closes
+     * the memory on {@link #clear()} and {@link #close()}, caller has to re-open file
+     * backed memory before the chain is used again.
+     *
+     * @param columnTypes types of columns copied by record sink
+     * @param recordSink  sink that copies records into the chain
+     * @param mem         memory to store records in
+     */
+    public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, VirtualMemory mem) {
+        this.mem = mem;
         this.recordSink = recordSink;
         int count = columnTypes.getColumnCount();
         long varOffset = 0L;
@@ -113,7 +126,7 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         if (nextRecordOffset != -1) {
             final long offset = nextRecordOffset;
             nextRecordOffset = mem.getLong(nextRecordOffset);
-            recordA.of(rowToDataOffset(offset));
+            recordA.of(mem, rowToDataOffset(offset), 0);
             return true;
         }
         return false;
@@ -126,7 +139,21 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
     @Override
     public void recordAt(Record record, long row) {
-        ((RecordChainRecord) record).of(rowToDataOffset(row));
+        ((RecordChainRecord) record).of(mem, rowToDataOffset(row), 0);
+    }
+
+    /**
+     * Positions record, created by {@link #newRecord()}, at row of a copy
+     * of this chain, e.g. file written by {@link #copyTo(AppendMemory)} and
+     * mapped back into memory.
+     *
+     * @param record    record instance created by this chain
+     * @param mem       memory holding copy of chain data
+     * @param row       row id that was valid in this chain at the time of copying
+     * @param rowIdBase value added to row to form {@link Record#getRowId()} of the record
+     */
+    public void recordAt(Record record, VirtualMemory mem, long row, long rowIdBase) {
+        ((RecordChainRecord) record).of(mem, rowToDataOffset(row), rowIdBase);
     }
 
     @Override
@@ -138,6 +165,30 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
         }
     }
 
+    /**
+     * Appends chain data as is to the target memory. Row ids as well as offsets
+     * of strings and binary values are relative to the start of chain
+     * data, so rows remain addressable in the copy.
+     *
+     * @param target memory to append to, typically a file
+     */
+    public void copyTo(AppendMemory target) {
+        long offset = 0;
+        while (offset < varAppendOffset) {
+            final long len = Math.min(mem.pageRemaining(offset), varAppendOffset - offset);
+            target.putBlockOfBytes(mem.addressOf(offset), len);
+            offset += len;
+        }
+    }
+
+    public long getMemorySize() {
+        return varAppendOffset;
+    }
+
+    public Record newRecord() {
+        return new RecordChainRecord();
+    }
+
     public void of(long nextRecordOffset) {
         this.nextRecordOffset = nextRecordOffset;
     }
@@ -257,6 +308,8 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     private class RecordChainRecord implements Record {
         long fixedOffset;
         long baseOffset;
+        VirtualMemory mem;
+        long rowIdBase;
 
         @Override
         public BinarySequence getBin(int col) {
@@ -302,7 +355,7 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
 
         @Override
         public long getRowId() {
-            return baseOffset - 8;
+            return rowIdBase + baseOffset - 8;
         }
 
         @Override
@@ -360,7 +413,9 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
             return fixedOffset + columnOffsets[index];
         }
 
-        private void of(long offset) {
+        private void of(VirtualMemory mem, long offset, long rowIdBase) {
+            this.mem = mem;
+            this.rowIdBase = rowIdBase;
             this.baseOffset = offset;
             this.fixedOffset = offset + varOffset;
         }
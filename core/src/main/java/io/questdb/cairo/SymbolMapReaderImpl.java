@@ -170,6 +170,8 @@ public class SymbolMapReaderImpl implements Closeable, SymbolMapReader {
 
     @Override
     public void updateSymbolCount(int symbolCount) {
+        // writer flags nulls as rows are appended
+        this.nullValue = offsetMem.getBool(SymbolMapWriter.HEADER_NULL_FLAG);
         if (symbolCount > this.symbolCount) {
             this.symbolCount = symbolCount;
             this.maxOffset = SymbolMapWriter.keyToOffset(symbolCount);
@@ -140,10 +140,7 @@ public class SymbolMapWriter implements Closeable {
     public int put(CharSequence symbol) {
 
         if (symbol == null) {
-            if (!nullValue) {
-                nullValue = true;
-                updateNullFlag(true);
-            }
+            putNull();
             return SymbolTable.VALUE_IS_NULL;
         }
 
@@ -154,6 +151,16 @@ public class SymbolMapWriter implements Closeable {
         return lookupAndPut(symbol);
     }
 
+    /**
+     * Flags that column has null values. Table writer calls this for rows that do not have symbol value set.
+     */
+    public void putNull() {
+        if (!nullValue) {
+            nullValue = true;
+            updateNullFlag(true);
+        }
+    }
+
     static int offsetToKey(long offset) {
         return (int) ((offset - HEADER_SIZE) / 8L);
     }
@@ -178,6 +185,10 @@ public class SymbolMapWriter implements Closeable {
         return offsetToKey(offsetMem.getAppendOffset());
     }
 
+    public boolean containsNullValue() {
+        return offsetMem.getBool(HEADER_NULL_FLAG);
+    }
+
     public void updateNullFlag(boolean flag) {
         offsetMem.putBool(HEADER_NULL_FLAG, flag);
     }
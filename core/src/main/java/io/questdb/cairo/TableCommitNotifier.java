@@ -0,0 +1,264 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.Chars;
+import io.questdb.std.ConcurrentHashMap;
+import io.questdb.std.ObjList;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wakes up threads and connections that wait for tables to change. Table writer notifies every time it
+ * publishes a transaction, so that tail cursors do not have to poll transaction file. Notification does not
+ * carry data, waiter reloads its table reader to find out what has changed.
+ * <p>
+ * Writers that do not share notifier, e.g. writers of another process, do not notify. Threads
+ * should wait with timeout unless they know all writers of the table.
+ * <p>
+ * Waiter has to take commit count before it reloads reader and wait for count to change afterwards.
+ * Writer changes count after it publishes transaction, so that the order makes sure no commit is missed.
+ * <p>
+ * Tables that are no longer used are forgotten by {@link #releaseIdle()} and {@link #remove(CharSequence)}.
+ */
+public class TableCommitNotifier {
+    private final ConcurrentHashMap<Signal> signals = new ConcurrentHashMap<>();
+    // counts of all tables come from one sequence, so that table, which is forgotten
+    // and then used again, does not repeat count that waiter might have taken
+    private final AtomicLong commitSequence = new AtomicLong();
+
+    /**
+     * Blocks current thread until table is committed to or timeout elapses.
+     *
+     * @param commitCount   value of {@link #getCommitCount(CharSequence)} taken before reader was reloaded
+     * @param timeoutMicros maximum time to wait
+     * @return true when table was committed to after commit count was taken
+     */
+    public boolean await(CharSequence tableName, long commitCount, long timeoutMicros) {
+        final Signal signal = lockSignal(tableName);
+        try {
+            return signal.await(commitCount, timeoutMicros);
+        } finally {
+            signal.lock.unlock();
+        }
+    }
+
+    /**
+     * @return value that changes every time writer publishes transaction to table, values only grow
+     */
+    public long getCommitCount(CharSequence tableName) {
+        return getSignal(tableName).commitCount;
+    }
+
+    /**
+     * Arranges for listener to be called once, on the next commit to table. Listener is called
+     * by committing thread and must not block. Listener may also be called without commit
+     * by {@link #releaseIdle()}.
+     *
+     * @param commitCount value of {@link #getCommitCount(CharSequence)} taken before reader was reloaded
+     * @return false when table was committed to after commit count was taken, listener is not registered in this case
+     */
+    public boolean listen(CharSequence tableName, long commitCount, Listener listener) {
+        final Signal signal = lockSignal(tableName);
+        try {
+            return signal.listen(commitCount, listener);
+        } finally {
+            signal.lock.unlock();
+        }
+    }
+
+    public void notifyCommit(CharSequence tableName) {
+        final Signal signal = lockSignal(tableName);
+        try {
+            signal.notifyCommit(commitSequence.incrementAndGet());
+        } finally {
+            signal.lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes up everyone who waits for table and forgets the table. Called when table is dropped or renamed,
+     * waiters find out what has happened when they reload.
+     */
+    public void remove(CharSequence tableName) {
+        final Signal signal = signals.get(tableName);
+        if (signal != null) {
+            signal.lock.lock();
+            try {
+                if (!signal.removed) {
+                    signal.notifyCommit(commitSequence.incrementAndGet());
+                    signal.removed = true;
+                    signals.remove(tableName, signal);
+                }
+            } finally {
+                signal.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Calls listeners without commit and forgets tables that no one has committed to or waited for since the
+     * previous call, e.g. tables that have been dropped by another process. Listeners are woken up the same way
+     * timeout wakes up waiting thread, parked connections get to check that their peer is still there.
+     * Meant to be called periodically.
+     *
+     * @return true when listener was called or table was forgotten
+     */
+    public boolean releaseIdle() {
+        boolean useful = false;
+        final Iterator<Signal> iterator = signals.values().iterator();
+        while (iterator.hasNext()) {
+            final Signal signal = iterator.next();
+            signal.lock.lock();
+            try {
+                if (signal.listeners.size() > 0) {
+                    signal.callListeners();
+                    useful = true;
+                } else if (signal.waiterCount == 0 && signal.commitCount == signal.releasedCommitCount) {
+                    signal.removed = true;
+                    iterator.remove();
+                    useful = true;
+                }
+                signal.releasedCommitCount = signal.commitCount;
+            } finally {
+                signal.lock.unlock();
+            }
+        }
+        return useful;
+    }
+
+    /**
+     * Removes listener, which is yet to be called. Listener is not called after this method returns.
+     */
+    public void removeListener(CharSequence tableName, Listener listener) {
+        final Signal signal = signals.get(tableName);
+        if (signal != null) {
+            signal.lock.lock();
+            try {
+                signal.removeListener(listener);
+            } finally {
+                signal.lock.unlock();
+            }
+        }
+    }
+
+    private Signal getSignal(CharSequence tableName) {
+        Signal signal = signals.get(tableName);
+        if (signal == null) {
+            signal = new Signal(commitSequence.get());
+            final Signal other = signals.putIfAbsent(Chars.toString(tableName), signal);
+            if (other != null) {
+                signal = other;
+            }
+        }
+        return signal;
+    }
+
+    private Signal lockSignal(CharSequence tableName) {
+        while (true) {
+            final Signal signal = getSignal(tableName);
+            signal.lock.lock();
+            if (!signal.removed) {
+                return signal;
+            }
+            // table has been forgotten after we found the signal, map has the new one
+            signal.lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onCommit();
+    }
+
+    // methods are called under lock
+    private static class Signal {
+        private final Lock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private final ObjList<Listener> listeners = new ObjList<>();
+        private volatile long commitCount;
+        private long releasedCommitCount;
+        private int waiterCount;
+        private boolean removed;
+
+        private Signal(long commitCount) {
+            this.commitCount = commitCount;
+            this.releasedCommitCount = commitCount;
+        }
+
+        private boolean await(long commitCount, long timeoutMicros) {
+            waiterCount++;
+            try {
+                long nanos = TimeUnit.MICROSECONDS.toNanos(timeoutMicros);
+                while (this.commitCount == commitCount && nanos > 0) {
+                    nanos = condition.awaitNanos(nanos);
+                }
+            } catch (InterruptedException ignore) {
+                // caller finds out whether table has changed
+            } finally {
+                waiterCount--;
+            }
+            return this.commitCount != commitCount;
+        }
+
+        private void callListeners() {
+            // listeners are called under lock to make sure removed listener is not called
+            for (int i = 0, n = listeners.size(); i < n; i++) {
+                listeners.getQuick(i).onCommit();
+            }
+            listeners.clear();
+        }
+
+        private boolean listen(long commitCount, Listener listener) {
+            if (this.commitCount != commitCount) {
+                return false;
+            }
+            if (listeners.indexOf(listener) == -1) {
+                listeners.add(listener);
+            }
+            return true;
+        }
+
+        private void notifyCommit(long commitCount) {
+            this.commitCount = commitCount;
+            if (waiterCount > 0) {
+                condition.signalAll();
+            }
+            callListeners();
+        }
+
+        private void removeListener(Listener listener) {
+            final int index = listeners.indexOf(listener);
+            if (index > -1) {
+                listeners.remove(index);
+            }
+        }
+    }
+}
@@ -24,7 +24,6 @@
 
 package io.questdb.cairo;
 
-import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
@@ -37,10 +36,14 @@ import java.util.concurrent.locks.LockSupport;
 import static io.questdb.cairo.TableUtils.TX_OFFSET_MIN_TIMESTAMP;
 
 public class TableReader implements Closeable {
+    public static final long LATEST_ROW_NONE = -1;
+    public static final long LATEST_ROW_UNKNOWN = -2;
     private static final Log LOG = LogFactory.getLog(TableReader.class);
     private static final PartitionPathGenerator YEAR_GEN = TableReader::pathGenYear;
     private static final PartitionPathGenerator MONTH_GEN = TableReader::pathGenMonth;
+    private static final PartitionPathGenerator WEEK_GEN = TableReader::pathGenWeek;
     private static final PartitionPathGenerator DAY_GEN = TableReader::pathGenDay;
+    private static final PartitionPathGenerator HOUR_GEN = TableReader::pathGenHour;
     private static final PartitionPathGenerator DEFAULT_GEN = (reader, partitionIndex) -> reader.pathGenDefault();
     private static final ReloadMethod FIRST_TIME_PARTITIONED_RELOAD_METHOD = TableReader::reloadInitialPartitioned;
     private static final ReloadMethod FIRST_TIME_NON_PARTITIONED_RELOAD_METHOD = TableReader::reloadInitialNonPartitioned;
@@ -64,6 +67,8 @@ public class TableReader implements Closeable {
     private final CairoConfiguration configuration;
     private final IntList symbolCountSnapshot = new IntList();
     private final LongHashSet removedPartitions = new LongHashSet();
+    private final long largeScanRowCount;
+    private final boolean adviceEnabled;
     private LongList columnTops;
     private ObjList<ReadOnlyColumn> columns;
     private ObjList<BitmapIndexReader> bitmapIndexes;
@@ -83,13 +88,21 @@ public class TableReader implements Closeable {
     private long prevMinTimestamp = Long.MAX_VALUE;
     private ReloadMethod reloadMethod;
     private long tempMem8b = Unsafe.malloc(8);
+    private ReadOnlyMemory latestRowMem;
 
     public TableReader(CairoConfiguration configuration, CharSequence tableName) {
+        this(configuration, tableName, configuration.getRoot());
+    }
+
+    public TableReader(CairoConfiguration configuration, CharSequence tableName, CharSequence root) {
         LOG.info().$("open '").utf8(tableName).$('\'').$();
         this.configuration = configuration;
         this.ff = configuration.getFilesFacade();
+        this.largeScanRowCount = configuration.getSqlLargeScanRowCount();
+        // without madvise() there is no point walking columns of every frame
+        this.adviceEnabled = ff.isMadviseSupported();
         this.tableName = Chars.toString(tableName);
-        this.path = new Path().of(configuration.getRoot()).concat(tableName);
+        this.path = new Path().of(root).concat(tableName);
         this.rootLen = path.length();
         try {
             failOnPendingTodo();
@@ -98,6 +111,13 @@ public class TableReader implements Closeable {
             this.columnCount = this.metadata.getColumnCount();
             this.columnCountBits = getColumnBits(columnCount);
             switch (this.metadata.getPartitionBy()) {
+                case PartitionBy.HOUR:
+                    partitionPathGenerator = HOUR_GEN;
+                    reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
+                    timestampFloorMethod = Timestamps::floorHH;
+                    intervalLengthMethod = Timestamps::getHoursBetween;
+                    timestampAddMethod = Timestamps::addHours;
+                    break;
                 case PartitionBy.DAY:
                     partitionPathGenerator = DAY_GEN;
                     reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
@@ -105,6 +125,13 @@ public class TableReader implements Closeable {
                     intervalLengthMethod = Timestamps::getDaysBetween;
                     timestampAddMethod = Timestamps::addDays;
                     break;
+                case PartitionBy.WEEK:
+                    partitionPathGenerator = WEEK_GEN;
+                    reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
+                    timestampFloorMethod = Timestamps::floorWW;
+                    intervalLengthMethod = Timestamps::getWeeksBetween;
+                    timestampAddMethod = Timestamps::addWeeks;
+                    break;
                 case PartitionBy.MONTH:
                     partitionPathGenerator = MONTH_GEN;
                     reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
@@ -193,6 +220,7 @@ public class TableReader implements Closeable {
             Misc.free(txMem);
             freeColumns();
             freeTempMem();
+            latestRowMem = Misc.free(latestRowMem);
             LOG.info().$("closed '").utf8(tableName).$('\'').$();
         }
     }
@@ -256,10 +284,72 @@ public class TableReader implements Closeable {
         return maxTimestamp;
     }
 
-    public RecordMetadata getMetadata() {
+    public TableReaderMetadata getMetadata() {
         return metadata;
     }
 
+    /**
+     * Looks up latest row of symbol key in the cache table writer keeps for column
+     * {@link TableReaderMetadata#getLatestRowColumnIndex()}. Cache cannot answer when writer is yet to update
+     * it for this reader's transaction or when rows of the key were committed after this transaction.
+     *
+     * @param symbolKey key of symbol value or {@link io.questdb.cairo.sql.SymbolTable#VALUE_IS_NULL}
+     * @return row id, {@link #LATEST_ROW_NONE} when key has no rows or {@link #LATEST_ROW_UNKNOWN} when cache cannot answer
+     */
+    public long getLatestRowId(int symbolKey) {
+        if (metadata.getLatestRowColumnIndex() == -1 || (latestRowMem == null && !openLatestRowCache())) {
+            return LATEST_ROW_UNKNOWN;
+        }
+
+        final ReadOnlyMemory mem = latestRowMem;
+        final long sequence = mem.getLong(LatestRowCache.OFFSET_SEQUENCE_CHECK);
+        Unsafe.getUnsafe().loadFence();
+        final long baseTxn = mem.getLong(LatestRowCache.OFFSET_BASE_TXN);
+        final long cacheTxn = mem.getLong(LatestRowCache.OFFSET_TXN);
+        final long keyCount = mem.getLong(LatestRowCache.OFFSET_KEY_COUNT);
+        Unsafe.getUnsafe().loadFence();
+        // key count has to be consistent before it is trusted to be within file
+        if (mem.getLong(LatestRowCache.OFFSET_SEQUENCE) != sequence || txn < baseTxn || txn > cacheTxn) {
+            return LATEST_ROW_UNKNOWN;
+        }
+
+        final int index = LatestRowCache.getIndex(symbolKey);
+        long entryTxn = 0;
+        long partitionTimestamp = 0;
+        long row = 0;
+        if (index < keyCount) {
+            final long offset = LatestRowCache.getEntryOffset(index);
+            mem.grow(offset + LatestRowCache.ENTRY_SIZE);
+            entryTxn = mem.getLong(offset + LatestRowCache.ENTRY_OFFSET_TXN);
+            partitionTimestamp = mem.getLong(offset + LatestRowCache.ENTRY_OFFSET_PARTITION_TIMESTAMP);
+            row = mem.getLong(offset + LatestRowCache.ENTRY_OFFSET_ROW);
+            Unsafe.getUnsafe().loadFence();
+            if (mem.getLong(LatestRowCache.OFFSET_SEQUENCE) != sequence) {
+                return LATEST_ROW_UNKNOWN;
+            }
+        }
+
+        if (entryTxn == 0) {
+            return LATEST_ROW_NONE;
+        }
+
+        if (entryTxn > txn) {
+            return LATEST_ROW_UNKNOWN;
+        }
+
+        int partitionIndex = 0;
+        if (timestampAddMethod != null) {
+            if (partitionTimestamp < minTimestamp) {
+                return LATEST_ROW_UNKNOWN;
+            }
+            partitionIndex = getPartitionCountBetweenTimestamps(minTimestamp, partitionTimestamp);
+        }
+        if (partitionIndex >= partitionCount || row >= openPartition(partitionIndex)) {
+            return LATEST_ROW_UNKNOWN;
+        }
+        return Rows.toRowID(partitionIndex, row);
+    }
+
     public long getMinTimestamp() {
         return minTimestamp;
     }
@@ -282,6 +372,43 @@ public class TableReader implements Closeable {
         return rowHi - rowLo - getColumnTop(getColumnBase(partitionIndex), columnIndex);
     }
 
+    /**
+     * Advises OS how columns of open partition are going to be read between rowLo and rowHi. Rows that
+     * are scanned are read ahead, small frame is read ahead in full before the scan. Rows of frame that is
+     * not scanned are read in random order, e.g. via index, and are not read ahead.
+     *
+     * Does nothing when native library does not implement madvise().
+     *
+     * @param scan true when all rows of frame are going to be read in order
+     */
+    public void adviseFrame(int partitionIndex, long rowLo, long rowHi, boolean scan) {
+        if (!adviceEnabled) {
+            return;
+        }
+        if (scan) {
+            adviseRows(partitionIndex, rowLo, rowHi, Files.MADV_SEQUENTIAL);
+            if (rowHi - rowLo < largeScanRowCount) {
+                adviseRows(partitionIndex, rowLo, rowHi, Files.MADV_WILLNEED);
+            }
+        } else {
+            adviseRows(partitionIndex, rowLo, rowHi, Files.MADV_RANDOM);
+        }
+    }
+
+    /**
+     * Reverts advice given by {@link #adviseFrame(int, long, long, boolean)}. Pages of large frame that has been
+     * scanned are let go of, so that one-off scan does not push data other queries need out of memory.
+     */
+    public void releaseFrame(int partitionIndex, long rowLo, long rowHi, boolean scan) {
+        if (!adviceEnabled) {
+            return;
+        }
+        adviseRows(partitionIndex, rowLo, rowHi, Files.MADV_NORMAL);
+        if (scan && rowHi - rowLo >= largeScanRowCount) {
+            adviseRows(partitionIndex, rowLo, rowHi, Files.MADV_DONTNEED);
+        }
+    }
+
     public int getPartitionCount() {
         return partitionCount;
     }
@@ -352,6 +479,22 @@ public class TableReader implements Closeable {
         return min;
     }
 
+    /**
+     * Reads zone map of partition, which must be open.
+     *
+     * @param partitionIndex partition index
+     * @param zoneMap        zone map to read into
+     * @return false when partition doesn't have zone map or zone map doesn't describe all rows of partition
+     */
+    public boolean readZoneMap(int partitionIndex, ZoneMap zoneMap) {
+        try {
+            return zoneMap.read(ff, partitionPathGenerator.generate(this, partitionIndex).chopZ(), metadata)
+                    && zoneMap.getRowCount() >= getPartitionRowCount(partitionIndex);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public boolean reload() {
         return reloadMethod.reload(this);
     }
@@ -503,19 +646,19 @@ public class TableReader implements Closeable {
 
     private void applyTruncate() {
         LOG.info().$("truncate detected").$();
+        // data version changes when table is truncated or when out-of-order rows are merged
+        // into existing partitions. In the latter case partition files are replaced and table
+        // min timestamp may shift partition indexes, so all partitions are re-opened lazily
         for (int i = 0, n = partitionCount; i < n; i++) {
-            long size = openPartition0(i);
-            if (size == -1) {
-                int base = getColumnBase(i);
-                for (int k = 0; k < columnCount; k++) {
-                    final int index = getPrimaryColumnIndex(base, k);
-                    Misc.free(columns.getAndSetQuick(index, null));
-                    Misc.free(columns.getAndSetQuick(index + 1, null));
-                    Misc.free(bitmapIndexes.getAndSetQuick(index, null));
-                    Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
-                }
-                partitionRowCounts.setQuick(i, -1);
+            int base = getColumnBase(i);
+            for (int k = 0; k < columnCount; k++) {
+                final int index = getPrimaryColumnIndex(base, k);
+                Misc.free(columns.getAndSetQuick(index, null));
+                Misc.free(columns.getAndSetQuick(index + 1, null));
+                Misc.free(bitmapIndexes.getAndSetQuick(index, null));
+                Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
             }
+            partitionRowCounts.setQuick(i, -1);
         }
         reloadSymbolMapCounts();
         partitionCount = calculatePartitionCount();
@@ -807,6 +950,20 @@ public class TableReader implements Closeable {
         }
     }
 
+    private boolean openLatestRowCache() {
+        try {
+            path.concat(TableUtils.LATEST_ROW_FILE_NAME).$();
+            // writer creates file before it starts caching rows
+            if (!ff.exists(path) || ff.length(path) < LatestRowCache.getEntryOffset(0)) {
+                return false;
+            }
+            latestRowMem = new ReadOnlyMemory(ff, path, ff.getPageSize(), LatestRowCache.getEntryOffset(0));
+            return true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     public long openPartition(int partitionIndex) {
         final long size = getPartitionRowCount(partitionIndex);
         if (size != -1) {
@@ -866,6 +1023,49 @@ public class TableReader implements Closeable {
         }
     }
 
+    private void adviseRows(int partitionIndex, long rowLo, long rowHi, int advice) {
+        // partition could have been closed by reload since it was advised
+        if (partitionIndex >= partitionCount) {
+            return;
+        }
+        final long partitionRowCount = getPartitionRowCount(partitionIndex);
+        if (partitionRowCount < 1) {
+            return;
+        }
+        final int base = getColumnBase(partitionIndex);
+        for (int i = 0; i < columnCount; i++) {
+            final int index = getPrimaryColumnIndex(base, i);
+            final ReadOnlyColumn column = columns.getQuick(index);
+            if (column == null || column instanceof NullColumn) {
+                continue;
+            }
+
+            final long columnTop = getColumnTop(base, i);
+            final long lo = Math.max(rowLo - columnTop, 0);
+            final long hi = Math.min(rowHi, partitionRowCount) - columnTop;
+            if (lo >= hi) {
+                continue;
+            }
+
+            final int columnType = metadata.getColumnType(i);
+            switch (columnType) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                    // index column holds offsets of values in data column
+                    final ReadOnlyColumn indexColumn = columns.getQuick(index + 1);
+                    indexColumn.advise(lo * Long.BYTES, (hi - lo) * Long.BYTES, advice);
+                    final long dataLo = indexColumn.getLong(lo * Long.BYTES);
+                    final long dataHi = hi < partitionRowCount - columnTop ? indexColumn.getLong(hi * Long.BYTES) : Long.MAX_VALUE;
+                    column.advise(dataLo, dataHi - dataLo, advice);
+                    break;
+                default:
+                    final int size = ColumnType.sizeOf(columnType);
+                    column.advise(lo * size, (hi - lo) * size, advice);
+                    break;
+            }
+        }
+    }
+
     private void openPartitionColumns(Path path, int columnBase, long partitionRowCount, boolean lastPartition) {
         for (int i = 0; i < columnCount; i++) {
             reloadColumnAt(path, this.columns, this.columnTops, this.bitmapIndexes, columnBase, i, partitionRowCount, lastPartition);
@@ -906,6 +1106,16 @@ public class TableReader implements Closeable {
         return path.concat(TableUtils.DEFAULT_PARTITION_NAME).$();
     }
 
+    private Path pathGenHour(int partitionIndex) {
+        TableUtils.fmtHour.format(
+                Timestamps.addHours(minTimestamp, partitionIndex),
+                null, // this format does not need locale access
+                null,
+                path.put(Files.SEPARATOR)
+        );
+        return path.$();
+    }
+
     private Path pathGenMonth(int partitionIndex) {
         TableUtils.fmtMonth.format(
                 Timestamps.addMonths(minTimestamp, partitionIndex),
@@ -926,6 +1136,16 @@ public class TableReader implements Closeable {
         return path.$();
     }
 
+    private Path pathGenWeek(int partitionIndex) {
+        TableUtils.fmtDay.format(
+                Timestamps.addWeeks(minTimestamp, partitionIndex),
+                null, // this format does not need locale access
+                null,
+                path.put(Files.SEPARATOR)
+        );
+        return path.$();
+    }
+
     private boolean readTxn() {
         // fast path
         return this.txn != txMem.getLong(TableUtils.TX_OFFSET_TXN) && readTxnSlow();
@@ -1037,11 +1257,24 @@ public class TableReader implements Closeable {
             ReadOnlyColumn mem1 = columns.getQuick(primaryIndex);
             ReadOnlyColumn mem2 = columns.getQuick(secondaryIndex);
 
-            if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+            // raw file takes precedence, compressed file could be incomplete while it exists
+            final boolean compressed = !ff.exists(TableUtils.dFile(path.trimTo(plen), name))
+                    && ff.exists(TableUtils.dzFile(path.trimTo(plen), name));
+
+            if (compressed || ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
 
-                if (mem1 != null && mem1 != NullColumn.INSTANCE) {
+                if (compressed) {
+                    if (mem1 instanceof CompressedColumn) {
+                        mem1.of(ff, path, ff.getMapPageSize(), ff.length(path));
+                    } else {
+                        Misc.free(mem1);
+                        mem1 = new CompressedColumn(ff, path, ff.length(path));
+                        columns.setQuick(primaryIndex, mem1);
+                    }
+                } else if (mem1 != null && mem1 != NullColumn.INSTANCE && !(mem1 instanceof CompressedColumn)) {
                     mem1.of(ff, path, ff.getMapPageSize(), ff.length(path));
                 } else {
+                    Misc.free(mem1);
                     if (lastPartition) {
                         mem1 = new ReadOnlyMemory(ff, path, ff.getMapPageSize(), 0);
                     } else {
@@ -1125,6 +1358,8 @@ public class TableReader implements Closeable {
             // rearrange symbol map reader list
             reshuffleSymbolMapReaders(pTransitionIndex);
             this.columnCount = columnCount;
+            // cache file is replaced when writer starts caching another column
+            latestRowMem = Misc.free(latestRowMem);
         } finally {
             TableReaderMetadata.freeTransitionIndex(pTransitionIndex);
         }
@@ -1171,9 +1406,14 @@ public class TableReader implements Closeable {
     }
 
     private boolean reloadNonPartitioned() {
+        final long dataVersion = this.dataVersion;
         // calling readTxn will set "rowCount" member variable
         if (readTxn()) {
             reloadStruct();
+            if (dataVersion != this.dataVersion) {
+                // column files could have been replaced by out-of-order merge
+                partitionRowCounts.setQuick(0, -1);
+            }
             if (getPartitionRowCount(0) > -1) {
                 reloadPartition(0, rowCount);
             } else {
@@ -35,6 +35,7 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
     private final FilesFacade ff;
     private final CharSequenceIntHashMap tmpValidationMap = new CharSequenceIntHashMap();
     private ReadOnlyMemory transitionMeta;
+    private int latestRowColumnIndex;
 
     public TableReaderMetadata(FilesFacade ff, Path path) {
         this.ff = ff;
@@ -45,6 +46,7 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             this.columnNameIndexMap = new CharSequenceIntHashMap(columnCount);
             TableUtils.validate(ff, metaMem, this.columnNameIndexMap);
             this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
+            this.latestRowColumnIndex = metaMem.getInt(TableUtils.META_OFFSET_LATEST_ROW_COLUMN) - 1;
             this.columnMetadata = new ObjList<>(columnCount);
             long offset = TableUtils.getColumnNameOffset(columnCount);
 
@@ -161,6 +163,7 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
             this.columnCount = columnCount;
         }
         this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
+        this.latestRowColumnIndex = metaMem.getInt(TableUtils.META_OFFSET_LATEST_ROW_COLUMN) - 1;
     }
 
     @Override
@@ -225,6 +228,13 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return columnCount;
     }
 
+    /**
+     * @return index of symbol column table writer caches latest rows for or -1 when there is no such column
+     */
+    public int getLatestRowColumnIndex() {
+        return latestRowColumnIndex;
+    }
+
     public int getPartitionBy() {
         return metaMem.getInt(TableUtils.META_OFFSET_PARTITION_BY);
     }
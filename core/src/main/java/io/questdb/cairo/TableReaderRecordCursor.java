@@ -41,10 +41,14 @@ public class TableReaderRecordCursor implements RecordCursor {
     private long recodLo;
     private int partitionHi;
     private long recordHi;
+    // partition that has been advised to OS as being scanned
+    private int advisedPartitionIndex = -1;
+    private long advisedRowCount;
 
     @Override
     public void close() {
         if (reader != null) {
+            releasePartition();
             reader.close();
             reader = null;
         }
@@ -81,11 +85,15 @@ public class TableReaderRecordCursor implements RecordCursor {
 
     @Override
     public void recordAt(Record record, long rowId) {
-        ((TableReaderRecord) record).jumpTo(Rows.toPartitionIndex(rowId), Rows.toLocalRowID(rowId));
+        final int partitionIndex = Rows.toPartitionIndex(rowId);
+        // row id can come from another cursor, e.g. page frames, this cursor may not have opened its partition yet
+        reader.openPartition(partitionIndex);
+        ((TableReaderRecord) record).jumpTo(partitionIndex, Rows.toLocalRowID(rowId));
     }
 
     @Override
     public void toTop() {
+        releasePartition();
         partitionIndex = partitionLo;
         if (recordHi == -1) {
             partitionLimit = reader.getPartitionCount();
@@ -138,7 +146,15 @@ public class TableReaderRecordCursor implements RecordCursor {
         return false;
     }
 
+    private void releasePartition() {
+        if (advisedPartitionIndex != -1) {
+            reader.releaseFrame(advisedPartitionIndex, 0, advisedRowCount, true);
+            advisedPartitionIndex = -1;
+        }
+    }
+
     private boolean switchPartition0() {
+        releasePartition();
         while (partitionIndex < partitionLimit) {
             final long partitionSize = reader.openPartition(partitionIndex);
             if (partitionSize > 0) {
@@ -147,6 +163,9 @@ public class TableReaderRecordCursor implements RecordCursor {
                 } else {
                     maxRecordIndex = partitionSize - 1;
                 }
+                advisedPartitionIndex = partitionIndex;
+                advisedRowCount = maxRecordIndex + 1;
+                reader.adviseFrame(partitionIndex, 0, advisedRowCount, true);
                 recordA.jumpTo(partitionIndex, -1);
                 partitionIndex++;
                 return true;
@@ -29,6 +29,7 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
 import io.questdb.std.LongList;
 import io.questdb.std.Misc;
+import io.questdb.std.Rows;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -110,6 +111,8 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
         private final LongList pageSizes = new LongList();
         private long pageValueCount;
         private long partitionRemaining = 0L;
+        private long partitionSize;
+        private long firstRowId;
 
         public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes) {
             this.columnIndexes = columnIndexes;
@@ -138,7 +141,7 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
             }
 
             while (++partitionIndex < partitionCount) {
-                partitionRemaining = reader.openPartition(partitionIndex);
+                partitionRemaining = partitionSize = reader.openPartition(partitionIndex);
                 if (partitionRemaining > 0) {
                     final int base = reader.getColumnBase(partitionIndex);
                     // copy table tops
@@ -180,11 +183,10 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
 
         private PageFrame computeFrame(long min) {
             for (int i = 0; i < columnCount; i++) {
-                final int columnIndex = columnIndexes.getQuick(i);
                 final long top = topsRemaining.getQuick(i);
                 if (top > 0) {
                     topsRemaining.setQuick(i, top - min);
-                    columnPageAddress.setQuick(columnIndex, 0);
+                    columnPageAddress.setQuick(i, 0);
                 } else {
                     long addr = columnPageNextAddress.getQuick(i);
                     long psz = pageSizes.getQuick(i);
@@ -194,6 +196,7 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
                 }
             }
             pageValueCount = min;
+            firstRowId = Rows.toRowID(partitionIndex, partitionSize - partitionRemaining);
             partitionRemaining -= min;
             return frame;
         }
@@ -234,6 +237,11 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
 
         private class TableReaderPageFrame implements PageFrame {
 
+            @Override
+            public long getFirstRowId() {
+                return firstRowId;
+            }
+
             @Override
             public long getPageAddress(int columnIndex) {
                 return columnPageAddress.getQuick(columnIndex);
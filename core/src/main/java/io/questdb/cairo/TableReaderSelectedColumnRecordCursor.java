@@ -84,7 +84,10 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
 
     @Override
     public void recordAt(Record record, long rowId) {
-        ((TableReaderSelectedColumnRecord) record).jumpTo(Rows.toPartitionIndex(rowId), Rows.toLocalRowID(rowId));
+        final int partitionIndex = Rows.toPartitionIndex(rowId);
+        // row id can come from another cursor, e.g. page frames, this cursor may not have opened its partition yet
+        reader.openPartition(partitionIndex);
+        ((TableReaderSelectedColumnRecord) record).jumpTo(partitionIndex, Rows.toLocalRowID(rowId));
     }
 
     @Override
@@ -46,6 +46,34 @@ public class TableReaderTailRecordCursor extends TableReaderRecordCursor {
         return false;
     }
 
+    /**
+     * Reloads cursor and, when there is nothing new, waits for table writer to commit and reloads again.
+     * Writer that shares notifier with this cursor wakes it up as soon as it commits, changes made by other
+     * writers are noticed once timeout elapses.
+     *
+     * @param notifier      notifier table writer publishes commits to
+     * @param timeoutMicros maximum time to wait for commit
+     * @return true when there are new rows to read
+     */
+    public boolean awaitReload(TableCommitNotifier notifier, long timeoutMicros) {
+        final CharSequence tableName = reader.getTableName();
+        // commit count is taken before reload, so that commits made after reload wake us up
+        final long commitCount = notifier.getCommitCount(tableName);
+        if (reload()) {
+            return true;
+        }
+        notifier.await(tableName, commitCount, timeoutMicros);
+        return reload();
+    }
+
+    @Override
+    public void of(TableReader reader) {
+        super.of(reader);
+        this.txn = TableUtils.INITIAL_TXN;
+        this.lastRowId = -1;
+        this.dataVersion = -1;
+    }
+
     public boolean reload() {
         long txn;
         if (reader.reload()) {
@@ -37,6 +37,8 @@ public interface TableStructure {
 
     boolean isSequential(int columnIndex);
 
+    boolean isCompressed(int columnIndex);
+
     int getPartitionBy();
 
     boolean getSymbolCacheFlag(int columnIndex);
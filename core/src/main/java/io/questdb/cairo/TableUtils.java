@@ -47,11 +47,16 @@ public final class TableUtils {
     static final int MIN_INDEX_VALUE_BLOCK_SIZE = Numbers.ceilPow2(4);
     static final byte TODO_RESTORE_META = 2;
     static final byte TODO_TRUNCATE = 1;
+    static final TimestampFormat fmtHour;
     static final TimestampFormat fmtDay;
     static final TimestampFormat fmtMonth;
     static final TimestampFormat fmtYear;
     static final String ARCHIVE_FILE_NAME = "_archive";
     static final String DEFAULT_PARTITION_NAME = "default";
+    // write-ahead log segments are tables in this directory inside table directory
+    static final String WAL_DIR_NAME = "wal";
+    // lists segments being applied to table, see WalApplier
+    static final String WAL_APPLY_FILE_NAME = "_apply";
     // transaction file structure
     static final long TX_OFFSET_TXN = 0;
     static final long TX_OFFSET_TRANSIENT_ROW_COUNT = 8;
@@ -88,13 +93,20 @@ public final class TableUtils {
     static final long META_OFFSET_PARTITION_BY = 4;
     static final long META_OFFSET_TIMESTAMP_INDEX = 8;
     static final long META_OFFSET_VERSION = 12;
+    // LONG - time to live of partitions in microseconds, 0 when partitions do not expire
+    static final long META_OFFSET_TTL = 16;
+    // INT - index of symbol column, which latest rows are cached, plus one; 0 when table has no latest row cache
+    static final long META_OFFSET_LATEST_ROW_COLUMN = 24;
     static final long META_COLUMN_DATA_SIZE = 16;
     static final long META_COLUMN_DATA_RESERVED = 3;
     static final long META_OFFSET_COLUMN_TYPES = 128;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_COMPRESSED = 1 << 2;
 
     static final String TODO_FILE_NAME = "_todo";
+    static final String ZONE_MAP_FILE_NAME = "_zm";
+    static final String LATEST_ROW_FILE_NAME = "_lr";
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
     private static final int MAX_SYMBOL_CAPACITY_CACHED = Numbers.ceilPow2(1_000_000);
@@ -152,6 +164,10 @@ public final class TableUtils {
                     flags |= META_FLAG_BIT_SEQUENTIAL;
                 }
 
+                if (structure.isCompressed(i)) {
+                    flags |= META_FLAG_BIT_COMPRESSED;
+                }
+
                 mem.putLong(flags);
                 mem.putInt(structure.getIndexBlockCapacity(i));
                 mem.skip(META_COLUMN_DATA_RESERVED); // reserved
@@ -280,7 +296,7 @@ public final class TableUtils {
     public static void validate(FilesFacade ff, ReadOnlyColumn metaMem, CharSequenceIntHashMap nameIndex) {
         try {
             final int metaVersion = metaMem.getInt(TableUtils.META_OFFSET_VERSION);
-            if (ColumnType.VERSION != metaVersion && metaVersion != 404) {
+            if (ColumnType.VERSION != metaVersion && metaVersion != 416 && metaVersion != 404) {
                 throw validationException(metaMem).put("Metadata version does not match runtime version");
             }
 
@@ -320,6 +336,10 @@ public final class TableUtils {
                         throw validationException(metaMem).put("Invalid index value block capacity ").put(getIndexBlockCapacity(metaMem, i)).put(" at [").put(i).put(']');
                     }
                 }
+
+                if (isCompressed(metaMem, i) && !ColumnCodec.isSupported(type)) {
+                    throw validationException(metaMem).put("Compression is not supported for ").put(ColumnType.nameOf(type)).put(" at [").put(i).put(']');
+                }
             }
 
             // validate column names
@@ -409,6 +429,10 @@ public final class TableUtils {
         return path.concat(columnName).put(".d").$();
     }
 
+    static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".dz").$();
+    }
+
     static LPSZ topFile(Path path, CharSequence columnName) {
         return path.concat(columnName).put(".top").$();
     }
@@ -433,6 +457,10 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
 
+    static boolean isCompressed(ReadOnlyColumn metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_COMPRESSED) != 0;
+    }
+
     static int getIndexBlockCapacity(ReadOnlyColumn metaMem, int columnIndex) {
         return metaMem.getInt(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE + 9);
     }
@@ -486,8 +514,12 @@ public final class TableUtils {
         switch (partitionBy) {
             case PartitionBy.NONE:
                 return true;
+            case PartitionBy.HOUR:
+                return Timestamps.floorHH(timestampA) == Timestamps.floorHH(timestampB);
             case PartitionBy.DAY:
                 return Timestamps.floorDD(timestampA) == Timestamps.floorDD(timestampB);
+            case PartitionBy.WEEK:
+                return Timestamps.floorWW(timestampA) == Timestamps.floorWW(timestampB);
             case PartitionBy.MONTH:
                 return Timestamps.floorMM(timestampA) == Timestamps.floorMM(timestampB);
             case PartitionBy.YEAR:
@@ -497,6 +529,29 @@ public final class TableUtils {
         }
     }
 
+    /**
+     * Reads time to live of partitions from table metadata.
+     *
+     * @param ff        files facade
+     * @param path      path to table directory, it is left unchanged
+     * @param tempMem8b temporary 8-byte buffer
+     * @return time to live in microseconds or 0 when table doesn't have one or metadata cannot be read
+     */
+    static long readTtl(FilesFacade ff, Path path, long tempMem8b) {
+        final int plen = path.length();
+        final long fd = ff.openRO(path.concat(META_FILE_NAME).$());
+        path.trimTo(plen);
+        if (fd == -1) {
+            return 0;
+        }
+
+        try {
+            return ff.read(fd, tempMem8b, Long.BYTES, META_OFFSET_TTL) == Long.BYTES ? Unsafe.getUnsafe().getLong(tempMem8b) : 0;
+        } finally {
+            ff.close(fd);
+        }
+    }
+
     static long readPartitionSize(FilesFacade ff, Path path, long tempMem8b) {
         int plen = path.length();
         try {
@@ -524,6 +579,7 @@ public final class TableUtils {
 
     static {
         DateFormatCompiler compiler = new DateFormatCompiler();
+        fmtHour = compiler.compile("yyyy-MM-ddTHH");
         fmtDay = compiler.compile("yyyy-MM-dd");
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
@@ -39,6 +39,7 @@ import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import io.questdb.tasks.ColumnIndexerTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -54,6 +55,7 @@ public class TableWriter implements Closeable {
     private static final CharSequenceHashSet IGNORED_FILES = new CharSequenceHashSet();
     private static final Runnable NOOP = () -> {
     };
+    private static final String OUT_OF_ORDER_TEMP_SUFFIX = ".ooo";
     private final static RemoveFileLambda REMOVE_OR_LOG = TableWriter::removeFileAndOrLog;
     private final static RemoveFileLambda REMOVE_OR_EXCEPTION = TableWriter::removeOrException;
     final ObjList<AppendMemory> columns;
@@ -75,6 +77,10 @@ public class TableWriter implements Closeable {
     private final RowFunction noPartitionFunction = new NoPartitionFunction();
     private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
     private final LongList columnTops;
+    // min and max values of active partition
+    private final ZoneMap zoneMap = new ZoneMap();
+    private final ZoneMap mergeZoneMap = new ZoneMap();
+    private final LatestRowCache latestRowCache = new LatestRowCache();
     private final FilesFacade ff;
     private final TimestampFormat partitionDirFmt;
     private final AppendMemory ddlMem;
@@ -88,6 +94,7 @@ public class TableWriter implements Closeable {
     private final SOCountDownLatch indexLatch = new SOCountDownLatch();
     private final LongList indexSequences = new LongList();
     private final MessageBus messageBus;
+    private final TableCommitNotifier commitNotifier;
     private final boolean parallelIndexerEnabled;
     private final LongHashSet removedPartitions = new LongHashSet();
     private final Timestamps.TimestampFloorMethod timestampFloorMethod;
@@ -95,6 +102,24 @@ public class TableWriter implements Closeable {
     private final int defaultCommitMode;
     private final FindVisitor removePartitionDirectories = this::removePartitionDirectories0;
     private final ObjList<Runnable> nullers;
+    private final boolean outOfOrderEnabled;
+    private final ObjList<VirtualMemory> oooColumns = new ObjList<>();
+    private final ObjList<Runnable> oooNullers = new ObjList<>();
+    private final ReadOnlyMemory oooSrcDataMem = new ReadOnlyMemory();
+    private final ReadOnlyMemory oooSrcIndexMem = new ReadOnlyMemory();
+    private final AppendMemory oooDstDataMem = new AppendMemory();
+    private final AppendMemory oooDstIndexMem = new AppendMemory();
+    private final BitmapIndexWriter oooIndexWriter = new BitmapIndexWriter();
+    private final StringSink oooTempName = new StringSink();
+    private final ColumnCodec codec = new ColumnCodec();
+    private final AppendMemory codecMem = new AppendMemory();
+    // partitions left by transaction that is yet to commit
+    private final LongList pendingCompressPartitions = new LongList();
+    // partitions of committed transactions, compressed by compressPartitions()
+    private final LongList partitionsToCompress = new LongList();
+    private ObjList<? extends VirtualMemory> activeColumns;
+    private ObjList<Runnable> activeNullers;
+    private long oooRowCount = 0;
     private int txPartitionCount = 0;
     private long lockFd;
     private LongConsumer timestampSetter;
@@ -108,6 +133,10 @@ public class TableWriter implements Closeable {
     private long txPrevTransientRowCount;
     private long maxTimestamp;
     private long minTimestamp;
+    private long ttl;
+    // symbol column, which latest rows are cached, -1 when table does not cache latest rows
+    private int latestRowColumnIndex;
+    private int latestRowKey;
     private long prevMinTimestamp;
     private long partitionHi;
     private long transientRowCount = 0;
@@ -154,9 +183,11 @@ public class TableWriter implements Closeable {
         LOG.info().$("open '").utf8(name).$('\'').$();
         this.configuration = configuration;
         this.messageBus = messageBus;
+        this.commitNotifier = messageBus != null ? messageBus.getTableCommitNotifier() : null;
         this.defaultCommitMode = configuration.getCommitMode();
         this.lifecycleManager = lifecycleManager;
         this.parallelIndexerEnabled = messageBus != null && configuration.isParallelIndexingEnabled();
+        this.outOfOrderEnabled = configuration.isOutOfOrderEnabled();
         this.ff = configuration.getFilesFacade();
         this.mkDirMode = configuration.getMkDirMode();
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
@@ -196,6 +227,8 @@ public class TableWriter implements Closeable {
             }
             this.columnCount = metadata.getColumnCount();
             this.partitionBy = metaMem.getInt(META_OFFSET_PARTITION_BY);
+            this.ttl = metaMem.getLong(META_OFFSET_TTL);
+            this.latestRowColumnIndex = metaMem.getInt(META_OFFSET_LATEST_ROW_COLUMN) - 1;
             this.txPendingPartitionSizes = new VirtualMemory(ff.getPageSize(), Integer.MAX_VALUE);
             this.refs.extendAndSet(columnCount, 0);
             this.columns = new ObjList<>(columnCount * 2);
@@ -204,12 +237,24 @@ public class TableWriter implements Closeable {
             this.denseSymbolMapWriters = new ObjList<>(metadata.getSymbolMapCount());
             this.nullers = new ObjList<>(columnCount);
             this.columnTops = new LongList(columnCount);
+            this.activeColumns = columns;
+            this.activeNullers = nullers;
             switch (partitionBy) {
+                case PartitionBy.HOUR:
+                    timestampFloorMethod = Timestamps.FLOOR_HH;
+                    timestampAddMethod = Timestamps.ADD_HH;
+                    partitionDirFmt = fmtHour;
+                    break;
                 case PartitionBy.DAY:
                     timestampFloorMethod = Timestamps.FLOOR_DD;
                     timestampAddMethod = Timestamps.ADD_DD;
                     partitionDirFmt = fmtDay;
                     break;
+                case PartitionBy.WEEK:
+                    timestampFloorMethod = Timestamps.FLOOR_WW;
+                    timestampAddMethod = Timestamps.ADD_WW;
+                    partitionDirFmt = fmtDay;
+                    break;
                 case PartitionBy.MONTH:
                     timestampFloorMethod = Timestamps.FLOOR_MM;
                     timestampAddMethod = Timestamps.ADD_MM;
@@ -233,6 +278,16 @@ public class TableWriter implements Closeable {
             configureAppendPosition();
             purgeUnusedPartitions();
             loadRemovedPartitions();
+            if (latestRowColumnIndex > -1) {
+                openLatestRowCache();
+                if (!latestRowCache.isCommitted(txn)) {
+                    // previous writer stopped between updating cache and publishing transaction,
+                    // next commit would reuse transaction number of entries that describe lost rows
+                    rebuildLatestRowCache(defaultCommitMode);
+                }
+            }
+            WalApplier.repair(ff, path.trimTo(rootLen), txMem.getLong(TX_OFFSET_TXN));
+            queueUncompressedPartitions();
         } catch (CairoException e) {
             LOG.error().$("cannot open '").$(path).$("' and this is why: {").$((Sinkable) e).$('}').$();
             doClose(false);
@@ -242,7 +297,10 @@ public class TableWriter implements Closeable {
 
     public static TimestampFormat selectPartitionDirFmt(int partitionBy) {
         switch (partitionBy) {
+            case PartitionBy.HOUR:
+                return fmtHour;
             case PartitionBy.DAY:
+            case PartitionBy.WEEK:
                 return fmtDay;
             case PartitionBy.MONTH:
                 return fmtMonth;
@@ -310,6 +368,9 @@ public class TableWriter implements Closeable {
 
         commit();
 
+        // out-of-order staging area is laid out after table columns
+        freeOutOfOrderColumns();
+
         removeColumnFiles(name, type, REMOVE_OR_EXCEPTION);
 
         // create new _meta.swp
@@ -351,6 +412,7 @@ public class TableWriter implements Closeable {
         // extend columnTop list to make sure row cancel can work
         // need for setting correct top is hard to test without being able to read from table
         columnTops.extendAndSet(columnCount - 1, transientRowCount);
+        zoneMap.addColumn(name, type, transientRowCount);
 
         // create column files
         if (transientRowCount > 0 || partitionBy == PartitionBy.NONE) {
@@ -511,6 +573,10 @@ public class TableWriter implements Closeable {
      * <p>
      * <b>Pending rows</b>
      * <p>This method will cancel pending rows by calling {@link #cancelRow()}. Data in partially appended row will be lost.</p>
+     * <p>
+     * <b>Out-of-order rows</b>
+     * <p>Rows staged out of timestamp order are sorted and merged into partitions they belong to before transaction
+     * is committed. Readers will reload all partitions after such commit.</p>
      *
      * @param commitMode commit durability mode.
      */
@@ -524,12 +590,32 @@ public class TableWriter implements Closeable {
 
         if (inTransaction()) {
 
+            final boolean outOfOrder = oooRowCount > 0;
+            if (outOfOrder) {
+                try {
+                    mergeOutOfOrderRows(commitMode);
+                } catch (CairoException e) {
+                    LOG.error().$("could not merge out-of-order rows [table=").$(name).$(", e=").$((Sinkable) e).$(']').$();
+                    throwDistressException(e);
+                }
+            }
+
             if (commitMode != CommitMode.NOSYNC) {
                 syncColumns(commitMode);
             }
 
             updateIndexes();
 
+            // merged rows have moved, cache is rebuilt once merge is visible to readers
+            final boolean rebuildLatestRows = latestRowCache.isOpen() && (outOfOrder || !latestRowCache.isCommitted(txn));
+            if (latestRowCache.isOpen() && !rebuildLatestRows) {
+                // readers that are yet to see this transaction ignore updated entries
+                latestRowCache.commit(txn + 1);
+                if (commitMode != CommitMode.NOSYNC) {
+                    latestRowCache.sync(commitMode == CommitMode.ASYNC);
+                }
+            }
+
             txMem.putLong(TX_OFFSET_TXN, ++txn);
             Unsafe.getUnsafe().storeFence();
 
@@ -542,6 +628,12 @@ public class TableWriter implements Closeable {
                 txPartitionCount = 1;
             }
 
+            if (outOfOrder) {
+                txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
+                // data in existing partitions has changed, readers have to reload them
+                txMem.putLong(TX_OFFSET_DATA_VERSION, ++dataVersion);
+            }
+
             txMem.putLong(TX_OFFSET_MIN_TIMESTAMP, minTimestamp);
             txMem.putLong(TX_OFFSET_MAX_TIMESTAMP, maxTimestamp);
 
@@ -556,7 +648,51 @@ public class TableWriter implements Closeable {
                 txMem.sync(0, commitMode == CommitMode.ASYNC);
             }
             txPrevTransientRowCount = transientRowCount;
+
+            if (rebuildLatestRows) {
+                rebuildLatestRowCache(commitMode);
+            }
+            notifyCommit();
+        }
+
+        if (pendingCompressPartitions.size() > 0) {
+            partitionsToCompress.add(pendingCompressPartitions);
+            pendingCompressPartitions.clear();
+        }
+    }
+
+    /**
+     * Compresses partitions that committed transactions have left behind. Commit does not compress
+     * partitions itself, this is done by {@link CairoEngine#getPartitionCompressionJob()} on writers
+     * that are idle in the pool. Writers that are not pooled are expected to call this method
+     * by their owners.
+     *
+     * @return number of partitions that have been compressed
+     */
+    public int compressPartitions() {
+        checkDistressed();
+        // rollback can bring writer back to partition it has left
+        final long activePartitionTimestamp = maxTimestamp == Long.MIN_VALUE ? Long.MIN_VALUE : timestampFloorMethod.floor(maxTimestamp);
+        int count = 0;
+        for (int i = 0, n = partitionsToCompress.size(); i < n; i++) {
+            final long timestamp = partitionsToCompress.getQuick(i);
+            if (timestamp >= activePartitionTimestamp) {
+                // partition is queued again when writer leaves it
+                continue;
+            }
+            try {
+                compressPartition(timestamp, defaultCommitMode);
+                count++;
+            } catch (CairoException e) {
+                // compression is optional, partition stays readable in its raw form
+                LOG.error().$("could not compress partition [table=").$(name)
+                        .$(", partition=").$ts(timestamp)
+                        .$(", e=").$((Sinkable) e)
+                        .$(']').$();
+            }
         }
+        partitionsToCompress.clear();
+        return count;
     }
 
     public int getColumnIndex(CharSequence name) {
@@ -587,8 +723,23 @@ public class TableWriter implements Closeable {
         return structureVersion;
     }
 
+    long getTxn() {
+        return txMem.getLong(TX_OFFSET_TXN);
+    }
+
+    /**
+     * @return time to live of partitions in microseconds, 0 when partitions do not expire
+     */
+    public long getTtl() {
+        return ttl;
+    }
+
+    public boolean hasPartitionsToCompress() {
+        return partitionsToCompress.size() > 0;
+    }
+
     public boolean inTransaction() {
-        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount;
+        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount || oooRowCount > 0;
     }
 
     public boolean isOpen() {
@@ -612,7 +763,11 @@ public class TableWriter implements Closeable {
         } catch (NumericException e) {
             final CairoException ee = CairoException.instance(0);
             switch (partitionBy) {
+                case PartitionBy.HOUR:
+                    ee.put("'YYYY-MM-DDTHH'");
+                    break;
                 case PartitionBy.DAY:
+                case PartitionBy.WEEK:
                     ee.put("'YYYY-MM-DD'");
                     break;
                 case PartitionBy.MONTH:
@@ -646,6 +801,8 @@ public class TableWriter implements Closeable {
 
         commit();
 
+        freeOutOfOrderColumns();
+
         final CharSequence timestampColumnName = timestampIndex != -1 ? metadata.getColumnName(timestampIndex) : null;
 
         this.metaSwapIndex = removeColumnFromMeta(index);
@@ -672,6 +829,12 @@ public class TableWriter implements Closeable {
         // decrement column count
         columnCount--;
 
+        if (index == latestRowColumnIndex) {
+            removeLatestRowCache();
+        } else if (index < latestRowColumnIndex) {
+            latestRowColumnIndex--;
+        }
+
         // reset timestamp limits
         if (timestamp) {
             maxTimestamp = prevMaxTimestamp = Long.MIN_VALUE;
@@ -748,6 +911,7 @@ public class TableWriter implements Closeable {
         bumpStructureVersion();
 
         metadata.renameColumn(currentName, newName);
+        zoneMap.renameColumn(index, newName);
 
         LOG.info().$("RENAMED column '").utf8(currentName).$("' to '").utf8(newName).$("' from ").$(path).$();
     }
@@ -763,6 +927,7 @@ public class TableWriter implements Closeable {
                     other.concat(nativeLPSZ);
                     int plen = path.length();
                     renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
@@ -782,6 +947,34 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Removes partitions, which time range ended more than time to live ago. Active partition
+     * is never removed. This method is cheap to call when there is nothing to remove, owner of writer
+     * can call it periodically.
+     *
+     * @return number of removed partitions
+     */
+    public int removeExpiredPartitions() {
+        if (ttl == 0 || partitionBy == PartitionBy.NONE || maxTimestamp == Long.MIN_VALUE) {
+            return 0;
+        }
+
+        final long cutoff = configuration.getMicrosecondClock().getTicks() - ttl;
+        final long activePartitionTimestamp = timestampFloorMethod.floor(maxTimestamp);
+        int count = 0;
+        long partitionTimestamp;
+        while ((partitionTimestamp = timestampFloorMethod.floor(minTimestamp)) < activePartitionTimestamp
+                && timestampAddMethod.calculate(partitionTimestamp, 1) <= cutoff
+                && removePartition(partitionTimestamp)) {
+            count++;
+        }
+
+        if (count > 0) {
+            LOG.info().$("removed expired partitions [table=").$(name).$(", count=").$(count).$(']').$();
+        }
+        return count;
+    }
+
     public boolean removePartition(long timestamp) {
 
         if (partitionBy == PartitionBy.NONE || timestamp < timestampFloorMethod.floor(minTimestamp) || timestamp > maxTimestamp) {
@@ -861,6 +1054,9 @@ public class TableWriter implements Closeable {
 
                 removedPartitions.add(timestamp);
                 fixedRowCount -= partitionSize;
+                // latest row cache is left behind this transaction, next commit rebuilds it
+                this.txn = txn;
+                notifyCommit();
 
                 LOG.info().$("partition marked for delete [path=").$(path).$(']').$();
                 return true;
@@ -879,6 +1075,9 @@ public class TableWriter implements Closeable {
             LOG.info().$("tx rollback [name=").$(name).$(']').$();
             freeColumns(false);
             txPendingPartitionSizes.jumpTo(0);
+            pendingCompressPartitions.clear();
+            latestRowCache.clearPending();
+            discardOutOfOrderRows();
             configureAppendPosition();
             rollbackIndexes();
             purgeUnusedPartitions();
@@ -890,8 +1089,95 @@ public class TableWriter implements Closeable {
         this.lifecycleManager = lifecycleManager;
     }
 
+    /**
+     * Sets time to live of table partitions. Partitions expire once their time range ended more than
+     * time to live ago, they are removed by {@link #removeExpiredPartitions()}.
+     *
+     * @param ttl time to live in microseconds, 0 for partitions that do not expire
+     */
+    public void setTtl(long ttl) {
+        checkDistressed();
+        if (partitionBy == PartitionBy.NONE) {
+            throw CairoException.instance(0).put("table is not partitioned");
+        }
+
+        if (ttl < 0) {
+            throw CairoException.instance(0).put("invalid time to live [ttl=").put(ttl).put(']');
+        }
+
+        // value is not part of table structure, it is updated in place
+        final long fd = ff.openRW(path.concat(META_FILE_NAME).$());
+        try {
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            Unsafe.getUnsafe().putLong(tempMem8b, ttl);
+            if (ff.write(fd, tempMem8b, Long.BYTES, META_OFFSET_TTL) != Long.BYTES) {
+                throw CairoException.instance(ff.errno()).put("could not write [file=").put(path).put(']');
+            }
+        } finally {
+            if (fd != -1) {
+                ff.close(fd);
+            }
+            path.trimTo(rootLen);
+        }
+        this.ttl = ttl;
+        LOG.info().$("set ttl [table=").$(name).$(", ttl=").$(ttl).$(']').$();
+    }
+
+    /**
+     * Turns on cache of latest row of every value of symbol column. Writer updates cache on every commit and
+     * readers look latest rows up instead of searching for them. Cache is turned off when column is removed.
+     * Pending transaction is committed before cache is set up.
+     *
+     * @param columnName name of symbol column or null to turn cache off
+     */
+    public void setLatestRowCache(@Nullable CharSequence columnName) {
+        checkDistressed();
+        final int columnIndex = columnName == null ? -1 : getColumnIndex(columnName);
+        if (columnIndex > -1 && metadata.getColumnType(columnIndex) != ColumnType.SYMBOL) {
+            throw CairoException.instance(0).put("column is not a symbol [name=").put(columnName).put(']');
+        }
+
+        if (columnIndex == latestRowColumnIndex) {
+            return;
+        }
+
+        commit();
+
+        // value is not part of table structure, it is updated in place
+        final long fd = ff.openRW(path.concat(META_FILE_NAME).$());
+        try {
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            Unsafe.getUnsafe().putInt(tempMem8b, columnIndex + 1);
+            if (ff.write(fd, tempMem8b, Integer.BYTES, META_OFFSET_LATEST_ROW_COLUMN) != Integer.BYTES) {
+                throw CairoException.instance(ff.errno()).put("could not write [file=").put(path).put(']');
+            }
+        } finally {
+            if (fd != -1) {
+                ff.close(fd);
+            }
+            path.trimTo(rootLen);
+        }
+
+        removeLatestRowCache();
+        if (columnIndex > -1) {
+            latestRowColumnIndex = columnIndex;
+            openLatestRowCache();
+        }
+
+        // readers pick new plans for latest by queries
+        bumpStructureVersion();
+        if (columnIndex > -1) {
+            rebuildLatestRowCache(defaultCommitMode);
+        }
+        LOG.info().$("set latest row cache [table=").$(name).$(", column=").$(columnName).$(']').$();
+    }
+
     public long size() {
-        return fixedRowCount + transientRowCount;
+        return fixedRowCount + transientRowCount + oooRowCount;
     }
 
     @Override
@@ -918,6 +1204,7 @@ public class TableWriter implements Closeable {
         }
 
         writeTodo(TODO_TRUNCATE);
+        discardOutOfOrderRows();
         for (int i = 0; i < columnCount; i++) {
             getPrimaryColumn(i).truncate();
             AppendMemory mem = getSecondaryColumn(i);
@@ -937,6 +1224,12 @@ public class TableWriter implements Closeable {
             rowFunction = openPartitionFunction;
         }
 
+        if (partitionBy == PartitionBy.NONE) {
+            // zone map would describe rows that are gone
+            removeZoneMap();
+            zoneMap.of(metadata, columnTops);
+        }
+
         prevMaxTimestamp = Long.MIN_VALUE;
         maxTimestamp = Long.MIN_VALUE;
         prevMinTimestamp = Long.MAX_VALUE;
@@ -944,10 +1237,16 @@ public class TableWriter implements Closeable {
         txPrevTransientRowCount = 0;
         transientRowCount = 0;
         fixedRowCount = 0;
+        if (latestRowCache.isOpen()) {
+            // no key has rows as of truncate transaction
+            latestRowCache.clearPending();
+            latestRowCache.rebuild(txn + 1);
+        }
         txn++;
         txPartitionCount = 1;
 
         resetTxn(txMem, metadata.getSymbolMapCount(), txn, ++dataVersion);
+        notifyCommit();
         try {
             removeTodoFile();
         } catch (CairoException err) {
@@ -1000,12 +1299,133 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private static void copyBytes(VirtualMemory src, long offset, long len, VirtualMemory dst) {
+        while (len > 0) {
+            final long n = Math.min(len, src.pageRemaining(offset));
+            dst.putBlockOfBytes(src.addressOf(offset), n);
+            offset += n;
+            len -= n;
+        }
+    }
+
+    private static void copyValue(int type, VirtualMemory srcData, VirtualMemory srcIndex, long row, VirtualMemory dstData, VirtualMemory dstIndex) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                dstData.putByte(srcData.getByte(row));
+                break;
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+                dstData.putShort(srcData.getShort(row * Short.BYTES));
+                break;
+            case ColumnType.INT:
+            case ColumnType.FLOAT:
+            case ColumnType.SYMBOL:
+                dstData.putInt(srcData.getInt(row * Integer.BYTES));
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                dstData.putLong(srcData.getLong(row * Long.BYTES));
+                break;
+            case ColumnType.LONG256:
+                final long offset = row * Long256.BYTES;
+                dstData.putLong256(
+                        srcData.getLong(offset),
+                        srcData.getLong(offset + Long.BYTES),
+                        srcData.getLong(offset + Long.BYTES * 2),
+                        srcData.getLong(offset + Long.BYTES * 3)
+                );
+                break;
+            case ColumnType.STRING:
+                dstIndex.putLong(dstData.putStr(srcData.getStr(srcIndex.getLong(row * Long.BYTES))));
+                break;
+            case ColumnType.BINARY:
+                dstIndex.putLong(dstData.putBin(srcData.getBin(srcIndex.getLong(row * Long.BYTES))));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void putNullValue(int type, VirtualMemory dstData, VirtualMemory dstIndex) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                dstData.putByte((byte) 0);
+                break;
+            case ColumnType.DOUBLE:
+                dstData.putDouble(Double.NaN);
+                break;
+            case ColumnType.FLOAT:
+                dstData.putFloat(Float.NaN);
+                break;
+            case ColumnType.INT:
+                dstData.putInt(Numbers.INT_NaN);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                dstData.putLong(Numbers.LONG_NaN);
+                break;
+            case ColumnType.LONG256:
+                dstData.putLong256(Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN);
+                break;
+            case ColumnType.SHORT:
+                dstData.putShort((short) 0);
+                break;
+            case ColumnType.CHAR:
+                dstData.putChar((char) 0);
+                break;
+            case ColumnType.STRING:
+                dstIndex.putLong(dstData.putNullStr());
+                break;
+            case ColumnType.SYMBOL:
+                dstData.putInt(SymbolTable.VALUE_IS_NULL);
+                break;
+            case ColumnType.BINARY:
+                dstIndex.putLong(dstData.putNullBin());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Finds first row, which timestamp is greater than given timestamp.
+     *
+     * @param timestamps timestamp column of partition
+     * @param timestamp  value to search for
+     * @param rowCount   number of rows in partition
+     * @return row index between 0 and rowCount inclusive
+     */
+    private static long searchTimestampAbove(VirtualMemory timestamps, long timestamp, long rowCount) {
+        long lo = 0;
+        long hi = rowCount;
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (timestamps.getLong(mid * Long.BYTES) > timestamp) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
     private static void removeOrException(FilesFacade ff, LPSZ path) {
         if (ff.exists(path) && !ff.remove(path)) {
             throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
         }
     }
 
+    private void renameOrException(LPSZ from, LPSZ to) {
+        if (!ff.rename(from, to)) {
+            throw CairoException.instance(ff.errno()).put("Cannot rename ").put(from).put(" to ").put(to);
+        }
+    }
+
     private static int getPrimaryColumnIndex(int index) {
         return index * 2;
     }
@@ -1125,7 +1545,9 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(columnCount + 1);
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
-            ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_VERSION));
+            ddlMem.putLong(ttl);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_LATEST_ROW_COLUMN));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1167,7 +1589,20 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void buildZoneMap(ZoneMap zoneMap, long timestamp, long rowCount) {
+        try {
+            setStateForTimestamp(timestamp, false);
+            zoneMap.build(ff, path, metadata, rowCount, tempMem8b);
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void bumpStructureVersion() {
+        if (latestRowCache.isOpen() && latestRowCache.isCommitted(txn) && !latestRowCache.hasPending()) {
+            // structure changes do not move rows
+            latestRowCache.commit(txn + 1);
+        }
         txMem.putLong(TX_OFFSET_TXN, ++txn);
         Unsafe.getUnsafe().storeFence();
 
@@ -1193,6 +1628,7 @@ public class TableWriter implements Closeable {
 
         Unsafe.getUnsafe().storeFence();
         txMem.putLong(TX_OFFSET_TXN_CHECK, txn);
+        notifyCommit();
     }
 
     private void cancelRow() {
@@ -1201,7 +1637,13 @@ public class TableWriter implements Closeable {
             return;
         }
 
-        if (transientRowCount == 0) {
+        if (activeColumns == oooColumns) {
+            // staged row does not affect partitions or timestamps, we only
+            // have to rewind staging columns
+            setOutOfOrderAppendPosition(oooRowCount);
+            activeColumns = columns;
+            activeNullers = nullers;
+        } else if (transientRowCount == 0) {
             if (partitionBy != PartitionBy.NONE) {
                 // we have to undo creation of partition
                 freeColumns(false);
@@ -1223,6 +1665,7 @@ public class TableWriter implements Closeable {
                         txPendingPartitionSizes.jumpTo((txPartitionCount - 2) * 16);
                         openPartition(prevMaxTimestamp);
                         setAppendPosition(txPrevTransientRowCount);
+                        openZoneMap(prevMaxTimestamp, txPrevTransientRowCount);
                         txPartitionCount--;
                     } catch (CairoException e) {
                         freeColumns(false);
@@ -1313,6 +1756,57 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void compressPartition(long timestamp, int commitMode) {
+        path.trimTo(rootLen);
+        setStateForTimestamp(timestamp, false);
+        final int plen = path.length();
+        try {
+            if (!ff.exists(path.$())) {
+                return;
+            }
+
+            final long partitionSize = readPartitionSize(ff, path.trimTo(plen), tempMem8b);
+            other.trimTo(rootLen).put(path, rootLen, plen);
+            for (int i = 0; i < columnCount; i++) {
+                if (!isCompressed(metaMem, i)) {
+                    continue;
+                }
+
+                final CharSequence columnName = metadata.getColumnName(i);
+                // column is either compressed already or it was added after partition had been written to
+                if (!ff.exists(dFile(path.trimTo(plen), columnName))) {
+                    continue;
+                }
+
+                final long rowCount = partitionSize - readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
+                if (rowCount < 1) {
+                    continue;
+                }
+
+                try {
+                    codecMem.of(ff, dzFile(other.trimTo(plen), columnName), ff.getMapPageSize());
+                    try {
+                        codec.compress(ff, dFile(path.trimTo(plen), columnName), rowCount, metadata.getColumnType(i), codecMem);
+                        if (commitMode != CommitMode.NOSYNC) {
+                            codecMem.sync(commitMode == CommitMode.ASYNC);
+                        }
+                    } finally {
+                        codecMem.close(true);
+                    }
+                } catch (CairoException e) {
+                    // raw file remains source of truth
+                    removeOrException(ff, dzFile(other.trimTo(plen), columnName));
+                    throw e;
+                }
+                // readers, which have raw file open, continue to use it until they reload
+                removeOrException(ff, dFile(path.trimTo(plen), columnName));
+            }
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+    }
+
     private void configureAppendPosition() {
         this.txn = txMem.getLong(TX_OFFSET_TXN);
         this.transientRowCount = txMem.getLong(TX_OFFSET_TRANSIENT_ROW_COUNT);
@@ -1350,7 +1844,7 @@ public class TableWriter implements Closeable {
         }
         columns.add(primary);
         columns.add(secondary);
-        configureNuller(type, primary, secondary);
+        configureNuller(type, primary, secondary, nullers);
         if (indexFlag) {
             indexers.extendAndSet((columns.size() - 1) / 2, new SymbolColumnIndexer());
             populateDenseIndexerList();
@@ -1382,7 +1876,7 @@ public class TableWriter implements Closeable {
         populateDenseIndexerList();
     }
 
-    private void configureNuller(int type, AppendMemory mem1, AppendMemory mem2) {
+    private void configureNuller(int type, VirtualMemory mem1, VirtualMemory mem2, ObjList<Runnable> nullers) {
         switch (type) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -1425,6 +1919,29 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void configureOutOfOrderColumns() {
+        final long pageSize = configuration.getOutOfOrderPageSize();
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            final VirtualMemory primary = new VirtualMemory(pageSize, Integer.MAX_VALUE);
+            final VirtualMemory secondary;
+            switch (type) {
+                case ColumnType.BINARY:
+                case ColumnType.STRING:
+                    secondary = new VirtualMemory(pageSize, Integer.MAX_VALUE);
+                    break;
+                default:
+                    secondary = null;
+                    break;
+            }
+            oooColumns.add(primary);
+            oooColumns.add(secondary);
+            configureNuller(type, primary, secondary, oooNullers);
+        }
+        // timestamp of staged row is written when row is created
+        oooNullers.setQuick(metadata.getTimestampIndex(), NOOP);
+    }
+
     private LongConsumer configureTimestampSetter() {
         int index = metadata.getTimestampIndex();
         if (index == -1) {
@@ -1443,7 +1960,9 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(columnCount);
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
-            ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_VERSION));
+            ddlMem.putLong(ttl);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_LATEST_ROW_COLUMN));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 if (i != columnIndex) {
@@ -1454,6 +1973,10 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+
+                    if (isCompressed(metaMem, i)) {
+                        flags |= META_FLAG_BIT_COMPRESSED;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -1482,6 +2005,8 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putLong(ttl);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_LATEST_ROW_COLUMN));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1546,24 +2071,94 @@ public class TableWriter implements Closeable {
         symbolMapWriters.extendAndSet(columnCount, w);
     }
 
-    private void doClose(boolean truncate) {
-        boolean tx = inTransaction();
-        freeColumns(truncate);
-        freeSymbolMapWriters();
-        freeIndexers();
+    private void discardOutOfOrderRows() {
+        if (oooRowCount > 0) {
+            LOG.info().$("discarding out-of-order rows [table=").$(name).$(", rowCount=").$(oooRowCount).$(']').$();
+            setOutOfOrderAppendPosition(0);
+            oooRowCount = 0;
+        }
+    }
+
+    /**
+     * Replaces compressed column file with raw one. Path has to point to partition directory.
+     *
+     * @param plen       length of partition path
+     * @param columnName name of column
+     * @return true when column was compressed
+     */
+    private boolean decompressColumn(int plen, CharSequence columnName) {
+        if (!ff.exists(dzFile(path.trimTo(plen), columnName))) {
+            return false;
+        }
+
         try {
-            freeTxMem();
-        } finally {
-            Misc.free(metaMem);
-            Misc.free(txPendingPartitionSizes);
-            Misc.free(ddlMem);
-            Misc.free(other);
+            if (ff.exists(dFile(path.trimTo(plen), columnName))) {
+                // compression did not complete, raw file is intact
+                removeOrException(ff, dzFile(path.trimTo(plen), columnName));
+                return false;
+            }
+
+            oooTempName.clear();
+            oooTempName.put(columnName).put(OUT_OF_ORDER_TEMP_SUFFIX);
+            other.trimTo(rootLen).put(path, rootLen, plen);
+            codecMem.of(ff, dFile(other.trimTo(plen), oooTempName), ff.getMapPageSize());
             try {
-                releaseLock(!truncate | tx | performRecovery | distressed);
+                codec.decompress(ff, dzFile(path.trimTo(plen), columnName), codecMem);
             } finally {
-                Misc.free(path);
-                freeTempMem();
-                LOG.info().$("closed '").utf8(name).$('\'').$();
+                codecMem.close(true);
+            }
+
+            renameOrException(dFile(other.trimTo(plen), oooTempName), dFile(path.trimTo(plen), columnName));
+            removeOrException(ff, dzFile(path.trimTo(plen), columnName));
+            LOG.info().$("decompressed [path=").$(path.trimTo(plen)).$(", column=").$(columnName).$(']').$();
+            return true;
+        } finally {
+            path.trimTo(plen);
+            other.trimTo(rootLen);
+        }
+    }
+
+    private void decompressPartition(int plen) {
+        for (int i = 0; i < columnCount; i++) {
+            if (isCompressed(metaMem, i)) {
+                decompressColumn(plen, metadata.getColumnName(i));
+            }
+        }
+    }
+
+    private void doClose(boolean truncate) {
+        boolean tx = inTransaction();
+        if (truncate && !tx && !distressed && transientRowCount > 0) {
+            // zone map of active partition is written out only when writer lets go of the partition,
+            // rewriting it on every commit would add file system round trips to the commit path.
+            // Uncommitted rows have made it into zone map, it is not written when they are discarded
+            writeZoneMap(zoneMap, maxTimestamp, transientRowCount);
+        }
+        freeColumns(truncate);
+        freeSymbolMapWriters();
+        freeIndexers();
+        freeOutOfOrderColumns();
+        try {
+            freeTxMem();
+        } finally {
+            Misc.free(metaMem);
+            Misc.free(txPendingPartitionSizes);
+            Misc.free(ddlMem);
+            Misc.free(oooSrcDataMem);
+            Misc.free(oooSrcIndexMem);
+            Misc.free(oooDstDataMem);
+            Misc.free(oooDstIndexMem);
+            Misc.free(oooIndexWriter);
+            Misc.free(codecMem);
+            Misc.free(codec);
+            Misc.free(latestRowCache);
+            Misc.free(other);
+            try {
+                releaseLock(!truncate | tx | performRecovery | distressed);
+            } finally {
+                Misc.free(path);
+                freeTempMem();
+                LOG.info().$("closed '").utf8(name).$('\'').$();
             }
         }
     }
@@ -1589,6 +2184,15 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void freeOutOfOrderColumns() {
+        for (int i = 0, n = oooColumns.size(); i < n; i++) {
+            Misc.free(oooColumns.getQuick(i));
+        }
+        oooColumns.clear();
+        oooNullers.clear();
+        oooRowCount = 0;
+    }
+
     private void freeSymbolMapWriters() {
         if (denseSymbolMapWriters != null) {
             for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
@@ -1628,7 +2232,14 @@ public class TableWriter implements Closeable {
             long nextTimestamp = timestampFloorMethod.floor(timestampAddMethod.calculate(nextMinTimestamp, 1));
             setStateForTimestamp(nextTimestamp, false);
             try {
-                dFile(path, metadata.getColumnName(metadata.getTimestampIndex()));
+                final int plen = path.length();
+                final CharSequence timestampColumnName = metadata.getColumnName(metadata.getTimestampIndex());
+                if (!ff.exists(dFile(path, timestampColumnName)) && ff.exists(dzFile(path.trimTo(plen), timestampColumnName))) {
+                    // compressed partition stores first value as is
+                    nextMinTimestamp = ColumnCodec.readFirstLong(ff, path, tempMem8b);
+                    break;
+                }
+                dFile(path.trimTo(plen), timestampColumnName);
                 if (ff.exists(path)) {
                     // read min timestamp value
                     long fd = ff.openRO(path);
@@ -1661,6 +2272,16 @@ public class TableWriter implements Closeable {
         return nextMinTimestamp;
     }
 
+    private VirtualMemory getActivePrimaryColumn(int column) {
+        assert column < columnCount : "Column index is out of bounds: " + column + " >= " + columnCount;
+        return activeColumns.getQuick(getPrimaryColumnIndex(column));
+    }
+
+    private VirtualMemory getActiveSecondaryColumn(int column) {
+        assert column < columnCount : "Column index is out of bounds: " + column + " >= " + columnCount;
+        return activeColumns.getQuick(getSecondaryColumnIndex(column));
+    }
+
     private AppendMemory getPrimaryColumn(int column) {
         assert column < columnCount : "Column index is out of bounds: " + column + " >= " + columnCount;
         return columns.getQuick(getPrimaryColumnIndex(column));
@@ -1703,6 +2324,11 @@ public class TableWriter implements Closeable {
 
                     final int plen = path.length();
 
+                    // index is built from raw column file, partition is compressed again on next commit
+                    if (decompressColumn(plen, columnName)) {
+                        pendingCompressPartitions.add(timestamp);
+                    }
+
                     TableUtils.dFile(path.trimTo(plen), columnName);
 
                     if (ff.exists(path)) {
@@ -1733,6 +2359,15 @@ public class TableWriter implements Closeable {
         return timestamp;
     }
 
+    private boolean hasCompressedColumns() {
+        for (int i = 0; i < columnCount; i++) {
+            if (isCompressed(metaMem, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void indexLastPartition(SymbolColumnIndexer indexer, CharSequence columnName, int columnIndex, int indexValueBlockSize) {
         final int plen = path.length();
 
@@ -1774,6 +2409,415 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Appends rows from out-of-order staging area to partition files. This is possible when
+     * all staged rows for partition are not older than partition's last row.
+     */
+    private void mergeAppendColumn(int columnIndex, int plen, long srcRowCount, long pMergeIndex, long mergeCount, int commitMode) {
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        final int type = metadata.getColumnType(columnIndex);
+        final VirtualMemory oooData = oooColumns.getQuick(getPrimaryColumnIndex(columnIndex));
+        final VirtualMemory oooIndex = oooColumns.getQuick(getSecondaryColumnIndex(columnIndex));
+
+        final long columnTop;
+        if (ff.exists(dFile(path.trimTo(plen), columnName))) {
+            columnTop = readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
+        } else {
+            // column was added after partition had been written to
+            columnTop = srcRowCount;
+            if (columnTop > 0) {
+                writeColumnTop(path.trimTo(plen), columnName, columnTop);
+            }
+        }
+
+        oooDstDataMem.of(ff, dFile(path.trimTo(plen), columnName), ff.getMapPageSize());
+        final AppendMemory dstIndex;
+        if (oooIndex != null) {
+            oooDstIndexMem.of(ff, iFile(path.trimTo(plen), columnName), ff.getMapPageSize());
+            dstIndex = oooDstIndexMem;
+        } else {
+            dstIndex = null;
+        }
+        path.trimTo(plen);
+
+        try {
+            setColumnSize(ff, oooDstDataMem, dstIndex, type, srcRowCount - columnTop, tempMem8b);
+            for (long k = 0; k < mergeCount; k++) {
+                final long row = Unsafe.getUnsafe().getLong(pMergeIndex + k * Long.BYTES) & Long.MAX_VALUE;
+                copyValue(type, oooData, oooIndex, row, oooDstDataMem, dstIndex);
+            }
+            if (commitMode != CommitMode.NOSYNC) {
+                oooDstDataMem.sync(commitMode == CommitMode.ASYNC);
+                if (dstIndex != null) {
+                    dstIndex.sync(false);
+                }
+            }
+        } finally {
+            oooDstDataMem.close(true);
+            if (dstIndex != null) {
+                dstIndex.close(true);
+            }
+        }
+
+        if (metadata.isColumnIndexed(columnIndex)) {
+            createIndexFiles(columnName, metadata.getIndexValueBlockCapacity(columnIndex), plen, false);
+            oooIndexWriter.of(configuration, path.trimTo(plen), columnName);
+            try {
+                for (long k = 0; k < mergeCount; k++) {
+                    final long row = Unsafe.getUnsafe().getLong(pMergeIndex + k * Long.BYTES) & Long.MAX_VALUE;
+                    oooIndexWriter.add(toIndexKey(oooData.getInt(row * Integer.BYTES)), srcRowCount + k);
+                }
+            } finally {
+                oooIndexWriter.close();
+                path.trimTo(plen);
+            }
+        }
+    }
+
+    /**
+     * Rewrites column files of partition from the first row that is affected by out-of-order rows.
+     * New files are written next to existing ones and then renamed over them, so that readers that
+     * have existing files mapped continue to see consistent data until they reload.
+     */
+    private void mergeColumn(int columnIndex, int plen, long srcRowCount, long split, long pMergeIndex, long mergeCount, int commitMode) {
+        final CharSequence columnName = metadata.getColumnName(columnIndex);
+        final int type = metadata.getColumnType(columnIndex);
+        final VirtualMemory oooData = oooColumns.getQuick(getPrimaryColumnIndex(columnIndex));
+        final VirtualMemory oooIndex = oooColumns.getQuick(getSecondaryColumnIndex(columnIndex));
+
+        final boolean exists = ff.exists(dFile(path.trimTo(plen), columnName));
+        final long columnTop = exists ? readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b) : srcRowCount;
+        // rows above split are re-written, including those under column top
+        final long newColumnTop = Math.min(columnTop, split);
+        final long prefixRowCount = split - newColumnTop;
+
+        oooTempName.clear();
+        oooTempName.put(columnName).put(OUT_OF_ORDER_TEMP_SUFFIX);
+
+        try {
+            if (srcRowCount > columnTop) {
+                dFile(path.trimTo(plen), columnName);
+                oooSrcDataMem.of(ff, path, ff.getMapPageSize(), ff.length(path));
+                if (oooIndex != null) {
+                    iFile(path.trimTo(plen), columnName);
+                    oooSrcIndexMem.of(ff, path, ff.getMapPageSize(), ff.length(path));
+                }
+            }
+
+            oooDstDataMem.of(ff, dFile(path.trimTo(plen), oooTempName), ff.getMapPageSize());
+            oooDstDataMem.setSize(0);
+            final AppendMemory dstIndex;
+            if (oooIndex != null) {
+                oooDstIndexMem.of(ff, iFile(path.trimTo(plen), oooTempName), ff.getMapPageSize());
+                oooDstIndexMem.setSize(0);
+                dstIndex = oooDstIndexMem;
+            } else {
+                dstIndex = null;
+            }
+            path.trimTo(plen);
+
+            try {
+                // rows before split are not affected and are copied in bulk
+                if (prefixRowCount > 0) {
+                    if (oooIndex != null) {
+                        copyBytes(oooSrcDataMem, 0, oooSrcIndexMem.getLong(prefixRowCount * Long.BYTES), oooDstDataMem);
+                        copyBytes(oooSrcIndexMem, 0, prefixRowCount * Long.BYTES, dstIndex);
+                    } else {
+                        copyBytes(oooSrcDataMem, 0, prefixRowCount << ColumnType.pow2SizeOf(type), oooDstDataMem);
+                    }
+                }
+
+                for (long k = 0; k < mergeCount; k++) {
+                    final long row = Unsafe.getUnsafe().getLong(pMergeIndex + k * Long.BYTES);
+                    if (row < 0) {
+                        copyValue(type, oooData, oooIndex, row & Long.MAX_VALUE, oooDstDataMem, dstIndex);
+                    } else if (row < columnTop) {
+                        putNullValue(type, oooDstDataMem, dstIndex);
+                    } else {
+                        copyValue(type, oooSrcDataMem, oooSrcIndexMem, row - columnTop, oooDstDataMem, dstIndex);
+                    }
+                }
+
+                if (commitMode != CommitMode.NOSYNC) {
+                    oooDstDataMem.sync(commitMode == CommitMode.ASYNC);
+                    if (dstIndex != null) {
+                        dstIndex.sync(false);
+                    }
+                }
+            } finally {
+                oooDstDataMem.close(true);
+                if (dstIndex != null) {
+                    dstIndex.close(true);
+                }
+            }
+        } finally {
+            oooSrcDataMem.close();
+            oooSrcIndexMem.close();
+            path.trimTo(plen);
+        }
+
+        final boolean indexed = metadata.isColumnIndexed(columnIndex);
+        if (indexed) {
+            // index is re-built from merged column file
+            createIndexFiles(oooTempName, metadata.getIndexValueBlockCapacity(columnIndex), plen, true);
+            try {
+                oooIndexWriter.of(configuration, path.trimTo(plen), oooTempName);
+                dFile(path.trimTo(plen), oooTempName);
+                oooSrcDataMem.of(ff, path, ff.getMapPageSize(), ff.length(path));
+                for (long row = 0, n = split + mergeCount - newColumnTop; row < n; row++) {
+                    oooIndexWriter.add(toIndexKey(oooSrcDataMem.getInt(row * Integer.BYTES)), row + newColumnTop);
+                }
+            } finally {
+                oooSrcDataMem.close();
+                oooIndexWriter.close();
+                path.trimTo(plen);
+            }
+        }
+
+        try {
+            other.trimTo(rootLen).put(path, rootLen, plen);
+            renameOrException(dFile(path.trimTo(plen), oooTempName), dFile(other.trimTo(plen), columnName));
+            if (oooIndex != null) {
+                renameOrException(iFile(path.trimTo(plen), oooTempName), iFile(other.trimTo(plen), columnName));
+            }
+            if (indexed) {
+                renameOrException(BitmapIndexUtils.keyFileName(path.trimTo(plen), oooTempName), BitmapIndexUtils.keyFileName(other.trimTo(plen), columnName));
+                renameOrException(BitmapIndexUtils.valueFileName(path.trimTo(plen), oooTempName), BitmapIndexUtils.valueFileName(other.trimTo(plen), columnName));
+            }
+        } finally {
+            other.trimTo(rootLen);
+            path.trimTo(plen);
+        }
+
+        if (newColumnTop != columnTop || !exists) {
+            removeOrException(ff, topFile(path.trimTo(plen), columnName));
+            if (newColumnTop > 0) {
+                writeColumnTop(path.trimTo(plen), columnName, newColumnTop);
+            }
+            path.trimTo(plen);
+        }
+    }
+
+    private void mergeOutOfOrderRows(int commitMode) {
+        final long count = oooRowCount;
+        LOG.info().$("merging out-of-order rows [table=").$(name).$(", rowCount=").$(count).$(']').$();
+
+        // rows appended in order have to be indexed before partitions are re-written
+        updateIndexes();
+
+        // sizes of partitions created by this transaction have to be on disk
+        // because merge reads them back
+        if (txPartitionCount > 1) {
+            commitPendingPartitions();
+            txPendingPartitionSizes.jumpTo(0);
+            txPartitionCount = 1;
+        }
+
+        final long indexSize = count * 16;
+        final long pIndex = Unsafe.malloc(indexSize);
+        try {
+            // sort staged rows by timestamp, this will also group them by partition
+            final VirtualMemory oooTimestamps = oooColumns.getQuick(getPrimaryColumnIndex(metadata.getTimestampIndex()));
+            for (long i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putLong(pIndex + i * 16, oooTimestamps.getLong(i * Long.BYTES));
+                Unsafe.getUnsafe().putLong(pIndex + i * 16 + 8, i);
+            }
+            final long pTemp = Unsafe.malloc(indexSize);
+            try {
+                RadixSort.sortLongIndexAsc(pIndex, count, pTemp);
+            } finally {
+                Unsafe.free(pTemp, indexSize);
+            }
+
+            final long activePartitionTimestamp = partitionBy == PartitionBy.NONE ? 0 : timestampFloorMethod.floor(maxTimestamp);
+            boolean activePartitionMerged = false;
+            long lo = 0;
+            while (lo < count) {
+                final long partitionTimestamp;
+                final long nextPartitionTimestamp;
+                if (partitionBy == PartitionBy.NONE) {
+                    partitionTimestamp = 0;
+                    nextPartitionTimestamp = Long.MAX_VALUE;
+                } else {
+                    partitionTimestamp = timestampFloorMethod.floor(Unsafe.getUnsafe().getLong(pIndex + lo * 16));
+                    nextPartitionTimestamp = timestampAddMethod.calculate(partitionTimestamp, 1);
+                }
+
+                long hi = lo + 1;
+                while (hi < count && Unsafe.getUnsafe().getLong(pIndex + hi * 16) < nextPartitionTimestamp) {
+                    hi++;
+                }
+
+                final boolean active = partitionTimestamp == activePartitionTimestamp;
+                mergePartition(pIndex, lo, hi, partitionTimestamp, active, commitMode);
+                activePartitionMerged |= active;
+                lo = hi;
+            }
+
+            if (activePartitionMerged) {
+                openPartition(maxTimestamp);
+                setAppendPosition(transientRowCount);
+                buildZoneMap(zoneMap, maxTimestamp, transientRowCount);
+            }
+
+            final long oooMinTimestamp = Unsafe.getUnsafe().getLong(pIndex);
+            if (oooMinTimestamp < minTimestamp) {
+                minTimestamp = oooMinTimestamp;
+            }
+            prevMinTimestamp = minTimestamp;
+        } finally {
+            Unsafe.free(pIndex, indexSize);
+        }
+
+        // merge has indexed all rows of partitions it touched
+        txPrevTransientRowCount = transientRowCount;
+        setOutOfOrderAppendPosition(0);
+        oooRowCount = 0;
+    }
+
+    /**
+     * Merges sorted out-of-order rows between lo and hi into partition.
+     *
+     * @param pIndex             address of sorted (timestamp, row) pairs
+     * @param lo                 first pair in partition
+     * @param hi                 last pair in partition, exclusive
+     * @param partitionTimestamp timestamp of partition floor
+     * @param active             true when partition is currently open for appends
+     * @param commitMode         commit durability mode
+     */
+    private void mergePartition(long pIndex, long lo, long hi, long partitionTimestamp, boolean active, int commitMode) {
+        if (active) {
+            // writer's own column and index files are re-opened after merge
+            freeColumns(true);
+            for (int i = 0, n = denseIndexers.size(); i < n; i++) {
+                Misc.free(denseIndexers.getQuick(i));
+            }
+        }
+
+        try {
+            setStateForTimestamp(partitionTimestamp, false);
+            final int plen = path.length();
+            final long srcRowCount;
+            if (active) {
+                srcRowCount = transientRowCount;
+            } else if (ff.exists(path.$())) {
+                srcRowCount = readPartitionSize(ff, path.trimTo(plen), tempMem8b);
+                // merge reads and re-writes raw column files
+                decompressPartition(plen);
+            } else {
+                if (ff.mkdirs(path.trimTo(plen).put(Files.SEPARATOR).$(), mkDirMode) != 0) {
+                    throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(path);
+                }
+                srcRowCount = 0;
+            }
+            path.trimTo(plen);
+
+            final long oooCount = hi - lo;
+            final long mergeCount;
+            final long split;
+            final long pMergeIndex;
+            final long mergeIndexSize;
+
+            if (srcRowCount > 0) {
+                dFile(path, metadata.getColumnName(metadata.getTimestampIndex()));
+                oooSrcDataMem.of(ff, path, ff.getMapPageSize(), srcRowCount * Long.BYTES);
+                path.trimTo(plen);
+            }
+
+            try {
+                // first existing row that has to move to make room for out-of-order rows
+                split = srcRowCount > 0 ? searchTimestampAbove(oooSrcDataMem, Unsafe.getUnsafe().getLong(pIndex + lo * 16), srcRowCount) : 0;
+                mergeCount = srcRowCount - split + oooCount;
+                mergeIndexSize = mergeCount * Long.BYTES;
+                pMergeIndex = Unsafe.malloc(mergeIndexSize);
+
+                // merge index lists rows in timestamp order from split onwards, existing rows
+                // are positive values and staged rows have sign bit set
+                long i = split;
+                long j = lo;
+                long p = pMergeIndex;
+                while (i < srcRowCount && j < hi) {
+                    if (oooSrcDataMem.getLong(i * Long.BYTES) <= Unsafe.getUnsafe().getLong(pIndex + j * 16)) {
+                        Unsafe.getUnsafe().putLong(p, i++);
+                    } else {
+                        Unsafe.getUnsafe().putLong(p, Unsafe.getUnsafe().getLong(pIndex + j++ * 16 + 8) | Long.MIN_VALUE);
+                    }
+                    p += Long.BYTES;
+                }
+
+                while (i < srcRowCount) {
+                    Unsafe.getUnsafe().putLong(p, i++);
+                    p += Long.BYTES;
+                }
+
+                while (j < hi) {
+                    Unsafe.getUnsafe().putLong(p, Unsafe.getUnsafe().getLong(pIndex + j++ * 16 + 8) | Long.MIN_VALUE);
+                    p += Long.BYTES;
+                }
+            } finally {
+                oooSrcDataMem.close();
+            }
+
+            try {
+                for (int i = 0; i < columnCount; i++) {
+                    if (split == srcRowCount) {
+                        mergeAppendColumn(i, plen, srcRowCount, pMergeIndex, mergeCount, commitMode);
+                    } else {
+                        mergeColumn(i, plen, srcRowCount, split, pMergeIndex, mergeCount, commitMode);
+                    }
+                }
+            } finally {
+                Unsafe.free(pMergeIndex, mergeIndexSize);
+            }
+
+            LOG.info()
+                    .$("merged partition [path=").$(path.$())
+                    .$(", rowCount=").$(srcRowCount)
+                    .$(", oooRowCount=").$(oooCount)
+                    .$(", split=").$(split)
+                    .$(']').$();
+
+            if (active) {
+                transientRowCount += oooCount;
+            } else {
+                writePartitionSize(path.trimTo(plen), srcRowCount + oooCount);
+                fixedRowCount += oooCount;
+                // merged rows can be anywhere in the range of column values
+                path.trimTo(rootLen);
+                buildZoneMap(mergeZoneMap, partitionTimestamp, srcRowCount + oooCount);
+                writeZoneMap(mergeZoneMap, partitionTimestamp, srcRowCount + oooCount);
+                if (hasCompressedColumns()) {
+                    pendingCompressPartitions.add(partitionTimestamp);
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private Row newOutOfOrderRow(long timestamp) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (!outOfOrderEnabled || timestampIndex == -1) {
+            // row has not been started, cancelling it would rewind max timestamp
+            masterRef--;
+            throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+        }
+
+        if (partitionBy != PartitionBy.NONE && removedPartitions.contains(timestampFloorMethod.floor(timestamp))) {
+            masterRef--;
+            throw CairoException.instance(0).put("Cannot insert rows into removed partition [table=").put(name).put(", timestamp=").put(timestamp).put(']');
+        }
+
+        if (oooColumns.size() == 0) {
+            configureOutOfOrderColumns();
+        }
+
+        activeColumns = oooColumns;
+        activeNullers = oooNullers;
+        oooColumns.getQuick(getPrimaryColumnIndex(timestampIndex)).putLong(timestamp);
+        return row;
+    }
+
     private long openAppend(LPSZ name) {
         long fd = ff.openAppend(name);
         if (fd == -1) {
@@ -1795,9 +2839,28 @@ public class TableWriter implements Closeable {
         path.trimTo(plen);
     }
 
+    /**
+     * Wakes up waiters for changes of this table after transaction is published.
+     */
+    private void notifyCommit() {
+        if (commitNotifier != null) {
+            commitNotifier.notifyCommit(name);
+        }
+    }
+
+    private void openLatestRowCache() {
+        try {
+            latestRowCache.of(ff, path.concat(LATEST_ROW_FILE_NAME).$());
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void openFirstPartition(long timestamp) {
-        openPartition(repairDataGaps(timestamp));
+        final long partitionTimestamp = repairDataGaps(timestamp);
+        openPartition(partitionTimestamp);
         setAppendPosition(transientRowCount);
+        openZoneMap(partitionTimestamp, transientRowCount);
         if (performRecovery) {
             performRecovery();
         }
@@ -1893,6 +2956,24 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Loads zone map of active partition. Zone map is rebuilt from column files when partition
+     * doesn't have one or it is out of date, e.g. it was written before columns changed.
+     *
+     * @param timestamp timestamp of active partition
+     * @param rowCount  number of rows in active partition
+     */
+    private void openZoneMap(long timestamp, long rowCount) {
+        try {
+            setStateForTimestamp(timestamp, false);
+            if (!zoneMap.read(ff, path, metadata) || zoneMap.getRowCount() < rowCount || !zoneMap.isValid(columnTops)) {
+                zoneMap.build(ff, path, metadata, rowCount, tempMem8b);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private void performRecovery() {
         rollbackIndexes();
         rollbackSymbolTables();
@@ -1916,6 +2997,30 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void queueUncompressedPartitions() {
+        // partitions that previous writer did not get to compress before it was closed
+        if (partitionBy == PartitionBy.NONE || maxTimestamp == Long.MIN_VALUE || !hasCompressedColumns()) {
+            return;
+        }
+
+        final long activePartitionTimestamp = timestampFloorMethod.floor(maxTimestamp);
+        try {
+            for (long timestamp = timestampFloorMethod.floor(minTimestamp); timestamp < activePartitionTimestamp; timestamp = timestampAddMethod.calculate(timestamp, 1)) {
+                path.trimTo(rootLen);
+                setStateForTimestamp(timestamp, false);
+                final int plen = path.length();
+                for (int i = 0; i < columnCount; i++) {
+                    if (isCompressed(metaMem, i) && ff.exists(dFile(path.trimTo(plen), metadata.getColumnName(i)))) {
+                        partitionsToCompress.add(timestamp);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private long readTodoTaskCode() {
         try {
             if (ff.exists(path.concat(TODO_FILE_NAME).$())) {
@@ -1987,6 +3092,7 @@ public class TableWriter implements Closeable {
         columns.remove(getSecondaryColumnIndex(columnIndex));
         columns.remove(getPrimaryColumnIndex(columnIndex));
         columnTops.removeIndex(columnIndex);
+        zoneMap.removeColumn(columnIndex);
         nullers.remove(columnIndex);
         if (columnIndex < indexers.size()) {
             Misc.free(indexers.getQuick(columnIndex));
@@ -2004,6 +3110,7 @@ public class TableWriter implements Closeable {
                     path.concat(nativeLPSZ);
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
@@ -2036,7 +3143,17 @@ public class TableWriter implements Closeable {
             } else {
                 ddlMem.putInt(timestampIndex);
             }
-            ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_VERSION));
+            ddlMem.putLong(ttl);
+            // latest rows of removed column are no longer cached
+            final int latestRowColumn = metaMem.getInt(META_OFFSET_LATEST_ROW_COLUMN);
+            if (latestRowColumn == index + 1) {
+                ddlMem.putInt(0);
+            } else if (index + 1 < latestRowColumn) {
+                ddlMem.putInt(latestRowColumn - 1);
+            } else {
+                ddlMem.putInt(latestRowColumn);
+            }
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2067,7 +3184,9 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(columnCount);
             ddlMem.putInt(partitionBy);
             ddlMem.putInt(timestampIndex);
-            ddlMem.putInt(ColumnType.VERSION);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_VERSION));
+            ddlMem.putLong(ttl);
+            ddlMem.putInt(metaMem.getInt(META_OFFSET_LATEST_ROW_COLUMN));
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2204,6 +3323,140 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Replaces latest row cache entries with rows found in committed partitions, newest partition first.
+     * Scan stops once rows of all keys are found. When column cannot be read cache is left behind
+     * transaction, readers search for latest rows themselves and the next commit retries.
+     *
+     * @param commitMode commit durability mode.
+     */
+    private void rebuildLatestRowCache(int commitMode) {
+        final CharSequence columnName = metadata.getColumnName(latestRowColumnIndex);
+        final SymbolMapWriter symbolMapWriter = symbolMapWriters.getQuick(latestRowColumnIndex);
+        final int symbolCount = symbolMapWriter.getSymbolCount();
+        final boolean containsNull = symbolMapWriter.containsNullValue();
+        // keys are offset by one, null is key 0
+        final int keyCount = symbolCount + 1;
+        int found = 0;
+        latestRowCache.clearPending();
+        try {
+            if (fixedRowCount + transientRowCount > 0) {
+                final long activePartitionTimestamp = partitionBy == PartitionBy.NONE ? 0 : timestampFloorMethod.floor(maxTimestamp);
+                final long minPartitionTimestamp = partitionBy == PartitionBy.NONE ? 0 : timestampFloorMethod.floor(minTimestamp);
+                long partitionTimestamp = activePartitionTimestamp;
+                while (found < keyCount && partitionTimestamp >= minPartitionTimestamp) {
+                    if (!removedPartitions.contains(partitionTimestamp)) {
+                        setStateForTimestamp(partitionTimestamp, false);
+                        if (ff.exists(path.$())) {
+                            path.chopZ();
+                            final long rowCount = partitionTimestamp == activePartitionTimestamp ? transientRowCount : readPartitionSize(ff, path, tempMem8b);
+                            found += addLatestRows(columnName, partitionTimestamp, rowCount, found, symbolCount, containsNull);
+                        }
+                        path.trimTo(rootLen);
+                    }
+
+                    if (partitionBy == PartitionBy.NONE) {
+                        break;
+                    }
+                    partitionTimestamp = timestampAddMethod.calculate(partitionTimestamp, -1);
+                }
+            }
+            latestRowCache.rebuild(txn);
+            if (commitMode != CommitMode.NOSYNC) {
+                latestRowCache.sync(commitMode == CommitMode.ASYNC);
+            }
+        } catch (CairoException e) {
+            latestRowCache.clearPending();
+            // entries may describe rows that are gone, readers cannot use cache until the next commit rebuilds it
+            latestRowCache.rebuild(-1);
+            LOG.error().$("could not rebuild latest row cache [table=").$(name).$(", e=").$((Sinkable) e).$(']').$();
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Adds latest rows of keys, which rows are not found yet, in partition to pending rows of latest row cache.
+     * Column is scanned backwards until rows of all keys are found. Rows above column top are nulls.
+     * Path member variable has to be set to partition directory.
+     *
+     * @return number of keys found in partition
+     */
+    private int addLatestRows(CharSequence columnName, long partitionTimestamp, long rowCount, int found, int symbolCount, boolean containsNull) {
+        final int plen = path.length();
+        final int foundBefore = found;
+        final boolean compressed = !ff.exists(dFile(path.trimTo(plen), columnName)) && ff.exists(dzFile(path.trimTo(plen), columnName));
+        final long columnTop;
+        if (compressed || ff.exists(dFile(path.trimTo(plen), columnName))) {
+            columnTop = Math.min(readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b), rowCount);
+        } else {
+            // partition predates column
+            columnTop = rowCount;
+        }
+
+        boolean nullFound = latestRowCache.isPending(0);
+        // symbol table flags nulls in column file, nulls above column top are not flagged
+        if (rowCount > columnTop && (found - (nullFound ? 1 : 0) < symbolCount || (containsNull && !nullFound))) {
+            final LPSZ name = compressed ? dzFile(path.trimTo(plen), columnName) : dFile(path.trimTo(plen), columnName);
+            final long size = (rowCount - columnTop) * Integer.BYTES;
+            ReadOnlyColumn column = null;
+            try {
+                if (compressed) {
+                    column = new CompressedColumn(ff, name, ff.length(name));
+                } else {
+                    if (ff.length(name) < size) {
+                        throw CairoException.instance(0).put("column is shorter than partition [file=").put(name).put(']');
+                    }
+                    column = new OnePageMemory(ff, name, size);
+                }
+
+                for (long row = rowCount - 1; row >= columnTop; row--) {
+                    final int key = column.getInt((row - columnTop) * Integer.BYTES);
+                    if (latestRowCache.addIfAbsent(LatestRowCache.getIndex(key), partitionTimestamp, row)) {
+                        found++;
+                        nullFound |= key == SymbolTable.VALUE_IS_NULL;
+                        if (found - (nullFound ? 1 : 0) == symbolCount && (nullFound || !containsNull)) {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                Misc.free(column);
+                path.trimTo(plen);
+            }
+        }
+
+        if (columnTop > 0 && latestRowCache.addIfAbsent(0, partitionTimestamp, columnTop - 1)) {
+            found++;
+        }
+        return found - foundBefore;
+    }
+
+    private void removeLatestRowCache() {
+        latestRowCache.close();
+        latestRowColumnIndex = -1;
+        try {
+            path.concat(LATEST_ROW_FILE_NAME).$();
+            if (ff.exists(path) && !ff.remove(path)) {
+                throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private void removeZoneMap() {
+        try {
+            setStateForTimestamp(maxTimestamp, false);
+            path.concat(ZONE_MAP_FILE_NAME).$();
+            if (ff.exists(path) && !ff.remove(path)) {
+                throw CairoException.instance(ff.errno()).put("Cannot remove ").put(path);
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
     private int rename(int retries) {
         try {
             int index = 0;
@@ -2431,6 +3684,36 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void setOutOfOrderAppendPosition(long rowCount) {
+        for (int i = 0; i < columnCount; i++) {
+            final VirtualMemory mem1 = oooColumns.getQuick(getPrimaryColumnIndex(i));
+            final VirtualMemory mem2 = oooColumns.getQuick(getSecondaryColumnIndex(i));
+            final int type = metadata.getColumnType(i);
+            switch (type) {
+                case ColumnType.BINARY:
+                case ColumnType.STRING:
+                    if (rowCount > 0) {
+                        final long offset = mem2.getLong((rowCount - 1) * Long.BYTES);
+                        final long len;
+                        if (type == ColumnType.STRING) {
+                            len = mem1.getStrLen(offset);
+                            mem1.jumpTo(len == TableUtils.NULL_LEN ? offset + 4 : offset + len * 2 + 4);
+                        } else {
+                            len = mem1.getBinLen(offset);
+                            mem1.jumpTo(len == TableUtils.NULL_LEN ? offset + 8 : offset + len + 8);
+                        }
+                    } else {
+                        mem1.jumpTo(0);
+                    }
+                    mem2.jumpTo(rowCount * Long.BYTES);
+                    break;
+                default:
+                    mem1.jumpTo(rowCount << ColumnType.pow2SizeOf(type));
+                    break;
+            }
+        }
+    }
+
     /**
      * Sets path member variable to partition directory for the given timestamp and
      * partitionLo and partitionHi to partition interval in millis. These values are
@@ -2450,6 +3733,40 @@ public class TableWriter implements Closeable {
         boolean leap;
         path.put(Files.SEPARATOR);
         switch (partitionBy) {
+            case PartitionBy.HOUR:
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.append000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+                path.put('T');
+                TimestampFormatUtils.append0(path, Timestamps.getHourOfDay(timestamp));
+
+                if (updatePartitionInterval) {
+                    partitionHi = Timestamps.floorHH(timestamp) + Timestamps.HOUR_MICROS - 1;
+                }
+                break;
+            case PartitionBy.WEEK:
+                // directory is named after Monday of the week
+                timestamp = Timestamps.floorWW(timestamp);
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.append000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+
+                if (updatePartitionInterval) {
+                    partitionHi = timestamp + Timestamps.WEEK_MICROS - 1;
+                }
+                break;
             case PartitionBy.DAY:
                 y = Timestamps.getYear(timestamp);
                 leap = Timestamps.isLeapYear(y);
@@ -2511,11 +3828,21 @@ public class TableWriter implements Closeable {
         if (txPartitionCount++ > 0) {
             txPendingPartitionSizes.putLong128(transientRowCount, maxTimestamp);
         }
+
+        if (transientRowCount > 0) {
+            writeZoneMap(zoneMap, maxTimestamp, transientRowCount);
+        }
+
+        // partition we are leaving is compressed once transaction is committed
+        if (transientRowCount > 0 && hasCompressedColumns()) {
+            pendingCompressPartitions.add(timestampFloorMethod.floor(maxTimestamp));
+        }
         fixedRowCount += transientRowCount;
         txPrevTransientRowCount = transientRowCount;
         transientRowCount = 0;
         openPartition(timestamp);
         setAppendPosition(0);
+        zoneMap.of(metadata, columnTops);
     }
 
     private void syncColumns(int commitMode) {
@@ -2650,6 +3977,10 @@ public class TableWriter implements Closeable {
         this.prevMaxTimestamp = maxTimestamp;
         this.maxTimestamp = timestamp;
         this.timestampSetter.accept(timestamp);
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (timestampIndex != -1) {
+            zoneMap.update(timestampIndex, timestamp);
+        }
     }
 
     private void validateSwapMeta(CharSequence columnName) {
@@ -2681,15 +4012,23 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isCompressed(metaMem, i)) {
+            flags |= META_FLAG_BIT_COMPRESSED;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.skip(META_COLUMN_DATA_RESERVED);
     }
 
     private void writeColumnTop(CharSequence name) {
+        writeColumnTop(path, name, transientRowCount);
+    }
+
+    private void writeColumnTop(Path path, CharSequence name, long columnTop) {
         long fd = openAppend(path.concat(name).put(".top").$());
         try {
-            Unsafe.getUnsafe().putLong(tempMem8b, transientRowCount);
+            Unsafe.getUnsafe().putLong(tempMem8b, columnTop);
             if (ff.append(fd, tempMem8b, 8) != 8) {
                 throw CairoException.instance(Os.errno()).put("Cannot append ").put(path);
             }
@@ -2698,6 +4037,21 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void writePartitionSize(Path path, long partitionSize) {
+        long fd = ff.openRW(path.concat(ARCHIVE_FILE_NAME).$());
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open ").put(path);
+        }
+        try {
+            Unsafe.getUnsafe().putLong(tempMem8b, partitionSize);
+            if (ff.write(fd, tempMem8b, 8, 0) != 8) {
+                throw CairoException.instance(ff.errno()).put("Cannot write ").put(path);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
     private void writeRestoreMetaTodo(CharSequence columnName) {
         try {
             writeTodo(((long) metaPrevIndex << 8) | TODO_RESTORE_META);
@@ -2722,6 +4076,20 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void writeZoneMap(ZoneMap zoneMap, long timestamp, long rowCount) {
+        try {
+            setStateForTimestamp(timestamp, false);
+            other.trimTo(rootLen).put(path, rootLen, path.length());
+            if (!zoneMap.write(ff, path, other, rowCount)) {
+                // readers ignore zone map that is out of date, table stays consistent
+                LOG.error().$("could not write zone map [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        } finally {
+            path.trimTo(rootLen);
+            other.trimTo(rootLen);
+        }
+    }
+
     @FunctionalInterface
     private interface RemoveFileLambda {
         void remove(FilesFacade ff, LPSZ name);
@@ -2756,7 +4124,7 @@ public class TableWriter implements Closeable {
                 updateMaxTimestamp(timestamp);
                 return row;
             }
-            throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+            return newOutOfOrderRow(timestamp);
         }
     }
 
@@ -2774,7 +4142,7 @@ public class TableWriter implements Closeable {
         @NotNull
         private Row newRow0(long timestamp) {
             if (timestamp < maxTimestamp) {
-                throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+                return newOutOfOrderRow(timestamp);
             }
 
             if (timestamp > partitionHi && partitionBy != PartitionBy.NONE) {
@@ -2789,16 +4157,39 @@ public class TableWriter implements Closeable {
     public class Row {
         public void append() {
             if ((masterRef & 1) != 0) {
+                // staged rows are added to zone map when they are merged
+                final boolean inOrder = activeColumns == columns;
+                final int timestampIndex = metadata.getTimestampIndex();
                 for (int i = 0; i < columnCount; i++) {
                     if (refs.getQuick(i) < masterRef) {
-                        nullers.getQuick(i).run();
+                        activeNullers.getQuick(i).run();
+                        if (inOrder && i != timestampIndex) {
+                            zoneMap.updateNull(i);
+                        }
+                        final SymbolMapWriter symbolMapWriter = symbolMapWriters.getQuick(i);
+                        if (symbolMapWriter != null) {
+                            symbolMapWriter.putNull();
+                        }
                     }
                 }
-                transientRowCount++;
-                masterRef++;
-                if (prevMinTimestamp == Long.MAX_VALUE) {
-                    prevMinTimestamp = minTimestamp;
+                if (activeColumns == oooColumns) {
+                    oooRowCount++;
+                    activeColumns = columns;
+                    activeNullers = nullers;
+                } else {
+                    if (latestRowCache.isOpen()) {
+                        latestRowCache.add(
+                                LatestRowCache.getIndex(refs.getQuick(latestRowColumnIndex) < masterRef ? SymbolTable.VALUE_IS_NULL : latestRowKey),
+                                partitionBy == PartitionBy.NONE ? 0 : timestampFloorMethod.floor(maxTimestamp),
+                                transientRowCount
+                        );
+                    }
+                    transientRowCount++;
+                    if (prevMinTimestamp == Long.MAX_VALUE) {
+                        prevMinTimestamp = minTimestamp;
+                    }
                 }
+                masterRef++;
             }
         }
 
@@ -2807,27 +4198,27 @@ public class TableWriter implements Closeable {
         }
 
         public void putBin(int index, long address, long len) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(address, len));
+            getActiveSecondaryColumn(index).putLong(getActivePrimaryColumn(index).putBin(address, len));
             notNull(index);
         }
 
         public void putBin(int index, BinarySequence sequence) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putBin(sequence));
+            getActiveSecondaryColumn(index).putLong(getActivePrimaryColumn(index).putBin(sequence));
             notNull(index);
         }
 
         public void putBool(int index, boolean value) {
-            getPrimaryColumn(index).putBool(value);
+            getActivePrimaryColumn(index).putBool(value);
             notNull(index);
         }
 
         public void putByte(int index, byte value) {
-            getPrimaryColumn(index).putByte(value);
+            getActivePrimaryColumn(index).putByte(value);
             notNull(index);
         }
 
         public void putChar(int index, char value) {
-            getPrimaryColumn(index).putChar(value);
+            getActivePrimaryColumn(index).putChar(value);
             notNull(index);
         }
 
@@ -2836,72 +4227,85 @@ public class TableWriter implements Closeable {
         }
 
         public void putDouble(int index, double value) {
-            getPrimaryColumn(index).putDouble(value);
+            getActivePrimaryColumn(index).putDouble(value);
+            updateZoneMap(index, value);
             notNull(index);
         }
 
         public void putFloat(int index, float value) {
-            getPrimaryColumn(index).putFloat(value);
+            getActivePrimaryColumn(index).putFloat(value);
             notNull(index);
         }
 
         public void putInt(int index, int value) {
-            getPrimaryColumn(index).putInt(value);
+            getActivePrimaryColumn(index).putInt(value);
+            updateZoneMap(index, value);
             notNull(index);
         }
 
         public void putLong(int index, long value) {
-            getPrimaryColumn(index).putLong(value);
+            getActivePrimaryColumn(index).putLong(value);
+            updateZoneMap(index, value);
             notNull(index);
         }
 
         public void putLong256(int index, long l0, long l1, long l2, long l3) {
-            getPrimaryColumn(index).putLong256(l0, l1, l2, l3);
+            getActivePrimaryColumn(index).putLong256(l0, l1, l2, l3);
             notNull(index);
         }
 
         public void putLong256(int index, Long256 value) {
-            getPrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
+            getActivePrimaryColumn(index).putLong256(value.getLong0(), value.getLong1(), value.getLong2(), value.getLong3());
             notNull(index);
         }
 
         public void putLong256(int index, CharSequence hexString) {
-            getPrimaryColumn(index).putLong256(hexString);
+            getActivePrimaryColumn(index).putLong256(hexString);
             notNull(index);
         }
 
         public void putLong256(int index, @NotNull CharSequence hexString, int start, int end) {
-            getPrimaryColumn(index).putLong256(hexString, start, end);
+            getActivePrimaryColumn(index).putLong256(hexString, start, end);
             notNull(index);
         }
 
         public void putShort(int index, short value) {
-            getPrimaryColumn(index).putShort(value);
+            getActivePrimaryColumn(index).putShort(value);
             notNull(index);
         }
 
         public void putStr(int index, CharSequence value) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            getActiveSecondaryColumn(index).putLong(getActivePrimaryColumn(index).putStr(value));
             notNull(index);
         }
 
         public void putStr(int index, char value) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value));
+            getActiveSecondaryColumn(index).putLong(getActivePrimaryColumn(index).putStr(value));
             notNull(index);
         }
 
         public void putStr(int index, CharSequence value, int pos, int len) {
-            getSecondaryColumn(index).putLong(getPrimaryColumn(index).putStr(value, pos, len));
+            getActiveSecondaryColumn(index).putLong(getActivePrimaryColumn(index).putStr(value, pos, len));
             notNull(index);
         }
 
         public void putSym(int index, CharSequence value) {
-            getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
+            final int key = symbolMapWriters.getQuick(index).put(value);
+            getActivePrimaryColumn(index).putInt(key);
+            updateZoneMap(index, key);
+            if (index == latestRowColumnIndex) {
+                latestRowKey = key;
+            }
             notNull(index);
         }
 
         public void putSym(int index, char value) {
-            getPrimaryColumn(index).putInt(symbolMapWriters.getQuick(index).put(value));
+            final int key = symbolMapWriters.getQuick(index).put(value);
+            getActivePrimaryColumn(index).putInt(key);
+            updateZoneMap(index, key);
+            if (index == latestRowColumnIndex) {
+                latestRowKey = key;
+            }
             notNull(index);
         }
 
@@ -2912,6 +4316,18 @@ public class TableWriter implements Closeable {
         private void notNull(int index) {
             refs.setQuick(index, masterRef);
         }
+
+        private void updateZoneMap(int index, long value) {
+            if (activeColumns == columns) {
+                zoneMap.update(index, value);
+            }
+        }
+
+        private void updateZoneMap(int index, double value) {
+            if (activeColumns == columns) {
+                zoneMap.update(index, value);
+            }
+        }
     }
 
     static {
@@ -2920,5 +4336,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WAL_DIR_NAME);
     }
 }
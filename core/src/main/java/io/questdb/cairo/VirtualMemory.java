@@ -310,14 +310,17 @@ public class VirtualMemory implements Closeable {
             return offset;
         }
 
+        putBlockOfBytes(from, len);
+        return offset;
+    }
+
+    public final void putBlockOfBytes(long from, long len) {
         if (len < pageHi - appendPointer) {
             Unsafe.getUnsafe().copyMemory(from, appendPointer, len);
             appendPointer += len;
         } else {
             putBinSlit(from, len);
         }
-
-        return offset;
     }
 
     public void putBool(boolean value) {
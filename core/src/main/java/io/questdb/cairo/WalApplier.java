@@ -0,0 +1,447 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Applies write-ahead log of a table to the table. Each producer that could not get table writer
+ * appends rows to its own segment, which is a table of the same structure in "wal" directory
+ * of the base table. Segment is sealed once producer closes it: both its ".open" and ".lock" files
+ * are unlocked.
+ * <p>
+ * Sealed segments are merged in timestamp order and published to readers with single commit.
+ * Segment ids and transaction number of the table before commit are written to "_apply" file
+ * ahead of the commit. When applier does not get to remove the segments, table writer uses
+ * the file on open to tell whether segments are already in the table, see {@link #repair(FilesFacade, Path, long)}.
+ * <p>
+ * Columns are matched by name and type, columns added to table after segment was created are left null.
+ */
+public class WalApplier implements Closeable {
+    static final String OPEN_LOCK_SUFFIX = ".open";
+    private static final Log LOG = LogFactory.getLog(WalApplier.class);
+    // segments merged by single commit, each segment keeps its files mapped until commit
+    private static final int MAX_SEGMENTS = 32;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final Path path = new Path();
+    private final StringSink walRoot = new StringSink();
+    private final StringSink segmentName = new StringSink();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final LongList segmentIds = new LongList();
+    // pairs of ".open" and ".lock" file descriptors
+    private final LongList lockFds = new LongList();
+    private final ObjList<TableReader> readers = new ObjList<>();
+    private final ObjList<RecordCursor> cursors = new ObjList<>();
+    private final ObjList<IntList> columnMaps = new ObjList<>();
+    private final LongList timestamps = new LongList();
+    private final AppendMemory applyMem = new AppendMemory();
+    private final FindVisitor onFind = this::onFind;
+    private final FindVisitor onFindSealed = this::onFindSealed;
+    private int walLen;
+    private boolean found;
+
+    public WalApplier(CairoConfiguration configuration) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+    }
+
+    /**
+     * Completes apply of write-ahead log interrupted by crash. Segments listed in "_apply" file are
+     * removed when table transaction moved on since the file was written, otherwise they are left
+     * to be applied again.
+     *
+     * @param ff   files facade
+     * @param path table directory, path is left unchanged
+     * @param txn  current transaction number of the table
+     * @return false when applied segments could not be removed, they must not be applied again
+     */
+    static boolean repair(FilesFacade ff, Path path, long txn) {
+        final int rootLen = path.length();
+        try {
+            path.concat(TableUtils.WAL_DIR_NAME);
+            final int walLen = path.length();
+            if (!ff.exists(path.concat(TableUtils.WAL_APPLY_FILE_NAME).$())) {
+                return true;
+            }
+
+            try (ReadOnlyMemory mem = new ReadOnlyMemory(ff, path, ff.getPageSize(), ff.length(path))) {
+                if (mem.size() >= Long.BYTES + Integer.BYTES) {
+                    final int count = mem.getInt(Long.BYTES);
+                    if (txn > mem.getLong(0) && mem.size() >= Long.BYTES + Integer.BYTES + (long) count * Long.BYTES) {
+                        boolean removed = true;
+                        for (int i = 0; i < count; i++) {
+                            final long segmentId = mem.getLong(Long.BYTES + Integer.BYTES + (long) i * Long.BYTES);
+                            LOG.info().$("removing applied segment [path=").$(path.trimTo(walLen)).$(", segment=").$(segmentId).$(']').$();
+                            removed &= removeSegment(ff, path, walLen, segmentId);
+                        }
+                        if (!removed) {
+                            // keep the file until all applied segments are gone
+                            return false;
+                        }
+                    }
+                }
+            }
+
+            if (!ff.remove(path.trimTo(walLen).concat(TableUtils.WAL_APPLY_FILE_NAME).$())) {
+                throw CairoException.instance(ff.errno()).put("could not remove [path=").put(path).put(']');
+            }
+            return true;
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private static boolean removeSegment(FilesFacade ff, Path path, int walLen, long segmentId) {
+        if (!ff.rmdir(path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).put(Files.SEPARATOR).$())) {
+            LOG.error().$("could not remove [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            return false;
+        }
+        ff.remove(path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).put(OPEN_LOCK_SUFFIX).$());
+        ff.remove(path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).put(".lock").$());
+        return true;
+    }
+
+    /**
+     * Merges sealed segments of table write-ahead log into the table and commits. Segments that are
+     * still written to are left for later. Caller must own the writer and commit its own rows first,
+     * writer is rolled back when segments cannot be applied.
+     *
+     * @param writer writer of the table
+     * @return number of rows applied
+     */
+    public long apply(TableWriter writer) {
+        path.of(configuration.getRoot()).concat(writer.getName());
+        if (!repair(ff, path, writer.getTxn())) {
+            // segments of previous apply are in the table already
+            LOG.error().$("write-ahead log is not applied, applied segments are not removed [table=").utf8(writer.getName()).$(']').$();
+            return 0;
+        }
+
+        collectSegments();
+        if (segmentIds.size() == 0) {
+            return 0;
+        }
+
+        long rowCount = 0;
+        try {
+            writeApplyFile(writer.getTxn());
+            openSegments(writer.getMetadata());
+            rowCount = copyRows(writer);
+            writer.commit();
+        } catch (CairoException e) {
+            LOG.error().$("could not apply write-ahead log [table=").utf8(writer.getName()).$(", e=").$((Sinkable) e).$(']').$();
+            writer.rollback();
+            closeSegments();
+            // apply file is left to repair(), which removes it unless transaction of the table moved on
+            releaseLocks();
+            throw e;
+        }
+
+        // this thread owns table writer, other appliers cannot pick segments up once they are unlocked
+        closeSegments();
+        releaseLocks();
+        boolean removed = true;
+        for (int i = 0, n = segmentIds.size(); i < n; i++) {
+            removed &= removeSegment(ff, path, walLen, segmentIds.getQuick(i));
+        }
+        if (removed) {
+            // otherwise next apply or writer open removes what is left, see repair()
+            ff.remove(path.trimTo(walLen).concat(TableUtils.WAL_APPLY_FILE_NAME).$());
+        }
+
+        LOG.info().$("applied write-ahead log [table=").utf8(writer.getName())
+                .$(", segments=").$(segmentIds.size())
+                .$(", rows=").$(rowCount)
+                .$(']').$();
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+        closeSegments();
+        releaseLocks();
+        Misc.free(applyMem);
+        Misc.free(path);
+    }
+
+    /**
+     * @param tableName name of table
+     * @return true when table has write-ahead log segments that producers have closed or are closing
+     */
+    public boolean hasSealedSegments(CharSequence tableName) {
+        found = false;
+        path.of(configuration.getRoot()).concat(tableName).concat(TableUtils.WAL_DIR_NAME);
+        walLen = path.length();
+        ff.iterateDir(path.$(), onFindSealed);
+        return found;
+    }
+
+    private void closeSegments() {
+        Misc.freeObjList(readers);
+        readers.clear();
+        cursors.clear();
+    }
+
+    private void collectSegments() {
+        segmentIds.clear();
+        lockFds.clear();
+        path.concat(TableUtils.WAL_DIR_NAME);
+        walLen = path.length();
+        walRoot.clear();
+        walRoot.put(path);
+        ff.iterateDir(path.$(), onFind);
+        path.trimTo(walLen);
+    }
+
+    private long copyRows(TableWriter writer) {
+        final RecordMetadata metadata = writer.getMetadata();
+        final int timestampIndex = metadata.getTimestampIndex();
+        final int segmentCount = readers.size();
+        long rowCount = 0;
+
+        timestamps.clear();
+        for (int i = 0; i < segmentCount; i++) {
+            timestamps.add(nextTimestamp(i, timestampIndex));
+        }
+
+        while (true) {
+            // pick segment with the oldest row, segments are ordered by timestamp on their own
+            int segment = -1;
+            long timestamp = Long.MAX_VALUE;
+            for (int i = 0; i < segmentCount; i++) {
+                if (cursors.getQuick(i) != null && (segment == -1 || timestamps.getQuick(i) < timestamp)) {
+                    segment = i;
+                    timestamp = timestamps.getQuick(i);
+                }
+            }
+
+            if (segment == -1) {
+                return rowCount;
+            }
+
+            final Record record = cursors.getQuick(segment).getRecord();
+            TableWriter.Row row = null;
+            try {
+                row = timestampIndex > -1 ? writer.newRow(timestamp) : writer.newRow();
+                copyRow(record, row, metadata, columnMaps.getQuick(segment), timestampIndex);
+                row.append();
+                rowCount++;
+            } catch (CairoException e) {
+                // rows are acknowledged to their producers already, segment is kept until they can be applied
+                LOG.error().$("could not apply row [table=").utf8(writer.getName()).$(", segment=").$(segmentIds.getQuick(segment)).$(", timestamp=").$ts(timestamp).$(", e=").$((Sinkable) e).$(']').$();
+                if (row != null) {
+                    row.cancel();
+                }
+                throw e;
+            }
+            timestamps.setQuick(segment, nextTimestamp(segment, timestampIndex));
+        }
+    }
+
+    private static void copyRow(Record record, TableWriter.Row row, RecordMetadata metadata, IntList columnMap, int timestampIndex) {
+        for (int i = 0, n = columnMap.size(); i < n; i++) {
+            final int index = columnMap.getQuick(i);
+            if (index == -1 || i == timestampIndex) {
+                continue;
+            }
+
+            switch (metadata.getColumnType(i)) {
+                case ColumnType.BOOLEAN:
+                    row.putBool(i, record.getBool(index));
+                    break;
+                case ColumnType.BYTE:
+                    row.putByte(i, record.getByte(index));
+                    break;
+                case ColumnType.SHORT:
+                    row.putShort(i, record.getShort(index));
+                    break;
+                case ColumnType.CHAR:
+                    row.putChar(i, record.getChar(index));
+                    break;
+                case ColumnType.INT:
+                    row.putInt(i, record.getInt(index));
+                    break;
+                case ColumnType.LONG:
+                    row.putLong(i, record.getLong(index));
+                    break;
+                case ColumnType.DATE:
+                    row.putDate(i, record.getDate(index));
+                    break;
+                case ColumnType.TIMESTAMP:
+                    row.putTimestamp(i, record.getTimestamp(index));
+                    break;
+                case ColumnType.FLOAT:
+                    row.putFloat(i, record.getFloat(index));
+                    break;
+                case ColumnType.DOUBLE:
+                    row.putDouble(i, record.getDouble(index));
+                    break;
+                case ColumnType.STRING:
+                    row.putStr(i, record.getStr(index));
+                    break;
+                case ColumnType.SYMBOL:
+                    row.putSym(i, record.getSym(index));
+                    break;
+                case ColumnType.LONG256:
+                    row.putLong256(i, record.getLong256A(index));
+                    break;
+                case ColumnType.BINARY:
+                    row.putBin(i, record.getBin(index));
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private long nextTimestamp(int segment, int timestampIndex) {
+        final RecordCursor cursor = cursors.getQuick(segment);
+        if (cursor.hasNext()) {
+            return timestampIndex > -1 ? cursor.getRecord().getTimestamp(timestampIndex) : Long.MIN_VALUE;
+        }
+        // segment is exhausted
+        cursors.setQuick(segment, null);
+        return Long.MAX_VALUE;
+    }
+
+    private void onFind(long name, int type) {
+        if (type != Files.DT_DIR || segmentIds.size() == MAX_SEGMENTS) {
+            return;
+        }
+
+        final long segmentId = parseSegmentId(name);
+        if (segmentId < 0) {
+            return;
+        }
+
+        // producer holds ".open" lock from before segment is created until its writer starts closing
+        // and writer's own lock until writer is closed
+        final long openFd = tryLock(path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).put(OPEN_LOCK_SUFFIX).$());
+        if (openFd == -1) {
+            return;
+        }
+
+        final long lockFd = tryLock(path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).put(".lock").$());
+        if (lockFd == -1) {
+            ff.close(openFd);
+            return;
+        }
+
+        segmentIds.add(segmentId);
+        lockFds.add(openFd);
+        lockFds.add(lockFd);
+    }
+
+    private void onFindSealed(long name, int type) {
+        if (found || type != Files.DT_DIR) {
+            return;
+        }
+
+        final long segmentId = parseSegmentId(name);
+        if (segmentId > -1) {
+            final long fd = tryLock(path.trimTo(walLen).put(Files.SEPARATOR).put(segmentId).put(OPEN_LOCK_SUFFIX).$());
+            if (fd != -1) {
+                ff.close(fd);
+                found = true;
+            }
+        }
+    }
+
+    private void openSegments(RecordMetadata metadata) {
+        for (int i = 0, n = segmentIds.size(); i < n; i++) {
+            segmentName.clear();
+            segmentName.put(segmentIds.getQuick(i));
+            final TableReader reader = new TableReader(configuration, segmentName, walRoot);
+            readers.add(reader);
+            cursors.add(reader.getCursor());
+
+            if (columnMaps.size() == i) {
+                columnMaps.add(new IntList());
+            }
+            final IntList columnMap = columnMaps.getQuick(i);
+            final RecordMetadata segmentMetadata = reader.getMetadata();
+            columnMap.clear();
+            for (int j = 0, m = metadata.getColumnCount(); j < m; j++) {
+                final int index = segmentMetadata.getColumnIndexQuiet(metadata.getColumnName(j));
+                columnMap.add(index > -1 && segmentMetadata.getColumnType(index) == metadata.getColumnType(j) ? index : -1);
+            }
+        }
+    }
+
+    private long parseSegmentId(long name) {
+        nativeLPSZ.of(name);
+        try {
+            return Numbers.parseLong(nativeLPSZ);
+        } catch (NumericException e) {
+            return -1;
+        }
+    }
+
+    private void releaseLocks() {
+        for (int i = 0, n = lockFds.size(); i < n; i++) {
+            ff.close(lockFds.getQuick(i));
+        }
+        lockFds.clear();
+    }
+
+    private long tryLock(Path path) {
+        final long fd = ff.openRW(path);
+        if (fd == -1) {
+            return -1;
+        }
+
+        if (ff.lock(fd) != 0) {
+            ff.close(fd);
+            return -1;
+        }
+        return fd;
+    }
+
+    private void writeApplyFile(long txn) {
+        try {
+            applyMem.of(ff, path.trimTo(walLen).concat(TableUtils.WAL_APPLY_FILE_NAME).$(), ff.getPageSize());
+            applyMem.putLong(txn);
+            applyMem.putInt(segmentIds.size());
+            for (int i = 0, n = segmentIds.size(); i < n; i++) {
+                applyMem.putLong(segmentIds.getQuick(i));
+            }
+            applyMem.sync(false);
+        } finally {
+            applyMem.close(true);
+            path.trimTo(walLen);
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.*;
+import io.questdb.std.str.LPSZ;
+import io.questdb.std.str.Path;
+
+/**
+ * Min and max values of columns of one partition. Table writer maintains zone map of active
+ * partition as rows are appended and stores it in "_zm" file of partition directory when partition
+ * is switched, rewritten by out-of-order merge or when writer is closed. Readers use it to skip partitions
+ * that cannot have rows matching filter. Zone map that describes fewer rows than partition has is ignored.
+ * <p>
+ * Zone map is kept for INT, LONG, DATE, TIMESTAMP, SYMBOL and DOUBLE columns. Min and max of integer
+ * columns include null values, which are the smallest values of column type. Min and max of DOUBLE
+ * column are those of non-NaN values, NaN values are counted separately. Values above column top are
+ * not in the map, but they are nulls and this is how getters report them.
+ * <p>
+ * File starts with row count and column count, which are followed by a record per column: hash of
+ * column name, column type, column top, min, max and null count. Record is only valid for column
+ * with the same name, type and top, e.g. zone map stays valid for columns that existed when it was
+ * written after new column is added, but not after column is removed and re-added.
+ * Statistics can be wider than data, for example after row is cancelled, but never narrower.
+ */
+public class ZoneMap {
+    private static final int RECORD_NAME_HASH = 0;
+    private static final int RECORD_TYPE = 1;
+    private static final int RECORD_TOP = 2;
+    private static final int RECORD_MIN = 3;
+    private static final int RECORD_MAX = 4;
+    private static final int RECORD_NULL_COUNT = 5;
+    private static final int RECORD_SIZE = 6;
+    private static final long HEADER_SIZE = 2 * Long.BYTES;
+    private static final int INVALID_TYPE = -1;
+    private final LongList records = new LongList();
+    private long rowCount;
+
+    public static boolean isTracked(int columnType) {
+        switch (columnType) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.SYMBOL:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static long nullValue(int columnType) {
+        switch (columnType) {
+            case ColumnType.INT:
+                return Numbers.INT_NaN;
+            case ColumnType.SYMBOL:
+                return SymbolTable.VALUE_IS_NULL;
+            default:
+                return Numbers.LONG_NaN;
+        }
+    }
+
+    public void addColumn(CharSequence name, int type, long top) {
+        records.add(Chars.hashCode(name));
+        records.add(type);
+        records.add(top);
+        if (type == ColumnType.DOUBLE) {
+            records.add(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+            records.add(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+        } else {
+            records.add(Long.MAX_VALUE);
+            records.add(Long.MIN_VALUE);
+        }
+        records.add(0);
+    }
+
+    /**
+     * Scans column files of partition and replaces content of zone map with their statistics.
+     * Columns, files of which cannot be read, e.g. because they are compressed, are left invalid.
+     *
+     * @param ff        files facade
+     * @param path      partition directory, path is restored when method returns
+     * @param metadata  table metadata
+     * @param rowCount  number of rows in partition
+     * @param tempMem8b temporary memory of 8 bytes
+     */
+    public void build(FilesFacade ff, Path path, RecordMetadata metadata, long rowCount, long tempMem8b) {
+        final int plen = path.length();
+        clear();
+        this.rowCount = rowCount;
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final CharSequence name = metadata.getColumnName(i);
+            final int type = metadata.getColumnType(i);
+            final long top = Math.min(TableUtils.readColumnTop(ff, path, name, plen, tempMem8b), rowCount);
+            addColumn(name, type, top);
+            if (isTracked(type) && rowCount > top && !scan(ff, TableUtils.dFile(path, name), i, type, rowCount - top)) {
+                records.setQuick(i * RECORD_SIZE + RECORD_TYPE, INVALID_TYPE);
+            }
+            path.trimTo(plen);
+        }
+    }
+
+    public void clear() {
+        records.clear();
+        rowCount = 0;
+    }
+
+    public double getMaxDouble(int columnIndex) {
+        return Double.longBitsToDouble(records.getQuick(columnIndex * RECORD_SIZE + RECORD_MAX));
+    }
+
+    /**
+     * @param columnIndex index of column of INT, LONG, DATE, TIMESTAMP or SYMBOL type
+     * @return max value including nulls above column top
+     */
+    public long getMaxLong(int columnIndex) {
+        final int offset = columnIndex * RECORD_SIZE;
+        final long max = records.getQuick(offset + RECORD_MAX);
+        return records.getQuick(offset + RECORD_TOP) > 0 ? Math.max(max, nullValue((int) records.getQuick(offset + RECORD_TYPE))) : max;
+    }
+
+    public double getMinDouble(int columnIndex) {
+        return Double.longBitsToDouble(records.getQuick(columnIndex * RECORD_SIZE + RECORD_MIN));
+    }
+
+    /**
+     * @param columnIndex index of column of INT, LONG, DATE, TIMESTAMP or SYMBOL type
+     * @return min value including nulls above column top
+     */
+    public long getMinLong(int columnIndex) {
+        final int offset = columnIndex * RECORD_SIZE;
+        final long min = records.getQuick(offset + RECORD_MIN);
+        return records.getQuick(offset + RECORD_TOP) > 0 ? Math.min(min, nullValue((int) records.getQuick(offset + RECORD_TYPE))) : min;
+    }
+
+    /**
+     * @return number of rows zone map was written for, partition can have fewer rows if they weren't committed
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @param columnIndex index of DOUBLE column
+     * @return true when column has NaN values
+     */
+    public boolean hasNaN(int columnIndex) {
+        final int offset = columnIndex * RECORD_SIZE;
+        return records.getQuick(offset + RECORD_NULL_COUNT) > 0 || records.getQuick(offset + RECORD_TOP) > 0;
+    }
+
+    /**
+     * @param columnIndex column index
+     * @param columnTop   column top in the partition
+     * @return true when zone map has statistics of the column and they were collected for the same column top
+     */
+    public boolean isValid(int columnIndex, long columnTop) {
+        final int offset = columnIndex * RECORD_SIZE;
+        return offset < records.size()
+                && isTracked((int) records.getQuick(offset + RECORD_TYPE))
+                && records.getQuick(offset + RECORD_TOP) == columnTop;
+    }
+
+    /**
+     * @param columnTops tops of all columns in the partition
+     * @return true when statistics of all columns are valid
+     */
+    public boolean isValid(LongList columnTops) {
+        if (records.size() != columnTops.size() * RECORD_SIZE) {
+            return false;
+        }
+        for (int i = 0, n = columnTops.size(); i < n; i++) {
+            final int offset = i * RECORD_SIZE;
+            if (records.getQuick(offset + RECORD_TYPE) == INVALID_TYPE || records.getQuick(offset + RECORD_TOP) != columnTops.getQuick(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void of(RecordMetadata metadata, LongList columnTops) {
+        clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            addColumn(metadata.getColumnName(i), metadata.getColumnType(i), columnTops.getQuick(i));
+        }
+    }
+
+    /**
+     * Reads zone map file of partition. Records of columns that do not match metadata are invalid.
+     *
+     * @param ff       files facade
+     * @param path     partition directory, path is restored when method returns
+     * @param metadata table metadata
+     * @return false when file does not exist or cannot be read
+     */
+    public boolean read(FilesFacade ff, Path path, RecordMetadata metadata) {
+        final int plen = path.length();
+        final long fd = ff.openRO(path.concat(TableUtils.ZONE_MAP_FILE_NAME).$());
+        path.trimTo(plen);
+        if (fd == -1) {
+            return false;
+        }
+        try {
+            final long len = ff.length(fd);
+            if (len < HEADER_SIZE) {
+                return false;
+            }
+            final long buf = Unsafe.malloc(len);
+            try {
+                if (ff.read(fd, buf, len, 0) != len) {
+                    return false;
+                }
+                final long fileColumnCount = Unsafe.getUnsafe().getLong(buf + Long.BYTES);
+                if (len != HEADER_SIZE + fileColumnCount * RECORD_SIZE * Long.BYTES) {
+                    return false;
+                }
+                clear();
+                rowCount = Unsafe.getUnsafe().getLong(buf);
+                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                    final long p = buf + HEADER_SIZE + (long) i * RECORD_SIZE * Long.BYTES;
+                    final boolean match = i < fileColumnCount
+                            && Unsafe.getUnsafe().getLong(p + RECORD_NAME_HASH * Long.BYTES) == Chars.hashCode(metadata.getColumnName(i))
+                            && Unsafe.getUnsafe().getLong(p + RECORD_TYPE * Long.BYTES) == metadata.getColumnType(i);
+                    for (int j = 0; j < RECORD_SIZE; j++) {
+                        records.add(match ? Unsafe.getUnsafe().getLong(p + j * Long.BYTES) : 0);
+                    }
+                    if (!match) {
+                        records.setQuick(i * RECORD_SIZE + RECORD_TYPE, INVALID_TYPE);
+                    }
+                }
+                return true;
+            } finally {
+                Unsafe.free(buf, len);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
+    public void removeColumn(int columnIndex) {
+        final int offset = columnIndex * RECORD_SIZE;
+        if (offset < records.size()) {
+            for (int i = 0; i < RECORD_SIZE; i++) {
+                records.removeIndex(offset);
+            }
+        }
+    }
+
+    public void renameColumn(int columnIndex, CharSequence newName) {
+        records.setQuick(columnIndex * RECORD_SIZE + RECORD_NAME_HASH, Chars.hashCode(newName));
+    }
+
+    public void update(int columnIndex, long value) {
+        final int offset = columnIndex * RECORD_SIZE;
+        if (value < records.getQuick(offset + RECORD_MIN)) {
+            records.setQuick(offset + RECORD_MIN, value);
+        }
+        if (value > records.getQuick(offset + RECORD_MAX)) {
+            records.setQuick(offset + RECORD_MAX, value);
+        }
+    }
+
+    public void update(int columnIndex, double value) {
+        final int offset = columnIndex * RECORD_SIZE;
+        if (value != value) {
+            records.increment(offset + RECORD_NULL_COUNT);
+            return;
+        }
+        if (value < Double.longBitsToDouble(records.getQuick(offset + RECORD_MIN))) {
+            records.setQuick(offset + RECORD_MIN, Double.doubleToLongBits(value));
+        }
+        if (value > Double.longBitsToDouble(records.getQuick(offset + RECORD_MAX))) {
+            records.setQuick(offset + RECORD_MAX, Double.doubleToLongBits(value));
+        }
+    }
+
+    /**
+     * Adds null value of column type to statistics.
+     *
+     * @param columnIndex column index
+     */
+    public void updateNull(int columnIndex) {
+        final int type = (int) records.getQuick(columnIndex * RECORD_SIZE + RECORD_TYPE);
+        switch (type) {
+            case ColumnType.DOUBLE:
+                update(columnIndex, Double.NaN);
+                break;
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.SYMBOL:
+                update(columnIndex, nullValue(type));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Writes zone map to partition directory. File is replaced atomically, so that readers never see
+     * partially written file. Zone map is an optimisation, failure to write it is not fatal: file
+     * left behind describes fewer rows than partition has and readers ignore it.
+     *
+     * @param ff       files facade
+     * @param path     partition directory, path is restored when method returns
+     * @param other    partition directory too, it is used for temporary file and restored as well
+     * @param rowCount number of rows in partition
+     * @return false when file could not be written
+     */
+    public boolean write(FilesFacade ff, Path path, Path other, long rowCount) {
+        final int plen = path.length();
+        final int olen = other.length();
+        final int columnCount = records.size() / RECORD_SIZE;
+        final long len = HEADER_SIZE + (long) records.size() * Long.BYTES;
+        try {
+            other.concat(TableUtils.ZONE_MAP_FILE_NAME).put(".tmp").$();
+            final long fd = ff.openRW(other);
+            if (fd == -1) {
+                return false;
+            }
+            final long buf = Unsafe.malloc(len);
+            try {
+                Unsafe.getUnsafe().putLong(buf, rowCount);
+                Unsafe.getUnsafe().putLong(buf + Long.BYTES, columnCount);
+                for (int i = 0, n = records.size(); i < n; i++) {
+                    Unsafe.getUnsafe().putLong(buf + HEADER_SIZE + (long) i * Long.BYTES, records.getQuick(i));
+                }
+                if (ff.write(fd, buf, len, 0) != len || !ff.truncate(fd, len)) {
+                    return false;
+                }
+            } finally {
+                Unsafe.free(buf, len);
+                ff.close(fd);
+            }
+            path.concat(TableUtils.ZONE_MAP_FILE_NAME).$();
+            if (ff.rename(other, path)) {
+                return true;
+            }
+            // file systems that cannot rename over existing file
+            return ff.remove(path) && ff.rename(other, path);
+        } finally {
+            path.trimTo(plen);
+            other.trimTo(olen);
+        }
+    }
+
+    private boolean scan(FilesFacade ff, LPSZ name, int columnIndex, int type, long count) {
+        final long fd = ff.openRO(name);
+        if (fd == -1) {
+            return false;
+        }
+        try {
+            final long size = count << ColumnType.pow2SizeOf(type);
+            if (ff.length(fd) < size) {
+                return false;
+            }
+            final long address = ff.mmap(fd, size, 0, Files.MAP_RO);
+            if (address == -1) {
+                return false;
+            }
+            try {
+                switch (type) {
+                    case ColumnType.INT:
+                    case ColumnType.SYMBOL:
+                        for (long i = 0; i < count; i++) {
+                            update(columnIndex, Unsafe.getUnsafe().getInt(address + (i << 2)));
+                        }
+                        break;
+                    case ColumnType.DOUBLE:
+                        for (long i = 0; i < count; i++) {
+                            update(columnIndex, Unsafe.getUnsafe().getDouble(address + (i << 3)));
+                        }
+                        break;
+                    default:
+                        for (long i = 0; i < count; i++) {
+                            update(columnIndex, Unsafe.getUnsafe().getLong(address + (i << 3)));
+                        }
+                        break;
+                }
+            } finally {
+                ff.munmap(address, size);
+            }
+            return true;
+        } finally {
+            ff.close(fd);
+        }
+    }
+}
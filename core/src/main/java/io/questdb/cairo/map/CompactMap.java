@@ -186,6 +186,11 @@ public class CompactMap implements Map {
         return cursor;
     }
 
+    @Override
+    public long getMemorySize() {
+        return currentEntryOffset + currentEntrySize + (mask + 1) * 8;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
@@ -340,13 +345,13 @@ public class CompactMap implements Map {
             long offset = getOffsetAt(slot);
 
             if (offset == -1) {
-                return null;
+                return discard();
             } else {
                 // check if this was a direct hit
                 byte flag = entries.getByte(offset);
                 if ((flag & BITS_DIRECT_HIT) == 0) {
                     // not a direct hit? not our value
-                    return null;
+                    return discard();
                 } else {
                     // this is direct hit, scroll down all keys with same hashcode
                     // and exit this loop as soon as equality operator scores
@@ -371,12 +376,17 @@ public class CompactMap implements Map {
                             distance = entries.getByte(offset) & BITS_DISTANCE;
                         }
                         // reached the end of the list, nothing found
-                        return null;
+                        return discard();
                     }
                 }
             }
         }
 
+        @Override
+        public int hash() {
+            return (int) hashFunction.hash(entries, currentEntryOffset + entryKeyOffset, currentEntrySize - entryKeyOffset);
+        }
+
         @Override
         public void put(Record record, RecordSink sink) {
             sink.copy(record, key);
@@ -581,6 +591,12 @@ public class CompactMap implements Map {
             return value;
         }
 
+        private CompactMapValue discard() {
+            // undo this key append, otherwise map cursor would iterate over it
+            currentEntrySize = 0;
+            return null;
+        }
+
         private long getEntrySize(long offset) {
             return entries.getLong(offset + 1);
         }
@@ -228,6 +228,11 @@ public class FastMap implements Map {
         return cursor.init(kStart, size);
     }
 
+    @Override
+    public long getMemorySize() {
+        return kPos - kStart + (long) keyCapacity * Long.BYTES;
+    }
+
     @Override
     public MapRecord getRecord() {
         return record;
@@ -415,6 +420,12 @@ public class FastMap implements Map {
             }
         }
 
+        @Override
+        public int hash() {
+            commit();
+            return hashFunction.hash(startAddress + keyDataOffset, len - keyDataOffset);
+        }
+
         @Override
         public void put(Record record, RecordSink sink) {
             sink.copy(record, this);
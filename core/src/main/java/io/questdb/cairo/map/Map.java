@@ -35,6 +35,11 @@ public interface Map extends Mutable, Closeable {
 
     RecordCursor getCursor();
 
+    /**
+     * @return bytes taken by entries stored so far and by hash table
+     */
+    long getMemorySize();
+
     MapRecord getRecord();
 
     long size();
@@ -38,6 +38,15 @@ public interface MapKey extends RecordSinkSPI {
 
     MapValue findValue();
 
+    /**
+     * Hash code of the key that has been written so far. It is the same hash code
+     * map uses to find the key, so callers partitioning keys should mix it before
+     * taking bits off it.
+     *
+     * @return hash code of the key
+     */
+    int hash();
+
     default boolean notFound() {
         return findValue() == null;
     }
@@ -24,101 +24,108 @@
 
 package io.questdb.cairo.pool;
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableCommitNotifier;
 import io.questdb.cairo.TableReader;
 import io.questdb.cairo.pool.ex.EntryLockedException;
 import io.questdb.cairo.pool.ex.EntryUnavailableException;
 import io.questdb.cairo.pool.ex.PoolClosedException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.Chars;
 import io.questdb.std.ConcurrentHashMap;
 import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.Map;
-
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of table readers. Readers of a table are kept in segments of {@link #ENTRY_SIZE} slots, new segment is
+ * added when all slots of existing segments are busy.
+ * <p>
+ * Thread tries the slot of its own first, it is likely to find the reader it used last time there. When that
+ * slot is busy, free slot is found via bitmap of slots that have been released, without scanning the segment.
+ * <p>
+ * Number of segments is a soft limit. When all readers of the table are busy, thread waits for a reader to be
+ * returned and fails only when wait times out.
+ * <p>
+ * When message bus is given, idle readers are reloaded by {@link #refreshIdleReaders()} after table is committed
+ * to, so that threads do not have to pay for reload when they get reader from the pool.
+ */
 public class ReaderPool extends AbstractPool implements ResourcePool<TableReader> {
 
     private static final Log LOG = LogFactory.getLog(ReaderPool.class);
     private static final long UNLOCKED = -1L;
     private static final long NEXT_STATUS = Unsafe.getFieldOffset(Entry.class, "nextStatus");
     private static final int ENTRY_SIZE = 32;
+    private static final long ALL_SLOTS_FREE = -1L >>> (Long.SIZE - ENTRY_SIZE);
     private static final long LOCK_OWNER = Unsafe.getFieldOffset(Entry.class, "lockOwner");
+    private static final long FREE_SLOTS = Unsafe.getFieldOffset(Entry.class, "freeSlots");
+    private static final long RELEASE_COUNT = Unsafe.getFieldOffset(Entry.class, "releaseCount");
+    private static final long REFRESH_STATUS = Unsafe.getFieldOffset(Entry.class, "refreshStatus");
     private static final int NEXT_OPEN = 0;
     private static final int NEXT_ALLOCATED = 1;
     private static final int NEXT_LOCKED = 2;
+    private static final int REFRESH_IDLE = 0;
+    private static final int REFRESH_LISTENING = 1;
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
+    // names of tables that have been committed to since their idle readers were refreshed
+    private final ConcurrentHashMap.KeySetView<Boolean> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private final TableCommitNotifier commitNotifier;
     private final int maxSegments;
     private final int maxEntries;
+    private final long acquireTimeoutNanos;
 
     public ReaderPool(CairoConfiguration configuration) {
+        this(configuration, null);
+    }
+
+    public ReaderPool(CairoConfiguration configuration, @Nullable MessageBus messageBus) {
         super(configuration, configuration.getInactiveReaderTTL());
         this.maxSegments = configuration.getReaderPoolMaxSegments();
         this.maxEntries = maxSegments * ENTRY_SIZE;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getReaderPoolAcquireTimeout());
+        this.commitNotifier = messageBus != null ? messageBus.getTableCommitNotifier() : null;
     }
 
     @Override
     public TableReader get(CharSequence name) {
+        final long thread = Thread.currentThread().getId();
+        long deadline = Long.MIN_VALUE;
 
-        Entry e = getEntry(name);
-
-        long lockOwner = e.lockOwner;
-        long thread = Thread.currentThread().getId();
-
-        if (lockOwner != UNLOCKED) {
-            LOG.info().$('\'').utf8(name).$("' is locked [owner=").$(lockOwner).$(']').$();
-            throw EntryLockedException.INSTANCE;
-        }
-
-        do {
-            for (int i = 0; i < ENTRY_SIZE; i++) {
-                if (Unsafe.cas(e.allocations, i, UNALLOCATED, thread)) {
-                    // got lock, allocate if needed
-                    R r = e.readers[i];
-                    if (r == null) {
-
-                        try {
-                            LOG.info().$("open '").utf8(name).$("' [at=").$(e.index).$(':').$(i).$(']').$();
-                            r = new R(this, e, i, name);
-                        } catch (CairoException ex) {
-                            Unsafe.arrayPutOrdered(e.allocations, i, UNALLOCATED);
-                            throw ex;
-                        }
+        while (true) {
+            final Entry e = getEntry(name);
 
-                        e.readers[i] = r;
-                        notifyListener(thread, name, PoolListener.EV_CREATE, e.index, i);
-                    } else {
-                        r.reload();
-                        notifyListener(thread, name, PoolListener.EV_GET, e.index, i);
-                    }
-
-                    if (isClosed()) {
-                        e.readers[i] = null;
-                        r.goodby();
-                        LOG.info().$('\'').utf8(name).$("' born free").$();
-                        return r;
-                    }
-
-                    LOG.debug().$('\'').utf8(name).$("' is assigned [at=").$(e.index).$(':').$(i).$(", thread=").$(thread).$(']').$();
-                    return r;
-                }
+            long lockOwner = e.lockOwner;
+            if (lockOwner != UNLOCKED) {
+                LOG.info().$('\'').utf8(name).$("' is locked [owner=").$(lockOwner).$(']').$();
+                throw EntryLockedException.INSTANCE;
             }
 
-            LOG.debug().$("Thread ").$(thread).$(" is moving to entry ").$(e.index + 1).$();
+            // count is taken before slots are looked at, reader returned after that wakes us up
+            final long releaseCount = e.releaseCount;
+            final R r = acquire(e, name, thread);
+            if (r != null) {
+                return r;
+            }
 
-            // all allocated, create next entry if possible
-            if (Unsafe.getUnsafe().compareAndSwapInt(e, NEXT_STATUS, NEXT_OPEN, NEXT_ALLOCATED)) {
-                LOG.debug().$("Thread ").$(thread).$(" allocated entry ").$(e.index + 1).$();
-                e.next = new Entry(e.index + 1, clock.getTicks());
+            if (deadline == Long.MIN_VALUE) {
+                deadline = System.nanoTime() + acquireTimeoutNanos;
             }
-            e = e.next;
-        } while (e != null && e.index < maxSegments);
 
-        // max entries exceeded
-        notifyListener(thread, name, PoolListener.EV_FULL, -1, -1);
-        LOG.info().$("could not get, busy [table=`").utf8(name).$("`, thread=").$(thread).$(", retries=").$(this.maxSegments).$(']').$();
-        throw EntryUnavailableException.INSTANCE;
+            if (!awaitRelease(e, releaseCount, deadline)) {
+                // max entries exceeded
+                notifyListener(thread, name, PoolListener.EV_FULL, -1, -1);
+                LOG.info().$("could not get, busy [table=`").utf8(name).$("`, thread=").$(thread).$(", retries=").$(this.maxSegments).$(']').$();
+                throw EntryUnavailableException.INSTANCE;
+            }
+        }
     }
 
     public int getBusyCount() {
@@ -141,9 +148,62 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         return maxEntries;
     }
 
+    /**
+     * Reloads idle readers of tables that have been committed to since the last call. Readers are
+     * refreshed only when pool is given message bus.
+     *
+     * @return true when any reader was reloaded
+     */
+    public boolean refreshIdleReaders() {
+        if (pendingRefresh.isEmpty()) {
+            return false;
+        }
+
+        final long thread = Thread.currentThread().getId();
+        boolean useful = false;
+        for (CharSequence name : pendingRefresh) {
+            pendingRefresh.remove(name);
+            final Entry root = entries.get(name);
+            // table could have been locked and removed from pool while it was waiting for refresh
+            if (root == null || root.lockOwner != UNLOCKED) {
+                continue;
+            }
+
+            boolean idle = false;
+            Entry e = root;
+            do {
+                for (int i = 0; i < ENTRY_SIZE; i++) {
+                    if (e.readers[i] != null && Unsafe.cas(e.allocations, i, UNALLOCATED, thread)) {
+                        final R r = e.readers[i];
+                        if (r != null) {
+                            try {
+                                if (r.reload()) {
+                                    useful = true;
+                                    notifyListener(thread, root.name, PoolListener.EV_REFRESH, e.index, i);
+                                }
+                                idle = true;
+                            } catch (CairoException ex) {
+                                LOG.error().$("could not refresh '").utf8(root.name).$("' [at=").$(e.index).$(':').$(i).$(", msg=").$(ex.getFlyweightMessage()).$(']').$();
+                                closeReader(thread, e, i, PoolListener.EV_EXPIRE, PoolConstants.CR_REOPEN);
+                            }
+                        }
+                        release(e, i);
+                    }
+                }
+                e = e.next;
+            } while (e != null);
+
+            if (idle) {
+                listenForCommit(root);
+            }
+        }
+        return useful;
+    }
+
     public boolean lock(CharSequence name) {
 
-        Entry e = getEntry(name);
+        final Entry root = getEntry(name);
+        Entry e = root;
 
         long thread = Thread.currentThread().getId();
 
@@ -156,12 +216,12 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
                         // same thread, don't need to order reads
                         if (e.readers[i] != null) {
                             // this thread has busy reader, it should close first
-                            e.lockOwner = -1L;
+                            root.lockOwner = -1L;
                             return false;
                         }
                     } else {
                         LOG.info().$("could not lock, busy [table=`").utf8(name).$("`, at=").$(e.index).$(':').$(i).$(", owner=").$(e.allocations[i]).$(", thread=").$(thread).$(']').$();
-                        e.lockOwner = -1L;
+                        root.lockOwner = -1L;
                         return false;
                     }
                 }
@@ -178,6 +238,8 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
             notifyListener(thread, name, PoolListener.EV_LOCK_BUSY, -1, -1);
             return false;
         }
+        // threads waiting for reader of locked table should fail rather than time out
+        wakeUpWaiters(root);
         notifyListener(thread, name, PoolListener.EV_LOCK_SUCCESS, -1, -1);
         LOG.info().$("locked [table=`").utf8(name).$("`, thread=").$(thread).$(']').$();
         return true;
@@ -203,6 +265,97 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         LOG.info().$("unlocked [table=`").utf8(name).$("`]").$();
     }
 
+    /**
+     * Takes slot off the map of free slots of the segment. Slot is taken off even when it turns
+     * out to be allocated, e.g. via thread affinity, its owner puts it back on the map when slot is released.
+     *
+     * @return index of slot allocated to the thread or -1 when segment is full
+     */
+    private static int claimFreeSlot(Entry e, long thread) {
+        long slots;
+        while ((slots = e.freeSlots) != 0) {
+            final int index = Long.numberOfTrailingZeros(slots);
+            if (Unsafe.cas(e, FREE_SLOTS, slots, slots & ~(1L << index)) && Unsafe.cas(e.allocations, index, UNALLOCATED, thread)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private R acquire(Entry root, CharSequence name, long thread) {
+        // thread always starts with the same slot of segment, reader it finds there is likely to be the one it used last
+        final int affinity = (int) (thread % ENTRY_SIZE);
+        Entry e = root;
+        do {
+            int i = affinity;
+            if (Unsafe.cas(e.allocations, i, UNALLOCATED, thread) || (i = claimFreeSlot(e, thread)) > -1) {
+                // got lock, allocate if needed
+                R r = e.readers[i];
+                if (r == null) {
+
+                    try {
+                        LOG.info().$("open '").utf8(name).$("' [at=").$(e.index).$(':').$(i).$(']').$();
+                        r = new R(this, e, i, name);
+                    } catch (CairoException ex) {
+                        release(e, i);
+                        throw ex;
+                    }
+
+                    e.readers[i] = r;
+                    notifyListener(thread, name, PoolListener.EV_CREATE, e.index, i);
+                } else {
+                    r.reload();
+                    notifyListener(thread, name, PoolListener.EV_GET, e.index, i);
+                }
+
+                if (isClosed()) {
+                    e.readers[i] = null;
+                    r.goodby();
+                    LOG.info().$('\'').utf8(name).$("' born free").$();
+                    return r;
+                }
+
+                LOG.debug().$('\'').utf8(name).$("' is assigned [at=").$(e.index).$(':').$(i).$(", thread=").$(thread).$(']').$();
+                return r;
+            }
+
+            LOG.debug().$("Thread ").$(thread).$(" is moving to entry ").$(e.index + 1).$();
+
+            // all allocated, create next entry if possible
+            if (Unsafe.getUnsafe().compareAndSwapInt(e, NEXT_STATUS, NEXT_OPEN, NEXT_ALLOCATED)) {
+                LOG.debug().$("Thread ").$(thread).$(" allocated entry ").$(e.index + 1).$();
+                e.next = new Entry(root, e.index + 1, clock.getTicks());
+            }
+            e = e.next;
+        } while (e != null && e.index < maxSegments);
+        return null;
+    }
+
+    /**
+     * Waits for reader of the table to be returned to pool.
+     *
+     * @param releaseCount value of {@link Entry#releaseCount} taken before thread looked for free slot
+     * @param deadline     {@link System#nanoTime()} to wait until
+     * @return true when thread should try again, false when wait timed out
+     */
+    private boolean awaitRelease(Entry root, long releaseCount, long deadline) {
+        final ReentrantLock lock = root.waitLock;
+        lock.lock();
+        try {
+            root.waiterCount++;
+            long nanos;
+            while (root.releaseCount == releaseCount && root.lockOwner == UNLOCKED && !isClosed() && (nanos = deadline - System.nanoTime()) > 0) {
+                root.waitCondition.awaitNanos(nanos);
+            }
+        } catch (InterruptedException ignore) {
+            // thread finds out whether reader was returned below
+        } finally {
+            root.waiterCount--;
+            lock.unlock();
+        }
+        return root.releaseCount != releaseCount || root.lockOwner != UNLOCKED || isClosed();
+    }
+
     private void checkClosed() {
         if (isClosed()) {
             LOG.info().$("is closed").$();
@@ -248,7 +401,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
                                 removed = true;
                                 closeReader(thread, e, i, PoolListener.EV_EXPIRE, closeReason);
                             }
-                            Unsafe.arrayPutOrdered(e.allocations, i, UNALLOCATED);
+                            release(e, i);
                         } else {
                             casFailures++;
 
@@ -277,7 +430,7 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
 
         Entry e = entries.get(name);
         if (e == null) {
-            e = new Entry(0, clock.getTicks());
+            e = new Entry(this, name, clock.getTicks());
             Entry other = entries.putIfAbsent(name, e);
             if (other != null) {
                 e = other;
@@ -286,6 +439,15 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         return e;
     }
 
+    private void listenForCommit(Entry root) {
+        if (commitNotifier != null && root.refreshStatus == REFRESH_IDLE && Unsafe.cas(root, REFRESH_STATUS, REFRESH_IDLE, REFRESH_LISTENING)) {
+            if (!commitNotifier.listen(root.name, commitNotifier.getCommitCount(root.name), root.refreshListener)) {
+                // table was committed to in between
+                root.refreshListener.onCommit();
+            }
+        }
+    }
+
     private void notifyListener(long thread, CharSequence name, short event, int segment, int position) {
         PoolListener listener = getPoolListener();
         if (listener != null) {
@@ -293,6 +455,24 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
         }
     }
 
+    /**
+     * Puts slot back on the map of free slots and wakes up threads that wait for reader of the table.
+     * Slot has to be allocated to current thread.
+     */
+    private void release(Entry e, int index) {
+        Unsafe.arrayPutOrdered(e.allocations, index, UNALLOCATED);
+        long slots;
+        do {
+            slots = e.freeSlots;
+        } while (!Unsafe.cas(e, FREE_SLOTS, slots, slots | (1L << index)));
+
+        final Entry root = e.root;
+        Unsafe.getUnsafe().getAndAddLong(root, RELEASE_COUNT, 1);
+        if (root.waiterCount > 0) {
+            wakeUpWaiters(root);
+        }
+    }
+
     private boolean returnToPool(R reader) {
         CharSequence name = reader.getTableName();
 
@@ -310,7 +490,8 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
             notifyListener(thread, name, PoolListener.EV_RETURN, reader.entry.index, index);
 
             e.releaseTimes[index] = clock.getTicks();
-            Unsafe.arrayPutOrdered(e.allocations, index, UNALLOCATED);
+            release(e, index);
+            listenForCommit(e.root);
 
             // todo: there is a race condition between this method and
             //   releaseAll() when the latter shuts down the pool. I thought of adding a version counter
@@ -324,20 +505,68 @@ public class ReaderPool extends AbstractPool implements ResourcePool<TableReader
 
     }
 
+    private void scheduleRefresh(Entry root) {
+        // the next reader returned to pool registers for commit notification again
+        root.refreshStatus = REFRESH_IDLE;
+        pendingRefresh.add(root.name);
+    }
+
+    private void wakeUpWaiters(Entry root) {
+        root.waitLock.lock();
+        try {
+            root.waitCondition.signalAll();
+        } finally {
+            root.waitLock.unlock();
+        }
+    }
+
     public static class Entry {
         final long[] allocations = new long[ENTRY_SIZE];
         final long[] releaseTimes = new long[ENTRY_SIZE];
         final R[] readers = new R[ENTRY_SIZE];
         final int index;
+        // first segment of the table, it keeps state shared by all segments
+        final Entry root;
+        final String name;
+        final ReentrantLock waitLock;
+        final Condition waitCondition;
+        final TableCommitNotifier.Listener refreshListener;
         volatile long lockOwner = -1L;
         @SuppressWarnings("unused")
         long nextStatus = 0;
         volatile Entry next;
+        // bit per slot that might be unallocated
+        volatile long freeSlots = ALL_SLOTS_FREE;
+        // number of times slots of the table were released
+        volatile long releaseCount;
+        volatile int waiterCount;
+        @SuppressWarnings("unused")
+        volatile int refreshStatus = REFRESH_IDLE;
 
-        public Entry(int index, long currentMicros) {
+        Entry(ReaderPool pool, CharSequence name, long currentMicros) {
+            this(null, 0, currentMicros, Chars.toString(name), pool);
+        }
+
+        Entry(Entry root, int index, long currentMicros) {
+            this(root, index, currentMicros, root.name, null);
+        }
+
+        private Entry(Entry root, int index, long currentMicros, String name, ReaderPool pool) {
             this.index = index;
+            this.name = name;
             Arrays.fill(allocations, UNALLOCATED);
             Arrays.fill(releaseTimes, currentMicros);
+            if (root == null) {
+                this.root = this;
+                this.waitLock = new ReentrantLock();
+                this.waitCondition = waitLock.newCondition();
+                this.refreshListener = () -> pool.scheduleRefresh(this);
+            } else {
+                this.root = root;
+                this.waitLock = null;
+                this.waitCondition = null;
+                this.refreshListener = null;
+            }
         }
     }
 
@@ -66,6 +66,8 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
 
     private final static long ENTRY_OWNER = Unsafe.getFieldOffset(Entry.class, "owner");
     private final ConcurrentHashMap<Entry> entries = new ConcurrentHashMap<>();
+    // tables whose writers were returned to pool with partitions to compress
+    private final ConcurrentHashMap.KeySetView<Boolean> pendingCompression = ConcurrentHashMap.newKeySet();
     private final CairoConfiguration configuration;
     private final Path path = new Path();
     private final MicrosecondClock clock;
@@ -150,6 +152,39 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
         }
     }
 
+    /**
+     * Compresses partitions that idle writers have left behind, see {@link TableWriter#compressPartitions()}.
+     * Writers that are busy are skipped, they come back to this method once they are returned to pool.
+     *
+     * @return true when at least one partition has been compressed
+     */
+    public boolean compressIdleWriters() {
+        if (pendingCompression.isEmpty()) {
+            return false;
+        }
+
+        final long thread = Thread.currentThread().getId();
+        boolean useful = false;
+        for (CharSequence name : pendingCompression) {
+            pendingCompression.remove(name);
+            final Entry e = entries.get(name);
+            if (e == null || !Unsafe.cas(e, ENTRY_OWNER, UNALLOCATED, thread)) {
+                continue;
+            }
+
+            try {
+                if (e.writer != null) {
+                    useful |= e.writer.compressPartitions() > 0;
+                }
+            } catch (CairoException ex) {
+                LOG.error().$("could not compress partitions [table=`").utf8(name).$("`, msg=").$(ex.getFlyweightMessage()).$(']').$();
+            } finally {
+                Unsafe.getUnsafe().putOrderedLong(e, ENTRY_OWNER, UNALLOCATED);
+            }
+        }
+        return useful;
+    }
+
     /**
      * Locks writer. Locking operation is always non-blocking. Lock is usually successful
      * when writer is in pool or owned by calling thread, in which case
@@ -268,6 +303,9 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
                 writer.setLifecycleManager(e);
                 writer.transferLock(e.lockFd);
                 e.lockFd = -1;
+                if (writer.hasPartitionsToCompress()) {
+                    pendingCompression.add(name);
+                }
                 Unsafe.getUnsafe().putOrderedLong(e, ENTRY_OWNER, UNALLOCATED);
             }
             notifyListener(thread, name, PoolListener.EV_UNLOCKED);
@@ -409,6 +447,9 @@ public class WriterPool extends AbstractPool implements ResourcePool<TableWriter
                 return false;
             }
 
+            if (e.writer.hasPartitionsToCompress()) {
+                pendingCompression.add(name);
+            }
             e.owner = UNALLOCATED;
             e.lastReleaseTime = configuration.getMicrosecondClock().getTicks();
             notifyListener(thread, name, PoolListener.EV_RETURN);
@@ -26,6 +26,11 @@ package io.questdb.cairo.sql;
 
 public interface PageFrame {
 
+    /**
+     * @return row id of the first row of the frame, rows of the frame have consecutive row ids
+     */
+    long getFirstRowId();
+
     long getPageAddress(int columnIndex);
 
     long getPageValueCount(int columnIndex);
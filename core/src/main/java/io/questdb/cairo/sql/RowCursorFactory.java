@@ -27,17 +27,35 @@ package io.questdb.cairo.sql;
 import io.questdb.cairo.TableReader;
 import io.questdb.std.ObjList;
 
-public interface RowCursorFactory {
+import java.io.Closeable;
+
+public interface RowCursorFactory extends Closeable {
+    // how rows of data frame are read
+    int FRAME_ACCESS_UNKNOWN = 0;
+    int FRAME_ACCESS_SCAN = 1;
+    int FRAME_ACCESS_INDEX = 2;
+
     static void prepareCursor(ObjList<RowCursorFactory> factories, TableReader tableReader) {
         for (int i = 0, n = factories.size(); i < n; i++) {
             factories.getQuick(i).prepareCursor(tableReader);
         }
     }
 
+    @Override
+    default void close() {
+    }
+
     RowCursor getCursor(DataFrame dataFrame);
 
     default void prepareCursor(TableReader tableReader) {
     }
 
     boolean isEntity();
+
+    /**
+     * @return one of FRAME_ACCESS_* constants, table reader uses it to advise OS how to read ahead column files
+     */
+    default int getFrameAccess() {
+        return FRAME_ACCESS_UNKNOWN;
+    }
 }
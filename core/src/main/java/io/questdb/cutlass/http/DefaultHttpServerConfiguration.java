@@ -101,6 +101,11 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         public long getMaxQueryResponseRowLimit() {
             return Long.MAX_VALUE;
         }
+
+        @Override
+        public long getTailIdleTimeout() {
+            return 5 * 60 * 1000L;
+        }
     };
 
     public DefaultHttpServerConfiguration() {
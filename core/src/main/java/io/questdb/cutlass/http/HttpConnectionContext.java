@@ -192,7 +192,7 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable {
         return responseSink.getSimple();
     }
 
-    private void completeRequest(HttpRequestProcessor processor) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+    private void completeRequest(HttpRequestProcessor processor) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
         LOG.debug().$("complete [fd=").$(fd).$(']').$();
         processor.onRequestComplete(this);
         clear();
@@ -204,7 +204,7 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable {
             long headerEnd,
             int read,
             boolean newRequest
-    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
         boolean keepGoing = false;
         if (newRequest) {
             processor.onHeadersReady(this);
@@ -395,6 +395,14 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable {
                 resumeProcessor = processor;
                 dispatcher.registerChannel(this, IOOperation.WRITE);
                 keepGoing = false;
+            } catch (QueryPausedException e) {
+                LOG.debug().$("query paused [fd=").$(fd).$(']').$();
+                // processor may resume request from another thread as soon as
+                // it is notified, everything has to be in place before that
+                processor.parkRequest(this);
+                resumeProcessor = processor;
+                processor.onQueryPaused(this);
+                keepGoing = false;
             }
         } catch (HttpException e) {
             LOG.error().$("http error [fd=").$(fd).$(", e=`").$(e.getFlyweightMessage()).$("`]").$();
@@ -415,6 +423,10 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable {
             resumeProcessor.parkRequest(this);
             LOG.debug().$("peer is slow reader").$();
             dispatcher.registerChannel(this, IOOperation.WRITE);
+        } catch (QueryPausedException ignore) {
+            LOG.debug().$("query paused [fd=").$(fd).$(']').$();
+            resumeProcessor.parkRequest(this);
+            resumeProcessor.onQueryPaused(this);
         } catch (PeerDisconnectedException ignore) {
             dispatcher.disconnect(this);
         } catch (ServerDisconnectException ignore) {
@@ -439,4 +451,17 @@ public class HttpConnectionContext implements IOContext, Locality, Mutable {
     public SqlExecutionInterruptor getSqlExecutionInterruptor() {
         return execInterruptor;
     }
+
+    /**
+     * Checks that peer is still there while response waits for data. Peer is not expected to send
+     * anything before response is complete, we disconnect when it does.
+     */
+    public void checkPeerConnected() throws PeerDisconnectedException {
+        final int read = nf.recv(fd, recvBuffer, 1);
+        if (read != 0) {
+            dumpBuffer(recvBuffer, read);
+            LOG.info().$("disconnect while response is paused [fd=").$(fd).$(']').$();
+            throw PeerDisconnectedException.INSTANCE;
+        }
+    }
 }
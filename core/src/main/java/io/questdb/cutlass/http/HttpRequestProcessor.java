@@ -26,21 +26,32 @@ package io.questdb.cutlass.http;
 
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.QueryPausedException;
 import io.questdb.network.ServerDisconnectException;
 
 public interface HttpRequestProcessor {
     default void onHeadersReady(HttpConnectionContext context) {
     }
 
-    default void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+    default void onRequestComplete(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
     }
 
     default void resumeRecv(HttpConnectionContext context) {
     }
 
-    default void resumeSend(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
+    default void resumeSend(HttpConnectionContext context) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, QueryPausedException {
     }
 
     default void parkRequest(HttpConnectionContext context) {
     }
+
+    /**
+     * Called after request is parked on {@link QueryPausedException}. Processor must register
+     * connection for write with dispatcher once it has something to send, request is resumed
+     * via {@link #resumeSend(HttpConnectionContext)}.
+     *
+     * @param context parked connection
+     */
+    default void onQueryPaused(HttpConnectionContext context) {
+    }
 }
@@ -351,6 +351,8 @@ public class HttpResponseSink implements Closeable, Mutable {
                 sent += n;
             }
         }
+        // buffer is not to be sent again when paused request is resumed
+        flushBufSize = 0;
         totalBytesSent += sent;
     }
 
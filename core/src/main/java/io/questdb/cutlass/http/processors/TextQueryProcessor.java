@@ -29,6 +29,10 @@ import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.CairoError;
 import io.questdb.cairo.CairoException;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableCommitNotifier;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableReaderTailRecordCursor;
+import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.text.TextUtil;
@@ -40,12 +44,14 @@ import io.questdb.log.LogRecord;
 import io.questdb.network.NoSpaceLeftInResponseBufferException;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
+import io.questdb.network.QueryPausedException;
 import io.questdb.std.Chars;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.str.CharSink;
 import io.questdb.std.str.DirectByteCharSequence;
+import io.questdb.std.str.Path;
 import io.questdb.std.time.MillisecondClock;
 import org.jetbrains.annotations.Nullable;
 
@@ -64,6 +70,9 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     private final SqlExecutionContextImpl sqlExecutionContext;
     private final MillisecondClock clock;
     private final int doubleScale;
+    private final CairoEngine engine;
+    private final TableCommitNotifier commitNotifier;
+    private final Path path = new Path();
 
     public TextQueryProcessor(
             JsonQueryProcessorConfiguration configuration,
@@ -87,6 +96,10 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         this.clock = configuration.getClock();
         this.sqlExecutionContext = new SqlExecutionContextImpl(messageBus, workerCount, engine);
         this.doubleScale = configuration.getDoubleScale();
+        this.engine = engine;
+        // writers notify message bus of the engine, which is not necessarily the bus we are given
+        final MessageBus engineMessageBus = engine.getMessageBus();
+        this.commitNotifier = engineMessageBus != null ? engineMessageBus.getTableCommitNotifier() : null;
     }
 
     private static void putStringOrNull(CharSink r, CharSequence str) {
@@ -98,13 +111,18 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     @Override
     public void close() {
         Misc.free(compiler);
+        Misc.free(path);
     }
 
     public void execute(
             HttpConnectionContext context,
             TextQueryProcessorState state
-    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
         try {
+            if (state.tail) {
+                executeTail(context, state);
+                return;
+            }
             state.recordCursorFactory = QueryCache.getInstance().poll(state.query);
             state.setQueryCacheable(true);
             sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), context.getSqlExecutionInterruptor());
@@ -150,10 +168,19 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    @Override
+    public void onQueryPaused(HttpConnectionContext context) {
+        TextQueryProcessorState state = LV.get(context);
+        // resume straight away when table has been committed to since reader was reloaded
+        if (state != null && !state.commitNotifier.listen(state.tailTableName, state.commitCount, state.commitListener)) {
+            state.commitListener.onCommit();
+        }
+    }
+
     @Override
     public void onRequestComplete(
             HttpConnectionContext context
-    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
         TextQueryProcessorState state = LV.get(context);
         if (state == null) {
             LV.set(context, state = new TextQueryProcessorState(
@@ -176,7 +203,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     @Override
     public void resumeSend(
             HttpConnectionContext context
-    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
         TextQueryProcessorState state = LV.get(context);
         if (state == null || state.cursor == null) {
             return;
@@ -226,6 +253,24 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                                     if (state.count > state.skip) {
                                         break;
                                     }
+                                } else if (state.tail && state.count < state.stop) {
+                                    // rows read so far go out before we wait for the next commit
+                                    state.record = null;
+                                    socket.sendChunk();
+                                    state.commitCount = state.commitNotifier.getCommitCount(state.tailTableName);
+                                    if (!state.tailCursor.reload()) {
+                                        if (clock.getTicks() - state.tailReloadTimestamp >= configuration.getTailIdleTimeout()) {
+                                            // release reader, client may come back with new request
+                                            info(state).$("tail is idle [table=`").utf8(state.tailTableName).$("`]").$();
+                                            state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
+                                            break SWITCH;
+                                        }
+                                        // we also get here when notifier wakes us up without commit
+                                        context.checkPeerConnected();
+                                        throw QueryPausedException.INSTANCE;
+                                    }
+                                    state.tailReloadTimestamp = clock.getTicks();
+                                    state.record = state.cursor.getRecord();
                                 } else {
                                     state.queryState = JsonQueryProcessorState.QUERY_SUFFIX;
                                     break SWITCH;
@@ -291,6 +336,44 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private void executeTail(
+            HttpConnectionContext context,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, QueryPausedException {
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        if (commitNotifier == null) {
+            info(state).$("tail is not supported without message bus").$();
+            sendException(socket, 0, "tail is not supported", 400, state.query);
+            readyForNextRequest(context);
+            return;
+        }
+
+        if (engine.getStatus(context.getCairoSecurityContext(), path, state.query) != TableUtils.TABLE_EXISTS) {
+            info(state).$("tail of table that does not exist [table=`").utf8(state.query).$("`]").$();
+            sendException(socket, 0, "table does not exist", 400, state.query);
+            readyForNextRequest(context);
+            return;
+        }
+
+        info(state).$("execute-tail [table=`").utf8(state.query).$("`, skip: ").$(state.skip).$(", stop: ").$(state.stop).$(']').$();
+        final TableReader reader = engine.getReader(context.getCairoSecurityContext(), state.query);
+        if (state.tailCursor == null) {
+            state.tailCursor = new TableReaderTailRecordCursor();
+        }
+        state.tailCursor.of(reader);
+        if (reader.size() > 0) {
+            // only rows committed after request are sent
+            state.tailCursor.toBottom();
+        }
+        state.cursor = state.tailCursor;
+        state.metadata = reader.getMetadata();
+        state.commitNotifier = commitNotifier;
+        state.tailTableName = Chars.toString(state.query);
+        state.tailReloadTimestamp = clock.getTicks();
+        header(socket, 200);
+        resumeSend(context);
+    }
+
     private LogRecord error(TextQueryProcessorState state) {
         return LOG.error().$('[').$(state.getFd()).$("] ");
     }
@@ -376,6 +459,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         state.stop = stop;
         state.noMeta = Chars.equalsNc("true", request.getUrlParam("nm"));
         state.countRows = Chars.equalsNc("true", request.getUrlParam("count"));
+        state.tail = Chars.equalsNc("true", request.getUrlParam("tail"));
         return true;
     }
 
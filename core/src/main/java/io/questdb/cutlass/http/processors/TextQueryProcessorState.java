@@ -24,11 +24,14 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.TableCommitNotifier;
+import io.questdb.cairo.TableReaderTailRecordCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cutlass.http.HttpConnectionContext;
+import io.questdb.network.IOOperation;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
 import io.questdb.std.Rnd;
@@ -39,8 +42,11 @@ import java.io.Closeable;
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
     private final HttpConnectionContext httpConnectionContext;
+    // resumes parked tail request, called by thread that commits to the table
+    final TableCommitNotifier.Listener commitListener;
     boolean countRows = false;
     boolean noMeta = false;
+    boolean tail = false;
     RecordCursorFactory recordCursorFactory;
     RecordMetadata metadata;
     RecordCursor cursor;
@@ -51,6 +57,12 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     Rnd rnd;
     int queryState = JsonQueryProcessorState.QUERY_PREFIX;
     int columnIndex;
+    TableReaderTailRecordCursor tailCursor;
+    TableCommitNotifier commitNotifier;
+    String tailTableName;
+    long commitCount;
+    // last time tail found new transaction
+    long tailReloadTimestamp;
     private boolean queryCacheable = false;
 
     public TextQueryProcessorState(
@@ -58,6 +70,7 @@ public class TextQueryProcessorState implements Mutable, Closeable {
             int connectionCheckFrequency
     ) {
         this.httpConnectionContext = httpConnectionContext;
+        this.commitListener = () -> httpConnectionContext.getDispatcher().registerChannel(httpConnectionContext, IOOperation.WRITE);
     }
 
     void setQueryCacheable(boolean queryCacheable) {
@@ -66,6 +79,7 @@ public class TextQueryProcessorState implements Mutable, Closeable {
 
     @Override
     public void clear() {
+        stopTail();
         metadata = null;
         cursor = Misc.free(cursor);
         record = null;
@@ -82,6 +96,7 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         queryState = JsonQueryProcessorState.QUERY_PREFIX;
         columnIndex = 0;
         countRows = false;
+        tail = false;
     }
 
     public long getFd() {
@@ -90,7 +105,16 @@ public class TextQueryProcessorState implements Mutable, Closeable {
 
     @Override
     public void close() {
+        stopTail();
         cursor = Misc.free(cursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
     }
+
+    private void stopTail() {
+        if (tailTableName != null) {
+            commitNotifier.removeListener(tailTableName, commitListener);
+            tailTableName = null;
+            commitNotifier = null;
+        }
+    }
 }
@@ -510,6 +510,11 @@ public class CairoLineProtoParser implements LineProtoParser, Closeable {
             return false;
         }
 
+        @Override
+        public boolean isCompressed(int columnIndex) {
+            return false;
+        }
+
         @Override
         public int getPartitionBy() {
             return PartitionBy.NONE;
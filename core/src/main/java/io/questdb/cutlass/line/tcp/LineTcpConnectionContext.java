@@ -48,6 +48,9 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     private long recvBufEnd;
     private long recvBufPos;
     private boolean peerDisconnected;
+    private boolean blocked;
+    // writer thread which queue was full when measurement was committed last
+    private int blockedThreadId;
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
     private long lastQueueFullLogMillis = 0;
 
@@ -61,10 +64,17 @@ class LineTcpConnectionContext implements IOContext, Mutable {
 
     // returns true if busy
     boolean handleIO() {
+        if (!canResume()) {
+            // measurements in the buffer would be parsed only to be turned away again
+            return true;
+        }
+
         try {
-            // Read as much data as possible
+            // Read as much data as possible, unless writer queue could not take measurements
+            // already in the buffer. In that case socket is left unread so that client is
+            // pushed back by TCP flow control
             int len = (int) (recvBufEnd - recvBufPos);
-            while (len > 0 && !peerDisconnected) {
+            while (len > 0 && !peerDisconnected && !blocked) {
                 int nRead = nf.recv(fd, recvBufPos, len);
                 if (nRead < 0) {
                     if (recvBufPos != recvBufStart) {
@@ -86,33 +96,29 @@ class LineTcpConnectionContext implements IOContext, Mutable {
             // Process as much data as possible
             long recvBufLineStart = recvBufStart;
             boolean queueFull = false;
-            do {
+            while (recvBufLineStart != recvBufPos) {
                 LineTcpMeasurementEvent event = scheduler.getNewEvent();
-                if (null == event) {
-                    // Waiting for writer threads to drain queue, request callback as soon as possible
-                    if (checkQueueFullLogHysteresis()) {
-                        LOG.info().$('[').$(fd).$("] queue full, consider increasing queue size or number of writer jobs").$();
-                    }
-                    queueFull = true;
+                long recvBufLineNext = event.parseLine(recvBufLineStart, recvBufPos);
+                if (recvBufLineNext == -1) {
                     break;
                 }
-                boolean complete = false;
-                try {
-                    long recvBufLineNext = event.parseLine(recvBufLineStart, recvBufPos);
-                    if (recvBufLineNext == -1) {
+                if (event.isComplete()) {
+                    if (!scheduler.commitNewEvent(event)) {
+                        // Waiting for writer thread to drain its queue, line will be parsed again on the next callback
+                        if (checkQueueFullLogHysteresis()) {
+                            LOG.info().$('[').$(fd).$("] queue full, consider increasing queue size or number of writer jobs").$();
+                        }
+                        queueFull = true;
+                        blockedThreadId = event.getThreadId();
                         break;
                     }
-                    if (event.isComplete()) {
-                        complete = true;
-                    } else {
-                        LOG.error().$('[').$(fd).$("] failed to parse measurement, code ").$(event.getErrorCode()).$(" at ").$(event.getErrorPosition()).$(" in ")
-                                .$(byteCharSequence.of(recvBufLineStart, recvBufLineNext - 1)).$();
-                    }
-                    recvBufLineStart = recvBufLineNext;
-                } finally {
-                    scheduler.commitNewEvent(event, complete);
+                } else {
+                    LOG.error().$('[').$(fd).$("] failed to parse measurement, code ").$(event.getErrorCode()).$(" at ").$(event.getErrorPosition()).$(" in ")
+                            .$(byteCharSequence.of(recvBufLineStart, recvBufLineNext - 1)).$();
                 }
-            } while (recvBufLineStart != recvBufPos);
+                recvBufLineStart = recvBufLineNext;
+            }
+            blocked = queueFull;
 
             // Compact input buffer
             if (recvBufLineStart != recvBufStart) {
@@ -162,6 +168,7 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     public void clear() {
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        blocked = false;
     }
 
     @Override
@@ -186,6 +193,17 @@ class LineTcpConnectionContext implements IOContext, Mutable {
         return dispatcher;
     }
 
+    /**
+     * @return false while queue of writer thread that turned measurement away is still full
+     */
+    boolean canResume() {
+        return !blocked || scheduler.hasCapacity(blockedThreadId);
+    }
+
+    boolean isBlocked() {
+        return blocked;
+    }
+
     LineTcpConnectionContext of(long clientFd, IODispatcher<LineTcpConnectionContext> dispatcher) {
         this.fd = clientFd;
         this.dispatcher = dispatcher;
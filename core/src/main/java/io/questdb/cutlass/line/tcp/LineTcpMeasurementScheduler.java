@@ -39,14 +39,12 @@ import io.questdb.std.time.MillisecondClock;
 
 import java.io.Closeable;
 import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
 
 class LineTcpMeasurementScheduler implements Closeable {
     private static final Log LOG = LogFactory.getLog(LineTcpMeasurementScheduler.class);
-    private static final int REBALANCE_EVENT_ID = -1; // A rebalance event is used to rebalance load across different threads
-    private static final int INCOMPLETE_EVENT_ID = -2; // An incomplete event is used when the queue producer has grabbed an event but is
-                                                       // not able to populate it for some reason, the event needs to be committed to the
-                                                       // queue incomplete
     private static final IntHashSet ALLOWED_LONG_CONVERSIONS = new IntHashSet();
+    private static final long CLOSE_RELEASE_WAIT_MS = 5_000;
     static {
         ALLOWED_LONG_CONVERSIONS.add(ColumnType.SHORT);
         ALLOWED_LONG_CONVERSIONS.add(ColumnType.LONG256);
@@ -57,15 +55,17 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final CairoSecurityContext securityContext;
     private final CairoConfiguration cairoConfiguration;
     private final MillisecondClock milliClock;
-    private final RingQueue<LineTcpMeasurementEvent> queue;
+    // each writer thread consumes its own queue, slow commit on one thread does not hold up tables of other threads
+    private final ObjList<RingQueue<EventSlot>> queues = new ObjList<>();
+    private final ObjList<Sequence> pubSeqs = new ObjList<>();
     private final CharSequenceObjHashMap<TableUpdateDetails> tableUpdateDetailsByTableName;
     private final int[] loadByThread;
     private final int nUpdatesPerLoadRebalance;
     private final double maxLoadRatio;
     private final int maxUncommittedRows;
     private final long maintenanceJobHysteresisInMs;
-    private Sequence pubSeq;
-    private long nextEventCursor = -1;
+    // measurement is parsed into this event first, once table is known the event is swapped into the slot of writer queue
+    private LineTcpMeasurementEvent spareEvent;
     private int nLoadCheckCycles = 0;
     private int nRebalances = 0;
 
@@ -76,29 +76,26 @@ class LineTcpMeasurementScheduler implements Closeable {
         this.milliClock = cairoConfiguration.getMillisecondClock();
         tableUpdateDetailsByTableName = new CharSequenceObjHashMap<>();
         loadByThread = new int[writerWorkerPool.getWorkerCount()];
-        int maxMeasurementSize = lineConfiguration.getMaxMeasurementSize();
-        int queueSize = lineConfiguration.getWriterQueueSize();
-        queue = new RingQueue<>(() -> new LineTcpMeasurementEvent(maxMeasurementSize, lineConfiguration.getMicrosecondClock(), lineConfiguration.getTimestampAdapter()), queueSize);
-        pubSeq = new SPSequence(queueSize);
-
-        int nWriterThreads = writerWorkerPool.getWorkerCount();
-        if (nWriterThreads > 1) {
-            FanOut fanOut = new FanOut();
-            for (int n = 0; n < nWriterThreads; n++) {
-                SCSequence subSeq = new SCSequence();
-                fanOut.and(subSeq);
-                WriterJob writerJob = new WriterJob(n, subSeq);
-                writerWorkerPool.assign(n, writerJob);
-                writerWorkerPool.assign(n, writerJob::close);
-            }
-            pubSeq.then(fanOut).then(pubSeq);
-        } else {
-            SCSequence subSeq = new SCSequence();
+        final int maxMeasurementSize = lineConfiguration.getMaxMeasurementSize();
+        final int queueSize = lineConfiguration.getWriterQueueSize();
+        final ObjectFactory<LineTcpMeasurementEvent> eventFactory = () -> new LineTcpMeasurementEvent(
+                maxMeasurementSize,
+                lineConfiguration.getMicrosecondClock(),
+                lineConfiguration.getTimestampAdapter()
+        );
+
+        for (int n = 0, nWriterThreads = writerWorkerPool.getWorkerCount(); n < nWriterThreads; n++) {
+            final RingQueue<EventSlot> queue = new RingQueue<>(() -> new EventSlot(eventFactory.newInstance()), queueSize);
+            final SPSequence pubSeq = new SPSequence(queueSize);
+            final SCSequence subSeq = new SCSequence();
             pubSeq.then(subSeq).then(pubSeq);
-            WriterJob writerJob = new WriterJob(0, subSeq);
-            writerWorkerPool.assign(0, writerJob);
-            writerWorkerPool.assign(0, writerJob::close);
+            queues.add(queue);
+            pubSeqs.add(pubSeq);
+            WriterJob writerJob = new WriterJob(n, queue, subSeq);
+            writerWorkerPool.assign(n, writerJob);
+            writerWorkerPool.assign(n, writerJob::close);
         }
+        spareEvent = eventFactory.newInstance();
 
         nUpdatesPerLoadRebalance = lineConfiguration.getnUpdatesPerLoadRebalance();
         maxLoadRatio = lineConfiguration.getMaxLoadRatio();
@@ -106,80 +103,93 @@ class LineTcpMeasurementScheduler implements Closeable {
         maintenanceJobHysteresisInMs = lineConfiguration.getMaintenanceJobHysteresisInMs();
     }
 
+    /**
+     * Returns event to parse next measurement into. Event is owned by the scheduler until
+     * {@link #commitNewEvent(LineTcpMeasurementEvent)} succeeds.
+     */
     LineTcpMeasurementEvent getNewEvent() {
         assert isOpen();
-        if (nextEventCursor != -1 || (nextEventCursor = pubSeq.next()) > -1) {
-            return queue.get(nextEventCursor);
-        }
-
-        while (nextEventCursor == -2) {
-            nextEventCursor = pubSeq.next();
-        }
-
-        if (nextEventCursor < 0) {
-            nextEventCursor = -1;
-            return null;
-        }
-
-        return queue.get(nextEventCursor);
+        return spareEvent;
     }
 
-    void commitNewEvent(LineTcpMeasurementEvent event, boolean complete) {
+    /**
+     * Publishes complete measurement to the queue of the writer thread that owns the table.
+     *
+     * @param event event obtained from {@link #getNewEvent()}
+     * @return false when writer queue is full, caller has to stop reading and retry the same measurement
+     * once {@link #hasCapacity(int)} is true for thread of the event
+     */
+    boolean commitNewEvent(LineTcpMeasurementEvent event) {
         assert isOpen();
-        if (nextEventCursor == -1) {
-            throw new IllegalStateException("Cannot commit without prior call to getNewEvent()");
-        }
-
-        assert queue.get(nextEventCursor) == event;
+        assert event == spareEvent && event.isComplete();
 
         TableUpdateDetails tableUpdateDetails;
-        if (complete) {
-            int keyIndex = tableUpdateDetailsByTableName.keyIndex(event.getTableName());
-            if (keyIndex > -1) {
-                String tableName = Chars.toString(event.getTableName());
-                calcThreadLoad();
-                int leastLoad = Integer.MAX_VALUE;
-                int threadId = 0;
-                for (int n = 0; n < loadByThread.length; n++) {
-                    if (loadByThread[n] < leastLoad) {
-                        leastLoad = loadByThread[n];
-                        threadId = n;
-                    }
+        int keyIndex = tableUpdateDetailsByTableName.keyIndex(event.getTableName());
+        if (keyIndex > -1) {
+            String tableName = Chars.toString(event.getTableName());
+            calcThreadLoad();
+            int leastLoad = Integer.MAX_VALUE;
+            int threadId = 0;
+            for (int n = 0; n < loadByThread.length; n++) {
+                if (loadByThread[n] < leastLoad) {
+                    leastLoad = loadByThread[n];
+                    threadId = n;
                 }
-                tableUpdateDetails = new TableUpdateDetails(tableName, threadId);
-                tableUpdateDetailsByTableName.putAt(keyIndex, tableName, tableUpdateDetails);
-                LOG.info().$("assigned ").$(tableName).$(" to thread ").$(threadId).$();
-            } else {
-                tableUpdateDetails = tableUpdateDetailsByTableName.valueAt(keyIndex);
             }
+            tableUpdateDetails = new TableUpdateDetails(tableName, threadId);
+            tableUpdateDetailsByTableName.putAt(keyIndex, tableName, tableUpdateDetails);
+            LOG.info().$("assigned ").$(tableName).$(" to thread ").$(threadId).$();
+        } else {
+            tableUpdateDetails = tableUpdateDetailsByTableName.valueAt(keyIndex);
+        }
 
+        if (!publish(event, tableUpdateDetails.threadId, tableUpdateDetails)) {
             event.threadId = tableUpdateDetails.threadId;
-        } else {
-            tableUpdateDetails = null;
-            event.threadId = INCOMPLETE_EVENT_ID;
+            return false;
         }
-        pubSeq.done(nextEventCursor);
-        nextEventCursor = -1;
 
-        if (null != tableUpdateDetails && tableUpdateDetails.nUpdates++ > nUpdatesPerLoadRebalance) {
+        if (tableUpdateDetails.nUpdates++ > nUpdatesPerLoadRebalance) {
             loadRebalance();
         }
+        return true;
     }
 
-    void commitRebalanceEvent(LineTcpMeasurementEvent event, int fromThreadId, int toThreadId, String tableName) {
-        assert isOpen();
-        if (nextEventCursor == -1) {
-            throw new IllegalStateException("Cannot commit without prior call to getNewEvent()");
-        }
-
-        assert queue.get(nextEventCursor) == event;
-        event.createRebalanceEvent(fromThreadId, toThreadId, tableName);
-        pubSeq.done(nextEventCursor);
-        nextEventCursor = -1;
+    /**
+     * Checks queue of writer thread without claiming a slot, it is for caller that has been turned
+     * away by {@link #commitNewEvent(LineTcpMeasurementEvent)} to avoid parsing the same measurement
+     * while the queue is still full.
+     *
+     * @param threadId writer thread
+     * @return true when queue of the thread has room for at least one event
+     */
+    boolean hasCapacity(int threadId) {
+        // single producer sequence reserves nothing until cursor is done
+        return pubSeqs.getQuick(threadId).next() > -1;
     }
 
     private boolean isOpen() {
-        return null != pubSeq;
+        return null != spareEvent;
+    }
+
+    private boolean publish(LineTcpMeasurementEvent event, int threadId, TableUpdateDetails tableUpdateDetails) {
+        final Sequence pubSeq = pubSeqs.getQuick(threadId);
+        long cursor;
+        while ((cursor = pubSeq.next()) == -2) {
+            // single producer should not see contention, retry anyway
+        }
+
+        if (cursor < 0) {
+            return false;
+        }
+
+        // consumer is done with the event in this slot, it becomes our spare
+        final EventSlot slot = queues.getQuick(threadId).get(cursor);
+        spareEvent = slot.event;
+        slot.event = event;
+        event.threadId = threadId;
+        event.tableUpdateDetails = tableUpdateDetails;
+        pubSeq.done(cursor);
+        return true;
     }
 
     private void loadRebalance() {
@@ -253,13 +263,16 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
 
         if (null != tableNameToMove) {
+            // release of the writer is queued behind measurements already sent to the old thread,
+            // new thread will not write to the table until old thread gets to the release
+            TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNameToMove);
             LineTcpMeasurementEvent event = getNewEvent();
-            if (null == event) {
+            event.createRebalanceEvent(fromThreadId, toThreadId, tableNameToMove);
+            if (!publish(event, fromThreadId, stats)) {
+                // old thread is busy, try again on the next load check
                 return;
             }
             LOG.info().$("rebalance cycle ").$(++nRebalances).$(" moving ").$(tableNameToMove).$(" from ").$(fromThreadId).$(" to ").$(toThreadId).$();
-            commitRebalanceEvent(event, fromThreadId, toThreadId, tableNameToMove);
-            TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNameToMove);
             stats.threadId = toThreadId;
         }
     }
@@ -288,12 +301,25 @@ class LineTcpMeasurementScheduler implements Closeable {
     @Override
     public void close() {
         // Both the writer and the net worker pools must have been closed so that their respective cleaners have run
-        if (null != pubSeq) {
-            pubSeq = null;
+        if (null != spareEvent) {
+            spareEvent = Misc.free(spareEvent);
             tableUpdateDetailsByTableName.clear();
-            for (int n = 0; n < queue.getCapacity(); n++) {
-                queue.get(n).close();
+            for (int i = 0, n = queues.size(); i < n; i++) {
+                final RingQueue<EventSlot> queue = queues.getQuick(i);
+                for (int j = 0; j < queue.getCapacity(); j++) {
+                    queue.get(j).event.close();
+                }
             }
+            queues.clear();
+            pubSeqs.clear();
+        }
+    }
+
+    private static class EventSlot {
+        private LineTcpMeasurementEvent event;
+
+        private EventSlot(LineTcpMeasurementEvent event) {
+            this.event = event;
         }
     }
 
@@ -310,11 +336,13 @@ class LineTcpMeasurementScheduler implements Closeable {
         private int errorCode;
         private int threadId;
         private long timestamp;
+        private boolean rebalance;
+
+        private TableUpdateDetails tableUpdateDetails;
 
         private int rebalanceFromThreadId;
         private int rebalanceToThreadId;
         private String rebalanceTableName;
-        private boolean rebalanceReleasedByFromThread;
 
         private LineTcpMeasurementEvent(int maxMeasurementSize, MicrosecondClock clock, LineProtoTimestampAdapter timestampAdapter) {
             lexer = new TruncatedLineProtoLexer(maxMeasurementSize);
@@ -385,6 +413,7 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
 
         private void clear() {
+            rebalance = false;
             measurementNameAddress = 0;
             addresses.clear();
             firstFieldIndex = -1;
@@ -404,6 +433,10 @@ class LineTcpMeasurementScheduler implements Closeable {
             return errorCode;
         }
 
+        int getThreadId() {
+            return threadId;
+        }
+
         CharSequence getTableName() {
             return cache.get(measurementNameAddress);
         }
@@ -440,14 +473,14 @@ class LineTcpMeasurementScheduler implements Closeable {
 
         void createRebalanceEvent(int fromThreadId, int toThreadId, String tableName) {
             clear();
-            threadId = REBALANCE_EVENT_ID;
+            rebalance = true;
             rebalanceFromThreadId = fromThreadId;
             rebalanceToThreadId = toThreadId;
             rebalanceTableName = tableName;
         }
 
         boolean isRebalanceEvent() {
-            return threadId == REBALANCE_EVENT_ID;
+            return rebalance;
         }
 
         @Override
@@ -459,38 +492,51 @@ class LineTcpMeasurementScheduler implements Closeable {
 
     private static class TableUpdateDetails {
         private final String tableName;
-        private int threadId;
+        private int threadId; // Thread new measurements are sent to, only accessed by producer
         private int nUpdates; // Number of updates since the last load rebalance
+        private volatile int writerThreadId; // Thread that owns table writer, changes when old thread releases the writer
 
         private TableUpdateDetails(String tableName, int threadId) {
             super();
             this.tableName = tableName;
             this.threadId = threadId;
+            this.writerThreadId = threadId;
         }
     }
 
     private class WriterJob implements Job {
         private final int id;
+        private final RingQueue<EventSlot> queue;
         private final Sequence sequence;
         private final CharSequenceObjHashMap<Parser> parserCache = new CharSequenceObjHashMap<>();
         private final AppendMemory appendMemory = new AppendMemory();
         private final Path path = new Path();
         private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
+        private final WalApplier walApplier = new WalApplier(engine.getConfiguration());
         private final String jobName;
         private long lastMaintenanceJobMillis = 0;
+        // head of the queue is measurement of table that previous thread has not released yet
+        private boolean waitingForRelease;
 
-        private WriterJob(int id, Sequence sequence) {
+        private WriterJob(int id, RingQueue<EventSlot> queue, Sequence sequence) {
             super();
             this.id = id;
+            this.queue = queue;
             this.sequence = sequence;
             this.jobName = "tcp-line-writer-" + id;
         }
 
         private void close() {
-            // Finish all jobs in the queue before stopping
-            for (int n = 0; n < queue.getCapacity(); n++) {
-                if (!run(id)) {
-                    break;
+            // Finish all jobs in the queue before stopping. Previous owner of a moving table is stopping too,
+            // it releases the table once it gets to the release in its own queue
+            final long deadline = milliClock.getTicks() + CLOSE_RELEASE_WAIT_MS;
+            while (run(id) || waitingForRelease) {
+                if (waitingForRelease) {
+                    if (milliClock.getTicks() > deadline) {
+                        LOG.error().$("table was not released, dropping queued measurements [jobName=").$(jobName).$(']').$();
+                        break;
+                    }
+                    LockSupport.parkNanos(1);
                 }
             }
 
@@ -501,6 +547,7 @@ class LineTcpMeasurementScheduler implements Closeable {
             parserCache.clear();
             appendMemory.close();
             path.close();
+            walApplier.close();
         }
 
         @Override
@@ -513,6 +560,7 @@ class LineTcpMeasurementScheduler implements Closeable {
 
         private boolean drainQueue() {
             boolean busy = false;
+            waitingForRelease = false;
             while (true) {
                 long cursor;
                 while ((cursor = sequence.next()) < 0) {
@@ -520,20 +568,20 @@ class LineTcpMeasurementScheduler implements Closeable {
                         return busy;
                     }
                 }
-                busy = true;
-                LineTcpMeasurementEvent event = queue.get(cursor);
+                LineTcpMeasurementEvent event = queue.get(cursor).event;
+                assert event.threadId == id;
                 boolean eventProcessed;
-                if (event.threadId == id) {
-                    eventProcessed = processNextEvent(event);
+                if (event.isRebalanceEvent()) {
+                    eventProcessed = processRebalance(event);
                 } else {
-                    if (event.isRebalanceEvent()) {
-                        eventProcessed = processRebalance(event);
-                    } else {
-                        eventProcessed = true;
-                    }
+                    eventProcessed = processNextEvent(event);
                 }
                 if (eventProcessed) {
+                    busy = true;
                     sequence.done(cursor);
+                } else {
+                    // event is waiting for another thread, leave it at the head of our queue and retry later
+                    return busy;
                 }
             }
         }
@@ -555,6 +603,11 @@ class LineTcpMeasurementScheduler implements Closeable {
         private boolean processNextEvent(LineTcpMeasurementEvent event) {
             Parser parser = parserCache.get(event.getTableName());
             if (null == parser) {
+                if (event.tableUpdateDetails.writerThreadId != id) {
+                    // table is moving to this thread, previous thread still holds the writer
+                    waitingForRelease = true;
+                    return false;
+                }
                 parser = new Parser();
                 try {
                     parser.processFirstEvent(engine, securityContext, event);
@@ -572,17 +625,19 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
 
         private boolean processRebalance(LineTcpMeasurementEvent event) {
-            if (event.rebalanceToThreadId == id) {
-                return event.rebalanceReleasedByFromThread;
+            assert event.rebalanceFromThreadId == id;
+            final TableUpdateDetails tableUpdateDetails = event.tableUpdateDetails;
+            if (tableUpdateDetails.writerThreadId != id) {
+                // previous move of the same table has not completed yet
+                return false;
             }
 
-            if (event.rebalanceFromThreadId == id) {
-                Parser parser = parserCache.get(event.rebalanceTableName);
+            Parser parser = parserCache.get(event.rebalanceTableName);
+            if (null != parser) {
                 parserCache.remove(event.rebalanceTableName);
                 parser.close();
-                event.rebalanceReleasedByFromThread = true;
             }
-
+            tableUpdateDetails.writerThreadId = event.rebalanceToThreadId;
             return true;
         }
 
@@ -710,10 +765,18 @@ class LineTcpMeasurementScheduler implements Closeable {
             }
 
             void doMaintenance() {
-                if (nUncommitted == 0) {
-                    return;
+                if (nUncommitted > 0) {
+                    commit();
+                }
+                // this thread owns the writer, partition retention and write-ahead log apply jobs cannot get it
+                writer.removeExpiredPartitions();
+                if (engine.isWalPending(writer.getName())) {
+                    try {
+                        walApplier.apply(writer);
+                    } catch (CairoException ignore) {
+                        // logged by applier, segments are left to be applied later
+                    }
                 }
-                commit();
             }
 
             @Override
@@ -770,6 +833,11 @@ class LineTcpMeasurementScheduler implements Closeable {
                 return false;
             }
 
+            @Override
+            public boolean isCompressed(int columnIndex) {
+                return false;
+            }
+
             @Override
             public int getPartitionBy() {
                 return PartitionBy.NONE;
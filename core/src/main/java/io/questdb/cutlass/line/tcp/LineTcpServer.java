@@ -71,22 +71,20 @@ public class LineTcpServer implements Closeable {
         workerPool.assign(new SynchronizedJob() {
             @Override
             protected boolean runSerially() {
-                int n = busyContexts.size();
-                while (n > 0) {
-                    n--;
-                    if (!busyContexts.getQuick(n).handleIO()) {
-                        busyContexts.remove(n);
-                    } else {
-                        n++;
-                        break;
+                // Contexts waiting on a full writer queue do not hold up others, each writer thread
+                // has its own queue and new connections may well be writing to tables of idle threads
+                boolean useful = false;
+                for (int n = busyContexts.size() - 1; n > -1; n--) {
+                    final LineTcpConnectionContext context = busyContexts.getQuick(n);
+                    // context stays put until its writer queue has room, lines are not parsed again meanwhile
+                    if (context.canResume()) {
+                        useful = true;
+                        if (!context.handleIO()) {
+                            busyContexts.remove(n);
+                        }
                     }
                 }
-
-                if (n == 0) {
-                    return dispatcher.processIOQueue(processor);
-                }
-
-                return true;
+                return dispatcher.processIOQueue(processor) || useful;
             }
         });
 
@@ -41,6 +41,7 @@ import io.questdb.std.microtime.TimestampFormatUtils;
 import io.questdb.std.microtime.TimestampLocale;
 import io.questdb.std.str.*;
 import io.questdb.std.time.DateLocale;
+import io.questdb.std.time.Dates;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -71,6 +72,11 @@ public class PGConnectionContext implements IOContext, Mutable {
     public static final String TAG_OK = "OK";
     public static final String TAG_COPY = "COPY";
     public static final String TAG_INSERT = "INSERT";
+    private static final short FORMAT_TEXT = 0;
+    private static final short FORMAT_BINARY = 1;
+    // postgres binary timestamps count microseconds from 2000-01-01T00:00:00Z
+    private static final long PG_EPOCH_MICROS = 946684800000000L;
+    private static final long PG_EPOCH_MILLIS = PG_EPOCH_MICROS / 1000;
     private final long recvBuffer;
     private final long sendBuffer;
     private final int recvBufferSize;
@@ -90,6 +96,7 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final PGAuthenticator authenticator;
     private final SqlExecutionContextImpl sqlExecutionContext;
     private final Path path = new Path();
+    private final StringSink statementKey = new StringSink();
     private final BindVariableSetter doubleSetter = this::setDoubleBindVariable;
     private final BindVariableSetter doubleTxtSetter = this::setDoubleTextBindVariable;
     private final BindVariableSetter intSetter = this::setIntBindVariable;
@@ -101,11 +108,19 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final BindVariableSetter byteSetter = this::setByteBindVariable;
     private final BindVariableSetter byteTxtSetter = this::setByteTextBindVariable;
     private final BindVariableSetter booleanSetter = this::setBooleanBindVariable;
+    private final BindVariableSetter booleanTxtSetter = this::setBooleanTextBindVariable;
     private final BindVariableSetter strSetter = this::setStrBindVariable;
     private final BindVariableSetter noopSetter = this::setNoopBindVariable;
     private final ObjList<ColumnAppender> columnAppenders = new ObjList<>();
+    private final ObjList<ColumnAppender> binaryColumnAppenders = new ObjList<>();
+    // appenders of current cursor columns, they follow result format codes requested by 'Bind'
+    private final ObjList<ColumnAppender> activeColumnAppenders = new ObjList<>();
+    private final IntList resultFormatCodes = new IntList();
     private final DateLocale dateLocale;
     private final BindVariableSetter dateSetter = this::setDateBindVariable;
+    private final BindVariableSetter pgDateSetter = this::setPgDateBindVariable;
+    private final BindVariableSetter timestampSetter = this::setTimestampBindVariable;
+    private final BindVariableSetter timestampTxtSetter = this::setTimestampTextBindVariable;
     private final TimestampLocale timestampLocale;
     private int sendCurrentCursorTail = TAIL_NONE;
     private long sendBufferPtr;
@@ -117,6 +132,8 @@ public class PGConnectionContext implements IOContext, Mutable {
     private RecordCursor currentCursor = null;
     private RecordCursorFactory currentFactory = null;
     private InsertStatement currentInsertStatement = null;
+    // cache current statement has been checked out from, statement is returned there once query completes
+    private ConcurrentAssociativeCache<Object> statementCache = null;
     private long fd;
     private CharSequence queryText;
     private CharSequence queryTag;
@@ -200,6 +217,11 @@ public class PGConnectionContext implements IOContext, Mutable {
         Unsafe.getUnsafe().putByte(address + 3, (byte) (value));
     }
 
+    public static void putLong(long address, long value) {
+        putInt(address, (int) (value >>> 32));
+        putInt(address + Integer.BYTES, (int) value);
+    }
+
     public static void putShort(long address, short value) {
         Unsafe.getUnsafe().putByte(address, (byte) (value >>> 8));
         Unsafe.getUnsafe().putByte(address + 1, (byte) (value));
@@ -248,7 +270,7 @@ public class PGConnectionContext implements IOContext, Mutable {
 
     public void handleClientOperation(
             @Transient SqlCompiler compiler,
-            @Transient AssociativeCache<Object> factoryCache,
+            @Transient ConcurrentAssociativeCache<Object> factoryCache,
             @Transient ObjList<BindVariableSetter> binsVariableSetters
     ) throws PeerDisconnectedException,
             PeerIsSlowToReadException,
@@ -341,8 +363,13 @@ public class PGConnectionContext implements IOContext, Mutable {
         return this;
     }
 
+    public void setBooleanBindVariable(int index, long address, int valueLen) throws BadProtocolException {
+        ensureValueLength(Byte.BYTES, valueLen);
+        bindVariableService.setBoolean(index, Unsafe.getUnsafe().getByte(address) != 0);
+    }
+
     @SuppressWarnings("unused")
-    public void setBooleanBindVariable(int index, long address, int valueLen) throws SqlException {
+    public void setBooleanTextBindVariable(int index, long address, int valueLen) throws SqlException {
         if (valueLen != 4 && valueLen != 5) {
             throw SqlException.$(0, "bad value for BOOLEAN parameter [index=").put(index).put(", valueLen=").put(valueLen).put(']');
         }
@@ -435,6 +462,12 @@ public class PGConnectionContext implements IOContext, Mutable {
     public void setNoopBindVariable(int index, long address, int valueLen) {
     }
 
+    public void setPgDateBindVariable(int index, long address, int valueLen) throws BadProtocolException {
+        // binary date is number of days since postgres epoch
+        ensureValueLength(Integer.BYTES, valueLen);
+        bindVariableService.setDate(index, getInt(address) * Dates.DAY_MILLIS + PG_EPOCH_MILLIS);
+    }
+
     public void setStrBindVariable(int index, long address, int valueLen) throws BadProtocolException {
         CharacterStoreEntry e = queryCharacterStore.newEntry();
         if (Chars.utf8Decode(address, address + valueLen, e)) {
@@ -445,6 +478,29 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    public void setTimestampBindVariable(int index, long address, int valueLen) throws BadProtocolException {
+        // binary timestamp is number of microseconds since postgres epoch
+        ensureValueLength(Long.BYTES, valueLen);
+        bindVariableService.setTimestamp(index, getLong(address) + PG_EPOCH_MICROS);
+    }
+
+    public void setTimestampTextBindVariable(int index, long address, int valueLen) throws SqlException {
+        dbcs.of(address, address + valueLen);
+        try {
+            bindVariableService.setTimestamp(index, TimestampFormatUtils.PG_TIMESTAMP_FORMAT.parse(dbcs, timestampLocale));
+        } catch (NumericException e) {
+            try {
+                bindVariableService.setTimestamp(index, PG_DATE_TIME_Z_FORMAT.parse(dbcs, dateLocale) * 1000);
+            } catch (NumericException ex) {
+                try {
+                    bindVariableService.setTimestamp(index, PG_DATE_Z_FORMAT.parse(dbcs, dateLocale) * 1000);
+                } catch (NumericException exc) {
+                    throw SqlException.$(0, "bad parameter value [index=").put(index).put(", value=").put(dbcs).put(']');
+                }
+            }
+        }
+    }
+
     private static void ensureValueLength(int required, int valueLen) throws BadProtocolException {
         if (required != valueLen) {
             LOG.error().$("bad parameter value length [required=").$(required).$(", actual=").$(valueLen).$(']').$();
@@ -497,12 +553,22 @@ public class PGConnectionContext implements IOContext, Mutable {
         responseAsciiSink.put(record.getBool(columnIndex) ? 't' : 'f');
     }
 
+    private void appendBooleanColumnBin(Record record, int columnIndex) {
+        responseAsciiSink.putNetworkInt(Byte.BYTES);
+        responseAsciiSink.put(record.getBool(columnIndex) ? (byte) 1 : (byte) 0);
+    }
+
     private void appendByteColumn(Record record, int columnIndex) {
         long a = responseAsciiSink.skip();
         responseAsciiSink.put((int) record.getByte(columnIndex));
         responseAsciiSink.putLenEx(a);
     }
 
+    private void appendByteColumnBin(Record record, int columnIndex) {
+        responseAsciiSink.putNetworkInt(Short.BYTES);
+        responseAsciiSink.putNetworkShort(record.getByte(columnIndex));
+    }
+
     private void appendDateColumn(Record record, int columnIndex) {
         final long longValue = record.getDate(columnIndex);
         if (longValue == Numbers.LONG_NaN) {
@@ -514,6 +580,16 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void appendDateColumnBin(Record record, int columnIndex) {
+        final long longValue = record.getDate(columnIndex);
+        if (longValue == Numbers.LONG_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Long.BYTES);
+            responseAsciiSink.putNetworkLong(longValue * 1000 - PG_EPOCH_MICROS);
+        }
+    }
+
     private void appendDoubleColumn(Record record, int columnIndex) {
         final double doubleValue = record.getDouble(columnIndex);
         if (Double.isNaN(doubleValue)) {
@@ -525,6 +601,16 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void appendDoubleColumnBin(Record record, int columnIndex) {
+        final double doubleValue = record.getDouble(columnIndex);
+        if (Double.isNaN(doubleValue)) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Double.BYTES);
+            responseAsciiSink.putNetworkLong(Double.doubleToRawLongBits(doubleValue));
+        }
+    }
+
     private void appendFloatColumn(Record record, int columnIndex) {
         final float floatValue = record.getFloat(columnIndex);
         if (Float.isNaN(floatValue)) {
@@ -536,6 +622,16 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void appendFloatColumnBin(Record record, int columnIndex) {
+        final float floatValue = record.getFloat(columnIndex);
+        if (Float.isNaN(floatValue)) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Float.BYTES);
+            responseAsciiSink.putNetworkInt(Float.floatToRawIntBits(floatValue));
+        }
+    }
+
     private void appendIntCol(Record record, int i) {
         final int intValue = record.getInt(i);
         if (intValue == Numbers.INT_NaN) {
@@ -547,6 +643,16 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void appendIntColumnBin(Record record, int columnIndex) {
+        final int intValue = record.getInt(columnIndex);
+        if (intValue == Numbers.INT_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Integer.BYTES);
+            responseAsciiSink.putNetworkInt(intValue);
+        }
+    }
+
     private void appendLongColumn(Record record, int columnIndex) {
         final long longValue = record.getLong(columnIndex);
         if (longValue == Numbers.LONG_NaN) {
@@ -558,6 +664,16 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void appendLongColumnBin(Record record, int columnIndex) {
+        final long longValue = record.getLong(columnIndex);
+        if (longValue == Numbers.LONG_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Long.BYTES);
+            responseAsciiSink.putNetworkLong(longValue);
+        }
+    }
+
     private void appendRecord(
             Record record,
             RecordMetadata metadata,
@@ -567,7 +683,7 @@ public class PGConnectionContext implements IOContext, Mutable {
         final long offset = responseAsciiSink.skip();
         responseAsciiSink.putNetworkShort((short) columnCount);
         for (int i = 0; i < columnCount; i++) {
-            columnAppenders.getQuick(metadata.getColumnType(i)).append(record, i);
+            activeColumnAppenders.getQuick(i).append(record, i);
         }
         responseAsciiSink.putLen(offset);
     }
@@ -578,6 +694,11 @@ public class PGConnectionContext implements IOContext, Mutable {
         responseAsciiSink.putLenEx(a);
     }
 
+    private void appendShortColumnBin(Record record, int columnIndex) {
+        responseAsciiSink.putNetworkInt(Short.BYTES);
+        responseAsciiSink.putNetworkShort(record.getShort(columnIndex));
+    }
+
     private void appendStrColumn(Record record, int columnIndex) {
         final CharSequence strValue = record.getStr(columnIndex);
         if (strValue == null) {
@@ -612,36 +733,61 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
-    private void bindVariables(
+    private void appendTimestampColumnBin(Record record, int columnIndex) {
+        final long longValue = record.getTimestamp(columnIndex);
+        if (longValue == Numbers.LONG_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Long.BYTES);
+            responseAsciiSink.putNetworkLong(longValue - PG_EPOCH_MICROS);
+        }
+    }
+
+    private void bindResultFormatCodes(long lo, long msgLimit) throws BadProtocolException {
+        checkNotTrue(lo + Short.BYTES > msgLimit, "could not read result format code count");
+        final short codeCount = getShort(lo);
+        lo += Short.BYTES;
+        if (codeCount < 0 || lo + codeCount * Short.BYTES > msgLimit) {
+            LOG.error().$("invalid result format code count [value=").$(codeCount).$(']').$();
+            throw BadProtocolException.INSTANCE;
+        }
+
+        resultFormatCodes.clear();
+        for (int i = 0; i < codeCount; i++) {
+            final short code = getShort(lo + i * Short.BYTES);
+            if (code != FORMAT_TEXT && code != FORMAT_BINARY) {
+                LOG.error().$("unsupported result format code [index=").$(i).$(", code=").$(code).$(']').$();
+                throw BadProtocolException.INSTANCE;
+            }
+            resultFormatCodes.add(code);
+        }
+    }
+
+    private long bindVariables(
             long lo,
             long msgLimit,
-            short parameterCount,
+            short formatCodeCount,
             @Transient ObjList<BindVariableSetter> bindVariableSetters
     ) throws BadProtocolException, SqlException {
         // do we have enough data for all codes?
-        if (lo + Short.BYTES * parameterCount > msgLimit) {
-            LOG.error().$("invalid format code count [value=").$(parameterCount).$(']').$();
+        if (lo + Short.BYTES * formatCodeCount > msgLimit) {
+            LOG.error().$("invalid format code count [value=").$(formatCodeCount).$(']').$();
             throw BadProtocolException.INSTANCE;
         }
 
-        for (int j = 0; j < parameterCount; j++) {
+        final long formatCodesLo = lo;
+        for (int j = 0; j < formatCodeCount; j++) {
             final short code = getShort(lo + j * Short.BYTES);
-            if (code == 1) {
-                continue;
-            }
-
-            if (code == 0) {
-                bindVariableSetters.setQuick(j * 2, bindVariableSetters.getQuick(j * 2 + 1));
-            } else {
+            if (code != FORMAT_TEXT && code != FORMAT_BINARY) {
                 LOG.error().$("unsupported code [index=").$(j).$(", code=").$(code).$(']').$();
                 throw BadProtocolException.INSTANCE;
             }
         }
 
-        lo += parameterCount * Short.BYTES;
+        lo += formatCodeCount * Short.BYTES;
 
         checkNotTrue(lo + Short.BYTES > msgLimit, "could not read parameter value count");
-        parameterCount = getShort(lo);
+        final short parameterCount = getShort(lo);
 
         if (parameterCount != bindVariableService.getIndexedVariableCount()) {
             LOG.error()
@@ -675,9 +821,12 @@ public class PGConnectionContext implements IOContext, Mutable {
                 throw BadProtocolException.INSTANCE;
             }
             ensureData(lo, valueLen, msgLimit, j);
-            bindVariableSetters.getQuick(j * 2).set(j, lo, valueLen);
+            // setters come in pairs, binary setter is followed by text one
+            final short code = formatCodeCount == 0 ? FORMAT_TEXT : getShort(formatCodesLo + (formatCodeCount == 1 ? 0 : j * Short.BYTES));
+            bindVariableSetters.getQuick(j * 2 + (code == FORMAT_BINARY ? 0 : 1)).set(j, lo, valueLen);
             lo += valueLen;
         }
+        return lo;
     }
 
     private void checkNotTrue(boolean check, String message) throws BadProtocolException {
@@ -747,6 +896,18 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private InsertMethod createInsertMethod(@Transient SqlCompiler compiler) throws SqlException {
+        try {
+            return currentInsertStatement.createMethod(sqlExecutionContext);
+        } catch (WriterOutOfDateException e) {
+            // table structure changed after statement had been compiled, stale statement is not returned to cache
+            LOG.info().$("recompiling stale insert [q=").utf8(queryText).$(']').$();
+            currentInsertStatement = Misc.free(currentInsertStatement);
+            currentInsertStatement = compiler.compile(queryText, sqlExecutionContext).getInsertStatement();
+            return currentInsertStatement.createMethod(sqlExecutionContext);
+        }
+    }
+
     private void dumpBuffer(char direction, long buffer, int len) {
         if (dumpNetworkTraffic && len > 0) {
             StdoutSink.INSTANCE.put(direction);
@@ -754,8 +915,8 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
-    private void executeInsert() throws PeerDisconnectedException, PeerIsSlowToReadException {
-        try (final InsertMethod m = currentInsertStatement.createMethod(sqlExecutionContext)) {
+    private void executeInsert(@Transient SqlCompiler compiler) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        try (final InsertMethod m = createInsertMethod(compiler)) {
             m.execute();
             m.commit();
             sendExecuteTail(TAIL_SUCCESS);
@@ -770,19 +931,54 @@ public class PGConnectionContext implements IOContext, Mutable {
             responseAsciiSink.putLen(addr);
             sendExecuteTail(TAIL_ERROR);
         } finally {
-            currentInsertStatement = null;
+            releaseStatement();
         }
     }
 
     private void executeSelect(
-            @NotNull RecordCursorFactory factory
-    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+            @NotNull RecordCursorFactory factory,
+            @Transient SqlCompiler compiler
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         this.currentFactory = factory;
-        currentCursor = factory.getCursor(sqlExecutionContext);
+        currentCursor = getCursor(compiler);
         prepareRowDescription();
         sendCursor();
     }
 
+    private short getColumnFormat(int columnIndex, int columnType) {
+        // this is special behaviour for binary fields to prevent binary data being hex encoded on the wire
+        if (columnType == ColumnType.BINARY) {
+            return FORMAT_BINARY;
+        }
+
+        final int n = resultFormatCodes.size();
+        final int code;
+        if (n == 0) {
+            code = FORMAT_TEXT;
+        } else if (n == 1) {
+            code = resultFormatCodes.getQuick(0);
+        } else {
+            code = columnIndex < n ? resultFormatCodes.getQuick(columnIndex) : FORMAT_TEXT;
+        }
+        // types without binary encoder are sent as text, client learns this from row description
+        return code == FORMAT_BINARY && binaryColumnAppenders.getQuiet(columnType) != null ? FORMAT_BINARY : FORMAT_TEXT;
+    }
+
+    private RecordCursor getCursor(@Transient SqlCompiler compiler) throws SqlException {
+        RecordCursor cursor;
+        try {
+            cursor = currentFactory.getCursor(sqlExecutionContext);
+        } catch (ReaderOutOfDateException e) {
+            // table structure changed after factory had been compiled, stale factory is not returned to cache
+            LOG.info().$("recompiling stale factory [q=").utf8(queryText).$(']').$();
+            currentFactory = Misc.free(currentFactory);
+            currentFactory = compiler.compile(queryText, sqlExecutionContext).getRecordCursorFactory();
+            cursor = currentFactory.getCursor(sqlExecutionContext);
+        }
+        setupColumnAppenders(currentFactory.getMetadata());
+        return cursor;
+    }
+
     /**
      * returns address of where parsing stopped. If there are remaining bytes left
      * int the buffer they need to be passed again in parse function along with
@@ -792,7 +988,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             long address,
             int len,
             @Transient SqlCompiler compiler,
-            @Transient AssociativeCache<Object> factoryCache,
+            @Transient ConcurrentAssociativeCache<Object> factoryCache,
             @Transient ObjList<BindVariableSetter> bindVariableSetters
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, BadProtocolException, SqlException {
         final long limit = address + len;
@@ -864,12 +1060,12 @@ public class PGConnectionContext implements IOContext, Mutable {
                 processBind(bindVariableSetters, msgLimit, lo);
                 break;
             case 'E': // execute
-                processExecute();
+                processExecute(compiler);
                 break;
             case 'S': // sync?
                 break;
             case 'D': // describe?
-                processDescribe();
+                processDescribe(lo, msgLimit, compiler);
                 break;
             case 'Q':
                 processQuery(lo, limit, compiler, factoryCache);
@@ -910,6 +1106,20 @@ public class PGConnectionContext implements IOContext, Mutable {
         columnAppenders.extendAndSet(ColumnType.BOOLEAN, this::appendBooleanColumn);
         columnAppenders.extendAndSet(ColumnType.BYTE, this::appendByteColumn);
         columnAppenders.extendAndSet(ColumnType.BINARY, this::appendBinColumn);
+
+        binaryColumnAppenders.extendAndSet(ColumnType.INT, this::appendIntColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.LONG, this::appendLongColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.SHORT, this::appendShortColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.DOUBLE, this::appendDoubleColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.FLOAT, this::appendFloatColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.TIMESTAMP, this::appendTimestampColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.DATE, this::appendDateColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.BOOLEAN, this::appendBooleanColumnBin);
+        binaryColumnAppenders.extendAndSet(ColumnType.BYTE, this::appendByteColumnBin);
+        // binary representation of text is the same UTF8 and bytea is always sent in binary
+        binaryColumnAppenders.extendAndSet(ColumnType.STRING, this::appendStrColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.SYMBOL, this::appendSymbolColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.BINARY, this::appendBinColumn);
     }
 
     void prepareCommandComplete() {
@@ -937,8 +1147,8 @@ public class PGConnectionContext implements IOContext, Mutable {
         queryCharacterStore.clear();
         bindVariableService.clear();
         currentCursor = Misc.free(currentCursor);
-        currentFactory = null;
-        currentInsertStatement = null;
+        resultFormatCodes.clear();
+        releaseStatement();
     }
 
     private void prepareLoginOk(ResponseAsciiSink sink) {
@@ -974,8 +1184,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             sink.putNetworkInt(typeOids.get(columnType)); // type
             sink.putNetworkShort((short) 0); // type size?
             sink.putNetworkInt(0); // type mod?
-            // this is special behaviour for binary fields to prevent binary data being hex encoded on the wire
-            sink.putNetworkShort((short) (columnType == ColumnType.BINARY ? 1 : 0)); // format code
+            sink.putNetworkShort(getColumnFormat(i, columnType)); // format code
         }
         sink.putLen(addr);
     }
@@ -994,17 +1203,17 @@ public class PGConnectionContext implements IOContext, Mutable {
         checkNotTrue(lo + Short.BYTES > msgLimit, "could not read parameter format code count");
 
         parameterCount = getShort(lo);
-        if (parameterCount != bindVariableService.getIndexedVariableCount()) {
+        // zero codes mean all parameters are text, single code applies to all parameters
+        if (parameterCount != bindVariableService.getIndexedVariableCount() && parameterCount != 0 && parameterCount != 1) {
             LOG.error()
                     .$("parameter count from parse message does not match format code count [fmtCodeCount=").$(parameterCount)
                     .$(", typeCount=").$(bindVariableService.getIndexedVariableCount())
                     .$(']').$();
             throw BadProtocolException.INSTANCE;
         }
-        if (parameterCount > 0) {
-            lo += Short.BYTES;
-            bindVariables(lo, msgLimit, parameterCount, bindVariableSetters);
-        }
+        lo += Short.BYTES;
+        lo = bindVariables(lo, msgLimit, parameterCount, bindVariableSetters);
+        bindResultFormatCodes(lo, msgLimit);
     }
 
     private void processClose() throws PeerDisconnectedException, PeerIsSlowToReadException {
@@ -1014,23 +1223,36 @@ public class PGConnectionContext implements IOContext, Mutable {
         send();
     }
 
-    private void processDescribe() throws PeerDisconnectedException, PeerIsSlowToReadException {
+    private void processDescribe(
+            long lo,
+            long msgLimit,
+            @Transient SqlCompiler compiler
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException, BadProtocolException {
         if (currentFactory != null) {
+            checkNotTrue(lo >= msgLimit, "could not read describe target");
+            // portal is described after bind variables are set, cursor opened here is the one 'Execute' will send,
+            // this way row description comes from the factory that is actually executed, even if
+            // cached factory was stale and had to be recompiled
+            if (Unsafe.getUnsafe().getByte(lo) == 'P' && currentCursor == null) {
+                currentCursor = getCursor(compiler);
+            }
             prepareRowDescription();
             send();
             LOG.info().$("described").$();
         }
     }
 
-    private void processExecute() throws PeerDisconnectedException, PeerIsSlowToReadException {
+    private void processExecute(@Transient SqlCompiler compiler) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         if (currentFactory != null) {
             LOG.info().$("executing query").$();
-            currentCursor = currentFactory.getCursor(sqlExecutionContext);
+            if (currentCursor == null) {
+                currentCursor = getCursor(compiler);
+            }
             // cache random if it was replaced
             this.rnd = sqlExecutionContext.getRandom();
             sendCursor();
         } else if (currentInsertStatement != null) {
-            executeInsert();
+            executeInsert(compiler);
         }
     }
 
@@ -1131,7 +1353,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             long lo,
             long msgLimit,
             @Transient SqlCompiler compiler,
-            @Transient AssociativeCache<Object> factoryCache,
+            @Transient ConcurrentAssociativeCache<Object> factoryCache,
             @Transient ObjList<BindVariableSetter> bindVariableSetters
     ) throws BadProtocolException, SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
         // 'Parse'
@@ -1148,6 +1370,8 @@ public class PGConnectionContext implements IOContext, Mutable {
 
         prepareForNewQuery();
         parseQueryText(lo, hi);
+        statementKey.clear();
+        statementKey.put(queryText);
 
         lo = hi + 1;
 
@@ -1178,12 +1402,11 @@ public class PGConnectionContext implements IOContext, Mutable {
             throw BadProtocolException.INSTANCE;
         }
 
-        // at this point we may have a current query that is not null
-        // this is ok to lose reference to this query because we have cache
-        // of all of them, which is looked up by query text
+        // statement that was current before this message has been returned to the cache
+        // by prepareForNewQuery(), the new one is checked out by query text and parameter types
 
         responseAsciiSink.reset();
-        final Object statement = factoryCache.peek(queryText);
+        final Object statement = factoryCache.poll(statementKey);
         if (statement == null) {
             final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext);
             sqlExecutionContext.storeTelemetry(cc.getType(), TelemetryOrigin.PG_WIRE);
@@ -1192,12 +1415,12 @@ public class PGConnectionContext implements IOContext, Mutable {
                 case CompiledQuery.SELECT:
                     currentFactory = cc.getRecordCursorFactory();
                     queryTag = TAG_SELECT;
-                    factoryCache.put(queryText, currentFactory);
+                    statementCache = factoryCache;
                     break;
                 case CompiledQuery.INSERT:
                     currentInsertStatement = cc.getInsertStatement();
                     queryTag = TAG_INSERT;
-                    factoryCache.put(queryText, currentInsertStatement);
+                    statementCache = factoryCache;
                     break;
                 case CompiledQuery.COPY_LOCAL:
                     queryTag = TAG_COPY;
@@ -1213,6 +1436,7 @@ public class PGConnectionContext implements IOContext, Mutable {
                     break;
             }
         } else {
+            statementCache = factoryCache;
             if (statement instanceof RecordCursorFactory) {
                 queryTag = TAG_SELECT;
                 currentFactory = (RecordCursorFactory) statement;
@@ -1229,11 +1453,13 @@ public class PGConnectionContext implements IOContext, Mutable {
             long lo,
             long limit,
             @Transient SqlCompiler compiler,
-            @Transient AssociativeCache<Object> factoryCache
+            @Transient ConcurrentAssociativeCache<Object> factoryCache
     ) throws BadProtocolException, SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
         // vanilla query
         prepareForNewQuery();
         parseQueryText(lo, limit - 1);
+        statementKey.clear();
+        statementKey.put(queryText);
 
         if (SqlKeywords.isSemicolon(queryText)) {
             queryTag = TAG_OK;
@@ -1241,17 +1467,16 @@ public class PGConnectionContext implements IOContext, Mutable {
             return;
         }
 
-        final Object statement = factoryCache.peek(queryText);
+        final Object statement = factoryCache.poll(statementKey);
         if (statement == null) {
             final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext);
             sqlExecutionContext.storeTelemetry(cc.getType(), TelemetryOrigin.PG_WIRE);
 
             switch (cc.getType()) {
                 case CompiledQuery.SELECT:
-                    final RecordCursorFactory factory = cc.getRecordCursorFactory();
-                    factoryCache.put(queryText, factory);
+                    statementCache = factoryCache;
                     queryTag = TAG_SELECT;
-                    executeSelect(factory);
+                    executeSelect(cc.getRecordCursorFactory(), compiler);
                     break;
                 case CompiledQuery.COPY_LOCAL:
                     queryTag = TAG_COPY;
@@ -1263,7 +1488,8 @@ public class PGConnectionContext implements IOContext, Mutable {
                     //    execute it as we parse without generating models etc.
                     queryTag = TAG_INSERT;
                     currentInsertStatement = cc.getInsertStatement();
-                    executeInsert();
+                    statementCache = factoryCache;
+                    executeInsert(compiler);
                     break;
                 default:
                     // DDL SQL
@@ -1272,9 +1498,16 @@ public class PGConnectionContext implements IOContext, Mutable {
                     break;
             }
         } else {
+            statementCache = factoryCache;
             if (statement instanceof RecordCursorFactory) {
                 queryTag = TAG_SELECT;
-                executeSelect((RecordCursorFactory) statement);
+                executeSelect((RecordCursorFactory) statement, compiler);
+            } else if (statement instanceof InsertStatement) {
+                queryTag = TAG_INSERT;
+                currentInsertStatement = (InsertStatement) statement;
+                executeInsert(compiler);
+            } else {
+                assert false;
             }
         }
     }
@@ -1334,6 +1567,28 @@ public class PGConnectionContext implements IOContext, Mutable {
         send();
     }
 
+    private void releaseStatement() {
+        if (statementCache != null) {
+            // other connections can pick up the statement from now on
+            statementCache.push(statementKey, currentFactory != null ? currentFactory : currentInsertStatement);
+            statementCache = null;
+        }
+        currentFactory = null;
+        currentInsertStatement = null;
+    }
+
+    private void setupColumnAppenders(RecordMetadata metadata) {
+        activeColumnAppenders.clear();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (getColumnFormat(i, columnType) == FORMAT_BINARY) {
+                activeColumnAppenders.add(binaryColumnAppenders.getQuick(columnType));
+            } else {
+                activeColumnAppenders.add(columnAppenders.getQuick(columnType));
+            }
+        }
+    }
+
     private void sendCopyInResponse(CairoEngine engine, TextLoader textLoader) throws PeerDisconnectedException, PeerIsSlowToReadException {
         if (TableUtils.TABLE_EXISTS == engine.getStatus(
                 sqlExecutionContext.getCairoSecurityContext(),
@@ -1429,6 +1684,8 @@ public class PGConnectionContext implements IOContext, Mutable {
         bindVariableSetters.clear();
         for (int j = 0; j < pc; j++) {
             int pgType = getInt(lo + j * Integer.BYTES);
+            // factory is compiled for specific bind variable types, they are part of cache key
+            statementKey.put((char) 0).put(pgType);
             switch (pgType) {
                 case PG_FLOAT8: // FLOAT8 - double
                     bindVariableService.setDouble(j, Double.NaN);
@@ -1458,7 +1715,7 @@ public class PGConnectionContext implements IOContext, Mutable {
                 case PG_BOOL:
                     bindVariableService.setBoolean(j, false);
                     bindVariableSetters.add(booleanSetter);
-                    bindVariableSetters.add(booleanSetter);
+                    bindVariableSetters.add(booleanTxtSetter);
                     break;
                 case PG_VARCHAR:
                     bindVariableService.setStr(j, null);
@@ -1467,12 +1724,16 @@ public class PGConnectionContext implements IOContext, Mutable {
                     break;
                 case PG_DATE:
                     bindVariableService.setDate(j, Numbers.LONG_NaN);
-                    bindVariableSetters.add(noopSetter);
+                    bindVariableSetters.add(pgDateSetter);
                     bindVariableSetters.add(noopSetter);
                     break;
-                case PG_UNSPECIFIED:
                 case PG_TIMESTAMP:
                 case PG_TIMESTAMPZ:
+                    bindVariableService.setTimestamp(j, Numbers.LONG_NaN);
+                    bindVariableSetters.add(timestampSetter);
+                    bindVariableSetters.add(timestampTxtSetter);
+                    break;
+                case PG_UNSPECIFIED:
                     // postgres JDBC driver does not seem to send
                     // microseconds with its text timestamp
                     // on top of this parameters such as setDate, setTimestamp
@@ -1578,6 +1839,12 @@ public class PGConnectionContext implements IOContext, Mutable {
             sendBufferPtr += Integer.BYTES;
         }
 
+        public void putNetworkLong(long value) {
+            ensureCapacity(Long.BYTES);
+            putLong(sendBufferPtr, value);
+            sendBufferPtr += Long.BYTES;
+        }
+
         public void putNetworkShort(short value) {
             ensureCapacity(Short.BYTES);
             putShort(sendBufferPtr, value);
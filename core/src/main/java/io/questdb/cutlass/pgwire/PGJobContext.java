@@ -31,7 +31,7 @@ import io.questdb.griffin.SqlCompiler;
 import io.questdb.network.PeerDisconnectedException;
 import io.questdb.network.PeerIsSlowToReadException;
 import io.questdb.network.PeerIsSlowToWriteException;
-import io.questdb.std.AssociativeCache;
+import io.questdb.std.ConcurrentAssociativeCache;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 
@@ -52,20 +52,46 @@ public class PGJobContext implements Closeable {
     public static final int PG_BYTEA = 17;
     public static final int PG_UNSPECIFIED = 0;
     private final SqlCompiler compiler;
-    private final AssociativeCache<Object> factoryCache;
+    private final ConcurrentAssociativeCache<Object> factoryCache;
     private final ObjList<BindVariableSetter> bindVariableSetters = new ObjList<>();
+    private final boolean ownFactoryCache;
 
     public PGJobContext(PGWireConfiguration configuration, CairoEngine engine, MessageBus messageBus, FunctionFactoryCache functionFactoryCache) {
-        this.compiler = new SqlCompiler(engine, messageBus, functionFactoryCache);
-        this.factoryCache = new AssociativeCache<>(
-                configuration.getFactoryCacheColumnCount(),
-                configuration.getFactoryCacheRowCount()
+        this(
+                engine,
+                messageBus,
+                functionFactoryCache,
+                new ConcurrentAssociativeCache<>(
+                        1,
+                        configuration.getFactoryCacheColumnCount(),
+                        configuration.getFactoryCacheRowCount()
+                ),
+                true
         );
     }
 
+    public PGJobContext(CairoEngine engine, MessageBus messageBus, FunctionFactoryCache functionFactoryCache, ConcurrentAssociativeCache<Object> factoryCache) {
+        this(engine, messageBus, functionFactoryCache, factoryCache, false);
+    }
+
+    private PGJobContext(
+            CairoEngine engine,
+            MessageBus messageBus,
+            FunctionFactoryCache functionFactoryCache,
+            ConcurrentAssociativeCache<Object> factoryCache,
+            boolean ownFactoryCache
+    ) {
+        this.compiler = new SqlCompiler(engine, messageBus, functionFactoryCache);
+        this.factoryCache = factoryCache;
+        this.ownFactoryCache = ownFactoryCache;
+    }
+
     @Override
     public void close() {
         Misc.free(compiler);
+        if (ownFactoryCache) {
+            Misc.free(factoryCache);
+        }
     }
 
     public void handleClientOperation(PGConnectionContext context)
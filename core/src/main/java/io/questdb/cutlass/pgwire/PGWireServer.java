@@ -34,6 +34,7 @@ import io.questdb.mp.EagerThreadSetup;
 import io.questdb.mp.Job;
 import io.questdb.mp.WorkerPool;
 import io.questdb.network.*;
+import io.questdb.std.ConcurrentAssociativeCache;
 import io.questdb.std.Misc;
 import io.questdb.std.ThreadLocal;
 import io.questdb.std.WeakObjectPool;
@@ -45,6 +46,8 @@ public class PGWireServer implements Closeable {
     private static final Log LOG = LogFactory.getLog(PGWireServer.class);
     private final IODispatcher<PGConnectionContext> dispatcher;
     private final PGConnectionContextFactory contextFactory;
+    // compiled factories are shared by all connections regardless of worker they land on
+    private final ConcurrentAssociativeCache<Object> factoryCache;
 
     public PGWireServer(
             PGWireConfiguration configuration,
@@ -54,6 +57,11 @@ public class PGWireServer implements Closeable {
             FunctionFactoryCache functionFactoryCache
     ) {
         this.contextFactory = new PGConnectionContextFactory(engine, configuration, messageBus, workerPool.getWorkerCount());
+        this.factoryCache = new ConcurrentAssociativeCache<>(
+                workerPool.getWorkerCount(),
+                configuration.getFactoryCacheColumnCount(),
+                configuration.getFactoryCacheRowCount()
+        );
         this.dispatcher = IODispatchers.create(
                 configuration.getDispatcherConfiguration(),
                 contextFactory
@@ -62,7 +70,7 @@ public class PGWireServer implements Closeable {
         workerPool.assign(dispatcher);
 
         for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
-            final PGJobContext jobContext = new PGJobContext(configuration, engine, messageBus, functionFactoryCache);
+            final PGJobContext jobContext = new PGJobContext(engine, messageBus, functionFactoryCache, factoryCache);
             workerPool.assign(i, new Job() {
                 private final IORequestProcessor<PGConnectionContext> processor = (operation, context) -> {
                     try {
@@ -116,6 +124,7 @@ public class PGWireServer implements Closeable {
     public void close() {
         Misc.free(contextFactory);
         Misc.free(dispatcher);
+        Misc.free(factoryCache);
     }
 
     private static class PGConnectionContextFactory implements IOContextFactory<PGConnectionContext>, Closeable, EagerThreadSetup {
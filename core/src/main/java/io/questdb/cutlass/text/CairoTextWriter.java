@@ -25,6 +25,7 @@
 package io.questdb.cutlass.text;
 
 import io.questdb.cairo.*;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.cutlass.text.types.*;
 import io.questdb.log.Log;
@@ -226,7 +227,16 @@ public class CairoTextWriter implements Closeable, Mutable {
             ObjList<TypeAdapter> detectedTypes
     ) {
 
-        TableWriter writer = engine.getWriter(cairoSecurityContext, tableName);
+        TableWriter writer;
+        try {
+            writer = engine.getWriter(cairoSecurityContext, tableName);
+        } catch (EntryUnavailableException e) {
+            if (!configuration.isWalEnabled()) {
+                throw e;
+            }
+            // rows are imported into write-ahead log and appear in the table once it is applied
+            writer = engine.getWalWriter(cairoSecurityContext, tableName);
+        }
         RecordMetadata metadata = writer.getMetadata();
 
         // now, compare column count.
@@ -347,6 +357,11 @@ public class CairoTextWriter implements Closeable, Mutable {
             return false;
         }
 
+        @Override
+        public boolean isCompressed(int columnIndex) {
+            return false;
+        }
+
         @Override
         public int getPartitionBy() {
             return partitionBy;
@@ -65,6 +65,14 @@ public interface FunctionFactory {
 
     default boolean isGroupBy() { return false; }
 
+    /**
+     * Analytic functions are only callable with OVER clause and are kept apart from the
+     * rest of functions. This allows them to share names with group-by functions, such as "sum()".
+     *
+     * @return true when factory creates {@link io.questdb.griffin.engine.functions.AnalyticFunction}
+     */
+    default boolean isAnalytic() { return false; }
+
     Function newInstance(
             @Transient ObjList<Function> args,
             int position,
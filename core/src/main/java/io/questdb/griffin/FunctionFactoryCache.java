@@ -38,6 +38,7 @@ public class FunctionFactoryCache {
     private final CharSequenceObjHashMap<ObjList<FunctionFactory>> factories = new CharSequenceObjHashMap<>();
     private final CharSequenceObjHashMap<ObjList<FunctionFactory>> booleanFactories = new CharSequenceObjHashMap<>();
     private final CharSequenceObjHashMap<ObjList<FunctionFactory>> commutativeBooleanFactories = new CharSequenceObjHashMap<>();
+    private final CharSequenceObjHashMap<ObjList<FunctionFactory>> analyticFactories = new CharSequenceObjHashMap<>();
     private final CharSequenceHashSet groupByFunctionNames = new CharSequenceHashSet();
 
     public FunctionFactoryCache(CairoConfiguration configuration, Iterable<FunctionFactory> functionFactories) {
@@ -55,6 +56,10 @@ public class FunctionFactoryCache {
                 }
 
                 final String name = sig.substring(0, openBraceIndex);
+                if (factory.isAnalytic()) {
+                    addFactoryToList(analyticFactories, name, factory);
+                    continue;
+                }
                 addFactoryToList(factories, name, factory);
 
                 // Add != counterparts to equality function factories
@@ -112,6 +117,10 @@ public class FunctionFactoryCache {
         return factories.get(token);
     }
 
+    public ObjList<FunctionFactory> getAnalyticOverloadList(CharSequence token) {
+        return analyticFactories.get(token);
+    }
+
     public boolean isNegated(CharSequence token) {
         return booleanFactories.get(token) != null;
     }
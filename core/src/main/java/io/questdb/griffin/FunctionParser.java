@@ -313,6 +313,57 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
         }
     }
 
+    /**
+     * Creates instance of analytic function, which is a function call used in conjunction with OVER clause.
+     * Analytic functions are looked up separately from other functions, function arguments are
+     * parsed as regular functions.
+     *
+     * @param node             expression node of function call without OVER clause
+     * @param metadata         metadata for resolving types of columns.
+     * @param executionContext for resolving parameters
+     * @return function instance, which is guaranteed to be {@link io.questdb.griffin.engine.functions.AnalyticFunction}
+     * @throws SqlException when function is not found or its arguments cannot be parsed
+     */
+    public Function parseAnalyticFunction(
+            ExpressionNode node,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) throws SqlException {
+        final ObjList<Function> args;
+        final int argCount = node.paramCount;
+        if (argCount == 0) {
+            args = null;
+        } else {
+            args = new ObjList<>(argCount);
+            if (argCount < 3) {
+                if (node.lhs != null) {
+                    args.add(parseFunction(node.lhs, metadata, executionContext));
+                }
+                if (node.rhs != null) {
+                    args.add(parseFunction(node.rhs, metadata, executionContext));
+                }
+            } else {
+                for (int i = argCount - 1; i > -1; i--) {
+                    args.add(parseFunction(node.args.getQuick(i), metadata, executionContext));
+                }
+            }
+        }
+
+        this.sqlExecutionContext = executionContext;
+        final ObjList<FunctionFactory> overload = functionFactoryCache.getAnalyticOverloadList(node.token);
+        if (overload == null) {
+            final SqlException e = invalidFunction("unknown analytic function name", node, args);
+            Misc.freeObjList(args);
+            throw e;
+        }
+        try {
+            return createFunction(node, args, overload);
+        } catch (SqlException e) {
+            Misc.freeObjList(args);
+            throw e;
+        }
+    }
+
     public void setSqlCodeGenerator(SqlCodeGenerator sqlCodeGenerator) {
         this.sqlCodeGenerator = sqlCodeGenerator;
     }
@@ -508,7 +559,14 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor {
             ExpressionNode node,
             @Transient ObjList<Function> args
     ) throws SqlException {
-        ObjList<FunctionFactory> overload = functionFactoryCache.getOverloadList(node.token);
+        return createFunction(node, args, functionFactoryCache.getOverloadList(node.token));
+    }
+
+    private Function createFunction(
+            ExpressionNode node,
+            @Transient ObjList<Function> args,
+            ObjList<FunctionFactory> overload
+    ) throws SqlException {
         boolean isNegated = functionFactoryCache.isNegated(node.token);
         boolean isFlipped = functionFactoryCache.isFlipped(node.token);
         if (overload == null) {
@@ -26,6 +26,7 @@ package io.questdb.griffin;
 
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
 import io.questdb.cairo.sql.*;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
@@ -76,7 +77,24 @@ public class InsertStatementImpl implements InsertStatement {
     public InsertMethod createMethod(SqlExecutionContext executionContext) {
         initContext(executionContext);
 
-        final TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), tableName);
+        TableWriter writer;
+        try {
+            writer = engine.getWriter(executionContext.getCairoSecurityContext(), tableName);
+        } catch (EntryUnavailableException e) {
+            if (!engine.getConfiguration().isWalEnabled()) {
+                throw e;
+            }
+            // segment has structure of the table, which must be the structure this statement was compiled for,
+            // it is kept open for the next insert of the same connection
+            insertMethod.writer = engine.getWalWriter(
+                    executionContext.getCairoSecurityContext(),
+                    tableName,
+                    getStructureVersion(),
+                    executionContext
+            );
+            return insertMethod;
+        }
+
         if (writer.getStructureVersion() != getStructureVersion()) {
             writer.close();
             throw WriterOutOfDateException.INSTANCE;
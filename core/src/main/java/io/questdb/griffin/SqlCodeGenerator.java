@@ -30,6 +30,10 @@ import io.questdb.cairo.map.RecordValueSinkFactory;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
+import io.questdb.griffin.engine.analytic.AnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.analytic.AnalyticWindow;
+import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.constants.LongConstant;
@@ -37,6 +41,8 @@ import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.RecordComparator;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -118,6 +124,8 @@ public class SqlCodeGenerator implements Mutable {
     private final ListColumnFilter listColumnFilterB = new ListColumnFilter();
     private final CairoConfiguration configuration;
     private final RecordComparatorCompiler recordComparatorCompiler;
+    private final FilterCompiler filterCompiler;
+    private final FilterKernelFactory filterKernelFactory = new FilterKernelFactory();
     private final IntHashSet intHashSet = new IntHashSet();
     private final ArrayColumnTypes keyTypes = new ArrayColumnTypes();
     private final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
@@ -144,6 +152,53 @@ public class SqlCodeGenerator implements Mutable {
         this.configuration = configuration;
         this.functionParser = functionParser;
         this.recordComparatorCompiler = new RecordComparatorCompiler(asm);
+        this.filterCompiler = new FilterCompiler(asm);
+    }
+
+    private static int getAnalyticKeyIndex(RecordMetadata metadata, ExpressionNode node) throws SqlException {
+        final int index = metadata.getColumnIndexQuiet(node.token);
+        if (index == -1) {
+            throw SqlException.invalidColumn(node.position, node.token);
+        }
+        return index;
+    }
+
+    // fixed-size types that can be copied from page frame into encoder map
+    private static boolean isEncodableKeyType(int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // join keys that can be read from page frames by hash join build workers
+    private static boolean isPageFrameKey(RecordMetadata metadata, ListColumnFilter keyColumns) {
+        for (int i = 0, n = keyColumns.getColumnCount(); i < n; i++) {
+            switch (metadata.getColumnType(keyColumns.getColumnIndex(i))) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                case ColumnType.LONG256:
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    // types Rosti can use as key without encoding
+    private static boolean isRostiKeyType(int type) {
+        return type == ColumnType.INT || type == ColumnType.SYMBOL;
     }
 
     private static RecordCursorFactory createFullFatAsOfJoin(CairoConfiguration configuration,
@@ -176,6 +231,25 @@ public class SqlCodeGenerator implements Mutable {
         return new LtJoinRecordCursorFactory(configuration, metadata, masterFactory, slaveFactory, mapKeyTypes, mapValueTypes, slaveColumnTypes, masterKeySink, slaveKeySink, columnSplit, slaveValueSink, columnIndex);
     }
 
+    /**
+     * @param fillValues values of FILL clause, null when missing buckets are filled with NULL
+     */
+    private static ObjList<Function> createSampleByPlaceholderFunctions(
+            ObjList<Function> recordFunctions,
+            @Nullable ObjList<ExpressionNode> fillValues
+    ) throws SqlException {
+        try {
+            if (fillValues == null) {
+                return SampleByFillNullRecordCursorFactory.createPlaceholderFunctions(recordFunctions);
+            }
+            return SampleByFillValueRecordCursorFactory.createPlaceholderFunctions(recordFunctions, fillValues);
+        } catch (SqlException e) {
+            // record functions are freed by sample by factories, which are not going to be created
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+    }
+
     @Override
     public void clear() {
         whereClauseParser.clear();
@@ -400,7 +474,9 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            boolean buildMaster,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -435,16 +511,31 @@ public class SqlCodeGenerator implements Mutable {
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == QueryModel.JOIN_INNER) {
-                return new HashJoinLightRecordCursorFactory(
-                        configuration,
+                if (buildMaster) {
+                    // master is the smaller side, hash it and stream the slave
+                    return createHashJoinLight(
+                            metadata,
+                            slave,
+                            master,
+                            slaveKeySink,
+                            masterKeySink,
+                            listColumnFilterB,
+                            masterMetadata.getColumnCount(),
+                            true,
+                            executionContext
+                    );
+                }
+
+                return createHashJoinLight(
                         metadata,
                         master,
                         slave,
-                        keyTypes,
-                        valueTypes,
                         masterKeySink,
                         slaveKeySink,
-                        masterMetadata.getColumnCount()
+                        listColumnFilterA,
+                        masterMetadata.getColumnCount(),
+                        false,
+                        executionContext
                 );
             }
 
@@ -498,6 +589,52 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    private RecordCursorFactory createHashJoinLight(
+            RecordMetadata metadata,
+            RecordCursorFactory streamFactory,
+            RecordCursorFactory buildFactory,
+            RecordSink streamKeySink,
+            RecordSink buildKeySink,
+            ListColumnFilter buildKeyColumns,
+            int columnSplit,
+            boolean swapped,
+            SqlExecutionContext executionContext
+    ) {
+        final int workerCount = executionContext.getWorkerCount();
+        if (workerCount > 1
+                && configuration.isSqlParallelHashJoinEnabled()
+                && executionContext.getMessageBus() != null
+                && buildFactory.supportPageFrameCursor()
+                && isPageFrameKey(buildFactory.getMetadata(), buildKeyColumns)) {
+            return new HashJoinLightParallelRecordCursorFactory(
+                    configuration,
+                    metadata,
+                    streamFactory,
+                    buildFactory,
+                    keyTypes,
+                    valueTypes,
+                    streamKeySink,
+                    buildKeySink,
+                    columnSplit,
+                    swapped,
+                    workerCount
+            );
+        }
+
+        return new HashJoinLightRecordCursorFactory(
+                configuration,
+                metadata,
+                streamFactory,
+                buildFactory,
+                keyTypes,
+                valueTypes,
+                streamKeySink,
+                buildKeySink,
+                columnSplit,
+                swapped
+        );
+    }
+
     private RecordCursorFactory createSpliceJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
@@ -571,19 +708,132 @@ public class SqlCodeGenerator implements Mutable {
     @NotNull
     private RecordCursorFactory generateFilter0(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext, ExpressionNode filter) throws SqlException {
         model.setWhereClause(null);
-        final Function f = compileFilter(filter, factory.getMetadata(), executionContext);
-        if (f.isConstant()) {
-            try (f) {
-                if (f.getBool(null)) {
+        final Function parsedFilter = compileFilter(filter, factory.getMetadata(), executionContext);
+        if (parsedFilter.isConstant()) {
+            try (parsedFilter) {
+                if (parsedFilter.getBool(null)) {
                     return factory;
                 }
                 // metadata is always a GenericRecordMetadata instance
                 return new EmptyTableRecordCursorFactory(factory.getMetadata());
             }
         }
+
+        // filter has been validated by function parser, byte code is generated for it only when
+        // it is made of expressions that filter compiler supports
+        final CompiledFilter compiledFilter = filterCompiler.compile(filter, factory.getMetadata());
+        final Function f;
+        if (compiledFilter != null) {
+            Misc.free(parsedFilter);
+            f = compiledFilter;
+        } else {
+            f = parsedFilter;
+        }
+
+        final int workerCount = executionContext.getWorkerCount();
+        if (workerCount > 1
+                && configuration.isSqlParallelFilterEnabled()
+                && executionContext.getMessageBus() != null
+                && factory.supportPageFrameCursor()) {
+            if (compiledFilter != null) {
+                // every worker owns its instance of generated class, factory inits and frees each of them once
+                final ObjList<Function> filters = new ObjList<>(workerCount + 1);
+                for (int i = 0; i < workerCount; i++) {
+                    filters.add(compiledFilter.newInstance());
+                }
+                filters.add(compiledFilter);
+                return new PageFrameFilteredRecordCursorFactory(factory, filters);
+            }
+            return generateParallelFilter(factory, executionContext, filter, f, workerCount);
+        }
         return new FilteredRecordCursorFactory(factory, f);
     }
 
+    @NotNull
+    private RecordCursorFactory generateParallelFilter(
+            RecordCursorFactory factory,
+            SqlExecutionContext executionContext,
+            ExpressionNode filter,
+            Function f,
+            int workerCount
+    ) throws SqlException {
+        // functions are not thread-safe, every worker gets its own copy of filter
+        // and the one compiled already is used by thread that executes query
+        final ObjList<Function> filters = new ObjList<>(workerCount + 1);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                filters.add(compileFilter(filter, factory.getMetadata(), executionContext));
+            }
+        } catch (Throwable e) {
+            Misc.freeObjList(filters);
+            Misc.free(f);
+            throw e;
+        }
+        filters.add(f);
+        return new PageFrameFilteredRecordCursorFactory(factory, filters);
+    }
+
+    @NotNull
+    private RecordCursorFactory generateParallelSampleBy(
+            QueryModel model,
+            SqlExecutionContext executionContext,
+            RecordCursorFactory factory,
+            TimestampSampler timestampSampler,
+            GenericRecordMetadata groupByMetadata,
+            ObjList<GroupByFunction> groupByFunctions,
+            ObjList<Function> recordFunctions,
+            @Nullable ObjList<Function> placeholderFunctions,
+            boolean fillPrev,
+            IntList symbolTableSkewIndex,
+            int timestampIndex,
+            int workerCount
+    ) throws SqlException {
+        // functions are not thread-safe, every worker gets its own copy of group-by functions
+        // and the ones compiled already are used by thread that executes query
+        final ObjList<ObjList<GroupByFunction>> functions = new ObjList<>(workerCount + 1);
+        final ArrayColumnTypes workerValueTypes = new ArrayColumnTypes();
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                final ObjList<GroupByFunction> workerFunctions = new ObjList<>(groupByFunctions.size());
+                functions.add(workerFunctions);
+                workerValueTypes.clear();
+                workerValueTypes.add(ColumnType.TIMESTAMP);
+                GroupByUtils.prepareGroupByFunctions(
+                        model,
+                        factory.getMetadata(),
+                        functionParser,
+                        executionContext,
+                        workerFunctions,
+                        workerValueTypes
+                );
+            }
+        } catch (Throwable e) {
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                Misc.freeObjList(functions.getQuick(i));
+            }
+            Misc.freeObjList(recordFunctions);
+            throw e;
+        }
+        functions.add(groupByFunctions);
+
+        return new SampleByParallelRecordCursorFactory(
+                configuration,
+                factory,
+                groupByMetadata,
+                functions,
+                recordFunctions,
+                placeholderFunctions,
+                fillPrev,
+                symbolTableSkewIndex,
+                timestampSampler,
+                listColumnFilterA,
+                asm,
+                keyTypes,
+                valueTypes,
+                timestampIndex
+        );
+    }
+
     private RecordCursorFactory generateFunctionQuery(QueryModel model) throws SqlException {
         final Function function = model.getTableNameFunction();
         assert function != null;
@@ -753,11 +1003,21 @@ public class SqlCodeGenerator implements Mutable {
                             break;
                         default:
                             processJoinContext(index == 1, slaveModel.getContext(), masterMetadata, slaveMetadata);
+                            final boolean buildMaster = slaveModel.isHashJoinBuildMaster()
+                                    && joinType == QueryModel.JOIN_INNER
+                                    && master.recordCursorSupportsRandomAccess()
+                                    && slave.recordCursorSupportsRandomAccess()
+                                    && !fullFatJoins;
                             master = createHashJoin(
-                                    createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
+                                    // when master is hashed join result follows slave and has no timestamp
+                                    buildMaster
+                                            ? createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata, -1)
+                                            : createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                     master,
                                     slave,
-                                    joinType
+                                    joinType,
+                                    buildMaster,
+                                    executionContext
                             );
                             masterAlias = null;
                             break;
@@ -946,6 +1206,17 @@ public class SqlCodeGenerator implements Mutable {
                         columnIndexes
                 );
             }
+
+            if (filter == null && metadata.getColumnType(latestByIndex) == ColumnType.SYMBOL) {
+                return new LatestByAllSymbolRecordCursorFactory(
+                        configuration,
+                        metadata,
+                        dataFrameCursorFactory,
+                        columnIndexes.getQuick(latestByIndex),
+                        columnIndexes,
+                        getLatestByWorkerCount(executionContext)
+                );
+            }
         }
 
         return new LatestByAllFilteredRecordCursorFactory(
@@ -959,6 +1230,41 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    /**
+     * Wraps "latest by" factory, which neither filters rows nor limits them to intervals, into factory that
+     * looks latest rows up in the cache table writer keeps for symbol column. Wrapped factory answers query
+     * when cache cannot.
+     *
+     * @param keyValues values of "latest by" column query selects or null when query selects all values
+     */
+    private RecordCursorFactory generateLatestRowCacheQuery(
+            RecordCursorFactory factory,
+            QueryModel model,
+            TableReader reader,
+            RecordMetadata metadata,
+            String tableName,
+            @Nullable CharSequenceHashSet keyValues,
+            @NotNull IntList columnIndexes
+    ) {
+        if (listColumnFilterA.size() != 1) {
+            return factory;
+        }
+
+        final int columnIndex = columnIndexes.getQuick(listColumnFilterA.getColumnIndex(0));
+        if (columnIndex != reader.getMetadata().getLatestRowColumnIndex()) {
+            return factory;
+        }
+
+        return new LatestRowCacheRecordCursorFactory(
+                metadata,
+                new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion()),
+                columnIndex,
+                keyValues,
+                columnIndexes,
+                factory
+        );
+    }
+
     private RecordCursorFactory generateLimit(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         ExpressionNode limitLo = model.getLimitLo();
         ExpressionNode limitHi = model.getLimitHi();
@@ -1072,11 +1378,32 @@ public class SqlCodeGenerator implements Mutable {
                 orderedMetadata = GenericRecordMetadata.copyOfSansTimestamp(metadata);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
+                    final long topN = getOrderByTopN(model);
+                    if (topN > -1) {
+                        return new LimitedSizeSortedLightRecordCursorFactory(
+                                configuration,
+                                orderedMetadata,
+                                recordCursorFactory,
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                topN
+                        );
+                    }
+
+                    // sink is used to copy records out when row ids do not fit sort memory budget
+                    entityColumnFilter.of(orderedMetadata.getColumnCount());
+
                     return new SortedLightRecordCursorFactory(
                             configuration,
                             orderedMetadata,
                             recordCursorFactory,
-                            recordComparatorCompiler.compile(metadata, listColumnFilterA)
+                            recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                            orderedMetadata,
+                            RecordSinkFactory.getInstance(
+                                    asm,
+                                    orderedMetadata,
+                                    entityColumnFilter,
+                                    false
+                            )
                     );
                 }
 
@@ -1204,8 +1531,30 @@ public class SqlCodeGenerator implements Mutable {
                         timestampIndex
                 );
 
+                final int workerCount = executionContext.getWorkerCount();
+                final boolean parallel = workerCount > 1
+                        && configuration.isSqlParallelSampleByEnabled()
+                        && executionContext.getMessageBus() != null
+                        && factory.supportPageFrameCursor();
+
                 if (fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "prev")) {
                     if (keyTypes.getColumnCount() == 0) {
+                        if (parallel && SampleByParallelRecordCursorFactory.isFillPrevSupported(valueTypes)) {
+                            return generateParallelSampleBy(
+                                    model,
+                                    executionContext,
+                                    factory,
+                                    timestampSampler,
+                                    groupByMetadata,
+                                    groupByFunctions,
+                                    recordFunctions,
+                                    null,
+                                    true,
+                                    symbolTableSkewIndex,
+                                    timestampIndex,
+                                    workerCount
+                            );
+                        }
                         return new SampleByFillPrevNotKeyedRecordCursorFactory(
                                 factory,
                                 timestampSampler,
@@ -1236,6 +1585,23 @@ public class SqlCodeGenerator implements Mutable {
 
                 if (fillCount == 0 || fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "none")) {
 
+                    if (parallel) {
+                        return generateParallelSampleBy(
+                                model,
+                                executionContext,
+                                factory,
+                                timestampSampler,
+                                groupByMetadata,
+                                groupByFunctions,
+                                recordFunctions,
+                                null,
+                                false,
+                                symbolTableSkewIndex,
+                                timestampIndex,
+                                workerCount
+                        );
+                    }
+
                     if (keyTypes.getColumnCount() == 0) {
                         // this sample by is not keyed
                         return new SampleByFillNoneNotKeyedRecordCursorFactory(
@@ -1268,6 +1634,22 @@ public class SqlCodeGenerator implements Mutable {
 
                 if (fillCount == 1 && isNullKeyword(sampleByFill.getQuick(0).token)) {
                     if (keyTypes.getColumnCount() == 0) {
+                        if (parallel) {
+                            return generateParallelSampleBy(
+                                    model,
+                                    executionContext,
+                                    factory,
+                                    timestampSampler,
+                                    groupByMetadata,
+                                    groupByFunctions,
+                                    recordFunctions,
+                                    createSampleByPlaceholderFunctions(recordFunctions, null),
+                                    false,
+                                    symbolTableSkewIndex,
+                                    timestampIndex,
+                                    workerCount
+                            );
+                        }
                         return new SampleByFillNullNotKeyedRecordCursorFactory(
                                 factory,
                                 timestampSampler,
@@ -1299,6 +1681,22 @@ public class SqlCodeGenerator implements Mutable {
                 assert fillCount > 0;
 
                 if (keyTypes.getColumnCount() == 0) {
+                    if (parallel) {
+                        return generateParallelSampleBy(
+                                model,
+                                executionContext,
+                                factory,
+                                timestampSampler,
+                                groupByMetadata,
+                                groupByFunctions,
+                                recordFunctions,
+                                createSampleByPlaceholderFunctions(recordFunctions, sampleByFill),
+                                false,
+                                symbolTableSkewIndex,
+                                timestampIndex,
+                                workerCount
+                        );
+                    }
                     return new SampleByFillValueNotKeyedRecordCursorFactory(
                             factory,
                             timestampSampler,
@@ -1361,7 +1759,133 @@ public class SqlCodeGenerator implements Mutable {
     }
 
     private RecordCursorFactory generateSelectAnalytic(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
-        return generateSubQuery(model, executionContext);
+        final RecordCursorFactory base = generateSubQuery(model, executionContext);
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final int baseTimestampIndex = baseMetadata.getTimestampIndex();
+        final ObjList<QueryColumn> columns = model.getColumns();
+        final int columnCount = columns.size();
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        final IntList columnIndexes = new IntList(columnCount);
+        final ObjList<AnalyticColumn> analyticColumns = new ObjList<>();
+        final ObjList<AnalyticFunction> functions = new ObjList<>();
+
+        // analytic functions can be computed along with base cursor when all of them
+        // see rows in window order and do not need rows that are yet to come
+        boolean cached = false;
+        try {
+            for (int i = 0; i < columnCount; i++) {
+                final QueryColumn column = columns.getQuick(i);
+                final ExpressionNode ast = column.getAst();
+                if (column instanceof AnalyticColumn) {
+                    final AnalyticColumn ac = (AnalyticColumn) column;
+                    final Function function = functionParser.parseAnalyticFunction(ast, baseMetadata, executionContext);
+                    functions.add((AnalyticFunction) function);
+                    analyticColumns.add(ac);
+                    columnIndexes.add(-functions.size());
+                    metadata.add(new TableColumnMetadata(Chars.toString(column.getAlias()), function.getType()));
+
+                    final ObjList<ExpressionNode> partitionBy = ac.getPartitionBy();
+                    for (int j = 0, n = partitionBy.size(); j < n; j++) {
+                        getAnalyticKeyIndex(baseMetadata, partitionBy.getQuick(j));
+                    }
+
+                    final ObjList<ExpressionNode> orderBy = ac.getOrderBy();
+                    final int orderBySize = orderBy.size();
+                    for (int j = 0; j < orderBySize; j++) {
+                        getAnalyticKeyIndex(baseMetadata, orderBy.getQuick(j));
+                    }
+
+                    final AnalyticFunction af = (AnalyticFunction) function;
+                    if (orderBySize == 0) {
+                        cached |= af.isAggregate();
+                    } else {
+                        cached |= orderBySize > 1
+                                || baseTimestampIndex == -1
+                                || getAnalyticKeyIndex(baseMetadata, orderBy.getQuick(0)) != baseTimestampIndex
+                                || ac.getOrderByDirection().getQuick(0) != QueryModel.ORDER_DIRECTION_ASCENDING;
+                    }
+                    cached |= af.isReversed();
+                } else {
+                    final int index = getAnalyticKeyIndex(baseMetadata, ast);
+                    columnIndexes.add(index);
+                    metadata.add(new TableColumnMetadata(
+                            Chars.toString(column.getAlias()),
+                            baseMetadata.getColumnType(index),
+                            baseMetadata.isColumnIndexed(index),
+                            baseMetadata.getIndexValueBlockCapacity(index),
+                            baseMetadata.isSymbolTableStatic(index)
+                    ));
+                    if (index == baseTimestampIndex) {
+                        metadata.setTimestampIndex(i);
+                    }
+                }
+            }
+        } catch (SqlException | CairoException e) {
+            Misc.freeObjList(functions);
+            base.close();
+            throw e;
+        }
+
+        final ObjList<AnalyticWindow> windows = new ObjList<>(functions.size());
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            final AnalyticColumn ac = analyticColumns.getQuick(i);
+
+            final ObjList<ExpressionNode> partitionBy = ac.getPartitionBy();
+            final int partitionBySize = partitionBy.size();
+            listColumnFilterA.clear();
+            keyTypes.clear();
+            for (int j = 0; j < partitionBySize; j++) {
+                final int index = baseMetadata.getColumnIndex(partitionBy.getQuick(j).token);
+                listColumnFilterA.add(index);
+                keyTypes.add(baseMetadata.getColumnType(index));
+            }
+
+            final ObjList<ExpressionNode> orderBy = ac.getOrderBy();
+            final int orderBySize = orderBy.size();
+            RecordComparator comparator = null;
+            int timestampIndex = -1;
+            if (orderBySize > 0) {
+                if (cached) {
+                    final IntList orderByDirection = ac.getOrderByDirection();
+                    listColumnFilterB.clear();
+                    for (int j = 0; j < orderBySize; j++) {
+                        final int index = baseMetadata.getColumnIndex(orderBy.getQuick(j).token);
+                        if (orderByDirection.getQuick(j) == QueryModel.ORDER_DIRECTION_DESCENDING) {
+                            listColumnFilterB.add(-index - 1);
+                        } else {
+                            listColumnFilterB.add(index + 1);
+                        }
+                    }
+                    comparator = recordComparatorCompiler.compile(baseMetadata, listColumnFilterB);
+                } else {
+                    timestampIndex = baseTimestampIndex;
+                }
+            }
+
+            windows.add(
+                    new AnalyticWindow(
+                            configuration,
+                            functions.getQuick(i),
+                            partitionBySize > 0 ? RecordSinkFactory.getInstance(asm, baseMetadata, listColumnFilterA, false) : null,
+                            keyTypes,
+                            comparator,
+                            timestampIndex
+                    )
+            );
+        }
+
+        if (cached) {
+            entityColumnFilter.of(baseMetadata.getColumnCount());
+            return new CachedAnalyticRecordCursorFactory(
+                    configuration,
+                    metadata,
+                    base,
+                    RecordSinkFactory.getInstance(asm, baseMetadata, entityColumnFilter, false),
+                    windows,
+                    columnIndexes
+            );
+        }
+        return new AnalyticRecordCursorFactory(metadata, base, windows, columnIndexes);
     }
 
     private RecordCursorFactory generateSelectChoose(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
@@ -1457,10 +1981,10 @@ public class SqlCodeGenerator implements Mutable {
             CharSequence tableName = tableNameEn.token;
             try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableName)) {
                 CharSequence columnName = model.getBottomUpColumnNames().get(0);
-                TableReaderMetadata readerMetadata = (TableReaderMetadata) reader.getMetadata();
+                TableReaderMetadata readerMetadata = reader.getMetadata();
                 int columnIndex = readerMetadata.getColumnIndex(columnName);
                 int columnType = readerMetadata.getColumnType(columnIndex);
-                if (readerMetadata.getVersion() >= 416 && columnType == ColumnType.SYMBOL) {
+                if (readerMetadata.getVersion() >= 417 && columnType == ColumnType.SYMBOL) {
                     final GenericRecordMetadata distinctSymbolMetadata = new GenericRecordMetadata();
                     long tableVersion = reader.getVersion();
                     distinctSymbolMetadata.add(
@@ -1514,6 +2038,10 @@ public class SqlCodeGenerator implements Mutable {
             final ExpressionNode ast = qc.getAst();
             if (ast.type == LITERAL) {
                 if (checkLiterals) {
+                    if (tempKeyIndexesInBase.size() > 0 && !configuration.isSqlGroupByEncodedKeysEnabled()) {
+                        // multiple keys are aggregated by Rosti only after they are encoded as int
+                        return false;
+                    }
                     final int columnIndex = metadata.getColumnIndex(ast.token);
                     final int type = metadata.getColumnType(columnIndex);
                     if (type == ColumnType.INT) {
@@ -1527,6 +2055,12 @@ public class SqlCodeGenerator implements Mutable {
                         tempSymbolSkewIndexes.extendAndSet(i, columnIndex);
                         arrayColumnTypes.add(ColumnType.SYMBOL);
                         tempKeyKinds.add(GKK_VANILLA_INT);
+                    } else if (configuration.isSqlGroupByEncodedKeysEnabled() && isEncodableKeyType(type)) {
+                        // Rosti aggregates these keys after they are encoded as int
+                        tempKeyIndexesInBase.add(columnIndex);
+                        tempKeyIndex.add(i);
+                        arrayColumnTypes.add(type);
+                        tempKeyKinds.add(GKK_VANILLA_INT);
                     } else {
                         return false;
                     }
@@ -1544,6 +2078,49 @@ public class SqlCodeGenerator implements Mutable {
         return true;
     }
 
+    private RecordCursorFactory generateEncodedKeyGroupBy(RecordCursorFactory factory, RecordMetadata meta, int workerCount) {
+        final RecordMetadata metadata = factory.getMetadata();
+        final int keyCount = tempKeyIndexesInBase.size();
+
+        // keys are stored in encoder map, symbols by their int value
+        keyTypes.clear();
+        valueTypes.clear();
+        valueTypes.add(ColumnType.INT);
+        listColumnFilterA.clear();
+        listColumnFilterB.clear();
+        final ArrayColumnTypes mapRecordTypes = new ArrayColumnTypes();
+        mapRecordTypes.add(ColumnType.INT);
+        for (int i = 0; i < keyCount; i++) {
+            final int type = arrayColumnTypes.getColumnType(i);
+            keyTypes.add(type == ColumnType.SYMBOL ? ColumnType.INT : type);
+            mapRecordTypes.add(type == ColumnType.SYMBOL ? ColumnType.INT : type);
+            listColumnFilterA.add(tempKeyIndexesInBase.getQuick(i));
+            listColumnFilterB.add(i + 1);
+        }
+
+        // Rosti is keyed by encoded int
+        arrayColumnTypes.clear();
+        arrayColumnTypes.add(ColumnType.INT);
+        for (int i = 0, n = tempVaf.size(); i < n; i++) {
+            tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
+        }
+
+        return new GroupByEncodedKeyRecordCursorFactory(
+                configuration,
+                factory,
+                meta,
+                arrayColumnTypes,
+                keyTypes,
+                valueTypes,
+                RecordSinkFactory.getInstance(asm, metadata, listColumnFilterA, false),
+                RecordSinkFactory.getInstance(asm, mapRecordTypes, listColumnFilterB, false),
+                workerCount,
+                tempVaf,
+                tempKeyIndexesInBase,
+                tempKeyIndex
+        );
+    }
+
     private RecordCursorFactory generateSelectGroupBy(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
 
         // fail fast if we cannot create timestamp sampler
@@ -1674,13 +2251,14 @@ public class SqlCodeGenerator implements Mutable {
                     );
                 }
 
-                if (tempKeyIndexesInBase.size() == 1) {
+                final ObjList<ExpressionNode> groupBys = model.getNestedModel().getGroupBy().size() > 0 || model.getNestedModel().getNestedModel() == null ? model.getNestedModel().getGroupBy() : model.getNestedModel().getNestedModel().getGroupBy();
+                final ExpressionNode alias = specialCaseKeys ? model.getNestedModel().getNestedModel().getAlias() : model.getNestedModel().getAlias();
+
+                if (tempKeyIndexesInBase.size() == 1 && isRostiKeyType(arrayColumnTypes.getColumnType(0))) {
                     for (int i = 0, n = tempVaf.size(); i < n; i++) {
                         tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
                     }
 
-                    final ObjList<ExpressionNode> groupBys = model.getNestedModel().getGroupBy().size() > 0 || model.getNestedModel().getNestedModel() == null ? model.getNestedModel().getGroupBy() : model.getNestedModel().getNestedModel().getGroupBy();
-                    ExpressionNode alias = specialCaseKeys ? model.getNestedModel().getNestedModel().getAlias() : model.getNestedModel().getAlias();
                     GroupByUtils.checkGroupBy(groupBys, model.getNestedModel().getColumns(), tempKeyIndex.size(), alias);
 
                     return new GroupByRecordCursorFactory(
@@ -1695,6 +2273,9 @@ public class SqlCodeGenerator implements Mutable {
                             tempSymbolSkewIndexes
                     );
                 }
+
+                GroupByUtils.checkGroupBy(groupBys, model.getNestedModel().getColumns(), tempKeyIndex.size(), alias);
+                return generateEncodedKeyGroupBy(factory, meta, executionContext.getWorkerCount());
             }
 
             if (specialCaseKeys) {
@@ -2027,7 +2608,7 @@ public class SqlCodeGenerator implements Mutable {
                         return new EmptyTableRecordCursorFactory(myMeta);
                     }
 
-                    return generateLatestByQuery(
+                    final RecordCursorFactory factory = generateLatestByQuery(
                             model,
                             reader,
                             myMeta,
@@ -2038,6 +2619,19 @@ public class SqlCodeGenerator implements Mutable {
                             readerTimestampIndex,
                             columnIndexes
                     );
+
+                    if (f == null && intrinsicModel.intervals == null && intrinsicModel.keySubQuery == null) {
+                        return generateLatestRowCacheQuery(
+                                factory,
+                                model,
+                                reader,
+                                myMeta,
+                                tableName,
+                                intrinsicModel.keyColumn != null ? intrinsicModel.keyValues : null,
+                                columnIndexes
+                        );
+                    }
+                    return factory;
                 }
 
                 // below code block generates index-based filter
@@ -2046,9 +2640,15 @@ public class SqlCodeGenerator implements Mutable {
                 if (intrinsicModel.intervals != null) {
                     dfcFactory = new IntervalFwdDataFrameCursorFactory(engine, tableName, model.getTableVersion(), intrinsicModel.intervals, readerTimestampIndex);
                     switch (reader.getPartitionedBy()) {
+                        case PartitionBy.HOUR:
+                            intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_HH);
+                            break;
                         case PartitionBy.DAY:
                             intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_DD);
                             break;
+                        case PartitionBy.WEEK:
+                            intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_WW);
+                            break;
                         case PartitionBy.MONTH:
                             intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_MM);
                             break;
@@ -2242,6 +2842,16 @@ public class SqlCodeGenerator implements Mutable {
                     }
                 }
 
+                if (intrinsicModel.filter != null && configuration.isSqlFilterKernelEnabled()) {
+                    final FilterKernel kernel = filterKernelFactory.create(intrinsicModel.filter, readerMeta);
+                    if (kernel != null) {
+                        // kernel executes filter straight on column memory, we still want
+                        // function parser to validate filter
+                        Misc.free(compileFilter(intrinsicModel.filter, readerMeta, executionContext));
+                        return new DataFrameRecordCursorFactory(myMeta, dfcFactory, new FilterKernelRowCursorFactory(kernel), false, null, false, columnIndexes, columnSizes);
+                    }
+                }
+
                 model.setWhereClause(intrinsicModel.filter);
                 return new DataFrameRecordCursorFactory(myMeta, dfcFactory, new DataFrameRowCursorFactory(), false, null, framingSupported, columnIndexes, columnSizes);
             }
@@ -2264,14 +2874,25 @@ public class SqlCodeGenerator implements Mutable {
             }
 
             if (latestByColumnCount == 1 && myMeta.isColumnIndexed(listColumnFilterA.getQuick(0))) {
-                return new LatestByAllIndexedFilteredRecordCursorFactory(
+                return generateLatestRowCacheQuery(new LatestByAllIndexedFilteredRecordCursorFactory(
                         configuration,
                         myMeta,
                         new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion()),
                         columnIndexes.getQuick(listColumnFilterA.getQuick(0)),
                         null,
                         columnIndexes
-                );
+                ), model, reader, myMeta, tableName, null, columnIndexes);
+            }
+
+            if (latestByColumnCount == 1 && myMeta.getColumnType(listColumnFilterA.getQuick(0)) == ColumnType.SYMBOL) {
+                return generateLatestRowCacheQuery(new LatestByAllSymbolRecordCursorFactory(
+                        configuration,
+                        myMeta,
+                        new FullBwdDataFrameCursorFactory(engine, tableName, model.getTableVersion()),
+                        columnIndexes.getQuick(listColumnFilterA.getQuick(0)),
+                        columnIndexes,
+                        getLatestByWorkerCount(executionContext)
+                ), model, reader, myMeta, tableName, null, columnIndexes);
             }
 
             return new LatestByAllFilteredRecordCursorFactory(
@@ -2328,6 +2949,16 @@ public class SqlCodeGenerator implements Mutable {
         return unionFactory;
     }
 
+    private int getLatestByWorkerCount(SqlExecutionContext executionContext) {
+        final int workerCount = executionContext.getWorkerCount();
+        if (workerCount > 1
+                && configuration.isSqlParallelLatestByEnabled()
+                && executionContext.getMessageBus() != null) {
+            return workerCount;
+        }
+        return 0;
+    }
+
     private int getTimestampIndex(QueryModel model, RecordCursorFactory factory) throws SqlException {
         final RecordMetadata metadata = factory.getMetadata();
         try {
@@ -2363,6 +2994,37 @@ public class SqlCodeGenerator implements Mutable {
         return true;
     }
 
+    /**
+     * Number of leading rows of the sorted cursor "limit" clause can possibly return, this is
+     * known when both "lo" and "hi" are non-negative constants.
+     *
+     * @return number of rows or -1 when whole cursor has to be sorted
+     */
+    private static long getOrderByTopN(QueryModel model) {
+        final ExpressionNode limitLo = model.getLimitLo();
+        final ExpressionNode limitHi = model.getLimitHi();
+        if (limitLo == null || limitLo.type != ExpressionNode.CONSTANT) {
+            return -1;
+        }
+        try {
+            final long lo = Numbers.parseLong(limitLo.token);
+            if (lo < 0) {
+                // rows are counted from the end of cursor
+                return -1;
+            }
+            if (limitHi == null) {
+                return lo;
+            }
+            if (limitHi.type != ExpressionNode.CONSTANT) {
+                return -1;
+            }
+            final long hi = Numbers.parseLong(limitHi.token);
+            return hi < lo ? -1 : hi;
+        } catch (NumericException e) {
+            return -1;
+        }
+    }
+
     private boolean isSingleColumnFunction(ExpressionNode ast, CharSequence name) {
         return ast.type == FUNCTION && ast.paramCount == 1 && Chars.equals(ast.token, name) && ast.rhs.type == LITERAL;
     }
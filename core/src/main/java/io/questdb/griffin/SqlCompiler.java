@@ -39,6 +39,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.microtime.TimestampFormat;
+import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.NotNull;
@@ -793,6 +794,16 @@ public class SqlCompiler implements Closeable {
                         throw SqlException.$(lexer.lastTokenPosition(), "'column' or 'partition' expected");
                     }
 
+                } else if (SqlKeywords.isSetKeyword(tok)) {
+                    tok = expectToken(lexer, "'ttl' or 'latest'");
+                    if (Chars.equalsLowerCaseAscii(tok, "ttl")) {
+                        alterTableSetTtl(writer);
+                    } else if (SqlKeywords.isLatestKeyword(tok)) {
+                        expectKeyword(lexer, "cache");
+                        alterTableSetLatestCache(writer);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'ttl' or 'latest' expected");
+                    }
                 } else {
                     throw SqlException.$(lexer.lastTokenPosition(), "'add' or 'drop' or 'rename' expected");
                 }
@@ -1087,6 +1098,74 @@ public class SqlCompiler implements Closeable {
         } while (true);
     }
 
+    private void alterTableSetLatestCache(TableWriter writer) throws SqlException {
+        CharSequence tok = expectToken(lexer, "'on' or 'off'");
+        final CharSequence columnName;
+        if (SqlKeywords.isOnKeyword(tok)) {
+            final int columnNamePosition = lexer.getPosition();
+            tok = GenericLexer.unquote(expectToken(lexer, "column name"));
+            final int columnIndex = writer.getMetadata().getColumnIndexQuiet(tok);
+            if (columnIndex == -1) {
+                throw SqlException.invalidColumn(columnNamePosition, tok);
+            }
+            if (writer.getMetadata().getColumnType(columnIndex) != ColumnType.SYMBOL) {
+                throw SqlException.$(columnNamePosition, "symbol column expected");
+            }
+            columnName = writer.getMetadata().getColumnName(columnIndex);
+        } else if (Chars.equalsLowerCaseAscii(tok, "off")) {
+            columnName = null;
+        } else {
+            throw SqlException.$(lexer.lastTokenPosition(), "'on' or 'off' expected");
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(tok);
+        }
+
+        writer.setLatestRowCache(columnName);
+    }
+
+    private void alterTableSetTtl(TableWriter writer) throws SqlException {
+        CharSequence tok = expectToken(lexer, "time to live");
+        final int valuePosition = lexer.lastTokenPosition();
+        final long value;
+        try {
+            value = Numbers.parseLong(tok);
+        } catch (NumericException e) {
+            throw SqlException.$(valuePosition, "number expected");
+        }
+
+        // zero turns retention off, so the unit is optional in that case
+        tok = SqlUtil.fetchNext(lexer);
+        final long unitMicros;
+        if (tok == null) {
+            if (value != 0) {
+                throw SqlException.$(lexer.getPosition(), "'hours', 'days' or 'weeks' expected");
+            }
+            unitMicros = 0;
+        } else if (Chars.equalsLowerCaseAscii(tok, "hour") || Chars.equalsLowerCaseAscii(tok, "hours")) {
+            unitMicros = Timestamps.HOUR_MICROS;
+        } else if (Chars.equalsLowerCaseAscii(tok, "day") || Chars.equalsLowerCaseAscii(tok, "days")) {
+            unitMicros = Timestamps.DAY_MICROS;
+        } else if (Chars.equalsLowerCaseAscii(tok, "week") || Chars.equalsLowerCaseAscii(tok, "weeks")) {
+            unitMicros = Timestamps.WEEK_MICROS;
+        } else {
+            throw SqlException.$(lexer.lastTokenPosition(), "'hours', 'days' or 'weeks' expected");
+        }
+
+        if (value < 0 || (unitMicros > 0 && value > Long.MAX_VALUE / unitMicros)) {
+            throw SqlException.$(valuePosition, "invalid time to live");
+        }
+
+        tok = SqlUtil.fetchNext(lexer);
+        if (tok != null) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(tok);
+        }
+
+        writer.setTtl(value * unitMicros);
+    }
+
     private void backupTable(@NotNull CharSequence tableName, @NotNull SqlExecutionContext executionContext) {
         LOG.info().$("Starting backup of ").$(tableName).$();
         if (null == cachedTmpBackupRoot) {
@@ -1159,7 +1238,7 @@ public class SqlCompiler implements Closeable {
             throw CairoException.instance(ff.errno()).put("Could not create [dir=").put(path).put(']');
         }
 
-        TableReaderMetadata sourceMetaData = (TableReaderMetadata) reader.getMetadata();
+        TableReaderMetadata sourceMetaData = reader.getMetadata();
         int rootLen = path.length();
         try {
             mem.of(ff, path.trimTo(rootLen).concat(TableUtils.META_FILE_NAME).$(), ff.getPageSize());
@@ -2024,6 +2103,17 @@ public class SqlCompiler implements Closeable {
             }
         }
 
+        for (int i = 0, n = model.getColumnCount(); i < n; i++) {
+            if (model.isCompressed(i)) {
+                final int castIndex = typeCast.keyIndex(i);
+                final int type = castIndex < 0 ? typeCast.valueAt(castIndex) : metadata.getColumnType(i);
+                if (!ColumnCodec.isSupported(type)) {
+                    throw SqlException.$(0, "compression is supported for TIMESTAMP, DOUBLE and SYMBOL columns only [column=")
+                            .put(model.getColumnName(i)).put(", type=").put(ColumnType.nameOf(type)).put(']');
+                }
+            }
+        }
+
         // validate type of timestamp column
         // no need to worry that column will not resolve
         ExpressionNode timestamp = model.getTimestamp();
@@ -2090,6 +2180,11 @@ public class SqlCompiler implements Closeable {
             return model.isSequential(columnIndex);
         }
 
+        @Override
+        public boolean isCompressed(int columnIndex) {
+            return model.isCompressed(columnIndex);
+        }
+
         @Override
         public int getPartitionBy() {
             return model.getPartitionBy();
@@ -1056,6 +1056,29 @@ class SqlOptimiser {
         }
     }
 
+    private void emitAnalyticKeys(
+            ObjList<ExpressionNode> keys,
+            QueryModel translatingModel,
+            QueryModel innerModel,
+            QueryModel validatingModel
+    ) throws SqlException {
+        for (int i = 0, n = keys.size(); i < n; i++) {
+            final ExpressionNode key = keys.getQuick(i);
+            final ExpressionNode replaced = replaceLiteral(key, translatingModel, innerModel, validatingModel);
+            if (replaced == key) {
+                emitLiterals(key, translatingModel, innerModel, validatingModel);
+            } else {
+                keys.setQuick(i, replaced);
+            }
+        }
+    }
+
+    private void emitLiteralsTopDown(ObjList<ExpressionNode> list, QueryModel model) {
+        for (int i = 0, n = list.size(); i < n; i++) {
+            emitLiteralsTopDown(list.getQuick(i), model);
+        }
+    }
+
     private void emitLiteralsTopDown(@Transient ExpressionNode node, QueryModel model) {
         this.sqlNodeStack.clear();
 
@@ -1616,6 +1639,7 @@ class SqlOptimiser {
                 TableUtils.ANY_TABLE_VERSION
         )) {
             model.setTableVersion(r.getVersion());
+            model.setTableRowCount(r.size());
             copyColumnsFromMetadata(model, r.getMetadata());
         } catch (EntryLockedException e) {
             throw SqlException.position(tableNamePosition).put("table is locked: ").put(tableLookupSequence);
@@ -1806,6 +1830,7 @@ class SqlOptimiser {
             createImpliedDependencies(model);
             homogenizeCrossJoins(model);
             reorderTables(model);
+            chooseHashJoinBuildSide(model);
             assignFilters(model);
             alignJoinClauses(model);
             addTransitiveFilters(model);
@@ -1995,7 +2020,13 @@ class SqlOptimiser {
         if (nestedIsFlex) {
             final ObjList<QueryColumn> columns = model.getColumns();
             for (int i = 0, n = columns.size(); i < n; i++) {
-                emitLiteralsTopDown(columns.getQuick(i).getAst(), nested);
+                final QueryColumn column = columns.getQuick(i);
+                emitLiteralsTopDown(column.getAst(), nested);
+                if (column instanceof AnalyticColumn) {
+                    final AnalyticColumn ac = (AnalyticColumn) column;
+                    emitLiteralsTopDown(ac.getPartitionBy(), nested);
+                    emitLiteralsTopDown(ac.getOrderBy(), nested);
+                }
             }
         }
 
@@ -2130,6 +2161,36 @@ class SqlOptimiser {
         assert root != -1;
     }
 
+    /**
+     * Hash joins build their hash table from the slave side and stream the master. When the first
+     * table in join order is smaller than the table inner joined to it, hash table is better built
+     * from the master instead. Join output then follows the slave, so this is done only when parent
+     * does not rely on the order of join output.
+     */
+    private void chooseHashJoinBuildSide(QueryModel parent) {
+        if (parent.getOrderByAdviceMnemonic() != OrderByMnemonic.ORDER_BY_INVARIANT
+                || parent.getOrderBy().size() > 0
+                || parent.getLimitLo() != null
+                || parent.getSampleBy() != null
+                || parent.getLatestBy().size() > 0) {
+            return;
+        }
+
+        final ObjList<QueryModel> joinModels = parent.getJoinModels();
+        final IntList ordered = parent.getOrderedJoinModels();
+        final QueryModel master = joinModels.getQuick(ordered.getQuick(0));
+        final QueryModel slave = joinModels.getQuick(ordered.getQuick(1));
+
+        if (slave.getJoinType() == QueryModel.JOIN_INNER
+                && slave.getContext() != null
+                && master.getNestedModel() == null
+                && slave.getNestedModel() == null
+                && master.getTableRowCount() > -1
+                && slave.getTableRowCount() > master.getTableRowCount()) {
+            slave.setHashJoinBuildMaster(true);
+        }
+    }
+
     private ExpressionNode replaceIfAggregate(@Transient ExpressionNode node, QueryModel model) {
         if (node != null && functionParser.isGroupBy(node.token)) {
             QueryColumn c = queryColumnPool.next().of(createColumnAlias(node, model), node);
@@ -2573,6 +2634,11 @@ class SqlOptimiser {
 
                         // ensure literals referenced by analytic column are present in nested models
                         emitLiterals(qc.getAst(), translatingModel, innerModel, baseModel);
+
+                        // partition and order keys are evaluated against nested model too
+                        final AnalyticColumn ac = (AnalyticColumn) qc;
+                        emitAnalyticKeys(ac.getPartitionBy(), translatingModel, innerModel, baseModel);
+                        emitAnalyticKeys(ac.getOrderBy(), translatingModel, innerModel, baseModel);
                         useAnalyticModel = true;
                         continue;
                     } else if (functionParser.isGroupBy(qc.getAst().token)) {
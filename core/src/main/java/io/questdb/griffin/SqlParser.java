@@ -25,6 +25,7 @@
 package io.questdb.griffin;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnCodec;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableUtils;
@@ -398,11 +399,13 @@ public final class SqlParser {
         }
 
         while ((tok = optTok(lexer)) != null && Chars.equals(tok, ',')) {
-            tok = tok(lexer, "'index' or 'cast'");
+            tok = tok(lexer, "'index', 'cast' or 'compress'");
             if (isIndexKeyword(tok)) {
                 parseCreateTableIndexDef(lexer, model);
             } else if (isCastKeyword(tok)) {
                 parseCreateTableCastDef(lexer, model);
+            } else if (isCompressKeyword(tok)) {
+                parseCreateTableCompressDef(lexer, model);
             } else {
                 throw errUnexpected(lexer, tok);
             }
@@ -419,7 +422,7 @@ public final class SqlParser {
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -584,6 +587,19 @@ public final class SqlParser {
         }
     }
 
+    private void parseCreateTableCompressDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        expectTok(lexer, '(');
+        final ExpressionNode columnName = expectLiteral(lexer);
+        final int columnIndex = getCreateTableColumnIndex(model, columnName.token, columnName.position);
+        // column types of 'create table as' are validated by compiler
+        final int type = model.getColumnType(columnIndex);
+        if (type != -1 && !ColumnCodec.isSupported(type)) {
+            throw SqlException.$(columnName.position, "compression is supported for TIMESTAMP, DOUBLE and SYMBOL columns only");
+        }
+        model.setCompressed(columnIndex);
+        expectTok(lexer, ')');
+    }
+
     private void parseCreateTableIndexDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
         expectTok(lexer, '(');
         final int columnIndex = getCreateTableColumnIndex(model, expectLiteral(lexer).token, lexer.lastTokenPosition());
@@ -731,6 +747,7 @@ public final class SqlParser {
             }
 
             final CharSequence alias;
+            final boolean aliased;
 
             tok = optTok(lexer);
 
@@ -743,9 +760,11 @@ public final class SqlParser {
                 } else {
                     alias = GenericLexer.immutableOf(tok);
                 }
+                aliased = true;
                 tok = optTok(lexer);
             } else {
                 alias = createColumnAlias(expr, model);
+                aliased = false;
             }
 
             if (tok != null && isOverKeyword(tok)) {
@@ -785,8 +804,19 @@ public final class SqlParser {
                     } while (Chars.equals(tok, ','));
                 }
                 expectTok(tok, lexer.lastTokenPosition(), ')');
-                model.addBottomUpColumn(col);
                 tok = tok(lexer, "'from' or ','");
+
+                // alias can also follow OVER clause, e.g. "row_number() over () rn"
+                if (!aliased && columnAliasStop.excludes(tok) && !setOperations.contains(tok)) {
+                    assertNotDot(lexer, tok);
+                    if (isAsKeyword(tok)) {
+                        col.of(GenericLexer.unquote(GenericLexer.immutableOf(tok(lexer, "alias"))), expr);
+                    } else {
+                        col.of(GenericLexer.immutableOf(tok), expr);
+                    }
+                    tok = optTok(lexer);
+                }
+                model.addBottomUpColumn(col);
             } else {
                 if (expr.type == ExpressionNode.QUERY) {
                     throw SqlException.$(expr.position, "query is not expected, did you mean column?");
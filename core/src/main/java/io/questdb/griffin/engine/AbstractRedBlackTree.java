@@ -186,12 +186,107 @@ public abstract class AbstractRedBlackTree implements Mutable, Closeable {
         return BLOCK_SIZE;
     }
 
+    /**
+     * Unlinks rightmost node from the tree and re-balances the tree. Memory of the node
+     * is not released, it is up to subclass to reuse it.
+     *
+     * @return address of unlinked block or -1 when tree is empty
+     */
+    protected long removeRightmost() {
+        long z = root;
+        if (z == -1) {
+            return -1;
+        }
+        long r;
+        while ((r = rightOf(z)) != -1) {
+            z = r;
+        }
+
+        // rightmost node has no right child, it is replaced by its left sub-tree
+        long x = leftOf(z);
+        long px = parentOf(z);
+        if (x != -1) {
+            setParent(x, px);
+        }
+        if (px == -1) {
+            root = x;
+        } else {
+            setRight(px, x);
+        }
+
+        if (colorOf(z) == BLACK) {
+            fixAfterRemoval(x, px);
+        }
+        return z;
+    }
+
     protected void putParent(long value) {
         root = allocateBlock();
         setRef(root, value);
         setParent(root, -1);
     }
 
+    private void fixAfterRemoval(long x, long px) {
+        // x replaced removed node on the right of px, it can be -1
+        boolean left = false;
+        while (x != root && colorOf(x) == BLACK) {
+            if (left) {
+                long w = rightOf(px);
+                if (colorOf(w) == RED) {
+                    setColor(w, BLACK);
+                    setColor(px, RED);
+                    rotateLeft(px);
+                    w = rightOf(px);
+                }
+                if (colorOf(leftOf(w)) == BLACK && colorOf(rightOf(w)) == BLACK) {
+                    setColor(w, RED);
+                    x = px;
+                } else {
+                    if (colorOf(rightOf(w)) == BLACK) {
+                        setColor(leftOf(w), BLACK);
+                        setColor(w, RED);
+                        rotateRight(w);
+                        w = rightOf(px);
+                    }
+                    setColor(w, colorOf(px));
+                    setColor(px, BLACK);
+                    setColor(rightOf(w), BLACK);
+                    rotateLeft(px);
+                    x = root;
+                }
+            } else {
+                long w = leftOf(px);
+                if (colorOf(w) == RED) {
+                    setColor(w, BLACK);
+                    setColor(px, RED);
+                    rotateRight(px);
+                    w = leftOf(px);
+                }
+                if (colorOf(rightOf(w)) == BLACK && colorOf(leftOf(w)) == BLACK) {
+                    setColor(w, RED);
+                    x = px;
+                } else {
+                    if (colorOf(leftOf(w)) == BLACK) {
+                        setColor(rightOf(w), BLACK);
+                        setColor(w, RED);
+                        rotateLeft(w);
+                        w = leftOf(px);
+                    }
+                    setColor(w, colorOf(px));
+                    setColor(px, BLACK);
+                    setColor(leftOf(w), BLACK);
+                    rotateRight(px);
+                    x = root;
+                }
+            }
+            px = parentOf(x);
+            left = px != -1 && x == leftOf(px);
+        }
+        if (x != -1) {
+            setColor(x, BLACK);
+        }
+    }
+
     private void rotateLeft(long p) {
         if (p != -1) {
             final long r = rightOf(p);
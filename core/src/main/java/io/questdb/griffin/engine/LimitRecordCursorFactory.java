@@ -39,6 +39,11 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
         this.cursor = new LimitRecordCursor(loFunction, hiFunction);
     }
 
+    @Override
+    public void close() {
+        base.close();
+    }
+
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
         cursor.of(base.getCursor(executionContext), executionContext);
@@ -130,7 +135,7 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
             } else if (lo > -1 && hiFunction == null) {
                 // first N rows
                 limit = lo;
-                size = lo;
+                size = clampSize(0, lo);
             } else {
                 // at this stage we have 'hi'
                 long hi = hiFunction.getLong(null);
@@ -166,7 +171,7 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
                         base.toTop();
                     } else {
                         limit = hi - lo;
-                        size = limit;
+                        size = clampSize(lo, hi);
                     }
 
                     if (lo > 0 && limit > 0) {
@@ -176,6 +181,15 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
             }
         }
 
+        // number of rows between lo and hi when base cursor size is known
+        private long clampSize(long lo, long hi) {
+            final long baseSize = base.size();
+            if (baseSize < 0) {
+                return hi - lo;
+            }
+            return Math.max(0, Math.min(hi, baseSize) - lo);
+        }
+
         private long countRows() {
             long count = base.size();
             if (count > -1) {
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.IntList;
+import io.questdb.std.Long256;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Record of analytic cursor. Column indexes map record columns either to columns of base record,
+ * when index is positive, or to analytic functions, where function index is encoded as -index - 1.
+ * Function values are taken either from functions themselves, when analytic values are computed
+ * along with base cursor, or from materialized values of current row.
+ */
+class AnalyticRecord implements Record {
+    private final IntList columnIndexes;
+    private final ObjList<AnalyticFunction> functions;
+    private final ObjList<DirectLongList> values;
+    private Record base;
+    private long row;
+
+    AnalyticRecord(IntList columnIndexes, ObjList<AnalyticFunction> functions, ObjList<DirectLongList> values) {
+        this.columnIndexes = columnIndexes;
+        this.functions = functions;
+        this.values = values;
+    }
+
+    @Override
+    public BinarySequence getBin(int col) {
+        return base.getBin(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public long getBinLen(int col) {
+        return base.getBinLen(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public boolean getBool(int col) {
+        return base.getBool(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public byte getByte(int col) {
+        return base.getByte(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public char getChar(int col) {
+        return base.getChar(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public long getDate(int col) {
+        return base.getDate(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public double getDouble(int col) {
+        final int index = columnIndexes.getQuick(col);
+        if (index > -1) {
+            return base.getDouble(index);
+        }
+        if (values == null) {
+            return functions.getQuick(-index - 1).getDouble(base);
+        }
+        return Double.longBitsToDouble(values.getQuick(-index - 1).get(row));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        return base.getFloat(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public int getInt(int col) {
+        return base.getInt(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public long getLong(int col) {
+        final int index = columnIndexes.getQuick(col);
+        if (index > -1) {
+            return base.getLong(index);
+        }
+        if (values == null) {
+            return functions.getQuick(-index - 1).getLong(base);
+        }
+        return values.getQuick(-index - 1).get(row);
+    }
+
+    @Override
+    public void getLong256(int col, CharSink sink) {
+        base.getLong256(columnIndexes.getQuick(col), sink);
+    }
+
+    @Override
+    public Long256 getLong256A(int col) {
+        return base.getLong256A(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public Long256 getLong256B(int col) {
+        return base.getLong256B(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public short getShort(int col) {
+        return base.getShort(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public CharSequence getStr(int col) {
+        return base.getStr(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public void getStr(int col, CharSink sink) {
+        base.getStr(columnIndexes.getQuick(col), sink);
+    }
+
+    @Override
+    public CharSequence getStrB(int col) {
+        return base.getStrB(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public int getStrLen(int col) {
+        return base.getStrLen(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public CharSequence getSym(int col) {
+        return base.getSym(columnIndexes.getQuick(col));
+    }
+
+    @Override
+    public long getTimestamp(int col) {
+        return base.getTimestamp(columnIndexes.getQuick(col));
+    }
+
+    void of(Record base) {
+        this.base = base;
+    }
+
+    void of(Record base, long row) {
+        this.base = base;
+        this.row = row;
+    }
+}
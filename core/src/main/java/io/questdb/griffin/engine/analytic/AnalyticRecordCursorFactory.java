@@ -0,0 +1,159 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Computes analytic functions in single pass over base cursor. This is only possible when base
+ * cursor returns rows in window order of every function, e.g. windows are not ordered or are ordered by
+ * designated timestamp, and functions do not need to see rows ahead of the current one.
+ */
+public class AnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<AnalyticWindow> windows;
+    private final ObjList<AnalyticFunction> functions;
+    private final AnalyticRecordCursor cursor;
+
+    public AnalyticRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            ObjList<AnalyticWindow> windows,
+            IntList columnIndexes
+    ) {
+        super(metadata);
+        this.base = base;
+        this.windows = windows;
+        this.functions = new ObjList<>(windows.size());
+        for (int i = 0, n = windows.size(); i < n; i++) {
+            functions.add(windows.getQuick(i).getFunction());
+        }
+        this.cursor = new AnalyticRecordCursor(new AnalyticRecord(columnIndexes, functions, null), columnIndexes);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(windows);
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            functions.getQuick(i).init(baseCursor, executionContext);
+        }
+        cursor.of(baseCursor);
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private class AnalyticRecordCursor implements RecordCursor {
+        private final AnalyticRecord record;
+        private final IntList columnIndexes;
+        private RecordCursor baseCursor;
+        private Record baseRecord;
+
+        public AnalyticRecordCursor(AnalyticRecord record, IntList columnIndexes) {
+            this.record = record;
+            this.columnIndexes = columnIndexes;
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndexes.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (baseCursor.hasNext()) {
+                for (int i = 0, n = windows.size(); i < n; i++) {
+                    windows.getQuick(i).computeNext(baseRecord);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void toTop() {
+            baseCursor.toTop();
+            clearWindows();
+        }
+
+        @Override
+        public long size() {
+            return baseCursor.size();
+        }
+
+        private void clearWindows() {
+            for (int i = 0, n = windows.size(); i < n; i++) {
+                windows.getQuick(i).clear();
+            }
+        }
+
+        private void of(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+            this.baseRecord = baseCursor.getRecord();
+            record.of(baseRecord);
+            clearWindows();
+        }
+    }
+}
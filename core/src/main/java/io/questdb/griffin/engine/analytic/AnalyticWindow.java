@@ -0,0 +1,199 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
+import io.questdb.griffin.engine.groupby.SimpleMapValue;
+import io.questdb.griffin.engine.orderby.RecordComparator;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Analytic function together with its OVER clause. Window keeps state of every partition in
+ * off-heap map keyed on "partition by" columns and detects peers, which are consecutive rows of the
+ * same partition with equal "order by" values. First value of partition state is reserved for
+ * "order by" value of the last row of the partition.
+ */
+public class AnalyticWindow implements Closeable, Mutable {
+    private final AnalyticFunction function;
+    private final RecordSink partitionSink;
+    private final Map partitions;
+    private final SimpleMapValue singlePartition;
+    private final RecordComparator comparator;
+    private final int timestampIndex;
+    private boolean singlePartitionEmpty = true;
+    private boolean newPartition;
+
+    /**
+     * @param function          analytic function
+     * @param partitionSink     copies "partition by" columns into map key, null when window is not partitioned
+     * @param partitionKeyTypes types of "partition by" columns
+     * @param comparator        compares "order by" columns of materialized rows, null when window is not ordered
+     *                          or when rows arrive in window order
+     * @param timestampIndex    index of designated timestamp when window is ordered by it and rows arrive
+     *                          in window order, otherwise -1
+     */
+    public AnalyticWindow(
+            CairoConfiguration configuration,
+            AnalyticFunction function,
+            @Nullable RecordSink partitionSink,
+            @Transient ColumnTypes partitionKeyTypes,
+            @Nullable RecordComparator comparator,
+            int timestampIndex
+    ) {
+        this.function = function;
+        this.partitionSink = partitionSink;
+        this.comparator = comparator;
+        this.timestampIndex = timestampIndex;
+
+        final ArrayColumnTypes valueTypes = new ArrayColumnTypes();
+        valueTypes.add(ColumnType.LONG);
+        function.pushValueTypes(valueTypes);
+
+        if (partitionSink != null) {
+            this.partitions = MapFactory.createMap(configuration, partitionKeyTypes, valueTypes);
+            this.singlePartition = null;
+        } else {
+            this.partitions = null;
+            this.singlePartition = new SimpleMapValue(valueTypes.getColumnCount());
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (partitions != null) {
+            partitions.clear();
+        }
+        singlePartitionEmpty = true;
+        function.reset();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(partitions);
+        function.close();
+    }
+
+    /**
+     * Feeds row to the function when rows arrive in window order.
+     *
+     * @param record current row
+     */
+    public void computeNext(Record record) {
+        final MapValue value = valueOf(record);
+        boolean peer = !newPartition;
+        if (timestampIndex != -1) {
+            final long timestamp = record.getTimestamp(timestampIndex);
+            peer = peer && value.getLong(0) == timestamp;
+            value.putLong(0, timestamp);
+        }
+        function.pass1(record, value, peer);
+    }
+
+    /**
+     * Feeds materialized row to the function. Rows are fed in window order, "order by" values of
+     * current row are compared to last row of the partition, which is found via row id.
+     *
+     * @param record  current row
+     * @param cursor  cursor over materialized rows
+     * @param recordB record, which is free to be positioned at random rows
+     */
+    public void computeNext(Record record, RecordCursor cursor, Record recordB) {
+        final MapValue value = valueOf(record);
+        boolean peer = !newPartition;
+        if (peer && comparator != null) {
+            cursor.recordAt(recordB, value.getLong(0));
+            comparator.setLeft(record);
+            peer = comparator.compare(recordB) == 0;
+        }
+        value.putLong(0, record.getRowId());
+        function.pass1(record, value, peer);
+    }
+
+    /**
+     * Publishes partition total for row, all rows must have been fed to {@link #computeNext(Record, RecordCursor, Record)}
+     * beforehand.
+     *
+     * @param record current row
+     */
+    public void computeTotal(Record record) {
+        final MapValue value;
+        if (partitions == null) {
+            value = singlePartition;
+        } else {
+            final MapKey key = partitions.withKey();
+            key.put(record, partitionSink);
+            value = key.findValue();
+        }
+        function.pass2(value);
+    }
+
+    public RecordComparator getComparator() {
+        return comparator;
+    }
+
+    public AnalyticFunction getFunction() {
+        return function;
+    }
+
+    public boolean isTotalRequired() {
+        return function.isAggregate() && comparator == null && timestampIndex == -1;
+    }
+
+    private MapValue valueOf(Record record) {
+        final MapValue value;
+        if (partitions == null) {
+            value = singlePartition;
+            newPartition = singlePartitionEmpty;
+            singlePartitionEmpty = false;
+        } else {
+            final MapKey key = partitions.withKey();
+            key.put(record, partitionSink);
+            value = key.createValue();
+            newPartition = value.isNew();
+        }
+
+        if (newPartition) {
+            function.initValue(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
+import io.questdb.griffin.engine.orderby.LongTreeChain;
+import io.questdb.griffin.engine.orderby.RecordComparator;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+
+/**
+ * Computes analytic functions over materialized base cursor. Rows are copied into {@link RecordChain}
+ * along with their sequence number in the base cursor. Rows of every window are then sorted in window
+ * order, unless window is not ordered, and fed to analytic function. Values of the function are kept
+ * off-heap by row sequence number. Cursor returns rows in order of base cursor.
+ */
+public class CachedAnalyticRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<AnalyticWindow> windows;
+    private final ObjList<AnalyticFunction> functions;
+    private final ObjList<DirectLongList> values;
+    private final RecordChain chain;
+    private final LongTreeChain tree;
+    private final DirectLongList rows;
+    private final DirectLongList orderedRows;
+    private final int rowSequenceIndex;
+    private final CachedAnalyticRecordCursor cursor;
+
+    public CachedAnalyticRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            RecordSink recordSink,
+            ObjList<AnalyticWindow> windows,
+            IntList columnIndexes
+    ) {
+        super(metadata);
+        this.base = base;
+        this.windows = windows;
+
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final ArrayColumnTypes chainTypes = new ArrayColumnTypes();
+        for (int i = 0, n = baseMetadata.getColumnCount(); i < n; i++) {
+            chainTypes.add(baseMetadata.getColumnType(i));
+        }
+        this.rowSequenceIndex = chainTypes.getColumnCount();
+        chainTypes.add(ColumnType.LONG);
+
+        this.chain = new RecordChain(
+                chainTypes,
+                recordSink,
+                configuration.getSqlSortValuePageSize(),
+                configuration.getSqlSortValueMaxPages()
+        );
+        this.tree = new LongTreeChain(
+                configuration.getSqlSortKeyPageSize(),
+                configuration.getSqlSortKeyMaxPages(),
+                configuration.getSqlSortLightValuePageSize(),
+                configuration.getSqlSortLightValueMaxPages()
+        );
+
+        final int windowCount = windows.size();
+        this.functions = new ObjList<>(windowCount);
+        this.values = new ObjList<>(windowCount);
+        this.rows = new DirectLongList(configuration.getSqlMapKeyCapacity());
+        this.orderedRows = new DirectLongList(configuration.getSqlMapKeyCapacity());
+        for (int i = 0; i < windowCount; i++) {
+            functions.add(windows.getQuick(i).getFunction());
+            values.add(new DirectLongList(configuration.getSqlMapKeyCapacity()));
+        }
+        this.cursor = new CachedAnalyticRecordCursor(new AnalyticRecord(columnIndexes, functions, values), columnIndexes);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(windows);
+        Misc.freeObjList(values);
+        Misc.free(rows);
+        Misc.free(orderedRows);
+        Misc.free(chain);
+        Misc.free(tree);
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            for (int i = 0, n = functions.size(); i < n; i++) {
+                functions.getQuick(i).init(baseCursor, executionContext);
+            }
+            materialize(baseCursor, executionContext.getSqlExecutionInterruptor());
+            for (int i = 0, n = windows.size(); i < n; i++) {
+                compute(windows.getQuick(i), values.getQuick(i));
+            }
+            cursor.of(baseCursor);
+            return cursor;
+        } catch (RuntimeException e) {
+            baseCursor.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private static long valueOf(AnalyticFunction function) {
+        if (function.getType() == ColumnType.DOUBLE) {
+            return Double.doubleToRawLongBits(function.getDouble(null));
+        }
+        return function.getLong(null);
+    }
+
+    private void compute(AnalyticWindow window, DirectLongList values) {
+        final AnalyticFunction function = window.getFunction();
+        final Record record = chain.getRecord();
+        final Record recordB = chain.getRecordB();
+        final RecordComparator comparator = window.getComparator();
+        final int rowCount = rows.size();
+
+        window.clear();
+        values.setCapacity(rowCount);
+        values.setPos(rowCount);
+
+        final DirectLongList order;
+        if (comparator != null) {
+            // tree chains peer rows in reverse order of insertion, feeding rows
+            // backwards keeps peers in order of base cursor
+            tree.clear();
+            for (int i = rowCount - 1; i > -1; i--) {
+                chain.recordAt(record, rows.get(i));
+                tree.put(record, chain, recordB, comparator);
+            }
+
+            orderedRows.clear();
+            final LongTreeChain.TreeCursor treeCursor = tree.getCursor();
+            while (treeCursor.hasNext()) {
+                orderedRows.add(treeCursor.next());
+            }
+            order = orderedRows;
+        } else {
+            order = rows;
+        }
+
+        final boolean reversed = function.isReversed();
+        for (int i = 0; i < rowCount; i++) {
+            chain.recordAt(record, order.get(reversed ? rowCount - i - 1 : i));
+            window.computeNext(record, chain, recordB);
+            values.set(record.getLong(rowSequenceIndex), valueOf(function));
+        }
+
+        if (window.isTotalRequired()) {
+            for (int i = 0; i < rowCount; i++) {
+                chain.recordAt(record, rows.get(i));
+                window.computeTotal(record);
+                values.set(i, valueOf(function));
+            }
+        }
+    }
+
+    private void materialize(RecordCursor baseCursor, SqlExecutionInterruptor interruptor) {
+        final Record baseRecord = baseCursor.getRecord();
+        chain.clear();
+        chain.setSymbolTableResolver(baseCursor);
+        rows.clear();
+
+        long offset = -1;
+        long sequence = 0;
+        while (baseCursor.hasNext()) {
+            interruptor.checkInterrupted();
+            offset = chain.put(baseRecord, offset);
+            chain.putLong(sequence++);
+            rows.add(offset);
+        }
+    }
+
+    private class CachedAnalyticRecordCursor implements RecordCursor {
+        private final AnalyticRecord record;
+        private final IntList columnIndexes;
+        private RecordCursor baseCursor;
+        private long row;
+
+        public CachedAnalyticRecordCursor(AnalyticRecord record, IntList columnIndexes) {
+            this.record = record;
+            this.columnIndexes = columnIndexes;
+        }
+
+        @Override
+        public void close() {
+            baseCursor = Misc.free(baseCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return baseCursor.getSymbolTable(columnIndexes.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (row < rows.size()) {
+                final Record chainRecord = chain.getRecord();
+                chain.recordAt(chainRecord, rows.get(row));
+                record.of(chainRecord, row++);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void toTop() {
+            row = 0;
+        }
+
+        @Override
+        public long size() {
+            return rows.size();
+        }
+
+        private void of(RecordCursor baseCursor) {
+            this.baseCursor = baseCursor;
+            this.row = 0;
+        }
+    }
+}
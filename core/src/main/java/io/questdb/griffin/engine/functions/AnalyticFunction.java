@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+
+/**
+ * Function evaluated over window of rows defined by OVER clause. Rows are fed to the function in window
+ * order, e.g. sorted by "order by" clause of the window. Rows of different partitions can interleave, function
+ * keeps per-partition state in the supplied map value. Value for the current row is available via
+ * getters of the function after {@link #pass1(Record, MapValue, boolean)} returns.
+ */
+public interface AnalyticFunction extends Function {
+
+    /**
+     * Called for first row of every partition before {@link #pass1(Record, MapValue, boolean)}.
+     *
+     * @param value partition state
+     */
+    void initValue(MapValue value);
+
+    /**
+     * Aggregate functions compute value over whole partition when window has no "order by" clause.
+     * Such windows require second pass over rows to publish partition totals.
+     *
+     * @return true when function requires {@link #pass2(MapValue)} for windows without "order by".
+     */
+    default boolean isAggregate() {
+        return false;
+    }
+
+    /**
+     * Functions that look ahead, such as lead(), are computed as their look-behind counterparts
+     * over rows in reverse window order.
+     *
+     * @return true when rows have to be fed to the function in reverse window order.
+     */
+    default boolean isReversed() {
+        return false;
+    }
+
+    /**
+     * Computes function value for the current row.
+     *
+     * @param record current row
+     * @param value  state of partition the row belongs to
+     * @param peer   true when row has the same "order by" values as the previous row of the partition
+     */
+    void pass1(Record record, MapValue value, boolean peer);
+
+    /**
+     * Publishes partition total for the current row. Only called for aggregate functions.
+     *
+     * @param value state of partition the row belongs to
+     */
+    default void pass2(MapValue value) {
+    }
+
+    void pushValueTypes(ArrayColumnTypes columnTypes);
+
+    /**
+     * Releases state function keeps outside of partition map values, which is done before
+     * rows are fed again.
+     */
+    default void reset() {
+    }
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Running average, see {@link SumDoubleAnalyticFunction} for window frame.
+ */
+public class AvgDoubleAnalyticFunction extends SumDoubleAnalyticFunction {
+
+    public AvgDoubleAnalyticFunction(int position, @NotNull Function arg) {
+        super(position, arg);
+    }
+
+    @Override
+    protected double valueOf(MapValue mapValue) {
+        final long count = mapValue.getLong(valueIndex + 1);
+        return count > 0 ? mapValue.getDouble(valueIndex) / count : Double.NaN;
+    }
+}
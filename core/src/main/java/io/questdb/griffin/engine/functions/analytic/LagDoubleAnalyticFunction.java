@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.VirtualMemory;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.Misc;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Value of argument "offset" rows behind current row of the partition. Last "offset" values of every
+ * partition are kept in ring buffer allocated off-heap. Same function computes lead() when it is fed
+ * rows in reverse window order.
+ */
+public class LagDoubleAnalyticFunction extends DoubleFunction implements AnalyticFunction, UnaryFunction {
+    private final Function arg;
+    private final long offset;
+    private final double defaultValue;
+    private final boolean reversed;
+    private final VirtualMemory ring;
+    private int valueIndex;
+    private double value;
+
+    public LagDoubleAnalyticFunction(
+            int position,
+            @NotNull Function arg,
+            long offset,
+            double defaultValue,
+            boolean reversed,
+            long pageSize,
+            int maxPages
+    ) {
+        super(position);
+        this.arg = arg;
+        this.offset = offset;
+        this.defaultValue = defaultValue;
+        this.reversed = reversed;
+        this.ring = offset > 0 ? new VirtualMemory(pageSize, maxPages) : null;
+    }
+
+    @Override
+    public void close() {
+        arg.close();
+        Misc.free(ring);
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void initValue(MapValue mapValue) {
+        mapValue.putLong(valueIndex, 0);
+        if (ring != null) {
+            mapValue.putLong(valueIndex + 1, ring.getAppendOffset());
+            for (long i = 0; i < offset; i++) {
+                ring.putDouble(Double.NaN);
+            }
+        }
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    @Override
+    public void pass1(Record record, MapValue mapValue, boolean peer) {
+        final double current = arg.getDouble(record);
+        if (ring == null) {
+            value = current;
+            return;
+        }
+
+        final long count = mapValue.getLong(valueIndex);
+        final long slot = mapValue.getLong(valueIndex + 1) + (count % offset) * Double.BYTES;
+        value = count < offset ? defaultValue : ring.getDouble(slot);
+        ring.putDouble(slot, current);
+        mapValue.putLong(valueIndex, count + 1);
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        // row count
+        columnTypes.add(ColumnType.LONG);
+        // offset of partition ring buffer
+        columnTypes.add(ColumnType.LONG);
+    }
+
+    @Override
+    public void reset() {
+        if (ring != null) {
+            ring.jumpTo(0);
+        }
+    }
+}
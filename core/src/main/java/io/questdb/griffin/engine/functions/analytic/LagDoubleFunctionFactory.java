@@ -0,0 +1,92 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.ObjList;
+
+public class LagDoubleFunctionFactory implements FunctionFactory {
+
+    static Function newInstance(
+            ObjList<Function> args,
+            int position,
+            CairoConfiguration configuration,
+            boolean reversed
+    ) throws SqlException {
+        final int argCount = args.size();
+        if (argCount > 3) {
+            throw SqlException.$(args.getQuick(3).getPosition(), "too many arguments");
+        }
+
+        long offset = 1;
+        if (argCount > 1) {
+            final Function offsetArg = args.getQuick(1);
+            switch (offsetArg.getType()) {
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                    offset = offsetArg.getLong(null);
+                    break;
+                default:
+                    throw SqlException.$(offsetArg.getPosition(), "integer offset expected");
+            }
+            if (offset < 0) {
+                throw SqlException.$(offsetArg.getPosition(), "offset must not be negative");
+            }
+        }
+
+        final double defaultValue = argCount > 2 ? args.getQuick(2).getDouble(null) : Double.NaN;
+        return new LagDoubleAnalyticFunction(
+                position,
+                args.getQuick(0),
+                offset,
+                defaultValue,
+                reversed,
+                configuration.getSqlMapPageSize(),
+                configuration.getSqlMapMaxPages()
+        );
+    }
+
+    @Override
+    public String getSignature() {
+        return "lag(Dv)";
+    }
+
+    @Override
+    public boolean isAnalytic() {
+        return true;
+    }
+
+    @Override
+    public Function newInstance(ObjList<Function> args, int position, CairoConfiguration configuration) throws SqlException {
+        return newInstance(args, position, configuration, false);
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.SymbolTableSource;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+
+/**
+ * Rank of row within its partition. Peers, which are rows with the same "order by" values,
+ * share rank and leave gap in the sequence of ranks after them.
+ */
+public class RankAnalyticFunction extends LongFunction implements AnalyticFunction {
+    private int valueIndex;
+    private long value;
+
+    public RankAnalyticFunction(int position) {
+        super(position);
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void init(SymbolTableSource symbolTableSource, SqlExecutionContext executionContext) {
+    }
+
+    @Override
+    public void initValue(MapValue mapValue) {
+        mapValue.putLong(valueIndex, 0);
+        mapValue.putLong(valueIndex + 1, 0);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public void pass1(Record record, MapValue mapValue, boolean peer) {
+        mapValue.addLong(valueIndex, 1);
+        if (!peer) {
+            mapValue.putLong(valueIndex + 1, mapValue.getLong(valueIndex));
+        }
+        value = mapValue.getLong(valueIndex + 1);
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        // row count
+        columnTypes.add(ColumnType.LONG);
+        // rank of current peer group
+        columnTypes.add(ColumnType.LONG);
+    }
+}
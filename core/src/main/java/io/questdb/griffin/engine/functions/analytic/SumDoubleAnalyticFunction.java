@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.analytic;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.AnalyticFunction;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.Numbers;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Running sum of argument over rows of the partition up to and including current row. When window
+ * has no "order by" clause every row of the partition gets sum of the whole partition.
+ * Null values are skipped, sum of nulls is null.
+ */
+public class SumDoubleAnalyticFunction extends DoubleFunction implements AnalyticFunction, UnaryFunction {
+    private final Function arg;
+    protected int valueIndex;
+    private double value;
+
+    public SumDoubleAnalyticFunction(int position, @NotNull Function arg) {
+        super(position);
+        this.arg = arg;
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        return value;
+    }
+
+    @Override
+    public void initValue(MapValue mapValue) {
+        mapValue.putDouble(valueIndex, 0);
+        mapValue.putLong(valueIndex + 1, 0);
+    }
+
+    @Override
+    public boolean isAggregate() {
+        return true;
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public void pass1(Record record, MapValue mapValue, boolean peer) {
+        final double current = arg.getDouble(record);
+        if (Numbers.isFinite(current)) {
+            mapValue.addDouble(valueIndex, current);
+            mapValue.addLong(valueIndex + 1, 1);
+        }
+        value = valueOf(mapValue);
+    }
+
+    @Override
+    public void pass2(MapValue mapValue) {
+        value = valueOf(mapValue);
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        columnTypes.add(ColumnType.DOUBLE);
+        columnTypes.add(ColumnType.LONG);
+    }
+
+    protected double valueOf(MapValue mapValue) {
+        return mapValue.getLong(valueIndex + 1) > 0 ? mapValue.getDouble(valueIndex) : Double.NaN;
+    }
+}
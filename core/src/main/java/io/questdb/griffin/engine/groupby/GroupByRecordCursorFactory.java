@@ -53,7 +53,9 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
     protected final RecordCursorFactory base;
     private final Map dataMap;
-    private final VirtualFunctionSkewedSymbolRecordCursor cursor;
+    private final GroupBySpill spill;
+    private final long memoryBudget;
+    private final GroupByRecordCursor cursor;
     private final ObjList<Function> recordFunctions;
     private final ObjList<GroupByFunction> groupByFunctions;
     private final RecordSink mapSink;
@@ -76,11 +78,13 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         try {
             this.dataMap = MapFactory.createMap(configuration, keyTypes, valueTypes);
             this.mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+            this.spill = new GroupBySpill(configuration, asm, base.getMetadata(), keyTypes, valueTypes);
+            this.memoryBudget = configuration.getSqlGroupByMemoryBudget();
             this.base = base;
             this.metadata = groupByMetadata;
             this.groupByFunctions = groupByFunctions;
             this.recordFunctions = recordFunctions;
-            this.cursor = new VirtualFunctionSkewedSymbolRecordCursor(recordFunctions, symbolTableSkewIndex);
+            this.cursor = new GroupByRecordCursor(recordFunctions, symbolTableSkewIndex);
         } catch (CairoException e) {
             Misc.freeObjList(recordFunctions);
             throw e;
@@ -91,6 +95,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     public void close() {
         Misc.freeObjList(recordFunctions);
         Misc.free(dataMap);
+        Misc.free(spill);
         Misc.free(base);
     }
 
@@ -100,22 +105,28 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         final RecordCursor baseCursor = base.getCursor(executionContext);
 
         try {
-            final Record baseRecord = baseCursor.getRecord();
-            final int n = groupByFunctions.size();
-            while (baseCursor.hasNext()) {
-                executionContext.getSqlExecutionInterruptor().checkInterrupted();
-                final MapKey key = dataMap.withKey();
-                mapSink.copy(baseRecord, key);
-                MapValue value = key.createValue();
-                GroupByUtils.updateFunctions(groupByFunctions, n, value, baseRecord);
+            spill.of(baseCursor);
+            aggregate(executionContext, baseCursor);
+            if (spill.isEmpty()) {
+                cursor.of(baseCursor, dataMap.getCursor());
+            } else {
+                spill.flush(dataMap);
+                RecordCursor partition;
+                while ((partition = spill.nextPartition()) != null) {
+                    dataMap.clear();
+                    aggregate(executionContext, partition);
+                    spill.flush(dataMap);
+                }
+                dataMap.clear();
+                cursor.of(baseCursor, spill.getResult());
             }
-            cursor.of(baseCursor, dataMap.getCursor());
             // init all record function for this cursor, in case functions require metadata and/or symbol tables
             for (int i = 0, m = recordFunctions.size(); i < m; i++) {
                 recordFunctions.getQuick(i).init(cursor, executionContext);
             }
             return cursor;
         } catch (CairoException e) {
+            spill.clear();
             baseCursor.close();
             throw e;
         }
@@ -130,4 +141,39 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     public boolean recordCursorSupportsRandomAccess() {
         return true;
     }
+
+    private void aggregate(SqlExecutionContext executionContext, RecordCursor cursor) {
+        final Record record = cursor.getRecord();
+        final int n = groupByFunctions.size();
+        while (cursor.hasNext()) {
+            executionContext.getSqlExecutionInterruptor().checkInterrupted();
+            final MapKey key = dataMap.withKey();
+            mapSink.copy(record, key);
+            // map takes at least one key on every pass, which guarantees progress through partitions
+            if (dataMap.getMemorySize() <= memoryBudget || dataMap.size() == 0) {
+                GroupByUtils.updateFunctions(groupByFunctions, n, key.createValue(), record);
+            } else {
+                // hash has to be taken before lookup, which discards key that is not found
+                final int hash = key.hash();
+                final MapValue value = key.findValue();
+                if (value != null) {
+                    GroupByUtils.updateExisting(groupByFunctions, n, value, record);
+                } else {
+                    spill.add(record, hash);
+                }
+            }
+        }
+    }
+
+    private class GroupByRecordCursor extends VirtualFunctionSkewedSymbolRecordCursor {
+        public GroupByRecordCursor(ObjList<Function> functions, IntList symbolTableSkewIndex) {
+            super(functions, symbolTableSkewIndex);
+        }
+
+        @Override
+        public void close() {
+            spill.clear();
+            super.close();
+        }
+    }
 }
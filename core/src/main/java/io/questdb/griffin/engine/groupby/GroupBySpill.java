@@ -0,0 +1,262 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk partitions of hybrid hash aggregation. Once group-by map outgrows memory budget, rows
+ * of keys that are not in the map yet are written to one of partition files, chosen by key hash.
+ * Keys that made it into the map are complete after the pass over the input and are appended to
+ * result file. Partitions are then aggregated one by one, each pass can partition its input
+ * further using different bits of key hash.
+ * <p>
+ * Rows in partition files are copied from base cursor verbatim, symbols are kept as keys and are
+ * resolved using symbol tables of base cursor.
+ */
+class GroupBySpill implements Closeable, Mutable {
+    static final String SPILL_DIR_NAME = ".groupby";
+    private static final Log LOG = LogFactory.getLog(GroupBySpill.class);
+    private static final AtomicLong ID_SEQ = new AtomicLong();
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITION_COUNT = 1 << PARTITION_BITS;
+    private final FilesFacade ff;
+    private final Path path = new Path();
+    private final int rootLen;
+    private final long id = ID_SEQ.incrementAndGet();
+    private final int mkDirMode;
+    private final long pageSize;
+    private final ObjList<ReadWriteMemory> partitionMem = new ObjList<>();
+    private final ObjList<RecordChain> partitions = new ObjList<>();
+    private final LongList partitionTails = new LongList();
+    private final IntList partitionFiles = new IntList();
+    private final IntList pendingFiles = new IntList();
+    private final IntList pendingLevels = new IntList();
+    private final ReadWriteMemory readerMem = new ReadWriteMemory();
+    private final RecordChain reader;
+    private final ReadWriteMemory resultMem = new ReadWriteMemory();
+    private final RecordChain result;
+    private long resultTail = -1;
+    private int readerFile = -1;
+    private int fileCount = 0;
+    private int level = 0;
+
+    GroupBySpill(
+            CairoConfiguration configuration,
+            @Transient BytecodeAssembler asm,
+            @Transient RecordMetadata baseMetadata,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes
+    ) {
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.pageSize = configuration.getSqlMapPageSize();
+        this.rootLen = path.of(configuration.getRoot()).concat(SPILL_DIR_NAME).length();
+
+        final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
+        entityColumnFilter.of(baseMetadata.getColumnCount());
+        final RecordSink baseSink = RecordSinkFactory.getInstance(asm, baseMetadata, entityColumnFilter, false);
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            final ReadWriteMemory mem = new ReadWriteMemory();
+            partitionMem.add(mem);
+            partitions.add(new RecordChain(baseMetadata, baseSink, mem));
+            partitionTails.add(-1);
+            partitionFiles.add(-1);
+        }
+        this.reader = new RecordChain(baseMetadata, baseSink, readerMem);
+
+        // map record has value columns followed by key columns
+        final ArrayColumnTypes mapTypes = new ArrayColumnTypes();
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            mapTypes.add(valueTypes.getColumnType(i));
+        }
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            mapTypes.add(keyTypes.getColumnType(i));
+        }
+        entityColumnFilter.of(mapTypes.getColumnCount());
+        this.result = new RecordChain(mapTypes, RecordSinkFactory.getInstance(asm, mapTypes, entityColumnFilter, false), resultMem);
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            final int file = partitionFiles.getQuick(i);
+            if (file != -1) {
+                partitions.getQuick(i).clear();
+                removeQuietly(partitionPath(file));
+                partitionFiles.setQuick(i, -1);
+                partitionTails.setQuick(i, -1);
+            }
+        }
+        for (int i = 0, n = pendingFiles.size(); i < n; i++) {
+            removeQuietly(partitionPath(pendingFiles.getQuick(i)));
+        }
+        pendingFiles.clear();
+        pendingLevels.clear();
+        closeReader();
+        if (resultMem.isOpen()) {
+            result.clear();
+            removeQuietly(resultPath());
+        }
+        resultTail = -1;
+        fileCount = 0;
+        level = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(path);
+    }
+
+    /**
+     * Writes record of the key, which is not in the group-by map, to partition file.
+     *
+     * @param record record of base cursor or of partition being aggregated
+     * @param hash   hash of record key as calculated by the map, see {@link io.questdb.cairo.map.MapKey#hash()}
+     */
+    void add(Record record, int hash) {
+        // mix in level, so that each pass splits keys by different bits
+        final int partition = ((hash ^ level * 0x27D4EB2D) * 0x9E3779B9) >>> (Integer.SIZE - PARTITION_BITS);
+        if (partitionFiles.getQuick(partition) == -1) {
+            openPartition(partition);
+        }
+        partitionTails.setQuick(partition, partitions.getQuick(partition).put(record, partitionTails.getQuick(partition)));
+    }
+
+    /**
+     * Appends complete aggregates of the map to result file. Partitions written during
+     * the pass are closed and queued for aggregation.
+     *
+     * @param map group-by map after pass over base cursor or over a partition
+     */
+    void flush(Map map) {
+        if (!resultMem.isOpen()) {
+            resultMem.of(ff, resultPath(), pageSize);
+        }
+        final RecordCursor mapCursor = map.getCursor();
+        final MapRecord mapRecord = map.getRecord();
+        while (mapCursor.hasNext()) {
+            resultTail = result.put(mapRecord, resultTail);
+        }
+
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            final int file = partitionFiles.getQuick(i);
+            if (file != -1) {
+                final RecordChain partition = partitions.getQuick(i);
+                // strings are written past append offset of the memory, which is where file is truncated on close
+                partitionMem.getQuick(i).jumpTo(partition.getMemorySize());
+                partition.close();
+                pendingFiles.add(file);
+                pendingLevels.add(level + 1);
+                partitionFiles.setQuick(i, -1);
+                partitionTails.setQuick(i, -1);
+            }
+        }
+        closeReader();
+    }
+
+    RecordCursor getResult() {
+        resultMem.jumpTo(result.getMemorySize());
+        result.toTop();
+        return result;
+    }
+
+    boolean isEmpty() {
+        return fileCount == 0;
+    }
+
+    /**
+     * @return cursor of the next partition to aggregate or null when all partitions are done
+     */
+    RecordCursor nextPartition() {
+        final int n = pendingFiles.size();
+        if (n == 0) {
+            return null;
+        }
+        readerFile = pendingFiles.getQuick(n - 1);
+        level = pendingLevels.getQuick(n - 1);
+        pendingFiles.removeIndex(n - 1);
+        pendingLevels.removeIndex(n - 1);
+        readerMem.of(ff, partitionPath(readerFile), pageSize);
+        reader.toTop();
+        return reader;
+    }
+
+    void of(RecordCursor symbolTableResolver) {
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            partitions.getQuick(i).setSymbolTableResolver(symbolTableResolver);
+        }
+        reader.setSymbolTableResolver(symbolTableResolver);
+        result.setSymbolTableResolver(symbolTableResolver);
+    }
+
+    private void closeReader() {
+        if (readerFile != -1) {
+            reader.clear();
+            removeQuietly(partitionPath(readerFile));
+            readerFile = -1;
+        }
+    }
+
+    private void openPartition(int partition) {
+        if (fileCount == 0) {
+            if (ff.mkdirs(path.trimTo(rootLen).put(Files.SEPARATOR).$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create [dir=").put(path).put(']');
+            }
+        }
+        final int file = fileCount++;
+        partitionMem.getQuick(partition).of(ff, partitionPath(file), pageSize);
+        partitionFiles.setQuick(partition, file);
+        LOG.info().$("spilled group-by partition [id=").$(id).$(", file=").$(file).$(", level=").$(level).$(']').$();
+    }
+
+    private Path partitionPath(int file) {
+        return path.trimTo(rootLen).put(Files.SEPARATOR).put(id).put('.').put((long) file).$();
+    }
+
+    private void removeQuietly(Path path) {
+        if (ff.exists(path) && !ff.remove(path)) {
+            LOG.error().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+        }
+    }
+
+    private Path resultPath() {
+        return path.trimTo(rootLen).put(Files.SEPARATOR).put(id).put(".r").$();
+    }
+}
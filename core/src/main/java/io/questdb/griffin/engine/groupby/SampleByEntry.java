@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rows of one or more consecutive page frames that hold whole SAMPLE BY buckets. Whichever
+ * thread locks the entry first aggregates rows into map of the entry, which is keyed by
+ * group-by keys followed by bucket timestamp. Buckets are added to the map in timestamp order.
+ */
+public class SampleByEntry implements Closeable, Mutable {
+
+    private static final long TARGET_SEQUENCE_OFFSET;
+    private final Map map;
+    private final RecordSink mapSink;
+    private final TimestampSampler timestampSampler;
+    private final int timestampIndex;
+    // page addresses and row range of each frame segment
+    private final ObjList<LongList> segmentAddresses = new ObjList<>();
+    private final LongList segmentRows = new LongList();
+    private int segmentCount;
+    private ObjList<ObjList<GroupByFunction>> functions;
+    private ObjList<PageFrameRecord> records;
+    private int srcSequence;
+    private int ownerSlot;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private volatile boolean done;
+    private Throwable error;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(SampleByEntry.class, "targetSequence");
+    }
+
+    SampleByEntry(Map map, RecordSink mapSink, TimestampSampler timestampSampler, int timestampIndex) {
+        this.map = map;
+        this.mapSink = mapSink;
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+    }
+
+    @Override
+    public void clear() {
+        // functions are not released because worker can still be holding stale reference to this entry
+        segmentCount = 0;
+        segmentRows.clear();
+        map.clear();
+        error = null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+    }
+
+    public boolean run(int workerId) {
+        // workers outside of pool this query was compiled for do not have their own functions
+        return workerId < ownerSlot && run0(workerId);
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    void addSegment(PageFrame frame, int columnCount, long rowLo, long rowHi) {
+        final LongList pageAddresses;
+        if (segmentCount < segmentAddresses.size()) {
+            pageAddresses = segmentAddresses.getQuick(segmentCount);
+            pageAddresses.clear();
+        } else {
+            pageAddresses = new LongList(columnCount);
+            segmentAddresses.add(pageAddresses);
+        }
+        for (int i = 0; i < columnCount; i++) {
+            pageAddresses.add(frame.getPageAddress(i));
+        }
+        segmentRows.add(rowLo);
+        segmentRows.add(rowHi);
+        segmentCount++;
+    }
+
+    void await() {
+        while (!done) {
+            LockSupport.parkNanos(1);
+        }
+    }
+
+    /**
+     * Makes sure no thread is aggregating this entry. Entry that has not been picked up yet
+     * is locked and left as is, otherwise method waits for aggregation to finish.
+     */
+    void cancel() {
+        if (!tryLock()) {
+            await();
+        }
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    Map getMap() {
+        return map;
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    boolean isEmpty() {
+        return segmentCount == 0;
+    }
+
+    void of(ObjList<ObjList<GroupByFunction>> functions, ObjList<PageFrameRecord> records) {
+        clear();
+        this.functions = functions;
+        this.records = records;
+        this.ownerSlot = functions.size() - 1;
+        this.done = false;
+    }
+
+    boolean runOwner() {
+        return run0(ownerSlot);
+    }
+
+    void publish(int sequence) {
+        this.srcSequence = sequence;
+        // entry becomes available for locking only after all segments are visible
+        Unsafe.getUnsafe().putOrderedInt(this, TARGET_SEQUENCE_OFFSET, sequence);
+    }
+
+    private boolean run0(int slot) {
+        if (tryLock()) {
+            final ObjList<GroupByFunction> groupByFunctions = functions.getQuick(slot);
+            final int n = groupByFunctions.size();
+            final PageFrameRecord record = records.getQuick(slot);
+            try {
+                for (int i = 0; i < segmentCount; i++) {
+                    final LongList pageAddresses = segmentAddresses.getQuick(i);
+                    for (long row = segmentRows.getQuick(2 * i), hi = segmentRows.getQuick(2 * i + 1); row < hi; row++) {
+                        record.jumpTo(pageAddresses, row);
+                        final long timestamp = timestampSampler.round(record.getTimestamp(timestampIndex));
+                        final MapKey key = map.withKey();
+                        mapSink.copy(record, key);
+                        key.putLong(timestamp);
+                        final MapValue value = key.createValue();
+                        if (value.isNew()) {
+                            value.putTimestamp(0, timestamp);
+                            GroupByUtils.updateNew(groupByFunctions, n, value, record);
+                        } else {
+                            GroupByUtils.updateExisting(groupByFunctions, n, value, record);
+                        }
+                    }
+                }
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                done = true;
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,442 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapRecord;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.NoArgFunction;
+import io.questdb.griffin.engine.functions.TimestampFunction;
+import io.questdb.griffin.engine.functions.columns.TimestampColumn;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.SampleByTask;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Aggregates SAMPLE BY buckets on shared worker pool. Page frames are split into entries
+ * of whole buckets, which are published to the queue ahead of the entry that is being
+ * returned. Every entry is aggregated independently and entries are returned in the order
+ * of page frames, which keeps output in timestamp order. Thread that owns the cursor
+ * aggregates entries that no worker picked up.
+ * <p>
+ * When query is not keyed every bucket is a single row, so gaps between buckets are
+ * filled as rows are returned, with either placeholder functions or the values of
+ * previous bucket.
+ */
+class SampleByParallelRecordCursor implements NoRandomAccessRecordCursor {
+    // keeps memory used by map of each entry bounded
+    private static final long ENTRY_ROW_COUNT = 64 * 1024;
+    private final ObjList<ObjList<GroupByFunction>> functions;
+    private final ObjList<Function> recordFunctions;
+    private final ObjList<PageFrameRecord> records;
+    private final ObjList<SampleByEntry> entries;
+    private final Record record;
+    // record of query that does not fill, null otherwise
+    private final VirtualRecord virtualRecord;
+    // fill values of missing buckets, null when query does not fill
+    private final SplitVirtualRecord fillRecord;
+    // copy of values of the last bucket, set when gaps are filled with previous values
+    private final SimpleMapValue prevValue;
+    // value types of the last bucket copy, empty unless gaps are filled with previous values
+    private final IntList valueTypes = new IntList();
+    private final IntList symbolTableSkewIndex;
+    private final TimestampSampler timestampSampler;
+    private final int timestampIndex;
+    private final int columnCount;
+    private final int ownerSlot;
+    private PageFrameCursor pageFrameCursor;
+    private RingQueue<SampleByTask> queue;
+    private Sequence pubSeq;
+    private PageFrame frame;
+    private long frameRowLo;
+    private long frameRowCount;
+    private boolean framesExhausted;
+    private int head;
+    private int activeCount;
+    private int sequence;
+    private SampleByEntry current;
+    private RecordCursor mapCursor;
+    private MapRecord mapRecord;
+    private long lastTimestamp;
+    private boolean pending;
+
+    /**
+     * @param functions            group-by functions per worker and, in the last position, functions of thread that owns cursor
+     * @param entries              entries that are recycled as cursor moves through page frames
+     * @param placeholderFunctions functions that replace record functions in missing buckets, null unless query fills with values
+     * @param fillPrev             true when missing buckets repeat values of the previous bucket
+     */
+    SampleByParallelRecordCursor(
+            RecordMetadata metadata,
+            ObjList<ObjList<GroupByFunction>> functions,
+            ObjList<Function> recordFunctions,
+            @Nullable ObjList<Function> placeholderFunctions,
+            boolean fillPrev,
+            @Transient ArrayColumnTypes valueTypes,
+            ObjList<SampleByEntry> entries,
+            IntList symbolTableSkewIndex,
+            TimestampSampler timestampSampler,
+            int timestampIndex
+    ) {
+        this.functions = functions;
+        this.recordFunctions = recordFunctions;
+        this.entries = entries;
+        this.symbolTableSkewIndex = symbolTableSkewIndex;
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.columnCount = metadata.getColumnCount();
+        final int slotCount = functions.size();
+        this.ownerSlot = slotCount - 1;
+        this.records = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            records.add(new PageFrameRecord(metadata));
+        }
+        if (placeholderFunctions == null && !fillPrev) {
+            // bucket timestamp is the first map value
+            for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+                if (recordFunctions.getQuick(i) == null) {
+                    recordFunctions.setQuick(i, new TimestampColumn(0, 0));
+                }
+            }
+            this.virtualRecord = new VirtualRecordNoRowid(recordFunctions);
+            this.record = virtualRecord;
+            this.fillRecord = null;
+            this.prevValue = null;
+        } else {
+            // timestamp of missing bucket is not in any map
+            final TimestampFunc timestampFunc = new TimestampFunc(0);
+            for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+                if (recordFunctions.getQuick(i) == null) {
+                    recordFunctions.setQuick(i, timestampFunc);
+                    if (placeholderFunctions != null) {
+                        placeholderFunctions.setQuick(i, timestampFunc);
+                    }
+                }
+            }
+            if (fillPrev) {
+                // previous bucket might be in entry that is already recycled, values are copied
+                for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+                    this.valueTypes.add(valueTypes.getColumnType(i));
+                }
+                this.prevValue = new SimpleMapValue(valueTypes.getColumnCount());
+                this.fillRecord = new SplitVirtualRecord(recordFunctions, recordFunctions);
+                this.fillRecord.of(prevValue);
+                this.fillRecord.setActiveA();
+            } else {
+                this.prevValue = null;
+                this.fillRecord = new SplitVirtualRecord(recordFunctions, placeholderFunctions);
+            }
+            this.virtualRecord = null;
+            this.record = fillRecord;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pageFrameCursor != null) {
+            cancelActiveEntries();
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return records.getQuick(ownerSlot).getSymbolTable(symbolTableSkewIndex.getQuick(columnIndex));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (fillRecord == null) {
+            return nextBucket();
+        }
+
+        if (!pending) {
+            if (!nextBucket()) {
+                return false;
+            }
+            pending = true;
+        }
+
+        final long timestamp = mapRecord.getTimestamp(0);
+        if (lastTimestamp != Numbers.LONG_NaN) {
+            final long nextTimestamp = timestampSampler.nextTimestamp(lastTimestamp);
+            if (nextTimestamp < timestamp) {
+                // bucket is missing, map cursor stays on the bucket that follows the gap
+                lastTimestamp = nextTimestamp;
+                fillRecord.setActiveB();
+                return true;
+            }
+        }
+
+        lastTimestamp = timestamp;
+        pending = false;
+        if (prevValue != null) {
+            copyValues(mapRecord.getValue(), prevValue);
+        } else {
+            fillRecord.setActiveA();
+        }
+        return true;
+    }
+
+    @Override
+    public void toTop() {
+        cancelActiveEntries();
+        pageFrameCursor.toTop();
+        dispatch();
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    private void copyValues(MapValue from, SimpleMapValue to) {
+        // types are limited to those of SampleByParallelRecordCursorFactory.isFillPrevSupported()
+        for (int i = 0, n = valueTypes.size(); i < n; i++) {
+            switch (valueTypes.getQuick(i)) {
+                case ColumnType.BOOLEAN:
+                    to.putBool(i, from.getBool(i));
+                    break;
+                case ColumnType.BYTE:
+                    to.putByte(i, from.getByte(i));
+                    break;
+                case ColumnType.SHORT:
+                    to.putShort(i, from.getShort(i));
+                    break;
+                case ColumnType.CHAR:
+                    to.putChar(i, from.getChar(i));
+                    break;
+                case ColumnType.INT:
+                    to.putInt(i, from.getInt(i));
+                    break;
+                case ColumnType.FLOAT:
+                    to.putFloat(i, from.getFloat(i));
+                    break;
+                case ColumnType.DOUBLE:
+                    to.putDouble(i, from.getDouble(i));
+                    break;
+                default:
+                    to.putLong(i, from.getLong(i));
+                    break;
+            }
+        }
+    }
+
+    private boolean nextBucket() {
+        while (true) {
+            if (current != null) {
+                if (mapCursor.hasNext()) {
+                    return true;
+                }
+                // entry is exhausted, it can be reused for next set of buckets
+                current = null;
+                head = (head + 1) % entries.size();
+                activeCount--;
+                dispatch();
+            }
+
+            if (activeCount == 0) {
+                return false;
+            }
+            current = awaitHead();
+            mapCursor = current.getMap().getCursor();
+            mapRecord = (MapRecord) mapCursor.getRecord();
+            if (virtualRecord != null) {
+                virtualRecord.of(mapRecord);
+            } else if (prevValue == null) {
+                fillRecord.of(mapRecord);
+            }
+        }
+    }
+
+    private static long findBucketEnd(long timestampAddress, long rowLo, long rowHi, long bucketHi) {
+        // timestamps are ascending within frame, find first row of the next bucket
+        long lo = rowLo;
+        long hi = rowHi;
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (Unsafe.getUnsafe().getLong(timestampAddress + (mid << 3)) < bucketHi) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private SampleByEntry awaitHead() {
+        final SampleByEntry entry = entries.getQuick(head);
+        if (!entry.runOwner()) {
+            // entry is being aggregated by worker, help with entries queued behind it
+            for (int i = 1; i < activeCount && !entry.isDone(); i++) {
+                entries.getQuick((head + i) % entries.size()).runOwner();
+            }
+            entry.await();
+        }
+
+        final Throwable e = entry.getError();
+        if (e != null) {
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            throw (RuntimeException) e;
+        }
+        return entry;
+    }
+
+    private void cancelActiveEntries() {
+        for (int i = 0; i < activeCount; i++) {
+            entries.getQuick((head + i) % entries.size()).cancel();
+        }
+        head = 0;
+        activeCount = 0;
+        current = null;
+        lastTimestamp = Numbers.LONG_NaN;
+        pending = false;
+        frame = null;
+        frameRowLo = 0;
+        frameRowCount = 0;
+        framesExhausted = false;
+    }
+
+    private void dispatch() {
+        final int entryCount = entries.size();
+        while (activeCount < entryCount && !framesExhausted) {
+            final SampleByEntry entry = entries.getQuick((head + activeCount) % entryCount);
+            entry.of(functions, records);
+
+            long rowCount = 0;
+            // once entry has enough rows it only takes rows of its last bucket
+            long bucketHi = Long.MIN_VALUE;
+            while (true) {
+                if (frameRowLo == frameRowCount) {
+                    if ((frame = pageFrameCursor.next()) == null) {
+                        framesExhausted = true;
+                        break;
+                    }
+                    frameRowLo = 0;
+                    frameRowCount = frame.getPageValueCount(0);
+                    continue;
+                }
+
+                final long timestampAddress = frame.getPageAddress(timestampIndex);
+                if (bucketHi == Long.MIN_VALUE) {
+                    final long rowHi = Math.min(frameRowLo + ENTRY_ROW_COUNT - rowCount, frameRowCount);
+                    entry.addSegment(frame, columnCount, frameRowLo, rowHi);
+                    rowCount += rowHi - frameRowLo;
+                    frameRowLo = rowHi;
+                    if (rowCount == ENTRY_ROW_COUNT) {
+                        final long timestamp = Unsafe.getUnsafe().getLong(timestampAddress + ((rowHi - 1) << 3));
+                        bucketHi = timestampSampler.nextTimestamp(timestampSampler.round(timestamp));
+                    }
+                } else {
+                    final long rowHi = findBucketEnd(timestampAddress, frameRowLo, frameRowCount, bucketHi);
+                    if (rowHi > frameRowLo) {
+                        entry.addSegment(frame, columnCount, frameRowLo, rowHi);
+                        frameRowLo = rowHi;
+                    }
+                    if (rowHi < frameRowCount) {
+                        // next bucket starts in this frame
+                        break;
+                    }
+                }
+            }
+
+            if (entry.isEmpty()) {
+                return;
+            }
+
+            entry.publish(++sequence);
+            activeCount++;
+
+            if (queue != null) {
+                final long seq = pubSeq.next();
+                // when queue is full owner will aggregate entry itself
+                if (seq > -1) {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+            }
+        }
+    }
+
+    void of(PageFrameCursor pageFrameCursor, SqlExecutionContext executionContext) {
+        this.pageFrameCursor = pageFrameCursor;
+        final MessageBus bus = executionContext.getMessageBus();
+        if (bus != null) {
+            this.queue = bus.getSampleByQueue();
+            this.pubSeq = bus.getSampleByPubSequence();
+        } else {
+            this.queue = null;
+            this.pubSeq = null;
+        }
+
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            records.getQuick(i).of(pageFrameCursor);
+        }
+
+        for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+            recordFunctions.getQuick(i).init(this, executionContext);
+        }
+
+        // record functions include group-by functions of the owner, which are initialized
+        // again here, each set of functions resolves symbols through symbol tables of its own record
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            final PageFrameRecord r = records.getQuick(i);
+            final ObjList<GroupByFunction> groupByFunctions = functions.getQuick(i);
+            for (int j = 0, m = groupByFunctions.size(); j < m; j++) {
+                groupByFunctions.getQuick(j).init(r, executionContext);
+            }
+        }
+        cancelActiveEntries();
+        dispatch();
+    }
+
+    private class TimestampFunc extends TimestampFunction implements NoArgFunction {
+
+        public TimestampFunc(int position) {
+            super(position);
+        }
+
+        @Override
+        public long getTimestamp(Record rec) {
+            return lastTimestamp;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * SAMPLE BY that aggregates buckets on shared worker pool. Base factory must support page
+ * frames, group-by functions are compiled once per worker plus one set for thread that
+ * executes the query. Keyed queries do not fill, queries that are not keyed may fill
+ * missing buckets with NULL, constants or values of previous bucket.
+ */
+public class SampleByParallelRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<ObjList<GroupByFunction>> functions;
+    private final ObjList<Function> recordFunctions;
+    private final ObjList<SampleByEntry> entries;
+    private final SampleByParallelRecordCursor cursor;
+    private final RecordMetadata metadata;
+
+    /**
+     * @param functions            group-by functions per worker, last set of functions is also referenced by record functions
+     * @param placeholderFunctions functions that replace record functions in missing buckets, null unless query fills with values
+     * @param fillPrev             true when missing buckets repeat values of the previous bucket
+     */
+    public SampleByParallelRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            RecordMetadata groupByMetadata,
+            @NotNull ObjList<ObjList<GroupByFunction>> functions,
+            @NotNull ObjList<Function> recordFunctions,
+            @Nullable ObjList<Function> placeholderFunctions,
+            boolean fillPrev,
+            IntList symbolTableSkewIndex,
+            @NotNull TimestampSampler timestampSampler,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            int timestampIndex
+    ) {
+        this.base = base;
+        this.metadata = groupByMetadata;
+        this.functions = functions;
+        this.recordFunctions = recordFunctions;
+        assert keyTypes.getColumnCount() == 0 || (placeholderFunctions == null && !fillPrev);
+
+        // buckets of the same key are told apart by timestamp, which is the last map key
+        final ArrayColumnTypes entryKeyTypes = new ArrayColumnTypes();
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            entryKeyTypes.add(keyTypes.getColumnType(i));
+        }
+        entryKeyTypes.add(ColumnType.TIMESTAMP);
+        final RecordSink mapSink = RecordSinkFactory.getInstance(asm, base.getMetadata(), listColumnFilter, false);
+
+        // enough entries to keep every worker busy while owner is returning rows
+        final int entryCount = functions.size() * 2;
+        this.entries = new ObjList<>(entryCount);
+        try {
+            for (int i = 0; i < entryCount; i++) {
+                entries.add(new SampleByEntry(
+                        MapFactory.createMap(configuration, entryKeyTypes, valueTypes),
+                        mapSink,
+                        timestampSampler,
+                        timestampIndex
+                ));
+            }
+            this.cursor = new SampleByParallelRecordCursor(
+                    base.getMetadata(),
+                    functions,
+                    recordFunctions,
+                    placeholderFunctions,
+                    fillPrev,
+                    valueTypes,
+                    entries,
+                    symbolTableSkewIndex,
+                    timestampSampler,
+                    timestampIndex
+            );
+        } catch (CairoException e) {
+            Misc.freeObjList(entries);
+            freeFunctions();
+            throw e;
+        }
+    }
+
+    /**
+     * Values of previous bucket are copied as the bucket is returned, which is limited to
+     * values that fit a long.
+     */
+    public static boolean isFillPrevSupported(ArrayColumnTypes valueTypes) {
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            switch (valueTypes.getColumnType(i)) {
+                case ColumnType.BOOLEAN:
+                case ColumnType.BYTE:
+                case ColumnType.SHORT:
+                case ColumnType.CHAR:
+                case ColumnType.INT:
+                case ColumnType.LONG:
+                case ColumnType.DATE:
+                case ColumnType.TIMESTAMP:
+                case ColumnType.FLOAT:
+                case ColumnType.DOUBLE:
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        freeFunctions();
+        Misc.freeObjList(entries);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            cursor.of(pageFrameCursor, executionContext);
+            return cursor;
+        } catch (CairoException e) {
+            Misc.free(pageFrameCursor);
+            throw e;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private void freeFunctions() {
+        // functions of the owner are freed with record functions
+        for (int i = 0, n = functions.size() - 1; i < n; i++) {
+            Misc.freeObjList(functions.getQuick(i));
+        }
+        Misc.freeObjList(recordFunctions);
+    }
+}
@@ -0,0 +1,472 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.mp.Worker;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.tasks.VectorAggregateTask;
+
+/**
+ * Vectorized GROUP BY for keys Rosti cannot store natively, such as LONG or several columns.
+ * Workers encode keys of every page frame into dense int identifiers and aggregate values
+ * with Rosti int key functions. Per-worker maps are merged into map of worker 0 after keys
+ * are translated to its identifiers. Groups are returned in order of key appearance.
+ */
+public class GroupByEncodedKeyRecordCursorFactory implements RecordCursorFactory {
+
+    private final static Log LOG = LogFactory.getLog(GroupByEncodedKeyRecordCursorFactory.class);
+
+    private final RecordCursorFactory base;
+    private final ObjList<VectorAggregateFunction> vafList;
+    private final ObjectPool<VectorAggregateEntry> entryPool;
+    private final ObjList<VectorAggregateEntry> activeEntries;
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final RecordMetadata metadata;
+    private final long[] pRosti;
+    private final GroupByKeyEncoder[] encoders;
+    private final DirectLongList slotsById;
+    private final int baseColumnCount;
+    private final EncodedKeyRecordCursor cursor;
+
+    public GroupByEncodedKeyRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            RecordMetadata metadata,
+            @Transient ColumnTypes columnTypes,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes,
+            RecordSink frameSink,
+            RecordSink mapSink,
+            int workerCount,
+            @Transient ObjList<VectorAggregateFunction> vafList,
+            @Transient IntList keyIndexesInBase,
+            @Transient IntList keyIndexesInThis
+    ) {
+        // columnTypes[0] is INT, which is encoded key, the rest are value types of functions
+        this.entryPool = new ObjectPool<>(VectorAggregateEntry::new, configuration.getGroupByPoolCapacity());
+        this.activeEntries = new ObjList<>(configuration.getGroupByPoolCapacity());
+        this.base = base;
+        this.metadata = metadata;
+        this.baseColumnCount = base.getMetadata().getColumnCount();
+        this.pRosti = new long[workerCount];
+        this.encoders = new GroupByKeyEncoder[workerCount];
+        final int vafCount = vafList.size();
+        this.vafList = new ObjList<>(vafCount);
+        this.vafList.addAll(vafList);
+        final int longKeyIndex = keyIndexesInBase.size() == 1 && isLongKeyType(keyTypes.getColumnType(0)) ? keyIndexesInBase.getQuick(0) : -1;
+        for (int i = 0; i < workerCount; i++) {
+            pRosti[i] = Rosti.alloc(columnTypes, configuration.getGroupByMapCapacity());
+            // identifiers are never negative, this key does not collide with any of them
+            Unsafe.getUnsafe().putInt(Rosti.getInitialValueSlot(pRosti[i], 0), Numbers.INT_NaN);
+            for (int j = 0; j < vafCount; j++) {
+                vafList.getQuick(j).initRosti(pRosti[i]);
+            }
+            encoders[i] = new GroupByKeyEncoder(configuration, base.getMetadata(), keyTypes, valueTypes, frameSink, mapSink, longKeyIndex);
+        }
+        this.slotsById = new DirectLongList(configuration.getSqlMapKeyCapacity());
+
+        // for every column of this cursor either key position in map record or
+        // value offset in Rosti slot
+        final int columnCount = metadata.getColumnCount();
+        final IntList keyPositions = new IntList(columnCount);
+        final IntList valueOffsets = new IntList(columnCount);
+        final IntList symbolTableSkewIndex = new IntList(columnCount);
+        keyPositions.setAll(columnCount, -1);
+        valueOffsets.setAll(columnCount, -1);
+        symbolTableSkewIndex.setAll(columnCount, -1);
+
+        for (int i = 0, n = keyIndexesInThis.size(); i < n; i++) {
+            final int index = keyIndexesInThis.getQuick(i);
+            // map record has identifier at 0, keys follow
+            keyPositions.setQuick(index, i + 1);
+            symbolTableSkewIndex.setQuick(index, keyIndexesInBase.getQuick(i));
+        }
+
+        final long columnOffsets = Rosti.getValueOffsets(pRosti[0]);
+        for (int i = 0, v = 0; i < columnCount; i++) {
+            if (keyPositions.getQuick(i) == -1) {
+                valueOffsets.setQuick(i, Unsafe.getUnsafe().getInt(columnOffsets + vafList.getQuick(v++).getValueOffset() * Integer.BYTES));
+            }
+        }
+
+        this.cursor = new EncodedKeyRecordCursor(keyPositions, valueOffsets, symbolTableSkewIndex);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(vafList);
+        for (int i = 0, n = pRosti.length; i < n; i++) {
+            Rosti.free(pRosti[i]);
+            Misc.free(encoders[i]);
+        }
+        Misc.free(slotsById);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        for (int i = 0, n = pRosti.length; i < n; i++) {
+            Rosti.clear(pRosti[i]);
+            encoders[i].clear();
+        }
+
+        final MessageBus bus = executionContext.getMessageBus();
+        assert bus != null;
+
+        final PageFrameCursor cursor = base.getPageFrameCursor(executionContext);
+        final int vafCount = vafList.size();
+
+        for (int i = 0; i < vafCount; i++) {
+            vafList.getQuick(i).clear();
+        }
+
+        final RingQueue<VectorAggregateTask> queue = bus.getVectorAggregateQueue();
+        final Sequence pubSeq = bus.getVectorAggregatePubSequence();
+
+        this.entryPool.clear();
+        this.activeEntries.clear();
+        int queuedCount = 0;
+        int ownCount = 0;
+        int reclaimed = 0;
+        int total = 0;
+
+        doneLatch.reset();
+
+        final Thread thread = Thread.currentThread();
+        final int workerId;
+        if (thread instanceof Worker) {
+            workerId = ((Worker) thread).getWorkerId();
+        } else {
+            workerId = 0;
+        }
+
+        // frames are processed whole, encoding keys once for all functions
+        PageFrame frame;
+        while ((frame = cursor.next()) != null) {
+            final long valueCount = frame.getPageValueCount(0);
+            if (valueCount == 0) {
+                continue;
+            }
+            final VectorAggregateEntry entry = entryPool.next();
+            entry.of(total, vafList, pRosti, encoders, frame, baseColumnCount, valueCount, doneLatch);
+
+            long seq = pubSeq.next();
+            if (seq < 0) {
+                // entry is not published, nobody else can lock it
+                entry.run(workerId);
+                ownCount++;
+            } else {
+                queuedCount++;
+                activeEntries.add(entry);
+                queue.get(seq).entry = entry;
+                pubSeq.done(seq);
+            }
+            total++;
+        }
+
+        // entries we ran ourselves have counted down the latch too
+        final int expectedCount = queuedCount + ownCount;
+        for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -expectedCount; i--) {
+            if (activeEntries.getQuick(i).run(workerId)) {
+                reclaimed++;
+            }
+        }
+
+        LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
+        doneLatch.await(expectedCount);
+
+        final long pRosti0 = pRosti[0];
+        for (int i = 1, n = pRosti.length; i < n; i++) {
+            if (Rosti.getSize(pRosti[i]) > 0) {
+                encoders[0].merge(encoders[i], pRosti0, pRosti[i]);
+                for (int j = 0; j < vafCount; j++) {
+                    vafList.getQuick(j).merge(pRosti0, pRosti[i]);
+                }
+            }
+        }
+
+        for (int j = 0; j < vafCount; j++) {
+            vafList.getQuick(j).wrapUp(pRosti0);
+        }
+
+        indexSlots(pRosti0);
+
+        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
+
+        return this.cursor.of(cursor, encoders[0].getMap());
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private static boolean isLongKeyType(int type) {
+        switch (type) {
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void indexSlots(long pRosti) {
+        final long size = Rosti.getSize(pRosti);
+        final long ctrlStart = Rosti.getCtrl(pRosti);
+        final long slots = Rosti.getSlots(pRosti);
+        final long shift = Rosti.getSlotShift(pRosti);
+
+        slotsById.setCapacity(size);
+        slotsById.setPos(size);
+
+        long ctrl = ctrlStart;
+        long remaining = size;
+        while (remaining > 0) {
+            if ((Unsafe.getUnsafe().getByte(ctrl) & 0x80) == 0) {
+                final long p = slots + ((ctrl - ctrlStart) << shift);
+                slotsById.set(Unsafe.getUnsafe().getInt(p), p);
+                remaining--;
+            }
+            ctrl++;
+        }
+    }
+
+    private class EncodedKeyRecordCursor implements RecordCursor {
+        private final IntList keyPositions;
+        private final IntList valueOffsets;
+        private final IntList symbolTableSkewIndex;
+        private final EncodedKeyRecord record = new EncodedKeyRecord();
+        private EncodedKeyRecord recordB;
+        private PageFrameCursor parent;
+        private RecordCursor mapCursor;
+
+        public EncodedKeyRecordCursor(IntList keyPositions, IntList valueOffsets, IntList symbolTableSkewIndex) {
+            this.keyPositions = keyPositions;
+            this.valueOffsets = valueOffsets;
+            this.symbolTableSkewIndex = symbolTableSkewIndex;
+        }
+
+        @Override
+        public void close() {
+            parent = Misc.free(parent);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return parent.getSymbolTable(symbolTableSkewIndex.getQuick(columnIndex));
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (mapCursor.hasNext()) {
+                record.of(mapCursor.getRecord());
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            return (recordB = new EncodedKeyRecord());
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            final EncodedKeyRecord r = (EncodedKeyRecord) record;
+            if (r.keyRecord == null) {
+                r.keyRecord = mapCursor.getRecordB();
+            }
+            mapCursor.recordAt(r.keyRecord, atRowId);
+            r.of(r.keyRecord);
+        }
+
+        @Override
+        public void toTop() {
+            mapCursor.toTop();
+        }
+
+        @Override
+        public long size() {
+            return mapCursor.size();
+        }
+
+        private EncodedKeyRecordCursor of(PageFrameCursor parent, FastMap map) {
+            this.parent = parent;
+            this.mapCursor = map.getCursor();
+            return this;
+        }
+
+        private class EncodedKeyRecord implements Record {
+            private Record keyRecord;
+            private long pRow;
+
+            @Override
+            public BinarySequence getBin(int col) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public long getBinLen(int col) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean getBool(int col) {
+                return keyRecord.getBool(keyPositions.getQuick(col));
+            }
+
+            @Override
+            public byte getByte(int col) {
+                return keyRecord.getByte(keyPositions.getQuick(col));
+            }
+
+            @Override
+            public char getChar(int col) {
+                return keyRecord.getChar(keyPositions.getQuick(col));
+            }
+
+            @Override
+            public long getDate(int col) {
+                return getLong(col);
+            }
+
+            @Override
+            public double getDouble(int col) {
+                final int key = keyPositions.getQuick(col);
+                if (key > -1) {
+                    return keyRecord.getDouble(key);
+                }
+                return Unsafe.getUnsafe().getDouble(pRow + valueOffsets.getQuick(col));
+            }
+
+            @Override
+            public float getFloat(int col) {
+                return keyRecord.getFloat(keyPositions.getQuick(col));
+            }
+
+            @Override
+            public int getInt(int col) {
+                final int key = keyPositions.getQuick(col);
+                if (key > -1) {
+                    return keyRecord.getInt(key);
+                }
+                return Unsafe.getUnsafe().getInt(pRow + valueOffsets.getQuick(col));
+            }
+
+            @Override
+            public long getLong(int col) {
+                final int key = keyPositions.getQuick(col);
+                if (key > -1) {
+                    return keyRecord.getLong(key);
+                }
+                return Unsafe.getUnsafe().getLong(pRow + valueOffsets.getQuick(col));
+            }
+
+            @Override
+            public void getLong256(int col, CharSink sink) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Long256 getLong256A(int col) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Long256 getLong256B(int col) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public long getRowId() {
+                return keyRecord.getRowId();
+            }
+
+            @Override
+            public short getShort(int col) {
+                return keyRecord.getShort(keyPositions.getQuick(col));
+            }
+
+            @Override
+            public CharSequence getStr(int col) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CharSequence getStrB(int col) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int getStrLen(int col) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CharSequence getSym(int col) {
+                return parent.getSymbolTable(symbolTableSkewIndex.getQuick(col)).valueOf(getInt(col));
+            }
+
+            @Override
+            public long getTimestamp(int col) {
+                return getLong(col);
+            }
+
+            private void of(Record keyRecord) {
+                this.keyRecord = keyRecord;
+                this.pRow = slotsById.get(keyRecord.getInt(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Translates composite keys of page frame rows into dense int identifiers, which lets Rosti
+ * aggregate arbitrary keys with its int key functions. Every worker owns an encoder, so
+ * identifiers are local to the worker until its Rosti is merged into that of worker 0.
+ * Identifiers are allocated in order of key appearance and map value holds the identifier.
+ * <p>
+ * New identifiers are inserted into Rosti before aggregate functions run, see {@link #reserve(long, long, long)}.
+ */
+class GroupByKeyEncoder implements Closeable, Mutable {
+    private final FastMap map;
+    private final PageFrameRecord frameRecord;
+    private final RecordSink frameSink;
+    private final RecordSink mapSink;
+    private final IntList remap = new IntList();
+    // base column index of sole 8-byte key, which is read from page frame directly, or -1
+    private final int longKeyIndex;
+    private long pKeys;
+    private long keyCapacity;
+    private long pReservedKeys;
+    private long reservedKeyCapacity;
+    private long pInitialValues;
+    private long initialValuesSize;
+
+    GroupByKeyEncoder(
+            CairoConfiguration configuration,
+            RecordMetadata baseMetadata,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes,
+            RecordSink frameSink,
+            RecordSink mapSink,
+            int longKeyIndex
+    ) {
+        this.map = new FastMap(
+                configuration.getSqlMapPageSize(),
+                keyTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        this.frameRecord = new PageFrameRecord(baseMetadata);
+        this.frameSink = frameSink;
+        this.mapSink = mapSink;
+        this.longKeyIndex = longKeyIndex;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public void close() {
+        map.close();
+        if (pKeys != 0) {
+            Unsafe.free(pKeys, keyCapacity * Integer.BYTES);
+            pKeys = 0;
+            keyCapacity = 0;
+        }
+        if (pReservedKeys != 0) {
+            Unsafe.free(pReservedKeys, reservedKeyCapacity * Integer.BYTES);
+            pReservedKeys = 0;
+            reservedKeyCapacity = 0;
+        }
+        if (pInitialValues != 0) {
+            Unsafe.free(pInitialValues, initialValuesSize);
+            pInitialValues = 0;
+            initialValuesSize = 0;
+        }
+    }
+
+    private static int idOf(MapValue value, long size) {
+        if (value.isNew()) {
+            value.putInt(0, (int) (size - 1));
+        }
+        return value.getInt(0);
+    }
+
+    void aggregate(
+            ObjList<VectorAggregateFunction> vafList,
+            long pRosti,
+            LongList pageAddresses,
+            long count,
+            int workerId
+    ) {
+        final long size = map.size();
+        final long pKeys = encode(pageAddresses, count);
+        reserve(pRosti, size, map.size());
+        for (int i = 0, n = vafList.size(); i < n; i++) {
+            final VectorAggregateFunction vaf = vafList.getQuick(i);
+            vaf.aggregate(pRosti, pKeys, pageAddresses.getQuick(vaf.getColumnIndex()), count, workerId);
+        }
+    }
+
+    FastMap getMap() {
+        return map;
+    }
+
+    /**
+     * Adds keys of other encoder to this one and rewrites keys of other worker's Rosti
+     * to identifiers of this encoder. Rosti merge functions only iterate slots of the source
+     * map, which is why it is safe to change keys in place without rehashing.
+     *
+     * @param that    encoder of other worker
+     * @param pRostiA Rosti of this encoder
+     * @param pRostiB Rosti populated by other worker
+     */
+    void merge(GroupByKeyEncoder that, long pRostiA, long pRostiB) {
+        final long size = that.map.size();
+        if (size == 0) {
+            return;
+        }
+        final long sizeA = map.size();
+
+        remap.setAll((int) size, 0);
+        final RecordCursor cursor = that.map.getCursor();
+        final Record record = cursor.getRecord();
+        while (cursor.hasNext()) {
+            final MapKey key = map.withKey();
+            key.put(record, mapSink);
+            remap.setQuick(record.getInt(0), idOf(key.createValue(), map.size()));
+        }
+
+        final long ctrlStart = Rosti.getCtrl(pRostiB);
+        final long slots = Rosti.getSlots(pRostiB);
+        final long shift = Rosti.getSlotShift(pRostiB);
+        long ctrl = ctrlStart;
+        long remaining = Rosti.getSize(pRostiB);
+        while (remaining > 0) {
+            if ((Unsafe.getUnsafe().getByte(ctrl) & 0x80) == 0) {
+                final long p = slots + ((ctrl - ctrlStart) << shift);
+                Unsafe.getUnsafe().putInt(p, remap.getQuick(Unsafe.getUnsafe().getInt(p)));
+                remaining--;
+            }
+            ctrl++;
+        }
+        reserve(pRostiA, sizeA, map.size());
+    }
+
+    private long encode(LongList pageAddresses, long count) {
+        if (count > keyCapacity) {
+            final long capacity = Numbers.ceilPow2(count);
+            if (pKeys == 0) {
+                pKeys = Unsafe.malloc(capacity * Integer.BYTES);
+            } else {
+                pKeys = Unsafe.realloc(pKeys, keyCapacity * Integer.BYTES, capacity * Integer.BYTES);
+            }
+            keyCapacity = capacity;
+        }
+
+        if (longKeyIndex > -1) {
+            // column that does not exist in this frame has no address and its rows are null
+            final long pLongKeys = pageAddresses.getQuick(longKeyIndex);
+            for (long i = 0; i < count; i++) {
+                final MapKey key = map.withKey();
+                key.putLong(pLongKeys == 0 ? Numbers.LONG_NaN : Unsafe.getUnsafe().getLong(pLongKeys + (i << 3)));
+                Unsafe.getUnsafe().putInt(pKeys + i * Integer.BYTES, idOf(key.createValue(), map.size()));
+            }
+        } else {
+            for (long i = 0; i < count; i++) {
+                frameRecord.jumpTo(pageAddresses, i);
+                final MapKey key = map.withKey();
+                key.put(frameRecord, frameSink);
+                Unsafe.getUnsafe().putInt(pKeys + i * Integer.BYTES, idOf(key.createValue(), map.size()));
+            }
+        }
+        return pKeys;
+    }
+
+    /**
+     * Inserts identifiers in [lo, hi) into Rosti, so that aggregate and merge functions only ever
+     * find existing slots. Rosti fills new slots from its initial value slot, which shipped native
+     * libraries do not carry over when the table is resized. When insert has resized the table,
+     * initial values are restored in the new table and in the slots that were just inserted.
+     */
+    private void reserve(long pRosti, long lo, long hi) {
+        final long count = hi - lo;
+        if (count == 0) {
+            return;
+        }
+
+        final long slotSize = Rosti.getSlotSize(pRosti);
+        if (pInitialValues == 0) {
+            pInitialValues = Unsafe.malloc(slotSize);
+            initialValuesSize = slotSize;
+        }
+        final long pInitialSlot = Rosti.getInitialValuesSlot(pRosti);
+        Unsafe.getUnsafe().copyMemory(pInitialSlot, pInitialValues, slotSize);
+
+        if (count > reservedKeyCapacity) {
+            final long capacity = Numbers.ceilPow2(count);
+            if (pReservedKeys == 0) {
+                pReservedKeys = Unsafe.malloc(capacity * Integer.BYTES);
+            } else {
+                pReservedKeys = Unsafe.realloc(pReservedKeys, reservedKeyCapacity * Integer.BYTES, capacity * Integer.BYTES);
+            }
+            reservedKeyCapacity = capacity;
+        }
+        for (long i = 0; i < count; i++) {
+            Unsafe.getUnsafe().putInt(pReservedKeys + i * Integer.BYTES, (int) (lo + i));
+        }
+        Rosti.keyedIntDistinct(pRosti, pReservedKeys, count);
+
+        final long pResizedInitialSlot = Rosti.getInitialValuesSlot(pRosti);
+        if (pResizedInitialSlot != pInitialSlot) {
+            Unsafe.getUnsafe().copyMemory(pInitialValues, pResizedInitialSlot, slotSize);
+            // values follow int key in the slot
+            final long ctrlStart = Rosti.getCtrl(pRosti);
+            final long slots = Rosti.getSlots(pRosti);
+            final long shift = Rosti.getSlotShift(pRosti);
+            long ctrl = ctrlStart;
+            long remaining = Rosti.getSize(pRosti);
+            while (remaining > 0) {
+                if ((Unsafe.getUnsafe().getByte(ctrl) & 0x80) == 0) {
+                    final long p = slots + ((ctrl - ctrlStart) << shift);
+                    final int id = Unsafe.getUnsafe().getInt(p);
+                    if (id >= lo && id < hi) {
+                        Unsafe.getUnsafe().copyMemory(pInitialValues + Integer.BYTES, p + Integer.BYTES, slotSize - Integer.BYTES);
+                    }
+                    remaining--;
+                }
+                ctrl++;
+            }
+        }
+    }
+}
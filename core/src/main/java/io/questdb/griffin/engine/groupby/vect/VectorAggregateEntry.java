@@ -24,8 +24,11 @@
 
 package io.questdb.griffin.engine.groupby.vect;
 
+import io.questdb.cairo.sql.PageFrame;
 import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.LongList;
 import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
 import io.questdb.std.Unsafe;
 
 public class VectorAggregateEntry implements Mutable {
@@ -36,11 +39,14 @@ public class VectorAggregateEntry implements Mutable {
         TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(VectorAggregateEntry.class, "targetSequence");
     }
 
+    private final LongList pageAddresses = new LongList();
     private long[] pRosti;
     private long keyAddress;
     private long valueAddress;
     private long valueCount;
     private VectorAggregateFunction func;
+    private ObjList<VectorAggregateFunction> funcs;
+    private GroupByKeyEncoder[] encoders;
     private int srcSequence;
     // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
     // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
@@ -62,6 +68,33 @@ public class VectorAggregateEntry implements Mutable {
         this.valueAddress = valuePageAddress;
         this.valueCount = valuePageCount;
         this.func = vaf;
+        this.funcs = null;
+        this.encoders = null;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+        this.doneLatch = doneLatch;
+    }
+
+    // aggregates all functions over the frame after its keys are encoded by worker's encoder
+    void of(
+            int sequence,
+            ObjList<VectorAggregateFunction> vafList,
+            long[] pRosti,
+            GroupByKeyEncoder[] encoders,
+            PageFrame frame,
+            int columnCount,
+            long valueCount,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.pageAddresses.clear();
+        for (int i = 0; i < columnCount; i++) {
+            pageAddresses.add(frame.getPageAddress(i));
+        }
+        this.pRosti = pRosti;
+        this.valueCount = valueCount;
+        this.func = null;
+        this.funcs = vafList;
+        this.encoders = encoders;
         this.srcSequence = sequence;
         this.targetSequence = sequence;
         this.doneLatch = doneLatch;
@@ -73,7 +106,9 @@ public class VectorAggregateEntry implements Mutable {
 
     public boolean run(int workerId) {
         if (tryLock()) {
-            if (pRosti != null) {
+            if (encoders != null) {
+                encoders[workerId].aggregate(funcs, pRosti[workerId], pageAddresses, valueCount, workerId);
+            } else if (pRosti != null) {
                 func.aggregate(pRosti[workerId], keyAddress, valueAddress, valueCount, workerId);
             } else {
                 func.aggregate(valueAddress, valueCount, workerId);
@@ -89,5 +124,7 @@ public class VectorAggregateEntry implements Mutable {
         this.valueAddress = 0;
         this.valueCount = 0;
         func = null;
+        funcs = null;
+        encoders = null;
     }
 }
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.std.Unsafe;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Unit of work of parallel hash join build. Whichever thread locks the entry first runs it,
+ * thread that owns the cursor runs entries that no worker picked up. Every thread taking part
+ * in the build has a slot of its own records and maps, the last slot belongs to the owner.
+ */
+public abstract class HashJoinBuildEntry {
+    private static final long TARGET_SEQUENCE_OFFSET;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private int ownerSlot;
+    private volatile boolean done;
+    private Throwable error;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(HashJoinBuildEntry.class, "targetSequence");
+    }
+
+    public boolean run(int workerId) {
+        // workers outside of pool this query was compiled for do not have slots
+        return workerId < ownerSlot && run0(workerId);
+    }
+
+    void await() {
+        while (!done) {
+            LockSupport.parkNanos(1);
+        }
+    }
+
+    abstract void build(int slot);
+
+    /**
+     * Makes sure no thread is running this entry. Entry that has not been picked up yet
+     * is locked and left as is, otherwise method waits for the run to finish.
+     */
+    void cancel() {
+        if (!tryLock()) {
+            await();
+        }
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    void publish(int sequence, int ownerSlot) {
+        this.ownerSlot = ownerSlot;
+        this.error = null;
+        this.done = false;
+        this.srcSequence = sequence;
+        // entry becomes available for locking only after its state is visible
+        Unsafe.getUnsafe().putOrderedInt(this, TARGET_SEQUENCE_OFFSET, sequence);
+    }
+
+    boolean runOwner() {
+        return run0(ownerSlot);
+    }
+
+    private boolean run0(int slot) {
+        if (tryLock()) {
+            try {
+                build(slot);
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                done = true;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+}
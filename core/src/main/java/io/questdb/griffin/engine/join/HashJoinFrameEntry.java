@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.std.LongList;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Range of page frame rows that is radix-partitioned by key hash. Rows of each partition
+ * are kept as offsets from the start of the range, in frame order. Offsets of all partitions
+ * share single native buffer, which is sorted by partition once every row is assigned one.
+ */
+class HashJoinFrameEntry extends HashJoinBuildEntry implements Closeable {
+    private final LongList pageAddresses = new LongList();
+    // start of every partition in offset buffer, the last element is row count of the range
+    private final int[] partitionLo;
+    private HashJoinPartitionedTable table;
+    private long firstRowId;
+    private long rowLo;
+    private long rowHi;
+    // partition of every row of the range, one byte per row
+    private long partitionIds;
+    // row offsets sorted by partition, int per row
+    private long offsets;
+    private long capacity;
+
+    HashJoinFrameEntry(int partitionCount) {
+        this.partitionLo = new int[partitionCount + 1];
+    }
+
+    @Override
+    public void close() {
+        if (capacity > 0) {
+            Unsafe.free(partitionIds, capacity);
+            Unsafe.free(offsets, capacity * Integer.BYTES);
+            partitionIds = 0;
+            offsets = 0;
+            capacity = 0;
+        }
+    }
+
+    @Override
+    void build(int slot) {
+        table.partition(this, slot);
+    }
+
+    LongList getPageAddresses() {
+        return pageAddresses;
+    }
+
+    int getPartitionLo(int partition) {
+        return partitionLo[partition];
+    }
+
+    int getPartitionHi(int partition) {
+        return partitionLo[partition + 1];
+    }
+
+    int getRowOffset(int index) {
+        return Unsafe.getUnsafe().getInt(offsets + (long) index * Integer.BYTES);
+    }
+
+    long getRowLo() {
+        return rowLo;
+    }
+
+    long getRowHi() {
+        return rowHi;
+    }
+
+    long getFirstRowId() {
+        return firstRowId;
+    }
+
+    void of(HashJoinPartitionedTable table, PageFrame frame, int columnCount, long rowLo, long rowHi) {
+        this.table = table;
+        this.firstRowId = frame.getFirstRowId();
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        pageAddresses.clear();
+        for (int i = 0; i < columnCount; i++) {
+            pageAddresses.add(frame.getPageAddress(i));
+        }
+
+        final long rowCount = rowHi - rowLo;
+        if (rowCount > capacity) {
+            close();
+            partitionIds = Unsafe.malloc(rowCount);
+            offsets = Unsafe.malloc(rowCount * Integer.BYTES);
+            capacity = rowCount;
+        }
+    }
+
+    void setPartition(int offset, int partition) {
+        Unsafe.getUnsafe().putByte(partitionIds + offset, (byte) partition);
+    }
+
+    /**
+     * Sorts offsets of range rows by partition, rows of the same partition stay in frame order.
+     */
+    void sortByPartition() {
+        final int partitionCount = partitionLo.length - 1;
+        final int rowCount = (int) (rowHi - rowLo);
+        for (int i = 0; i <= partitionCount; i++) {
+            partitionLo[i] = 0;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            partitionLo[Unsafe.getUnsafe().getByte(partitionIds + i) + 1]++;
+        }
+        for (int i = 1; i <= partitionCount; i++) {
+            partitionLo[i] += partitionLo[i - 1];
+        }
+
+        // partition starts are used as write positions and are shifted one partition up by the end
+        for (int i = 0; i < rowCount; i++) {
+            final int partition = Unsafe.getUnsafe().getByte(partitionIds + i);
+            Unsafe.getUnsafe().putInt(offsets + (long) partitionLo[partition]++ * Integer.BYTES, i);
+        }
+        for (int i = partitionCount; i > 0; i--) {
+            partitionLo[i] = partitionLo[i - 1];
+        }
+        partitionLo[0] = 0;
+    }
+}
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.Transient;
+
+/**
+ * Inner hash join, which builds radix-partitioned hash table of slave row ids on shared worker
+ * pool and streams the master. Slave factory must support page frames and random access. Table
+ * is built on the thread of the query when page frames cannot be matched to rows of slave cursor.
+ * <p>
+ * Only the build is parallel, master rows are probed on the thread of the query as cursor
+ * is pulled. Partition maps and their chains keep key and cursor state of single reader.
+ */
+public class HashJoinLightParallelRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final HashJoinPartitionedTable table;
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final RecordSink masterKeySink;
+    private final HashJoinRecordCursor cursor;
+
+    public HashJoinLightParallelRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
+            RecordSink masterKeySink,
+            RecordSink slaveKeySink,
+            int columnSplit,
+            boolean swapped,
+            int workerCount
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.table = new HashJoinPartitionedTable(
+                configuration,
+                slaveFactory.getMetadata(),
+                joinColumnTypes,
+                valueTypes,
+                slaveKeySink,
+                workerCount
+        );
+        this.masterKeySink = masterKeySink;
+        this.cursor = new HashJoinRecordCursor(columnSplit, swapped);
+    }
+
+    @Override
+    public void close() {
+        table.close();
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        try {
+            buildTable(slaveCursor, executionContext);
+        } catch (Throwable e) {
+            slaveCursor.close();
+            throw e;
+        }
+        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private void buildTable(RecordCursor slaveCursor, SqlExecutionContext executionContext) {
+        final PageFrameCursor pageFrameCursor = slaveFactory.getPageFrameCursor(executionContext);
+        try {
+            final MessageBus bus = executionContext.getMessageBus();
+            final long size = slaveCursor.size();
+            // frames and cursor come from different table readers, row ids of frames
+            // can only be used with the cursor when both readers see the same rows
+            if (bus != null && pageFrameCursor != null && size > -1 && pageFrameCursor.size() == size) {
+                table.build(pageFrameCursor, bus, executionContext.getSqlExecutionInterruptor());
+            } else {
+                table.build(slaveCursor, executionContext.getSqlExecutionInterruptor());
+            }
+        } finally {
+            Misc.free(pageFrameCursor);
+        }
+    }
+
+    private class HashJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final JoinRecord record;
+        private final int columnSplit;
+        private final boolean swapped;
+        private RecordCursor masterCursor;
+        private RecordCursor slaveCursor;
+        private Record masterRecord;
+        private LongChain.TreeCursor slaveChainCursor;
+        private Record slaveRecord;
+
+        public HashJoinRecordCursor(int columnSplit, boolean swapped) {
+            this.record = new JoinRecord(columnSplit);
+            this.columnSplit = columnSplit;
+            this.swapped = swapped;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return (swapped ? slaveCursor : masterCursor).getSymbolTable(columnIndex);
+            }
+            return (swapped ? masterCursor : slaveCursor).getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            masterCursor.toTop();
+            slaveChainCursor = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (slaveChainCursor != null && slaveChainCursor.hasNext()) {
+                slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                return true;
+            }
+
+            while (masterCursor.hasNext()) {
+                final LongChain.TreeCursor chainCursor = table.find(masterRecord, masterKeySink);
+                if (chainCursor != null) {
+                    slaveChainCursor = chainCursor;
+                    // we know cursor has values
+                    // advance to get first value
+                    slaveChainCursor.hasNext();
+                    slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.masterRecord = masterCursor.getRecord();
+            this.slaveRecord = slaveCursor.getRecordB();
+            if (swapped) {
+                record.of(slaveRecord, masterRecord);
+            } else {
+                record.of(masterRecord, slaveRecord);
+            }
+            slaveChainCursor = null;
+        }
+    }
+}
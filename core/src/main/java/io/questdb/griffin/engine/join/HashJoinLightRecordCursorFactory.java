@@ -44,6 +44,11 @@ import io.questdb.griffin.SqlExecutionInterruptor;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
 
+/**
+ * Builds hash table of row ids from the slave factory and streams the master one. When
+ * the factories are given in reverse, e.g. table on the left of the join is hashed,
+ * "swapped" flag keeps column order of join record as per the metadata.
+ */
 public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
     private final Map joinKeyMap;
     private final LongChain slaveChain;
@@ -62,8 +67,8 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
             RecordSink masterKeySink,
             RecordSink slaveKeySink,
-            int columnSplit
-
+            int columnSplit,
+            boolean swapped
     ) {
         super(metadata);
         this.masterFactory = masterFactory;
@@ -72,7 +77,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         slaveChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
-        this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
+        this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain, swapped);
     }
 
     @Override
@@ -126,6 +131,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         private final LongChain slaveChain;
         private final Map joinKeyMap;
         private final int columnSplit;
+        private final boolean swapped;
         private RecordCursor masterCursor;
         private RecordCursor slaveCursor;
         private Record masterRecord;
@@ -135,12 +141,14 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         public HashJoinRecordCursor(
                 int columnSplit,
                 Map joinKeyMap,
-                LongChain slaveChain
+                LongChain slaveChain,
+                boolean swapped
         ) {
             this.record = new JoinRecord(columnSplit);
             this.joinKeyMap = joinKeyMap;
             this.slaveChain = slaveChain;
             this.columnSplit = columnSplit;
+            this.swapped = swapped;
         }
 
         @Override
@@ -157,9 +165,9 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         @Override
         public SymbolTable getSymbolTable(int columnIndex) {
             if (columnIndex < columnSplit) {
-                return masterCursor.getSymbolTable(columnIndex);
+                return (swapped ? slaveCursor : masterCursor).getSymbolTable(columnIndex);
             }
-            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+            return (swapped ? masterCursor : slaveCursor).getSymbolTable(columnIndex - columnSplit);
         }
 
         @Override
@@ -201,7 +209,11 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             this.slaveCursor = slaveCursor;
             this.masterRecord = masterCursor.getRecord();
             this.slaveRecord = slaveCursor.getRecordB();
-            record.of(masterRecord, slaveRecord);
+            if (swapped) {
+                record.of(slaveRecord, masterRecord);
+            } else {
+                record.of(masterRecord, slaveRecord);
+            }
             slaveChainCursor = null;
         }
     }
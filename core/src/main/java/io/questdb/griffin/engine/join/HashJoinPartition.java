@@ -0,0 +1,116 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+import io.questdb.std.Transient;
+
+import java.io.Closeable;
+
+/**
+ * One of hash join tables that slave rows are radix-partitioned into by key hash. Partition
+ * is built by a single thread, so its map and chain of row ids are not shared.
+ */
+class HashJoinPartition extends HashJoinBuildEntry implements Closeable, Mutable {
+    private final Map map;
+    private final LongChain chain;
+    private final int index;
+    private HashJoinPartitionedTable table;
+
+    HashJoinPartition(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes,
+            int pageSize,
+            int keyCapacity,
+            int index
+    ) {
+        this.map = new FastMap(
+                pageSize,
+                keyTypes,
+                valueTypes,
+                keyCapacity,
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        this.chain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
+        this.index = index;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        chain.clear();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+        Misc.free(chain);
+    }
+
+    @Override
+    void build(int slot) {
+        table.build(this, slot);
+    }
+
+    LongChain.TreeCursor find(Record record, RecordSink keySink) {
+        final MapKey key = map.withKey();
+        key.put(record, keySink);
+        final MapValue value = key.findValue();
+        return value == null ? null : chain.getCursor(value.getLong(0));
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    void of(HashJoinPartitionedTable table) {
+        this.table = table;
+    }
+
+    void put(Record record, RecordSink keySink, long rowId) {
+        final MapKey key = map.withKey();
+        key.put(record, keySink);
+        final MapValue value = key.createValue();
+        if (value.isNew()) {
+            final long offset = chain.put(rowId, -1);
+            value.putLong(0, offset);
+            value.putLong(1, offset);
+        } else {
+            value.putLong(1, chain.put(rowId, value.getLong(1)));
+        }
+    }
+}
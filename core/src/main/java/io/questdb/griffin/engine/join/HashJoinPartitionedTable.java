@@ -0,0 +1,268 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.table.PageFrameRecord;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.HashJoinBuildTask;
+
+import java.io.Closeable;
+
+/**
+ * Hash table of slave row ids, which is radix-partitioned by key hash. Each partition has
+ * map and chain of its own, which are a fraction of size of single table and can be built
+ * independently.
+ * <p>
+ * Table is built on shared worker pool in two phases. First, page frames of the slave are
+ * split into ranges and rows of every range are assigned partitions by key hash. Then each
+ * partition collects its rows from all ranges, in frame order, and inserts them into its map.
+ * Owner thread takes part in both phases by running entries that workers have not picked up.
+ */
+class HashJoinPartitionedTable implements Closeable, Mutable {
+    private static final int PARTITION_BITS = 4;
+    private static final int PARTITION_COUNT = 1 << PARTITION_BITS;
+    // frames are split into ranges to spread them between workers, offsets within range fit int
+    private static final long ENTRY_ROW_COUNT = 64 * 1024;
+    private final ObjList<HashJoinPartition> partitions = new ObjList<>(PARTITION_COUNT);
+    private final ObjList<HashJoinFrameEntry> frameEntries = new ObjList<>();
+    // maps that key hash is calculated with, one per slot
+    private final ObjList<Map> hashMaps;
+    private final ObjList<PageFrameRecord> records;
+    private final RecordSink slaveKeySink;
+    private final int columnCount;
+    private final int ownerSlot;
+    private int frameEntryCount;
+    private int sequence;
+    private RingQueue<HashJoinBuildTask> queue;
+    private Sequence pubSeq;
+
+    HashJoinPartitionedTable(
+            CairoConfiguration configuration,
+            RecordMetadata slaveMetadata,
+            @Transient ColumnTypes keyTypes,
+            @Transient ColumnTypes valueTypes,
+            RecordSink slaveKeySink,
+            int workerCount
+    ) {
+        this.slaveKeySink = slaveKeySink;
+        this.columnCount = slaveMetadata.getColumnCount();
+        final int slotCount = workerCount + 1;
+        this.ownerSlot = workerCount;
+        this.hashMaps = new ObjList<>(slotCount);
+        this.records = new ObjList<>(slotCount);
+        final int pageSize = Math.max(configuration.getSqlMapPageSize() >> PARTITION_BITS, Numbers.SIZE_1MB);
+        final int keyCapacity = Math.max(configuration.getSqlMapKeyCapacity() >> PARTITION_BITS, 16);
+        try {
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+                partitions.add(new HashJoinPartition(configuration, keyTypes, valueTypes, pageSize, keyCapacity, i));
+            }
+            for (int i = 0; i < slotCount; i++) {
+                // maps only ever hold the key that is being hashed
+                hashMaps.add(new FastMap(
+                        pageSize,
+                        keyTypes,
+                        valueTypes,
+                        16,
+                        configuration.getSqlFastMapLoadFactor(),
+                        configuration.getSqlMapMaxResizes()
+                ));
+                records.add(new PageFrameRecord(slaveMetadata));
+            }
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = partitions.size(); i < n; i++) {
+            partitions.getQuick(i).clear();
+        }
+        frameEntryCount = 0;
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(partitions);
+        Misc.freeObjList(hashMaps);
+        Misc.freeObjList(frameEntries);
+    }
+
+    /**
+     * Builds table on thread of the caller, e.g. when slave cursor does not support page frames.
+     *
+     * @param slaveCursor cursor, which row ids are stored in the table
+     * @param interruptor query interruptor
+     */
+    void build(RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
+        clear();
+        final Record record = slaveCursor.getRecord();
+        while (slaveCursor.hasNext()) {
+            interruptor.checkInterrupted();
+            partitions.getQuick(partitionOf(ownerSlot, record, slaveKeySink)).put(record, slaveKeySink, record.getRowId());
+        }
+    }
+
+    /**
+     * Builds table on shared worker pool.
+     *
+     * @param pageFrameCursor frames of the slave, their row ids are stored in the table
+     * @param bus             message bus, which queue the work is published on
+     * @param interruptor     query interruptor
+     */
+    void build(PageFrameCursor pageFrameCursor, MessageBus bus, SqlExecutionInterruptor interruptor) {
+        clear();
+        this.queue = bus.getHashJoinBuildQueue();
+        this.pubSeq = bus.getHashJoinBuildPubSequence();
+        for (int i = 0, n = records.size(); i < n; i++) {
+            records.getQuick(i).of(pageFrameCursor);
+        }
+
+        try {
+            PageFrame frame;
+            while ((frame = pageFrameCursor.next()) != null) {
+                final long rowCount = frame.getPageValueCount(0);
+                for (long lo = 0; lo < rowCount; lo += ENTRY_ROW_COUNT) {
+                    final HashJoinFrameEntry entry = nextFrameEntry();
+                    entry.of(this, frame, columnCount, lo, Math.min(lo + ENTRY_ROW_COUNT, rowCount));
+                    dispatch(entry);
+                }
+            }
+            runAll(frameEntries, frameEntryCount, interruptor);
+
+            // ranges are done, their rows can be inserted into partitions
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+                final HashJoinPartition partition = partitions.getQuick(i);
+                partition.of(this);
+                dispatch(partition);
+            }
+            runAll(partitions, PARTITION_COUNT, interruptor);
+        } catch (Throwable e) {
+            // workers must not touch frames once the cursor is released
+            cancelAll(frameEntries, frameEntryCount);
+            cancelAll(partitions, PARTITION_COUNT);
+            throw e;
+        } finally {
+            // row offsets are not needed once partitions are built
+            for (int i = 0; i < frameEntryCount; i++) {
+                frameEntries.getQuick(i).close();
+            }
+        }
+    }
+
+    LongChain.TreeCursor find(Record record, RecordSink keySink) {
+        return partitions.getQuick(partitionOf(ownerSlot, record, keySink)).find(record, keySink);
+    }
+
+    void build(HashJoinPartition partition, int slot) {
+        final PageFrameRecord record = records.getQuick(slot);
+        final int index = partition.getIndex();
+        for (int i = 0; i < frameEntryCount; i++) {
+            final HashJoinFrameEntry entry = frameEntries.getQuick(i);
+            final LongList pageAddresses = entry.getPageAddresses();
+            final long rowLo = entry.getRowLo();
+            final long firstRowId = entry.getFirstRowId();
+            for (int j = entry.getPartitionLo(index), n = entry.getPartitionHi(index); j < n; j++) {
+                final long row = rowLo + entry.getRowOffset(j);
+                record.jumpTo(pageAddresses, row);
+                partition.put(record, slaveKeySink, firstRowId + row);
+            }
+        }
+    }
+
+    void partition(HashJoinFrameEntry entry, int slot) {
+        final PageFrameRecord record = records.getQuick(slot);
+        final LongList pageAddresses = entry.getPageAddresses();
+        final long rowLo = entry.getRowLo();
+        for (long row = rowLo, hi = entry.getRowHi(); row < hi; row++) {
+            record.jumpTo(pageAddresses, row);
+            entry.setPartition((int) (row - rowLo), partitionOf(slot, record, slaveKeySink));
+        }
+        entry.sortByPartition();
+    }
+
+    private static void cancelAll(ObjList<? extends HashJoinBuildEntry> entries, int count) {
+        for (int i = 0; i < count; i++) {
+            entries.getQuick(i).cancel();
+        }
+    }
+
+    private void dispatch(HashJoinBuildEntry entry) {
+        entry.publish(++sequence, ownerSlot);
+        final long seq = pubSeq.next();
+        // when queue is full owner will run entry itself
+        if (seq > -1) {
+            queue.get(seq).entry = entry;
+            pubSeq.done(seq);
+        }
+    }
+
+    private HashJoinFrameEntry nextFrameEntry() {
+        if (frameEntryCount == frameEntries.size()) {
+            frameEntries.add(new HashJoinFrameEntry(PARTITION_COUNT));
+        }
+        return frameEntries.getQuick(frameEntryCount++);
+    }
+
+    private int partitionOf(int slot, Record record, RecordSink keySink) {
+        final MapKey key = hashMaps.getQuick(slot).withKey();
+        key.put(record, keySink);
+        // map buckets are taken off low bits of the hash, partitions are taken off high bits of mixed hash
+        return (key.hash() * 0x9E3779B9) >>> (Integer.SIZE - PARTITION_BITS);
+    }
+
+    private void runAll(ObjList<? extends HashJoinBuildEntry> entries, int count, SqlExecutionInterruptor interruptor) {
+        // workers pick entries up from the head of the queue, owner starts from the tail
+        for (int i = count - 1; i > -1; i--) {
+            interruptor.checkInterrupted();
+            entries.getQuick(i).runOwner();
+        }
+
+        for (int i = 0; i < count; i++) {
+            final HashJoinBuildEntry entry = entries.getQuick(i);
+            entry.await();
+            final Throwable e = entry.getError();
+            if (e != null) {
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                throw (RuntimeException) e;
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.griffin.engine.AbstractRedBlackTree;
+
+/**
+ * Red-black tree of row ids that keeps at most "limit" rows that sort first. Once the tree
+ * is full a new row is either rejected after single comparison with the last row or it
+ * displaces the last row, whose block is then reused. Memory is proportional to the limit
+ * rather than to the number of rows in the cursor.
+ * <p>
+ * Rows that compare equal are ordered same way as in {@link LongTreeChain}, the most recent
+ * row first.
+ */
+public class LimitedSizeLongTreeChain extends AbstractRedBlackTree {
+    private final TreeCursor cursor = new TreeCursor();
+    private long limit;
+    private long count;
+    private long freeBlock = -1;
+
+    public LimitedSizeLongTreeChain(long keyPageSize, int keyMaxPages) {
+        super(keyPageSize, keyMaxPages);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        count = 0;
+        freeBlock = -1;
+    }
+
+    public TreeCursor getCursor() {
+        cursor.toTop();
+        return cursor;
+    }
+
+    public void of(long limit) {
+        clear();
+        this.limit = limit;
+    }
+
+    public void put(
+            Record main,
+            RecordCursor sourceCursor,
+            Record sourceRecord,
+            RecordComparator comparator
+    ) {
+        if (limit < 1) {
+            return;
+        }
+
+        if (root == -1) {
+            putParent(main.getRowId());
+            count = 1;
+            return;
+        }
+
+        comparator.setLeft(main);
+
+        if (count == limit) {
+            sourceCursor.recordAt(sourceRecord, refOf(rightmost()));
+            if (comparator.compare(sourceRecord) > 0) {
+                return;
+            }
+        }
+
+        long p = root;
+        long parent;
+        int cmp;
+        do {
+            parent = p;
+            sourceCursor.recordAt(sourceRecord, refOf(p));
+            cmp = comparator.compare(sourceRecord);
+            // equal rows go to the left, most recent first
+            if (cmp > 0) {
+                p = rightOf(p);
+            } else {
+                p = leftOf(p);
+            }
+        } while (p > -1);
+
+        p = allocateBlock();
+        setParent(p, parent);
+        setRef(p, main.getRowId());
+
+        if (cmp > 0) {
+            setRight(parent, p);
+        } else {
+            setLeft(parent, p);
+        }
+        fix(p);
+
+        if (count == limit) {
+            final long removed = removeRightmost();
+            setLeft(removed, freeBlock);
+            freeBlock = removed;
+        } else {
+            count++;
+        }
+    }
+
+    @Override
+    public long size() {
+        return count;
+    }
+
+    @Override
+    protected long allocateBlock() {
+        if (freeBlock == -1) {
+            return super.allocateBlock();
+        }
+        final long p = freeBlock;
+        freeBlock = leftOf(p);
+        setLeft(p, -1);
+        setRight(p, -1);
+        return p;
+    }
+
+    private long rightmost() {
+        long p = root;
+        long r;
+        while ((r = rightOf(p)) != -1) {
+            p = r;
+        }
+        return p;
+    }
+
+    public class TreeCursor {
+        private long current;
+
+        public boolean hasNext() {
+            return current != -1;
+        }
+
+        public long next() {
+            final long result = refOf(current);
+            current = successor(current);
+            return result;
+        }
+
+        public void toTop() {
+            long p = root;
+            if (p != -1) {
+                while (leftOf(p) != -1) {
+                    p = leftOf(p);
+                }
+            }
+            current = p;
+        }
+    }
+}
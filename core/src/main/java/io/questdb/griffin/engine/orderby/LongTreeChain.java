@@ -57,6 +57,10 @@ public class LongTreeChain extends AbstractRedBlackTree {
         return offset;
     }
 
+    public long getMemorySize() {
+        return mem.size() + valueChain.getAppendOffset();
+    }
+
     public TreeCursor getCursor() {
         cursor.toTop();
         return cursor;
@@ -24,9 +24,11 @@
 
 package io.questdb.griffin.engine.orderby;
 
+import io.questdb.cairo.AppendMemory;
 import io.questdb.cairo.ColumnTypes;
 import io.questdb.cairo.RecordChain;
 import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.VirtualMemory;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.SymbolTable;
@@ -156,6 +158,50 @@ public class RecordTreeChain implements Closeable, Mutable {
         Misc.free(mem);
     }
 
+    public RecordComparator getComparator() {
+        return comparator;
+    }
+
+    public long getMemorySize() {
+        return mem.size() + recordChain.getMemorySize();
+    }
+
+    public Record newRecord() {
+        return recordChain.newRecord();
+    }
+
+    public void recordAt(Record record, VirtualMemory mem, long row, long rowIdBase) {
+        recordChain.recordAt(record, mem, row, rowIdBase);
+    }
+
+    /**
+     * Writes out sorted run of rows collected so far. Row data is copied as is, and the
+     * index receives row ids in sort order. Both can be read back via {@link #recordAt(Record, VirtualMemory, long, long)}.
+     *
+     * @param data  memory to receive row data
+     * @param index memory to receive row ids, 8 bytes each
+     * @return number of rows in the run
+     */
+    public long spill(AppendMemory data, AppendMemory index) {
+        recordChain.copyTo(data);
+        long count = 0;
+        long p = root;
+        if (p != -1) {
+            while (leftOf(p) != -1) {
+                p = leftOf(p);
+            }
+        }
+        while (p != -1) {
+            recordChain.of(topOf(p));
+            while (recordChain.hasNext()) {
+                index.putLong(recordChain.getRecord().getRowId());
+                count++;
+            }
+            p = successor(p);
+        }
+        return count;
+    }
+
     public TreeCursor getCursor(RecordCursor base) {
         cursor.of(base);
         return cursor;
@@ -92,6 +92,15 @@ class SortedLightRecordCursor implements DelegatingRecordCursor {
 
     @Override
     public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        of(base, executionContext, Long.MAX_VALUE);
+    }
+
+    /**
+     * Sorts row ids of base cursor unless they need more memory than given budget.
+     *
+     * @return false when memory budget is exceeded, cursor is not usable in this case
+     */
+    boolean of(RecordCursor base, SqlExecutionContext executionContext, long memoryBudget) {
         this.base = base;
         this.baseRecord = base.getRecord();
         final Record placeHolderRecord = base.getRecordB();
@@ -110,7 +119,12 @@ class SortedLightRecordCursor implements DelegatingRecordCursor {
                     placeHolderRecord,
                     comparator
             );
+            if (chain.getMemorySize() > memoryBudget) {
+                chain.clear();
+                return false;
+            }
         }
         chainCursor.toTop();
+        return true;
     }
 }
@@ -26,23 +26,39 @@ package io.questdb.griffin.engine.orderby;
 
 import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
 
 public class SortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final CairoConfiguration configuration;
     private final RecordCursorFactory base;
     private final LongTreeChain chain;
     private final SortedLightRecordCursor cursor;
+    private final RecordComparator comparator;
+    private final ColumnTypes columnTypes;
+    private final RecordSink recordSink;
+    private final long memoryBudget;
+    // sorts copies of records and spills them to disk when row ids
+    // alone do not fit memory budget, created on first use
+    private RecordTreeChain spillChain;
+    private SortedRunMerger spillMerger;
+    private SortedRecordCursor spillCursor;
 
     public SortedLightRecordCursorFactory(
             CairoConfiguration configuration,
             RecordMetadata metadata,
             RecordCursorFactory base,
-            RecordComparator comparator
+            RecordComparator comparator,
+            ColumnTypes columnTypes,
+            RecordSink recordSink
     ) {
         super(metadata);
+        this.configuration = configuration;
         this.chain = new LongTreeChain(
                 configuration.getSqlSortKeyPageSize(),
                 configuration.getSqlSortKeyMaxPages(),
@@ -51,24 +67,48 @@ public class SortedLightRecordCursorFactory extends AbstractRecordCursorFactory
                 configuration.getSqlSortLightValueMaxPages());
         this.base = base;
         this.cursor = new SortedLightRecordCursor(chain, comparator);
+        this.comparator = comparator;
+        this.columnTypes = columnTypes;
+        this.recordSink = recordSink;
+        this.memoryBudget = configuration.getSqlSortMemoryBudget();
     }
 
     @Override
     public void close() {
         base.close();
         chain.close();
+        Misc.free(spillMerger);
+        Misc.free(spillChain);
     }
 
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
         RecordCursor baseCursor = base.getCursor(executionContext);
         try {
-            cursor.of(baseCursor, executionContext);
-            return cursor;
+            if (cursor.of(baseCursor, executionContext, memoryBudget)) {
+                return cursor;
+            }
+            baseCursor.toTop();
+            if (spillCursor == null) {
+                spillChain = new RecordTreeChain(
+                        columnTypes,
+                        recordSink,
+                        comparator,
+                        configuration.getSqlSortKeyPageSize(),
+                        configuration.getSqlSortKeyMaxPages(),
+                        configuration.getSqlSortValuePageSize(),
+                        configuration.getSqlSortValueMaxPages()
+                );
+                spillMerger = new SortedRunMerger(configuration, spillChain);
+                spillCursor = new SortedRecordCursor(spillChain, spillMerger, memoryBudget);
+            }
         } catch (RuntimeException ex) {
             baseCursor.close();
             throw ex;
         }
+        // spill cursor closes base cursor should it fail
+        spillCursor.of(baseCursor, executionContext);
+        return spillCursor;
     }
 
     @Override
@@ -34,16 +34,22 @@ import io.questdb.griffin.SqlExecutionInterruptor;
 
 class SortedRecordCursor implements DelegatingRecordCursor {
     private final RecordTreeChain chain;
-    private RecordTreeChain.TreeCursor chainCursor;
+    private final SortedRunMerger merger;
+    private final long memoryBudget;
+    private RecordCursor base;
+    private RecordCursor chainCursor;
 
-    public SortedRecordCursor(RecordTreeChain chain) {
+    public SortedRecordCursor(RecordTreeChain chain, SortedRunMerger merger, long memoryBudget) {
         this.chain = chain;
+        this.merger = merger;
+        this.memoryBudget = memoryBudget;
     }
 
     @Override
     public void close() {
-        chainCursor.close();
+        base.close();
         chain.clear();
+        merger.clear();
     }
 
     @Override
@@ -83,12 +89,15 @@ class SortedRecordCursor implements DelegatingRecordCursor {
 
     @Override
     public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
         try {
-            this.chainCursor = chain.getCursor(base);
+            final RecordTreeChain.TreeCursor treeCursor = chain.getCursor(base);
+            this.chainCursor = treeCursor;
             final Record record = base.getRecord();
             SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
 
             chain.clear();
+            merger.clear();
             while (base.hasNext()) {
                 interruptor.checkInterrupted();
                 // Tree chain is liable to re-position record to
@@ -96,9 +105,22 @@ class SortedRecordCursor implements DelegatingRecordCursor {
                 // own record instance in case base cursor keeps
                 // state in the record it returns.
                 chain.put(record);
+                if (chain.getMemorySize() > memoryBudget) {
+                    merger.spill();
+                }
+            }
+
+            if (merger.getRunCount() > 0) {
+                if (chain.getMemorySize() > 0) {
+                    merger.spill();
+                }
+                merger.of(base);
+                this.chainCursor = merger;
+            } else {
+                treeCursor.toTop();
             }
-            chainCursor.toTop();
         } catch (CairoException ex) {
+            merger.clear();
             base.close();
             throw ex;
         }
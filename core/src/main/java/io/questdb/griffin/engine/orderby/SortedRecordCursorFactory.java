@@ -36,6 +36,7 @@ import io.questdb.griffin.SqlExecutionContext;
 public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
     private final RecordCursorFactory base;
     private final RecordTreeChain chain;
+    private final SortedRunMerger merger;
     private final SortedRecordCursor cursor;
 
     public SortedRecordCursorFactory(
@@ -56,12 +57,14 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
                 configuration.getSqlSortValuePageSize(),
                 configuration.getSqlSortValueMaxPages());
         this.base = base;
-        this.cursor = new SortedRecordCursor(chain);
+        this.merger = new SortedRunMerger(configuration, chain);
+        this.cursor = new SortedRecordCursor(chain, merger, configuration.getSqlSortMemoryBudget());
     }
 
     @Override
     public void close() {
         base.close();
+        merger.close();
         chain.close();
     }
 
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.AppendMemory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ReadOnlyMemory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.Path;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * External merge sort for {@link RecordTreeChain}. When the chain outgrows memory budget its
+ * rows are written out to disk as a sorted run: the chain data as is and an index of row ids
+ * in sort order. Runs are then mapped back into memory and merged using binary heap of run heads.
+ * <p>
+ * Row ids of this cursor combine run number, in high bits, with row id of the run.
+ */
+class SortedRunMerger implements RecordCursor, Mutable {
+    static final String SPILL_DIR_NAME = ".sort";
+    private static final Log LOG = LogFactory.getLog(SortedRunMerger.class);
+    private static final AtomicLong ID_SEQ = new AtomicLong();
+    private static final int RUN_SHIFT = 44;
+    private static final long ROW_MASK = (1L << RUN_SHIFT) - 1;
+    private static final int MAX_RUNS = 1 << (63 - RUN_SHIFT);
+    private final FilesFacade ff;
+    private final Path path = new Path();
+    private final int rootLen;
+    private final long id = ID_SEQ.incrementAndGet();
+    private final int mkDirMode;
+    private final long pageSize;
+    private final RecordTreeChain chain;
+    private final RecordComparator comparator;
+    private final AppendMemory dataAppender = new AppendMemory();
+    private final AppendMemory indexAppender = new AppendMemory();
+    private final ObjList<ReadOnlyMemory> runData = new ObjList<>();
+    private final ObjList<ReadOnlyMemory> runIndex = new ObjList<>();
+    private final ObjList<Record> runHeads = new ObjList<>();
+    private final LongList runSizes = new LongList();
+    private final LongList runPositions = new LongList();
+    private final IntList heap = new IntList();
+    private final Record recordA;
+    private final Record recordB;
+    private RecordCursor base;
+    private int runCount = 0;
+    private int currentRun = -1;
+
+    SortedRunMerger(CairoConfiguration configuration, RecordTreeChain chain) {
+        this.ff = configuration.getFilesFacade();
+        this.mkDirMode = configuration.getMkDirMode();
+        this.pageSize = configuration.getSqlSortValuePageSize();
+        this.chain = chain;
+        this.comparator = chain.getComparator();
+        this.recordA = chain.newRecord();
+        this.recordB = chain.newRecord();
+        this.rootLen = path.of(configuration.getRoot()).concat(SPILL_DIR_NAME).length();
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0, n = runData.size(); i < n; i++) {
+            runData.getQuick(i).close();
+            runIndex.getQuick(i).close();
+        }
+        for (int i = 0; i < runCount; i++) {
+            removeQuietly(dataPath(i));
+            removeQuietly(indexPath(i));
+        }
+        runCount = 0;
+        currentRun = -1;
+        heap.clear();
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(dataAppender);
+        Misc.free(indexAppender);
+        Misc.free(path);
+    }
+
+    @Override
+    public Record getRecord() {
+        return recordA;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (currentRun != -1) {
+            final long position = runPositions.getQuick(currentRun) + 1;
+            if (position < runSizes.getQuick(currentRun)) {
+                runPositions.setQuick(currentRun, position);
+                positionHead(currentRun);
+            } else {
+                final int last = heap.size() - 1;
+                heap.setQuick(0, heap.getQuick(last));
+                heap.removeIndex(last);
+            }
+            siftDown();
+        }
+
+        if (heap.size() == 0) {
+            currentRun = -1;
+            return false;
+        }
+
+        currentRun = heap.getQuick(0);
+        chain.recordAt(recordA, runData.getQuick(currentRun), rowAt(currentRun), (long) currentRun << RUN_SHIFT);
+        return true;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return recordB;
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        final int run = (int) (atRowId >>> RUN_SHIFT);
+        chain.recordAt(record, runData.getQuick(run), atRowId & ROW_MASK, (long) run << RUN_SHIFT);
+    }
+
+    @Override
+    public void toTop() {
+        heap.clear();
+        currentRun = -1;
+        for (int i = 0; i < runCount; i++) {
+            runPositions.setQuick(i, 0);
+            positionHead(i);
+            heap.add(i);
+            siftUp(heap.size() - 1);
+        }
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    int getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Maps runs written so far back into memory and positions cursor at the top of merged output.
+     *
+     * @param base cursor that provided rows, it resolves symbol tables and size
+     */
+    void of(RecordCursor base) {
+        this.base = base;
+        for (int i = 0; i < runCount; i++) {
+            final ReadOnlyMemory data;
+            final ReadOnlyMemory index;
+            if (i < runData.size()) {
+                data = runData.getQuick(i);
+                index = runIndex.getQuick(i);
+            } else {
+                runData.add(data = new ReadOnlyMemory());
+                runIndex.add(index = new ReadOnlyMemory());
+                runHeads.add(chain.newRecord());
+            }
+            data.of(ff, dataPath(i), pageSize, ff.length(path));
+            index.of(ff, indexPath(i), pageSize, runSizes.getQuick(i) * Long.BYTES);
+        }
+        toTop();
+    }
+
+    /**
+     * Writes rows of the chain out as the next sorted run and clears the chain.
+     */
+    void spill() {
+        if (runCount == 0) {
+            if (ff.mkdirs(path.trimTo(rootLen).put(Files.SEPARATOR).$(), mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create [dir=").put(path).put(']');
+            }
+        } else if (runCount == MAX_RUNS) {
+            throw LimitOverflowException.instance().put("sort spilled too many runs [max=").put(MAX_RUNS).put(']');
+        }
+
+        final int run = runCount++;
+        final long rows;
+        try {
+            dataAppender.of(ff, dataPath(run), pageSize);
+            indexAppender.of(ff, indexPath(run), pageSize);
+            rows = chain.spill(dataAppender, indexAppender);
+        } finally {
+            dataAppender.close();
+            indexAppender.close();
+        }
+        runSizes.extendAndSet(run, rows);
+        runPositions.extendAndSet(run, 0);
+        chain.clear();
+        LOG.info().$("spilled sort run [id=").$(id).$(", run=").$(run).$(", rows=").$(rows).$(']').$();
+    }
+
+    private Path dataPath(int run) {
+        return runPath(run, ".d");
+    }
+
+    private Path indexPath(int run) {
+        return runPath(run, ".i");
+    }
+
+    private boolean lessThan(int runA, int runB) {
+        comparator.setLeft(runHeads.getQuick(runA));
+        final int cmp = comparator.compare(runHeads.getQuick(runB));
+        // runs are written in arrival order, rows that tie keep that order
+        return cmp < 0 || (cmp == 0 && runA < runB);
+    }
+
+    private void positionHead(int run) {
+        chain.recordAt(runHeads.getQuick(run), runData.getQuick(run), rowAt(run), 0);
+    }
+
+    private void removeQuietly(Path path) {
+        if (ff.exists(path) && !ff.remove(path)) {
+            LOG.error().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+        }
+    }
+
+    private Path runPath(int run, CharSequence suffix) {
+        path.trimTo(rootLen).put(Files.SEPARATOR).put(id).put('.').put(run);
+        return path.put(suffix).$();
+    }
+
+    private long rowAt(int run) {
+        return runIndex.getQuick(run).getLong(runPositions.getQuick(run) * Long.BYTES);
+    }
+
+    private void siftDown() {
+        final int n = heap.size();
+        int i = 0;
+        while (true) {
+            final int l = 2 * i + 1;
+            if (l >= n) {
+                break;
+            }
+            int min = l;
+            if (l + 1 < n && lessThan(heap.getQuick(l + 1), heap.getQuick(l))) {
+                min = l + 1;
+            }
+            if (!lessThan(heap.getQuick(min), heap.getQuick(i))) {
+                break;
+            }
+            swap(i, min);
+            i = min;
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (!lessThan(heap.getQuick(i), heap.getQuick(parent))) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final int t = heap.getQuick(i);
+        heap.setQuick(i, heap.getQuick(j));
+        heap.setQuick(j, t);
+    }
+}
@@ -71,7 +71,10 @@ public abstract class AbstractDataFrameRecordCursor implements RecordCursor {
 
     @Override
     public void recordAt(Record record, long atRowId) {
-        ((TableReaderSelectedColumnRecord) record).jumpTo(Rows.toPartitionIndex(atRowId), Rows.toLocalRowID(atRowId));
+        final int partitionIndex = Rows.toPartitionIndex(atRowId);
+        // row id can come from another cursor, e.g. page frames, this cursor may not have opened its partition yet
+        dataFrameCursor.getTableReader().openPartition(partitionIndex);
+        ((TableReaderSelectedColumnRecord) record).jumpTo(partitionIndex, Rows.toLocalRowID(atRowId));
     }
 
     abstract void of(DataFrameCursor cursor, SqlExecutionContext executionContext);
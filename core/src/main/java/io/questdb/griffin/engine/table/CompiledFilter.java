@@ -0,0 +1,89 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.NoArgFunction;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.ex.BytecodeException;
+
+/**
+ * Base class of filters generated by {@link FilterCompiler}. Comparisons are static methods,
+ * generated code calls them directly and JIT inlines them into filter body.
+ * <p>
+ * Comparisons follow functions that interpreted filter would use: "=" compares values either
+ * as int, long or double, ordering operators always compare doubles.
+ */
+public abstract class CompiledFilter extends BooleanFunction implements NoArgFunction {
+    private static final Log LOG = LogFactory.getLog(CompiledFilter.class);
+
+    public CompiledFilter() {
+        super(0);
+    }
+
+    public static boolean eq(int l, int r) {
+        return l == r;
+    }
+
+    public static boolean eq(long l, long r) {
+        return l == r;
+    }
+
+    public static boolean eq(double l, double r) {
+        return l != l && r != r || Math.abs(l - r) < 0.0000000001;
+    }
+
+    public static boolean ge(double l, double r) {
+        return l >= r;
+    }
+
+    public static boolean gt(double l, double r) {
+        return l > r;
+    }
+
+    public static boolean le(double l, double r) {
+        return l <= r;
+    }
+
+    public static boolean lt(double l, double r) {
+        return l < r;
+    }
+
+    /**
+     * Creates another instance of generated class, so that each worker can own its filter
+     * without generating byte code again.
+     *
+     * @return new filter of the same expression
+     */
+    public CompiledFilter newInstance() {
+        try {
+            return getClass().getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            LOG.error().$("Failed to create an instance of ").$(getClass().getName()).$(", cause: ").$(e).$();
+            throw BytecodeException.INSTANCE;
+        }
+    }
+}
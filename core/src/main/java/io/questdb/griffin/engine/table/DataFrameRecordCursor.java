@@ -35,11 +35,16 @@ import java.util.function.BooleanSupplier;
 class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
     private final RowCursorFactory rowCursorFactory;
     private final boolean entityCursor;
+    private final int frameAccess;
     private RowCursor rowCursor;
     private BooleanSupplier next;
     private final BooleanSupplier nextRow = this::nextRow;
     private final BooleanSupplier nextFrame = this::nextFrame;
     private final Function filter;
+    // frame that has been advised to OS, frame object is reused by data frame cursor so its bounds are copied
+    private int advisedPartitionIndex = -1;
+    private long advisedRowLo;
+    private long advisedRowHi;
 
     public DataFrameRecordCursor(
             RowCursorFactory rowCursorFactory,
@@ -51,9 +56,16 @@ class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
         super(columnIndexes);
         this.rowCursorFactory = rowCursorFactory;
         this.entityCursor = entityCursor;
+        this.frameAccess = rowCursorFactory.getFrameAccess();
         this.filter = filter;
     }
 
+    @Override
+    public void close() {
+        releaseFrame();
+        super.close();
+    }
+
     @Override
     public boolean hasNext() {
         try {
@@ -68,6 +80,7 @@ class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
         if (filter != null) {
             filter.toTop();
         }
+        releaseFrame();
         dataFrameCursor.toTop();
         next = nextFrame;
     }
@@ -86,6 +99,8 @@ class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
             close();
             this.dataFrameCursor = dataFrameCursor;
         }
+        // data frame cursor could have been given another reader
+        this.advisedPartitionIndex = -1;
         this.recordA.of(dataFrameCursor.getTableReader());
         this.recordB.of(dataFrameCursor.getTableReader());
         this.rowCursorFactory.prepareCursor(dataFrameCursor.getTableReader());
@@ -97,15 +112,34 @@ class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
         return entityCursor ? dataFrameCursor.size() : -1;
     }
 
+    private void adviseFrame(DataFrame dataFrame) {
+        if (frameAccess != RowCursorFactory.FRAME_ACCESS_UNKNOWN) {
+            advisedPartitionIndex = dataFrame.getPartitionIndex();
+            advisedRowLo = dataFrame.getRowLo();
+            advisedRowHi = dataFrame.getRowHi();
+            dataFrameCursor.getTableReader().adviseFrame(advisedPartitionIndex, advisedRowLo, advisedRowHi, frameAccess == RowCursorFactory.FRAME_ACCESS_SCAN);
+        }
+    }
+
+    private void releaseFrame() {
+        if (advisedPartitionIndex != -1) {
+            dataFrameCursor.getTableReader().releaseFrame(advisedPartitionIndex, advisedRowLo, advisedRowHi, frameAccess == RowCursorFactory.FRAME_ACCESS_SCAN);
+            advisedPartitionIndex = -1;
+        }
+    }
+
     private boolean nextFrame() {
         DataFrame dataFrame;
+        releaseFrame();
         while ((dataFrame = dataFrameCursor.next()) != null) {
+            adviseFrame(dataFrame);
             rowCursor = rowCursorFactory.getCursor(dataFrame);
             if (rowCursor.hasNext()) {
                 recordA.jumpTo(dataFrame.getPartitionIndex(), rowCursor.next());
                 next = nextRow;
                 return true;
             }
+            releaseFrame();
         }
         return false;
     }
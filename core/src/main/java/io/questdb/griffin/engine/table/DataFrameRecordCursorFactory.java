@@ -32,11 +32,13 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.IntList;
 import io.questdb.std.LongList;
 import io.questdb.std.Misc;
+import io.questdb.std.Rows;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
     private final DataFrameRecordCursor cursor;
+    private final RowCursorFactory rowCursorFactory;
     private final boolean followsOrderByAdvice;
     private final Function filter;
     private final boolean framingSupported;
@@ -57,6 +59,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
     ) {
         super(metadata, dataFrameCursorFactory);
         this.cursor = new DataFrameRecordCursor(rowCursorFactory, rowCursorFactory.isEntity(), filter, columnIndexes);
+        this.rowCursorFactory = rowCursorFactory;
         this.followsOrderByAdvice = followsOrderByAdvice;
         this.filter = filter;
         this.framingSupported = framingSupported;
@@ -107,6 +110,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
     @Override
     public void close() {
         Misc.free(filter);
+        Misc.free(rowCursorFactory);
     }
 
     private static class TableReaderPageFrameCursor implements PageFrameCursor {
@@ -123,6 +127,8 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         private int partitionIndex;
         private long pageValueCount;
         private long partitionRemaining = 0L;
+        private long partitionHi;
+        private long firstRowId;
         private DataFrameCursor dataFrameCursor;
 
         public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes) {
@@ -156,7 +162,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                 this.partitionIndex = dataFrame.getPartitionIndex();
                 long partitionSize = reader.openPartition(partitionIndex);
                 final long partitionLo = dataFrame.getRowLo();
-                final long partitionHi = dataFrame.getRowHi();
+                this.partitionHi = dataFrame.getRowHi();
 
                 this.partitionRemaining = partitionHi - partitionLo;
 
@@ -238,11 +244,10 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
         private PageFrame computeFrame(long min) {
             for (int i = 0; i < columnCount; i++) {
-                final int columnIndex = columnIndexes.getQuick(i);
                 final long top = topsRemaining.getQuick(i);
                 if (top > 0) {
                     topsRemaining.setQuick(i, top - min);
-                    columnPageAddress.setQuick(columnIndex, 0);
+                    columnPageAddress.setQuick(i, 0);
                 } else {
                     long addr = columnPageNextAddress.getQuick(i);
                     long psz = pageSizes.getQuick(i);
@@ -252,6 +257,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
                 }
             }
             pageValueCount = min;
+            firstRowId = Rows.toRowID(partitionIndex, partitionHi - partitionRemaining);
             partitionRemaining -= min;
             return frame;
         }
@@ -292,6 +298,11 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
 
         private class TableReaderPageFrame implements PageFrame {
 
+            @Override
+            public long getFirstRowId() {
+                return firstRowId;
+            }
+
             @Override
             public long getPageAddress(int columnIndex) {
                 return columnPageAddress.getQuick(columnIndex);
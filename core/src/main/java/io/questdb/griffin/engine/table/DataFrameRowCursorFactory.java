@@ -41,4 +41,9 @@ public class DataFrameRowCursorFactory implements RowCursorFactory {
     public boolean isEntity() {
         return true;
     }
+
+    @Override
+    public int getFrameAccess() {
+        return FRAME_ACCESS_SCAN;
+    }
 }
@@ -67,4 +67,9 @@ public class DeferredSymbolIndexFilteredRowCursorFactory implements RowCursorFac
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public int getFrameAccess() {
+        return FRAME_ACCESS_INDEX;
+    }
 }
@@ -75,4 +75,9 @@ public class DeferredSymbolIndexRowCursorFactory implements RowCursorFactory {
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public int getFrameAccess() {
+        return FRAME_ACCESS_INDEX;
+    }
 }
@@ -0,0 +1,562 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Generates byte code of WHERE clause filter, which reads columns straight from the record
+ * instead of calling tree of functions. Filter can be made of comparisons of numeric columns
+ * and constants, boolean columns and and/or/not of those. Other expressions are not compiled
+ * and the caller is expected to use interpreted filter.
+ * <p>
+ * Generated code has no branches, both sides of and/or are always evaluated. Column reads and
+ * comparisons are cheap enough for that and it saves us from generating stack map frames.
+ */
+public class FilterCompiler {
+    private static final int[] GETTER_TYPES = {
+            ColumnType.BOOLEAN,
+            ColumnType.BYTE,
+            ColumnType.SHORT,
+            ColumnType.INT,
+            ColumnType.LONG,
+            ColumnType.DATE,
+            ColumnType.TIMESTAMP,
+            ColumnType.FLOAT,
+            ColumnType.DOUBLE
+    };
+    private final BytecodeAssembler asm;
+    // pool indexes of record getters by column type
+    private final IntList getterIndexes = new IntList();
+    // pool indexes of constants in the order they are emitted, -1 when constant is inlined
+    private final IntList constantIndexes = new IntList();
+    // constants in the order they are emitted
+    private final IntList constantTypes = new IntList();
+    private final LongList constantValues = new LongList();
+    private RecordMetadata metadata;
+    private int constantPos;
+    private int eqIntIndex;
+    private int eqLongIndex;
+    private int eqDoubleIndex;
+    private int ltIndex;
+    private int leIndex;
+    private int gtIndex;
+    private int geIndex;
+    // constant that has been parsed last
+    private int constantType;
+    private long constantLong;
+    private double constantDouble;
+
+    public FilterCompiler(BytecodeAssembler asm) {
+        this.asm = asm;
+    }
+
+    /**
+     * Generates filter class.
+     *
+     * @param filter   WHERE clause expression, it must have passed function parser already
+     * @param metadata metadata of the filtered cursor
+     * @return filter instance or null when expression cannot be compiled
+     */
+    @Nullable
+    public CompiledFilter compile(ExpressionNode filter, RecordMetadata metadata) {
+        this.metadata = metadata;
+        constantTypes.clear();
+        constantValues.clear();
+        final int maxStack = prepareBool(filter);
+        if (maxStack < 0) {
+            return null;
+        }
+
+        asm.init(CompiledFilter.class);
+        asm.setupPool();
+        final int thisClassIndex = asm.poolClass(asm.poolUtf8("io/questdb/griffin/engine/table/compiledfilter"));
+        final int superclassIndex = asm.poolClass(CompiledFilter.class);
+        final int superConstructorIndex = asm.poolMethod(superclassIndex, "<init>", "()V");
+        final int getBoolNameIndex = asm.poolUtf8("getBool");
+        final int getBoolDescIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;)Z");
+        poolArtifacts(superclassIndex);
+        asm.finishPool();
+
+        asm.defineClass(thisClassIndex, superclassIndex);
+        // interfaces
+        asm.interfaceCount(0);
+        // fields
+        asm.fieldCount(0);
+        asm.methodCount(2);
+        asm.defineDefaultConstructor(superConstructorIndex);
+
+        asm.startMethod(getBoolNameIndex, getBoolDescIndex, maxStack, 2);
+        constantPos = 0;
+        emitBool(filter);
+        asm.ireturn();
+        asm.endMethodCode();
+        // exceptions
+        asm.putShort(0);
+        // attributes
+        asm.putShort(0);
+        asm.endMethod();
+
+        // class attribute count
+        asm.putShort(0);
+        return asm.newInstance();
+    }
+
+    // type of column, which null value NaN constant stands for in "=", or -1 when there is no NaN constant
+    private static int getEqNaNType(int leftType, int rightType) {
+        if (leftType == ColumnType.PARAMETER) {
+            return getNaNType(rightType);
+        }
+        if (rightType == ColumnType.PARAMETER) {
+            return getNaNType(leftType);
+        }
+        return -1;
+    }
+
+    // comparison type of "=", it follows overload that function parser picks out of =(II), =(LL) and =(DD)
+    private static int getEqType(int leftType, int rightType) {
+        if (leftType <= ColumnType.INT && rightType <= ColumnType.INT) {
+            return ColumnType.INT;
+        }
+        if (leftType <= ColumnType.LONG && rightType <= ColumnType.LONG) {
+            return ColumnType.LONG;
+        }
+        return ColumnType.DOUBLE;
+    }
+
+    private static int getNaNType(int columnType) {
+        switch (columnType) {
+            case ColumnType.INT:
+                return ColumnType.INT;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return ColumnType.LONG;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean isComparison(CharSequence token) {
+        return Chars.equals(token, '=')
+                || Chars.equals(token, "!=")
+                || Chars.equals(token, '<')
+                || Chars.equals(token, "<=")
+                || Chars.equals(token, '>')
+                || Chars.equals(token, ">=");
+    }
+
+    private static boolean isOrKeyword(CharSequence token) {
+        return token.length() == 2
+                && (token.charAt(0) | 32) == 'o'
+                && (token.charAt(1) | 32) == 'r';
+    }
+
+    private static ExpressionNode unaryArg(ExpressionNode node) {
+        return node.rhs != null ? node.rhs : node.lhs;
+    }
+
+    private void addConstant(int type, int valueType, long longValue, double doubleValue) {
+        constantTypes.add(type);
+        switch (type) {
+            case ColumnType.INT:
+                constantValues.add(valueType == ColumnType.INT ? longValue : Numbers.INT_NaN);
+                break;
+            case ColumnType.LONG:
+                constantValues.add(valueType == ColumnType.DOUBLE ? Numbers.LONG_NaN : longValue);
+                break;
+            default:
+                constantValues.add(Double.doubleToRawLongBits(valueType == ColumnType.DOUBLE ? doubleValue : (double) longValue));
+                break;
+        }
+    }
+
+    private void convert(int fromType, int toType) {
+        switch (toType) {
+            case ColumnType.LONG:
+                if (fromType < ColumnType.LONG) {
+                    asm.i2l();
+                }
+                break;
+            case ColumnType.DOUBLE:
+                switch (fromType) {
+                    case ColumnType.BYTE:
+                    case ColumnType.SHORT:
+                    case ColumnType.INT:
+                        asm.i2d();
+                        break;
+                    case ColumnType.LONG:
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                        asm.l2d();
+                        break;
+                    case ColumnType.FLOAT:
+                        asm.f2d();
+                        break;
+                    default:
+                        break;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void emitBool(ExpressionNode node) {
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                asm.aload(1);
+                asm.iconst(metadata.getColumnIndexQuiet(node.token));
+                asm.invokeInterface(getterIndexes.getQuick(ColumnType.BOOLEAN), 1);
+                break;
+            case ExpressionNode.CONSTANT:
+                asm.iconst(SqlKeywords.isTrueKeyword(node.token) ? 1 : 0);
+                break;
+            default:
+                if (SqlKeywords.isAndKeyword(node.token)) {
+                    emitBool(node.lhs);
+                    emitBool(node.rhs);
+                    asm.iand();
+                } else if (isOrKeyword(node.token)) {
+                    emitBool(node.lhs);
+                    emitBool(node.rhs);
+                    asm.ior();
+                } else if (SqlKeywords.isNotKeyword(node.token)) {
+                    emitBool(unaryArg(node));
+                    asm.iconst(1);
+                    asm.ixor();
+                } else {
+                    emitComparison(node);
+                }
+                break;
+        }
+    }
+
+    private void emitComparison(ExpressionNode node) {
+        final CharSequence token = node.token;
+        final int leftType = getOperandType(node.lhs);
+        final int rightType = getOperandType(node.rhs);
+        if (Chars.equals(token, '=') || Chars.equals(token, "!=")) {
+            final int type = getEqNaNType(leftType, rightType);
+            if (type != -1) {
+                // NaN constant is compared to null value of column type
+                emitOperand(node.lhs, leftType, type);
+                emitOperand(node.rhs, rightType, type);
+                asm.invokeStatic(type == ColumnType.INT ? eqIntIndex : eqLongIndex);
+            } else {
+                final int eqType = getEqType(leftType, rightType);
+                emitOperand(node.lhs, leftType, eqType);
+                emitOperand(node.rhs, rightType, eqType);
+                switch (eqType) {
+                    case ColumnType.INT:
+                        asm.invokeStatic(eqIntIndex);
+                        break;
+                    case ColumnType.LONG:
+                        asm.invokeStatic(eqLongIndex);
+                        break;
+                    default:
+                        asm.invokeStatic(eqDoubleIndex);
+                        break;
+                }
+            }
+            if (token.length() > 1) {
+                asm.iconst(1);
+                asm.ixor();
+            }
+        } else {
+            emitOperand(node.lhs, leftType, ColumnType.DOUBLE);
+            emitOperand(node.rhs, rightType, ColumnType.DOUBLE);
+            if (Chars.equals(token, '<')) {
+                asm.invokeStatic(ltIndex);
+            } else if (Chars.equals(token, "<=")) {
+                asm.invokeStatic(leIndex);
+            } else if (Chars.equals(token, '>')) {
+                asm.invokeStatic(gtIndex);
+            } else {
+                asm.invokeStatic(geIndex);
+            }
+        }
+    }
+
+    private void emitOperand(ExpressionNode node, int type, int toType) {
+        if (node.type == ExpressionNode.LITERAL) {
+            asm.aload(1);
+            asm.iconst(metadata.getColumnIndexQuiet(node.token));
+            asm.invokeInterface(getterIndexes.getQuick(type), 1);
+            convert(type, toType);
+            return;
+        }
+
+        final int index = constantIndexes.getQuick(constantPos);
+        switch (constantTypes.getQuick(constantPos)) {
+            case ColumnType.INT:
+                if (index == -1) {
+                    asm.iconst((int) constantValues.getQuick(constantPos));
+                } else {
+                    asm.ldc_w(index);
+                }
+                break;
+            default:
+                asm.ldc2_w(index);
+                break;
+        }
+        constantPos++;
+    }
+
+    // type of comparison operand or -1 when operand cannot be compiled, NaN constant is reported as PARAMETER
+    private int getOperandType(ExpressionNode node) {
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                final int index = metadata.getColumnIndexQuiet(node.token);
+                if (index == -1) {
+                    return -1;
+                }
+                final int type = metadata.getColumnType(index);
+                switch (type) {
+                    case ColumnType.BYTE:
+                    case ColumnType.SHORT:
+                    case ColumnType.INT:
+                    case ColumnType.LONG:
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                    case ColumnType.FLOAT:
+                    case ColumnType.DOUBLE:
+                        return type;
+                    default:
+                        return -1;
+                }
+            case ExpressionNode.CONSTANT:
+                if (parseConstant(node.token)) {
+                    return constantType == ColumnType.DOUBLE && Double.isNaN(constantDouble) ? ColumnType.PARAMETER : constantType;
+                }
+                return -1;
+            default:
+                // negative constant
+                if (Chars.equals(node.token, '-') && node.paramCount == 1) {
+                    final ExpressionNode arg = unaryArg(node);
+                    if (arg.type == ExpressionNode.CONSTANT && parseConstant(arg.token)) {
+                        switch (constantType) {
+                            case ColumnType.INT:
+                                constantLong = -constantLong;
+                                return ColumnType.INT;
+                            case ColumnType.LONG:
+                                // there is no long negation, long goes to double one
+                                constantType = ColumnType.DOUBLE;
+                                constantDouble = -(double) constantLong;
+                                return ColumnType.DOUBLE;
+                            default:
+                                constantDouble = -constantDouble;
+                                return Double.isNaN(constantDouble) ? -1 : ColumnType.DOUBLE;
+                        }
+                    }
+                }
+                return -1;
+        }
+    }
+
+    private boolean parseConstant(CharSequence token) {
+        try {
+            constantLong = Numbers.parseInt(token);
+            constantType = ColumnType.INT;
+            return true;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            constantLong = Numbers.parseLong(token);
+            constantType = ColumnType.LONG;
+            return true;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            constantDouble = Numbers.parseDouble(token);
+            constantType = ColumnType.DOUBLE;
+            return true;
+        } catch (NumericException ignore) {
+        }
+        return false;
+    }
+
+    private void poolArtifacts(int superclassIndex) {
+        final int recordClassIndex = asm.poolClass(Record.class);
+        getterIndexes.setAll(ColumnType.MAX + 1, -1);
+        for (int i = 0; i < GETTER_TYPES.length; i++) {
+            final int type = GETTER_TYPES[i];
+            final String name;
+            final String desc;
+            switch (type) {
+                case ColumnType.BOOLEAN:
+                    name = "getBool";
+                    desc = "(I)Z";
+                    break;
+                case ColumnType.BYTE:
+                    name = "getByte";
+                    desc = "(I)B";
+                    break;
+                case ColumnType.SHORT:
+                    name = "getShort";
+                    desc = "(I)S";
+                    break;
+                case ColumnType.INT:
+                    name = "getInt";
+                    desc = "(I)I";
+                    break;
+                case ColumnType.LONG:
+                    name = "getLong";
+                    desc = "(I)J";
+                    break;
+                case ColumnType.DATE:
+                    name = "getDate";
+                    desc = "(I)J";
+                    break;
+                case ColumnType.TIMESTAMP:
+                    name = "getTimestamp";
+                    desc = "(I)J";
+                    break;
+                case ColumnType.FLOAT:
+                    name = "getFloat";
+                    desc = "(I)F";
+                    break;
+                default:
+                    name = "getDouble";
+                    desc = "(I)D";
+                    break;
+            }
+            getterIndexes.setQuick(type, asm.poolInterfaceMethod(recordClassIndex, name, desc));
+        }
+
+        eqIntIndex = asm.poolMethod(superclassIndex, "eq", "(II)Z");
+        eqLongIndex = asm.poolMethod(superclassIndex, "eq", "(JJ)Z");
+        eqDoubleIndex = asm.poolMethod(superclassIndex, "eq", "(DD)Z");
+        ltIndex = asm.poolMethod(superclassIndex, "lt", "(DD)Z");
+        leIndex = asm.poolMethod(superclassIndex, "le", "(DD)Z");
+        gtIndex = asm.poolMethod(superclassIndex, "gt", "(DD)Z");
+        geIndex = asm.poolMethod(superclassIndex, "ge", "(DD)Z");
+
+        constantIndexes.clear();
+        for (int i = 0, n = constantTypes.size(); i < n; i++) {
+            final long value = constantValues.getQuick(i);
+            switch (constantTypes.getQuick(i)) {
+                case ColumnType.INT:
+                    constantIndexes.add(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE ? -1 : asm.poolIntConst((int) value));
+                    break;
+                case ColumnType.LONG:
+                    constantIndexes.add(asm.poolLongConst(value));
+                    break;
+                default:
+                    constantIndexes.add(asm.poolDoubleConst(Double.longBitsToDouble(value)));
+                    break;
+            }
+        }
+    }
+
+    // validates expression, collects its constants and returns max stack depth or -1 when expression cannot be compiled
+    private int prepareBool(ExpressionNode node) {
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                final int index = metadata.getColumnIndexQuiet(node.token);
+                return index != -1 && metadata.getColumnType(index) == ColumnType.BOOLEAN ? 2 : -1;
+            case ExpressionNode.CONSTANT:
+                return SqlKeywords.isTrueKeyword(node.token) || SqlKeywords.isFalseKeyword(node.token) ? 1 : -1;
+            case ExpressionNode.OPERATION:
+            case ExpressionNode.FUNCTION:
+                if (node.paramCount == 2 && (SqlKeywords.isAndKeyword(node.token) || isOrKeyword(node.token))) {
+                    final int left = prepareBool(node.lhs);
+                    if (left < 0) {
+                        return -1;
+                    }
+                    final int right = prepareBool(node.rhs);
+                    if (right < 0) {
+                        return -1;
+                    }
+                    return Math.max(left, right + 1);
+                }
+                if (node.paramCount == 1 && SqlKeywords.isNotKeyword(node.token)) {
+                    final int arg = prepareBool(unaryArg(node));
+                    return arg < 0 ? -1 : Math.max(arg, 2);
+                }
+                if (node.paramCount == 2 && isComparison(node.token)) {
+                    return prepareComparison(node);
+                }
+                return -1;
+            default:
+                return -1;
+        }
+    }
+
+    private int prepareComparison(ExpressionNode node) {
+        final int leftType = getOperandType(node.lhs);
+        if (leftType == -1) {
+            return -1;
+        }
+        final int leftConstantType = constantType;
+        final long leftConstantLong = constantLong;
+        final double leftConstantDouble = constantDouble;
+
+        final int rightType = getOperandType(node.rhs);
+        if (rightType == -1) {
+            return -1;
+        }
+
+        final boolean leftColumn = node.lhs.type == ExpressionNode.LITERAL;
+        final boolean rightColumn = node.rhs.type == ExpressionNode.LITERAL;
+        if (!leftColumn && !rightColumn) {
+            // constant expressions are left to function parser
+            return -1;
+        }
+
+        final int type;
+        if (Chars.equals(node.token, '=') || Chars.equals(node.token, "!=")) {
+            final int nanType = getEqNaNType(leftType, rightType);
+            if (nanType != -1) {
+                type = nanType;
+            } else {
+                type = getEqType(
+                        leftType == ColumnType.PARAMETER ? ColumnType.DOUBLE : leftType,
+                        rightType == ColumnType.PARAMETER ? ColumnType.DOUBLE : rightType
+                );
+            }
+        } else {
+            type = ColumnType.DOUBLE;
+        }
+
+        if (!leftColumn) {
+            addConstant(type, leftConstantType, leftConstantLong, leftConstantDouble);
+        }
+        if (!rightColumn) {
+            addConstant(type, constantType, constantLong, constantDouble);
+        }
+        // two operands of up to two slots each, column index and record are on the stack
+        // while getter is called, they take two slots too
+        return 4;
+    }
+}
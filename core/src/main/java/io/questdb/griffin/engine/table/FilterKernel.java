@@ -0,0 +1,95 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.ZoneMap;
+
+import java.io.Closeable;
+
+/**
+ * Predicate over single fixed-size column, which tests contiguous block of column values
+ * in one go rather than row by row. Kernels are created by {@link FilterKernelFactory} for
+ * simple shapes of WHERE clause and are executed by {@link FilterKernelRowCursorFactory}.
+ */
+public abstract class FilterKernel implements Closeable {
+    private final int columnIndex;
+    private final int columnType;
+
+    protected FilterKernel(int columnIndex, int columnType) {
+        this.columnIndex = columnIndex;
+        this.columnType = columnType;
+    }
+
+    /**
+     * @return whether null value passes the filter, rows above column top are nulls
+     */
+    public abstract boolean acceptsNull();
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Tests block of values and writes rows that pass the filter to native memory.
+     *
+     * @param address address of the first value of the block
+     * @param count   number of values in the block
+     * @param rowLo   row of the first value of the block
+     * @param pRows   address rows that pass the filter are written to, it has room for count rows
+     * @return number of written rows
+     */
+    public abstract long filter(long address, long count, long rowLo, long pRows);
+
+    /**
+     * @return index of tested column in table reader metadata
+     */
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    public int getColumnType() {
+        return columnType;
+    }
+
+    /**
+     * Tells whether partition can have rows that pass the filter. Kernel that cannot tell returns true.
+     *
+     * @param zoneMap zone map of partition, it has valid statistics of tested column
+     * @return false when no row of partition passes the filter
+     */
+    public boolean mayMatch(ZoneMap zoneMap) {
+        return true;
+    }
+
+    /**
+     * Called before the kernel is used on rows of the reader.
+     *
+     * @param reader reader query is executed against
+     */
+    public void prepare(TableReader reader) {
+    }
+}
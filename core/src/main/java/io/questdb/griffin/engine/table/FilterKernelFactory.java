@@ -0,0 +1,764 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.ZoneMap;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Creates {@link FilterKernel} for WHERE clause of one of the following shapes:
+ * <ul>
+ * <li>numeric column compared to constant, e.g. "price > 1000"</li>
+ * <li>lower and upper bound of the same numeric column, e.g. "price > 10 and price <= 20"</li>
+ * <li>symbol column in list of constants, e.g. "sym in ('A', 'B')"</li>
+ * </ul>
+ * Numeric column can be INT, LONG, DATE, TIMESTAMP or DOUBLE. Kernels follow functions that interpreted
+ * filter would use: "=" compares exact values of INT and LONG columns and doubles otherwise,
+ * ordering operators always compare doubles.
+ */
+public class FilterKernelFactory {
+    private static final int MODE_EQ = 0;
+    private static final int MODE_NE = 1;
+    private static final int MODE_EQ_DOUBLE = 2;
+    private static final int MODE_NE_DOUBLE = 3;
+    private static final int MODE_RANGE = 4;
+    // how kernel uses native filter functions
+    private static final int NATIVE_NONE = 0;
+    private static final int NATIVE_BETWEEN = 1;
+    private static final int NATIVE_NOT_BETWEEN = 2;
+    // doubles represent every integer of lower magnitude
+    private static final double MAX_EXACT_LONG = 1L << 53;
+    private RecordMetadata metadata;
+    // comparison that has been parsed last
+    private int columnIndex;
+    private int mode;
+    private long value;
+    private double doubleValue;
+    private boolean hasLo;
+    private double lo;
+    private boolean loInclusive;
+    private boolean hasHi;
+    private double hi;
+    private boolean hiInclusive;
+    // constant that has been parsed last
+    private int constantType;
+    private long constantLong;
+    private double constantDouble;
+
+    private static boolean addSymbolValue(ExpressionNode node, ObjList<String> values) {
+        if (node == null || node.type != ExpressionNode.CONSTANT) {
+            return false;
+        }
+        if (SqlKeywords.isNullKeyword(node.token)) {
+            values.add(null);
+        } else if (Chars.isQuoted(node.token)) {
+            values.add(Chars.toString(GenericLexer.unquote(node.token)));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isNumericColumn(int columnType) {
+        switch (columnType) {
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param filter   WHERE clause expression, it must have passed function parser already
+     * @param metadata metadata of table reader, kernel column index refers to it
+     * @return kernel or null when filter is not of supported shape
+     */
+    @Nullable
+    public FilterKernel create(ExpressionNode filter, RecordMetadata metadata) {
+        this.metadata = metadata;
+        if (SqlKeywords.isInKeyword(filter.token)) {
+            return createSymbolIn(filter);
+        }
+
+        if (SqlKeywords.isAndKeyword(filter.token) && filter.paramCount == 2) {
+            if (!parseComparison(filter.lhs) || mode != MODE_RANGE) {
+                return null;
+            }
+            final int leftColumnIndex = columnIndex;
+            final boolean leftHasLo = hasLo;
+            final double leftLo = lo;
+            final boolean leftLoInclusive = loInclusive;
+            final double leftHi = hi;
+            final boolean leftHiInclusive = hiInclusive;
+            if (!parseComparison(filter.rhs) || mode != MODE_RANGE || columnIndex != leftColumnIndex || hasLo == leftHasLo) {
+                return null;
+            }
+            // one side is lower bound and the other one is upper bound
+            if (leftHasLo) {
+                lo = leftLo;
+                loInclusive = leftLoInclusive;
+            } else {
+                hi = leftHi;
+                hiInclusive = leftHiInclusive;
+            }
+            return createNumeric();
+        }
+
+        if (parseComparison(filter)) {
+            return createNumeric();
+        }
+        return null;
+    }
+
+    private FilterKernel createNumeric() {
+        final int columnType = metadata.getColumnType(columnIndex);
+        switch (columnType) {
+            case ColumnType.INT:
+                return new IntKernel(columnIndex, mode, value, doubleValue, lo, loInclusive, hi, hiInclusive);
+            case ColumnType.DOUBLE:
+                return new DoubleKernel(columnIndex, mode, doubleValue, lo, loInclusive, hi, hiInclusive);
+            default:
+                return new LongKernel(columnIndex, columnType, mode, value, doubleValue, lo, loInclusive, hi, hiInclusive);
+        }
+    }
+
+    private FilterKernel createSymbolIn(ExpressionNode node) {
+        if (node.paramCount < 2) {
+            return null;
+        }
+        final ExpressionNode column = node.paramCount < 3 ? node.lhs : node.args.getLast();
+        if (column.type != ExpressionNode.LITERAL) {
+            return null;
+        }
+        final int index = metadata.getColumnIndexQuiet(column.token);
+        if (index == -1 || metadata.getColumnType(index) != ColumnType.SYMBOL) {
+            return null;
+        }
+
+        final ObjList<String> values = new ObjList<>();
+        if (node.paramCount < 3) {
+            if (!addSymbolValue(node.rhs, values)) {
+                return null;
+            }
+        } else {
+            for (int i = node.paramCount - 2; i > -1; i--) {
+                if (!addSymbolValue(node.args.getQuick(i), values)) {
+                    return null;
+                }
+            }
+        }
+        return new SymbolInKernel(index, values);
+    }
+
+    private boolean parseComparison(ExpressionNode node) {
+        if (node.type != ExpressionNode.OPERATION || node.paramCount != 2) {
+            return false;
+        }
+
+        final ExpressionNode column;
+        final ExpressionNode constant;
+        final boolean flipped;
+        if (node.lhs.type == ExpressionNode.LITERAL) {
+            column = node.lhs;
+            constant = node.rhs;
+            flipped = false;
+        } else if (node.rhs.type == ExpressionNode.LITERAL) {
+            column = node.rhs;
+            constant = node.lhs;
+            flipped = true;
+        } else {
+            return false;
+        }
+
+        columnIndex = metadata.getColumnIndexQuiet(column.token);
+        if (columnIndex == -1) {
+            return false;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        if (!isNumericColumn(columnType) || !parseConstant(constant)) {
+            return false;
+        }
+
+        final CharSequence token = node.token;
+        final double d = constantType == ColumnType.DOUBLE ? constantDouble : constantLong;
+        if (Chars.equals(token, '=') || Chars.equals(token, "!=")) {
+            final boolean negated = token.length() > 1;
+            if (constantType == ColumnType.DOUBLE && Double.isNaN(d) && columnType != ColumnType.DOUBLE) {
+                // NaN constant stands for null value of the column
+                value = columnType == ColumnType.INT ? Numbers.INT_NaN : Numbers.LONG_NaN;
+                mode = negated ? MODE_NE : MODE_EQ;
+            } else if (columnType <= ColumnType.LONG && constantType != ColumnType.DOUBLE) {
+                value = constantLong;
+                mode = negated ? MODE_NE : MODE_EQ;
+            } else {
+                doubleValue = d;
+                mode = negated ? MODE_NE_DOUBLE : MODE_EQ_DOUBLE;
+            }
+            return true;
+        }
+
+        hasLo = false;
+        lo = Double.NEGATIVE_INFINITY;
+        loInclusive = true;
+        hasHi = false;
+        hi = Double.POSITIVE_INFINITY;
+        hiInclusive = true;
+        mode = MODE_RANGE;
+
+        // "5 < a" is the same as "a > 5"
+        final boolean less = Chars.equals(token, '<') || Chars.equals(token, "<=");
+        final boolean inclusive = token.length() > 1;
+        if (!less && !Chars.equals(token, '>') && !Chars.equals(token, ">=")) {
+            return false;
+        }
+        if (less != flipped) {
+            hasHi = true;
+            hi = d;
+            hiInclusive = inclusive;
+        } else {
+            hasLo = true;
+            lo = d;
+            loInclusive = inclusive;
+        }
+        return true;
+    }
+
+    private boolean parseConstant(ExpressionNode node) {
+        if (node.type == ExpressionNode.CONSTANT) {
+            return parseConstant(node.token);
+        }
+
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, '-')) {
+            final ExpressionNode arg = node.rhs != null ? node.rhs : node.lhs;
+            if (arg.type == ExpressionNode.CONSTANT && parseConstant(arg.token)) {
+                switch (constantType) {
+                    case ColumnType.INT:
+                        constantLong = -constantLong;
+                        return true;
+                    case ColumnType.LONG:
+                        // there is no long negation, long goes to double one
+                        constantType = ColumnType.DOUBLE;
+                        constantDouble = -(double) constantLong;
+                        return true;
+                    default:
+                        constantDouble = -constantDouble;
+                        return !Double.isNaN(constantDouble);
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean parseConstant(CharSequence token) {
+        try {
+            constantLong = Numbers.parseInt(token);
+            constantType = ColumnType.INT;
+            return true;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            constantLong = Numbers.parseLong(token);
+            constantType = ColumnType.LONG;
+            return true;
+        } catch (NumericException ignore) {
+        }
+
+        try {
+            constantDouble = Numbers.parseDouble(token);
+            constantType = ColumnType.DOUBLE;
+            return true;
+        } catch (NumericException ignore) {
+        }
+        return false;
+    }
+
+    private abstract static class NumericKernel extends FilterKernel {
+        protected final int mode;
+        protected final long value;
+        protected final double doubleValue;
+        protected final double lo;
+        protected final boolean loInclusive;
+        protected final double hi;
+        protected final boolean hiInclusive;
+
+        NumericKernel(
+                int columnIndex,
+                int columnType,
+                int mode,
+                long value,
+                double doubleValue,
+                double lo,
+                boolean loInclusive,
+                double hi,
+                boolean hiInclusive
+        ) {
+            super(columnIndex, columnType);
+            this.mode = mode;
+            this.value = value;
+            this.doubleValue = doubleValue;
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+        }
+
+        /**
+         * @return the least integer that passes lower bound
+         */
+        protected final double integralLo() {
+            return loInclusive ? Math.ceil(lo) : Math.floor(lo) + 1;
+        }
+
+        /**
+         * @return the greatest integer that passes upper bound
+         */
+        protected final double integralHi() {
+            return hiInclusive ? Math.floor(hi) : Math.ceil(hi) - 1;
+        }
+
+        protected final boolean inRange(double v) {
+            return (loInclusive ? v >= lo : v > lo) && (hiInclusive ? v <= hi : v < hi);
+        }
+
+        protected final boolean mayMatch(long min, long max) {
+            switch (mode) {
+                case MODE_EQ:
+                    return value >= min && value <= max;
+                case MODE_NE:
+                    return min != value || max != value;
+                default:
+                    // every value between min and max is between them as double too
+                    return mayMatch((double) min, (double) max, false);
+            }
+        }
+
+        /**
+         * @param min    min non-NaN value, it is greater than max when there are no such values
+         * @param max    max non-NaN value
+         * @param hasNaN whether there are NaN values
+         */
+        protected final boolean mayMatch(double min, double max, boolean hasNaN) {
+            switch (mode) {
+                case MODE_EQ_DOUBLE:
+                    if (Double.isNaN(doubleValue)) {
+                        return hasNaN;
+                    }
+                    // value outside of min and max can still be equal to one of them within tolerance
+                    return (doubleValue >= min || CompiledFilter.eq(min, doubleValue))
+                            && (doubleValue <= max || CompiledFilter.eq(max, doubleValue));
+                case MODE_NE_DOUBLE:
+                    return true;
+                default:
+                    return min <= max && (hiInclusive ? min <= hi : min < hi) && (loInclusive ? max >= lo : max > lo);
+            }
+        }
+
+        protected final boolean test(long v) {
+            switch (mode) {
+                case MODE_EQ:
+                    return v == value;
+                case MODE_NE:
+                    return v != value;
+                default:
+                    return test((double) v);
+            }
+        }
+
+        protected final boolean test(double v) {
+            switch (mode) {
+                case MODE_EQ_DOUBLE:
+                    return CompiledFilter.eq(v, doubleValue);
+                case MODE_NE_DOUBLE:
+                    return !CompiledFilter.eq(v, doubleValue);
+                default:
+                    return inRange(v);
+            }
+        }
+    }
+
+    private static class IntKernel extends NumericKernel {
+        private int nativeMode = NATIVE_NONE;
+        private int nativeLo;
+        private int nativeHi;
+
+        IntKernel(int columnIndex, int mode, long value, double doubleValue, double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+            super(columnIndex, ColumnType.INT, mode, value, doubleValue, lo, loInclusive, hi, hiInclusive);
+            if (!Vect.isFilterSupported()) {
+                return;
+            }
+            switch (mode) {
+                case MODE_EQ:
+                case MODE_NE:
+                    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                        nativeMode = mode == MODE_EQ ? NATIVE_BETWEEN : NATIVE_NOT_BETWEEN;
+                        nativeLo = nativeHi = (int) value;
+                    }
+                    break;
+                case MODE_RANGE:
+                    // every int is exact double, null is compared as the min int
+                    final double l = integralLo();
+                    final double h = integralHi();
+                    if (l <= h && l <= Integer.MAX_VALUE && h >= Integer.MIN_VALUE) {
+                        nativeMode = NATIVE_BETWEEN;
+                        nativeLo = (int) Math.max(l, Integer.MIN_VALUE);
+                        nativeHi = (int) Math.min(h, Integer.MAX_VALUE);
+                    }
+                    break;
+                default:
+                    // doubles are equal within tolerance
+                    break;
+            }
+        }
+
+        @Override
+        public boolean acceptsNull() {
+            return test(Numbers.INT_NaN);
+        }
+
+        @Override
+        public long filter(long address, long count, long rowLo, long pRows) {
+            switch (nativeMode) {
+                case NATIVE_BETWEEN:
+                    return Vect.filterIntBetween(address, count, nativeLo, nativeHi, rowLo, pRows);
+                case NATIVE_NOT_BETWEEN:
+                    return Vect.filterIntNotBetween(address, count, nativeLo, nativeHi, rowLo, pRows);
+                default:
+                    break;
+            }
+
+            long n = 0;
+            switch (mode) {
+                case MODE_EQ:
+                    for (long i = 0; i < count; i++) {
+                        if (Unsafe.getUnsafe().getInt(address + (i << 2)) == value) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                case MODE_NE:
+                    for (long i = 0; i < count; i++) {
+                        if (Unsafe.getUnsafe().getInt(address + (i << 2)) != value) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                case MODE_EQ_DOUBLE:
+                    for (long i = 0; i < count; i++) {
+                        if (CompiledFilter.eq(Unsafe.getUnsafe().getInt(address + (i << 2)), doubleValue)) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                case MODE_NE_DOUBLE:
+                    for (long i = 0; i < count; i++) {
+                        if (!CompiledFilter.eq(Unsafe.getUnsafe().getInt(address + (i << 2)), doubleValue)) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                default:
+                    for (long i = 0; i < count; i++) {
+                        if (inRange(Unsafe.getUnsafe().getInt(address + (i << 2)))) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean mayMatch(ZoneMap zoneMap) {
+            return mayMatch(zoneMap.getMinLong(getColumnIndex()), zoneMap.getMaxLong(getColumnIndex()));
+        }
+    }
+
+    private static class LongKernel extends NumericKernel {
+        private int nativeMode = NATIVE_NONE;
+        private long nativeLo;
+        private long nativeHi;
+
+        LongKernel(int columnIndex, int columnType, int mode, long value, double doubleValue, double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+            super(columnIndex, columnType, mode, value, doubleValue, lo, loInclusive, hi, hiInclusive);
+            if (!Vect.isFilterSupported()) {
+                return;
+            }
+            switch (mode) {
+                case MODE_EQ:
+                case MODE_NE:
+                    nativeMode = mode == MODE_EQ ? NATIVE_BETWEEN : NATIVE_NOT_BETWEEN;
+                    nativeLo = nativeHi = value;
+                    break;
+                case MODE_RANGE:
+                    // long rounded to double compares to bound the same way as long does to
+                    // integral bound, while double represents every integer up to the bound
+                    final double l = integralLo();
+                    final double h = integralHi();
+                    if (
+                            l <= h
+                                    && (l == Double.NEGATIVE_INFINITY || Math.abs(l) < MAX_EXACT_LONG)
+                                    && (h == Double.POSITIVE_INFINITY || Math.abs(h) < MAX_EXACT_LONG)
+                    ) {
+                        nativeMode = NATIVE_BETWEEN;
+                        // infinities become min and max long
+                        nativeLo = (long) l;
+                        nativeHi = (long) h;
+                    }
+                    break;
+                default:
+                    // doubles are equal within tolerance
+                    break;
+            }
+        }
+
+        @Override
+        public boolean acceptsNull() {
+            return test(Numbers.LONG_NaN);
+        }
+
+        @Override
+        public long filter(long address, long count, long rowLo, long pRows) {
+            switch (nativeMode) {
+                case NATIVE_BETWEEN:
+                    return Vect.filterLongBetween(address, count, nativeLo, nativeHi, rowLo, pRows);
+                case NATIVE_NOT_BETWEEN:
+                    return Vect.filterLongNotBetween(address, count, nativeLo, nativeHi, rowLo, pRows);
+                default:
+                    break;
+            }
+
+            long n = 0;
+            switch (mode) {
+                case MODE_EQ:
+                    for (long i = 0; i < count; i++) {
+                        if (Unsafe.getUnsafe().getLong(address + (i << 3)) == value) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                case MODE_NE:
+                    for (long i = 0; i < count; i++) {
+                        if (Unsafe.getUnsafe().getLong(address + (i << 3)) != value) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                case MODE_EQ_DOUBLE:
+                    for (long i = 0; i < count; i++) {
+                        if (CompiledFilter.eq(Unsafe.getUnsafe().getLong(address + (i << 3)), doubleValue)) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                case MODE_NE_DOUBLE:
+                    for (long i = 0; i < count; i++) {
+                        if (!CompiledFilter.eq(Unsafe.getUnsafe().getLong(address + (i << 3)), doubleValue)) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                default:
+                    for (long i = 0; i < count; i++) {
+                        if (inRange(Unsafe.getUnsafe().getLong(address + (i << 3)))) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean mayMatch(ZoneMap zoneMap) {
+            return mayMatch(zoneMap.getMinLong(getColumnIndex()), zoneMap.getMaxLong(getColumnIndex()));
+        }
+    }
+
+    private static class DoubleKernel extends NumericKernel {
+        private boolean nativeBetween;
+        private double nativeLo;
+        private double nativeHi;
+
+        DoubleKernel(int columnIndex, int mode, double doubleValue, double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+            super(columnIndex, ColumnType.DOUBLE, mode, 0, doubleValue, lo, loInclusive, hi, hiInclusive);
+            if (mode == MODE_RANGE && Vect.isFilterSupported()) {
+                // exclusive bound is the closest double to it, except infinity that nothing is beyond
+                final double l = loInclusive ? lo : Math.nextUp(lo);
+                final double h = hiInclusive ? hi : Math.nextDown(hi);
+                if (
+                        l <= h
+                                && (loInclusive || lo != Double.POSITIVE_INFINITY)
+                                && (hiInclusive || hi != Double.NEGATIVE_INFINITY)
+                ) {
+                    nativeBetween = true;
+                    nativeLo = l;
+                    nativeHi = h;
+                }
+            }
+        }
+
+        @Override
+        public boolean acceptsNull() {
+            return test(Double.NaN);
+        }
+
+        @Override
+        public long filter(long address, long count, long rowLo, long pRows) {
+            if (nativeBetween) {
+                return Vect.filterDoubleBetween(address, count, nativeLo, nativeHi, rowLo, pRows);
+            }
+
+            long n = 0;
+            switch (mode) {
+                case MODE_EQ_DOUBLE:
+                    for (long i = 0; i < count; i++) {
+                        if (CompiledFilter.eq(Unsafe.getUnsafe().getDouble(address + (i << 3)), doubleValue)) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                case MODE_NE_DOUBLE:
+                    for (long i = 0; i < count; i++) {
+                        if (!CompiledFilter.eq(Unsafe.getUnsafe().getDouble(address + (i << 3)), doubleValue)) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+                default:
+                    for (long i = 0; i < count; i++) {
+                        if (inRange(Unsafe.getUnsafe().getDouble(address + (i << 3)))) {
+                            Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                        }
+                    }
+                    break;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean mayMatch(ZoneMap zoneMap) {
+            final int columnIndex = getColumnIndex();
+            return mayMatch(zoneMap.getMinDouble(columnIndex), zoneMap.getMaxDouble(columnIndex), zoneMap.hasNaN(columnIndex));
+        }
+    }
+
+    private static class SymbolInKernel extends FilterKernel {
+        // longer lists are looked up in hash set, native function compares every value with every key
+        private static final int MAX_NATIVE_KEY_COUNT = 64;
+        private final ObjList<String> values;
+        private final IntHashSet keys = new IntHashSet();
+        // keys native function compares values with, -1 when it is not used
+        private long pNativeKeys;
+        private int nativeKeyCount = -1;
+
+        SymbolInKernel(int columnIndex, ObjList<String> values) {
+            super(columnIndex, ColumnType.SYMBOL);
+            this.values = values;
+        }
+
+        @Override
+        public boolean acceptsNull() {
+            return keys.contains(SymbolTable.VALUE_IS_NULL);
+        }
+
+        @Override
+        public void close() {
+            if (pNativeKeys != 0) {
+                Unsafe.free(pNativeKeys, MAX_NATIVE_KEY_COUNT * Integer.BYTES);
+                pNativeKeys = 0;
+            }
+        }
+
+        @Override
+        public long filter(long address, long count, long rowLo, long pRows) {
+            if (nativeKeyCount > 0) {
+                return Vect.filterIntIn(address, count, pNativeKeys, nativeKeyCount, rowLo, pRows);
+            }
+            if (nativeKeyCount == 0) {
+                // none of the values is in symbol table
+                return 0;
+            }
+
+            long n = 0;
+            for (long i = 0; i < count; i++) {
+                if (keys.contains(Unsafe.getUnsafe().getInt(address + (i << 2)))) {
+                    Unsafe.getUnsafe().putLong(pRows + (n++ << 3), rowLo + i);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public boolean mayMatch(ZoneMap zoneMap) {
+            final long min = zoneMap.getMinLong(getColumnIndex());
+            final long max = zoneMap.getMaxLong(getColumnIndex());
+            for (int i = 0, n = keys.size(); i < n; i++) {
+                final int key = keys.get(i);
+                if (key != SymbolTable.VALUE_NOT_FOUND && key >= min && key <= max) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void prepare(TableReader reader) {
+            // symbol keys can change between readers, values are resolved for every cursor
+            final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(getColumnIndex());
+            keys.clear();
+            for (int i = 0, n = values.size(); i < n; i++) {
+                keys.add(symbolMapReader.keyOf(values.getQuick(i)));
+            }
+
+            nativeKeyCount = -1;
+            if (keys.size() <= MAX_NATIVE_KEY_COUNT && Vect.isFilterSupported()) {
+                if (pNativeKeys == 0) {
+                    pNativeKeys = Unsafe.malloc(MAX_NATIVE_KEY_COUNT * Integer.BYTES);
+                }
+                nativeKeyCount = 0;
+                for (int i = 0, n = keys.size(); i < n; i++) {
+                    final int key = keys.get(i);
+                    if (key != SymbolTable.VALUE_NOT_FOUND) {
+                        Unsafe.getUnsafe().putInt(pNativeKeys + ((long) nativeKeyCount++ << 2), key);
+                    }
+                }
+            }
+        }
+    }
+}
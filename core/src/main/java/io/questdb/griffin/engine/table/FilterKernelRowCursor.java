@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ReadOnlyColumn;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.std.Unsafe;
+
+import java.io.Closeable;
+
+/**
+ * Returns rows of data frame that pass filter kernel. Rows are tested in blocks, which
+ * keeps list of rows bounded for large partitions. Block never crosses column page.
+ * Kernel writes rows of block to native memory, so that native kernels can write them too.
+ */
+class FilterKernelRowCursor implements RowCursor, Closeable {
+    private static final long BLOCK_ROW_COUNT = 64 * 1024;
+    private final FilterKernel kernel;
+    private final int shift;
+    private long pRows;
+    private long rowCount;
+    private ReadOnlyColumn column;
+    private long columnTop;
+    private long rowLo;
+    private long rowHi;
+    private long rowIndex;
+    private int page;
+    private long pageAddress;
+    private long pageLo;
+    private long pageHi;
+
+    FilterKernelRowCursor(FilterKernel kernel) {
+        this.kernel = kernel;
+        this.shift = ColumnType.pow2SizeOf(kernel.getColumnType());
+    }
+
+    @Override
+    public void close() {
+        if (pRows != 0) {
+            Unsafe.free(pRows, BLOCK_ROW_COUNT * Long.BYTES);
+            pRows = 0;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (rowIndex == rowCount) {
+            if (rowLo == rowHi) {
+                return false;
+            }
+            nextBlock();
+        }
+        return true;
+    }
+
+    @Override
+    public long next() {
+        return Unsafe.getUnsafe().getLong(pRows + (rowIndex++ << 3));
+    }
+
+    private void nextBlock() {
+        rowCount = 0;
+        rowIndex = 0;
+        if (pRows == 0) {
+            pRows = Unsafe.malloc(BLOCK_ROW_COUNT * Long.BYTES);
+        }
+        long hi = Math.min(rowLo + BLOCK_ROW_COUNT, rowHi);
+        if (rowLo < columnTop || column == null) {
+            // values above column top are nulls
+            if (column != null) {
+                hi = Math.min(hi, columnTop);
+            }
+            if (kernel.acceptsNull()) {
+                for (long row = rowLo; row < hi; row++) {
+                    Unsafe.getUnsafe().putLong(pRows + (rowCount++ << 3), row);
+                }
+            }
+            rowLo = hi;
+            return;
+        }
+
+        // rows of column file are offset by column top
+        final long lo = rowLo - columnTop;
+        while (lo >= pageHi) {
+            // page has to be mapped before its size is known
+            pageAddress = column.getPageAddress(++page);
+            pageLo = pageHi;
+            pageHi += column.getPageSize(page) >> shift;
+        }
+        final long count = Math.min(hi - rowLo, pageHi - lo);
+        rowCount = kernel.filter(pageAddress + ((lo - pageLo) << shift), count, rowLo, pRows);
+        rowLo += count;
+    }
+
+    void of(ReadOnlyColumn column, long columnTop, long rowLo, long rowHi) {
+        this.column = column;
+        this.columnTop = columnTop;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.rowCount = 0;
+        this.rowIndex = 0;
+        this.page = -1;
+        this.pageAddress = 0;
+        this.pageLo = 0;
+        this.pageHi = 0;
+    }
+}
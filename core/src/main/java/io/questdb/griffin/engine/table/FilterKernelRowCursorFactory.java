@@ -0,0 +1,98 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.NullColumn;
+import io.questdb.cairo.ReadOnlyColumn;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.ZoneMap;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.RowCursorFactory;
+
+/**
+ * Filters rows of data frames with {@link FilterKernel}, which reads values straight from
+ * column memory of the table reader. Partitions, zone map of which shows that no row can
+ * pass the filter, are skipped without reading column.
+ */
+public class FilterKernelRowCursorFactory implements RowCursorFactory {
+    private final FilterKernel kernel;
+    private final FilterKernelRowCursor cursor;
+    private final ZoneMap zoneMap = new ZoneMap();
+    private TableReader reader;
+    // interval scan can have several data frames per partition, zone map is read once for them
+    private int zoneMapPartitionIndex;
+    private boolean zoneMapRead;
+
+    public FilterKernelRowCursorFactory(FilterKernel kernel) {
+        this.kernel = kernel;
+        this.cursor = new FilterKernelRowCursor(kernel);
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+        kernel.close();
+    }
+
+    @Override
+    public RowCursor getCursor(DataFrame dataFrame) {
+        final int columnIndex = kernel.getColumnIndex();
+        final int partitionIndex = dataFrame.getPartitionIndex();
+        final int base = reader.getColumnBase(partitionIndex);
+        final ReadOnlyColumn column = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndex));
+        final long columnTop = reader.getColumnTop(base, columnIndex);
+
+        if (partitionIndex != zoneMapPartitionIndex) {
+            zoneMapRead = reader.readZoneMap(partitionIndex, zoneMap);
+            zoneMapPartitionIndex = partitionIndex;
+        }
+
+        if (zoneMapRead && zoneMap.isValid(columnIndex, columnTop) && !kernel.mayMatch(zoneMap)) {
+            cursor.of(null, 0, 0, 0);
+        } else {
+            cursor.of(
+                    column instanceof NullColumn ? null : column,
+                    columnTop,
+                    dataFrame.getRowLo(),
+                    dataFrame.getRowHi()
+            );
+        }
+        return cursor;
+    }
+
+    @Override
+    public void prepareCursor(TableReader tableReader) {
+        this.reader = tableReader;
+        this.zoneMapPartitionIndex = -1;
+        kernel.prepare(tableReader);
+    }
+
+    @Override
+    public boolean isEntity() {
+        return false;
+    }
+}
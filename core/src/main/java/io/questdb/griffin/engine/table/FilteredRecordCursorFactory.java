@@ -55,6 +55,10 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
         return this.cursor;
     }
 
+    public Function getFilter() {
+        return filter;
+    }
+
     @Override
     public RecordMetadata getMetadata() {
         return base.getMetadata();
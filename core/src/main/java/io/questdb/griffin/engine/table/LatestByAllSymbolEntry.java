@@ -0,0 +1,208 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Unsafe;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Range of rows of symbol column that is scanned from the last row to the first by whichever
+ * thread locks the entry first. Entry collects the last row of every symbol key it sees, keys
+ * are offset by one to make room for null. Scan stops as soon as all keys are seen.
+ */
+public class LatestByAllSymbolEntry {
+
+    private static final long TARGET_SEQUENCE_OFFSET;
+    // key bitset of this entry
+    private final LongList seen = new LongList();
+    private final IntList keys = new IntList();
+    private final LongList rows = new LongList();
+    private int partitionIndex;
+    // address of value of "rowLo", or 0 when all rows of the range are null
+    private long address;
+    private long rowLo;
+    private long rowHi;
+    private int symbolCount;
+    private boolean containsNull;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private volatile boolean done;
+    private Throwable error;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(LatestByAllSymbolEntry.class, "targetSequence");
+    }
+
+    /**
+     * @param bits         key bitset
+     * @param count        number of keys set in the bitset
+     * @param symbolCount  number of symbols in symbol table
+     * @param containsNull whether column can have null values other than those above column top
+     * @return true when every key that rows of the column can have is set
+     */
+    static boolean isResolved(LongList bits, int count, int symbolCount, boolean containsNull) {
+        final boolean nullSeen = isSet(bits, 0);
+        return count - (nullSeen ? 1 : 0) == symbolCount && (nullSeen || !containsNull);
+    }
+
+    static boolean isSet(LongList bits, int index) {
+        return (bits.getQuick(index >>> 6) & (1L << index)) != 0;
+    }
+
+    static void set(LongList bits, int index) {
+        final int word = index >>> 6;
+        bits.setQuick(word, bits.getQuick(word) | (1L << index));
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                scan();
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                done = true;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    /**
+     * Makes sure no thread is scanning this entry. Entry that has not been picked up yet
+     * is locked and left as is, otherwise method waits for scan to finish.
+     */
+    void cancel() {
+        if (!tryLock()) {
+            await();
+        }
+    }
+
+    void await() {
+        while (!done) {
+            LockSupport.parkNanos(1);
+        }
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    int getKey(int index) {
+        return keys.getQuick(index);
+    }
+
+    int getKeyCount() {
+        return keys.size();
+    }
+
+    long getRowHi() {
+        return rowHi;
+    }
+
+    int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    long getRow(int index) {
+        return rows.getQuick(index);
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    boolean isNullRange() {
+        return address == 0;
+    }
+
+    /**
+     * @param sequence       sequence that locks entry
+     * @param partitionIndex partition rows belong to
+     * @param address        address of value of first row of the range, 0 when rows are above column top
+     * @param rowLo          first row of the range, inclusive
+     * @param rowHi          last row of the range, exclusive
+     * @param symbolCount    number of symbols in symbol table
+     * @param containsNull   whether column can have null values other than those above column top
+     */
+    void of(int sequence, int partitionIndex, long address, long rowLo, long rowHi, int symbolCount, boolean containsNull) {
+        // bits of previous scan are cleared one by one, there are usually few of them
+        final int wordCount = (symbolCount + 64) >>> 6;
+        if (seen.size() != wordCount) {
+            seen.setAll(wordCount, 0);
+        } else {
+            for (int i = 0, n = keys.size(); i < n; i++) {
+                seen.setQuick(keys.getQuick(i) >>> 6, 0);
+            }
+        }
+        keys.clear();
+        rows.clear();
+        this.partitionIndex = partitionIndex;
+        this.address = address;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.symbolCount = symbolCount;
+        this.containsNull = containsNull;
+        this.error = null;
+        this.done = false;
+        this.srcSequence = sequence;
+        // entry becomes available for locking only after all of the above is visible
+        Unsafe.getUnsafe().putOrderedInt(this, TARGET_SEQUENCE_OFFSET, sequence);
+    }
+
+    private void scan() {
+        if (address == 0) {
+            // null key
+            keys.add(0);
+            rows.add(rowHi - 1);
+            return;
+        }
+
+        for (long row = rowHi - 1; row >= rowLo; row--) {
+            final int value = Unsafe.getUnsafe().getInt(address + ((row - rowLo) << 2));
+            final int key = value == SymbolTable.VALUE_IS_NULL ? 0 : value + 1;
+            // keys that reader does not know about yet belong to rows it cannot see
+            if (key > -1 && key <= symbolCount && !isSet(seen, key)) {
+                set(seen, key);
+                keys.add(key);
+                rows.add(row);
+                if (isResolved(seen, keys.size(), symbolCount, containsNull)) {
+                    break;
+                }
+            }
+        }
+    }
+}
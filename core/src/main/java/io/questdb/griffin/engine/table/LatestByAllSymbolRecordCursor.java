@@ -0,0 +1,271 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.NullColumn;
+import io.questdb.cairo.ReadOnlyColumn;
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.LatestByAllSymbolTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Finds the latest row of every value of non-indexed symbol column. Data frames are split into
+ * ranges of rows, which are scanned newest first, on shared worker pool when message bus is
+ * available. Ranges are merged in the order they were published, so the first row found for
+ * a key is its latest row. Scan stops as soon as rows are found for all keys of symbol table.
+ */
+class LatestByAllSymbolRecordCursor extends AbstractRecordListCursor {
+    // keeps memory used by a range bounded and lets workers share large partitions
+    private static final long ENTRY_ROW_COUNT = 64 * 1024;
+    private final int columnIndex;
+    private final ObjList<LatestByAllSymbolEntry> entries;
+    // keys found so far, offset by one to make room for null
+    private final LongList found = new LongList();
+    // rows of current data frame that are yet to be published, triplets of rowLo, rowHi and address
+    private final LongList ranges = new LongList();
+    private RingQueue<LatestByAllSymbolTask> queue;
+    private Sequence pubSeq;
+    private TableReader reader;
+    private int partitionIndex;
+    private boolean framesExhausted;
+    private int head;
+    private int activeCount;
+    private int sequence;
+    private int symbolCount;
+    private boolean containsNull;
+    private int foundCount;
+
+    LatestByAllSymbolRecordCursor(int columnIndex, DirectLongList rows, @NotNull IntList columnIndexes, int entryCount) {
+        super(rows, columnIndexes);
+        this.columnIndex = columnIndex;
+        this.entries = new ObjList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new LatestByAllSymbolEntry());
+        }
+    }
+
+    @Override
+    protected void buildTreeMap(SqlExecutionContext executionContext) {
+        final MessageBus bus = entries.size() > 1 ? executionContext.getMessageBus() : null;
+        if (bus != null) {
+            queue = bus.getLatestByAllSymbolQueue();
+            pubSeq = bus.getLatestByAllSymbolPubSequence();
+        } else {
+            queue = null;
+            pubSeq = null;
+        }
+
+        reader = dataFrameCursor.getTableReader();
+        final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(columnIndex);
+        symbolCount = symbolMapReader.size();
+        // null flag of tables older than version 417 misses rows that omit the symbol, see CairoEngine.migrateNullFlag()
+        containsNull = reader.getMetadata().getVersion() < 417 || symbolMapReader.containsNullValue();
+        found.setAll((symbolCount + 64) >>> 6, 0);
+        foundCount = 0;
+        ranges.clear();
+        framesExhausted = false;
+        head = 0;
+        activeCount = 0;
+
+        try {
+            dispatch();
+            while (activeCount > 0) {
+                merge(awaitHead());
+                head = (head + 1) % entries.size();
+                activeCount--;
+                if (LatestByAllSymbolEntry.isResolved(found, foundCount, symbolCount, containsNull)) {
+                    if (!LatestByAllSymbolEntry.isSet(found, 0)) {
+                        // symbol table does not know about nulls above column top
+                        findColumnTopNull();
+                    }
+                    break;
+                }
+                dispatch();
+            }
+        } finally {
+            cancelActiveEntries();
+        }
+    }
+
+    private void addRange(long rowLo, long rowHi, long address) {
+        ranges.add(rowLo);
+        ranges.add(rowHi);
+        ranges.add(address);
+    }
+
+    private void addRanges(DataFrame frame) {
+        partitionIndex = frame.getPartitionIndex();
+        final int base = reader.getColumnBase(partitionIndex);
+        final ReadOnlyColumn column = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndex));
+        final long rowHi = frame.getRowHi();
+        final long columnTop = column instanceof NullColumn ? rowHi : reader.getColumnTop(base, columnIndex);
+        long rowLo = frame.getRowLo();
+
+        if (rowLo < columnTop) {
+            // values above column top are nulls
+            final long hi = Math.min(columnTop, rowHi);
+            addRange(rowLo, hi, 0);
+            rowLo = hi;
+        }
+
+        // ranges do not cross column pages, page has to be mapped before its size is known
+        int page = -1;
+        long pageAddress = 0;
+        long pageLo = 0;
+        long pageHi = 0;
+        while (rowLo < rowHi) {
+            // rows of column file are offset by column top
+            final long lo = rowLo - columnTop;
+            while (lo >= pageHi) {
+                pageAddress = column.getPageAddress(++page);
+                pageLo = pageHi;
+                pageHi += column.getPageSize(page) >> 2;
+            }
+            final long hi = Math.min(Math.min(rowLo + ENTRY_ROW_COUNT, rowHi), pageHi + columnTop);
+            addRange(rowLo, hi, pageAddress + ((lo - pageLo) << 2));
+            rowLo = hi;
+        }
+    }
+
+    private LatestByAllSymbolEntry awaitHead() {
+        final LatestByAllSymbolEntry entry = entries.getQuick(head);
+        if (!entry.run()) {
+            // entry is being scanned by worker, help with entries queued behind it
+            for (int i = 1; i < activeCount && !entry.isDone(); i++) {
+                entries.getQuick((head + i) % entries.size()).run();
+            }
+            entry.await();
+        }
+
+        final Throwable e = entry.getError();
+        if (e != null) {
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            throw (RuntimeException) e;
+        }
+        return entry;
+    }
+
+    private void cancelActiveEntries() {
+        for (int i = 0; i < activeCount; i++) {
+            entries.getQuick((head + i) % entries.size()).cancel();
+        }
+        head = 0;
+        activeCount = 0;
+    }
+
+    private void dispatch() {
+        final int entryCount = entries.size();
+        while (activeCount < entryCount) {
+            int n = ranges.size();
+            if (n == 0) {
+                final DataFrame frame;
+                if (framesExhausted || (frame = dataFrameCursor.next()) == null) {
+                    framesExhausted = true;
+                    return;
+                }
+                addRanges(frame);
+                continue;
+            }
+
+            // the last range of data frame has the newest rows
+            n -= 3;
+            final LatestByAllSymbolEntry entry = entries.getQuick((head + activeCount) % entryCount);
+            entry.of(
+                    ++sequence,
+                    partitionIndex,
+                    ranges.getQuick(n + 2),
+                    ranges.getQuick(n),
+                    ranges.getQuick(n + 1),
+                    symbolCount,
+                    containsNull
+            );
+            ranges.setPos(n);
+            activeCount++;
+
+            if (queue != null) {
+                final long seq = pubSeq.next();
+                // when queue is full owner will scan entry itself
+                if (seq > -1) {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks for the latest null above column top in rows that are not scanned yet. Such rows
+     * do not need to be scanned, it is enough to know where column top is.
+     */
+    private void findColumnTopNull() {
+        for (int i = 0; i < activeCount; i++) {
+            final LatestByAllSymbolEntry entry = entries.getQuick((head + i) % entries.size());
+            if (entry.isNullRange()) {
+                rows.add(Rows.toRowID(entry.getPartitionIndex(), entry.getRowHi() - 1));
+                return;
+            }
+        }
+
+        // null range is the first range of data frame
+        if (ranges.size() > 0 && ranges.getQuick(2) == 0) {
+            rows.add(Rows.toRowID(partitionIndex, ranges.getQuick(1) - 1));
+            return;
+        }
+
+        DataFrame frame;
+        while (!framesExhausted && (frame = dataFrameCursor.next()) != null) {
+            final int partitionIndex = frame.getPartitionIndex();
+            final int base = reader.getColumnBase(partitionIndex);
+            final long rowHi = frame.getRowHi();
+            final long columnTop = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndex)) instanceof NullColumn
+                    ? rowHi
+                    : reader.getColumnTop(base, columnIndex);
+            if (frame.getRowLo() < columnTop) {
+                rows.add(Rows.toRowID(partitionIndex, Math.min(columnTop, rowHi) - 1));
+                return;
+            }
+        }
+    }
+
+    private void merge(LatestByAllSymbolEntry entry) {
+        for (int i = 0, n = entry.getKeyCount(); i < n; i++) {
+            final int key = entry.getKey(i);
+            if (!LatestByAllSymbolEntry.isSet(found, key)) {
+                LatestByAllSymbolEntry.set(found, key);
+                foundCount++;
+                rows.add(Rows.toRowID(entry.getPartitionIndex(), entry.getRow(i)));
+            }
+        }
+    }
+}
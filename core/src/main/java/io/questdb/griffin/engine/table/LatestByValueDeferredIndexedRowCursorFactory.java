@@ -76,4 +76,9 @@ public class LatestByValueDeferredIndexedRowCursorFactory implements RowCursorFa
     public boolean isEntity() {
         return false;
     }
+
+    @Override
+    public int getFrameAccess() {
+        return FRAME_ACCESS_INDEX;
+    }
 }
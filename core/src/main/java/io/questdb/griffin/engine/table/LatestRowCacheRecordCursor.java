@@ -0,0 +1,128 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.SymbolMapReader;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.std.Rows;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads latest rows of symbol keys from the cache table writer keeps for the column. Rows are
+ * returned oldest first, which is the order "latest by" scans return them in.
+ */
+class LatestRowCacheRecordCursor extends AbstractDataFrameRecordCursor {
+    private final int columnIndex;
+    private final ObjList<String> symbolValues;
+    private final LongList rows = new LongList();
+    private boolean resolved;
+    private int index;
+
+    /**
+     * @param symbolValues values to find latest rows for, null to find rows for all values of the column
+     */
+    LatestRowCacheRecordCursor(int columnIndex, @Nullable ObjList<String> symbolValues, @NotNull IntList columnIndexes) {
+        super(columnIndexes);
+        this.columnIndex = columnIndex;
+        this.symbolValues = symbolValues;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < rows.size()) {
+            final long row = rows.getQuick(index++);
+            recordA.jumpTo(Rows.toPartitionIndex(row), Rows.toLocalRowID(row));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long size() {
+        return rows.size();
+    }
+
+    @Override
+    public void toTop() {
+        index = 0;
+    }
+
+    /**
+     * @return false when cache could not answer for some of the keys
+     */
+    boolean isResolved() {
+        return resolved;
+    }
+
+    @Override
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        this.dataFrameCursor = dataFrameCursor;
+        final TableReader reader = dataFrameCursor.getTableReader();
+        this.recordA.of(reader);
+        this.recordB.of(reader);
+        rows.clear();
+        resolved = reader.getMetadata().getLatestRowColumnIndex() == columnIndex && findRows(reader);
+        rows.sort();
+        index = 0;
+    }
+
+    private boolean addRow(TableReader reader, int symbolKey) {
+        final long row = reader.getLatestRowId(symbolKey);
+        if (row == TableReader.LATEST_ROW_UNKNOWN) {
+            return false;
+        }
+        if (row != TableReader.LATEST_ROW_NONE) {
+            rows.add(row);
+        }
+        return true;
+    }
+
+    private boolean findRows(TableReader reader) {
+        final SymbolMapReader symbolMapReader = reader.getSymbolMapReader(columnIndex);
+        if (symbolValues == null) {
+            for (int key = 0, n = symbolMapReader.size(); key < n; key++) {
+                if (!addRow(reader, key)) {
+                    return false;
+                }
+            }
+            return addRow(reader, SymbolTable.VALUE_IS_NULL);
+        }
+
+        for (int i = 0, n = symbolValues.size(); i < n; i++) {
+            final int key = symbolMapReader.keyOf(symbolValues.getQuick(i));
+            if (key != SymbolTable.VALUE_NOT_FOUND && !addRow(reader, key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
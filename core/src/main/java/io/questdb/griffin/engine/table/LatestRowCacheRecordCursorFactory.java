@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Answers "latest by" on symbol column from the latest rows table writer caches for the column.
+ * Base factory scans the table instead when cache is yet to catch up with the reader, e.g. right
+ * after out-of-order commit or partition removal.
+ */
+public class LatestRowCacheRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final LatestRowCacheRecordCursor cursor;
+
+    /**
+     * @param columnIndex  index of symbol column in table reader
+     * @param symbolValues values to find latest rows for, null to find rows for all values of the column
+     * @param base         factory that answers the same query without cache
+     */
+    public LatestRowCacheRecordCursorFactory(
+            @NotNull RecordMetadata metadata,
+            @NotNull DataFrameCursorFactory dataFrameCursorFactory,
+            int columnIndex,
+            @Transient @Nullable CharSequenceHashSet symbolValues,
+            @NotNull IntList columnIndexes,
+            @NotNull RecordCursorFactory base
+    ) {
+        super(metadata, dataFrameCursorFactory);
+        ObjList<String> values = null;
+        if (symbolValues != null) {
+            values = new ObjList<>(symbolValues.size());
+            for (int i = 0, n = symbolValues.size(); i < n; i++) {
+                values.add(Chars.toString(symbolValues.get(i)));
+            }
+        }
+        this.cursor = new LatestRowCacheRecordCursor(columnIndex, values, columnIndexes);
+        this.base = base;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(cursor);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final DataFrameCursor dataFrameCursor = dataFrameCursorFactory.getCursor(executionContext.getCairoSecurityContext());
+        try {
+            getCursorInstance(dataFrameCursor, executionContext);
+        } catch (CairoException e) {
+            dataFrameCursor.close();
+            throw e;
+        }
+
+        if (cursor.isResolved()) {
+            return cursor;
+        }
+        // releases reader before base factory gets its own
+        cursor.close();
+        return base.getCursor(executionContext);
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    protected RecordCursor getCursorInstance(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        cursor.of(dataFrameCursor, executionContext);
+        return cursor;
+    }
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.std.*;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Range of rows of single page frame that is filtered by whichever thread locks the entry
+ * first. Rows that pass the filter are collected as offsets from the start of the range.
+ */
+public class PageFrameFilterEntry implements Mutable {
+
+    private static final long TARGET_SEQUENCE_OFFSET;
+    private final LongList pageAddresses = new LongList();
+    private final IntList rows = new IntList();
+    private ObjList<Function> filters;
+    private ObjList<PageFrameRecord> records;
+    private long rowLo;
+    private long rowHi;
+    private int srcSequence;
+    private int ownerSlot;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private volatile boolean done;
+    private Throwable error;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(PageFrameFilterEntry.class, "targetSequence");
+    }
+
+    @Override
+    public void clear() {
+        // filters are not released because worker can still be holding stale reference to this entry
+        pageAddresses.clear();
+        rows.clear();
+        error = null;
+    }
+
+    public boolean run(int workerId) {
+        // workers outside of pool this query was compiled for do not have their own filter
+        return workerId < ownerSlot && run0(workerId);
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    /**
+     * Makes sure no thread is filtering this entry. Entry that has not been picked up yet
+     * is locked and left as is, otherwise method waits for filtering to finish.
+     */
+    void cancel() {
+        if (!tryLock()) {
+            await();
+        }
+    }
+
+    void await() {
+        while (!done) {
+            LockSupport.parkNanos(1);
+        }
+    }
+
+    Throwable getError() {
+        return error;
+    }
+
+    LongList getPageAddresses() {
+        return pageAddresses;
+    }
+
+    long getRow(int index) {
+        return rowLo + rows.getQuick(index);
+    }
+
+    int getRowCount() {
+        return rows.size();
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    boolean runOwner() {
+        return run0(ownerSlot);
+    }
+
+    void of(
+            int sequence,
+            PageFrame frame,
+            int columnCount,
+            long rowLo,
+            long rowHi,
+            ObjList<Function> filters,
+            ObjList<PageFrameRecord> records
+    ) {
+        pageAddresses.clear();
+        for (int i = 0; i < columnCount; i++) {
+            pageAddresses.add(frame.getPageAddress(i));
+        }
+        rows.clear();
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.filters = filters;
+        this.records = records;
+        this.ownerSlot = filters.size() - 1;
+        this.error = null;
+        this.done = false;
+        this.srcSequence = sequence;
+        // entry becomes available for locking only after all of the above is visible
+        Unsafe.getUnsafe().putOrderedInt(this, TARGET_SEQUENCE_OFFSET, sequence);
+    }
+
+    private boolean run0(int slot) {
+        if (tryLock()) {
+            final Function filter = filters.getQuick(slot);
+            final PageFrameRecord record = records.getQuick(slot);
+            try {
+                for (long row = rowLo; row < rowHi; row++) {
+                    record.jumpTo(pageAddresses, row);
+                    if (filter.getBool(record)) {
+                        rows.add((int) (row - rowLo));
+                    }
+                }
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                done = true;
+            }
+            return true;
+        }
+        return false;
+    }
+}
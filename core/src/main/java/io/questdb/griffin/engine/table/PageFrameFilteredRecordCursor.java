@@ -0,0 +1,225 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.Sequence;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.PageFrameFilterTask;
+
+/**
+ * Filters page frames on shared worker pool and returns rows that pass the filter in
+ * the order of page frames. Frames are split into ranges of rows, which are published
+ * to the queue ahead of the range that is being returned. Thread that owns the cursor
+ * filters ranges that no worker picked up.
+ */
+class PageFrameFilteredRecordCursor implements NoRandomAccessRecordCursor {
+    // keeps memory used by row lists of each entry bounded
+    private static final long ENTRY_ROW_COUNT = 64 * 1024;
+    private final ObjList<Function> filters;
+    private final ObjList<PageFrameRecord> records;
+    private final PageFrameRecord record;
+    private final ObjList<PageFrameFilterEntry> entries;
+    private final int columnCount;
+    private final int ownerSlot;
+    private PageFrameCursor pageFrameCursor;
+    private RingQueue<PageFrameFilterTask> queue;
+    private Sequence pubSeq;
+    private PageFrame frame;
+    private long frameRowLo;
+    private long frameRowCount;
+    private boolean framesExhausted;
+    private int head;
+    private int activeCount;
+    private int sequence;
+    private PageFrameFilterEntry current;
+    private int currentRowIndex;
+
+    /**
+     * @param metadata metadata of page frames
+     * @param filters  filter instance per worker and, in the last position, filter for thread that owns cursor
+     */
+    PageFrameFilteredRecordCursor(RecordMetadata metadata, ObjList<Function> filters) {
+        this.filters = filters;
+        this.columnCount = metadata.getColumnCount();
+        final int slotCount = filters.size();
+        this.ownerSlot = slotCount - 1;
+        this.records = new ObjList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            records.add(new PageFrameRecord(metadata));
+        }
+        this.record = records.getQuick(ownerSlot);
+        // enough entries to keep every worker busy while owner is returning rows
+        final int entryCount = slotCount * 2;
+        this.entries = new ObjList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new PageFrameFilterEntry());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pageFrameCursor != null) {
+            cancelActiveEntries();
+            pageFrameCursor = Misc.free(pageFrameCursor);
+        }
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return record.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (current != null) {
+                if (currentRowIndex < current.getRowCount()) {
+                    record.jumpTo(current.getPageAddresses(), current.getRow(currentRowIndex++));
+                    return true;
+                }
+                // entry is exhausted, it can be reused for next range of rows
+                current = null;
+                head = (head + 1) % entries.size();
+                activeCount--;
+                dispatch();
+            }
+
+            if (activeCount == 0) {
+                return false;
+            }
+            current = awaitHead();
+            currentRowIndex = 0;
+        }
+    }
+
+    @Override
+    public void toTop() {
+        cancelActiveEntries();
+        pageFrameCursor.toTop();
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            filters.getQuick(i).toTop();
+        }
+        dispatch();
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    private PageFrameFilterEntry awaitHead() {
+        final PageFrameFilterEntry entry = entries.getQuick(head);
+        if (!entry.runOwner()) {
+            // entry is being filtered by worker, help with entries queued behind it
+            for (int i = 1; i < activeCount && !entry.isDone(); i++) {
+                entries.getQuick((head + i) % entries.size()).runOwner();
+            }
+            entry.await();
+        }
+
+        final Throwable e = entry.getError();
+        if (e != null) {
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            throw (RuntimeException) e;
+        }
+        return entry;
+    }
+
+    private void cancelActiveEntries() {
+        for (int i = 0; i < activeCount; i++) {
+            entries.getQuick((head + i) % entries.size()).cancel();
+        }
+        head = 0;
+        activeCount = 0;
+        current = null;
+        frame = null;
+        frameRowLo = 0;
+        frameRowCount = 0;
+        framesExhausted = false;
+    }
+
+    private void dispatch() {
+        final int entryCount = entries.size();
+        while (activeCount < entryCount) {
+            if (frameRowLo == frameRowCount) {
+                if (framesExhausted || (frame = pageFrameCursor.next()) == null) {
+                    framesExhausted = true;
+                    return;
+                }
+                frameRowLo = 0;
+                frameRowCount = frame.getPageValueCount(0);
+                continue;
+            }
+
+            final long rowHi = Math.min(frameRowLo + ENTRY_ROW_COUNT, frameRowCount);
+            final PageFrameFilterEntry entry = entries.getQuick((head + activeCount) % entryCount);
+            entry.of(++sequence, frame, columnCount, frameRowLo, rowHi, filters, records);
+            frameRowLo = rowHi;
+            activeCount++;
+
+            if (queue != null) {
+                final long seq = pubSeq.next();
+                // when queue is full owner will filter entry itself
+                if (seq > -1) {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+            }
+        }
+    }
+
+    void of(PageFrameCursor pageFrameCursor, SqlExecutionContext executionContext) {
+        this.pageFrameCursor = pageFrameCursor;
+        final MessageBus bus = executionContext.getMessageBus();
+        if (bus != null) {
+            this.queue = bus.getPageFrameFilterQueue();
+            this.pubSeq = bus.getPageFrameFilterPubSequence();
+        } else {
+            this.queue = null;
+            this.pubSeq = null;
+        }
+
+        // each filter resolves symbols through symbol tables of its own record
+        for (int i = 0, n = filters.size(); i < n; i++) {
+            final PageFrameRecord r = records.getQuick(i);
+            r.of(pageFrameCursor);
+            filters.getQuick(i).init(r, executionContext);
+        }
+        cancelActiveEntries();
+        dispatch();
+    }
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+
+/**
+ * Filters rows of base factory on shared worker pool one page frame at a time. Base
+ * factory must support page frames. Functions are not thread-safe, so every worker
+ * that can pick up page frame has its own instance of filter.
+ */
+public class PageFrameFilteredRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ObjList<Function> filters;
+    private final PageFrameFilteredRecordCursor cursor;
+
+    /**
+     * @param base    factory that supports page frames
+     * @param filters filter instance for each worker id and, in the last position, filter for the thread that executes query
+     */
+    public PageFrameFilteredRecordCursorFactory(RecordCursorFactory base, @Transient ObjList<Function> filters) {
+        assert base.supportPageFrameCursor();
+        this.base = base;
+        this.filters = new ObjList<>(filters.size());
+        this.filters.addAll(filters);
+        this.cursor = new PageFrameFilteredRecordCursor(base.getMetadata(), this.filters);
+    }
+
+    @Override
+    public void close() {
+        base.close();
+        Misc.freeObjList(filters);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        cursor.of(base.getPageFrameCursor(executionContext), executionContext);
+        return cursor;
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.StaticSymbolTable;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Symbol table of page frame cursor that is safe to use while the same frames are
+ * filtered on other threads. Symbol table of TableReader is shared by all threads that
+ * filter its frames, so values are copied out under its monitor. Each thread has to
+ * have its own instance of this class.
+ */
+class PageFrameSymbolTable implements StaticSymbolTable {
+    private final StringSink sink = new StringSink();
+    private StaticSymbolTable symbolTable;
+
+    @Override
+    public int size() {
+        return symbolTable.size();
+    }
+
+    @Override
+    public int keyOf(CharSequence value) {
+        synchronized (symbolTable) {
+            return symbolTable.keyOf(value);
+        }
+    }
+
+    @Override
+    public boolean containsNullValue() {
+        return symbolTable.containsNullValue();
+    }
+
+    @Override
+    public CharSequence valueOf(int key) {
+        synchronized (symbolTable) {
+            final CharSequence value = symbolTable.valueOf(key);
+            if (value == null) {
+                return null;
+            }
+            sink.clear();
+            sink.put(value);
+            return sink;
+        }
+    }
+
+    PageFrameSymbolTable of(StaticSymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+        return this;
+    }
+}
@@ -52,6 +52,10 @@ public class SelectedRecordCursorFactory extends AbstractRecordCursorFactory {
         base.close();
     }
 
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
     @Override
     public RecordCursor getCursor(SqlExecutionContext executionContext) {
         this.cursor.of(base.getCursor(executionContext));
@@ -46,6 +46,11 @@ public class SequentialRowCursorFactory implements RowCursorFactory {
         return false;
     }
 
+    @Override
+    public int getFrameAccess() {
+        return FRAME_ACCESS_INDEX;
+    }
+
     @Override
     public RowCursor getCursor(DataFrame dataFrame) {
         for (int i = 0, n = cursorFactories.size(); i < n; i++) {
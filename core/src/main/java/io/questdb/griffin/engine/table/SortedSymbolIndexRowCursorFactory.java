@@ -96,6 +96,11 @@ public class SortedSymbolIndexRowCursorFactory implements RowCursorFactory {
         return false;
     }
 
+    @Override
+    public int getFrameAccess() {
+        return FRAME_ACCESS_INDEX;
+    }
+
     // this is a thread-local contraption used for sorting symbol values. We ought to think of something better
     private static class SymbolTableEntry {
         private String value;
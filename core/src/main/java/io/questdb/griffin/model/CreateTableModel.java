@@ -34,6 +34,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     public static final ObjectFactory<CreateTableModel> FACTORY = CreateTableModel::new;
     private static final int COLUMN_FLAG_CACHED = 1;
     private static final int COLUMN_FLAG_INDEXED = 2;
+    private static final int COLUMN_FLAG_COMPRESSED = 4;
     private final CharSequenceObjHashMap<ColumnCastModel> columnCastModels = new CharSequenceObjHashMap<>();
     private final LongList columnBits = new LongList();
     private final ObjList<CharSequence> columnNames = new ObjList<>();
@@ -113,6 +114,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return (getLowAt(index * 2 + 1) & COLUMN_FLAG_INDEXED) != 0;
     }
 
+    @Override
+    public boolean isCompressed(int columnIndex) {
+        return (getLowAt(columnIndex * 2 + 1) & COLUMN_FLAG_COMPRESSED) != 0;
+    }
+
     @Override
     public boolean isSequential(int columnIndex) {
         // todo: expose this flag on CREATE TABLE statement
@@ -183,6 +189,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         this.timestamp = timestamp;
     }
 
+    public void setCompressed(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(getLowAt(index) | COLUMN_FLAG_COMPRESSED, getHighAt(index)));
+    }
+
     public void setIndexFlags(boolean indexFlag, int indexValueBlockSize) {
         setIndexFlags0(columnBits.size() - 1, indexFlag, indexValueBlockSize);
     }
@@ -272,6 +283,14 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
             sink.put(')');
         }
 
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (isCompressed(i)) {
+                sink.put(", compress(");
+                sink.put(getColumnName(i));
+                sink.put(')');
+            }
+        }
+
         if (getTimestamp() != null) {
             sink.put(" timestamp(");
             sink.put(getTimestamp().token);
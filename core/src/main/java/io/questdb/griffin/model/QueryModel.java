@@ -92,6 +92,8 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
     private QueryModel nestedModel;
     private ExpressionNode tableName;
     private long tableVersion;
+    private long tableRowCount;
+    private boolean hashJoinBuildMaster;
     private Function tableNameFunction;
     private ExpressionNode alias;
     private ExpressionNode timestamp;
@@ -219,6 +221,8 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         columnNameToAliasMap.clear();
         tableNameFunction = null;
         tableVersion = -1;
+        tableRowCount = -1;
+        hashJoinBuildMaster = false;
         bottomUpColumnNames.clear();
         expressionModels.clear();
         distinct = false;
@@ -502,6 +506,28 @@ public class QueryModel implements Mutable, ExecutionModel, AliasTranslator, Sin
         this.tableVersion = tableVersion;
     }
 
+    /**
+     * @return number of rows in the table at the time model was optimised, or -1 when model is not a table
+     */
+    public long getTableRowCount() {
+        return tableRowCount;
+    }
+
+    public void setTableRowCount(long tableRowCount) {
+        this.tableRowCount = tableRowCount;
+    }
+
+    /**
+     * @return true when hash join of this model should build its hash table from the master side
+     */
+    public boolean isHashJoinBuildMaster() {
+        return hashJoinBuildMaster;
+    }
+
+    public void setHashJoinBuildMaster(boolean hashJoinBuildMaster) {
+        this.hashJoinBuildMaster = hashJoinBuildMaster;
+    }
+
     public ExpressionNode getTimestamp() {
         return timestamp;
     }
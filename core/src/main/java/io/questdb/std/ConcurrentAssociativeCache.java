@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import java.io.Closeable;
+
+/**
+ * Bounded cache of closeable values, which is safe to share between threads. Values are checked out
+ * with {@link #poll(CharSequence)}, so that only one thread uses value at a time, and are returned
+ * with {@link #push(CharSequence, Object)} when caller is done with them.
+ * <p>
+ * Cache is split into segments, each segment is {@link AssociativeCache} guarded by its own monitor.
+ * Segment is chosen by key hash, so that threads working with different keys rarely contend.
+ *
+ * @param <V> value type, values are closed when they are evicted or rejected
+ */
+public class ConcurrentAssociativeCache<V> implements Closeable {
+    private final AssociativeCache<V>[] segments;
+    private final int mask;
+
+    public ConcurrentAssociativeCache(int segmentCount, int blocks, int rows) {
+        final int n = Numbers.ceilPow2(Math.max(1, segmentCount));
+        @SuppressWarnings("unchecked")
+        final AssociativeCache<V>[] segments = (AssociativeCache<V>[]) new AssociativeCache<?>[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new AssociativeCache<>(blocks, rows);
+        }
+        this.segments = segments;
+        this.mask = n - 1;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = segments.length; i < n; i++) {
+            final AssociativeCache<V> segment = segments[i];
+            synchronized (segment) {
+                segment.close();
+            }
+        }
+    }
+
+    /**
+     * Checks out value from cache. Value is removed from cache and will not be given to another
+     * caller until it is pushed back.
+     *
+     * @param key cache key, it does not have to be immutable
+     * @return cached value or null when there is no value for the key
+     */
+    public V poll(CharSequence key) {
+        final AssociativeCache<V> segment = getSegment(key);
+        synchronized (segment) {
+            return segment.poll(key);
+        }
+    }
+
+    /**
+     * Returns value to cache. When cache already has value for the same key, the value
+     * that is being pushed is closed. This happens when several threads compiled the same
+     * query concurrently.
+     *
+     * @param key   cache key, it does not have to be immutable
+     * @param value value to be cached, null values are ignored
+     */
+    public void push(CharSequence key, V value) {
+        if (value == null) {
+            return;
+        }
+
+        final AssociativeCache<V> segment = getSegment(key);
+        synchronized (segment) {
+            if (segment.peek(key) == null) {
+                segment.put(key, value);
+                return;
+            }
+        }
+        Misc.free(value);
+    }
+
+    private AssociativeCache<V> getSegment(CharSequence key) {
+        // low bits of hash pick row within segment, use high bits to pick segment
+        return segments[(Hash.spread(Chars.hashCode(key)) >>> 16) & mask];
+    }
+}
@@ -48,7 +48,14 @@ public final class Files {
 
     public static final int MAP_RO = 1;
     public static final int MAP_RW = 2;
+    // access pattern advice for mapped memory, see madvise()
+    public static final int MADV_NORMAL = 0;
+    public static final int MADV_RANDOM = 1;
+    public static final int MADV_SEQUENTIAL = 2;
+    public static final int MADV_WILLNEED = 3;
+    public static final int MADV_DONTNEED = 4;
     public static final char SEPARATOR;
+    private static final boolean MADVISE_SUPPORTED;
 
     static final AtomicLong OPEN_FILE_COUNT = new AtomicLong();
 
@@ -57,6 +64,7 @@ public final class Files {
         UTF_8 = StandardCharsets.UTF_8;
         PAGE_SIZE = getPageSize();
         SEPARATOR = Os.type == Os.WINDOWS ? '\\' : '/';
+        MADVISE_SUPPORTED = isMadviseSupported0();
     }
 
     private Files() {
@@ -102,6 +110,13 @@ public final class Files {
 
     public native static long getStdOutFd();
 
+    /**
+     * @return false when native library does not implement madvise(), advice is ignored then
+     */
+    public static boolean isMadviseSupported() {
+        return MADVISE_SUPPORTED;
+    }
+
     public static boolean isDots(CharSequence name) {
         return Chars.equals(name, '.') || Chars.equals(name, "..");
     }
@@ -116,6 +131,23 @@ public final class Files {
 
     public static native int msync(long addr, long len, boolean async);
 
+    /**
+     * Advises OS how memory mapped from file is going to be accessed. Advice is only a hint,
+     * it is ignored when native library does not implement it.
+     *
+     * @param address address within mapped memory, it does not need to be aligned with OS page
+     * @param len     number of bytes from address
+     * @param advice  one of MADV_* constants
+     * @return 0 on success or when advice is ignored, -1 on failure
+     */
+    public static int madvise(long address, long len, int advice) {
+        if (MADVISE_SUPPORTED && len > 0) {
+            final long aligned = address & ~(PAGE_SIZE - 1);
+            return madvise0(aligned, len + address - aligned, advice);
+        }
+        return 0;
+    }
+
     public static int mkdir(LPSZ path, int mode) {
         return mkdir(path.address(), mode);
     }
@@ -272,6 +304,17 @@ public final class Files {
 
     private static native long mmap0(long fd, long len, long offset, int flags);
 
+    private static native int madvise0(long address, long len, int advice);
+
+    private static boolean isMadviseSupported0() {
+        try {
+            return madvise0(0, 0, MADV_NORMAL) == 0;
+        } catch (UnsatisfiedLinkError e) {
+            // native library was built before madvise0() was added
+            return false;
+        }
+    }
+
     private native static long getPageSize();
 
     private native static boolean remove(long lpsz);
@@ -52,6 +52,10 @@ public interface FilesFacade {
 
     int msync(long addr, long len, boolean async);
 
+    int madvise(long address, long len, int advice);
+
+    boolean isMadviseSupported();
+
     long getMapPageSize();
 
     long getOpenFileCount();
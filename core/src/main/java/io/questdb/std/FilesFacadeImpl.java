@@ -102,6 +102,16 @@ public class FilesFacadeImpl implements FilesFacade {
         return Files.msync(addr, len, async);
     }
 
+    @Override
+    public int madvise(long address, long len, int advice) {
+        return Files.madvise(address, len, advice);
+    }
+
+    @Override
+    public boolean isMadviseSupported() {
+        return Files.isMadviseSupported();
+    }
+
     @Override
     public long getMapPageSize() {
         if (mapPageSize == 0) {
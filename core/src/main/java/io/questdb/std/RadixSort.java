@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+/**
+ * Off-heap LSD radix sort of index entries. Each entry is 16 bytes: signed long key
+ * followed by long value. Sort is stable, which is to say that entries with equal keys
+ * retain their relative order.
+ */
+public final class RadixSort {
+    private static final int PASS_COUNT = 8;
+    private static final int BUCKET_COUNT = 256;
+    private static final long HISTOGRAM_SIZE = PASS_COUNT * BUCKET_COUNT * 8;
+
+    private RadixSort() {
+    }
+
+    /**
+     * Sorts entries in ascending order of their keys.
+     *
+     * @param pIndex address of entries to sort, sorted entries are also written here
+     * @param count  number of 16-byte entries
+     * @param pTemp  address of scratch memory, which must be at least count * 16 bytes
+     */
+    public static void sortLongIndexAsc(long pIndex, long count, long pTemp) {
+        if (count < 2) {
+            return;
+        }
+
+        final long pHistogram = Unsafe.malloc(HISTOGRAM_SIZE);
+        try {
+            Unsafe.getUnsafe().setMemory(pHistogram, HISTOGRAM_SIZE, (byte) 0);
+
+            // collect counts for every byte of every key in one go
+            final long hi = pIndex + count * 16;
+            for (long p = pIndex; p < hi; p += 16) {
+                final long key = Unsafe.getUnsafe().getLong(p) ^ Long.MIN_VALUE;
+                for (int pass = 0; pass < PASS_COUNT; pass++) {
+                    final long pCount = pHistogram + (pass * BUCKET_COUNT + ((key >>> (pass * 8)) & 0xff)) * 8;
+                    Unsafe.getUnsafe().putLong(pCount, Unsafe.getUnsafe().getLong(pCount) + 1);
+                }
+            }
+
+            long src = pIndex;
+            long dst = pTemp;
+            for (int pass = 0; pass < PASS_COUNT; pass++) {
+                final long pCounts = pHistogram + pass * BUCKET_COUNT * 8;
+
+                // turn counts into offsets; when all keys share the same byte
+                // this pass would not move anything and can be skipped
+                boolean skip = false;
+                long offset = 0;
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    final long n = Unsafe.getUnsafe().getLong(pCounts + i * 8);
+                    if (n == count) {
+                        skip = true;
+                        break;
+                    }
+                    Unsafe.getUnsafe().putLong(pCounts + i * 8, offset);
+                    offset += n;
+                }
+
+                if (skip) {
+                    continue;
+                }
+
+                final int shift = pass * 8;
+                final long srcHi = src + count * 16;
+                for (long p = src; p < srcHi; p += 16) {
+                    final long key = Unsafe.getUnsafe().getLong(p);
+                    final long pOffset = pCounts + (((key ^ Long.MIN_VALUE) >>> shift) & 0xff) * 8;
+                    final long o = Unsafe.getUnsafe().getLong(pOffset);
+                    Unsafe.getUnsafe().putLong(pOffset, o + 1);
+                    final long d = dst + o * 16;
+                    Unsafe.getUnsafe().putLong(d, key);
+                    Unsafe.getUnsafe().putLong(d + 8, Unsafe.getUnsafe().getLong(p + 8));
+                }
+
+                final long t = src;
+                src = dst;
+                dst = t;
+            }
+
+            if (src != pIndex) {
+                Unsafe.getUnsafe().copyMemory(src, pIndex, count * 16);
+            }
+        } finally {
+            Unsafe.free(pHistogram, HISTOGRAM_SIZE);
+        }
+    }
+}
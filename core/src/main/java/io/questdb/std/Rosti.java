@@ -183,6 +183,10 @@ public final class Rosti {
         return Unsafe.getUnsafe().getLong(pRosti + 2 * Long.BYTES);
     }
 
+    public static long getSlotSize(long pRosti) {
+        return Unsafe.getUnsafe().getLong(pRosti + 4 * Long.BYTES);
+    }
+
     public static long getSlotShift(long pRosti) {
         return Unsafe.getUnsafe().getLong(pRosti + 5 * Long.BYTES);
     }
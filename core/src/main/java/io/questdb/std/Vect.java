@@ -26,12 +26,49 @@ package io.questdb.std;
 
 public final class Vect {
 
+    private static final boolean FILTER_SUPPORTED;
+
+    static {
+        Os.init();
+        FILTER_SUPPORTED = isFilterSupported0();
+    }
+
     public static native double avgDouble(long pDouble, long count);
 
     public static native double avgInt(long pInt, long count);
 
     public static native double avgLong(long pLong, long count);
 
+    /**
+     * Writes rows of values between lo and hi inclusive to pRows, NaN values do not pass.
+     *
+     * @return number of written rows
+     */
+    public static native long filterDoubleBetween(long pDouble, long count, double lo, double hi, long rowLo, long pRows);
+
+    /**
+     * Writes rows of values between lo and hi inclusive to pRows, value of the first row is row rowLo.
+     *
+     * @return number of written rows
+     */
+    public static native long filterIntBetween(long pInt, long count, int lo, int hi, long rowLo, long pRows);
+
+    /**
+     * Writes rows of values that equal one of the keys to pRows. Every value is compared with every key,
+     * key list is meant to be short.
+     *
+     * @param pKeys    address of int keys
+     * @param keyCount number of keys, greater than zero
+     * @return number of written rows
+     */
+    public static native long filterIntIn(long pInt, long count, long pKeys, long keyCount, long rowLo, long pRows);
+
+    public static native long filterIntNotBetween(long pInt, long count, int lo, int hi, long rowLo, long pRows);
+
+    public static native long filterLongBetween(long pLong, long count, long lo, long hi, long rowLo, long pRows);
+
+    public static native long filterLongNotBetween(long pLong, long count, long lo, long hi, long rowLo, long pRows);
+
     public static native boolean hasNull(long pInt, long count);
 
     public static native int getSupportedInstructionSet();
@@ -53,6 +90,13 @@ public final class Vect {
         return " [" + base + "," + Vect.getSupportedInstructionSet() + "]";
     }
 
+    /**
+     * @return whether filter*() functions are available, native library can be older than them
+     */
+    public static boolean isFilterSupported() {
+        return FILTER_SUPPORTED;
+    }
+
     public static native double maxDouble(long pDouble, long count);
 
     public static native int maxInt(long pInt, long count);
@@ -74,4 +118,14 @@ public final class Vect {
     public static native long sumInt(long pInt, long count);
 
     public static native long sumLong(long pLong, long count);
+
+    private static boolean isFilterSupported0() {
+        try {
+            // the function that was added last
+            return filterIntIn(0, 0, 0, 0, 0, 0) == 0;
+        } catch (UnsatisfiedLinkError e) {
+            // native library was built before filter functions were added
+            return false;
+        }
+    }
 }
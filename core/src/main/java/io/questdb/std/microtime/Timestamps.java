@@ -49,6 +49,10 @@ final public class Timestamps {
     public static final int STATE_SIGN = 7;
     public static final TimestampFloorMethod FLOOR_DD = Timestamps::floorDD;
     public static final TimestampAddMethod ADD_DD = Timestamps::addDays;
+    public static final TimestampFloorMethod FLOOR_HH = Timestamps::floorHH;
+    public static final TimestampAddMethod ADD_HH = Timestamps::addHours;
+    public static final TimestampFloorMethod FLOOR_WW = Timestamps::floorWW;
+    public static final TimestampAddMethod ADD_WW = Timestamps::addWeeks;
     private static final long AVG_YEAR_MICROS = (long) (365.2425 * DAY_MICROS);
     private static final long YEAR_MICROS = 365 * DAY_MICROS;
     private static final long LEAP_YEAR_MICROS = 366 * DAY_MICROS;
@@ -222,7 +226,7 @@ final public class Timestamps {
     }
 
     public static long floorHH(long micros) {
-        return micros - micros % HOUR_MICROS;
+        return micros - Math.floorMod(micros, HOUR_MICROS);
     }
 
     public static long floorMI(long micros) {
@@ -235,6 +239,11 @@ final public class Timestamps {
         return yearMicros(y = getYear(micros), l = isLeapYear(y)) + monthOfYearMicros(getMonthOfYear(micros, y, l), l);
     }
 
+    public static long floorWW(long micros) {
+        // 1970-01-01 is Thursday, weeks start on Monday
+        return micros - Math.floorMod(micros + 3 * DAY_MICROS, WEEK_MICROS);
+    }
+
     public static long floorYYYY(long micros) {
         int y;
         return yearMicros(y = getYear(micros), isLeapYear(y));
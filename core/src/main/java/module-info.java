@@ -65,6 +65,7 @@ open module io.questdb {
     exports io.questdb.griffin.engine.functions.date;
     exports io.questdb.griffin.engine.functions.eq;
     exports io.questdb.griffin.engine.functions.groupby;
+    exports io.questdb.griffin.engine.functions.analytic;
     exports io.questdb.griffin.engine.functions.lt;
     exports io.questdb.griffin.engine.functions.math;
     exports io.questdb.griffin.engine.functions.regex;
@@ -442,6 +443,14 @@ open module io.questdb {
 //                  ^
             io.questdb.griffin.engine.functions.math.PowDoubleFunctionFactory,
             io.questdb.griffin.engine.functions.table.AllTablesFunctionFactory,
-            io.questdb.griffin.engine.functions.table.TableColumnsFunctionFactory
+            io.questdb.griffin.engine.functions.table.TableColumnsFunctionFactory,
+//                  analytic functions
+            io.questdb.griffin.engine.functions.analytic.RowNumberFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.RankFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LagDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.LeadDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.FirstValueDoubleFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.SumDoubleAnalyticFunctionFactory,
+            io.questdb.griffin.engine.functions.analytic.AvgDoubleAnalyticFunctionFactory
             ;
 }
@@ -122,6 +122,56 @@ public class FilesTest {
         }
     }
 
+    @Test
+    public void testMadvise() throws Exception {
+        File temp = temporaryFolder.newFile();
+        TestUtils.writeStringToFile(temp, "abcde");
+        try (Path path = new Path().of(temp.getAbsolutePath()).$()) {
+            long fd = Files.openRO(path);
+            try {
+                long address = Files.mmap(fd, 5, 0, Files.MAP_RO);
+                try {
+                    // address does not have to be page aligned
+                    Assert.assertEquals(0, Files.madvise(address + 1, 4, Files.MADV_SEQUENTIAL));
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_WILLNEED));
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_RANDOM));
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_NORMAL));
+                    Assert.assertEquals(0, Files.madvise(address, 5, Files.MADV_DONTNEED));
+                    // pages that have been let go of are read from file again
+                    Assert.assertEquals('c', Unsafe.getUnsafe().getByte(address + 2));
+                } finally {
+                    Files.munmap(address, 5);
+                }
+            } finally {
+                Files.close(fd);
+            }
+        }
+    }
+
+    @Test
+    public void testMadviseNative() throws Exception {
+        if (!Files.isMadviseSupported()) {
+            // native library was built before madvise0() was added, advice is ignored as testMadvise() checks
+            return;
+        }
+        File temp = temporaryFolder.newFile();
+        TestUtils.writeStringToFile(temp, "abcde");
+        try (Path path = new Path().of(temp.getAbsolutePath()).$()) {
+            long fd = Files.openRO(path);
+            try {
+                long address = Files.mmap(fd, 5, 0, Files.MAP_RO);
+                Assert.assertEquals(0, Files.madvise(address + 1, 4, Files.MADV_WILLNEED));
+                Files.munmap(address, 5);
+                if (Os.type != Os.WINDOWS) {
+                    // advice reaches OS, which rejects memory that is not mapped
+                    Assert.assertEquals(-1, Files.madvise(address + 1, 4, Files.MADV_WILLNEED));
+                }
+            } finally {
+                Files.close(fd);
+            }
+        }
+    }
+
     @Test
     public void testMkdirs() throws Exception {
         File r = temporaryFolder.newFolder("to_delete");
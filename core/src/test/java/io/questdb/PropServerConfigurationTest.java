@@ -112,6 +112,7 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1_000_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getConnectionCheckFrequency());
         Assert.assertEquals(4, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getFloatScale());
         Assert.assertEquals(12, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getDoubleScale());
+        Assert.assertEquals(300_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getTailIdleTimeout());
         Assert.assertEquals("Keep-Alive: timeout=5, max=10000" + Misc.EOL, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getKeepAliveHeader());
 
         Assert.assertFalse(configuration.getHttpServerConfiguration().readOnlySecurityContext());
@@ -137,6 +138,7 @@ public class PropServerConfigurationTest {
 
         Assert.assertEquals(100000, configuration.getCairoConfiguration().getParallelIndexThreshold());
         Assert.assertEquals(5, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
+        Assert.assertEquals(1000, configuration.getCairoConfiguration().getReaderPoolAcquireTimeout());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSpinLockTimeoutUs());
         Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlCharacterStoreCapacity());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getSqlCharacterStoreSequencePoolCapacity());
@@ -158,12 +160,28 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlLargeScanRowCount());
         Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+        Assert.assertEquals(1024 * 1024 * 1024L, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
+        Assert.assertEquals(1024 * 1024 * 1024L, configuration.getCairoConfiguration().getSqlGroupByMemoryBudget());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isOutOfOrderEnabled());
+        Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getOutOfOrderPageSize());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getPartitionTtlCheckInterval());
+        Assert.assertFalse(configuration.getCairoConfiguration().isWalEnabled());
+        Assert.assertEquals(100, configuration.getCairoConfiguration().getWalApplyInterval());
+        Assert.assertEquals(1000, configuration.getCairoConfiguration().getWalSegmentMaxAge());
+        Assert.assertEquals(100_000, configuration.getCairoConfiguration().getWalSegmentMaxRows());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelSampleByEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlFilterKernelEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlGroupByEncodedKeysEnabled());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -262,6 +280,14 @@ public class PropServerConfigurationTest {
         new PropServerConfiguration("root", properties);
     }
 
+    @Test(expected = ServerConfigurationException.class)
+    public void testWalRequiresOutOfOrder() throws ServerConfigurationException, JsonException {
+        Properties properties = new Properties();
+        properties.setProperty("http.enabled", "false");
+        properties.setProperty("cairo.wal.enabled", "true");
+        new PropServerConfiguration("root", properties);
+    }
+
     @Test
     public void testLineUdpTimestamp() throws ServerConfigurationException, JsonException {
         Properties properties = new Properties();
@@ -424,6 +450,7 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(580, configuration.getCairoConfiguration().getMkDirMode());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getParallelIndexThreshold());
             Assert.assertEquals(10, configuration.getCairoConfiguration().getReaderPoolMaxSegments());
+            Assert.assertEquals(2000, configuration.getCairoConfiguration().getReaderPoolAcquireTimeout());
             Assert.assertEquals(5_000_000, configuration.getCairoConfiguration().getSpinLockTimeoutUs());
             Assert.assertEquals(2048, configuration.getCairoConfiguration().getSqlCharacterStoreCapacity());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getSqlCharacterStoreSequencePoolCapacity());
@@ -445,12 +472,28 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
             Assert.assertEquals(10000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
+            Assert.assertEquals(500_000, configuration.getCairoConfiguration().getSqlLargeScanRowCount());
             Assert.assertEquals(2 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinLightValuePageSize());
             Assert.assertEquals(1025, configuration.getCairoConfiguration().getSqlHashJoinLightValueMaxPages());
             Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortValuePageSize());
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
+            Assert.assertEquals(256 * 1024 * 1024L, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
+            Assert.assertEquals(512 * 1024 * 1024L, configuration.getCairoConfiguration().getSqlGroupByMemoryBudget());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isOutOfOrderEnabled());
+            Assert.assertEquals(2 * 1024 * 1024, configuration.getCairoConfiguration().getOutOfOrderPageSize());
+            Assert.assertEquals(30_000, configuration.getCairoConfiguration().getPartitionTtlCheckInterval());
+            Assert.assertTrue(configuration.getCairoConfiguration().isWalEnabled());
+            Assert.assertEquals(500, configuration.getCairoConfiguration().getWalApplyInterval());
+            Assert.assertEquals(2000, configuration.getCairoConfiguration().getWalSegmentMaxAge());
+            Assert.assertEquals(5000, configuration.getCairoConfiguration().getWalSegmentMaxRows());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelSampleByEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlFilterKernelEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlGroupByEncodedKeysEnabled());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
             Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
 
@@ -334,6 +334,72 @@ public class CairoMemoryTest {
         Assert.assertEquals(openFileCount, ff.getOpenFileCount());
     }
 
+    @Test
+    public void testReadOnlyMemoryAdvice() throws Exception {
+        class X extends FilesFacadeImpl {
+            final int[] adviceCounts = new int[Files.MADV_DONTNEED + 1];
+            int mapCount = 0;
+
+            @Override
+            public int madvise(long address, long len, int advice) {
+                adviceCounts[advice]++;
+                return super.madvise(address, len, advice);
+            }
+
+            @Override
+            public long mmap(long fd, long size, long offset, int mode) {
+                mapCount++;
+                return super.mmap(fd, size, offset, mode);
+            }
+        }
+
+        final X ff = new X();
+        final long pageSize = ff.getPageSize();
+        final long size = 4 * pageSize;
+        long used = Unsafe.getMemUsed();
+        try (Path path = new Path().of(temp.newFile().getAbsolutePath()).$()) {
+            try (AppendMemory mem = new AppendMemory(ff, path, pageSize)) {
+                for (long i = 0, n = size / Long.BYTES; i < n; i++) {
+                    mem.putLong(i);
+                }
+            }
+
+            try (ReadOnlyMemory mem = new ReadOnlyMemory(ff, path, pageSize, size)) {
+                final int mapCount = ff.mapCount;
+
+                // advice does not map pages
+                mem.advise(0, size, Files.MADV_SEQUENTIAL);
+                mem.advise(0, 2 * pageSize, Files.MADV_WILLNEED);
+                Assert.assertEquals(mapCount, ff.mapCount);
+                Assert.assertEquals(0, ff.adviceCounts[Files.MADV_SEQUENTIAL]);
+                Assert.assertEquals(0, ff.adviceCounts[Files.MADV_WILLNEED]);
+
+                // pages get advice when they are mapped
+                Assert.assertEquals(0, mem.getLong(0));
+                Assert.assertEquals(mapCount + 1, ff.mapCount);
+                Assert.assertEquals(1, ff.adviceCounts[Files.MADV_SEQUENTIAL]);
+                Assert.assertEquals(1, ff.adviceCounts[Files.MADV_WILLNEED]);
+
+                // last page is outside of read ahead range
+                final long lastPageOffset = 3 * pageSize;
+                Assert.assertEquals(lastPageOffset / Long.BYTES, mem.getLong(lastPageOffset));
+                Assert.assertEquals(mapCount + 2, ff.mapCount);
+                Assert.assertEquals(2, ff.adviceCounts[Files.MADV_SEQUENTIAL]);
+                Assert.assertEquals(1, ff.adviceCounts[Files.MADV_WILLNEED]);
+
+                // reset applies to mapped pages only and is not carried over to pages mapped later
+                mem.advise(0, size, Files.MADV_NORMAL);
+                Assert.assertEquals(2, ff.adviceCounts[Files.MADV_NORMAL]);
+                Assert.assertEquals(pageSize / Long.BYTES, mem.getLong(pageSize));
+                Assert.assertEquals(mapCount + 3, ff.mapCount);
+                Assert.assertEquals(2, ff.adviceCounts[Files.MADV_SEQUENTIAL]);
+                Assert.assertEquals(1, ff.adviceCounts[Files.MADV_WILLNEED]);
+                Assert.assertEquals(2, ff.adviceCounts[Files.MADV_NORMAL]);
+            }
+        }
+        Assert.assertEquals(used, Unsafe.getMemUsed());
+    }
+
     @Test
     public void testReadOnlyMemoryJump() {
         try (ReadOnlyMemory mem = new ReadOnlyMemory()) {
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Numbers;
+import io.questdb.std.Rnd;
+import io.questdb.std.Unsafe;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnCodecTest extends AbstractCairoTest {
+    private static final int N = ColumnCodec.BLOCK_ROW_COUNT + 127;
+
+    @Test
+    public void testDouble() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.DOUBLE, (address, i) -> {
+            final double value;
+            switch (rnd.nextPositiveInt() % 4) {
+                case 0:
+                    value = Double.NaN;
+                    break;
+                case 1:
+                    // slow moving value
+                    value = 100 + (i / 16) * 0.25;
+                    break;
+                default:
+                    value = rnd.nextDouble() * rnd.nextLong();
+                    break;
+            }
+            Unsafe.getUnsafe().putDouble(address, value);
+        });
+    }
+
+    @Test
+    public void testDoubleConstant() throws Exception {
+        final long encodedSize = assertRoundTrip(ColumnType.DOUBLE, (address, i) -> Unsafe.getUnsafe().putDouble(address, 42.5));
+        // one bit per repeated value
+        Assert.assertTrue(encodedSize < N / 4);
+    }
+
+    @Test
+    public void testSymbol() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.SYMBOL, (address, i) -> Unsafe.getUnsafe().putInt(address, rnd.nextPositiveInt() % 10 == 0 ? SymbolTable.VALUE_IS_NULL : rnd.nextPositiveInt() % 1000));
+    }
+
+    @Test
+    public void testSymbolSingleKey() throws Exception {
+        final long encodedSize = assertRoundTrip(ColumnType.SYMBOL, (address, i) -> Unsafe.getUnsafe().putInt(address, 7));
+        Assert.assertTrue(encodedSize < 64);
+    }
+
+    @Test
+    public void testTimestamp() throws Exception {
+        final Rnd rnd = new Rnd();
+        assertRoundTrip(ColumnType.TIMESTAMP, (address, i) -> {
+            final long value;
+            switch (rnd.nextPositiveInt() % 8) {
+                case 0:
+                    value = Numbers.LONG_NaN;
+                    break;
+                case 1:
+                    value = rnd.nextLong();
+                    break;
+                default:
+                    value = i * 1_000_000L + rnd.nextPositiveInt() % 3000;
+                    break;
+            }
+            Unsafe.getUnsafe().putLong(address, value);
+        });
+    }
+
+    @Test
+    public void testTimestampRegular() throws Exception {
+        final long encodedSize = assertRoundTrip(ColumnType.TIMESTAMP, (address, i) -> Unsafe.getUnsafe().putLong(address, 1_600_000_000_000_000L + i * 10_000L));
+        Assert.assertTrue(encodedSize < N / 4);
+    }
+
+    private long assertRoundTrip(int type, ValueGenerator generator) throws Exception {
+        final long[] encodedSize = new long[1];
+        TestUtils.assertMemoryLeak(() -> {
+            final int shift = ColumnType.pow2SizeOf(type);
+            final long size = (long) N << shift;
+            final long encodedCapacity = ColumnCodec.getMaxEncodedSize(ColumnCodec.BLOCK_ROW_COUNT);
+            final long src = Unsafe.malloc(size);
+            final long dst = Unsafe.malloc(size);
+            final long encoded = Unsafe.malloc(encodedCapacity);
+            try (ColumnCodec codec = new ColumnCodec()) {
+                for (int i = 0; i < N; i++) {
+                    generator.put(src + ((long) i << shift), i);
+                }
+
+                for (long lo = 0; lo < N; lo += ColumnCodec.BLOCK_ROW_COUNT) {
+                    final long count = Math.min(ColumnCodec.BLOCK_ROW_COUNT, N - lo);
+                    final long len = codec.encode(type, src + (lo << shift), count, encoded);
+                    Assert.assertTrue(len <= encodedCapacity);
+                    encodedSize[0] += len;
+                    codec.decode(type, encoded, count, dst + (lo << shift));
+                }
+
+                for (long offset = 0; offset < size; offset += Integer.BYTES) {
+                    Assert.assertEquals("offset " + offset, Unsafe.getUnsafe().getInt(src + offset), Unsafe.getUnsafe().getInt(dst + offset));
+                }
+            } finally {
+                Unsafe.free(src, size);
+                Unsafe.free(dst, size);
+                Unsafe.free(encoded, encodedCapacity);
+            }
+        });
+        return encodedSize[0];
+    }
+
+    @FunctionalInterface
+    private interface ValueGenerator {
+        void put(long address, int index);
+    }
+}
@@ -36,6 +36,10 @@ import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.StringSink;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.HashJoinBuildTask;
+import io.questdb.tasks.LatestByAllSymbolTask;
+import io.questdb.tasks.PageFrameFilterTask;
+import io.questdb.tasks.SampleByTask;
 import io.questdb.tasks.TelemetryTask;
 import io.questdb.tasks.VectorAggregateTask;
 import io.questdb.test.tools.TestUtils;
@@ -2484,6 +2488,66 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             return null;
         }
 
+        @Override
+        public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameFilterPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameFilterSubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<HashJoinBuildTask> getHashJoinBuildQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getHashJoinBuildPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getHashJoinBuildSubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<SampleByTask> getSampleByQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getSampleByPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getSampleBySubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<LatestByAllSymbolTask> getLatestByAllSymbolQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getLatestByAllSymbolPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getLatestByAllSymbolSubSequence() {
+            return null;
+        }
+
         @Override
         public RingQueue<TelemetryTask> getTelemetryQueue() {
             return null;
@@ -2498,5 +2562,10 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         public SCSequence getTelemetrySubSequence() {
             return null;
         }
+
+        @Override
+        public TableCommitNotifier getTableCommitNotifier() {
+            return null;
+        }
     }
 }
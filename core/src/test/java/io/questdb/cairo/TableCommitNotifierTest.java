@@ -0,0 +1,161 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TableCommitNotifierTest {
+
+    @Test
+    public void testAwaitTimesOut() {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final long commitCount = notifier.getCommitCount("x");
+        Assert.assertFalse(notifier.await("x", commitCount, 1000));
+        Assert.assertEquals(commitCount, notifier.getCommitCount("x"));
+    }
+
+    @Test
+    public void testAwaitWokenByCommit() throws Exception {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final long commitCount = notifier.getCommitCount("x");
+        final AtomicBoolean committed = new AtomicBoolean();
+        final CountDownLatch latch = new CountDownLatch(1);
+        new Thread(() -> {
+            // timeout is long enough for test to fail when waiter is not woken up
+            committed.set(notifier.await("x", commitCount, TimeUnit.MINUTES.toMicros(1)));
+            latch.countDown();
+        }).start();
+
+        notifier.notifyCommit("y");
+        Assert.assertFalse(latch.await(10, TimeUnit.MILLISECONDS));
+
+        notifier.notifyCommit("x");
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(committed.get());
+    }
+
+    @Test
+    public void testCommitBeforeAwait() {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final long commitCount = notifier.getCommitCount("x");
+        notifier.notifyCommit("x");
+        Assert.assertEquals(commitCount + 1, notifier.getCommitCount("x"));
+        // commit that happened after count was taken must not be missed
+        Assert.assertTrue(notifier.await("x", commitCount, TimeUnit.MINUTES.toMicros(1)));
+    }
+
+    @Test
+    public void testListenerCalledOnce() {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final AtomicInteger calls = new AtomicInteger();
+        final TableCommitNotifier.Listener listener = calls::incrementAndGet;
+
+        Assert.assertTrue(notifier.listen("x", notifier.getCommitCount("x"), listener));
+        // listener is registered once
+        Assert.assertTrue(notifier.listen("x", notifier.getCommitCount("x"), listener));
+        notifier.notifyCommit("y");
+        Assert.assertEquals(0, calls.get());
+
+        notifier.notifyCommit("x");
+        Assert.assertEquals(1, calls.get());
+
+        notifier.notifyCommit("x");
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testListenAfterCommit() {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final AtomicInteger calls = new AtomicInteger();
+        final long commitCount = notifier.getCommitCount("x");
+        notifier.notifyCommit("x");
+
+        Assert.assertFalse(notifier.listen("x", commitCount, calls::incrementAndGet));
+        notifier.notifyCommit("x");
+        Assert.assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void testReleaseIdle() {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final AtomicInteger calls = new AtomicInteger();
+        final TableCommitNotifier.Listener listener = calls::incrementAndGet;
+
+        notifier.notifyCommit("x");
+        final long commitCount = notifier.getCommitCount("y");
+        Assert.assertTrue(notifier.listen("y", commitCount, listener));
+
+        // listener is called without commit, "x" is committed to since it was created
+        Assert.assertTrue(notifier.releaseIdle());
+        Assert.assertEquals(1, calls.get());
+        Assert.assertEquals(commitCount, notifier.getCommitCount("y"));
+
+        // both tables are forgotten, commit count of forgotten table does not go back
+        Assert.assertTrue(notifier.releaseIdle());
+        Assert.assertFalse(notifier.releaseIdle());
+        Assert.assertTrue(notifier.listen("y", commitCount, listener));
+        notifier.notifyCommit("y");
+        Assert.assertEquals(2, calls.get());
+        Assert.assertTrue(notifier.getCommitCount("y") > commitCount);
+    }
+
+    @Test
+    public void testRemove() {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final AtomicInteger calls = new AtomicInteger();
+        final long commitCount = notifier.getCommitCount("x");
+        Assert.assertTrue(notifier.listen("x", commitCount, calls::incrementAndGet));
+
+        // table that has never been used
+        notifier.remove("y");
+
+        notifier.remove("x");
+        Assert.assertEquals(1, calls.get());
+        // waiter that took count before table was removed is not put to sleep
+        Assert.assertTrue(notifier.await("x", commitCount, TimeUnit.MINUTES.toMicros(1)));
+        Assert.assertFalse(notifier.listen("x", commitCount, calls::incrementAndGet));
+    }
+
+    @Test
+    public void testRemoveListener() {
+        final TableCommitNotifier notifier = new TableCommitNotifier();
+        final AtomicInteger calls = new AtomicInteger();
+        final TableCommitNotifier.Listener listener = calls::incrementAndGet;
+
+        // table that has never been listened to
+        notifier.removeListener("y", listener);
+
+        Assert.assertTrue(notifier.listen("x", notifier.getCommitCount("x"), listener));
+        notifier.removeListener("x", listener);
+        notifier.notifyCommit("x");
+        Assert.assertEquals(0, calls.get());
+    }
+}
@@ -32,6 +32,7 @@ import java.io.Closeable;
 public class TableModel implements TableStructure, Closeable {
     private static final long COLUMN_FLAG_CACHED = 1L;
     private static final long COLUMN_FLAG_INDEXED = 2L;
+    private static final long COLUMN_FLAG_COMPRESSED = 4L;
     private final String name;
     private final int partitionBy;
     private final AppendMemory mem = new AppendMemory();
@@ -60,6 +61,13 @@ public class TableModel implements TableStructure, Closeable {
         return this;
     }
 
+    public TableModel compressed() {
+        int last = columnBits.size() - 1;
+        assert last > 0;
+        columnBits.setQuick(last, columnBits.getQuick(last) | COLUMN_FLAG_COMPRESSED);
+        return this;
+    }
+
     @Override
     public void close() {
         Misc.free(mem);
@@ -79,6 +87,11 @@ public class TableModel implements TableStructure, Closeable {
         return false;
     }
 
+    @Override
+    public boolean isCompressed(int columnIndex) {
+        return (columnBits.getQuick(columnIndex * 2 + 1) & COLUMN_FLAG_COMPRESSED) == COLUMN_FLAG_COMPRESSED;
+    }
+
     public boolean getSymbolCacheFlag(int index) {
         return (columnBits.getQuick(index * 2 + 1) & COLUMN_FLAG_CACHED) == COLUMN_FLAG_CACHED;
     }
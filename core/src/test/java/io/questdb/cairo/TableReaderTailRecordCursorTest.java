@@ -40,6 +40,97 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class TableReaderTailRecordCursorTest extends AbstractGriffinTest {
 
+    @Test
+    public void testAwaitReload() throws Exception {
+        final int n = 10_000;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table xyz (sequence INT, ts LONG, stamp TIMESTAMP) timestamp(stamp) partition by DAY", sqlExecutionContext);
+            final TableCommitNotifier notifier = messageBus.getTableCommitNotifier();
+            final AtomicInteger errorCount = new AtomicInteger();
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final CountDownLatch latch = new CountDownLatch(2);
+            new Thread(() -> {
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "xyz")) {
+                    barrier.await();
+                    Rnd rnd = new Rnd();
+                    long ts = 0;
+                    for (int i = 0; i < n; i++) {
+                        TableWriter.Row row = writer.newRow(ts);
+                        row.putInt(0, i);
+                        row.putLong(1, rnd.nextLong());
+                        row.append();
+                        writer.commit();
+                        ts += 10_000_000L;
+                    }
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                    errorCount.incrementAndGet();
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+
+            new Thread(() -> {
+                try (
+                        TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "xyz", TableUtils.ANY_TABLE_VERSION);
+                        TableReaderTailRecordCursor cursor = new TableReaderTailRecordCursor()
+                ) {
+                    Rnd rnd = new Rnd();
+                    int count = 0;
+                    cursor.of(reader);
+                    final Record record = cursor.getRecord();
+                    barrier.await();
+                    while (count < n) {
+                        // writer wakes us up, timeout is not expected to elapse
+                        if (cursor.awaitReload(notifier, 60_000_000L)) {
+                            while (cursor.hasNext()) {
+                                Assert.assertEquals(count, record.getInt(0));
+                                Assert.assertEquals(rnd.nextLong(), record.getLong(1));
+                                count++;
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                    errorCount.incrementAndGet();
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+
+            Assert.assertTrue(latch.await(600, TimeUnit.SECONDS));
+            Assert.assertEquals(0, errorCount.get());
+        });
+    }
+
+    @Test
+    public void testAwaitReloadTimeout() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table xyz (sequence INT, stamp TIMESTAMP) timestamp(stamp) partition by DAY", sqlExecutionContext);
+            try (
+                    TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "xyz", TableUtils.ANY_TABLE_VERSION);
+                    TableReaderTailRecordCursor cursor = new TableReaderTailRecordCursor()
+            ) {
+                cursor.of(reader);
+                Assert.assertFalse(cursor.awaitReload(messageBus.getTableCommitNotifier(), 1000));
+                Assert.assertFalse(cursor.hasNext());
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "xyz")) {
+                    TableWriter.Row row = writer.newRow(0);
+                    row.putInt(0, 1);
+                    row.append();
+                    writer.commit();
+                }
+
+                // commit is noticed without waiting
+                Assert.assertTrue(cursor.awaitReload(messageBus.getTableCommitNotifier(), 60_000_000L));
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertEquals(1, cursor.getRecord().getInt(0));
+                Assert.assertFalse(cursor.hasNext());
+            }
+        });
+    }
+
     @Test
     public void testBusyPollByDay() throws Exception {
         testBusyPollFromMidTable(PartitionBy.DAY, 3000000000L);
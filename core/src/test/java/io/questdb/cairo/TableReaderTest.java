@@ -1915,12 +1915,24 @@ public class TableReaderTest extends AbstractCairoTest {
         TestUtils.assertMemoryLeak(this::testTableCursor);
     }
 
+    @Test
+    public void testReadByHour() throws Exception {
+        CairoTestUtils.createAllTable(configuration, PartitionBy.HOUR);
+        TestUtils.assertMemoryLeak(() -> testTableCursor(10 * 60000));
+    }
+
     @Test
     public void testReadByMonth() throws Exception {
         CairoTestUtils.createAllTable(configuration, PartitionBy.MONTH);
         TestUtils.assertMemoryLeak(() -> testTableCursor(60 * 60 * 60000));
     }
 
+    @Test
+    public void testReadByWeek() throws Exception {
+        CairoTestUtils.createAllTable(configuration, PartitionBy.WEEK);
+        TestUtils.assertMemoryLeak(() -> testTableCursor(24 * 60 * 60000));
+    }
+
     @Test
     public void testReadByYear() throws Exception {
         CairoTestUtils.createAllTable(configuration, PartitionBy.YEAR);
@@ -2158,11 +2170,21 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemoveActivePartition(PartitionBy.DAY, current -> Timestamps.addDays(Timestamps.floorDD(current), 1), "2017-12-15");
     }
 
+    @Test
+    public void testRemoveActivePartitionByHour() throws Exception {
+        testRemoveActivePartition(PartitionBy.HOUR, current -> Timestamps.addHours(Timestamps.floorHH(current), 1), "2017-12-11T04");
+    }
+
     @Test
     public void testRemoveActivePartitionByMonth() throws Exception {
         testRemoveActivePartition(PartitionBy.MONTH, current -> Timestamps.addMonths(Timestamps.floorMM(current), 1), "2018-04");
     }
 
+    @Test
+    public void testRemoveActivePartitionByWeek() throws Exception {
+        testRemoveActivePartition(PartitionBy.WEEK, current -> Timestamps.addWeeks(Timestamps.floorWW(current), 1), "2018-01-08");
+    }
+
     @Test
     public void testRemoveActivePartitionByYear() throws Exception {
         testRemoveActivePartition(PartitionBy.YEAR, current -> Timestamps.addYear(Timestamps.floorYYYY(current), 1), "2021");
@@ -2516,6 +2538,16 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemovePartitionReload(PartitionBy.DAY, "2017-12-14", 3000, current -> Timestamps.addDays(Timestamps.floorDD(current), 1));
     }
 
+    @Test
+    public void testRemovePartitionByHour() throws Exception {
+        testRemovePartition(PartitionBy.HOUR, "2017-12-11T12", 2000, current -> Timestamps.addHours(Timestamps.floorHH(current), 1));
+    }
+
+    @Test
+    public void testRemovePartitionByHourReload() throws Exception {
+        testRemovePartitionReload(PartitionBy.HOUR, "2017-12-11T02", 2000, current -> Timestamps.addHours(Timestamps.floorHH(current), 1));
+    }
+
     @Test
     public void testRemovePartitionByMonth() throws Exception {
         testRemovePartition(PartitionBy.MONTH, "2018-01", 1000, current -> Timestamps.addMonths(Timestamps.floorMM(current), 1));
@@ -2526,6 +2558,16 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemovePartitionReload(PartitionBy.MONTH, "2018-01", 1000, current -> Timestamps.addMonths(Timestamps.floorMM(current), 1));
     }
 
+    @Test
+    public void testRemovePartitionByWeek() throws Exception {
+        testRemovePartition(PartitionBy.WEEK, "2017-12-18", 1000, current -> Timestamps.addWeeks(Timestamps.floorWW(current), 1));
+    }
+
+    @Test
+    public void testRemovePartitionByWeekReload() throws Exception {
+        testRemovePartitionReload(PartitionBy.WEEK, "2017-12-18", 1000, current -> Timestamps.addWeeks(Timestamps.floorWW(current), 1));
+    }
+
     @Test
     public void testRemovePartitionByYear() throws Exception {
         testRemovePartition(PartitionBy.YEAR, "2020", 3000, current -> Timestamps.addYear(Timestamps.floorYYYY(current), 1));
@@ -2536,6 +2578,38 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemovePartitionReload(PartitionBy.YEAR, "2020", 3000, current -> Timestamps.addYear(Timestamps.floorYYYY(current), 1));
     }
 
+    @Test
+    public void testScanAdvice() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                    .col("l", ColumnType.LONG)
+                    .col("s", ColumnType.STRING)
+                    .timestamp()) {
+                CairoTestUtils.create(model);
+            }
+
+            // five days of hourly rows
+            final int N = 5 * 24;
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-03-01T00:00:00.000000Z");
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < N; i++) {
+                    TableWriter.Row row = writer.newRow(ts + i * Timestamps.HOUR_MICROS);
+                    row.putLong(0, i);
+                    row.putStr(1, "s" + i);
+                    row.append();
+                }
+                writer.commit();
+            }
+
+            // partitions of 24 rows are small, they are read ahead in full and kept in memory
+            assertScanAdvice(true, 1000, N, true, false);
+            // same partitions are large scans, which are evicted once scanned
+            assertScanAdvice(true, 10, N, false, true);
+            // native library without madvise() gets no advice at all
+            assertScanAdvice(false, 10, N, false, false);
+        });
+    }
+
     @Test
     public void testSymbolIndex() throws Exception {
         String expected = "{\"columnCount\":3,\"columns\":[{\"index\":0,\"name\":\"a\",\"type\":\"SYMBOL\",\"indexed\":true,\"indexValueBlockCapacity\":2},{\"index\":1,\"name\":\"b\",\"type\":\"INT\"},{\"index\":2,\"name\":\"timestamp\",\"type\":\"TIMESTAMP\"}],\"timestampIndex\":2}";
@@ -3333,6 +3407,54 @@ public class TableReaderTest extends AbstractCairoTest {
         });
     }
 
+    private void assertScanAdvice(boolean madviseSupported, long largeScanRowCount, int expectedRowCount, boolean expectWillNeed, boolean expectDontNeed) {
+        final int[] adviceCounts = new int[Files.MADV_DONTNEED + 1];
+        final FilesFacade ff = new FilesFacadeImpl() {
+            @Override
+            public int madvise(long address, long len, int advice) {
+                adviceCounts[advice]++;
+                return super.madvise(address, len, advice);
+            }
+
+            @Override
+            public boolean isMadviseSupported() {
+                return madviseSupported;
+            }
+        };
+
+        CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public FilesFacade getFilesFacade() {
+                return ff;
+            }
+
+            @Override
+            public long getSqlLargeScanRowCount() {
+                return largeScanRowCount;
+            }
+        };
+
+        try (TableReader reader = new TableReader(configuration, "x")) {
+            final RecordCursor cursor = reader.getCursor();
+            final Record record = cursor.getRecord();
+            int i = 0;
+            while (cursor.hasNext()) {
+                Assert.assertEquals(i, record.getLong(0));
+                TestUtils.assertEquals("s" + i, record.getStr(1));
+                i++;
+            }
+            Assert.assertEquals(expectedRowCount, i);
+            // cursor lets go of last partition when it goes back to top
+            cursor.toTop();
+        }
+
+        Assert.assertEquals(madviseSupported, adviceCounts[Files.MADV_SEQUENTIAL] > 0);
+        Assert.assertEquals(madviseSupported, adviceCounts[Files.MADV_NORMAL] > 0);
+        Assert.assertEquals(0, adviceCounts[Files.MADV_RANDOM]);
+        Assert.assertEquals(expectWillNeed, adviceCounts[Files.MADV_WILLNEED] > 0);
+        Assert.assertEquals(expectDontNeed, adviceCounts[Files.MADV_DONTNEED] > 0);
+    }
+
     private void appendTwoSymbols(TableWriter writer, Rnd rnd) {
         for (int i = 0; i < 1000; i++) {
             TableWriter.Row row = writer.newRow();
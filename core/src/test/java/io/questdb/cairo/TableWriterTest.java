@@ -37,6 +37,8 @@ import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TableWriterTest extends AbstractCairoTest {
@@ -1808,6 +1810,107 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testOutOfOrderMergeAfterAddColumn() throws Exception {
+        testOutOfOrderMerge(PartitionBy.DAY, true);
+    }
+
+    @Test
+    public void testOutOfOrderMergeByDay() throws Exception {
+        testOutOfOrderMerge(PartitionBy.DAY, false);
+    }
+
+    @Test
+    public void testOutOfOrderMergeNonPartitioned() throws Exception {
+        testOutOfOrderMerge(PartitionBy.NONE, false);
+    }
+
+    @Test
+    public void testOutOfOrderRemovedPartition() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+            };
+            createOutOfOrderTable(configuration, PartitionBy.DAY);
+
+            final Rnd rnd = new Rnd();
+            final long ts = TimestampFormatUtils.parseDateTime("2020-01-10T00:00:00.000Z");
+            final ArrayList<OutOfOrderRow> expected = new ArrayList<>();
+            try (TableWriter writer = new TableWriter(configuration, "ooo")) {
+                for (int i = 0; i < 3; i++) {
+                    appendOutOfOrderRow(writer, rnd, ts + i * Timestamps.DAY_MICROS, false, expected);
+                }
+                writer.commit();
+
+                Assert.assertTrue(writer.removePartition(ts));
+                try {
+                    writer.newRow(ts + 1);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "removed partition");
+                }
+
+                expected.remove(0);
+                appendOutOfOrderRow(writer, rnd, ts + Timestamps.DAY_MICROS + 1, false, expected);
+                writer.commit();
+            }
+
+            expected.sort(Comparator.comparingLong(row -> row.ts));
+            try (TableReader reader = new TableReader(configuration, "ooo")) {
+                assertOutOfOrderRows(reader, expected, false);
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderRollback() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+            };
+            createOutOfOrderTable(configuration, PartitionBy.DAY);
+
+            final Rnd rnd = new Rnd();
+            final long ts = TimestampFormatUtils.parseDateTime("2020-01-10T00:00:00.000Z");
+            final long step = 60 * 60 * 1000000L;
+            final ArrayList<OutOfOrderRow> expected = new ArrayList<>();
+            final ArrayList<OutOfOrderRow> discarded = new ArrayList<>();
+            try (TableWriter writer = new TableWriter(configuration, "ooo")) {
+                for (int i = 0; i < 100; i++) {
+                    appendOutOfOrderRow(writer, rnd, ts + i * step, false, expected);
+                }
+                writer.commit();
+
+                for (int i = 0; i < 10; i++) {
+                    appendOutOfOrderRow(writer, rnd, ts + i * step + 1, false, discarded);
+                }
+                Assert.assertEquals(110, writer.size());
+                Assert.assertTrue(writer.inTransaction());
+                writer.rollback();
+                Assert.assertEquals(100, writer.size());
+                Assert.assertFalse(writer.inTransaction());
+
+                // staging area must be usable again after rollback
+                for (int i = 0; i < 10; i++) {
+                    appendOutOfOrderRow(writer, rnd, ts + i * step + 2, false, expected);
+                }
+                writer.commit();
+                Assert.assertEquals(110, writer.size());
+            }
+
+            expected.sort(Comparator.comparingLong(row -> row.ts));
+            try (TableReader reader = new TableReader(configuration, "ooo")) {
+                assertOutOfOrderRows(reader, expected, false);
+            }
+        });
+    }
+
     @Test
     public void testRemoveColumnAfterTimestamp() throws Exception {
         try (TableModel model = new TableModel(configuration, "ABC", PartitionBy.DAY)
@@ -2861,6 +2964,67 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    private static void appendOutOfOrderRow(TableWriter writer, Rnd rnd, long ts, boolean extra, ArrayList<OutOfOrderRow> expected) {
+        final OutOfOrderRow row = new OutOfOrderRow();
+        row.ts = ts;
+        row.i = rnd.nextInt();
+        row.s = rnd.nextPositiveInt() % 4 == 0 ? null : rnd.nextString(rnd.nextPositiveInt() % 16);
+        row.sym = "sym" + rnd.nextPositiveInt() % 10;
+        row.d = rnd.nextDouble();
+        row.extra = extra ? rnd.nextInt() : Numbers.INT_NaN;
+
+        TableWriter.Row r = writer.newRow(ts);
+        r.putInt(0, row.i);
+        if (row.s != null) {
+            r.putStr(1, row.s);
+        }
+        r.putSym(2, row.sym);
+        r.putDouble(3, row.d);
+        if (extra) {
+            r.putInt(5, row.extra);
+        }
+        r.append();
+        expected.add(row);
+    }
+
+    private static void assertOutOfOrderRows(TableReader reader, ArrayList<OutOfOrderRow> expected, boolean extra) {
+        Assert.assertEquals(expected.size(), reader.size());
+
+        final RecordCursor cursor = reader.getCursor();
+        final Record record = cursor.getRecord();
+        int k = 0;
+        while (cursor.hasNext()) {
+            final OutOfOrderRow row = expected.get(k++);
+            Assert.assertEquals(row.ts, record.getTimestamp(4));
+            Assert.assertEquals(row.i, record.getInt(0));
+            TestUtils.assertEquals(row.s, record.getStr(1));
+            TestUtils.assertEquals(row.sym, record.getSym(2));
+            Assert.assertEquals(row.d, record.getDouble(3), 0.0000001);
+            if (extra) {
+                Assert.assertEquals(row.extra, record.getInt(5));
+            }
+        }
+        Assert.assertEquals(expected.size(), k);
+
+        // cursor is not closed because it would close the reader
+        final FullFwdDataFrameCursor frameCursor = new FullFwdDataFrameCursor();
+        frameCursor.of(reader);
+        final TableReaderRecord tableRecord = new TableReaderRecord();
+        tableRecord.of(reader);
+        FullFwdDataFrameCursorTest.assertIndexRowsMatchSymbol(frameCursor, tableRecord, 2, expected.size());
+    }
+
+    private static void createOutOfOrderTable(CairoConfiguration configuration, int partitionBy) {
+        try (TableModel model = new TableModel(configuration, "ooo", partitionBy)
+                .col("i", ColumnType.INT)
+                .col("s", ColumnType.STRING)
+                .col("sym", ColumnType.SYMBOL).indexed(true, 256)
+                .col("d", ColumnType.DOUBLE)
+                .timestamp()) {
+            CairoTestUtils.create(model);
+        }
+    }
+
     private long append10KWithNewName(long ts, Rnd rnd, TableWriter writer) {
         int productId = writer.getColumnIndex("productId");
         int productName = writer.getColumnIndex("productName");
@@ -3496,6 +3660,91 @@ public class TableWriterTest extends AbstractCairoTest {
         });
     }
 
+    private void testOutOfOrderMerge(int partitionBy, boolean addColumn) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+
+                @Override
+                public long getOutOfOrderPageSize() {
+                    // small pages make staged columns span several of them
+                    return 4096;
+                }
+            };
+            createOutOfOrderTable(configuration, partitionBy);
+
+            final Rnd rnd = new Rnd();
+            final long ts = TimestampFormatUtils.parseDateTime("2020-01-10T00:00:00.000Z");
+            final long step = 10 * 60 * 1000000L;
+            final ArrayList<OutOfOrderRow> expected = new ArrayList<>();
+            final LongHashSet timestamps = new LongHashSet();
+
+            try (TableWriter writer = new TableWriter(configuration, "ooo")) {
+                int k = 0;
+                for (; k < 300; k++) {
+                    timestamps.add(ts + k * step);
+                    appendOutOfOrderRow(writer, rnd, ts + k * step, false, expected);
+                }
+                writer.commit();
+
+                if (addColumn) {
+                    writer.addColumn("extra", ColumnType.INT);
+                    for (; k < 400; k++) {
+                        timestamps.add(ts + k * step);
+                        appendOutOfOrderRow(writer, rnd, ts + k * step, true, expected);
+                    }
+                    writer.commit();
+                }
+
+                try (TableReader reader = new TableReader(configuration, "ooo")) {
+                    assertOutOfOrderRows(reader, expected, addColumn);
+
+                    // rows land in a new older partition, in the middle of existing
+                    // partitions and at the end of the table
+                    for (int i = 0; i < 300; i++) {
+                        long t;
+                        do {
+                            t = ts - Timestamps.DAY_MICROS + rnd.nextPositiveLong() % (4 * Timestamps.DAY_MICROS);
+                        } while (timestamps.contains(t));
+                        timestamps.add(t);
+
+                        if (i % 10 == 0) {
+                            TableWriter.Row r = writer.newRow(t);
+                            r.putInt(0, rnd.nextInt());
+                            r.putStr(1, rnd.nextChars(5));
+                            r.cancel();
+                        }
+                        appendOutOfOrderRow(writer, rnd, t, addColumn, expected);
+                    }
+                    Assert.assertEquals(expected.size(), writer.size());
+                    writer.commit();
+                    Assert.assertEquals(expected.size(), writer.size());
+
+                    expected.sort(Comparator.comparingLong(row -> row.ts));
+                    reader.reload();
+                    assertOutOfOrderRows(reader, expected, addColumn);
+                }
+            }
+
+            try (TableReader reader = new TableReader(configuration, "ooo")) {
+                assertOutOfOrderRows(reader, expected, addColumn);
+            }
+
+            try (TableWriter writer = new TableWriter(configuration, "ooo")) {
+                Assert.assertEquals(expected.size(), writer.size());
+                appendOutOfOrderRow(writer, rnd, expected.get(expected.size() - 1).ts + 1, addColumn, expected);
+                writer.commit();
+            }
+
+            try (TableReader reader = new TableReader(configuration, "ooo")) {
+                assertOutOfOrderRows(reader, expected, addColumn);
+            }
+        });
+    }
+
     private void testRemoveColumn(TableModel model) throws Exception {
         TestUtils.assertMemoryLeak(() -> {
             CairoTestUtils.create(model);
@@ -3946,6 +4195,15 @@ public class TableWriterTest extends AbstractCairoTest {
 
     }
 
+    private static class OutOfOrderRow {
+        long ts;
+        int i;
+        String s;
+        String sym;
+        double d;
+        int extra;
+    }
+
     static class CountingFilesFacade extends FilesFacadeImpl {
         long count = Long.MAX_VALUE;
     }
@@ -0,0 +1,389 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.FilesFacadeImpl;
+import io.questdb.std.Numbers;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WalApplierTest extends AbstractCairoTest {
+    private static final int I = 0;
+    private static final int S = 1;
+    private static final int STR = 2;
+
+    @Test
+    public void testApplyRemovesSegmentsLeftByInterruptedApply() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final boolean[] fail = {true};
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public boolean rmdir(Path name) {
+                    if (fail[0] && Chars.contains(name, Files.SEPARATOR + TableUtils.WAL_DIR_NAME + Files.SEPARATOR)) {
+                        fail[0] = false;
+                        return false;
+                    }
+                    return super.rmdir(name);
+                }
+            };
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+
+            createTable(configuration);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    WalApplier applier = new WalApplier(configuration)
+            ) {
+                try (TableWriter segment = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    append(segment, 0, 1, "a", "abc");
+                    segment.commit();
+                }
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(1, applier.apply(writer));
+                    // segment could not be removed, it is applied already though
+                    Assert.assertTrue(applier.hasSealedSegments("x"));
+                    Assert.assertEquals(0, applier.apply(writer));
+                    Assert.assertFalse(applier.hasSealedSegments("x"));
+                }
+            }
+            assertRows("1:a:abc\n", configuration);
+        });
+    }
+
+    @Test
+    public void testApplyWaitsUntilAppliedSegmentsAreRemoved() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int[] failCount = {2};
+            final FilesFacade ff = new FilesFacadeImpl() {
+                @Override
+                public boolean rmdir(Path name) {
+                    if (failCount[0] > 0 && Chars.contains(name, Files.SEPARATOR + TableUtils.WAL_DIR_NAME + Files.SEPARATOR)) {
+                        failCount[0]--;
+                        return false;
+                    }
+                    return super.rmdir(name);
+                }
+            };
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public FilesFacade getFilesFacade() {
+                    return ff;
+                }
+            };
+
+            createTable(configuration);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    WalApplier applier = new WalApplier(configuration)
+            ) {
+                try (TableWriter segment = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    append(segment, 0, 1, "a", "abc");
+                    segment.commit();
+                }
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(1, applier.apply(writer));
+                    // applied segment is still there, it is not applied again
+                    Assert.assertEquals(0, applier.apply(writer));
+                    Assert.assertTrue(applier.hasSealedSegments("x"));
+                    Assert.assertEquals(1, writer.size());
+
+                    Assert.assertEquals(0, applier.apply(writer));
+                    Assert.assertFalse(applier.hasSealedSegments("x"));
+                }
+            }
+            assertRows("1:a:abc\n", configuration);
+        });
+    }
+
+    @Test
+    public void testColumnAddedAfterSegmentIsNull() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(configuration);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    WalApplier applier = new WalApplier(configuration)
+            ) {
+                try (TableWriter segment = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        writer.addColumn("j", ColumnType.INT);
+                    }
+                    append(segment, 0, 1, "a", "abc");
+                    segment.commit();
+                }
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(1, applier.apply(writer));
+                }
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                final RecordCursor cursor = reader.getCursor();
+                final Record record = cursor.getRecord();
+                Assert.assertTrue(cursor.hasNext());
+                Assert.assertEquals(1, record.getInt(I));
+                Assert.assertEquals(Numbers.INT_NaN, record.getInt(4));
+                Assert.assertFalse(cursor.hasNext());
+            }
+        });
+    }
+
+    @Test
+    public void testJobMergesSegmentsInTimestampOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(configuration);
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    append(writer, 0, 0, "a", "x0");
+                    writer.commit();
+
+                    // producers that could not get the writer
+                    try (
+                            TableWriter segment1 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                            TableWriter segment2 = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+                    ) {
+                        append(segment1, Timestamps.HOUR_MICROS, 1, "b", "x1");
+                        append(segment2, 2 * Timestamps.HOUR_MICROS, 2, "a", null);
+                        append(segment1, 3 * Timestamps.HOUR_MICROS, 3, null, "x3");
+                        append(segment2, Timestamps.DAY_MICROS, 4, "c", "x4");
+                        segment1.commit();
+                        segment2.commit();
+                        // uncommitted rows are discarded
+                        append(segment2, 2 * Timestamps.DAY_MICROS, 5, "c", "x5");
+                    }
+                    Assert.assertTrue(engine.isWalPending("x"));
+                }
+
+                assertRows("0:a:x0\n", configuration);
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                assertRows("0:a:x0\n1:b:x1\n2:a:\n3::x3\n4:c:x4\n", configuration);
+                Assert.assertFalse(engine.isWalPending("x"));
+
+                try (WalApplier applier = new WalApplier(configuration)) {
+                    Assert.assertFalse(applier.hasSealedSegments("x"));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testJobPicksUpSegmentsOfPreviousRun() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(configuration);
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (TableWriter segment = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    append(segment, 0, 1, "a", "abc");
+                    segment.commit();
+                }
+            }
+
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+            }
+            assertRows("1:a:abc\n", configuration);
+        });
+    }
+
+    @Test
+    public void testOlderRowKeepsSegmentUntilItCanBeApplied() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(configuration);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    WalApplier applier = new WalApplier(configuration)
+            ) {
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    try (TableWriter segment = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        append(segment, 0, 1, "a", "abc");
+                        segment.commit();
+                    }
+                    append(writer, Timestamps.HOUR_MICROS, 2, "b", "def");
+                    writer.commit();
+
+                    // out-of-order rows are disabled, acknowledged row is not dropped
+                    try {
+                        applier.apply(writer);
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getMessage(), "Cannot insert rows out of order");
+                    }
+                    Assert.assertTrue(applier.hasSealedSegments("x"));
+                }
+            }
+            assertRows("2:b:def\n", configuration);
+
+            final CairoConfiguration o3Configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+            };
+            try (
+                    CairoEngine engine = new CairoEngine(o3Configuration);
+                    WalApplier applier = new WalApplier(o3Configuration);
+                    TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")
+            ) {
+                Assert.assertEquals(1, applier.apply(writer));
+                Assert.assertFalse(applier.hasSealedSegments("x"));
+            }
+            assertRows("1:a:abc\n2:b:def\n", o3Configuration);
+        });
+    }
+
+    @Test
+    public void testOpenSegmentIsNotApplied() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(configuration);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    WalApplier applier = new WalApplier(configuration)
+            ) {
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    try (TableWriter segment = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        append(segment, 0, 1, "a", "abc");
+                        segment.commit();
+
+                        Assert.assertFalse(applier.hasSealedSegments("x"));
+                        Assert.assertEquals(0, applier.apply(writer));
+                    }
+
+                    // owner of the writer applies segments
+                    Assert.assertTrue(applier.hasSealedSegments("x"));
+                    Assert.assertEquals(1, applier.apply(writer));
+                }
+            }
+            assertRows("1:a:abc\n", configuration);
+        });
+    }
+
+    @Test
+    public void testWriterRemovesSegmentsOfCommittedApply() throws Exception {
+        assertApplyFile(true, "2:b:def\n");
+    }
+
+    @Test
+    public void testWriterKeepsSegmentsOfUncommittedApply() throws Exception {
+        assertApplyFile(false, "2:b:def\n1:a:abc\n");
+    }
+
+    private static void append(TableWriter writer, long timestamp, int i, CharSequence s, CharSequence str) {
+        TableWriter.Row row = writer.newRow(timestamp);
+        row.putInt(I, i);
+        row.putSym(S, s);
+        row.putStr(STR, str);
+        row.append();
+    }
+
+    private static void assertRows(CharSequence expected, CairoConfiguration configuration) {
+        sink.clear();
+        try (TableReader reader = new TableReader(configuration, "x")) {
+            final RecordCursor cursor = reader.getCursor();
+            final Record record = cursor.getRecord();
+            while (cursor.hasNext()) {
+                sink.put(record.getInt(I)).put(':');
+                if (record.getSym(S) != null) {
+                    sink.put(record.getSym(S));
+                }
+                sink.put(':');
+                if (record.getStr(STR) != null) {
+                    sink.put(record.getStr(STR));
+                }
+                sink.put('\n');
+            }
+        }
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private static void createTable(CairoConfiguration configuration) {
+        try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                .col("i", ColumnType.INT)
+                .col("s", ColumnType.SYMBOL)
+                .col("str", ColumnType.STRING)
+                .timestamp("ts")) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private void assertApplyFile(boolean committed, CharSequence expected) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(configuration);
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    WalApplier applier = new WalApplier(configuration)
+            ) {
+                final String segmentName;
+                try (TableWriter segment = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    segmentName = segment.getName().toString();
+                    append(segment, Timestamps.DAY_MICROS, 1, "a", "abc");
+                    segment.commit();
+                }
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    append(writer, 0, 2, "b", "def");
+                    writer.commit();
+                    // apply that crashed after or before its commit
+                    writeApplyFile(writer.getTxn() - (committed ? 1 : 0), Long.parseLong(segmentName));
+                }
+                engine.releaseAllWriters();
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(committed ? 0 : 1, applier.apply(writer));
+                }
+            }
+            assertRows(expected, configuration);
+
+            try (Path path = new Path()) {
+                Assert.assertFalse(configuration.getFilesFacade().exists(
+                        path.of(root).concat("x").concat(TableUtils.WAL_DIR_NAME).concat(TableUtils.WAL_APPLY_FILE_NAME).$()
+                ));
+            }
+        });
+    }
+
+    private void writeApplyFile(long txn, long segmentId) {
+        try (
+                Path path = new Path().of(root).concat("x").concat(TableUtils.WAL_DIR_NAME).concat(TableUtils.WAL_APPLY_FILE_NAME).$();
+                AppendMemory mem = new AppendMemory(configuration.getFilesFacade(), path, configuration.getFilesFacade().getPageSize())
+        ) {
+            mem.putLong(txn);
+            mem.putInt(1);
+            mem.putLong(segmentId);
+        }
+    }
+}
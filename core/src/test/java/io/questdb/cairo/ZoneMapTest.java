@@ -0,0 +1,345 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.Numbers;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ZoneMapTest extends AbstractCairoTest {
+    private static final int I = 0;
+    private static final int D = 1;
+    private static final int S = 2;
+    private static final int TS = 3;
+
+    @Test
+    public void testAddColumn() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 0, 1, 0.5, "a");
+                append(writer, 1, 2, 1.5, "a");
+                writer.commit();
+                writer.addColumn("j", ColumnType.INT);
+                TableWriter.Row row = writer.newRow(2);
+                row.putInt(I, 3);
+                row.putInt(4, 7);
+                row.append();
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertTrue(zoneMap.isValid(4, reader.getColumnTop(reader.getColumnBase(0), 4)));
+                Assert.assertFalse(zoneMap.isValid(4, 0));
+                // rows above column top are nulls
+                Assert.assertEquals(Numbers.INT_NaN, zoneMap.getMinLong(4));
+                Assert.assertEquals(7, zoneMap.getMaxLong(4));
+                Assert.assertEquals(1, zoneMap.getMinLong(I));
+                Assert.assertEquals(3, zoneMap.getMaxLong(I));
+            }
+        });
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                for (int i = 0; i < 10; i++) {
+                    append(writer, i * Timestamps.HOUR_MICROS, i + 1, i == 3 ? Double.NaN : i * 0.5, i % 2 == 0 ? "a" : "b");
+                }
+                for (int i = 0; i < 10; i++) {
+                    append(writer, Timestamps.DAY_MICROS + i * Timestamps.HOUR_MICROS, 100 + i, 10 + i, i == 5 ? null : "c");
+                }
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(2, reader.getPartitionCount());
+
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(10, zoneMap.getRowCount());
+                Assert.assertEquals(1, zoneMap.getMinLong(I));
+                Assert.assertEquals(10, zoneMap.getMaxLong(I));
+                Assert.assertEquals(0, zoneMap.getMinDouble(D), 0);
+                Assert.assertEquals(4.5, zoneMap.getMaxDouble(D), 0);
+                Assert.assertTrue(zoneMap.hasNaN(D));
+                Assert.assertEquals(0, zoneMap.getMinLong(S));
+                Assert.assertEquals(1, zoneMap.getMaxLong(S));
+                Assert.assertEquals(0, zoneMap.getMinLong(TS));
+                Assert.assertEquals(9 * Timestamps.HOUR_MICROS, zoneMap.getMaxLong(TS));
+
+                reader.openPartition(1);
+                Assert.assertTrue(reader.readZoneMap(1, zoneMap));
+                Assert.assertEquals(100, zoneMap.getMinLong(I));
+                Assert.assertEquals(109, zoneMap.getMaxLong(I));
+                Assert.assertEquals(10, zoneMap.getMinDouble(D), 0);
+                Assert.assertEquals(19, zoneMap.getMaxDouble(D), 0);
+                Assert.assertFalse(zoneMap.hasNaN(D));
+                Assert.assertEquals(SymbolTable.VALUE_IS_NULL, zoneMap.getMinLong(S));
+                Assert.assertEquals(2, zoneMap.getMaxLong(S));
+            }
+        });
+    }
+
+    @Test
+    public void testMissingColumnValueIsNull() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.NONE, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                TableWriter.Row row = writer.newRow(0);
+                row.putSym(S, "a");
+                row.append();
+                append(writer, 1, 5, 2.5, "a");
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(Numbers.INT_NaN, zoneMap.getMinLong(I));
+                Assert.assertEquals(5, zoneMap.getMaxLong(I));
+                Assert.assertTrue(zoneMap.hasNaN(D));
+                Assert.assertEquals(2.5, zoneMap.getMinDouble(D), 0);
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+            };
+            createTable(PartitionBy.DAY, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, Timestamps.HOUR_MICROS, 1, 1, "a");
+                append(writer, Timestamps.DAY_MICROS, 100, 100, "a");
+                writer.commit();
+
+                // one row is merged into each partition
+                append(writer, 0, -50, -50, "a");
+                append(writer, Timestamps.DAY_MICROS - 1, 500, 500, "a");
+                append(writer, Timestamps.DAY_MICROS + 1, 200, 200, "a");
+                writer.commit();
+
+                append(writer, Timestamps.DAY_MICROS + 2, 150, 150, "a");
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(3, zoneMap.getRowCount());
+                Assert.assertEquals(-50, zoneMap.getMinLong(I));
+                Assert.assertEquals(500, zoneMap.getMaxLong(I));
+                Assert.assertEquals(0, zoneMap.getMinLong(TS));
+
+                reader.openPartition(1);
+                Assert.assertTrue(reader.readZoneMap(1, zoneMap));
+                Assert.assertEquals(3, zoneMap.getRowCount());
+                Assert.assertEquals(100, zoneMap.getMinLong(I));
+                Assert.assertEquals(200, zoneMap.getMaxLong(I));
+                Assert.assertEquals(200, zoneMap.getMaxDouble(D), 0);
+            }
+        });
+    }
+
+    @Test
+    public void testRebuild() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 0, 1, 1, "a");
+                append(writer, 1, 2, 2, "a");
+                writer.commit();
+            }
+
+            try (Path path = new Path().of(root).concat("x").concat("1970-01-01").concat(TableUtils.ZONE_MAP_FILE_NAME).$()) {
+                Assert.assertTrue(configuration.getFilesFacade().remove(path));
+            }
+
+            // writer has to collect statistics of existing rows from column files
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 2, 3, 3, "a");
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(3, zoneMap.getRowCount());
+                Assert.assertEquals(1, zoneMap.getMinLong(I));
+                Assert.assertEquals(3, zoneMap.getMaxLong(I));
+                Assert.assertEquals(1, zoneMap.getMinDouble(D), 0);
+            }
+        });
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 0, 1, 1, "a");
+                writer.commit();
+                append(writer, 1, 1000, 1000, "a");
+                writer.rollback();
+                append(writer, 2, 2, 2, "a");
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(2, zoneMap.getMaxLong(I));
+                Assert.assertEquals(2, zoneMap.getMaxDouble(D), 0);
+            }
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.NONE, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 0, 1000, 1000, "a");
+                append(writer, 1, 1001, 1001, "a");
+                writer.commit();
+                writer.truncate();
+                append(writer, 2, 1, 1, "a");
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(1, zoneMap.getRowCount());
+                Assert.assertEquals(1, zoneMap.getMaxLong(I));
+            }
+        });
+    }
+
+    @Test
+    public void testStaleZoneMapIsIgnored() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 0, 1, 1, "a");
+                writer.commit();
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                try (TableWriter writer = new TableWriter(configuration, "x")) {
+                    append(writer, 1, 2, 2, "a");
+                    writer.commit();
+
+                    // active partition zone map is written when writer is closed,
+                    // until then reader sees more rows than zone map describes
+                    Assert.assertTrue(reader.reload());
+                    reader.openPartition(0);
+                    Assert.assertFalse(reader.readZoneMap(0, zoneMap));
+
+                    append(writer, 2, 3, 3, "a");
+                    writer.commit();
+                }
+
+                // zone map describes more rows than reader sees, it is still good
+                Assert.assertEquals(2, reader.size());
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(3, zoneMap.getRowCount());
+                Assert.assertEquals(3, zoneMap.getMaxLong(I));
+            }
+        });
+    }
+
+    @Test
+    public void testUncommittedRowsAreIgnored() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable(PartitionBy.DAY, configuration);
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 0, 1, 1, "a");
+                writer.commit();
+                append(writer, 1, 2, 2, "a");
+            }
+
+            final ZoneMap zoneMap = new ZoneMap();
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertFalse(reader.readZoneMap(0, zoneMap));
+            }
+
+            // next writer rebuilds zone map from committed rows
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                append(writer, 2, 3, 3, "a");
+                writer.commit();
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                reader.openPartition(0);
+                Assert.assertTrue(reader.readZoneMap(0, zoneMap));
+                Assert.assertEquals(2, zoneMap.getRowCount());
+                Assert.assertEquals(1, zoneMap.getMinLong(I));
+                Assert.assertEquals(3, zoneMap.getMaxLong(I));
+            }
+        });
+    }
+
+    private static void append(TableWriter writer, long timestamp, int i, double d, CharSequence s) {
+        TableWriter.Row row = writer.newRow(timestamp);
+        row.putInt(I, i);
+        row.putDouble(D, d);
+        row.putSym(S, s);
+        row.append();
+    }
+
+    private static void createTable(int partitionBy, CairoConfiguration configuration) {
+        try (TableModel model = new TableModel(configuration, "x", partitionBy)
+                .col("i", ColumnType.INT)
+                .col("d", ColumnType.DOUBLE)
+                .col("s", ColumnType.SYMBOL)
+                .timestamp("ts")) {
+            CairoTestUtils.create(model);
+        }
+    }
+}
@@ -524,6 +524,39 @@ public class ReaderPoolTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testGetWaitsForReleasedReader() throws Exception {
+        assertWithPool(pool -> {
+            final ObjList<TableReader> readers = new ObjList<>();
+            try {
+                for (int i = 0, n = pool.getMaxEntries(); i < n; i++) {
+                    readers.add(pool.get("u"));
+                }
+
+                final CountDownLatch halt = new CountDownLatch(1);
+                final TableReader released = readers.getQuick(0);
+                new Thread(() -> {
+                    try {
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                        released.close();
+                    } finally {
+                        halt.countDown();
+                    }
+                }).start();
+
+                // pool is full, get() has to wait for the other thread to return its reader
+                try (TableReader reader = pool.get("u")) {
+                    Assert.assertSame(released, reader);
+                }
+                halt.await();
+            } finally {
+                for (int i = 1, n = readers.size(); i < n; i++) {
+                    readers.getQuick(i).close();
+                }
+            }
+        });
+    }
+
     @Test
     public void testLockBusyReader() throws Exception {
         final int readerCount = 5;
@@ -826,6 +859,39 @@ public class ReaderPoolTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testRefreshIdleReaders() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (ReaderPool pool = new ReaderPool(configuration, messageBus)) {
+                final AtomicInteger refreshCount = new AtomicInteger();
+                pool.setPoolListener((factoryType, thread, name, event, segment, position) -> {
+                    if (event == PoolListener.EV_REFRESH) {
+                        refreshCount.incrementAndGet();
+                    }
+                });
+
+                try (TableReader reader = pool.get("u")) {
+                    Assert.assertEquals(0, reader.size());
+                }
+
+                // nothing has been committed yet
+                Assert.assertFalse(pool.refreshIdleReaders());
+
+                try (TableWriter writer = new TableWriter(configuration, "u", messageBus)) {
+                    writer.newRow().append();
+                    writer.commit();
+                }
+
+                Assert.assertTrue(pool.refreshIdleReaders());
+                Assert.assertEquals(1, refreshCount.get());
+
+                try (TableReader reader = pool.get("u")) {
+                    Assert.assertEquals(1, reader.size());
+                }
+            }
+        });
+    }
+
     @Test
     public void testReaderDoubleClose() throws Exception {
         assertWithPool(pool -> {
@@ -62,10 +62,23 @@ import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
 
 public class IODispatcherTest {
     private static final Log LOG = LogFactory.getLog(IODispatcherTest.class);
+    private static final String TAIL_REQUEST = "GET /exp?query=tail&tail=true&limit=2 HTTP/1.1\r\n" +
+            "Host: localhost:9001\r\n" +
+            "Connection: keep-alive\r\n" +
+            "\r\n";
+    private static final String TAIL_RESPONSE_HEADER = "HTTP/1.1 200 OK\r\n" +
+            "Server: questDB/1.0\r\n" +
+            "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+            "Transfer-Encoding: chunked\r\n" +
+            "Content-Type: text/csv; charset=utf-8\r\n" +
+            "Content-Disposition: attachment; filename=\"questdb-query-0.csv\"\r\n" +
+            "Keep-Alive: timeout=5, max=10000\r\n" +
+            "\r\n";
     @Rule
     public TemporaryFolder temp = new TemporaryFolder();
 
     private long configuredMaxQueryResponseRowLimit = Long.MAX_VALUE;
+    private long configuredTailIdleTimeout = Long.MAX_VALUE;
 
     private static void assertDownloadResponse(long fd, Rnd rnd, long buffer, int len, int nonRepeatedContentLength, String expectedResponseHeader, long expectedResponseLen) {
         int expectedHeaderLen = expectedResponseHeader.length();
@@ -5062,6 +5075,122 @@ public class IODispatcherTest {
                         "\r\n");
     }
 
+    @Test
+    public void testTextQueryTail() throws Exception {
+        testTextQueryTail((engine, writer, nf, sockAddr, ptr, len) -> {
+            final long fd = nf.socketTcp(true);
+            try {
+                Assert.assertEquals(0, nf.connect(fd, sockAddr));
+                Assert.assertEquals(0, nf.setTcpNoDelay(fd, true));
+
+                // column names are sent when request is parked
+                sendAndReceive(
+                        nf,
+                        TAIL_REQUEST,
+                        0,
+                        false,
+                        false,
+                        fd,
+                        (TAIL_RESPONSE_HEADER + "05\r\n" + "\"a\"\r\n").getBytes(),
+                        len,
+                        ptr,
+                        null
+                );
+
+                TableWriter.Row row = writer.newRow();
+                row.putInt(0, 2);
+                row.append();
+                row = writer.newRow();
+                row.putInt(0, 3);
+                row.append();
+                writer.commit();
+
+                // commit resumes request, which completes once limit is reached
+                sendAndReceive(
+                        nf,
+                        "",
+                        0,
+                        false,
+                        false,
+                        fd,
+                        ("\r\n" +
+                                "06\r\n" +
+                                "2\r\n" +
+                                "3\r\n" +
+                                "\r\n" +
+                                "00\r\n" +
+                                "\r\n").getBytes(),
+                        len,
+                        ptr,
+                        null
+                );
+            } finally {
+                nf.close(fd);
+            }
+        });
+    }
+
+    @Test
+    public void testTextQueryTailDisconnectReleasesReader() throws Exception {
+        testTextQueryTail((engine, writer, nf, sockAddr, ptr, len) -> {
+            final long fd = nf.socketTcp(true);
+            try {
+                Assert.assertEquals(0, nf.connect(fd, sockAddr));
+                sendAndReceive(
+                        nf,
+                        TAIL_REQUEST,
+                        0,
+                        false,
+                        false,
+                        fd,
+                        (TAIL_RESPONSE_HEADER + "05\r\n" + "\"a\"\r\n").getBytes(),
+                        len,
+                        ptr,
+                        null
+                );
+            } finally {
+                nf.close(fd);
+            }
+
+            // parked request holds reader until it is woken up and finds peer gone
+            Assert.assertEquals(1, engine.getBusyReaderCount());
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (engine.getBusyReaderCount() > 0 && System.currentTimeMillis() < deadline) {
+                // request may not be listening for commits yet
+                engine.releaseInactive();
+                LockSupport.parkNanos(1_000_000);
+            }
+            Assert.assertEquals(0, engine.getBusyReaderCount());
+        });
+    }
+
+    @Test
+    public void testTextQueryTailIdleTimeout() throws Exception {
+        configuredTailIdleTimeout = 0;
+        testTextQueryTail((engine, writer, nf, sockAddr, ptr, len) -> {
+            final long fd = nf.socketTcp(true);
+            try {
+                Assert.assertEquals(0, nf.connect(fd, sockAddr));
+                // table that gets no new rows ends response
+                sendAndReceive(
+                        nf,
+                        TAIL_REQUEST,
+                        0,
+                        false,
+                        false,
+                        fd,
+                        (TAIL_RESPONSE_HEADER + "05\r\n" + "\"a\"\r\n" + "\r\n" + "00\r\n" + "\r\n").getBytes(),
+                        len,
+                        ptr,
+                        null
+                );
+                assertReadersReleased(engine);
+            } finally {
+                nf.close(fd);
+            }
+        });
+    }
+
     @NotNull
     private DefaultHttpServerConfiguration createHttpServerConfiguration(
             String baseDir,
@@ -5168,6 +5297,11 @@ public class IODispatcherTest {
                 public long getMaxQueryResponseRowLimit() {
                     return configuredMaxQueryResponseRowLimit;
                 }
+
+                @Override
+                public long getTailIdleTimeout() {
+                    return configuredTailIdleTimeout;
+                }
             };
 
             @Override
@@ -5217,6 +5351,98 @@ public class IODispatcherTest {
         };
     }
 
+    private void testTextQueryTail(TextQueryTailCode code) throws Exception {
+        assertMemoryLeak(() -> {
+            final String baseDir = temp.getRoot().getAbsolutePath();
+            final DefaultHttpServerConfiguration httpConfiguration = createHttpServerConfiguration(baseDir, false, false);
+            final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+                @Override
+                public int[] getWorkerAffinity() {
+                    return new int[]{-1};
+                }
+
+                @Override
+                public int getWorkerCount() {
+                    return 1;
+                }
+
+                @Override
+                public boolean haltOnError() {
+                    return false;
+                }
+            });
+
+            final DefaultCairoConfiguration cairoConfiguration = new DefaultCairoConfiguration(baseDir);
+            TestUtils.copyMimeTypes(baseDir);
+            final PropServerConfiguration serverConfiguration = new PropServerConfiguration(baseDir, new Properties()) {
+                @Override
+                public CairoConfiguration getCairoConfiguration() {
+                    return cairoConfiguration;
+                }
+            };
+            // writers of the engine wake up parked connections via message bus
+            final MessageBus messageBus = new MessageBusImpl(serverConfiguration);
+
+            try (
+                    CairoEngine engine = new CairoEngine(cairoConfiguration, messageBus);
+                    HttpServer httpServer = new HttpServer(httpConfiguration, workerPool, false)
+            ) {
+                httpServer.bind(new HttpRequestProcessorFactory() {
+                    @Override
+                    public HttpRequestProcessor newInstance() {
+                        return new TextQueryProcessor(
+                                httpConfiguration.getJsonQueryProcessorConfiguration(),
+                                engine,
+                                null,
+                                workerPool.getWorkerCount()
+                        );
+                    }
+
+                    @Override
+                    public String getUrl() {
+                        return "/exp";
+                    }
+                });
+
+                try (TableModel model = new TableModel(cairoConfiguration, "tail", PartitionBy.NONE)) {
+                    model.col("a", ColumnType.INT);
+                    CairoTestUtils.create(model);
+                }
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "tail")) {
+                    // rows that exist before request are not sent
+                    TableWriter.Row row = writer.newRow();
+                    row.putInt(0, 1);
+                    row.append();
+                    writer.commit();
+
+                    workerPool.start(LOG);
+
+                    final NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
+                    final long sockAddr = nf.sockaddr("127.0.0.1", 9001);
+                    final int len = 4096;
+                    final long ptr = Unsafe.malloc(len);
+                    try {
+                        code.run(engine, writer, nf, sockAddr, ptr, len);
+                    } finally {
+                        Unsafe.free(ptr, len);
+                        nf.freeSockAddr(sockAddr);
+                        workerPool.halt();
+                    }
+                }
+            }
+        });
+    }
+
+    private static void assertReadersReleased(CairoEngine engine) {
+        // request is completed by worker thread
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (engine.getBusyReaderCount() > 0 && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        Assert.assertEquals(0, engine.getBusyReaderCount());
+    }
+
     private void sendAndReceive(
             NetworkFacade nf,
             String request,
@@ -5516,6 +5742,11 @@ public class IODispatcherTest {
         void run(CairoEngine engine) throws InterruptedException;
     }
 
+    @FunctionalInterface
+    private interface TextQueryTailCode {
+        void run(CairoEngine engine, TableWriter writer, NetworkFacade nf, long sockAddr, long ptr, int len) throws InterruptedException;
+    }
+
     private interface HttpClientStateListener {
         void onReceived(int nBytes);
 
@@ -30,6 +30,8 @@ import io.questdb.network.NetworkFacadeImpl;
 import io.questdb.std.Unsafe;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.microtime.MicrosecondClockImpl;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.str.StringSink;
 import io.questdb.std.time.MillisecondClockImpl;
 import io.questdb.test.tools.TestUtils;
 
@@ -42,6 +44,10 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
     private boolean disconnected;
     private String recvBuffer;
     private int nWriterThreads;
+    private int writerQueueSize;
+    private int nUpdatesPerLoadRebalance;
+    private boolean startWorkerPool;
+    private int nRecvCalls;
     private WorkerPool workerPool;
 
     private int[] rebalanceLoadByThread;
@@ -442,6 +448,95 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         Assert.assertTrue(loadRatio < 1.05);
     }
 
+    @Test
+    public void testQueueFullStopsSocketReads() throws Exception {
+        nWriterThreads = 1;
+        writerQueueSize = 4;
+        startWorkerPool = false;
+        runInContext(() -> {
+            final StringSink expected = new StringSink();
+            expected.put("location\ttemperature\ttimestamp\n");
+            final StringBuilder lines = new StringBuilder();
+            for (int i = 0; i < 12; i++) {
+                appendMeasurement(lines, expected, "weather", i);
+            }
+            recvBuffer = lines.toString();
+
+            // buffer takes 8 lines, writer queue only 4 of them
+            Assert.assertTrue(context.handleIO());
+            Assert.assertTrue(context.isBlocked());
+            final int nRecv = nRecvCalls;
+            final int nUnread = recvBuffer.length();
+            Assert.assertTrue(nUnread > 0);
+
+            // queue is still full, socket is left unread and lines in the buffer are not parsed again
+            Assert.assertFalse(context.canResume());
+            Assert.assertTrue(context.handleIO());
+            Assert.assertTrue(context.isBlocked());
+            Assert.assertEquals(nRecv, nRecvCalls);
+            Assert.assertEquals(nUnread, recvBuffer.length());
+            Assert.assertFalse(disconnected);
+
+            // lines kept in the buffer are sent again once writer thread drains its queue
+            workerPool.start(LOG);
+            int maxIterations = 1024;
+            while (recvBuffer.length() > 0 || context.isBlocked()) {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+                Assert.assertTrue(--maxIterations > 0);
+                LockSupport.parkNanos(1_000_000);
+            }
+            waitForIOCompletion();
+            closeContext();
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testRebalanceDoesNotWaitForQueueDrain() throws Exception {
+        nWriterThreads = 2;
+        nUpdatesPerLoadRebalance = 10;
+        startWorkerPool = false;
+        runInContext(() -> {
+            final StringSink[] expected = new StringSink[3];
+            for (int n = 0; n < expected.length; n++) {
+                expected[n] = new StringSink();
+                expected[n].put("location\ttemperature\ttimestamp\n");
+            }
+            final StringBuilder lines = new StringBuilder();
+            int i = 0;
+            // weather0 and weather2 are assigned to thread 0, weather1 to thread 1
+            appendMeasurement(lines, expected[0], "weather0", i++);
+            appendMeasurement(lines, expected[1], "weather1", i++);
+            appendMeasurement(lines, expected[2], "weather2", i++);
+            // load of thread 0 moves weather2 to thread 1, no writer thread is running to drain the queues
+            for (int n = 0; n < 12; n++) {
+                appendMeasurement(lines, expected[0], "weather0", i++);
+                if (n % 3 == 0) {
+                    appendMeasurement(lines, expected[2], "weather2", i++);
+                }
+            }
+            // queued for thread 1, which must not write them before thread 0 releases the table
+            for (int n = 0; n < 3; n++) {
+                appendMeasurement(lines, expected[2], "weather2", i++);
+            }
+            recvBuffer = lines.toString();
+            do {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+                Assert.assertFalse(context.isBlocked());
+            } while (recvBuffer.length() > 0);
+            Assert.assertEquals(1, scheduler.getnRebalances());
+
+            workerPool.start(LOG);
+            waitForIOCompletion();
+            closeContext();
+            for (int n = 0; n < expected.length; n++) {
+                assertTable(expected[n], "weather" + n);
+            }
+        });
+    }
+
     @Test
     public void testColumnTypeChange() throws Exception {
         addTable("weather");
@@ -498,6 +593,14 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    private static void appendMeasurement(StringBuilder lines, StringSink expected, String tableName, int i) {
+        final long timestampNanos = 1465839830100400200L + i * 1_000_000L;
+        lines.append(tableName).append(",location=us-midwest temperature=").append(50 + i).append(' ').append(timestampNanos).append('\n');
+        expected.put("us-midwest\t").put(50 + i).put(".0\t");
+        TimestampFormatUtils.appendDateTimeUSec(expected, timestampNanos / 1000);
+        expected.put('\n');
+    }
+
     private void testThreading(int nTables, int nIterations, double[] lf) throws Exception {
         if (null == lf) {
             lf = new double[nTables];
@@ -854,6 +957,7 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
             @Override
             public int recv(long fd, long buffer, int bufferLen) {
                 Assert.assertEquals(FD, fd);
+                nRecvCalls++;
                 if (null == recvBuffer) {
                     return -1;
                 }
@@ -868,6 +972,10 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
             }
         };
         nWriterThreads = 2;
+        writerQueueSize = -1;
+        nUpdatesPerLoadRebalance = -1;
+        startWorkerPool = true;
+        nRecvCalls = 0;
         microSecondTicks = -1;
         lineTcpConfiguration = new DefaultLineTcpReceiverConfiguration() {
             @Override
@@ -885,6 +993,16 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
                 return 128;
             }
 
+            @Override
+            public int getWriterQueueSize() {
+                return writerQueueSize > 0 ? writerQueueSize : super.getWriterQueueSize();
+            }
+
+            @Override
+            public int getnUpdatesPerLoadRebalance() {
+                return nUpdatesPerLoadRebalance > 0 ? nUpdatesPerLoadRebalance : super.getnUpdatesPerLoadRebalance();
+            }
+
             @Override
             public MicrosecondClock getMicrosecondClock() {
                 return new MicrosecondClockImpl() {
@@ -927,11 +1045,11 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
         scheduler = new LineTcpMeasurementScheduler(configuration, lineTcpConfiguration, engine, workerPool) {
             @Override
-            void commitNewEvent(LineTcpMeasurementEvent event, boolean complete) {
+            boolean commitNewEvent(LineTcpMeasurementEvent event) {
                 if (null != onCommitNewEvent) {
                     onCommitNewEvent.run();
                 }
-                super.commitNewEvent(event, complete);
+                return super.commitNewEvent(event);
             }
         };
         context = new LineTcpConnectionContext(lineTcpConfiguration, scheduler, MillisecondClockImpl.INSTANCE);
@@ -971,7 +1089,9 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         Assert.assertFalse(context.invalid());
         Assert.assertEquals(FD, context.getFd());
         Assert.assertEquals(dispatcher, context.getDispatcher());
-        workerPool.start(LOG);
+        if (startWorkerPool) {
+            workerPool.start(LOG);
+        }
     }
 
     private void closeContext() {
@@ -1291,6 +1291,102 @@ public class PGJobContextTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testBinaryResultFormat() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountDownLatch haltLatch = new CountDownLatch(1);
+            final AtomicBoolean running = new AtomicBoolean(true);
+            try {
+                startBasicServer(
+                        NetworkFacadeImpl.INSTANCE,
+                        new DefaultPGWireConfiguration(),
+                        haltLatch,
+                        running
+                );
+
+                final String query = "select" +
+                        " cast(x as int) i," +
+                        " x l," +
+                        " x * 0.5 d," +
+                        " cast(x as float) f," +
+                        " cast(x as short) s," +
+                        " x % 2 = 0 b," +
+                        " cast(x * 1000000 as timestamp) t," +
+                        " cast(x * 86400000 as date) dt," +
+                        " cast(null as int) n," +
+                        " cast(null as double) nd" +
+                        " from long_sequence(3)" +
+                        " where x > ?";
+
+                final StringSink textSink = new StringSink();
+                final StringSink binarySink = new StringSink();
+
+                Properties properties = new Properties();
+                properties.setProperty("user", "admin");
+                properties.setProperty("password", "quest");
+                properties.setProperty("sslmode", "disable");
+                properties.setProperty("binaryTransfer", "false");
+                TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+                try (final Connection connection = DriverManager.getConnection("jdbc:postgresql://127.0.0.1:9120/qdb", properties)) {
+                    PreparedStatement statement = connection.prepareStatement(query);
+                    statement.setLong(1, 0);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        assertResultSet(
+                                "i[INTEGER],l[BIGINT],d[DOUBLE],f[REAL],s[SMALLINT],b[BIT],t[TIMESTAMP],dt[TIMESTAMP],n[INTEGER],nd[DOUBLE]\n" +
+                                        "1,1,0.5,1.0000,1,false,1970-01-01 00:00:01.0,1970-01-02 00:00:00.0,null,null\n" +
+                                        "2,2,1.0,2.0000,2,true,1970-01-01 00:00:02.0,1970-01-03 00:00:00.0,null,null\n" +
+                                        "3,3,1.5,3.0000,3,false,1970-01-01 00:00:03.0,1970-01-04 00:00:00.0,null,null\n",
+                                textSink,
+                                rs
+                        );
+                    }
+                }
+
+                // negative threshold makes driver request binary results and send binary parameters
+                properties.setProperty("binaryTransfer", "true");
+                properties.setProperty("prepareThreshold", "-1");
+                try (final Connection connection = DriverManager.getConnection("jdbc:postgresql://127.0.0.1:9120/qdb", properties)) {
+                    PreparedStatement statement = connection.prepareStatement(query);
+                    statement.setLong(1, 0);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        assertResultSet(textSink.toString(), binarySink, rs);
+                    }
+                }
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+
+    @Test
+    public void testBinaryBindVariables() throws Exception {
+        // boolean true, date 2020-01-01 and timestamp 2020-01-01 10:20:30.123456 bound in binary format
+        assertHexScript(
+                NetworkFacadeImpl.INSTANCE,
+                NetworkFacadeImpl.INSTANCE,
+                ">0000006e00030000757365720078797a0064617461626173650071646200636c69656e745f656e636f64696e67005554463800446174655374796c650049534f0054696d655a6f6e65004575726f70652f4c6f6e646f6e0065787472615f666c6f61745f64696769747300320000\n" +
+                        "<520000000800000003\n" +
+                        ">70000000076f6800\n" +
+                        "<520000000800000000530000001154696d655a6f6e6500474d5400530000001d6170706c69636174696f6e5f6e616d6500517565737444420053000000187365727665725f76657273696f6e0031312e33005300000019696e74656765725f6461746574696d6573006f6e005300000019636c69656e745f656e636f64696e670055544638005a0000000549\n" +
+                        ">50000000410073656c65637420243120622c20243220642c20243320742066726f6d206c6f6e675f73657175656e6365283129000003000000100000043a0000045a4200000027000000010001000300000001010000000400001c890000000800023e1031d8f9c0000044000000065000450000000900000000005300000004\n" +
+                        "<54000000420003620000000000000000000010000000000000000064000000000000000000045a000000000000000074000000000000000000045a0000000000000000\n" +
+                        "<44000000440003000000017400000017323032302d30312d30312030303a30303a30302e3030300000001a323032302d30312d30312031303a32303a33302e313233343536\n" +
+                        "<430000000b53454c454354005a0000000549\n",
+                new DefaultPGWireConfiguration() {
+                    @Override
+                    public String getDefaultPassword() {
+                        return "oh";
+                    }
+
+                    @Override
+                    public String getDefaultUsername() {
+                        return "xyz";
+                    }
+                }
+        );
+    }
+
     @Test
     public void testBlobOverLimit() throws Exception {
         TestUtils.assertMemoryLeak(() -> {
@@ -1430,6 +1526,54 @@ public class PGJobContextTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testFactoryCacheSharedByConnections() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final CountDownLatch haltLatch = new CountDownLatch(1);
+            final AtomicBoolean running = new AtomicBoolean(true);
+            try {
+                startBasicServer(
+                        NetworkFacadeImpl.INSTANCE,
+                        new DefaultPGWireConfiguration(),
+                        haltLatch,
+                        running
+                );
+
+                Properties properties = new Properties();
+                properties.setProperty("user", "admin");
+                properties.setProperty("password", "quest");
+                properties.setProperty("sslmode", "disable");
+
+                final StringSink sink = new StringSink();
+                try (final Connection connection = DriverManager.getConnection("jdbc:postgresql://127.0.0.1:9120/qdb", properties)) {
+                    connection.prepareStatement("create table x as (select cast(x as int) a from long_sequence(2))").execute();
+                }
+
+                // factory compiled by first connection is picked up by the following ones
+                for (int i = 0; i < 3; i++) {
+                    try (final Connection connection = DriverManager.getConnection("jdbc:postgresql://127.0.0.1:9120/qdb", properties)) {
+                        sink.clear();
+                        try (ResultSet rs = connection.prepareStatement("select * from x").executeQuery()) {
+                            assertResultSet("a[INTEGER]\n1\n2\n", sink, rs);
+                        }
+                    }
+                }
+
+                // cached factory is out of date after structure change and has to be recompiled
+                try (final Connection connection = DriverManager.getConnection("jdbc:postgresql://127.0.0.1:9120/qdb", properties)) {
+                    connection.prepareStatement("alter table x add column b int").execute();
+                    sink.clear();
+                    try (ResultSet rs = connection.prepareStatement("select * from x").executeQuery()) {
+                        assertResultSet("a[INTEGER],b[INTEGER]\n1,null\n2,null\n", sink, rs);
+                    }
+                }
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
+
     @Test
     public void testHexFragmentedSend() throws Exception {
         // this is a HEX encoded bytes of the same script as 'testSimple' sends using postgres jdbc driver
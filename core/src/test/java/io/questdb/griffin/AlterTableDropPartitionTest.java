@@ -129,6 +129,30 @@ public class AlterTableDropPartitionTest extends AbstractGriffinTest {
     }
 
 
+    @Test
+    public void testDropTwoPartitionsByHour() throws Exception {
+        assertMemoryLeak(() -> {
+                    createX("HOUR", 60000000);
+
+                    String expectedBeforeDrop = "count\n" +
+                            "60\n";
+
+                    assertPartitionResult(expectedBeforeDrop, "2018-01-01T02");
+                    assertPartitionResult(expectedBeforeDrop, "2018-01-01T05");
+
+                    Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition '2018-01-01T02', '2018-01-01T05'", sqlExecutionContext).getType());
+
+                    String expectedAfterDrop = "count\n" +
+                            "0\n";
+
+                    assertPartitionResult(expectedAfterDrop, "2018-01-01T02");
+                    assertPartitionResult(expectedAfterDrop, "2018-01-01T05");
+                    assertPartitionResult("count\n" +
+                            "60\n", "2018-01-01T03");
+                }
+        );
+    }
+
     @Test
     public void testDropTwoPartitionsByMonth() throws Exception {
         assertMemoryLeak(() -> {
@@ -152,6 +176,29 @@ public class AlterTableDropPartitionTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testDropTwoPartitionsByWeek() throws Exception {
+        assertMemoryLeak(() -> {
+                    createX("WEEK", 7200000000L);
+
+                    String expectedBeforeDrop = "count\n" +
+                            "12\n";
+
+                    assertPartitionResult(expectedBeforeDrop, "2018-01-10");
+                    assertPartitionResult(expectedBeforeDrop, "2018-01-28");
+
+                    Assert.assertEquals(ALTER, compiler.compile("alter table x drop partition '2018-01-08', '2018-01-22'", sqlExecutionContext).getType());
+
+                    String expectedAfterDrop = "count\n" +
+                            "0\n";
+
+                    assertPartitionResult(expectedAfterDrop, "2018-01-10");
+                    assertPartitionResult(expectedAfterDrop, "2018-01-28");
+                    assertPartitionResult(expectedBeforeDrop, "2018-01-15");
+                }
+        );
+    }
+
     @Test
     public void testDropTwoPartitionsByYear() throws Exception {
         assertMemoryLeak(() -> {
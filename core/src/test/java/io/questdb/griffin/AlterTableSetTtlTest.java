@@ -0,0 +1,185 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class AlterTableSetTtlTest extends AbstractGriffinTest {
+
+    @Test
+    public void testExpectNumber() throws Exception {
+        assertFailure("alter table x set ttl abc", 22, "number expected");
+    }
+
+    @Test
+    public void testExpectUnit() throws Exception {
+        assertFailure("alter table x set ttl 1", 23, "'hours', 'days' or 'weeks' expected");
+    }
+
+    @Test
+    public void testInvalidUnit() throws Exception {
+        assertFailure("alter table x set ttl 1 fortnights", 24, "'hours', 'days' or 'weeks' expected");
+    }
+
+    @Test
+    public void testJobRemovesExpiredPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("DAY");
+            // tables without time to live are left alone
+            compiler.compile("create table y as (select * from x) timestamp(timestamp) partition by DAY", sqlExecutionContext);
+
+            Assert.assertEquals(ALTER, compiler.compile("alter table x set ttl 2 days", sqlExecutionContext).getType());
+            Assert.assertTrue(engine.getPartitionTtlJob().run(0));
+
+            assertCount("41\n", "x");
+            assertCount("1000\n", "y");
+
+            // nothing else to remove
+            Assert.assertFalse(engine.getPartitionTtlJob().run(0));
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testJobSkipsBusyWriter() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("DAY");
+            compiler.compile("alter table x set ttl 2 days", sqlExecutionContext);
+
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertFalse(engine.getPartitionTtlJob().run(0));
+                assertCount("1000\n", "x");
+
+                // owner of the writer removes partitions instead
+                Assert.assertEquals(8, writer.removeExpiredPartitions());
+            }
+            assertCount("41\n", "x");
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testNotPartitioned() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("NONE");
+            try {
+                compiler.compile("alter table x set ttl 1 day", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "table is not partitioned");
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testPartitionsWithinTtlAreKept() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("HOUR");
+            compiler.compile("alter table x set ttl 1000000 WEEKS", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertEquals(0, writer.removeExpiredPartitions());
+            }
+            assertCount("1000\n", "x");
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testTtlSurvivesReopenAndAddColumn() throws Exception {
+        assertMemoryLeak(() -> {
+            createX("DAY");
+            compiler.compile("alter table x set ttl 3 hours", sqlExecutionContext);
+            engine.releaseAllWriters();
+
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            engine.releaseAllWriters();
+
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertEquals(3 * Timestamps.HOUR_MICROS, writer.getTtl());
+            }
+
+            compiler.compile("alter table x set ttl 0", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertEquals(0, writer.getTtl());
+                Assert.assertEquals(0, writer.removeExpiredPartitions());
+            }
+            assertCount("1000\n", "x");
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void assertCount(String expected, String tableName) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile("select count() from " + tableName, sqlExecutionContext).getRecordCursorFactory()) {
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), false);
+                TestUtils.assertEquals(expected, sink);
+            }
+        }
+    }
+
+    private void assertFailure(String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                createX("DAY");
+                compiler.compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void createX(String partitionBy) throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_double(0) amt," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 720000000 timestamp" +
+                        " from long_sequence(1000)" +
+                        ") timestamp (timestamp) " +
+                        "partition by " + partitionBy,
+                sqlExecutionContext
+        );
+    }
+}
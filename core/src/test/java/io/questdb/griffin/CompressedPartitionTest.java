@@ -0,0 +1,197 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.std.Files;
+import io.questdb.std.Rnd;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompressedPartitionTest extends AbstractGriffinTest {
+
+    @Before
+    public void setUp3() {
+        SharedRandom.RANDOM.set(new Rnd());
+    }
+
+    @Test
+    public void testCompressAsSelectUnsupportedType() throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                compiler.compile("create table x as (select rnd_int() i, timestamp_sequence(0, 1000000000) t from long_sequence(10)), compress(i) timestamp(t) partition by DAY", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getMessage(), "compression is supported for TIMESTAMP, DOUBLE and SYMBOL columns only");
+            }
+        });
+    }
+
+    @Test
+    public void testCompressOnPartitionSwitch() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables(200_000);
+
+            // commit leaves compression to the job
+            assertCompressed("x", "1970-01-01", "t", false);
+            Assert.assertTrue(engine.getPartitionCompressionJob().run(0));
+            Assert.assertFalse(engine.getPartitionCompressionJob().run(0));
+
+            assertCompressed("x", "1970-01-01", "t", true);
+            assertCompressed("x", "1970-01-01", "d", true);
+            assertCompressed("x", "1970-01-01", "s", true);
+            assertCompressed("x", "1970-01-01", "i", false);
+            // active partition is not compressed
+            assertCompressed("x", "1970-01-03", "t", false);
+            assertCompressed("y", "1970-01-01", "t", false);
+
+            assertSameResult("select * from x", "select * from y");
+            // page frames of compressed columns are smaller, which changes order of floating point additions
+            assertSameResult("select round(sum(d), 6), min(d), max(t), count() from x", "select round(sum(d), 6), min(d), max(t), count() from y");
+            assertSameResult("select s, round(sum(d), 6), count() from x order by s", "select s, round(sum(d), 6), count() from y order by s");
+            assertSameResult("select * from x where t > '1970-01-01T12' and t < '1970-01-02T12' and s = 'a'", "select * from y where t > '1970-01-01T12' and t < '1970-01-02T12' and s = 'a'");
+            assertSameResult("select * from x latest by s", "select * from y latest by s");
+        });
+    }
+
+    @Test
+    public void testOutOfOrderIntoCompressedPartition() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables(1000);
+            Assert.assertTrue(engine.getPartitionCompressionJob().run(0));
+            assertCompressed("x", "1970-01-01", "t", true);
+
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+            };
+
+            engine.releaseAllWriters();
+            for (String table : new String[]{"x", "y"}) {
+                try (TableWriter writer = new TableWriter(configuration, table)) {
+                    final Rnd rnd = new Rnd();
+                    for (int i = 0; i < 100; i++) {
+                        TableWriter.Row row = writer.newRow(rnd.nextPositiveLong() % (2 * Timestamps.DAY_MICROS));
+                        row.putInt(0, rnd.nextInt());
+                        row.putDouble(1, rnd.nextDouble());
+                        row.putSym(2, rnd.nextBoolean() ? "a" : "b");
+                        row.append();
+                    }
+                    writer.commit();
+                    // writer is not pooled, its owner compresses partitions
+                    writer.compressPartitions();
+                }
+            }
+
+            assertCompressed("x", "1970-01-01", "t", true);
+            assertCompressed("x", "1970-01-01", "d", true);
+            assertCompressed("x", "1970-01-02", "s", true);
+            assertSameResult("select * from x", "select * from y");
+        });
+    }
+
+    @Test
+    public void testCompressWhenWriterIsReturnedToPool() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables(1000);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                // writer is busy, job leaves its partitions alone
+                Assert.assertFalse(engine.getPartitionCompressionJob().run(0));
+                assertCompressed("x", "1970-01-01", "t", false);
+                Assert.assertTrue(writer.hasPartitionsToCompress());
+            }
+            Assert.assertTrue(engine.getPartitionCompressionJob().run(0));
+            assertCompressed("x", "1970-01-01", "t", true);
+            assertCompressed("x", "1970-01-02", "t", true);
+            assertCompressed("x", "1970-01-03", "t", false);
+        });
+    }
+
+    @Test
+    public void testCompressPartitionsLeftByClosedWriter() throws Exception {
+        assertMemoryLeak(() -> {
+            createTables(1000);
+            // writer is closed before job gets to it, next writer finds raw partitions
+            engine.releaseAllWriters();
+            Assert.assertFalse(engine.getPartitionCompressionJob().run(0));
+            assertCompressed("x", "1970-01-01", "t", false);
+
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertTrue(writer.hasPartitionsToCompress());
+            }
+            Assert.assertTrue(engine.getPartitionCompressionJob().run(0));
+            assertCompressed("x", "1970-01-01", "t", true);
+            assertSameResult("select * from x", "select * from y");
+        });
+    }
+
+    private static void assertCompressed(String tableName, String partitionName, String columnName, boolean compressed) {
+        try (Path path = new Path()) {
+            path.of(root).concat(tableName).concat(partitionName).concat(columnName);
+            final int len = path.length();
+            Assert.assertEquals(compressed, Files.exists(path.put(".dz").$()));
+            Assert.assertEquals(!compressed, Files.exists(path.trimTo(len).put(".d").$()));
+        }
+    }
+
+    private static void assertSameResult(String query, String expectedQuery) throws SqlException {
+        final String expected = print(expectedQuery);
+        TestUtils.assertEquals(expected, print(query));
+    }
+
+    private static void createTables(int count) throws SqlException {
+        final String select = "select" +
+                " rnd_int() i," +
+                " rnd_double() d," +
+                " rnd_symbol('a', 'b', 'c', null) s," +
+                " timestamp_sequence(0, " + (3 * Timestamps.DAY_MICROS - 1) / count + ") t" +
+                " from long_sequence(" + count + ")";
+        compiler.compile("create table x as (" + select + "), compress(t), compress(d), compress(s) timestamp(t) partition by DAY", sqlExecutionContext);
+        SharedRandom.RANDOM.set(new Rnd());
+        compiler.compile("create table y as (" + select + ") timestamp(t) partition by DAY", sqlExecutionContext);
+    }
+
+    private static String print(String query) throws SqlException {
+        try (
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            sink.clear();
+            printer.print(cursor, factory.getMetadata(), true);
+            return sink.toString();
+        }
+    }
+}
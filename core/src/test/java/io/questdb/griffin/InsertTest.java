@@ -29,19 +29,24 @@ import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.InsertMethod;
 import io.questdb.cairo.sql.InsertStatement;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.WriterOutOfDateException;
 import io.questdb.griffin.engine.TestBinarySequence;
 import io.questdb.griffin.engine.functions.bind.BindVariableService;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
-import io.questdb.std.BinarySequence;
-import io.questdb.std.Long256;
-import io.questdb.std.Rnd;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.std.*;
 import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class InsertTest extends AbstractGriffinTest {
 
     @Before
@@ -90,6 +95,153 @@ public class InsertTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testInsertContendedWriterReusesWalSegments() throws Exception {
+        final int threadCount = 4;
+        final int insertCount = 250;
+        final int maxSegmentRows = 100;
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public long getWalSegmentMaxAge() {
+                return 60_000;
+            }
+
+            @Override
+            public long getWalSegmentMaxRows() {
+                return maxSegmentRows;
+            }
+
+            @Override
+            public boolean isOutOfOrderEnabled() {
+                return true;
+            }
+
+            @Override
+            public boolean isWalEnabled() {
+                return true;
+            }
+        };
+
+        assertMemoryLeak(() -> {
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                    compiler.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+                }
+
+                final CyclicBarrier startBarrier = new CyclicBarrier(threadCount);
+                final SOCountDownLatch doneLatch = new SOCountDownLatch(threadCount);
+                final AtomicInteger errors = new AtomicInteger();
+                try (TableWriter ignored = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    for (int t = 0; t < threadCount; t++) {
+                        final int thread = t;
+                        new Thread(() -> {
+                            final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                                    .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null, -1, null);
+                            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                                startBarrier.await();
+                                for (int i = 0; i < insertCount; i++) {
+                                    final int value = thread * insertCount + i;
+                                    final InsertStatement insert = compiler.compile(
+                                            "insert into x values (" + value + ", " + value + "L)",
+                                            executionContext
+                                    ).getInsertStatement();
+                                    try (InsertMethod method = insert.createMethod(executionContext)) {
+                                        method.execute();
+                                        method.commit();
+                                    }
+                                }
+                            } catch (Throwable e) {
+                                e.printStackTrace();
+                                errors.incrementAndGet();
+                            } finally {
+                                doneLatch.countDown();
+                            }
+                        }).start();
+                    }
+                    doneLatch.await();
+                }
+                Assert.assertEquals(0, errors.get());
+
+                // every insert found the writer busy, connections reuse their segments instead of creating one each
+                engine.releaseAllWriters();
+                final int segmentCount = walSegmentCount(configuration);
+                Assert.assertTrue(segmentCount > 0);
+                Assert.assertTrue(segmentCount <= threadCount + threadCount * insertCount / maxSegmentRows);
+
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(threadCount * insertCount, reader.size());
+                    final RecordCursor cursor = reader.getCursor();
+                    final Record record = cursor.getRecord();
+                    int expected = 0;
+                    while (cursor.hasNext()) {
+                        Assert.assertEquals(expected++, record.getInt(0));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testInsertOlderRowWhileWriterIsHeld() throws Exception {
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isOutOfOrderEnabled() {
+                return true;
+            }
+
+            @Override
+            public boolean isWalEnabled() {
+                return true;
+            }
+        };
+
+        assertMemoryLeak(() -> {
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null, -1, null);
+                try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                    compiler.compile("create table x (i int, ts timestamp) timestamp(ts) partition by DAY", executionContext);
+                    executeInsert(compiler, executionContext, "insert into x values (1, 2000000L)");
+
+                    try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                        TableWriter.Row row = writer.newRow(5000000L);
+                        row.putInt(0, 3);
+                        row.append();
+                        writer.commit();
+
+                        // writer is busy, row goes to write-ahead log and is older than rows of the table
+                        final AtomicInteger errors = new AtomicInteger();
+                        final Thread producer = new Thread(() -> {
+                            try (SqlCompiler producerCompiler = new SqlCompiler(engine)) {
+                                executeInsert(producerCompiler, executionContext, "insert into x values (2, 1000000L)");
+                            } catch (Throwable e) {
+                                e.printStackTrace();
+                                errors.incrementAndGet();
+                            }
+                        });
+                        producer.start();
+                        producer.join();
+                        Assert.assertEquals(0, errors.get());
+                    }
+                }
+
+                engine.releaseAllWriters();
+                Assert.assertTrue(engine.getWalApplyJob().run(0));
+                Assert.assertEquals(0, walSegmentCount(configuration));
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    final RecordCursor cursor = reader.getCursor();
+                    final Record record = cursor.getRecord();
+                    final StringSink sink = new StringSink();
+                    while (cursor.hasNext()) {
+                        sink.put(record.getInt(0)).put(':').put(record.getTimestamp(1)).put('\n');
+                    }
+                    TestUtils.assertEquals("2:1000000\n1:2000000\n3:5000000\n", sink);
+                }
+            }
+        });
+    }
+
     @Test
     public void testInsertContextSwitch() throws Exception {
         assertMemoryLeak(() -> {
@@ -504,6 +656,27 @@ public class InsertTest extends AbstractGriffinTest {
         });
     }
 
+    private static void executeInsert(SqlCompiler compiler, SqlExecutionContext executionContext, String sql) throws SqlException {
+        final InsertStatement insert = compiler.compile(sql, executionContext).getInsertStatement();
+        try (InsertMethod method = insert.createMethod(executionContext)) {
+            method.execute();
+            method.commit();
+        }
+    }
+
+    private static int walSegmentCount(CairoConfiguration configuration) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final int[] count = {0};
+        try (Path path = new Path()) {
+            ff.iterateDir(path.of(root).concat("x").concat("wal").$(), (name, type) -> {
+                if (type == Files.DT_DIR && Unsafe.getUnsafe().getByte(name) != '.') {
+                    count[0]++;
+                }
+            });
+        }
+        return count[0];
+    }
+
     private void testBindVariableInsert(
             int partitionBy,
             TimestampFunction timestampFunction
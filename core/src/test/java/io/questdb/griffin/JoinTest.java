@@ -2388,6 +2388,47 @@ public class JoinTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testJoinInnerSmallerMasterHashed() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select cast(x as int) c, rnd_symbol('A','B','C') s from long_sequence(3))", sqlExecutionContext);
+            compiler.compile("create table y as (select cast(x as int) n, cast((x-1)%4 + 1 as int) c, rnd_symbol('D','E') t from long_sequence(12))", sqlExecutionContext);
+
+            // y is hashed, output follows x
+            assertQuery(
+                    "c\ts\tn\tt\n" +
+                            "1\tA\t1\tE\n" +
+                            "1\tA\t5\tE\n" +
+                            "1\tA\t9\tD\n" +
+                            "2\tA\t2\tE\n" +
+                            "2\tA\t6\tD\n" +
+                            "2\tA\t10\tD\n" +
+                            "3\tB\t3\tE\n" +
+                            "3\tB\t7\tD\n" +
+                            "3\tB\t11\tE\n",
+                    "select x.c, x.s, y.n, y.t from x join y on (c)",
+                    null
+            );
+
+            // join output order is irrelevant under "order by", smaller x is hashed instead of y
+            assertQuery(
+                    "c\ts\tn\tt\n" +
+                            "1\tA\t1\tE\n" +
+                            "2\tA\t2\tE\n" +
+                            "3\tB\t3\tE\n" +
+                            "1\tA\t5\tE\n" +
+                            "2\tA\t6\tD\n" +
+                            "3\tB\t7\tD\n" +
+                            "1\tA\t9\tD\n" +
+                            "2\tA\t10\tD\n" +
+                            "3\tB\t11\tE\n",
+                    "select x.c, x.s, y.n, y.t from x join y on (c) order by y.n",
+                    null,
+                    true
+            );
+        });
+    }
+
     @Test
     public void testJoinInnerNoSlaveRecords() throws Exception {
         assertMemoryLeak(() -> {
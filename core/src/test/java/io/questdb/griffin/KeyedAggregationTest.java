@@ -24,14 +24,24 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.groupby.vect.GroupByEncodedKeyRecordCursorFactory;
+import io.questdb.griffin.engine.groupby.vect.GroupByNotKeyedJob;
+import io.questdb.mp.SOCountDownLatch;
 import io.questdb.std.Rnd;
 import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class KeyedAggregationTest extends AbstractGriffinTest {
     @Before
     public void setUp3() {
@@ -865,4 +875,165 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
             }
         });
     }
+
+    @Test
+    public void testLongKey() throws Exception {
+        // groups are returned in order of key appearance
+        assertQuery(
+                "k\tsum\tcount\tmin\tmax\n" +
+                        "1\t1225.0\t25\t1.0\t97.0\n" +
+                        "2\t1250.0\t25\t2.0\t98.0\n" +
+                        "3\t1275.0\t25\t3.0\t99.0\n" +
+                        "0\t1300.0\t25\t4.0\t100.0\n",
+                "select k, sum(val), count(), min(val), max(val) from tab",
+                "create table tab as (select x % 4 k, cast(x as double) val from long_sequence(100))",
+                null,
+                true
+        );
+    }
+
+    @Test
+    public void testLongKeyRostiResize() throws Exception {
+        // many more keys than initial Rosti capacity, slots added after resize must start from initial values
+        assertQuery(
+                "count\tsum\tsum1\tsum2\tsum3\n" +
+                        "100000\t4999950000\t-25000050000\t-5000050000\t300000\n",
+                "select count(), sum(k), sum(mi), sum(ma), sum(c) from (select k, min(v) mi, max(v) ma, count() c from tab)",
+                "create table tab as (select x % 100000 k, cast(-x as long) v from long_sequence(300000))",
+                null,
+                false
+        );
+    }
+
+    @Test
+    public void testLongKeyAddKeyMidTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_double(2) val from long_sequence(1000000))", sqlExecutionContext);
+            compiler.compile("alter table tab add column k long", sqlExecutionContext);
+            compiler.compile("insert into tab select rnd_double(2), rnd_long(1, 3, 2) from long_sequence(1000000)", sqlExecutionContext);
+
+            try (
+                    RecordCursorFactory factory = compiler.compile("select k, sum(val), avg(val) from tab order by k", sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                String expected = "k\tsum\tavg\n" +
+                        "NaN\t485912.581893252\t0.49975479006857126\n" +
+                        "1\t115770.72892586711\t0.4996212143514162\n" +
+                        "2\t115674.13758285563\t0.49992496243395423\n" +
+                        "3\t115831.98084916279\t0.5003195496171443\n";
+
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+        });
+    }
+
+    @Test
+    public void testSymbolSymbolKey() throws Exception {
+        assertQuery(
+                "s1\ts2\tsum\tmin\tmax\n" +
+                        "\t\t34782.2814686313\t-100\t100\n" +
+                        "\ta1\t34739.04922972968\t-100\t100\n" +
+                        "\ta2\t34719.55052690107\t-100\t100\n" +
+                        "\ta3\t34699.433127682525\t-100\t100\n" +
+                        "s1\t\t34522.98581677843\t-100\t100\n" +
+                        "s1\ta1\t34534.29215422548\t-100\t100\n" +
+                        "s1\ta2\t34596.206329535176\t-100\t100\n" +
+                        "s1\ta3\t34722.619337245866\t-100\t100\n" +
+                        "s2\t\t34790.146370027134\t-100\t100\n" +
+                        "s2\ta1\t34611.855098651475\t-100\t100\n" +
+                        "s2\ta2\t34686.20941954345\t-100\t100\n" +
+                        "s2\ta3\t34690.46731715228\t-100\t100\n",
+                "select s1, s2, sum(val), min(l), max(l) from tab order by s1, s2",
+                "create table tab as (select rnd_symbol('s1','s2', null) s1, rnd_symbol('a1','a2','a3', null) s2, rnd_double(2) val, rnd_long(-100, 100, 2) l from long_sequence(1000000))",
+                null,
+                true
+        );
+    }
+
+    @Test
+    public void testEncodedKeysDisabled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_symbol('s1','s2', null) s1, rnd_long(0, 1000, 2) k, rnd_double(2) val from long_sequence(1000))", sqlExecutionContext);
+
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlGroupByEncodedKeysEnabled() {
+                    return false;
+                }
+            };
+
+            final String[] queries = {
+                    "select k, sum(val) from tab",
+                    "select s1, k, sum(val) from tab"
+            };
+
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, messageBus);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                for (String query : queries) {
+                    try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+                        Assert.assertFalse(factory instanceof GroupByEncodedKeyRecordCursorFactory);
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testEncodedKeysParallel() throws Exception {
+        final int workerCount = 4;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table tab as (select rnd_symbol('s1','s2', null) s1, rnd_long(0, 1000, 2) k, rnd_double(2) val, rnd_int(0, 100, 2) i, timestamp_sequence(0, 1000000) ts from long_sequence(300000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final String query = "select s1, k, sum(i), count(), max(val) from tab order by s1, k";
+            final String expected;
+            try (
+                    RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+            ) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                expected = sink.toString();
+            }
+
+            final GroupByNotKeyedJob job = new GroupByNotKeyedJob(messageBus);
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final SOCountDownLatch haltLatch = new SOCountDownLatch(workerCount - 1);
+            // worker 0 is the thread executing query
+            for (int i = 1; i < workerCount; i++) {
+                final int workerId = i;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+
+            try {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, workerCount, engine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                try (RecordCursorFactory factory = compiler.compile("select s1, k, sum(i), count(), max(val) from tab", executionContext).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory instanceof GroupByEncodedKeyRecordCursorFactory);
+                }
+
+                try (
+                        RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory();
+                        RecordCursor cursor = factory.getCursor(executionContext)
+                ) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true);
+                    TestUtils.assertEquals(expected, sink);
+                }
+            } finally {
+                running.set(false);
+                haltLatch.await();
+            }
+        });
+    }
 }
@@ -24,6 +24,8 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.std.Rnd;
 import io.questdb.test.tools.TestUtils;
@@ -403,6 +405,30 @@ public class LimitTest extends AbstractGriffinTest {
         testLimit(expected, expected, "select * from y limit 0,5");
     }
 
+    @Test
+    public void testTopNOrderBy() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table z as (select rnd_int(0, 20, 0) a, rnd_symbol('x','y') s, x n from long_sequence(1000))", sqlExecutionContext);
+
+            // top N rows must be exactly those of the fully sorted cursor, ties included
+            final String[] orderBy = {"a", "a desc", "s, a desc", "a, n desc"};
+            final String[] limits = {"0", "1", "7", "3,17", "999", "1000", "5000"};
+            for (int i = 0; i < orderBy.length; i++) {
+                for (int j = 0; j < limits.length; j++) {
+                    final String expected;
+                    try (RecordCursorFactory factory = compiler.compile("select * from (select * from z order by " + orderBy[i] + ") limit " + limits[j], sqlExecutionContext).getRecordCursorFactory()) {
+                        try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                            sink.clear();
+                            printer.print(cursor, factory.getMetadata(), true);
+                            expected = sink.toString();
+                        }
+                    }
+                    assertQuery(expected, "select * from z order by " + orderBy[i] + " limit " + limits[j], null, true);
+                }
+            }
+        });
+    }
+
     @Test
     public void testTopNIndexVariable() throws Exception {
         String query = "select * from y limit $1";
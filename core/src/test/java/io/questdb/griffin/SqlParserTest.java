@@ -102,12 +102,13 @@ public class SqlParserTest extends AbstractGriffinTest {
     @Test
     public void testAnalyticOrderDirection() throws Exception {
         assertQuery(
-                "select-analytic a, b, f(c) my over (partition by b order by ts desc, x, y) from (select [a, b, c] from xyz)",
+                "select-analytic a, b, f(c) my over (partition by b order by ts desc, x, y) from (select [a, b, c, ts, x, y] from xyz)",
                 "select a,b, f(c) my over (partition by b order by ts desc, x asc, y) from xyz",
                 modelOf("xyz")
                         .col("a", ColumnType.INT)
                         .col("b", ColumnType.INT)
                         .col("c", ColumnType.INT)
+                        .col("ts", ColumnType.TIMESTAMP)
                         .col("x", ColumnType.INT)
                         .col("y", ColumnType.INT)
                         .col("z", ColumnType.INT)
@@ -169,9 +170,9 @@ public class SqlParserTest extends AbstractGriffinTest {
     @Test
     public void testAnalyticPartitionByMultiple() throws Exception {
         assertQuery(
-                "select-analytic a, b, f(c) my over (partition by b, a order by ts), d(c) d over () from (select [a, b, c] from xyz)",
+                "select-analytic a, b, f(c) my over (partition by b, a order by ts), d(c) d over () from (select [a, b, c, ts] from xyz)",
                 "select a,b, f(c) my over (partition by b, a order by ts), d(c) over() from xyz",
-                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT)
+                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
         );
     }
 
@@ -683,6 +684,23 @@ public class SqlParserTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testCreateTableCompress() throws SqlException {
+        assertCreateTable(
+                "create table x (a INT, f DOUBLE, s SYMBOL capacity 128 cache, t TIMESTAMP), compress(f), compress(s), compress(t) timestamp(t) partition by DAY",
+                "create table x (a INT, f DOUBLE, s SYMBOL, t TIMESTAMP), compress(t), compress(f), compress(s) timestamp(t) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testCreateTableCompressUnsupportedType() throws Exception {
+        assertSyntaxError(
+                "create table x (a INT, t TIMESTAMP), compress(a) timestamp(t) partition by DAY",
+                46,
+                "compression is supported for TIMESTAMP, DOUBLE and SYMBOL columns only"
+        );
+    }
+
     @Test
     public void testCreateTableCacheCapacity() throws SqlException {
         assertCreateTable("create table x (" +
@@ -1149,7 +1167,7 @@ public class SqlParserTest extends AbstractGriffinTest {
                         "timestamp(t) " +
                         "partition by EPOCH",
                 128,
-                "'NONE', 'DAY', 'MONTH' or 'YEAR' expected"
+                "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"
         );
     }
 
@@ -3019,23 +3037,38 @@ public class SqlParserTest extends AbstractGriffinTest {
     @Test
     public void testOneAnalyticColumn() throws Exception {
         assertQuery(
-                "select-analytic a, b, f(c) f over (partition by b order by ts) from (select [a, b, c] from xyz)",
+                "select-analytic a, b, f(c) f over (partition by b order by ts) from (select [a, b, c, ts] from xyz)",
                 "select a,b, f(c) over (partition by b order by ts) from xyz",
                 modelOf("xyz")
                         .col("a", ColumnType.INT)
                         .col("b", ColumnType.INT)
                         .col("c", ColumnType.INT)
+                        .col("ts", ColumnType.TIMESTAMP)
+        );
+    }
+
+    @Test
+    public void testOneAnalyticColumnAliasAfterOver() throws Exception {
+        assertQuery(
+                "select-analytic a, b, f(c) x over (partition by b order by ts) from (select [a, b, c, ts] from xyz)",
+                "select a,b, f(c) over (partition by b order by ts) as x from xyz",
+                modelOf("xyz")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.INT)
+                        .col("c", ColumnType.INT)
+                        .col("ts", ColumnType.TIMESTAMP)
         );
     }
 
     @Test
     public void testOneAnalyticColumnAndLimit() throws Exception {
-        assertQuery("select-analytic a, b, f(c) f over (partition by b order by ts) from (select [a, b, c] from xyz) limit 200",
+        assertQuery("select-analytic a, b, f(c) f over (partition by b order by ts) from (select [a, b, c, ts] from xyz) limit 200",
                 "select a,b, f(c) over (partition by b order by ts) from xyz limit 200",
                 modelOf("xyz")
                         .col("a", ColumnType.INT)
                         .col("b", ColumnType.INT)
                         .col("c", ColumnType.INT)
+                        .col("ts", ColumnType.TIMESTAMP)
         );
     }
 
@@ -4756,9 +4789,9 @@ public class SqlParserTest extends AbstractGriffinTest {
     @Test
     public void testTwoAnalyticColumns() throws Exception {
         assertQuery(
-                "select-analytic a, b, f(c) my over (partition by b order by ts), d(c) d over () from (select [a, b, c] from xyz)",
+                "select-analytic a, b, f(c) my over (partition by b order by ts), d(c) d over () from (select [a, b, c, ts] from xyz)",
                 "select a,b, f(c) my over (partition by b order by ts), d(c) over() from xyz",
-                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT)
+                modelOf("xyz").col("c", ColumnType.INT).col("b", ColumnType.INT).col("a", ColumnType.INT).col("ts", ColumnType.TIMESTAMP)
         );
     }
 
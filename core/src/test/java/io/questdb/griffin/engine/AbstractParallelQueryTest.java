@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.Job;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+
+import java.util.Arrays;
+
+/**
+ * Compares output of query executed on worker pool with output of same query executed on single thread.
+ * Size of worker pool is varied independently of worker count query is compiled for, pool that is
+ * larger than the latter has workers that must stay away from the query.
+ */
+public abstract class AbstractParallelQueryTest extends AbstractGriffinTest {
+    private static final Log LOG = LogFactory.getLog(AbstractParallelQueryTest.class);
+    // pairs of pool worker count and worker count query is compiled for
+    private static final int[][] WORKER_COUNTS = {{4, 4}, {1, 4}, {6, 2}};
+
+    protected void assertParallelQuery(
+            CairoConfiguration parallelConfiguration,
+            Job job,
+            String query,
+            FactoryAssertion serialAssertion,
+            FactoryAssertion parallelAssertion,
+            String... ddl
+    ) throws Exception {
+        assertParallelQuery(parallelConfiguration, job, WORKER_COUNTS, query, serialAssertion, parallelAssertion, ddl);
+    }
+
+    protected void assertParallelQuery(
+            CairoConfiguration parallelConfiguration,
+            Job job,
+            int[][] workerCounts,
+            String query,
+            FactoryAssertion serialAssertion,
+            FactoryAssertion parallelAssertion,
+            String... ddl
+    ) throws Exception {
+        assertMemoryLeak(() -> {
+            for (int i = 0; i < ddl.length; i++) {
+                compiler.compile(ddl[i], sqlExecutionContext);
+            }
+
+            final String expected;
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                serialAssertion.assertFactory(factory);
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true);
+                    expected = sink.toString();
+                }
+            }
+
+            for (int i = 0; i < workerCounts.length; i++) {
+                assertParallelQuery(parallelConfiguration, job, workerCounts[i][0], workerCounts[i][1], query, expected, parallelAssertion);
+            }
+        });
+    }
+
+    private void assertParallelQuery(
+            CairoConfiguration parallelConfiguration,
+            Job job,
+            int poolWorkerCount,
+            int queryWorkerCount,
+            String query,
+            String expected,
+            FactoryAssertion parallelAssertion
+    ) throws Exception {
+        final WorkerPool pool = new WorkerPool(new WorkerPoolConfiguration() {
+            @Override
+            public int[] getWorkerAffinity() {
+                final int[] affinity = new int[poolWorkerCount];
+                Arrays.fill(affinity, -1);
+                return affinity;
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return poolWorkerCount;
+            }
+
+            @Override
+            public boolean haltOnError() {
+                return false;
+            }
+        });
+        pool.assign(job);
+        pool.start(LOG);
+
+        try (
+                CairoEngine engine = new CairoEngine(parallelConfiguration, messageBus);
+                SqlCompiler compiler = new SqlCompiler(engine)
+        ) {
+            final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, queryWorkerCount, engine)
+                    .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+
+            try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+                parallelAssertion.assertFactory(factory);
+                try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                    assertOnce(expected, cursor, factory.getMetadata(), true);
+                    cursor.toTop();
+                    assertOnce(expected, cursor, factory.getMetadata(), true);
+                }
+
+                // factory is reusable for subsequent cursors
+                try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                    assertOnce(expected, cursor, factory.getMetadata(), true);
+                }
+
+                // cursor that is closed before it is fully consumed
+                try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                    Assert.assertEquals(expected.indexOf('\n') < expected.length() - 1, cursor.hasNext());
+                }
+            }
+
+            Assert.assertEquals(0, engine.getBusyReaderCount());
+            Assert.assertEquals(0, engine.getBusyWriterCount());
+        } finally {
+            pool.halt();
+        }
+    }
+
+    @FunctionalInterface
+    protected interface FactoryAssertion {
+        void assertFactory(RecordCursorFactory factory);
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.test.tools.TestUtils;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assert;
+
+import java.io.File;
+
+/**
+ * Compares output of query executed in memory with output of same query executed with memory budget
+ * small enough to spill to disk. Spill files must exist while cursor is open and be gone after it is closed.
+ */
+public abstract class AbstractSpillTest extends AbstractGriffinTest {
+
+    protected static int spillFileCount(String spillDirName) {
+        final String[] files = new File(root.toString(), spillDirName).list();
+        return files == null ? 0 : files.length;
+    }
+
+    protected void assertSpill(
+            String query,
+            @Nullable Class<?> expectedFactoryClass,
+            CairoConfiguration spillConfiguration,
+            String spillDirName,
+            String... ddl
+    ) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            for (int i = 0; i < ddl.length; i++) {
+                compiler.compile(ddl[i], sqlExecutionContext);
+            }
+
+            // expected rows are produced in memory
+            final String expected;
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                assertFactoryClass(expectedFactoryClass, factory);
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true);
+                    expected = sink.toString();
+                }
+            }
+
+            try (
+                    CairoEngine engine = new CairoEngine(spillConfiguration, messageBus);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+                    assertFactoryClass(expectedFactoryClass, factory);
+                    // header only result does not spill anything
+                    final boolean spills = expected.indexOf('\n') < expected.length() - 1;
+                    for (int i = 0; i < 2; i++) {
+                        try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                            Assert.assertEquals(spills, spillFileCount(spillDirName) > 0);
+                            assertOnce(expected, cursor, factory.getMetadata(), true);
+                            cursor.toTop();
+                            assertOnce(expected, cursor, factory.getMetadata(), true);
+                        }
+                        Assert.assertEquals(0, spillFileCount(spillDirName));
+                    }
+                }
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private static void assertFactoryClass(@Nullable Class<?> expectedFactoryClass, RecordCursorFactory factory) {
+        if (expectedFactoryClass != null) {
+            Assert.assertTrue(factory.getClass().getName(), expectedFactoryClass.isInstance(factory));
+        }
+    }
+}
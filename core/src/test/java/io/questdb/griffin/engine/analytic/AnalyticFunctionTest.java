@@ -0,0 +1,222 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.analytic;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AnalyticFunctionTest extends AbstractGriffinTest {
+    private static final String DDL = "create table t as (" +
+            "select" +
+            " cast(case when x % 3 = 0 then 'a' else 'b' end as symbol) s," +
+            " cast(x as double) v," +
+            " cast((x / 2) * 1000000 as timestamp) ts" +
+            " from long_sequence(8)" +
+            ") timestamp(ts)";
+    // null partition key and timestamps as well as values shared by several rows
+    private static final String NULL_AND_TIES_DDL = "create table n as (" +
+            "select" +
+            " cast(case when x % 3 = 0 then null when x % 3 = 1 then 'a' else 'b' end as symbol) s," +
+            " cast(x % 4 as double) v," +
+            " cast((x / 3) * 1000000 as timestamp) ts" +
+            " from long_sequence(9)" +
+            ") timestamp(ts)";
+
+    @Test
+    public void testStreaming() throws Exception {
+        assertQuery(
+                "s\tv\tts\trn\trk\ttotal\taverage\tprev\tfirst\n" +
+                        "b\t1.0\t1970-01-01T00:00:00.000000Z\t1\t1\t1.0\t1.0\tNaN\t1.0\n" +
+                        "b\t2.0\t1970-01-01T00:00:01.000000Z\t2\t2\t3.0\t1.5\t1.0\t1.0\n" +
+                        "a\t3.0\t1970-01-01T00:00:01.000000Z\t1\t1\t3.0\t2.0\tNaN\t3.0\n" +
+                        "b\t4.0\t1970-01-01T00:00:02.000000Z\t3\t3\t7.0\t2.5\t2.0\t1.0\n" +
+                        "b\t5.0\t1970-01-01T00:00:02.000000Z\t4\t3\t12.0\t3.0\t4.0\t1.0\n" +
+                        "a\t6.0\t1970-01-01T00:00:03.000000Z\t2\t2\t9.0\t3.5\t3.0\t3.0\n" +
+                        "b\t7.0\t1970-01-01T00:00:03.000000Z\t5\t5\t19.0\t4.0\t5.0\t1.0\n" +
+                        "b\t8.0\t1970-01-01T00:00:04.000000Z\t6\t6\t27.0\t4.5\t7.0\t1.0\n",
+                "select s, v, ts, row_number() over (partition by s order by ts) rn, rank() over (partition by s order by ts) rk, sum(v) over (partition by s order by ts) total, avg(v) over (order by ts) average, lag(v) over (partition by s order by ts) prev, first_value(v) over (partition by s) first from t",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testCached() throws Exception {
+        assertQuery(
+                "s\tv\tts\trn\trk\ttotal\tnext\tprev\tfirst\n" +
+                        "b\t1.0\t1970-01-01T00:00:00.000000Z\t6\t3\t27.0\t4.0\tNaN\t8.0\n" +
+                        "b\t2.0\t1970-01-01T00:00:01.000000Z\t5\t3\t27.0\t5.0\tNaN\t8.0\n" +
+                        "a\t3.0\t1970-01-01T00:00:01.000000Z\t2\t1\t9.0\t-1.0\tNaN\t6.0\n" +
+                        "b\t4.0\t1970-01-01T00:00:02.000000Z\t4\t3\t27.0\t7.0\t1.0\t8.0\n" +
+                        "b\t5.0\t1970-01-01T00:00:02.000000Z\t3\t3\t27.0\t8.0\t2.0\t8.0\n" +
+                        "a\t6.0\t1970-01-01T00:00:03.000000Z\t1\t1\t9.0\t-1.0\tNaN\t6.0\n" +
+                        "b\t7.0\t1970-01-01T00:00:03.000000Z\t2\t3\t27.0\t-1.0\t4.0\t8.0\n" +
+                        "b\t8.0\t1970-01-01T00:00:04.000000Z\t1\t3\t27.0\t-1.0\t5.0\t8.0\n",
+                "select s, v, ts, row_number() over (partition by s order by v desc) rn, rank() over (order by s) rk, sum(v) over (partition by s) total, lead(v, 2, -1) over (partition by s order by ts) next, lag(v, 2) over (partition by s order by ts) prev, first_value(v) over (partition by s order by v desc) first from t",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testEmptyInputStreaming() throws Exception {
+        assertQuery(
+                "s\tv\tts\trn\trk\ttotal\taverage\tprev\tfirst\n",
+                "select s, v, ts, row_number() over (partition by s order by ts) rn, rank() over (partition by s order by ts) rk, sum(v) over (partition by s order by ts) total, avg(v) over (order by ts) average, lag(v) over (partition by s order by ts) prev, first_value(v) over (partition by s) first from t where v > 10",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testEmptyInputCached() throws Exception {
+        assertQuery(
+                "s\tv\tts\trn\trk\ttotal\taverage\tnext\tprev\tfirst\n",
+                "select s, v, ts, row_number() over (partition by s order by v desc) rn, rank() over (order by s) rk, sum(v) over (partition by s) total, avg(v) over (order by v) average, lead(v) over (partition by s order by ts) next, lag(v) over (order by v) prev, first_value(v) over (partition by s order by v desc) first from t where v > 10",
+                DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testNullPartitionKeyStreaming() throws Exception {
+        assertQuery(
+                "s\tv\tts\trn\trk\ttotal\taverage\tprev\tfirst\n" +
+                        "a\t1.0\t1970-01-01T00:00:00.000000Z\t1\t1\t1.0\t1.0\tNaN\t1.0\n" +
+                        "b\t2.0\t1970-01-01T00:00:00.000000Z\t1\t1\t2.0\t2.0\tNaN\t2.0\n" +
+                        "\t3.0\t1970-01-01T00:00:01.000000Z\t1\t1\t3.0\t3.0\tNaN\t3.0\n" +
+                        "a\t0.0\t1970-01-01T00:00:01.000000Z\t2\t2\t1.0\t0.5\t1.0\t1.0\n" +
+                        "b\t1.0\t1970-01-01T00:00:01.000000Z\t2\t2\t3.0\t1.5\t2.0\t2.0\n" +
+                        "\t2.0\t1970-01-01T00:00:02.000000Z\t2\t2\t5.0\t2.5\t3.0\t3.0\n" +
+                        "a\t3.0\t1970-01-01T00:00:02.000000Z\t3\t3\t4.0\t1.3333333333333333\t0.0\t1.0\n" +
+                        "b\t0.0\t1970-01-01T00:00:02.000000Z\t3\t3\t3.0\t1.0\t1.0\t2.0\n" +
+                        "\t1.0\t1970-01-01T00:00:03.000000Z\t3\t3\t6.0\t2.0\t2.0\t3.0\n",
+                "select s, v, ts, row_number() over (partition by s order by ts) rn, rank() over (partition by s order by ts) rk, sum(v) over (partition by s order by ts) total, avg(v) over (partition by s order by ts) average, lag(v) over (partition by s order by ts) prev, first_value(v) over (partition by s) first from n",
+                NULL_AND_TIES_DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testNullPartitionKeyCached() throws Exception {
+        assertQuery(
+                "s\tv\tts\trn\trk\ttotal\taverage\tnext\tprev\tfirst\n" +
+                        "a\t1.0\t1970-01-01T00:00:00.000000Z\t2\t2\t4.0\t1.3333333333333333\t0.0\t0.0\t3.0\n" +
+                        "b\t2.0\t1970-01-01T00:00:00.000000Z\t1\t3\t3.0\t1.0\t1.0\t1.0\t2.0\n" +
+                        "\t3.0\t1970-01-01T00:00:01.000000Z\t1\t3\t6.0\t2.0\t2.0\t2.0\t3.0\n" +
+                        "a\t0.0\t1970-01-01T00:00:01.000000Z\t3\t1\t4.0\t1.3333333333333333\t3.0\tNaN\t3.0\n" +
+                        "b\t1.0\t1970-01-01T00:00:01.000000Z\t2\t2\t3.0\t1.0\t0.0\t0.0\t2.0\n" +
+                        "\t2.0\t1970-01-01T00:00:02.000000Z\t2\t2\t6.0\t2.0\t1.0\t1.0\t3.0\n" +
+                        "a\t3.0\t1970-01-01T00:00:02.000000Z\t1\t3\t4.0\t1.3333333333333333\tNaN\t1.0\t3.0\n" +
+                        "b\t0.0\t1970-01-01T00:00:02.000000Z\t3\t1\t3.0\t1.0\tNaN\tNaN\t2.0\n" +
+                        "\t1.0\t1970-01-01T00:00:03.000000Z\t3\t1\t6.0\t2.0\tNaN\tNaN\t3.0\n",
+                "select s, v, ts, row_number() over (partition by s order by v desc) rn, rank() over (partition by s order by v) rk, sum(v) over (partition by s) total, avg(v) over (partition by s) average, lead(v) over (partition by s order by ts) next, lag(v) over (partition by s order by v) prev, first_value(v) over (partition by s order by v desc) first from n",
+                NULL_AND_TIES_DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testOrderByTiesStreaming() throws Exception {
+        assertQuery(
+                "v\tts\trn\trk\ttotal\taverage\tprev\tfirst\n" +
+                        "1.0\t1970-01-01T00:00:00.000000Z\t1\t1\t1.0\t1.0\tNaN\t1.0\n" +
+                        "2.0\t1970-01-01T00:00:00.000000Z\t2\t1\t3.0\t1.5\t1.0\t1.0\n" +
+                        "3.0\t1970-01-01T00:00:01.000000Z\t3\t3\t6.0\t2.0\t2.0\t1.0\n" +
+                        "0.0\t1970-01-01T00:00:01.000000Z\t4\t3\t6.0\t1.5\t3.0\t1.0\n" +
+                        "1.0\t1970-01-01T00:00:01.000000Z\t5\t3\t7.0\t1.4\t0.0\t1.0\n" +
+                        "2.0\t1970-01-01T00:00:02.000000Z\t6\t6\t9.0\t1.5\t1.0\t1.0\n" +
+                        "3.0\t1970-01-01T00:00:02.000000Z\t7\t6\t12.0\t1.7142857142857142\t2.0\t1.0\n" +
+                        "0.0\t1970-01-01T00:00:02.000000Z\t8\t6\t12.0\t1.5\t3.0\t1.0\n" +
+                        "1.0\t1970-01-01T00:00:03.000000Z\t9\t9\t13.0\t1.4444444444444444\t0.0\t1.0\n",
+                "select v, ts, row_number() over (order by ts) rn, rank() over (order by ts) rk, sum(v) over (order by ts) total, avg(v) over (order by ts) average, lag(v) over (order by ts) prev, first_value(v) over (order by ts) first from n",
+                NULL_AND_TIES_DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testOrderByTiesCached() throws Exception {
+        assertQuery(
+                "v\tts\trn\trk\ttotal\taverage\tnext\tprev\tfirst\n" +
+                        "1.0\t1970-01-01T00:00:00.000000Z\t3\t3\t1.0\t0.3333333333333333\t1.0\t0.0\t3.0\n" +
+                        "2.0\t1970-01-01T00:00:00.000000Z\t6\t6\t5.0\t0.8333333333333334\t2.0\t1.0\t3.0\n" +
+                        "3.0\t1970-01-01T00:00:01.000000Z\t8\t8\t10.0\t1.25\t3.0\t2.0\t3.0\n" +
+                        "0.0\t1970-01-01T00:00:01.000000Z\t1\t1\t0.0\t0.0\t0.0\tNaN\t3.0\n" +
+                        "1.0\t1970-01-01T00:00:01.000000Z\t4\t3\t2.0\t0.5\t1.0\t1.0\t3.0\n" +
+                        "2.0\t1970-01-01T00:00:02.000000Z\t7\t6\t7.0\t1.0\t3.0\t2.0\t3.0\n" +
+                        "3.0\t1970-01-01T00:00:02.000000Z\t9\t8\t13.0\t1.4444444444444444\tNaN\t3.0\t3.0\n" +
+                        "0.0\t1970-01-01T00:00:02.000000Z\t2\t1\t0.0\t0.0\t1.0\t0.0\t3.0\n" +
+                        "1.0\t1970-01-01T00:00:03.000000Z\t5\t3\t3.0\t0.6\t2.0\t1.0\t3.0\n",
+                "select v, ts, row_number() over (order by v) rn, rank() over (order by v) rk, sum(v) over (order by v) total, avg(v) over (order by v) average, lead(v) over (order by v) next, lag(v) over (order by v) prev, first_value(v) over (order by v desc) first from n",
+                NULL_AND_TIES_DDL,
+                "ts",
+                false
+        );
+    }
+
+    @Test
+    public void testFactoryChoice() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("select ts, row_number() over (order by ts) rn from t", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof AnalyticRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("select ts, lead(v) over (order by ts) rn from t", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof CachedAnalyticRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidPartitionColumn() throws Exception {
+        assertFailure(
+                "select ts, row_number() over (partition by z) rn from t",
+                DDL,
+                43,
+                "Invalid column"
+        );
+    }
+
+    @Test
+    public void testUnknownFunction() throws Exception {
+        assertFailure(
+                "select ts, hello(v) over (partition by s) rn from t",
+                DDL,
+                11,
+                "unknown analytic function"
+        );
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.griffin.engine.AbstractSpillTest;
+import org.junit.Test;
+
+public class GroupBySpillTest extends AbstractSpillTest {
+
+    @Test
+    public void testCompactMapSpill() throws Exception {
+        assertSpill(
+                "select * from (select str, a, count() c, ksum(d) sd, last(ts) l from x) order by str, a",
+                "compact",
+                "create table x as (" +
+                        "select" +
+                        " rnd_str(2,2,2) str," +
+                        " rnd_int(0,5,2) a," +
+                        " rnd_double(2) d," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(5000)" +
+                        ") timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testSpillStringKey() throws Exception {
+        assertSpill(
+                "select * from (select str, count() c, sum(a) sa, min(d) mn, max(ts) mx, avg(d) av from x) order by str",
+                "fast",
+                "create table x as (" +
+                        "select" +
+                        " rnd_str(3,4,2) str," +
+                        " rnd_int(0,100,2) a," +
+                        " rnd_double(2) d," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testSpillOrderSensitive() throws Exception {
+        // rows of the same key must be aggregated in arrival order whichever pass they end up in
+        assertSpill(
+                "select * from (select s, a, isOrdered(k) o, last(ts) l from x) order by s, a",
+                "fast",
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol(30,4,6,0) s," +
+                        " rnd_int(0,100,0) a," +
+                        " x k," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(10000)" +
+                        ") timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testSpillEmpty() throws Exception {
+        assertSpill(
+                "select * from (select str, count() c from x where a < 0) order by str",
+                "fast",
+                "create table x as (select rnd_str(3,8,0) str, rnd_int(0,100,0) a from long_sequence(2000))"
+        );
+    }
+
+    private static CairoConfiguration newSpillConfiguration(CharSequence mapType) {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public CharSequence getDefaultMapType() {
+                return mapType;
+            }
+
+            @Override
+            public long getSqlGroupByMemoryBudget() {
+                return 8192;
+            }
+        };
+    }
+
+    private void assertSpill(String query, CharSequence mapType, String ddl) throws Exception {
+        assertSpill(query, null, newSpillConfiguration(mapType), GroupBySpill.SPILL_DIR_NAME, ddl);
+    }
+}
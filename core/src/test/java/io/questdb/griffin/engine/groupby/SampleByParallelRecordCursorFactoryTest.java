@@ -0,0 +1,178 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.AbstractParallelQueryTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SampleByParallelRecordCursorFactoryTest extends AbstractParallelQueryTest {
+
+    @Test
+    public void testBucketsSpanPartitions() throws Exception {
+        // monthly buckets are made of many daily partitions
+        assertParallelSampleBy(
+                "select s, sum(a), count(), max(b), last(a), ts from x sample by 1M",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, rnd_symbol('A','B','C',null) s, timestamp_sequence(0, 60000000) ts from long_sequence(300000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertParallelSampleBy(
+                "select ts, avg(b), max(a) from x sample by 1h",
+                "create table x as (select rnd_int(0,100,2) a, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "alter table x add column b double",
+                "insert into x select rnd_int(0,100,2) a, timestamp_sequence(500000000000, 10000000) ts, rnd_double(2) b from long_sequence(50000)"
+        );
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertParallelSampleBy(
+                "select ts, sum(a) from x sample by 1h",
+                "create table x (a int, ts timestamp) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testFillNull() throws Exception {
+        // every third bucket is missing, some of the gaps are between entries
+        assertParallelSampleBy(
+                "select ts, sum(a), avg(b), count() from x sample by 1s fill(null)",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, timestamp_sequence(0, 1500000) ts from long_sequence(300000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testFillPrev() throws Exception {
+        assertParallelSampleBy(
+                "select ts, sum(a), max(b), min(c), count() from x sample by 1s fill(prev)",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, rnd_float(2) c, timestamp_sequence(0, 1500000) ts from long_sequence(200000)) timestamp(ts) partition by DAY",
+                "insert into x select rnd_int(0,100,2) a, rnd_double(2) b, rnd_float(2) c, timestamp_sequence(400000000000, 1500000) ts from long_sequence(100000)"
+        );
+    }
+
+    @Test
+    public void testFillValue() throws Exception {
+        assertParallelSampleBy(
+                "select ts, sum(a), min(b) from x sample by 1s fill(10, 2.5)",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, timestamp_sequence(0, 1500000) ts from long_sequence(300000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testKeyed() throws Exception {
+        assertParallelSampleBy(
+                "select ts, s, sum(a), min(b), max(b), count() from x sample by 10m fill(none)",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, rnd_symbol(20,4,6,2) s, timestamp_sequence(0, 1000000) ts from long_sequence(500000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testKeyedFillIsSerial() throws Exception {
+        // keyed fill needs every key in every bucket, which entries do not know about
+        assertParallelQuery(
+                newParallelConfiguration(),
+                new SampleByJob(messageBus),
+                "select ts, s, sum(a) from x sample by 1s fill(null)",
+                SampleByParallelRecordCursorFactoryTest::assertSerialFactory,
+                SampleByParallelRecordCursorFactoryTest::assertSerialFactory,
+                "create table x as (select rnd_int(0,100,2) a, rnd_symbol('A','B','C') s, timestamp_sequence(0, 1500000) ts from long_sequence(1000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        // single page frame is split between several entries, buckets are larger than entries
+        assertParallelSampleBy(
+                "select ts, min(a), last(a), sum(l), count() from x sample by 100s",
+                "create table x as (select rnd_int(0,100,2) a, rnd_long() l, timestamp_sequence(0, 1000) ts from long_sequence(300000)) timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testNotKeyed() throws Exception {
+        assertParallelSampleBy(
+                "select ts, sum(a), avg(b) from x sample by 1m",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, timestamp_sequence(0, 100000) ts from long_sequence(500000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testPoolLargerThanQueryWorkerCount() throws Exception {
+        // workers outside of the pool query is compiled for must not use functions of the owner thread
+        assertParallelSampleBy(
+                new int[][]{{8, 2}, {8, 3}},
+                "select ts, s, sum(a), max(b), count() from x sample by 5m",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, rnd_symbol(20,4,6,2) s, timestamp_sequence(0, 1000000) ts from long_sequence(500000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    private void assertParallelSampleBy(String query, String... ddl) throws Exception {
+        assertParallelQuery(
+                newParallelConfiguration(),
+                new SampleByJob(messageBus),
+                query,
+                SampleByParallelRecordCursorFactoryTest::assertSerialFactory,
+                SampleByParallelRecordCursorFactoryTest::assertParallelFactory,
+                ddl
+        );
+    }
+
+    private void assertParallelSampleBy(int[][] workerCounts, String query, String... ddl) throws Exception {
+        assertParallelQuery(
+                newParallelConfiguration(),
+                new SampleByJob(messageBus),
+                workerCounts,
+                query,
+                SampleByParallelRecordCursorFactoryTest::assertSerialFactory,
+                SampleByParallelRecordCursorFactoryTest::assertParallelFactory,
+                ddl
+        );
+    }
+
+    private static void assertParallelFactory(RecordCursorFactory factory) {
+        Assert.assertTrue(factory instanceof SampleByParallelRecordCursorFactory);
+        Assert.assertFalse(factory.recordCursorSupportsRandomAccess());
+    }
+
+    private static void assertSerialFactory(RecordCursorFactory factory) {
+        Assert.assertFalse(factory instanceof SampleByParallelRecordCursorFactory);
+    }
+
+    private static CairoConfiguration newParallelConfiguration() {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isSqlParallelSampleByEnabled() {
+                return true;
+            }
+        };
+    }
+}
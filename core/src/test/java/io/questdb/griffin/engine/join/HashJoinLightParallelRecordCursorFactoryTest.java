@@ -0,0 +1,105 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.AbstractParallelQueryTest;
+import io.questdb.griffin.engine.table.SelectedRecordCursorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashJoinLightParallelRecordCursorFactoryTest extends AbstractParallelQueryTest {
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertParallelHashJoin(
+                "x join y on (k)",
+                "create table x as (select rnd_int(0,1000,0) k, rnd_double(2) a from long_sequence(1000))",
+                "create table y as (select rnd_int(0,100,2) b, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "alter table y add column k int",
+                "insert into y select rnd_int(0,100,2) b, timestamp_sequence(500000000000, 10000000) ts, rnd_int(0,1000,2) k from long_sequence(50000)"
+        );
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertParallelHashJoin(
+                "x join y on (k)",
+                "create table x as (select rnd_int(0,1000,0) k, rnd_double(2) a from long_sequence(1000))",
+                "create table y (k int, b long)"
+        );
+    }
+
+    @Test
+    public void testIntKey() throws Exception {
+        // single page frame is split between several entries
+        assertParallelHashJoin(
+                "x join y on (k)",
+                "create table x as (select rnd_int(0,50000,0) k, rnd_double(2) a from long_sequence(2000))",
+                "create table y as (select rnd_int(0,50000,0) k, rnd_long() b from long_sequence(300000))"
+        );
+    }
+
+    @Test
+    public void testMultipleKeys() throws Exception {
+        assertParallelHashJoin(
+                "x join y on (s, k)",
+                "create table x as (select rnd_symbol(20,4,6,0) s, rnd_short(0,10) k, rnd_double(2) a from long_sequence(100))",
+                "create table y as (select rnd_symbol(20,4,6,2) s, rnd_short(0,10) k, rnd_long() b, timestamp_sequence(0, 1000000) ts from long_sequence(200000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testSymbolKey() throws Exception {
+        // symbol tables of master and slave differ, keys are compared as strings
+        assertParallelHashJoin(
+                "x join y on (s)",
+                "create table x as (select rnd_symbol(50,4,6,0) s, rnd_double(2) a from long_sequence(50))",
+                "create table y as (select rnd_symbol(50,4,6,2) s, rnd_int() b, timestamp_sequence(0, 1000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    private void assertParallelHashJoin(String query, String... ddl) throws Exception {
+        assertParallelQuery(
+                new DefaultCairoConfiguration(root) {
+                    @Override
+                    public boolean isSqlParallelHashJoinEnabled() {
+                        return true;
+                    }
+                },
+                new HashJoinBuildJob(messageBus),
+                query,
+                factory -> assertBaseFactory(factory, HashJoinLightRecordCursorFactory.class),
+                factory -> assertBaseFactory(factory, HashJoinLightParallelRecordCursorFactory.class),
+                ddl
+        );
+    }
+
+    private static void assertBaseFactory(RecordCursorFactory factory, Class<?> expected) {
+        Assert.assertTrue(factory instanceof SelectedRecordCursorFactory);
+        Assert.assertSame(expected, ((SelectedRecordCursorFactory) factory).getBaseFactory().getClass());
+    }
+}
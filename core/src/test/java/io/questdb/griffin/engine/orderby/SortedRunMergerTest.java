@@ -0,0 +1,170 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.AbstractSpillTest;
+import io.questdb.std.LongList;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SortedRunMergerTest extends AbstractSpillTest {
+
+    @Test
+    public void testSortLightSpill() throws Exception {
+        // ties on "s" are broken by unique timestamp, light sort and
+        // record sort would otherwise disagree on order of equal rows
+        assertSpill(
+                "x order by s, a desc, ts",
+                SortedLightRecordCursorFactory.class,
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol(10,4,6,2) s," +
+                        " rnd_int(0,100,2) a," +
+                        " rnd_str(3,10,2) str," +
+                        " rnd_bin(2,20,2) bin," +
+                        " rnd_long256() l256," +
+                        " rnd_double(2) d," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(5000)" +
+                        ") timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testSortLightSpillRandomAccess() throws Exception {
+        assertRandomAccess(
+                "x order by a desc, ts",
+                "create table x as (" +
+                        "select" +
+                        " rnd_int(0,50,2) a," +
+                        " rnd_str(3,10,2) str," +
+                        " timestamp_sequence(0, 1000000) ts" +
+                        " from long_sequence(3000)" +
+                        ") timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testSortSpill() throws Exception {
+        // union cursor does not support random access, records are copied into the sort
+        assertSpill(
+                "select * from (x union all (select * from x where a > 50)) order by str, a desc",
+                SortedRecordCursorFactory.class,
+                "create table x as (" +
+                        "select" +
+                        " rnd_symbol('A','B','C',null) s," +
+                        " rnd_int(0,100,2) a," +
+                        " rnd_str(3,10,2) str," +
+                        " rnd_bin(2,20,2) bin," +
+                        " rnd_long256() l256," +
+                        " x k" +
+                        " from long_sequence(4000)" +
+                        ")"
+        );
+    }
+
+    @Test
+    public void testSortSpillDuplicateKeys() throws Exception {
+        // equal keys span several runs, they must come out in arrival order
+        assertSpill(
+                "select * from (x union all x) order by a",
+                SortedRecordCursorFactory.class,
+                "create table x as (select rnd_int(0,3,0) a, x k from long_sequence(2000))"
+        );
+    }
+
+    @Test
+    public void testSortSpillEmpty() throws Exception {
+        assertSpill(
+                "select * from (x union all x) where a < 0 order by a",
+                SortedRecordCursorFactory.class,
+                "create table x as (select rnd_int(0,100,0) a, x k from long_sequence(2000))"
+        );
+    }
+
+    private static CairoConfiguration newSpillConfiguration() {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public long getSqlSortMemoryBudget() {
+                return 4096;
+            }
+        };
+    }
+
+    private static int spillFileCount() {
+        return spillFileCount(SortedRunMerger.SPILL_DIR_NAME);
+    }
+
+    private void assertRandomAccess(String query, String ddl) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+            try (
+                    CairoEngine engine = new CairoEngine(newSpillConfiguration(), messageBus);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+                    Assert.assertTrue(factory.recordCursorSupportsRandomAccess());
+                    try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                        Assert.assertTrue(spillFileCount() > 0);
+                        final Record record = cursor.getRecord();
+                        final LongList rowIds = new LongList();
+                        final LongList values = new LongList();
+                        while (cursor.hasNext()) {
+                            rowIds.add(record.getRowId());
+                            values.add(record.getTimestamp(2));
+                        }
+
+                        final Record recordB = cursor.getRecordB();
+                        for (int i = rowIds.size() - 1; i > -1; i--) {
+                            cursor.recordAt(recordB, rowIds.getQuick(i));
+                            Assert.assertEquals(values.getQuick(i), recordB.getTimestamp(2));
+                            Assert.assertEquals(rowIds.getQuick(i), recordB.getRowId());
+                        }
+                    }
+                }
+                Assert.assertEquals(0, spillFileCount());
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void assertSpill(String query, Class<?> expectedFactoryClass, String... ddl) throws Exception {
+        assertSpill(query, expectedFactoryClass, newSpillConfiguration(), SortedRunMerger.SPILL_DIR_NAME, ddl);
+    }
+}
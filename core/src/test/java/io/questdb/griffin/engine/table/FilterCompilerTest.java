@@ -0,0 +1,193 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FilterCompilerTest extends AbstractGriffinTest {
+
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " rnd_boolean() b," +
+            " rnd_byte(0,10) bt," +
+            " rnd_short(0,10) sh," +
+            " rnd_int(-10,10,4) i," +
+            " rnd_long(-10,10,4) l," +
+            " cast(rnd_long(0,10,4) as date) dt," +
+            " cast(rnd_long(0,10,4) as timestamp) ts," +
+            " rnd_float(4) f," +
+            " rnd_double(4) d," +
+            " rnd_symbol('A','B',null) s" +
+            " from long_sequence(5000)" +
+            ")";
+
+    @BeforeClass
+    public static void setUp3() {
+        // simple filters would otherwise be executed by table scan kernels instead of compiled filter
+        configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isSqlFilterKernelEnabled() {
+                return false;
+            }
+        };
+        compiler.close();
+        engine.close();
+        engine = new CairoEngine(configuration, messageBus);
+        compiler = new SqlCompiler(engine);
+        sqlExecutionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+    }
+
+    @Test
+    public void testBoolean() throws Exception {
+        assertCompiled("b", "not b", "b and i > 0", "not(b or l < 0)");
+    }
+
+    @Test
+    public void testEqDouble() throws Exception {
+        assertCompiled("d = 0.5", "f != 0.5", "d = i", "i = 5.0", "ts = dt", "ts = 5", "dt != l", "f = d");
+    }
+
+    @Test
+    public void testEqInt() throws Exception {
+        assertCompiled("i = 5", "5 = i", "i != -5", "sh = 5", "bt = i", "i = 100000", "i = -100000");
+    }
+
+    @Test
+    public void testEqLong() throws Exception {
+        assertCompiled("l = 5", "l != -5", "i = l", "sh = l", "l = 10000000000", "i != 10000000000");
+    }
+
+    @Test
+    public void testEqNaN() throws Exception {
+        assertCompiled(
+                "i = NaN",
+                "NaN != i",
+                "l = NaN",
+                "dt = NaN",
+                "ts != NaN",
+                "f = NaN",
+                "d != NaN",
+                "sh = NaN",
+                "i < NaN"
+        );
+    }
+
+    @Test
+    public void testNewInstance() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("x where i > 0 and d < 0.5", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof FilteredRecordCursorFactory);
+                final CompiledFilter filter = (CompiledFilter) ((FilteredRecordCursorFactory) factory).getFilter();
+                final CompiledFilter copy = filter.newInstance();
+                Assert.assertNotSame(filter, copy);
+                Assert.assertSame(filter.getClass(), copy.getClass());
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    final Record record = cursor.getRecord();
+                    while (cursor.hasNext()) {
+                        Assert.assertTrue(copy.getBool(record));
+                    }
+                }
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testNotCompiled() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            assertNotCompiled("x where s = 'A'");
+            assertNotCompiled("x where i + 1 > 5");
+            assertNotCompiled("x where abs(i) = 5");
+            assertNotCompiled("x where i > 0 and s = 'B'");
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testOrdering() throws Exception {
+        assertCompiled(
+                "i < 5",
+                "7 > i",
+                "d > 0.5",
+                "f >= 0.25",
+                "5 < i",
+                "ts > 5 and dt < 7",
+                "l > -3 or d < 0.1",
+                "l > -10000000000",
+                "sh < 5"
+        );
+    }
+
+    private void assertCompiled(String... filters) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            for (int i = 0; i < filters.length; i++) {
+                // arithmetic is not compiled, it makes the rest of filter interpreted
+                final String expected = print("x where (" + filters[i] + ") and i + 0 = i", false);
+                final String actual = print("x where " + filters[i], true);
+                Assert.assertEquals(filters[i], expected, actual);
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void assertNotCompiled(String query) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            if (factory instanceof FilteredRecordCursorFactory) {
+                Assert.assertFalse(((FilteredRecordCursorFactory) factory).getFilter() instanceof CompiledFilter);
+            }
+        }
+    }
+
+    private String print(String query, boolean compiled) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(query, factory instanceof FilteredRecordCursorFactory);
+            Assert.assertEquals(query, compiled, ((FilteredRecordCursorFactory) factory).getFilter() instanceof CompiledFilter);
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.ZoneMap;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.LongList;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FilterKernelTest extends AbstractGriffinTest {
+
+    private static final String DDL = "create table x as (" +
+            "select" +
+            " rnd_int(-10,10,4) i," +
+            " rnd_long(-10,10,4) l," +
+            " cast(rnd_long(0,10,4) as date) dt," +
+            " cast(rnd_long(0,10,4) as timestamp) ts," +
+            " rnd_double(4) d," +
+            " rnd_symbol('A','B','C',null) s," +
+            " timestamp_sequence(0, 1000000000) k" +
+            " from long_sequence(2000)" +
+            ") timestamp(k) partition by DAY";
+
+    // last partition gets column top in the middle, partitions after it have no top
+    private static final String ADD_COLUMN = "alter table x add column j int";
+    private static final String INSERT = "insert into x select * from (" +
+            "select" +
+            " rnd_int(-10,10,4) i," +
+            " rnd_long(-10,10,4) l," +
+            " cast(rnd_long(0,10,4) as date) dt," +
+            " cast(rnd_long(0,10,4) as timestamp) ts," +
+            " rnd_double(4) d," +
+            " rnd_symbol('A','B','C',null) s," +
+            " timestamp_sequence(2000000000000, 1000000000) k," +
+            " rnd_int(-10,10,4) j" +
+            " from long_sequence(1000)" +
+            ") timestamp(k)";
+
+    // values grow with timestamp, so that zone maps of most partitions rule filters out
+    private static final String ZONE_MAP_DDL = "create table x as (" +
+            "select" +
+            " cast(x as int) i," +
+            " x l," +
+            " x * 0.5 d," +
+            " rnd_symbol('A','B','C',null) s," +
+            " timestamp_sequence(0, 3600000000) k" +
+            " from long_sequence(200)" +
+            ") timestamp(k) partition by DAY";
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertKernel("j = 5", "j != 5", "j = NaN", "j != NaN", "j > 0", "j < 0", "j > -3 and j < 3");
+    }
+
+    @Test
+    public void testEq() throws Exception {
+        assertKernel(
+                "i = 5",
+                "5 = i",
+                "i != -5",
+                "i = 10000000000",
+                "i = 5.0",
+                "l = 5",
+                "l != -5",
+                "l = 5.5",
+                "dt = 5",
+                "ts != 5",
+                "d = 0.5",
+                "d != 0.5"
+        );
+    }
+
+    @Test
+    public void testEqNaN() throws Exception {
+        assertKernel("i = NaN", "i != NaN", "l = NaN", "dt != NaN", "ts = NaN", "d = NaN", "d != NaN");
+    }
+
+    @Test
+    public void testKernelDisabled() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlFilterKernelEnabled() {
+                    return false;
+                }
+            };
+            try (
+                    CairoEngine engine = new CairoEngine(configuration, messageBus);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, 1, engine)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+                try (RecordCursorFactory factory = compiler.compile("x where i = 5", executionContext).getRecordCursorFactory()) {
+                    Assert.assertFalse(factory instanceof DataFrameRecordCursorFactory);
+                }
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testNotKernel() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            assertNotKernel("x where i = l");
+            assertNotKernel("x where i > 0 and l < 0");
+            assertNotKernel("x where i > 0 and i > 5");
+            assertNotKernel("x where i = 5 or i = 6");
+            assertNotKernel("x where s = 'A'");
+            assertNotKernel("x where i + 1 > 5");
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        assertKernel(
+                "i < 5",
+                "5 < i",
+                "i >= 5",
+                "l > -3",
+                "l < 10000000000",
+                "d > 0.5",
+                "d >= 0.25 and d < 0.75",
+                "i > -5 and i < 5",
+                "5 > l and l > -5",
+                "dt > 3 and dt < 7",
+                "ts >= 3 and ts < 7",
+                "i < NaN",
+                "i > 2.5",
+                "i <= -2.5",
+                "i < -10000000000",
+                "l >= -2.5 and l < 2.5",
+                "l > 9007199254740993",
+                "d > 0.5 and d <= 0.5"
+        );
+    }
+
+    @Test
+    public void testSymbolIn() throws Exception {
+        assertKernel(
+                "s in ('A')",
+                "s in ('A', 'C')",
+                "s in ('B', null)",
+                "s in (null)",
+                "s in ('Z')",
+                "s in ('Z', 'A')",
+                "s in ('A', 'B', 'C', null)",
+                // longer lists than native function takes
+                "s in (" + missingSymbols(64) + "'C')",
+                "s in (" + missingSymbols(64) + "'A', 'B', null)"
+        );
+    }
+
+    @Test
+    public void testZoneMap() throws Exception {
+        assertKernel(
+                new String[]{ZONE_MAP_DDL},
+                "i = 5",
+                "i != 5",
+                "i > 150",
+                "i >= 30 and i < 60",
+                "i = 30.0",
+                "i = NaN",
+                "l < 10",
+                "l = 200",
+                "d > 90.5",
+                "d = 12.5",
+                "d = NaN",
+                "s in ('A')"
+        );
+    }
+
+    @Test
+    public void testZoneMapSkipsPartition() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(ZONE_MAP_DDL, sqlExecutionContext);
+            final String all = print("x where i > 0", true);
+
+            // zone map of first partition that claims there are no values,
+            // kernel has to take its word for it and skip the partition
+            try (
+                    TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x");
+                    Path path = new Path().of(root).concat("x").concat("1970-01-01");
+                    Path other = new Path().of(path)
+            ) {
+                final LongList columnTops = new LongList();
+                columnTops.seed(reader.getMetadata().getColumnCount(), 0);
+                final ZoneMap zoneMap = new ZoneMap();
+                zoneMap.of(reader.getMetadata(), columnTops);
+                Assert.assertTrue(zoneMap.write(configuration.getFilesFacade(), path, other, reader.openPartition(0)));
+            }
+
+            final String expected = print("x where k >= '1970-01-02' and i + 0 = i", false);
+            Assert.assertNotEquals(all, expected);
+            Assert.assertEquals(expected, print("x where i > 0", true));
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void assertKernel(String... filters) throws Exception {
+        assertKernel(new String[]{DDL, ADD_COLUMN, INSERT}, filters);
+    }
+
+    private void assertKernel(String[] statements, String... filters) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            for (int i = 0; i < statements.length; i++) {
+                compiler.compile(statements[i], sqlExecutionContext);
+            }
+            for (int i = 0; i < filters.length; i++) {
+                // arithmetic is not supported by kernels, it makes the filter interpreted
+                final String expected = print("x where (" + filters[i] + ") and i + 0 = i", false);
+                final String actual = print("x where " + filters[i], true);
+                Assert.assertEquals(filters[i], expected, actual);
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    private void assertNotKernel(String query) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(query, factory instanceof DataFrameRecordCursorFactory);
+        }
+    }
+
+    private static String missingSymbols(int count) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("'Z").append(i).append("', ");
+        }
+        return sb.toString();
+    }
+
+    private String print(String query, boolean kernel) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            // kernel is executed by table scan, interpreted filter wraps it
+            Assert.assertEquals(query, kernel, factory instanceof DataFrameRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
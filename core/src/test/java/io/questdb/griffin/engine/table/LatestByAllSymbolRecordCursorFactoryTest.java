@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LatestByAllSymbolRecordCursorFactoryTest extends AbstractGriffinTest {
+    // offset of version in table metadata file
+    private static final long META_OFFSET_VERSION = 12;
+    private static final int WORKER_COUNT = 4;
+
+    @Test
+    public void testAllKeysInLastPartition() throws Exception {
+        assertLatestBy(
+                "x latest by s",
+                "create table x as (select rnd_symbol(20,4,6,0) s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        // null above column top is the latest null
+        assertLatestBy(
+                "x latest by s",
+                "create table x as (select rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "alter table x add column s symbol",
+                "insert into x select rnd_double(2) d, timestamp_sequence(500000000000, 10000000) ts, rnd_symbol('A','B','C') s from long_sequence(50000)"
+        );
+    }
+
+    @Test
+    public void testColumnTopWithinPartition() throws Exception {
+        assertLatestBy(
+                "x latest by s",
+                "create table x as (select rnd_double(2) d, timestamp_sequence(0, 1000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "alter table x add column s symbol",
+                "insert into x select rnd_double(2) d, timestamp_sequence(50000000, 1000) ts, rnd_symbol('A','B','C') s from long_sequence(50000)"
+        );
+    }
+
+    @Test
+    public void testInterval() throws Exception {
+        assertLatestBy(
+                "x latest by s where ts < '1970-01-05'",
+                "create table x as (select rnd_symbol(20,4,6,2) s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testKeysInOldPartitionsOnly() throws Exception {
+        assertLatestBy(
+                "x latest by s",
+                "create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "insert into x select rnd_symbol('D','E',null) s, rnd_double(2) d, timestamp_sequence(500000000000, 10000000) ts from long_sequence(50000)"
+        );
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        // single data frame is split between several entries
+        assertLatestBy(
+                "x latest by s",
+                "create table x as (select rnd_symbol(1000,4,6,2) s, rnd_double(2) d, timestamp_sequence(0, 1000) ts from long_sequence(300000)) timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testOmittedSymbolIsNull() throws Exception {
+        // rows without symbol value are nulls, scan must not stop before it finds the latest of them
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                TableWriter.Row row = writer.newRow(500000000000L);
+                row.putDouble(1, 0.5);
+                row.append();
+                writer.commit();
+            }
+            compiler.compile("insert into x select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(600000000000, 10000000) ts from long_sequence(50000)", sqlExecutionContext);
+            assertLatestBy0("x latest by s");
+        });
+    }
+
+    @Test
+    public void testOmittedSymbolIsNullInTableOfPreviousVersion() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                TableWriter.Row row = writer.newRow(500000000000L);
+                row.putDouble(1, 0.5);
+                row.append();
+                writer.commit();
+            }
+            compiler.compile("insert into x select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(600000000000, 10000000) ts from long_sequence(50000)", sqlExecutionContext);
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+
+            // table written before null flag was set for omitted symbols
+            putByte("x/s.o", SymbolMapWriter.HEADER_NULL_FLAG, (byte) 0);
+            putInt("x/" + TableUtils.META_FILE_NAME, META_OFFSET_VERSION, 416);
+            assertLatestBy0("x latest by s");
+
+            compiler.compile("repair table x", sqlExecutionContext);
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertEquals(ColumnType.VERSION, reader.getMetadata().getVersion());
+                Assert.assertTrue(reader.getSymbolMapReader(0).containsNullValue());
+            }
+            assertLatestBy0("x latest by s");
+        });
+    }
+
+    @Test
+    public void testSelectedColumns() throws Exception {
+        assertLatestBy(
+                "select ts, s from x latest by s",
+                "create table x as (select rnd_double(2) d, rnd_symbol(20,4,6,2) s, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    private void assertLatestBy(String query, String... ddl) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            for (int i = 0; i < ddl.length; i++) {
+                compiler.compile(ddl[i], sqlExecutionContext);
+            }
+            assertLatestBy0(query);
+        });
+    }
+
+    private void assertLatestBy0(String query) throws Exception {
+        // expected rows come from map of keys, which filter that lets all rows through forces
+        final String filter = "d <> -1";
+        final String expected = print(
+                compiler,
+                query.contains(" where ") ? query.replace(" where ", " where " + filter + " and ") : query + " where " + filter,
+                sqlExecutionContext,
+                false
+        );
+        Assert.assertTrue(expected.indexOf('\n') < expected.length() - 1);
+
+        // single thread scan
+        Assert.assertEquals(expected, print(compiler, query, sqlExecutionContext, true));
+
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isSqlParallelLatestByEnabled() {
+                return true;
+            }
+        };
+
+        final LatestByAllSymbolJob job = new LatestByAllSymbolJob(messageBus);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final SOCountDownLatch haltLatch = new SOCountDownLatch(WORKER_COUNT);
+        for (int i = 0; i < WORKER_COUNT; i++) {
+            final int workerId = i;
+            new Thread(() -> {
+                while (running.get()) {
+                    job.run(workerId);
+                }
+                haltLatch.countDown();
+            }).start();
+        }
+
+        try (
+                CairoEngine engine = new CairoEngine(configuration, messageBus);
+                SqlCompiler compiler = new SqlCompiler(engine)
+        ) {
+            final SqlExecutionContext executionContext = new SqlExecutionContextImpl(messageBus, WORKER_COUNT, engine)
+                    .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null, -1, null);
+            Assert.assertEquals(expected, print(compiler, query, executionContext, true));
+            // cursor is reusable
+            Assert.assertEquals(expected, print(compiler, query, executionContext, true));
+        } finally {
+            running.set(false);
+            haltLatch.await();
+        }
+
+        Assert.assertEquals(0, engine.getBusyReaderCount());
+        Assert.assertEquals(0, engine.getBusyWriterCount());
+        engine.releaseAllReaders();
+        engine.releaseAllWriters();
+    }
+
+    private static void putByte(CharSequence file, long offset, byte value) {
+        final long mem = Unsafe.malloc(Byte.BYTES);
+        try {
+            Unsafe.getUnsafe().putByte(mem, value);
+            put(file, offset, mem, Byte.BYTES);
+        } finally {
+            Unsafe.free(mem, Byte.BYTES);
+        }
+    }
+
+    private static void putInt(CharSequence file, long offset, int value) {
+        final long mem = Unsafe.malloc(Integer.BYTES);
+        try {
+            Unsafe.getUnsafe().putInt(mem, value);
+            put(file, offset, mem, Integer.BYTES);
+        } finally {
+            Unsafe.free(mem, Integer.BYTES);
+        }
+    }
+
+    private static void put(CharSequence file, long offset, long address, long len) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            final long fd = ff.openRW(path.of(root).concat(file).$());
+            Assert.assertTrue(fd > -1);
+            try {
+                Assert.assertEquals(len, ff.write(fd, address, len, offset));
+            } finally {
+                ff.close(fd);
+            }
+        }
+    }
+
+    private String print(SqlCompiler compiler, String query, SqlExecutionContext executionContext, boolean symbolScan) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(symbolScan, factory instanceof LatestByAllSymbolRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(executionContext)) {
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                final String rows = sink.toString();
+
+                // random access
+                cursor.toTop();
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                TestUtils.assertEquals(rows, sink);
+                return rows;
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatestRowCacheRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testAllKeys() throws Exception {
+        assertLatestBy(
+                "create table x as (select rnd_symbol(20,4,6,2) s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                "x latest by s"
+        );
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x set latest cache on s", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_symbol('C','D',null) s, rnd_double(2) d, timestamp_sequence(500000000000, 10000000) ts from long_sequence(1000)", sqlExecutionContext);
+            assertLatestBy0("x latest by s", true);
+
+            // symbol is null when row does not set it
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                TableWriter.Row row = writer.newRow(600000000000L);
+                row.putDouble(1, 0.5);
+                row.append();
+                row = writer.newRow(600000000001L);
+                row.putSym(0, "E");
+                row.append();
+                writer.commit();
+            }
+            assertLatestBy0("x latest by s", true);
+            assertLatestBy0("x latest by s where s in ('A', 'E', 'F')", true);
+            assertLatestBy0("x latest by s where s = 'D'", true);
+        });
+    }
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertLatestBy(
+                "create table x as (select rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "x latest by s",
+                "alter table x add column s symbol",
+                "insert into x select rnd_double(2) d, timestamp_sequence(500000000000, 10000000) ts, rnd_symbol('A','B','C') s from long_sequence(50000)"
+        );
+    }
+
+    @Test
+    public void testCompressedPartitions() throws Exception {
+        // partitions other than the active one are compressed
+        assertLatestBy(
+                "create table x as (select rnd_symbol('A','B','C',null) s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)), compress(s) timestamp(ts) partition by DAY",
+                "x latest by s",
+                "insert into x select rnd_symbol('D') s, rnd_double(2) d, timestamp_sequence(500000000000, 10000000) ts from long_sequence(100)"
+        );
+    }
+
+    @Test
+    public void testDropColumn() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, rnd_symbol('X','Y') z, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x set latest cache on z", sqlExecutionContext);
+            // cached column moves
+            compiler.compile("alter table x drop column s", sqlExecutionContext);
+            assertLatestBy0("x latest by z", true);
+            compiler.compile("insert into x select rnd_double(2) d, rnd_symbol('W','X') z, timestamp_sequence(500000000000, 10000000) ts from long_sequence(1000)", sqlExecutionContext);
+            assertLatestBy0("x latest by z", true);
+
+            compiler.compile("alter table x drop column z", sqlExecutionContext);
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), "x")) {
+                Assert.assertEquals(-1, reader.getMetadata().getLatestRowColumnIndex());
+            }
+            try (Path path = new Path().of(root).concat("x").concat("_lr").$()) {
+                Assert.assertFalse(configuration.getFilesFacade().exists(path));
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testDropPartition() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_symbol('D') s, rnd_double(2) d, timestamp_sequence(500000000000, 10000000) ts from long_sequence(100)", sqlExecutionContext);
+            compiler.compile("alter table x set latest cache on s", sqlExecutionContext);
+            compiler.compile("alter table x drop partition '1970-01-01'", sqlExecutionContext);
+
+            // cache still points at removed partition, table is scanned until the next commit
+            assertLatestBy0("x latest by s", false);
+            compiler.compile("insert into x select rnd_symbol('D') s, rnd_double(2) d, timestamp_sequence(600000000000, 10000000) ts from long_sequence(100)", sqlExecutionContext);
+            assertLatestBy0("x latest by s", true);
+        });
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        assertLatestBy(
+                "create table x as (select rnd_symbol(1000,4,6,2) s, rnd_double(2) d, timestamp_sequence(0, 1000) ts from long_sequence(100000)) timestamp(ts)",
+                "x latest by s"
+        );
+    }
+
+    @Test
+    public void testOutOfOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x set latest cache on s", sqlExecutionContext);
+            engine.releaseAllWriters();
+
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+            };
+            try (TableWriter writer = new TableWriter(configuration, "x")) {
+                // merged rows move the latest rows of other keys
+                TableWriter.Row row = writer.newRow(1000000);
+                row.putSym(0, "D");
+                row.append();
+                row = writer.newRow(10000000L * 49999);
+                row.putSym(0, "A");
+                row.append();
+                writer.commit();
+            }
+            assertLatestBy0("x latest by s", true);
+            assertLatestBy0("x latest by s where s in ('A', 'B', 'D')", true);
+        });
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x set latest cache on s", sqlExecutionContext);
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+
+            compiler.compile("insert into x select rnd_symbol('B','D') s, rnd_double(2) d, timestamp_sequence(500000000000, 10000000) ts from long_sequence(1000)", sqlExecutionContext);
+            assertLatestBy0("x latest by s", true);
+
+            compiler.compile("alter table x set latest cache off", sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("x latest by s", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof LatestByAllSymbolRecordCursorFactory);
+            }
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testSelectedColumns() throws Exception {
+        assertLatestBy(
+                "create table x as (select rnd_double(2) d, rnd_symbol(20,4,6,2) s, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY",
+                "select ts, s from x latest by s"
+        );
+    }
+
+    @Test
+    public void testSetFailures() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(10)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            assertFailure("alter table x set latest", 24, "'cache' expected");
+            assertFailure("alter table x set latest cache", 30, "'on' or 'off' expected");
+            assertFailure("alter table x set latest cache on d", 34, "symbol column expected");
+            assertFailure("alter table x set latest cache on y", 34, "Invalid column");
+            assertFailure("alter table x set latest cache off s", 35, "unexpected token");
+            assertFailure("alter table x set index", 18, "'ttl' or 'latest' expected");
+            engine.releaseAllReaders();
+            engine.releaseAllWriters();
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select rnd_symbol('A','B','C') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x set latest cache on s", sqlExecutionContext);
+            compiler.compile("truncate table x", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_symbol('C','D') s, rnd_double(2) d, timestamp_sequence(0, 10000000) ts from long_sequence(100)", sqlExecutionContext);
+            assertLatestBy0("x latest by s", true);
+        });
+    }
+
+    private void assertFailure(String sql, int position, String message) {
+        try {
+            compiler.compile(sql, sqlExecutionContext);
+            Assert.fail();
+        } catch (SqlException e) {
+            Assert.assertEquals(position, e.getPosition());
+            TestUtils.assertContains(e.getFlyweightMessage(), message);
+        }
+    }
+
+    private void assertLatestBy(String ddl, String query, String... moreDdl) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            compiler.compile(ddl, sqlExecutionContext);
+            for (int i = 0; i < moreDdl.length; i++) {
+                compiler.compile(moreDdl[i], sqlExecutionContext);
+            }
+            compiler.compile("alter table x set latest cache on s", sqlExecutionContext);
+            assertLatestBy0(query, true);
+        });
+    }
+
+    private void assertLatestBy0(String query, boolean cached) throws Exception {
+        // filter keeps query away from cache
+        final String filter = "d <> -1";
+        final String expected = print(
+                query.contains(" where ") ? query.replace(" where ", " where " + filter + " and ") : query + " where " + filter,
+                false,
+                false
+        );
+        Assert.assertEquals(expected, print(query, true, cached));
+        Assert.assertEquals(0, engine.getBusyReaderCount());
+        Assert.assertEquals(0, engine.getBusyWriterCount());
+        engine.releaseAllReaders();
+        engine.releaseAllWriters();
+    }
+
+    private String print(String query, boolean cacheFactory, boolean cached) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(cacheFactory, factory instanceof LatestRowCacheRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                Assert.assertEquals(cached, cursor instanceof LatestRowCacheRecordCursor);
+                sink.clear();
+                printer.print(cursor, factory.getMetadata(), true);
+                return sink.toString();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.AbstractParallelQueryTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PageFrameFilteredRecordCursorFactoryTest extends AbstractParallelQueryTest {
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertParallelFilter(
+                "x where b > 0.5 or a > 90",
+                "create table x as (select rnd_int(0,100,2) a, timestamp_sequence(0, 10000000) ts from long_sequence(50000)) timestamp(ts) partition by DAY",
+                "alter table x add column b double",
+                "insert into x select rnd_int(0,100,2) a, timestamp_sequence(500000000000, 10000000) ts, rnd_double(2) b from long_sequence(50000)"
+        );
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        assertParallelFilter(
+                "x where a > 50 and b < 0.5",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, rnd_symbol('A','B','C',null) s, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testNoMatch() throws Exception {
+        // filter on single column would be executed by filter kernel
+        assertParallelFilter(
+                "x where a > 1000 and b < 0.5",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testNonPartitioned() throws Exception {
+        // single page frame is split between several entries
+        assertParallelFilter(
+                "x where a < 5 and l > 0",
+                "create table x as (select rnd_int(0,100,2) a, rnd_long() l, timestamp_sequence(0, 1000) ts from long_sequence(300000)) timestamp(ts)"
+        );
+    }
+
+    @Test
+    public void testPoolLargerThanQueryWorkerCount() throws Exception {
+        // workers outside of the pool query is compiled for must not use filter of the owner thread
+        assertParallelFilter(
+                new int[][]{{8, 2}, {8, 3}},
+                "x where b > 0.5 and s = 'B' or a > 90",
+                "create table x as (select rnd_int(0,100,2) a, rnd_double(2) b, rnd_symbol('A','B','C',null) s, timestamp_sequence(0, 1000000) ts from long_sequence(500000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testSymbolKey() throws Exception {
+        assertParallelFilter(
+                "x where s = 'B' and a < 10",
+                "create table x as (select rnd_int(0,100,2) a, rnd_symbol('A','B','C',null) s, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testSymbolValue() throws Exception {
+        assertParallelFilter(
+                "x where cast(s as string) ~= '^[A-M]' or s in ('BBCE', 'VTJW')",
+                "create table x as (select rnd_int(0,100,2) a, rnd_symbol(20,4,6,2) s, timestamp_sequence(0, 10000000) ts from long_sequence(100000)) timestamp(ts) partition by DAY"
+        );
+    }
+
+    private void assertParallelFilter(String query, String... ddl) throws Exception {
+        assertParallelQuery(
+                newParallelConfiguration(),
+                new PageFrameFilterJob(messageBus),
+                query,
+                PageFrameFilteredRecordCursorFactoryTest::assertSerialFactory,
+                PageFrameFilteredRecordCursorFactoryTest::assertParallelFactory,
+                ddl
+        );
+    }
+
+    private void assertParallelFilter(int[][] workerCounts, String query, String... ddl) throws Exception {
+        assertParallelQuery(
+                newParallelConfiguration(),
+                new PageFrameFilterJob(messageBus),
+                workerCounts,
+                query,
+                PageFrameFilteredRecordCursorFactoryTest::assertSerialFactory,
+                PageFrameFilteredRecordCursorFactoryTest::assertParallelFactory,
+                ddl
+        );
+    }
+
+    private static void assertParallelFactory(RecordCursorFactory factory) {
+        Assert.assertTrue(factory instanceof PageFrameFilteredRecordCursorFactory);
+        Assert.assertFalse(factory.recordCursorSupportsRandomAccess());
+    }
+
+    private static void assertSerialFactory(RecordCursorFactory factory) {
+        Assert.assertTrue(factory instanceof FilteredRecordCursorFactory);
+    }
+
+    private static CairoConfiguration newParallelConfiguration() {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public boolean isSqlParallelFilterEnabled() {
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentAssociativeCacheTest {
+    @Test
+    public void testCheckoutIsExclusive() {
+        try (ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(4, 8, 8)) {
+            final Value value = new Value();
+            cache.push("select * from x", value);
+            Assert.assertSame(value, cache.poll("select * from x"));
+            Assert.assertNull(cache.poll("select * from x"));
+            cache.push("select * from x", value);
+            Assert.assertSame(value, cache.poll("select * from x"));
+            Assert.assertFalse(value.closed);
+        }
+    }
+
+    @Test
+    public void testClose() {
+        final Value value = new Value();
+        final ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(4, 8, 8);
+        cache.push("x", value);
+        cache.close();
+        Assert.assertTrue(value.closed);
+    }
+
+    @Test
+    public void testConcurrentCheckout() throws Exception {
+        final int threadCount = 4;
+        final int iterations = 10_000;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final AtomicInteger errors = new AtomicInteger();
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        try (ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(threadCount, 8, 8)) {
+            final Thread[] threads = new Thread[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                threads[i] = new Thread(() -> {
+                    final Rnd rnd = new Rnd();
+                    try {
+                        barrier.await();
+                        for (int j = 0; j < iterations; j++) {
+                            final CharSequence key = "q" + rnd.nextPositiveInt() % 16;
+                            Value value = cache.poll(key);
+                            if (value == null) {
+                                value = new Value(closed);
+                                created.incrementAndGet();
+                            }
+                            // value must not be shared with another thread while checked out
+                            if (value.inUse.getAndIncrement() != 0 || value.closed) {
+                                errors.incrementAndGet();
+                            }
+                            value.inUse.decrementAndGet();
+                            cache.push(key, value);
+                        }
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        errors.incrementAndGet();
+                    }
+                });
+                threads[i].start();
+            }
+
+            for (int i = 0; i < threadCount; i++) {
+                threads[i].join();
+            }
+        }
+
+        Assert.assertEquals(0, errors.get());
+        // every value is either rejected on push or closed together with cache
+        Assert.assertEquals(created.get(), closed.get());
+    }
+
+    @Test
+    public void testPushDuplicate() {
+        try (ConcurrentAssociativeCache<Value> cache = new ConcurrentAssociativeCache<>(1, 8, 8)) {
+            final Value first = new Value();
+            final Value second = new Value();
+            cache.push("x", first);
+            cache.push("x", second);
+            Assert.assertFalse(first.closed);
+            Assert.assertTrue(second.closed);
+            Assert.assertSame(first, cache.poll("x"));
+        }
+    }
+
+    private static class Value implements Closeable {
+        private final AtomicInteger inUse = new AtomicInteger();
+        private final AtomicInteger closeCounter;
+        private volatile boolean closed = false;
+
+        Value() {
+            this(new AtomicInteger());
+        }
+
+        Value(AtomicInteger closeCounter) {
+            this.closeCounter = closeCounter;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            closeCounter.incrementAndGet();
+        }
+    }
+}
@@ -65,6 +65,17 @@ public class NumbersTest {
         Assert.assertEquals(32, Numbers.ceilPow2(17));
     }
 
+    @Test
+    public void testCompareDouble() {
+        Assert.assertEquals(0, Numbers.compare(2.5, 2.5));
+        Assert.assertEquals(0, Numbers.compare(-7.0, -7.0));
+        Assert.assertEquals(0, Numbers.compare(Double.NaN, Double.NaN));
+        Assert.assertEquals(-1, Numbers.compare(1.0, 2.0));
+        Assert.assertEquals(1, Numbers.compare(2.0, 1.0));
+        Assert.assertEquals(-1, Numbers.compare(Double.NaN, 1.0));
+        Assert.assertEquals(1, Numbers.compare(1.0, Double.NaN));
+    }
+
     @Test(expected = NumericException.class)
     public void testEmptyDouble() throws Exception {
         Numbers.parseDouble("D");
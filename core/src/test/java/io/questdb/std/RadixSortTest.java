@@ -0,0 +1,98 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+package io.questdb.std;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class RadixSortTest {
+
+    @Test
+    public void testSortAsc() {
+        assertSort(new Rnd(), 100_000, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testSortNarrowRange() {
+        assertSort(new Rnd(), 10_000, 1000);
+    }
+
+    @Test
+    public void testSortSingle() {
+        assertSort(new Rnd(), 1, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testSortStable() {
+        final int count = 1000;
+        final long size = count * 16L;
+        final long pIndex = Unsafe.malloc(size);
+        final long pTemp = Unsafe.malloc(size);
+        try {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putLong(pIndex + i * 16L, (count - i) / 10);
+                Unsafe.getUnsafe().putLong(pIndex + i * 16L + 8, i);
+            }
+            RadixSort.sortLongIndexAsc(pIndex, count, pTemp);
+            for (int i = 1; i < count; i++) {
+                final long prevKey = Unsafe.getUnsafe().getLong(pIndex + (i - 1) * 16L);
+                final long key = Unsafe.getUnsafe().getLong(pIndex + i * 16L);
+                Assert.assertTrue(prevKey <= key);
+                if (prevKey == key) {
+                    Assert.assertTrue(Unsafe.getUnsafe().getLong(pIndex + (i - 1) * 16L + 8) < Unsafe.getUnsafe().getLong(pIndex + i * 16L + 8));
+                }
+            }
+        } finally {
+            Unsafe.free(pIndex, size);
+            Unsafe.free(pTemp, size);
+        }
+    }
+
+    private void assertSort(Rnd rnd, int count, long range) {
+        final long size = count * 16L;
+        final long pIndex = Unsafe.malloc(size);
+        final long pTemp = Unsafe.malloc(size);
+        try {
+            final long[] expected = new long[count];
+            for (int i = 0; i < count; i++) {
+                long key = rnd.nextLong() % range;
+                expected[i] = key;
+                Unsafe.getUnsafe().putLong(pIndex + i * 16L, key);
+                Unsafe.getUnsafe().putLong(pIndex + i * 16L + 8, key * 31);
+            }
+            Arrays.sort(expected);
+            RadixSort.sortLongIndexAsc(pIndex, count, pTemp);
+            for (int i = 0; i < count; i++) {
+                final long key = Unsafe.getUnsafe().getLong(pIndex + i * 16L);
+                Assert.assertEquals(expected[i], key);
+                Assert.assertEquals(key * 31, Unsafe.getUnsafe().getLong(pIndex + i * 16L + 8));
+            }
+        } finally {
+            Unsafe.free(pIndex, size);
+            Unsafe.free(pTemp, size);
+        }
+    }
+}
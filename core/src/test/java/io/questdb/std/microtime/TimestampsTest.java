@@ -157,6 +157,29 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-12T23:00:00.000Z", sink);
     }
 
+    @Test
+    public void testFloorHHBeforeEpoch() throws Exception {
+        long micros = TimestampFormatUtils.parseDateTime("1969-12-31T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorHH(micros));
+        TestUtils.assertEquals("1969-12-31T23:00:00.000Z", sink);
+    }
+
+    @Test
+    public void testFloorWW() throws Exception {
+        long micros = TimestampFormatUtils.parseDateTime("2008-05-18T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+
+        sink.clear();
+        micros = TimestampFormatUtils.parseDateTime("2008-05-12T00:00:00.000Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+
+        sink.clear();
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(0));
+        TestUtils.assertEquals("1969-12-29T00:00:00.000Z", sink);
+    }
+
     @Test
     public void testFloorMM() throws Exception {
         long micros = TimestampFormatUtils.parseDateTime("2008-05-12T23:45:51.045Z");